@@ -0,0 +1,196 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.openslx.eaas.common.concurrent;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+
+/**
+ * Iterator over elements of multiple sources, each being iterated by a separate task
+ * and buffered in a bounded queue. Consumers of this iterator will therefore never block
+ * on slow sources (e.g. paged remote listings), as long as prefetched elements are available.
+ */
+public class PrefetchingIterator<T> implements Iterator<T>, AutoCloseable
+{
+	private final BlockingQueue<Element<T>> queue;
+	private final Element<T> eos;
+	private final List<Producer> producers;
+	private final List<Future<?>> tasks;
+	private volatile boolean closed;
+	private int numActiveProducers;
+	private T pending;
+
+
+	public PrefetchingIterator(int capacity)
+	{
+		if (capacity < 1)
+			throw new IllegalArgumentException();
+
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.eos = new Element<>(null);
+		this.producers = new ArrayList<>();
+		this.tasks = new ArrayList<>();
+		this.closed = false;
+		this.numActiveProducers = 0;
+		this.pending = null;
+	}
+
+	/** Add a source to iterate, calling handler when iterating it fails. Null elements are skipped. */
+	public PrefetchingIterator<T> add(Iterator<? extends T> source, Consumer<Exception> handler)
+	{
+		if (source == null || handler == null)
+			throw new IllegalArgumentException();
+
+		if (!tasks.isEmpty())
+			throw new IllegalStateException("Prefetching was already started!");
+
+		producers.add(new Producer(source, handler));
+		return this;
+	}
+
+	/** Start iterating all added sources, using one task per source on given executor */
+	public PrefetchingIterator<T> start(ExecutorService executor)
+	{
+		if (!tasks.isEmpty())
+			throw new IllegalStateException("Prefetching was already started!");
+
+		try {
+			for (final var producer : producers) {
+				tasks.add(executor.submit(producer));
+				++numActiveProducers;
+			}
+		}
+		catch (RejectedExecutionException error) {
+			this.close();
+			throw error;
+		}
+
+		return this;
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		while (pending == null && numActiveProducers > 0) {
+			final Element<T> element;
+			try {
+				element = queue.take();
+			}
+			catch (InterruptedException error) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Waiting for prefetched elements was interrupted!", error);
+			}
+
+			if (element == eos)
+				--numActiveProducers;
+			else pending = element.value;
+		}
+
+		return pending != null;
+	}
+
+	@Override
+	public T next()
+	{
+		if (!this.hasNext())
+			throw new NoSuchElementException();
+
+		final var value = pending;
+		pending = null;
+		return value;
+	}
+
+	/** Stop all producers and discard prefetched elements */
+	@Override
+	public void close()
+	{
+		closed = true;
+		for (final var task : tasks)
+			task.cancel(true);
+
+		queue.clear();
+		numActiveProducers = 0;
+		pending = null;
+	}
+
+
+	// ===== Internal Helpers ====================
+
+	private static class Element<T>
+	{
+		private final T value;
+
+		private Element(T value)
+		{
+			this.value = value;
+		}
+	}
+
+	private class Producer implements Runnable
+	{
+		private final Iterator<? extends T> source;
+		private final Consumer<Exception> handler;
+
+		public Producer(Iterator<? extends T> source, Consumer<Exception> handler)
+		{
+			this.source = source;
+			this.handler = handler;
+		}
+
+		@Override
+		public void run()
+		{
+			boolean interrupted = false;
+			try {
+				while (!closed && source.hasNext())
+					queue.put(new Element<>(source.next()));
+			}
+			catch (InterruptedException error) {
+				interrupted = true;  // closed while waiting!
+			}
+			catch (Exception error) {
+				handler.accept(error);
+			}
+			finally {
+				if (!interrupted)
+					this.finish();
+			}
+		}
+
+		private void finish()
+		{
+			try {
+				queue.put(eos);  // end-of-source marker
+			}
+			catch (InterruptedException error) {
+				// Closed while waiting!
+			}
+		}
+	}
+}
@@ -0,0 +1,512 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.openslx.eaas.common.util;
+
+import de.bwl.bwfla.common.exceptions.BWFLAException;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntPredicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * In-process HTTP downloader, fetching a remote resource as a sequence of
+ * byte-range chunks in parallel. Every chunk is passed to a handler with its
+ * exact size known upfront and is retried separately on failures.
+ */
+public class RangedDownloader
+{
+	private final Logger log;
+	private final Map<String, String> headers;
+	private String url;
+	private long chunksize;
+	private int parallelism;
+	private int maxretries;
+	private Executor executor;
+
+	public static final long DEFAULT_CHUNK_SIZE = 64L * 1024L * 1024L;
+	public static final int DEFAULT_PARALLELISM = 4;
+	public static final int DEFAULT_MAX_RETRIES = 3;
+
+	private static final int CONNECT_TIMEOUT = 30 * 1000;
+	private static final int READ_TIMEOUT = 60 * 1000;
+	private static final long RETRY_DELAY = 1000L;
+
+
+	public RangedDownloader()
+	{
+		this(Logger.getLogger("RANGED-DOWNLOADER"));
+	}
+
+	public RangedDownloader(Logger log)
+	{
+		this.log = log;
+		this.headers = new HashMap<>();
+		this.chunksize = DEFAULT_CHUNK_SIZE;
+		this.parallelism = DEFAULT_PARALLELISM;
+		this.maxretries = DEFAULT_MAX_RETRIES;
+	}
+
+	public RangedDownloader url(String url)
+	{
+		this.url = url;
+		return this;
+	}
+
+	public RangedDownloader header(String name, String value)
+	{
+		headers.put(name, (value != null) ? value : "");
+		return this;
+	}
+
+	public RangedDownloader headers(Map<String, String> headers)
+	{
+		headers.forEach(this::header);
+		return this;
+	}
+
+	/** Size of chunks to fetch */
+	public RangedDownloader chunksize(long size)
+	{
+		if (size <= 0L)
+			throw new IllegalArgumentException("Invalid chunk size!");
+
+		this.chunksize = size;
+		return this;
+	}
+
+	/** Max. number of chunks to fetch concurrently */
+	public RangedDownloader parallelism(int count)
+	{
+		if (count <= 0)
+			throw new IllegalArgumentException("Invalid parallelism!");
+
+		this.parallelism = count;
+		return this;
+	}
+
+	/** Max. number of retries per chunk */
+	public RangedDownloader retries(int count)
+	{
+		if (count < 0)
+			throw new IllegalArgumentException("Invalid number of retries!");
+
+		this.maxretries = count;
+		return this;
+	}
+
+	/** Executor for running chunk-fetchers, or null for a private one */
+	public RangedDownloader executor(Executor executor)
+	{
+		this.executor = executor;
+		return this;
+	}
+
+	/** Probe remote resource for its size and byte-range support */
+	public Resource probe() throws BWFLAException
+	{
+		try {
+			var resource = this.head();
+			if (resource == null || !resource.seekable())
+				resource = this.peek();
+
+			log.info("Probed " + url + ": size " + resource.size() + ", ranges "
+					+ ((resource.seekable()) ? "supported" : "unsupported"));
+
+			return resource;
+		}
+		catch (IOException error) {
+			throw new BWFLAException("Probing remote resource failed!", error);
+		}
+	}
+
+	/** Download all chunks of given resource, passing them to handler */
+	public void download(Resource resource, ChunkHandler handler) throws BWFLAException
+	{
+		this.download(resource, (index) -> false, handler);
+	}
+
+	/**
+	 * Download chunks of given resource in parallel, passing them to handler.
+	 * Chunks matching the skip-predicate are assumed to be already fetched.
+	 */
+	public void download(Resource resource, IntPredicate skip, ChunkHandler handler) throws BWFLAException
+	{
+		if (!resource.seekable())
+			throw new IllegalArgumentException("Resource does not support byte-ranges!");
+
+		final Queue<Chunk> chunks = new ConcurrentLinkedQueue<>();
+		for (Chunk chunk : resource.chunks(chunksize)) {
+			if (!skip.test(chunk.index()))
+				chunks.add(chunk);
+		}
+
+		if (chunks.isEmpty())
+			return;
+
+		final var numworkers = Math.min(parallelism, chunks.size());
+		log.info("Downloading " + chunks.size() + " chunk(s) of " + url + " using " + numworkers + " worker(s)...");
+
+		final ExecutorService pool = (executor == null) ? Executors.newFixedThreadPool(numworkers) : null;
+		final AtomicReference<Exception> failure = new AtomicReference<>();
+		final Runnable worker = () -> {
+			Chunk chunk;
+			while (failure.get() == null && (chunk = chunks.poll()) != null) {
+				try {
+					this.fetch(resource, chunk, handler);
+				}
+				catch (Exception error) {
+					failure.compareAndSet(null, error);
+				}
+			}
+		};
+
+		try {
+			final var workers = new CompletableFuture<?>[numworkers];
+			for (int i = 0; i < numworkers; ++i)
+				workers[i] = CompletableFuture.runAsync(worker, (pool != null) ? pool : executor);
+
+			CompletableFuture.allOf(workers)
+					.join();
+		}
+		catch (CompletionException error) {
+			failure.compareAndSet(null, error);
+		}
+		finally {
+			if (pool != null)
+				pool.shutdownNow();
+		}
+
+		if (failure.get() != null)
+			throw new BWFLAException("Downloading remote resource failed!", failure.get());
+	}
+
+
+	/** Description of a probed remote resource */
+	public static class Resource
+	{
+		private final long size;
+		private final String validator;
+		private final boolean seekable;
+
+		private Resource(long size, String validator, boolean seekable)
+		{
+			this.size = size;
+			this.validator = validator;
+			this.seekable = seekable && size > 0L;
+		}
+
+		/** Resource's size in bytes, or -1 if unknown */
+		public long size()
+		{
+			return size;
+		}
+
+		/** Resource's strong ETag or last-modified date, if available */
+		public String validator()
+		{
+			return validator;
+		}
+
+		/** Are byte-ranges supported? */
+		public boolean seekable()
+		{
+			return seekable;
+		}
+
+		/** Number of chunks of given size */
+		public int count(long chunksize)
+		{
+			return (int) ((size + chunksize - 1L) / chunksize);
+		}
+
+		/** Split resource into chunks of given size */
+		public List<Chunk> chunks(long chunksize)
+		{
+			final var count = this.count(chunksize);
+			final var chunks = new ArrayList<Chunk>(count);
+			for (int i = 0; i < count; ++i) {
+				final var offset = i * chunksize;
+				chunks.add(new Chunk(i, offset, Math.min(chunksize, size - offset)));
+			}
+
+			return chunks;
+		}
+	}
+
+	/** A byte-range of a remote resource */
+	public static class Chunk
+	{
+		private final int index;
+		private final long offset;
+		private final long length;
+
+		private Chunk(int index, long offset, long length)
+		{
+			this.index = index;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		public int index()
+		{
+			return index;
+		}
+
+		public long offset()
+		{
+			return offset;
+		}
+
+		public long length()
+		{
+			return length;
+		}
+	}
+
+	@FunctionalInterface
+	public interface ChunkHandler
+	{
+		/** Consume chunk's data, providing exactly chunk's length bytes */
+		void accept(Chunk chunk, InputStream data) throws Exception;
+	}
+
+
+	// ===== Internal Helpers ====================
+
+	private Resource head() throws IOException
+	{
+		final var connection = this.connect("HEAD");
+		try {
+			if (connection.getResponseCode() != HttpURLConnection.HTTP_OK)
+				return null;  // HEAD might be unsupported, fallback to GET!
+
+			final var ranges = connection.getHeaderField("Accept-Ranges");
+			final var seekable = "bytes".equalsIgnoreCase(ranges);
+			return new Resource(connection.getContentLengthLong(), RangedDownloader.validator(connection), seekable);
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+	private Resource peek() throws IOException
+	{
+		final var connection = this.connect("GET");
+		connection.setRequestProperty("Range", "bytes=0-0");
+		try {
+			final var code = connection.getResponseCode();
+			switch (code) {
+				case HttpURLConnection.HTTP_PARTIAL:
+					final var size = RangedDownloader.parseTotalSize(connection.getHeaderField("Content-Range"));
+					return new Resource(size, RangedDownloader.validator(connection), size > 0L);
+
+				case HttpURLConnection.HTTP_OK:
+					return new Resource(connection.getContentLengthLong(), null, false);
+
+				default:
+					throw new IOException("Unexpected response code " + code);
+			}
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+	private void fetch(Resource resource, Chunk chunk, ChunkHandler handler) throws Exception
+	{
+		for (int attempt = 0; true; ++attempt) {
+			try {
+				this.download(resource, chunk, handler);
+				return;
+			}
+			catch (InvalidResponseException error) {
+				throw error;  // retrying would not help!
+			}
+			catch (Exception error) {
+				if (attempt >= maxretries)
+					throw error;
+
+				final var message = "Fetching chunk " + chunk.index() + " of " + url + " failed! Retrying...";
+				log.log(Level.WARNING, message, error);
+				Thread.sleep(RETRY_DELAY << attempt);
+			}
+		}
+	}
+
+	private void download(Resource resource, Chunk chunk, ChunkHandler handler) throws Exception
+	{
+		final var first = chunk.offset();
+		final var last = first + chunk.length() - 1L;
+		final var connection = this.connect("GET");
+		connection.setRequestProperty("Range", "bytes=" + first + "-" + last);
+		if (resource.validator() != null)
+			connection.setRequestProperty("If-Range", resource.validator());
+
+		try {
+			final var code = connection.getResponseCode();
+			if (code != HttpURLConnection.HTTP_PARTIAL) {
+				if (code == HttpURLConnection.HTTP_OK)
+					throw new InvalidResponseException("Remote resource changed or ignored byte-range!");
+
+				throw new IOException("Unexpected response code " + code);
+			}
+
+			final var range = connection.getHeaderField("Content-Range");
+			if (range == null || !range.startsWith("bytes " + first + "-" + last + "/"))
+				throw new InvalidResponseException("Unexpected content-range: " + range);
+
+			try (final var data = new BoundedInputStream(connection.getInputStream(), chunk.length())) {
+				handler.accept(chunk, data);
+			}
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+	private HttpURLConnection connect(String method) throws IOException
+	{
+		if (url == null)
+			throw new IllegalStateException("URL is not set!");
+
+		final var connection = (HttpURLConnection) new URL(url).openConnection();
+		connection.setRequestMethod(method);
+		connection.setConnectTimeout(CONNECT_TIMEOUT);
+		connection.setReadTimeout(READ_TIMEOUT);
+		connection.setRequestProperty("Accept-Encoding", "identity");
+		headers.forEach(connection::setRequestProperty);
+		return connection;
+	}
+
+	private static String validator(HttpURLConnection connection)
+	{
+		final var etag = connection.getHeaderField("ETag");
+		if (etag != null && !etag.startsWith("W/"))
+			return etag;
+
+		return connection.getHeaderField("Last-Modified");
+	}
+
+	/** Parse total size from a header like "bytes 0-0/1234", returns -1 if unknown */
+	static long parseTotalSize(String range)
+	{
+		if (range == null)
+			return -1L;
+
+		final var slash = range.lastIndexOf('/');
+		if (slash < 0 || range.endsWith("*"))
+			return -1L;
+
+		try {
+			return Long.parseLong(range.substring(slash + 1).trim());
+		}
+		catch (NumberFormatException error) {
+			return -1L;
+		}
+	}
+
+	private static class InvalidResponseException extends IOException
+	{
+		public InvalidResponseException(String message)
+		{
+			super(message);
+		}
+	}
+
+	/** Stream providing exactly the given number of bytes */
+	private static class BoundedInputStream extends FilterInputStream
+	{
+		private long remaining;
+
+		public BoundedInputStream(InputStream input, long length)
+		{
+			super(input);
+			this.remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			if (remaining <= 0L)
+				return -1;
+
+			final var value = super.read();
+			if (value < 0)
+				throw new EOFException("Chunk is truncated, missing " + remaining + " byte(s)!");
+
+			--remaining;
+			return value;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException
+		{
+			if (remaining <= 0L)
+				return -1;
+
+			final var count = super.read(buffer, offset, (int) Math.min(length, remaining));
+			if (count < 0)
+				throw new EOFException("Chunk is truncated, missing " + remaining + " byte(s)!");
+
+			remaining -= count;
+			return count;
+		}
+
+		@Override
+		public long skip(long count) throws IOException
+		{
+			final var skipped = super.skip(Math.min(count, remaining));
+			remaining -= skipped;
+			return skipped;
+		}
+
+		@Override
+		public int available() throws IOException
+		{
+			return (int) Math.min(super.available(), remaining);
+		}
+
+		@Override
+		public boolean markSupported()
+		{
+			return false;
+		}
+	}
+}
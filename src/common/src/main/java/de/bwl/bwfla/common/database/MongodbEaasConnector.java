@@ -19,6 +19,7 @@
 
 package de.bwl.bwfla.common.database;
 
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
 
 import com.mongodb.Function;
@@ -30,16 +31,23 @@ import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.ReplaceOptions;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
+import com.openslx.eaas.common.databind.DataUtils;
+import de.bwl.bwfla.common.database.document.DocumentCodecs;
 import de.bwl.bwfla.common.exceptions.BWFLAException;
 import de.bwl.bwfla.common.utils.jaxb.JaxbType;
 import org.apache.tamaya.Configuration;
 import org.apache.tamaya.ConfigurationProvider;
+import org.bson.BsonString;
+import org.bson.BsonValue;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
 import org.bson.conversions.Bson;
 
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.xml.bind.JAXBException;
+import java.io.IOException;
 import java.net.UnknownHostException;
 import java.time.Instant;
 import java.util.*;
@@ -109,17 +117,17 @@ public class MongodbEaasConnector {
 		public <T extends JaxbType> T lookup(String cname, String[] filter, Class<T> klass)
 				throws BWFLAException, NoSuchElementException, IllegalArgumentException
 		{
-			final MongoCollection<Document> collection = db.getCollection(cname);
+			final MongoCollection<RawBsonDocument> collection = db.getCollection(cname, RawBsonDocument.class);
 
 			// Remove internal _id field in json (internal unremovable key in database, next step might be to store envId as _id)
-			final Document result = collection.find(MongodbEaasConnector.toFilter(filter))
+			final RawBsonDocument result = collection.find(MongodbEaasConnector.toFilter(filter))
 					.projection(Projections.excludeId())
 					.first();
 
 			if (result == null)
 				throw new NoSuchElementException();
 
-			return T.fromJsonValueWithoutRoot(result.toJson(), klass);
+			return this.decode(result, klass);
 		}
 
 		/**
@@ -166,34 +174,22 @@ public class MongodbEaasConnector {
 		 */
 		public <T extends JaxbType> T getObjectWithClassFromDatabaseKey(String collectionName, String classNameKey, String fvalue, String fkey) throws BWFLAException {
 
-			final MongoCollection<Document> collection = db.getCollection(collectionName);
+			final MongoCollection<RawBsonDocument> collection = db.getCollection(collectionName, RawBsonDocument.class);
 			final Bson filter = Filters.eq(fkey, fvalue);
 
 			// Remove internal _id field in json (internal unremovable key in database, next step might be to store envId as _id)
-			final Document result = collection.find(filter)
+			final RawBsonDocument result = collection.find(filter)
 					.projection(Projections.excludeId())
 					.first();
 
 			if (result == null)
 				throw new NoSuchElementException();
 
-			String classname = (String) result.get(classNameKey);
-			Class<T> klass = null;
-			try {
-				klass = (Class<T>) Class.forName(classname);
-				return T.fromJsonValueWithoutRoot(result.toJson(), klass);
-			}
-			catch (ClassNotFoundException e) {
-				classname = "de.bwl.bwfla.emil.datatypes." + classname;
-				try {
-					klass = (Class<T>) Class.forName(classname);
-					return T.fromJsonValueWithoutRoot(result.toJson(), klass);
-				} catch (ClassNotFoundException e1) {
-					throw new BWFLAException("failed to create object from JSON");
-				}
-			} catch (BWFLAException e) {
-				return checkForDeprecatedData(result, klass, e);
-			}
+			final Class<T> klass = MongodbEaasConnector.resolve(MongodbEaasConnector.getString(result, classNameKey));
+			if (klass == null)
+				throw new BWFLAException("failed to create object from JSON");
+
+			return this.decodeOrUpgrade(result, klass);
 		}
 
 		/**
@@ -212,33 +208,22 @@ public class MongodbEaasConnector {
 
 			// TODO: the results can be pretty big, so here we should return a streaming result!
 
-			final MongoCollection<Document> collection = db.getCollection(collectionName);
+			final MongoCollection<RawBsonDocument> collection = db.getCollection(collectionName, RawBsonDocument.class);
 
 			// Remove internal _id field in json (internal unremovable key in database, next step might be to store envId as _id)
-			final FindIterable<Document> results = collection.find()
+			final FindIterable<RawBsonDocument> results = collection.find()
 					.projection(Projections.excludeId());
 
 			final ArrayList<T> objects = new ArrayList<>();
-			for (Document result : results) {
-				String classname = (String) result.get(classNameDBKey);
-				Class<T> klass = null;
-				try {
-					klass = (Class<T>) Class.forName(classname);
-					objects.add(T.fromJsonValueWithoutRoot(result.toJson(), klass));
-				}
-				catch (ClassNotFoundException e) {
-					classname = "de.bwl.bwfla.emil.datatypes." + classname;
-					try {
-						klass = (Class<T>) Class.forName(classname);
-						objects.add(T.fromJsonValueWithoutRoot(result.toJson(), klass));
-					} catch (ClassNotFoundException e1) {
-						e1.printStackTrace();
-						continue;
-					}
-				}
-				catch (BWFLAException e1){
-					objects.add(checkForDeprecatedData(result, klass, e1));
+			for (RawBsonDocument result : results) {
+				final String classname = MongodbEaasConnector.getString(result, classNameDBKey);
+				final Class<T> klass = MongodbEaasConnector.resolve(classname);
+				if (klass == null) {
+					log.warning("Skipping document with unknown class: " + classname);
+					continue;
 				}
+
+				objects.add(this.decodeOrUpgrade(result, klass));
 			}
 			return objects;
 		}
@@ -347,34 +332,22 @@ public class MongodbEaasConnector {
 
 			// TODO: the results can be pretty big, so here we should return a streaming result!
 
-			final MongoCollection<Document> collection = db.getCollection(collectionName);
+			final MongoCollection<RawBsonDocument> collection = db.getCollection(collectionName, RawBsonDocument.class);
 			final Bson filter = Filters.eq(fkey, fvalue);
 
-			final FindIterable<Document> results = collection.find(filter)
+			final FindIterable<RawBsonDocument> results = collection.find(filter)
 					.projection(Projections.excludeId());
 
 			final ArrayList<T> objects = new ArrayList<>();
-			for (Document result : results) {
-				String classname = (String) result.get(classNameDBKey);
-				Class<T> klass = null;
-				try {
-					klass = (Class<T>) Class.forName(classname);
-					objects.add(T.fromJsonValueWithoutRoot(result.toJson(), klass));
-				} catch (ClassNotFoundException e) {
-					classname = "de.bwl.bwfla.emil.datatypes." + classname;
-					try {
-						klass = (Class<T>) Class.forName(classname);
-						objects.add(T.fromJsonValueWithoutRoot(result.toJson(), klass));
-					}
-					catch (ClassNotFoundException e1)
-					{
-						e1.printStackTrace();
-						continue;
-					}
-				}
-				catch (BWFLAException e1){
-					objects.add(checkForDeprecatedData(result, klass, e1));
+			for (RawBsonDocument result : results) {
+				final String classname = MongodbEaasConnector.getString(result, classNameDBKey);
+				final Class<T> klass = MongodbEaasConnector.resolve(classname);
+				if (klass == null) {
+					log.warning("Skipping document with unknown class: " + classname);
+					continue;
 				}
+
+				objects.add(this.decodeOrUpgrade(result, klass));
 			}
 			return objects;
 		}
@@ -446,36 +419,20 @@ public class MongodbEaasConnector {
 
 		public <T extends JaxbType> Stream<T> find(String colname, FilterBuilder filter, String clazzkey)
 		{
-			final Function<Document, T> mapper = (document) -> {
+			final Function<RawBsonDocument, T> mapper = (document) -> {
+				String classname = MongodbEaasConnector.getString(document, clazzkey);
+				if (classname != null && classname.contains("EmilNetworkEnvironment"))
+					classname = "NetworkEnvironment";
 
-				Class<T> clazz = null;
-				try {
-					String className = document.getString(clazzkey);
-					if(className == null)
-						throw new ClassNotFoundException();
-					clazz = (Class<T>) Class.forName(className);
-				} catch (ClassNotFoundException e) {
-					try {
-						String klass = document.getString(clazzkey);
-						if(klass.contains("EmilNetworkEnvironment"))
-							klass = "NetworkEnvironment";
-
-						clazz = (Class<T>) Class.forName("de.bwl.bwfla.emil.datatypes." + klass);
-					} catch (ClassNotFoundException e1) {
-						e1.printStackTrace();
-						throw new MongoException("Deserializing document failed!", e1);
-					}
-				}
+				final Class<T> clazz = MongodbEaasConnector.resolve(classname);
+				if (clazz == null)
+					throw new MongoException("Deserializing document failed! Unknown class: " + classname);
 
-				try {
-					return T.fromJsonValueWithoutRoot(document.toJson(), clazz);
-				} catch (BWFLAException e1) {
-					return checkForDeprecatedData(document, clazz, e1);
-				}
+				return this.decodeOrUpgrade(document, clazz);
 			};
 
 			// NOTE: The mandatory field '_id' is removed from returned documents
-			final MongoCollection<Document> collection = db.getCollection(colname);
+			final MongoCollection<RawBsonDocument> collection = db.getCollection(colname, RawBsonDocument.class);
 			final Spliterator<T> spliterator = collection.find(filter.build())
 					.projection(Projections.excludeId())
 					.map(mapper)
@@ -486,29 +443,17 @@ public class MongodbEaasConnector {
 
 		public <T extends JaxbType> Stream<T> find(String colname, int offset, int maxcount, FilterBuilder filter, String clazzkey)
 		{
-			final Function<Document, T> mapper = (document) -> {
-
-				Class<T> clazz = null;
-				try {
-					clazz = (Class<T>) Class.forName(document.getString(clazzkey));
-				} catch (ClassNotFoundException e) {
-					try {
-						clazz = (Class<T>) Class.forName("de.bwl.bwfla.emil.datatypes." + document.getString(clazzkey));
-					} catch (ClassNotFoundException e1) {
-						e1.printStackTrace();
-						throw new MongoException("Deserializing document failed!", e1);
-					}
-				}
+			final Function<RawBsonDocument, T> mapper = (document) -> {
+				final String classname = MongodbEaasConnector.getString(document, clazzkey);
+				final Class<T> clazz = MongodbEaasConnector.resolve(classname);
+				if (clazz == null)
+					throw new MongoException("Deserializing document failed! Unknown class: " + classname);
 
-				try {
-					return T.fromJsonValueWithoutRoot(document.toJson(), clazz);
-				} catch (BWFLAException e1) {
-					return checkForDeprecatedData(document, clazz, e1);
-				}
+				return this.decodeOrUpgrade(document, clazz);
 			};
 
 			// NOTE: The mandatory field '_id' is removed from returned documents
-			final MongoCollection<Document> collection = db.getCollection(colname);
+			final MongoCollection<RawBsonDocument> collection = db.getCollection(colname, RawBsonDocument.class);
 			final Spliterator<T> spliterator = collection.find(filter.build())
 					.projection(Projections.excludeId())
 					.skip(offset)
@@ -540,6 +485,36 @@ public class MongodbEaasConnector {
 			log.info("ensure timestamp: " + collectionName + " modified items: " + result.getModifiedCount());
 		}
 
+		/** Decode raw document directly into an object of given class */
+		private <T extends JaxbType> T decode(RawBsonDocument document, Class<T> clazz) throws BWFLAException
+		{
+			final ObjectReader reader = DocumentCodecs.reader(DataUtils.json().mapper(), clazz);
+			final T result;
+			try {
+				result = DocumentCodecs.decode(document, reader);
+			}
+			catch (IOException | RuntimeException error) {
+				// BSON readers report malformed documents with unchecked exceptions
+				throw new BWFLAException(error);
+			}
+
+			if (result == null)
+				throw new BWFLAException("jackson failed to parse document!");
+
+			return result;
+		}
+
+		/** Decode raw document, upgrading deprecated content on failures */
+		private <T extends JaxbType> T decodeOrUpgrade(RawBsonDocument document, Class<T> clazz)
+		{
+			try {
+				return this.decode(document, clazz);
+			}
+			catch (BWFLAException error) {
+				return this.checkForDeprecatedData(document.decode(DOCUMENT_CODEC), clazz, error);
+			}
+		}
+
 		/**
 		 * Helper method to ensure DB content compatibility. Ideally, all entries in oldStyleDB will be re-saved in new format
 		 * @param document
@@ -568,6 +543,30 @@ public class MongodbEaasConnector {
 		}
 	}
 
+	private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec();
+	private static final String EMIL_DATATYPES_PACKAGE = "de.bwl.bwfla.emil.datatypes.";
+
+	/** Returns a document's string value, or null if missing */
+	private static String getString(RawBsonDocument document, String key)
+	{
+		final BsonValue value = document.get(key);
+		return (value instanceof BsonString) ? ((BsonString) value).getValue() : null;
+	}
+
+	/** Resolve a document's class by its full or emil-datatype name, returns null if not found */
+	@SuppressWarnings("unchecked")
+	private static <T extends JaxbType> Class<T> resolve(String classname)
+	{
+		if (classname == null)
+			return null;
+
+		Class<?> clazz = DocumentCodecs.lookup(classname);
+		if (clazz == null)
+			clazz = DocumentCodecs.lookup(EMIL_DATATYPES_PACKAGE + classname);
+
+		return (Class<T>) clazz;
+	}
+
 	private static Document toFilter(String[] kvs)
 	{
 		if (kvs.length % 2 != 0)
@@ -0,0 +1,124 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.common.database.document;
+
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.util.BufferRecyclers;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.module.jaxb.JaxbAnnotationModule;
+import org.bson.AbstractBsonReader;
+import org.bson.BsonBinaryReader;
+import org.bson.RawBsonDocument;
+import org.bson.UuidRepresentation;
+import org.mongojack.internal.MongoJackModule;
+import org.mongojack.internal.stream.DBDecoderBsonParser;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Shared codecs for mapping BSON documents to objects.
+ * <p/>
+ * Object-mappers and per-type readers are expensive to set up and thread-safe once
+ * configured, hence they are created only once and reused. Documents are decoded
+ * directly from their BSON representation, without converting them to JSON text.
+ */
+public final class DocumentCodecs
+{
+	/** Object-mapper for document-collections, using MongoJack module (with JAX-B support) */
+	private static final ObjectMapper COLLECTION_MAPPER = MongoJackModule.configure(new ObjectMapper())
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+			.registerModule(new JaxbAnnotationModule());
+
+	/** Resolved classes by name, including missing ones */
+	private static final Map<String, Optional<Class<?>>> CLASSES = new ConcurrentHashMap<>();
+
+
+	/** Returns the shared object-mapper for document-collections */
+	public static ObjectMapper mapper()
+	{
+		return COLLECTION_MAPPER;
+	}
+
+	/** Returns a cached reader for given type, based on specified mapper */
+	public static ObjectReader reader(ObjectMapper mapper, Class<?> clazz)
+	{
+		return READERS.get(clazz)
+				.computeIfAbsent(mapper, (unused) -> mapper.readerFor(clazz));
+	}
+
+	/** Look up a class by its name, returns null if not found */
+	public static Class<?> lookup(String name)
+	{
+		if (name == null)
+			return null;
+
+		final Optional<Class<?>> clazz = CLASSES.computeIfAbsent(name, (unused) -> {
+			try {
+				return Optional.of(Class.forName(name));
+			}
+			catch (ClassNotFoundException error) {
+				return Optional.empty();
+			}
+		});
+
+		return clazz.orElse(null);
+	}
+
+	/** Decode a raw BSON document using given reader */
+	public static <T> T decode(RawBsonDocument document, ObjectReader reader) throws IOException
+	{
+		final BsonBinaryReader breader = new BsonBinaryReader(document.getByteBuffer().asNIO());
+		return DocumentCodecs.decode(breader, reader);
+	}
+
+	/** Decode next document from a BSON stream using given reader */
+	public static <T> T decode(AbstractBsonReader breader, ObjectReader reader) throws IOException
+	{
+		final IOContext context = new IOContext(BufferRecyclers.getBufferRecycler(), breader, false);
+		final ObjectMapper mapper = (ObjectMapper) reader.getFactory().getCodec();
+		try (final DBDecoderBsonParser parser = new DBDecoderBsonParser(context, 0, breader, mapper, UuidRepresentation.STANDARD)) {
+			return reader.readValue(parser);
+		}
+	}
+
+
+	// ========== Internal Helpers ==============================
+
+	/** Cached readers per type and mapper */
+	private static final ClassValue<Map<ObjectMapper, ObjectReader>> READERS = new ClassValue<>() {
+		@Override
+		protected Map<ObjectMapper, ObjectReader> computeValue(Class<?> clazz)
+		{
+			return new ConcurrentHashMap<>(2);
+		}
+	};
+
+	private DocumentCodecs()
+	{
+		// Empty!
+	}
+}
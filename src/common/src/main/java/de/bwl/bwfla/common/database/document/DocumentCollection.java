@@ -37,6 +37,7 @@ import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.RenameCollectionOptions;
 import com.mongodb.client.model.ReplaceOneModel;
 import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
 import com.mongodb.client.model.UpdateManyModel;
 import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.Updates;
@@ -51,6 +52,7 @@ import org.bson.conversions.Bson;
 import javax.validation.constraints.NotNull;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.BiFunction;
@@ -102,6 +104,17 @@ public class DocumentCollection<T>
 		}
 	}
 
+	/** Find documents passing filter, returning only specified fields */
+	public FindResult<T> find(Filter filter, String... fields) throws BWFLAException
+	{
+		try {
+			return new FindResult<>(this.documents(filter, fields));
+		}
+		catch (MongoException error) {
+			throw new BWFLAException("Finding documents failed!", error);
+		}
+	}
+
 	/** List all documents */
 	public FindResult<T> list() throws BWFLAException
 	{
@@ -334,6 +347,13 @@ public class DocumentCollection<T>
 			return this;
 		}
 
+		/** Sort documents by specified fields, in ascending order */
+		public FindResult<T> sort(String... fields)
+		{
+			result = result.sort(Sorts.ascending(fields));
+			return this;
+		}
+
 		/** Return documents as stream */
 		public Stream<T> stream()
 		{
@@ -524,6 +544,12 @@ public class DocumentCollection<T>
 			return this.and(Filters::gte, key, value);
 		}
 
+		public <V> Filter in(String key, Collection<V> values)
+		{
+			expression = Filters.and(expression, Filters.in(key, values));
+			return this;
+		}
+
 		public Filter and(Filter filter)
 		{
 			expression = Filters.and(expression, filter.expression());
@@ -595,6 +621,11 @@ public class DocumentCollection<T>
 			return this.combine(Updates::max, key, value);
 		}
 
+		public <V> Update addToSet(String key, V value)
+		{
+			return this.combine(Updates::addToSet, key, value);
+		}
+
 		public Update rename(String key, String newkey)
 		{
 			return this.combine(Updates::rename, key, newkey);
@@ -677,4 +708,11 @@ public class DocumentCollection<T>
 		return collection.find(filter.expression())
 				.projection(Projections.excludeId());
 	}
+
+	private FindIterable<T> documents(Filter filter, String... fields)
+	{
+		final var projection = Projections.fields(Projections.include(fields), Projections.excludeId());
+		return collection.find(filter.expression())
+				.projection(projection);
+	}
 }
@@ -19,17 +19,15 @@
 
 package de.bwl.bwfla.common.database.document;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.module.jaxb.JaxbAnnotationModule;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 import org.bson.Document;
 import org.bson.UuidRepresentation;
 import org.bson.json.JsonWriterSettings;
 import org.mongojack.JacksonMongoCollection;
-import org.mongojack.internal.MongoJackModule;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -38,25 +36,27 @@ import java.util.stream.StreamSupport;
 public class DocumentDatabase
 {
 	private final MongoDatabase db;
+	private final Map<String, DocumentCollection<?>> collections;
 
 	DocumentDatabase(MongoDatabase db)
 	{
 		this.db = db;
+		this.collections = new ConcurrentHashMap<>();
 	}
 
 	/** Get or create a document-collection */
+	@SuppressWarnings("unchecked")
 	public <T> DocumentCollection<T> collection(String cname, Class<T> clazz)
 	{
-		// Configure object-mapper to use MongoJack module (with JAX-B support)
-		final ObjectMapper mapper = MongoJackModule.configure(new ObjectMapper())
-				.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
-				.registerModule(new JaxbAnnotationModule());
-
-		final MongoCollection<T> collection = JacksonMongoCollection.builder()
-				.withObjectMapper(mapper)
-				.build(db, cname, clazz, UuidRepresentation.STANDARD);
-
-		return new DocumentCollection<T>(collection);
+		final String key = cname + "/" + clazz.getName();
+		return (DocumentCollection<T>) collections.computeIfAbsent(key, (unused) -> {
+			// Use shared object-mapper with MongoJack module (with JAX-B support)
+			final MongoCollection<T> collection = JacksonMongoCollection.builder()
+					.withObjectMapper(DocumentCodecs.mapper())
+					.build(db, cname, clazz, UuidRepresentation.STANDARD);
+
+			return new DocumentCollection<T>(collection);
+		});
 	}
 
 	/** List all collections */
@@ -28,6 +28,8 @@ import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.spi.CDI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
@@ -37,6 +39,7 @@ import java.util.stream.StreamSupport;
 @ApplicationScoped
 public class DocumentDatabaseConnector
 {
+	private final Map<String, DocumentDatabase> databases = new ConcurrentHashMap<>();
 	private MongoClient mongo = null;
 
 	@PostConstruct
@@ -72,7 +75,7 @@ public class DocumentDatabaseConnector
 	/** Get or create a document-database */
 	public DocumentDatabase database(String name)
 	{
-		return new DocumentDatabase(mongo.getDatabase(name));
+		return databases.computeIfAbsent(name, (unused) -> new DocumentDatabase(mongo.getDatabase(name)));
 	}
 
 	/** List all databases */
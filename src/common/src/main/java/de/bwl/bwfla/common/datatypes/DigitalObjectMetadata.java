@@ -134,4 +134,17 @@ public class DigitalObjectMetadata extends JaxbType{
 	public void setMetsData(String metsData) {
 		this.metsData = metsData;
 	}
+
+	@Override
+	public DigitalObjectMetadata clone()
+	{
+		final var copy = new DigitalObjectMetadata(id, title, description);
+		copy.thumbnail = thumbnail;
+		copy.summary = summary;
+		copy.isSoftware = isSoftware;
+		copy.wikiDataId = wikiDataId;
+		copy.customData = (customData != null) ? new HashMap<>(customData) : null;
+		copy.metsData = metsData;
+		return copy;
+	}
 }
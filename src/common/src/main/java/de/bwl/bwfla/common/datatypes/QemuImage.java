@@ -26,6 +26,10 @@ public class QemuImage extends JaxbType {
     @XmlElement(name = "format")
     private String format;
 
+    @JsonProperty("cluster-size")
+    @XmlElement(name = "cluster-size")
+    private String clusterSize;
+
     @JsonProperty("backing-filename")
     @XmlElement(name = "backing-filename")
     private String backingFile;
@@ -62,6 +66,14 @@ public class QemuImage extends JaxbType {
         this.format = format;
     }
 
+    public String getClusterSize() {
+        return clusterSize;
+    }
+
+    public void setClusterSize(String clusterSize) {
+        this.clusterSize = clusterSize;
+    }
+
     public String getBackingFile() {
         return backingFile;
     }
@@ -23,6 +23,7 @@ import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.Shape;
 import java.awt.geom.Path2D;
 import java.awt.geom.Rectangle2D;
@@ -102,8 +103,11 @@ final class CanvasLayer
 		curpath.append(subpath, false);
 	}
 	
-	/** Complete the current path and fill it with the specified color. */
-	public void fillCurrentPath(AlphaComposite composite, int r, int g, int b, int a)
+	/**
+	 * Complete the current path and fill it with the specified color.
+	 * @return The bounds of the modified area, or null when no paths were filled.
+	 */
+	public Rectangle fillCurrentPath(AlphaComposite composite, int r, int g, int b, int a)
 	{
 		// Setup the renderer
 		Graphics2D graphics = image.createGraphics();
@@ -115,15 +119,23 @@ final class CanvasLayer
 			graphics.fill(shape);
 		
 		graphics.dispose();
+		
+		final Rectangle bounds = this.getShapeBounds(0);
 		this.reset();
+		return bounds;
 	}
 	
-	/** Complete the current path and stroke it using the specified color and settings. */
-	public void strokeCurrentPath(AlphaComposite composite, int cap, int join, int thickness, int r, int g, int b, int a)
+	/**
+	 * Complete the current path and stroke it using the specified color and settings.
+	 * @return The bounds of the modified area, or null when no paths were stroked.
+	 */
+	public Rectangle strokeCurrentPath(AlphaComposite composite, int cap, int join, int thickness, int r, int g, int b, int a)
 	{
+		final BasicStroke stroke = new BasicStroke(thickness, cap, join);
+		
 		// Setup the renderer
 		Graphics2D graphics = image.createGraphics();
-		graphics.setStroke(new BasicStroke(thickness, cap, join));
+		graphics.setStroke(stroke);
 		graphics.setColor(new Color(r, g, b, a));
 		graphics.setComposite(composite);
 
@@ -132,7 +144,15 @@ final class CanvasLayer
 			graphics.draw(shape);
 
 		graphics.dispose();
+		
+		// Strokes can extend beyond the path's bounds, mitered joins up to the miter-limit
+		float extent = 0.5F * stroke.getLineWidth();
+		if (join == BasicStroke.JOIN_MITER)
+			extent *= Math.max(1.0F, stroke.getMiterLimit());
+		
+		final Rectangle bounds = this.getShapeBounds((int) Math.ceil(extent));
 		this.reset();
+		return bounds;
 	}
 	
 	/** Reset the paths of this layer. */
@@ -170,4 +190,20 @@ final class CanvasLayer
 		shapes.add(newpath);
 		return newpath;
 	}
+	
+	private Rectangle getShapeBounds(int margin)
+	{
+		Rectangle bounds = null;
+		for (Shape shape : shapes) {
+			if (bounds == null)
+				bounds = shape.getBounds();
+			else bounds.add(shape.getBounds());
+		}
+		
+		// Include the pixels touched by anti-aliasing
+		if (bounds != null)
+			bounds.grow(margin + 1, margin + 1);
+		
+		return bounds;
+	}
 }
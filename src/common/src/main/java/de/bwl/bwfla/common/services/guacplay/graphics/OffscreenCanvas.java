@@ -22,9 +22,11 @@ package de.bwl.bwfla.common.services.guacplay.graphics;
 import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.geom.Arc2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.HashMap;
@@ -44,11 +46,18 @@ public class OffscreenCanvas implements ISizeInstrListener
 	/** The ID, representing an invalid layer. */
 	private static final int INVALID_LAYERID = Integer.MIN_VALUE;
 	
+	/** Size of the tiles used for damage-tracking, as a power of two (64x64 pixels). */
+	private static final int TILE_SIZE_SHIFT = 6;
+	private static final int TILE_SIZE = 1 << TILE_SIZE_SHIFT;
+	
 	// Member fields
 	private final Map<Integer, CanvasLayer> buffers;        // Layers with ID < 0
 	private final Map<Integer, CanvasLayer> layers;         // Layers with ID >= 0
 	private final Set<ScreenObserver> observers;
+	private final BitSet damage;                            // Tiles to recomposite, row-major
 	private BufferedImage canvas;
+	private int numTileColumns;
+	private int numTileRows;
 	
 	// Members for fast-path access
 	private CanvasLayer curLayer;
@@ -63,11 +72,14 @@ public class OffscreenCanvas implements ISizeInstrListener
 		this.buffers = new HashMap<Integer, CanvasLayer>();
 		this.layers = new TreeMap<Integer, CanvasLayer>();
 		this.observers = new HashSet<ScreenObserver>();
+		this.damage = new BitSet();
 		this.canvas = this.newBufferedImage(1024, 768);
 		this.curLayer = null;
 		this.curComposite = null;
 		this.curLayerId = INVALID_LAYERID;
 		this.curMaskId = Integer.MIN_VALUE;
+		
+		this.resetTileGrid();
 	}
 	
 	/**
@@ -90,6 +102,9 @@ public class OffscreenCanvas implements ISizeInstrListener
 		graphics.drawImage(image, x, y, null);
 		graphics.dispose();
 		
+		if (layerid >= 0)
+			this.addDamage(x, y, x + image.getWidth(), y + image.getHeight());
+		
 		this.updateScreenObservers(x, y, x + image.getWidth(), y + image.getHeight());
 	}
 	
@@ -121,6 +136,9 @@ public class OffscreenCanvas implements ISizeInstrListener
 		graphics.drawImage(image, dx1, dy1, dx2, dy2, 0, 0, width, height, null);
 		graphics.dispose();
 		
+		if (layerid >= 0)
+			this.addDamage(dx1, dy1, dx2, dy2);
+		
 		this.updateScreenObservers(dx1, dy1, dx2, dy2);
 	}
 	
@@ -238,7 +256,9 @@ public class OffscreenCanvas implements ISizeInstrListener
 	{
 		AlphaComposite composite = this.findComposite(maskid);
 		CanvasLayer layer = this.findLayer(layerid);
-		layer.fillCurrentPath(composite, r, g, b, a);
+		Rectangle bounds = layer.fillCurrentPath(composite, r, g, b, a);
+		if ((layerid >= 0) && (bounds != null))
+			this.addDamage(bounds.x, bounds.y, bounds.x + bounds.width, bounds.y + bounds.height);
 	}
 	
 	/**
@@ -261,17 +281,23 @@ public class OffscreenCanvas implements ISizeInstrListener
 		
 		AlphaComposite composite = this.findComposite(maskid);
 		CanvasLayer layer = this.findLayer(layerid);
-		layer.strokeCurrentPath(composite, cap, join, thickness, r, g, b, a);
+		Rectangle bounds = layer.strokeCurrentPath(composite, cap, join, thickness, r, g, b, a);
+		if ((layerid >= 0) && (bounds != null))
+			this.addDamage(bounds.x, bounds.y, bounds.x + bounds.width, bounds.y + bounds.height);
 	}
 	
-	/** Render all visible layers in this canvas. */
+	/**
+	 * Render all visible layers in this canvas. Only the areas damaged
+	 * since the last rendering are recomposited, the rest is reused.
+	 */
 	public void render()
 	{
 		this.render(0, 0, canvas.getWidth(), canvas.getHeight());
 	}
 	
 	/**
-	 * Render all visible layers in this canvas, using the specified clipping area. 
+	 * Render all visible layers in this canvas, using the specified clipping area. Only the
+	 * damaged tiles intersecting the clipping area are recomposited, the rest is reused.
 	 * @param x The x coordinate of the clipping rectangle
 	 * @param y The y coordinate of the clipping rectangle
 	 * @param width The width of the clipping rectangle
@@ -279,18 +305,56 @@ public class OffscreenCanvas implements ISizeInstrListener
 	 */
 	public void render(int x, int y, int width, int height)
 	{
-		Graphics2D graphics = canvas.createGraphics();
+		if (damage.isEmpty())
+			return;  // Nothing changed!
 		
-		// Set the clipping region
-		graphics.setClip(x, y, width, height);
+		final int cwidth = canvas.getWidth();
+		final int cheight = canvas.getHeight();
 		
-		// Draw all visible layers from 0 to N
-		for (Entry<Integer, CanvasLayer> entry : layers.entrySet()) {
-			final CanvasLayer layer = entry.getValue();
-			graphics.drawImage(layer.image(), 0, 0, null);
+		// Clip the area to the canvas bounds
+		final int x1 = Math.max(x, 0);
+		final int y1 = Math.max(y, 0);
+		final int x2 = Math.min(x + width, cwidth);
+		final int y2 = Math.min(y + height, cheight);
+		if ((x1 >= x2) || (y1 >= y2))
+			return;
+		
+		final int col1 = x1 >> TILE_SIZE_SHIFT;
+		final int col2 = ((x2 - 1) >> TILE_SIZE_SHIFT) + 1;
+		final int row1 = y1 >> TILE_SIZE_SHIFT;
+		final int row2 = ((y2 - 1) >> TILE_SIZE_SHIFT) + 1;
+		
+		Graphics2D graphics = null;
+		
+		// Recomposite all damaged tiles, joining adjacent ones in a row
+		for (int row = row1; row < row2; ++row) {
+			final int offset = row * numTileColumns;
+			final int end = offset + col2;
+			int first = damage.nextSetBit(offset + col1);
+			while ((first >= 0) && (first < end)) {
+				final int last = Math.min(damage.nextClearBit(first), end);
+				damage.clear(first, last);
+				
+				if (graphics == null)
+					graphics = canvas.createGraphics();
+				
+				final int dx1 = (first - offset) << TILE_SIZE_SHIFT;
+				final int dy1 = row << TILE_SIZE_SHIFT;
+				final int dx2 = Math.min((last - offset) << TILE_SIZE_SHIFT, cwidth);
+				final int dy2 = Math.min(dy1 + TILE_SIZE, cheight);
+				
+				// Draw all visible layers from 0 to N
+				for (Entry<Integer, CanvasLayer> entry : layers.entrySet()) {
+					final CanvasLayer layer = entry.getValue();
+					graphics.drawImage(layer.image(), dx1, dy1, dx2, dy2, dx1, dy1, dx2, dy2, null);
+				}
+				
+				first = damage.nextSetBit(last);
+			}
 		}
 		
-		graphics.dispose();
+		if (graphics != null)
+			graphics.dispose();
 	}
 	
 	/**
@@ -319,6 +383,30 @@ public class OffscreenCanvas implements ISizeInstrListener
 		graphics.dispose();
 	}
 	
+	/**
+	 * Mark the specified area as damaged, forcing it to be recomposited on the next rendering.
+	 * @param x The x coordinate of the damaged rectangle
+	 * @param y The y coordinate of the damaged rectangle
+	 * @param width The width of the damaged rectangle
+	 * @param height The height of the damaged rectangle
+	 */
+	public void invalidate(int x, int y, int width, int height)
+	{
+		this.addDamage(x, y, x + width, y + height);
+	}
+	
+	/** Mark the whole canvas as damaged, forcing a full recomposition on the next rendering. */
+	public void invalidate()
+	{
+		damage.set(0, numTileColumns * numTileRows);
+	}
+	
+	/** Returns true, when some areas need to be recomposited on the next rendering, else false. */
+	public boolean isDamaged()
+	{
+		return !damage.isEmpty();
+	}
+	
 	@Override
 	public void resize(int layerid, int width, int height)
 	{		
@@ -336,7 +424,10 @@ public class OffscreenCanvas implements ISizeInstrListener
 				canvas.flush();
 			
 			canvas = this.newBufferedImage(width, height);
+			this.resetTileGrid();
 		}
+		else if (layerid > 0)
+			this.invalidate();
 	}
 	
 	/** Remove the layer with specified ID. */
@@ -345,8 +436,13 @@ public class OffscreenCanvas implements ISizeInstrListener
 		// Remove the layer from its list and free used resources
 		Map<Integer, CanvasLayer> collection = this.getLayerCollection(layerid);
 		CanvasLayer layer = collection.remove(layerid);
-		if (layer != null)
+		if (layer != null) {
 			layer.flush();
+			
+			// Visible content changed?
+			if (layerid >= 0)
+				this.invalidate();
+		}
 		
 		// Remove current references if needed
 		if (curLayerId == layerid) {
@@ -456,6 +552,10 @@ public class OffscreenCanvas implements ISizeInstrListener
 			// Layer was not found, create a new one
 			curLayer = this.newLayer(width, height);
 			collection.put(layerid, curLayer);
+			
+			// A new visible layer covers the whole canvas
+			if (layerid >= 0)
+				this.invalidate();
 		}
 		
 		curLayerId = layerid;
@@ -477,6 +577,37 @@ public class OffscreenCanvas implements ISizeInstrListener
 		return curComposite;
 	}
 	
+	private void resetTileGrid()
+	{
+		numTileColumns = (canvas.getWidth() + TILE_SIZE - 1) >> TILE_SIZE_SHIFT;
+		numTileRows = (canvas.getHeight() + TILE_SIZE - 1) >> TILE_SIZE_SHIFT;
+		
+		damage.clear();
+		this.invalidate();
+	}
+	
+	private void addDamage(int x1, int y1, int x2, int y2)
+	{
+		// Clip the area to the canvas bounds
+		x1 = Math.max(x1, 0);
+		y1 = Math.max(y1, 0);
+		x2 = Math.min(x2, canvas.getWidth());
+		y2 = Math.min(y2, canvas.getHeight());
+		if ((x1 >= x2) || (y1 >= y2))
+			return;
+		
+		final int col1 = x1 >> TILE_SIZE_SHIFT;
+		final int col2 = ((x2 - 1) >> TILE_SIZE_SHIFT) + 1;
+		final int row1 = y1 >> TILE_SIZE_SHIFT;
+		final int row2 = ((y2 - 1) >> TILE_SIZE_SHIFT) + 1;
+		
+		// Mark all intersected tiles
+		for (int row = row1; row < row2; ++row) {
+			final int offset = row * numTileColumns;
+			damage.set(offset + col1, offset + col2);
+		}
+	}
+	
 	private void updateScreenObservers(int x1, int y1, int x2, int y2)
 	{
 		for (ScreenObserver observer : observers)
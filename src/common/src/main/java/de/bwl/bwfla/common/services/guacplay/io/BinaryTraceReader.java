@@ -0,0 +1,377 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.common.services.guacplay.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import de.bwl.bwfla.common.services.guacplay.GuacDefs.SourceType;
+import de.bwl.bwfla.common.services.guacplay.protocol.Message;
+import de.bwl.bwfla.common.services.guacplay.io.FileReader.State;
+
+import static de.bwl.bwfla.common.services.guacplay.io.TraceFileDefs.*;
+
+
+/**
+ * A reader for {@link TraceFile}s in the binary format (v2),
+ * supporting random-access using the file's seek-index.
+ * @see BinaryTraceWriter
+ */
+public class BinaryTraceReader implements ITraceEntryReader, Closeable
+{
+	/* Member fields */
+	private final TraceFile file;
+	private final FileChannel channel;
+	private final FrameBuffer frame;
+	private final ByteBuffer header;
+	private final Inflater inflater;
+	private SeekIndex index;
+	private byte[] inpbuf;
+	private long metadataOffset;
+	private long nextFrameOffset;
+	private long firstFrameOffset;
+	private long firstTimestamp;
+	private long lastTimestamp;
+	private long prevTimestamp;
+	private int numEntries;
+	private int numEntriesRead;
+	private int numFrameEntries;
+	private int interval;
+	private State state;
+	
+	
+	/** Package-Private Constructor */
+	BinaryTraceReader(TraceFile file, FileChannel channel)
+	{
+		this.file = file;
+		this.channel = channel;
+		this.frame = new FrameBuffer(64 * 1024);
+		this.header = ByteBuffer.allocate(Math.max(FRAME_HEADER_LENGTH, FILE_FOOTER_LENGTH));
+		this.inflater = new Inflater();
+		this.index = null;
+		this.inpbuf = new byte[16 * 1024];
+		this.numEntriesRead = 0;
+		this.numFrameEntries = 0;
+		this.state = State.READY;
+	}
+	
+	/** Prepares the reading-process and loads the metadata. */
+	public void prepare() throws IOException
+	{
+		this.prepare(true);
+	}
+	
+	/**
+	 * Prepares the reading-process and loads the metadata, when specified.
+	 * @param loadMetadata If true then the metadata frame will be read, else not.
+	 */
+	public void prepare(boolean loadMetadata) throws IOException
+	{
+		this.ensureState(State.READY);
+		this.checkFileHeader();
+		this.readFooter();
+		
+		// Load the seek-index
+		this.readFrame(FRAME_TYPE_INDEX);
+		index = SeekIndex.deserialize(frame);
+		
+		// Load also the metadata, if requested
+		if (loadMetadata)
+			this.readMetadataFrame();
+		
+		// Reader is now ready for reading operations!
+		nextFrameOffset = firstFrameOffset;
+		numFrameEntries = 0;
+		frame.clear();
+		state = State.READING;
+	}
+	
+	@Override
+	public boolean read(Message message) throws IOException
+	{
+		this.ensureState(State.READING);
+		
+		// Current frame fully read?
+		while (numFrameEntries == 0) {
+			if (!this.nextTraceFrame())
+				return false;
+		}
+		
+		final long timestamp = prevTimestamp + frame.getVarSignedLong();
+		final char[] data = frame.getChars();
+		message.set(SourceType.INTERNAL, timestamp, data, 0, data.length);
+		
+		prevTimestamp = timestamp;
+		--numFrameEntries;
+		++numEntriesRead;
+		return true;
+	}
+	
+	/**
+	 * Move this reader to the first trace-entry with a timestamp not less than the specified one.
+	 * Only the frame containing that entry will be read and decoded.
+	 * @param timestamp The timestamp to seek to.
+	 * @return The number of trace-entries preceding the new position.
+	 */
+	public int seek(long timestamp) throws IOException
+	{
+		this.ensureState(State.READING);
+		
+		final int found = index.find(timestamp);
+		if (found < 0)
+			return numEntriesRead;  // Empty trace!
+		
+		nextFrameOffset = index.offset(found);
+		numEntriesRead = index.entry(found);
+		numFrameEntries = 0;
+		
+		// Skip all preceding entries
+		while (numFrameEntries > 0 || this.nextTraceFrame()) {
+			final int position = frame.position();
+			final long curts = prevTimestamp + frame.getVarSignedLong();
+			if (curts >= timestamp) {
+				// Rewind to this entry!
+				frame.position(position);
+				break;
+			}
+			
+			frame.skipChars();
+			prevTimestamp = curts;
+			--numFrameEntries;
+			++numEntriesRead;
+		}
+		
+		return numEntriesRead;
+	}
+	
+	/** Returns the total number of trace-entries. */
+	public int getNumEntries()
+	{
+		return numEntries;
+	}
+	
+	/** Returns the number of trace-entries read or skipped. */
+	public int getNumEntriesRead()
+	{
+		return numEntriesRead;
+	}
+	
+	/** Returns the timestamp of the first trace-entry, or -1 if the trace is empty. */
+	public long getFirstTimestamp()
+	{
+		return firstTimestamp;
+	}
+	
+	/** Returns the timestamp of the last trace-entry, or -1 if the trace is empty. */
+	public long getLastTimestamp()
+	{
+		return lastTimestamp;
+	}
+	
+	/** Returns the max. interval between two seek-points (in ms). */
+	public int getSeekInterval()
+	{
+		return interval;
+	}
+	
+	/** Returns the number of seek-points. */
+	public int getNumSeekPoints()
+	{
+		return (index != null) ? index.size() : 0;
+	}
+	
+	/** Returns the size of the trace-file. */
+	public long size() throws IOException
+	{
+		return channel.size();
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		inflater.end();
+		state = State.CLOSED;
+		channel.close();
+	}
+	
+	
+	/* ==================== INTERNAL METHODS ==================== */
+	
+	private void ensureState(State reqState)
+	{
+		if (state != reqState) {
+			String message = "The reader is in an invalid state! Expected: " 
+					+ reqState.toString() + ", Current: " + state.toString();
+			throw new IllegalStateException(message);
+		}
+	}
+	
+	private void checkFileHeader() throws IOException
+	{
+		final String signature = file.getHeader().toString() + SYMBOL_NEWLINE;
+		final byte[] expected = signature.getBytes(file.getCharset());
+		final int length = expected.length + FILE_HEADER_LENGTH;
+		
+		this.read(0L, length);
+		
+		// Check the header's signature
+		final byte[] data = frame.array();
+		for (int i = 0; i < expected.length; ++i) {
+			if (data[i] != expected[i]) {
+				final String found = new String(data, 0, expected.length, file.getCharset()).trim();
+				String message = "Invalid header found in '" + found + "'! Expected was '" + signature.trim() + "'.";
+				throw new FileReaderException(message);
+			}
+		}
+		
+		frame.position(expected.length);
+		frame.getByte();  // Flags, currently informational only
+		interval = frame.getInt();
+		firstFrameOffset = length;
+	}
+	
+	private void readFooter() throws IOException
+	{
+		final long offset = this.size() - FILE_FOOTER_LENGTH;
+		if (offset < firstFrameOffset)
+			throw new FileReaderException("The trace-file is truncated: " + file.getPath());
+		
+		this.read(offset, FILE_FOOTER_LENGTH);
+		
+		metadataOffset = frame.getLong();
+		final long ixoffset = frame.getLong();
+		numEntries = frame.getInt();
+		firstTimestamp = frame.getLong();
+		lastTimestamp = frame.getLong();
+		if (frame.getLong() != BINARY_EOF_MARKER)
+			throw new FileReaderException("The end-of-file marker was not found in: " + file.getPath());
+		
+		nextFrameOffset = ixoffset;
+	}
+	
+	private void readMetadataFrame() throws IOException
+	{
+		final Metadata metadata = file.getMetadata();
+		metadata.clear();
+		
+		nextFrameOffset = metadataOffset;
+		this.readFrame(FRAME_TYPE_METADATA);
+		
+		final int numChunks = frame.getVarInt();
+		for (int i = 0; i < numChunks; ++i) {
+			final String tag = frame.getString();
+			final String comment = frame.getString();
+			final int numChunkEntries = frame.getVarInt();
+			final MetadataChunk chunk = new MetadataChunk(tag, (comment.isEmpty()) ? null : comment);
+			for (int j = 0; j < numChunkEntries; ++j)
+				chunk.put(frame.getString(), frame.getString());
+			
+			metadata.addChunk(chunk);
+		}
+	}
+	
+	/** Read the next trace-frame, returns false when no frames are left. */
+	private boolean nextTraceFrame() throws IOException
+	{
+		if (nextFrameOffset >= metadataOffset)
+			return false;
+		
+		prevTimestamp = this.readFrame(FRAME_TYPE_TRACE);
+		return true;
+	}
+	
+	/** Read the frame at current offset into the frame-buffer, returns frame's timestamp. */
+	private long readFrame(byte type) throws IOException
+	{
+		final long offset = nextFrameOffset;
+		
+		// Read and check the frame's header
+		header.clear();
+		header.limit(FRAME_HEADER_LENGTH);
+		this.read(offset, header);
+		if (header.get() != type) {
+			String message = "Invalid frame found at offset " + offset + "! Expected was '" + (char) type + "'.";
+			throw new FileReaderException(message);
+		}
+		
+		final byte flags = header.get();
+		final int length = header.getInt();
+		final int rawlen = header.getInt();
+		final int count = header.getInt();
+		final long timestamp = header.getLong();
+		if (length < 0 || rawlen < 0 || count < 0)
+			throw new FileReaderException("Invalid frame's header found at offset " + offset + "!");
+		
+		final long payload = offset + FRAME_HEADER_LENGTH;
+		if ((flags & FLAG_COMPRESSED) != 0) {
+			if (inpbuf.length < length)
+				inpbuf = new byte[length];
+			
+			this.read(payload, ByteBuffer.wrap(inpbuf, 0, length));
+			
+			// Decompress the frame
+			frame.reserve(rawlen);
+			inflater.reset();
+			inflater.setInput(inpbuf, 0, length);
+			try {
+				if (inflater.inflate(frame.array(), 0, rawlen) != rawlen || !inflater.finished())
+					throw new FileReaderException("Invalid compressed frame found at offset " + offset + "!");
+			}
+			catch (DataFormatException error) {
+				String message = "Decompressing frame at offset " + offset + " failed: " + error.getMessage();
+				throw new FileReaderException(message);
+			}
+			
+			frame.reset(rawlen);
+		}
+		else this.read(payload, length);
+		
+		nextFrameOffset = payload + length;
+		numFrameEntries = (type == FRAME_TYPE_TRACE) ? count : 0;
+		return timestamp;
+	}
+	
+	/** Read the specified number of bytes into the frame-buffer. */
+	private void read(long offset, int length) throws IOException
+	{
+		frame.reserve(length);
+		this.read(offset, ByteBuffer.wrap(frame.array(), 0, length));
+		frame.reset(length);
+	}
+	
+	/** Read the whole remaining buffer's content. */
+	private void read(long offset, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining()) {
+			final int count = channel.read(buffer, offset);
+			if (count < 0)
+				throw new FileReaderException("Unexpected end of file: " + file.getPath());
+			
+			offset += count;
+		}
+		
+		buffer.flip();
+	}
+}
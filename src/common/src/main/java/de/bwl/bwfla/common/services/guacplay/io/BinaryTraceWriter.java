@@ -0,0 +1,340 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.common.services.guacplay.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.bwl.bwfla.common.services.guacplay.protocol.Instruction;
+import de.bwl.bwfla.common.services.guacplay.protocol.InstructionDescription;
+import de.bwl.bwfla.common.services.guacplay.io.FileWriter.State;
+
+import static de.bwl.bwfla.common.services.guacplay.io.TraceFileDefs.*;
+
+
+/**
+ * A writer for {@link TraceFile}s in the binary format (v2).
+ * <p/>
+ * After a text-header, identical to the one of v1 files, the trace-entries are written into
+ * length-prefixed and optionally compressed frames. A new frame is started, when the seek-interval
+ * elapses, so that each frame can be located using the time-based seek-index, written at the end.
+ */
+public class BinaryTraceWriter implements ITraceEntryWriter, Closeable
+{
+	/** Logger instance. */
+	private final Logger log = LoggerFactory.getLogger(BinaryTraceWriter.class);
+	
+	/* Member fields */
+	private final TraceFile file;
+	private final FileChannel channel;
+	private final FrameBuffer frame;
+	private final ByteBuffer header;
+	private final SeekIndex index;
+	private final Deflater deflater;
+	private final int interval;
+	private byte[] outbuf;
+	private long frameTimestamp;
+	private long prevTimestamp;
+	private long firstTimestamp;
+	private int numFrameEntries;
+	private int numEntriesWritten;
+	private long numBytesWritten;
+	private State state;
+	
+	/** Default interval between two seek-points (in ms) */
+	public static final int DEFAULT_SEEK_INTERVAL = 1000;
+	
+	/** Max. length of uncompressed frames (64kB) */
+	private static final int MAX_FRAME_LENGTH = 64 * 1024;
+	
+	
+	/** Package-Private Constructor */
+	BinaryTraceWriter(TraceFile file, FileChannel channel)
+	{
+		this(file, channel, DEFAULT_SEEK_INTERVAL, true);
+	}
+	
+	/** Package-Private Constructor */
+	BinaryTraceWriter(TraceFile file, FileChannel channel, int interval, boolean compress)
+	{
+		if (interval <= 0)
+			throw new IllegalArgumentException("Invalid seek-interval: " + interval);
+		
+		this.file = file;
+		this.channel = channel;
+		this.frame = new FrameBuffer(MAX_FRAME_LENGTH + 1024);
+		this.header = ByteBuffer.allocate(Math.max(FRAME_HEADER_LENGTH, FILE_FOOTER_LENGTH));
+		this.index = new SeekIndex();
+		this.deflater = (compress) ? new Deflater(Deflater.BEST_SPEED) : null;
+		this.interval = interval;
+		this.outbuf = new byte[MAX_FRAME_LENGTH];
+		this.frameTimestamp = 0L;
+		this.prevTimestamp = 0L;
+		this.firstTimestamp = -1L;
+		this.numFrameEntries = 0;
+		this.numEntriesWritten = 0;
+		this.numBytesWritten = 0L;
+		this.state = State.READY;
+	}
+	
+	/** Prepare the writing-process. */
+	public void prepare() throws IOException
+	{
+		this.ensureState(State.READY);
+		
+		// Write the header, compatible with v1 files
+		final String signature = file.getHeader().toString() + SYMBOL_NEWLINE;
+		final byte[] bytes = signature.getBytes(file.getCharset());
+		frame.clear();
+		frame.putBytes(bytes, 0, bytes.length);
+		frame.putByte((deflater != null) ? FLAG_COMPRESSED : 0);
+		frame.putInt(interval);
+		this.write(ByteBuffer.wrap(frame.array(), 0, frame.length()));
+		frame.clear();
+		
+		// Writer is now ready for writing operations!
+		state = State.WRITING;
+	}
+	
+	@Override
+	public void write(InstructionDescription desc, Instruction instr) throws IOException
+	{
+		this.write(desc.getTimestamp(), instr.array(), instr.offset(), instr.length());
+	}
+	
+	@Override
+	public void write(long timestamp, char[] data, int offset, int length) throws IOException
+	{
+		this.ensureState(State.WRITING);
+		
+		// Start a new frame?
+		if (numFrameEntries > 0) {
+			final boolean elapsed = (timestamp - frameTimestamp) >= interval;
+			if (elapsed || frame.length() >= MAX_FRAME_LENGTH)
+				this.writeTraceFrame();
+		}
+		
+		if (numFrameEntries == 0) {
+			frameTimestamp = timestamp;
+			prevTimestamp = timestamp;
+		}
+		
+		if (firstTimestamp < 0L)
+			firstTimestamp = timestamp;
+		
+		// Timestamps are stored as deltas
+		frame.putVarSignedLong(timestamp - prevTimestamp);
+		frame.putChars(data, offset, length);
+		prevTimestamp = timestamp;
+		
+		++numFrameEntries;
+		++numEntriesWritten;
+	}
+	
+	@Override
+	public int getNumEntriesWritten()
+	{
+		return numEntriesWritten;
+	}
+	
+	/** Returns the number of bytes written, using this writer. */
+	public long getNumBytesWritten()
+	{
+		return numBytesWritten;
+	}
+	
+	/** Returns the writer's state. */
+	public State getState()
+	{
+		return state;
+	}
+	
+	/** Returns true, when the writer was closed, else false. */
+	public boolean isClosed()
+	{
+		return (state == State.CLOSED);
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		// Writer already closed?
+		if (this.isClosed())
+			return;
+		
+		try {
+			if (state == State.WRITING) {
+				if (numFrameEntries > 0)
+					this.writeTraceFrame();
+				
+				// Append special frames and the footer
+				final long mdoffset = this.writeMetadataFrame();
+				final long ixoffset = this.writeIndexFrame();
+				this.writeFooter(mdoffset, ixoffset);
+			}
+		}
+		finally {
+			if (deflater != null)
+				deflater.end();
+			
+			state = State.CLOSED;
+			channel.close();
+		}
+	}
+	
+	
+	/* ==================== INTERNAL METHODS ==================== */
+	
+	private void writeTraceFrame() throws IOException
+	{
+		final long offset = channel.position();
+		index.add(frameTimestamp, offset, numEntriesWritten - numFrameEntries);
+		
+		final byte[] payload;
+		final int length;
+		byte flags = 0;
+		
+		if (deflater != null) {
+			// Compress the frame's content
+			deflater.reset();
+			deflater.setInput(frame.array(), 0, frame.length());
+			deflater.finish();
+			
+			int count = 0;
+			while (!deflater.finished()) {
+				if (count == outbuf.length)
+					outbuf = Arrays.copyOf(outbuf, outbuf.length << 1);
+				
+				count += deflater.deflate(outbuf, count, outbuf.length - count);
+			}
+			
+			if (count < frame.length()) {
+				flags = FLAG_COMPRESSED;
+				payload = outbuf;
+				length = count;
+			}
+			else {
+				// Compression is not worth it!
+				payload = frame.array();
+				length = frame.length();
+			}
+		}
+		else {
+			payload = frame.array();
+			length = frame.length();
+		}
+		
+		this.writeFrame(FRAME_TYPE_TRACE, flags, payload, length, frame.length(), numFrameEntries, frameTimestamp);
+		
+		frame.clear();
+		numFrameEntries = 0;
+	}
+	
+	private long writeMetadataFrame() throws IOException
+	{
+		final Metadata metadata = file.getMetadata();
+		final long offset = channel.position();
+		
+		frame.clear();
+		frame.putVarInt(metadata.getChunks().size());
+		for (MetadataChunk chunk : metadata.getChunks()) {
+			final String comment = chunk.getComment();
+			frame.putString(chunk.getTag());
+			frame.putString((comment != null) ? comment : "");
+			frame.putVarInt(chunk.size());
+			for (Map.Entry<String, String> entry : chunk.entrySet()) {
+				frame.putString(entry.getKey());
+				frame.putString(entry.getValue());
+			}
+		}
+		
+		this.writeFrame(FRAME_TYPE_METADATA, (byte) 0, frame.array(), frame.length(), frame.length(), 0, 0L);
+		frame.clear();
+		return offset;
+	}
+	
+	private long writeIndexFrame() throws IOException
+	{
+		final long offset = channel.position();
+		
+		frame.clear();
+		index.serialize(frame);
+		
+		this.writeFrame(FRAME_TYPE_INDEX, (byte) 0, frame.array(), frame.length(), frame.length(), index.size(), 0L);
+		frame.clear();
+		
+		log.debug("{} seek-points written to trace-file: {}", index.size(), file.getPath());
+		return offset;
+	}
+	
+	private void writeFooter(long mdoffset, long ixoffset) throws IOException
+	{
+		header.clear();
+		header.putLong(mdoffset);
+		header.putLong(ixoffset);
+		header.putInt(numEntriesWritten);
+		header.putLong(firstTimestamp);
+		header.putLong((numEntriesWritten > 0) ? prevTimestamp : -1L);
+		header.putLong(BINARY_EOF_MARKER);
+		header.flip();
+		
+		this.write(header);
+	}
+	
+	private void writeFrame(byte type, byte flags, byte[] payload, int length, int rawlen, int count, long timestamp)
+			throws IOException
+	{
+		header.clear();
+		header.put(type);
+		header.put(flags);
+		header.putInt(length);
+		header.putInt(rawlen);
+		header.putInt(count);
+		header.putLong(timestamp);
+		header.flip();
+		
+		this.write(header);
+		this.write(ByteBuffer.wrap(payload, 0, length));
+	}
+	
+	private void write(ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining())
+			numBytesWritten += channel.write(buffer);
+	}
+	
+	private void ensureState(State reqState)
+	{
+		if (state != reqState) {
+			String message = "The Writer is in an invalid state! Expected: " 
+					+ reqState.toString() + ", Current: " + state.toString();
+			throw new IllegalStateException(message);
+		}
+	}
+}
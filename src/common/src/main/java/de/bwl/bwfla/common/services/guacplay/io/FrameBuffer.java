@@ -0,0 +1,299 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.common.services.guacplay.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * A growable byte-array, used for encoding and decoding
+ * the frames of the binary {@link TraceFile}s. (package-private)
+ */
+final class FrameBuffer
+{
+	private byte[] data;
+	private int length;
+	private int position;
+	
+	
+	/** Constructor */
+	public FrameBuffer(int capacity)
+	{
+		this.data = new byte[capacity];
+		this.length = 0;
+		this.position = 0;
+	}
+	
+	/** Returns the underlying array. */
+	public byte[] array()
+	{
+		return data;
+	}
+	
+	/** Returns the number of valid bytes. */
+	public int length()
+	{
+		return length;
+	}
+	
+	/** Returns the current read-position. */
+	public int position()
+	{
+		return position;
+	}
+	
+	/** Set the current read-position. */
+	public void position(int newpos)
+	{
+		if (newpos < 0 || newpos > length)
+			throw new IllegalArgumentException("Invalid position: " + newpos);
+		
+		this.position = newpos;
+	}
+	
+	/** Returns true, when unread bytes are available, else false. */
+	public boolean hasRemaining()
+	{
+		return (position < length);
+	}
+	
+	/** Discard the whole content. */
+	public void clear()
+	{
+		this.reset(0);
+	}
+	
+	/** Mark the first length bytes as valid and rewind the read-position. */
+	public void reset(int length)
+	{
+		if (length > data.length)
+			throw new IllegalArgumentException("Invalid length: " + length);
+		
+		this.length = length;
+		this.position = 0;
+	}
+	
+	/** Ensure, that the array can hold at least the specified number of bytes. */
+	public void reserve(int capacity)
+	{
+		if (capacity <= data.length)
+			return;
+		
+		final int newcap = Math.max(capacity, data.length + (data.length >> 1));
+		this.data = Arrays.copyOf(data, newcap);
+	}
+	
+	
+	/* ==================== Encoding ==================== */
+	
+	public void putByte(byte value)
+	{
+		this.reserve(length + 1);
+		data[length++] = value;
+	}
+	
+	public void putInt(int value)
+	{
+		this.reserve(length + 4);
+		for (int shift = 24; shift >= 0; shift -= 8)
+			data[length++] = (byte) (value >>> shift);
+	}
+	
+	public void putLong(long value)
+	{
+		this.reserve(length + 8);
+		for (int shift = 56; shift >= 0; shift -= 8)
+			data[length++] = (byte) (value >>> shift);
+	}
+	
+	/** Write an unsigned integer, using a variable-length encoding. */
+	public void putVarInt(int value)
+	{
+		this.putVarLong(value & 0xFFFFFFFFL);
+	}
+	
+	/** Write an unsigned long, using a variable-length encoding. */
+	public void putVarLong(long value)
+	{
+		this.reserve(length + 10);
+		while ((value & ~0x7FL) != 0L) {
+			data[length++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		
+		data[length++] = (byte) value;
+	}
+	
+	/** Write a signed long, using the zigzag and variable-length encodings. */
+	public void putVarSignedLong(long value)
+	{
+		this.putVarLong((value << 1) ^ (value >> 63));
+	}
+	
+	/** Write a string, prefixed with its length. */
+	public void putString(String value)
+	{
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		this.putVarInt(bytes.length);
+		this.putBytes(bytes, 0, bytes.length);
+	}
+	
+	/** Write the specified chars, prefixed with their length. */
+	public void putChars(char[] chars, int offset, int count)
+	{
+		final int end = offset + count;
+		int index = offset;
+		while (index < end && chars[index] < 0x80)
+			++index;
+		
+		if (index == end) {
+			// Fast-path for pure ASCII
+			this.putVarInt(count);
+			this.putVarInt(count);
+			this.reserve(length + count);
+			for (index = offset; index < end; ++index)
+				data[length++] = (byte) chars[index];
+		}
+		else {
+			final byte[] bytes = new String(chars, offset, count).getBytes(StandardCharsets.UTF_8);
+			this.putVarInt(count);
+			this.putVarInt(bytes.length);
+			this.putBytes(bytes, 0, bytes.length);
+		}
+	}
+	
+	public void putBytes(byte[] bytes, int offset, int count)
+	{
+		this.reserve(length + count);
+		System.arraycopy(bytes, offset, data, length, count);
+		length += count;
+	}
+	
+	
+	/* ==================== Decoding ==================== */
+	
+	public byte getByte() throws FileReaderException
+	{
+		this.ensureRemaining(1);
+		return data[position++];
+	}
+	
+	public int getInt() throws FileReaderException
+	{
+		this.ensureRemaining(4);
+		int value = 0;
+		for (int i = 0; i < 4; ++i)
+			value = (value << 8) | (data[position++] & 0xFF);
+		
+		return value;
+	}
+	
+	public long getLong() throws FileReaderException
+	{
+		this.ensureRemaining(8);
+		long value = 0L;
+		for (int i = 0; i < 8; ++i)
+			value = (value << 8) | (data[position++] & 0xFF);
+		
+		return value;
+	}
+	
+	/** Read an unsigned integer in variable-length encoding. */
+	public int getVarInt() throws FileReaderException
+	{
+		final long value = this.getVarLong();
+		if (value > 0xFFFFFFFFL)
+			throw new FileReaderException("Invalid variable-length integer found!");
+		
+		return (int) value;
+	}
+	
+	/** Read an unsigned long in variable-length encoding. */
+	public long getVarLong() throws FileReaderException
+	{
+		long value = 0L;
+		for (int shift = 0; shift < 64; shift += 7) {
+			this.ensureRemaining(1);
+			final byte cur = data[position++];
+			value |= (long) (cur & 0x7F) << shift;
+			if ((cur & 0x80) == 0)
+				return value;
+		}
+		
+		throw new FileReaderException("Invalid variable-length long found!");
+	}
+	
+	/** Read a signed long in zigzag and variable-length encoding. */
+	public long getVarSignedLong() throws FileReaderException
+	{
+		final long value = this.getVarLong();
+		return (value >>> 1) ^ -(value & 1L);
+	}
+	
+	/** Read a string, prefixed with its length. */
+	public String getString() throws FileReaderException
+	{
+		final int count = this.getVarInt();
+		this.ensureRemaining(count);
+		final String value = new String(data, position, count, StandardCharsets.UTF_8);
+		position += count;
+		return value;
+	}
+	
+	/** Read chars, prefixed with their length, into a new array. */
+	public char[] getChars() throws FileReaderException
+	{
+		final int numchars = this.getVarInt();
+		final int numbytes = this.getVarInt();
+		this.ensureRemaining(numbytes);
+		
+		final char[] chars;
+		if (numchars == numbytes) {
+			// Fast-path for pure ASCII
+			chars = new char[numchars];
+			for (int i = 0; i < numchars; ++i)
+				chars[i] = (char) data[position + i];
+		}
+		else chars = new String(data, position, numbytes, StandardCharsets.UTF_8).toCharArray();
+		
+		position += numbytes;
+		return chars;
+	}
+	
+	/** Skip chars, prefixed with their length. */
+	public void skipChars() throws FileReaderException
+	{
+		this.getVarInt();
+		final int numbytes = this.getVarInt();
+		this.ensureRemaining(numbytes);
+		position += numbytes;
+	}
+	
+	
+	/* ==================== Internal Methods ==================== */
+	
+	private void ensureRemaining(int count) throws FileReaderException
+	{
+		if (count < 0 || length - position < count)
+			throw new FileReaderException("Unexpected end of frame!");
+	}
+}
@@ -0,0 +1,37 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.common.services.guacplay.io;
+
+import java.io.IOException;
+
+import de.bwl.bwfla.common.services.guacplay.protocol.Message;
+
+
+/** Common interface for readers of trace-entries, independent of the file's format. */
+public interface ITraceEntryReader
+{
+	/**
+	 * Read a single {@link Message}.
+	 * @param message The destination for read message.
+	 * @return true, when a valid message was read, else false.
+	 */
+	public boolean read(Message message) throws IOException;
+}
@@ -0,0 +1,143 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.common.services.guacplay.io;
+
+import java.util.Arrays;
+
+
+/**
+ * A time-based index for the trace-frames of binary {@link TraceFile}s,
+ * mapping frame's first timestamps to their offsets. (package-private)
+ */
+final class SeekIndex
+{
+	private long[] timestamps;
+	private long[] offsets;
+	private int[] entries;
+	private int size;
+	
+	
+	/** Constructor */
+	public SeekIndex()
+	{
+		this(64);
+	}
+	
+	/** Constructor */
+	public SeekIndex(int capacity)
+	{
+		capacity = Math.max(capacity, 1);
+		
+		this.timestamps = new long[capacity];
+		this.offsets = new long[capacity];
+		this.entries = new int[capacity];
+		this.size = 0;
+	}
+	
+	/**
+	 * Add a new index-entry. Entries must be added in increasing order of their timestamps.
+	 * @param timestamp The timestamp of frame's first trace-entry.
+	 * @param offset The frame's offset in the file.
+	 * @param entry The number of trace-entries preceding the frame.
+	 */
+	public void add(long timestamp, long offset, int entry)
+	{
+		if (size == timestamps.length) {
+			final int newcap = size + (size >> 1) + 1;
+			this.timestamps = Arrays.copyOf(timestamps, newcap);
+			this.offsets = Arrays.copyOf(offsets, newcap);
+			this.entries = Arrays.copyOf(entries, newcap);
+		}
+		
+		timestamps[size] = timestamp;
+		offsets[size] = offset;
+		entries[size] = entry;
+		++size;
+	}
+	
+	/**
+	 * Find the frame, that should contain the specified timestamp.
+	 * @return The index of the last frame starting at or before the timestamp,
+	 *         0 if all frames start later, or -1 if this index is empty.
+	 */
+	public int find(long timestamp)
+	{
+		if (size == 0)
+			return -1;
+		
+		int low = 0;
+		int high = size - 1;
+		while (low < high) {
+			final int mid = (low + high + 1) >>> 1;
+			if (timestamps[mid] <= timestamp)
+				low = mid;
+			else high = mid - 1;
+		}
+		
+		return low;
+	}
+	
+	/** Returns the frame's first timestamp. */
+	public long timestamp(int index)
+	{
+		return timestamps[index];
+	}
+	
+	/** Returns the frame's offset. */
+	public long offset(int index)
+	{
+		return offsets[index];
+	}
+	
+	/** Returns the number of trace-entries preceding the frame. */
+	public int entry(int index)
+	{
+		return entries[index];
+	}
+	
+	/** Returns the number of index-entries. */
+	public int size()
+	{
+		return size;
+	}
+	
+	/** Serialize this index into the specified buffer. */
+	public void serialize(FrameBuffer buffer)
+	{
+		buffer.putVarInt(size);
+		for (int i = 0; i < size; ++i) {
+			buffer.putLong(timestamps[i]);
+			buffer.putLong(offsets[i]);
+			buffer.putInt(entries[i]);
+		}
+	}
+	
+	/** Deserialize an index from the specified buffer. */
+	public static SeekIndex deserialize(FrameBuffer buffer) throws FileReaderException
+	{
+		final int size = buffer.getVarInt();
+		final SeekIndex index = new SeekIndex(size);
+		for (int i = 0; i < size; ++i)
+			index.add(buffer.getLong(), buffer.getLong(), buffer.getInt());
+		
+		return index;
+	}
+}
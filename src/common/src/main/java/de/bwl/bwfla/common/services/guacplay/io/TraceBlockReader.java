@@ -31,7 +31,7 @@ import static de.bwl.bwfla.common.services.guacplay.io.TraceFileDefs.*;
 
 
 /** A reader for blocks, containing client-events and server-updates. */
-public final class TraceBlockReader extends BlockReader
+public final class TraceBlockReader extends BlockReader implements ITraceEntryReader
 {
 	private final IntegerToken itoken;
 	private final LongToken ltoken;
@@ -52,6 +52,7 @@ public final class TraceBlockReader extends BlockReader
 	 * @param message The destination for read message.
 	 * @return true, when a valid message was read, else false.
 	 */
+	@Override
 	public boolean read(Message message) throws IOException
 	{
 		// Loop, while something can be read
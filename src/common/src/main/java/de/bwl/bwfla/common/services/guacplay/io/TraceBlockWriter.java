@@ -29,7 +29,7 @@ import static de.bwl.bwfla.common.services.guacplay.io.TraceFileDefs.*;
 
 
 /** A writer for blocks, containing client-events and server-updates. */
-public final class TraceBlockWriter extends BlockWriter
+public final class TraceBlockWriter extends BlockWriter implements ITraceEntryWriter
 {
 	private int numEntriesWritten;
 	
@@ -46,12 +46,14 @@ public final class TraceBlockWriter extends BlockWriter
 	}
 
 	/** Write an event/update with a timestamp. */
+	@Override
 	public void write(InstructionDescription desc, Instruction instr) throws IOException
 	{
 		this.write(desc.getTimestamp(), instr.array(), instr.offset(), instr.length());
 	}
 	
 	/** Write an event/update with a timestamp. */
+	@Override
 	public void write(long timestamp, char[] data, int offset, int length) throws IOException
 	{
 		buffer.append(INDENTATION);
@@ -80,6 +82,7 @@ public final class TraceBlockWriter extends BlockWriter
 	}
 	
 	/** Returns the number of entries, that were written to current block. */
+	@Override
 	public int getNumEntriesWritten()
 	{
 		return numEntriesWritten;
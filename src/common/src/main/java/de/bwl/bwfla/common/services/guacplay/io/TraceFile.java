@@ -20,6 +20,7 @@
 package de.bwl.bwfla.common.services.guacplay.io;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
@@ -27,8 +28,7 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.EnumSet;
 
-import static de.bwl.bwfla.common.services.guacplay.io.TraceFileDefs.VERSION_MAJOR;
-import static de.bwl.bwfla.common.services.guacplay.io.TraceFileDefs.VERSION_MINOR;
+import static de.bwl.bwfla.common.services.guacplay.io.TraceFileDefs.*;
 
 
 /**
@@ -50,6 +50,13 @@ public class TraceFile
 		this(new Version(VERSION_MAJOR, VERSION_MINOR), path, charset);
 	}
 	
+	/** Constructor */
+	public TraceFile(Path path, Charset charset, boolean binary)
+	{
+		this((binary) ? new Version(BINARY_VERSION_MAJOR, BINARY_VERSION_MINOR)
+				: new Version(VERSION_MAJOR, VERSION_MINOR), path, charset);
+	}
+	
 	/** Constructor */
 	public TraceFile(Version version, Path path, Charset charset)
 	{
@@ -80,6 +87,83 @@ public class TraceFile
 		return new TraceFileReader(this, channel);
 	}
 	
+	/** Creates a new binary trace-file and returns a writer for writing into it. */
+	public BinaryTraceWriter newBinaryWriter() throws IOException
+	{
+		return this.newBinaryWriter(BinaryTraceWriter.DEFAULT_SEEK_INTERVAL, true);
+	}
+	
+	/**
+	 * Creates a new binary trace-file and returns a writer for writing into it.
+	 * @param interval The max. interval between two seek-points (in ms).
+	 * @param compress If true, then trace-frames will be compressed.
+	 */
+	public BinaryTraceWriter newBinaryWriter(int interval, boolean compress) throws IOException
+	{
+		if (!this.isBinary())
+			throw new IllegalStateException("Trace-file version " + this.getVersion() + " is not binary!");
+		
+		// Options for opening the channel
+		EnumSet<StandardOpenOption> options = EnumSet.of(StandardOpenOption.CREATE);
+		options.add(StandardOpenOption.TRUNCATE_EXISTING);
+		options.add(StandardOpenOption.WRITE);
+		
+		// Open channel and create the writer
+		FileChannel channel = (FileChannel) Files.newByteChannel(path, options);
+		return new BinaryTraceWriter(this, channel, interval, compress);
+	}
+	
+	/** Opens a binary trace-file and returns a reader for reading from it. */
+	public BinaryTraceReader newBinaryReader() throws IOException
+	{
+		if (!this.isBinary())
+			throw new IllegalStateException("Trace-file version " + this.getVersion() + " is not binary!");
+		
+		// Open channel and create the reader
+		FileChannel channel = (FileChannel) Files.newByteChannel(path, StandardOpenOption.READ);
+		return new BinaryTraceReader(this, channel);
+	}
+	
+	/**
+	 * Opens an existing trace-file, detecting its version from the header.
+	 * @param path The file's path.
+	 * @param charset The file's charset.
+	 * @return The trace-file with the detected version.
+	 */
+	public static TraceFile open(Path path, Charset charset) throws IOException
+	{
+		final ByteBuffer buffer = ByteBuffer.allocate(64);
+		try (FileChannel channel = (FileChannel) Files.newByteChannel(path, StandardOpenOption.READ)) {
+			while (buffer.hasRemaining() && channel.read(buffer) > 0);
+		}
+		
+		buffer.flip();
+		
+		// Expected header: <signature> v<major>.<minor>
+		final String header = charset.decode(buffer).toString();
+		final String prefix = COMMAND_SIGNATURE + SYMBOL_SPACE + 'v';
+		if (!header.startsWith(prefix))
+			throw new FileReaderException("Invalid header found in trace-file: " + path);
+		
+		int major = 0;
+		int minor = 0;
+		final int index = prefix.length();
+		try {
+			final int dot = header.indexOf('.', index);
+			int end = dot + 1;
+			while (end < header.length() && Character.isDigit(header.charAt(end)))
+				++end;
+			
+			major = Integer.parseInt(header.substring(index, dot));
+			minor = Integer.parseInt(header.substring(dot + 1, end));
+		}
+		catch (RuntimeException error) {
+			throw new FileReaderException("Invalid version found in trace-file: " + path);
+		}
+		
+		return new TraceFile(new Version(major, minor), path, charset);
+	}
+	
 	/** Returns the file's path. */
 	public Path getPath()
 	{
@@ -98,6 +182,12 @@ public class TraceFile
 		return header.getVersion();
 	}
 
+	/** Returns true, when this file uses the binary format, else false. */
+	public boolean isBinary()
+	{
+		return (header.getVersion().getMajor() >= BINARY_VERSION_MAJOR);
+	}
+
 	/** Returns the file's metadata entries. */
 	public Metadata getMetadata()
 	{
@@ -27,6 +27,10 @@ class TraceFileDefs
 	public static final int VERSION_MAJOR  = 1;
 	public static final int VERSION_MINOR  = 1;
 	
+	/* Binary Format Version */
+	public static final int BINARY_VERSION_MAJOR  = 2;
+	public static final int BINARY_VERSION_MINOR  = 0;
+	
 	/* Prefixes */
 	public static final char PREFIX_COMMENT        = '#';
 	public static final char PREFIX_COMMAND        = '@';
@@ -58,4 +62,20 @@ class TraceFileDefs
 	public static final char YAML_PRESERVE_NEWLINES    = '|';
 	public static final char YAML_TAG_PREFIX           = '!';
 	public static final char YAML_KV_DELIMITER         = ':';
+	
+	/* Binary Format: Frame Types */
+	public static final byte FRAME_TYPE_TRACE     = 'T';
+	public static final byte FRAME_TYPE_METADATA  = 'M';
+	public static final byte FRAME_TYPE_INDEX     = 'I';
+	
+	/* Binary Format: Flags */
+	public static final byte FLAG_COMPRESSED      = 0x01;
+	
+	/* Binary Format: Sizes (in bytes) */
+	public static final int FILE_HEADER_LENGTH    = 1 + 4;                      // flags, seek-interval
+	public static final int FRAME_HEADER_LENGTH   = 1 + 1 + 4 + 4 + 4 + 8;      // type, flags, stored-length, raw-length, num-entries, timestamp
+	public static final int FILE_FOOTER_LENGTH    = 8 + 8 + 4 + 8 + 8 + 8;      // offsets, num-entries, timestamps, marker
+	
+	/** Marker, representing the end of a binary file. */
+	public static final long BINARY_EOF_MARKER    = 0x2347504C41594623L;        // "#GPLAYF#"
 }
@@ -22,6 +22,7 @@ package de.bwl.bwfla.common.services.guacplay.protocol;
 import de.bwl.bwfla.common.services.guacplay.GuacDefs;
 import de.bwl.bwfla.common.services.guacplay.util.CharArrayBuffer;
 import de.bwl.bwfla.common.services.guacplay.util.IntegerUtils;
+import de.bwl.bwfla.common.services.guacplay.util.LongUtils;
 
 
 /** Parser for instructions in Guacamole's protocol format. */
@@ -29,6 +30,7 @@ public class InstructionParser
 {
 	private final CharArrayBuffer buffer;
 	private String opcode;
+	private long timestamp;
 	private int ioffset;
 	private int ilength;
 	
@@ -38,6 +40,7 @@ public class InstructionParser
 	{
 		this.buffer = new CharArrayBuffer();
 		this.opcode = null;
+		this.timestamp = -1L;
 		this.ioffset = 0;
 		this.ilength = 0;
 	}
@@ -95,6 +98,15 @@ public class InstructionParser
 		 return ilength;
 	}
 	
+	/**
+	 * Returns the timestamp of current instruction, or -1 if it has none. <p/>
+	 * NOTE: Returned value is valid only after {@link #parseOpcode(OpcodeTable)} is called!
+	 */
+	public long getTimestamp()
+	{
+		return timestamp;
+	}
+
 	/** Returns true, when tokens are available, else false. */
 	public boolean available()
 	{
@@ -128,13 +140,61 @@ public class InstructionParser
 		
 		// Parse the opcode's length prefix and construct it
 		final int length = InstructionParser.parseLength(buffer);
-		opcode = new String(buffer.array(), buffer.position(), length);
+		opcode = OpcodeTable.intern(buffer.array(), buffer.position(), length);
 		
 		// Skip the parsed chars
 		buffer.skip(length);
 		return opcode;
 	}
 	
+	/**
+	 * Parse only the opcode of the next instruction and look it up in the specified table.
+	 * An optional timestamp prefix is parsed in-place. No objects are allocated for opcodes
+	 * contained in the table.
+	 * @param table The table to use for lookup.
+	 * @return The opcode's slot in the table if found, else -1.
+	 * @see #getTimestamp()
+	 */
+	public int parseOpcode(OpcodeTable<?> table)
+	{
+		timestamp = this.parseTimestamp();
+		
+		// Save start-offset of this instruction
+		ioffset = buffer.position();
+		ilength = 0;
+		
+		final char[] data = buffer.array();
+		final int length = InstructionParser.parseLength(buffer);
+		final int offset = buffer.position();
+		final int slot = table.find(data, offset, length);
+		opcode = (slot >= 0) ? table.key(slot) : OpcodeTable.intern(data, offset, length);
+		
+		// Skip the parsed chars
+		buffer.skip(length);
+		return slot;
+	}
+	
+	/**
+	 * Parse the timestamp prefix of the next instruction, if present.
+	 * @return The parsed timestamp, or -1 if next instruction has none.
+	 */
+	public long parseTimestamp()
+	{
+		final int position = buffer.position();
+		final int length = InstructionParser.parseLength(buffer);
+		if (length == 0 || !InstructionParser.isDigit(buffer.get(buffer.position()))) {
+			// Not a timestamp, rewind!
+			buffer.setPosition(position);
+			return -1L;
+		}
+		
+		final long value = LongUtils.fromBase10(buffer.array(), buffer.position(), length);
+		
+		// Skip the parsed chars and separator
+		buffer.skip(length + 1);
+		return value;
+	}
+	
 	/**
 	 * Parse all arguments of the current instruction.
 	 * @param outinstr The destination object for parsed arguments.
@@ -183,6 +243,11 @@ public class InstructionParser
 		buffer.skip(n);
 	}
 	
+	private static boolean isDigit(char c)
+	{
+		return (c >= '0' && c <= '9');
+	}
+	
 	/** Parse and return the length prefix at current position. */
 	private static int parseLength(CharArrayBuffer srcbuf)
 	{
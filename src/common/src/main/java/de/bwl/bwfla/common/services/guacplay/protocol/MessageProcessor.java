@@ -33,8 +33,7 @@ public class MessageProcessor
 	private final InstructionDescription description;
 	private final InstructionParser parser;
 	private final Instruction instruction;
-	private InstructionHandler curHandler;
-	private String curOpcode;
+	private final OpcodeTable<InstructionHandler> dispatcher;
 	private int msgNumProcessed;
 	private int msgNumSkipped;
 	
@@ -52,8 +51,7 @@ public class MessageProcessor
 		this.description = new InstructionDescription();
 		this.parser = new InstructionParser();
 		this.instruction = new Instruction(8);
-		this.curHandler = null;
-		this.curOpcode = null;
+		this.dispatcher = new OpcodeTable<InstructionHandler>();
 		this.msgNumProcessed = 0;
 		this.msgNumSkipped = 0;
 		this.msgProcessorName = name;
@@ -105,6 +103,7 @@ public class MessageProcessor
 	 */
 	public final InstructionHandler addInstructionHandler(String opcode, InstructionHandler handler)
 	{
+		dispatcher.put(opcode, handler);
 		return handlers.put(opcode, handler);
 	}
 	
@@ -115,6 +114,7 @@ public class MessageProcessor
 	 */
 	public final InstructionHandler removeInstructionHandler(String opcode)
 	{
+		dispatcher.remove(opcode);
 		return handlers.remove(opcode);
 	}
 	
@@ -138,29 +138,21 @@ public class MessageProcessor
 		// Handle all recieved instructions
 		parser.setInput(data, offset, length);
 		while (parser.available()) {
-			// Preparse the opcode only!
-			String opcode = parser.parseOpcode();
-			final char c = opcode.charAt(0);
-			if (c >= '0' && c <= '9') {
+			// Preparse the opcode only and lookup the handler,
+			// without allocating any temporary objects!
+			final int slot = parser.parseOpcode(dispatcher);
+			final long tsvalue = parser.getTimestamp();
+			if (tsvalue >= 0L) {
 				// It's a timestamped instruction,
 				// use the parsed timestamp then
-				long tsvalue = Long.parseLong(opcode);
 				description.setTimestamp(tsvalue);
-				
-				// Parse the actual opcode now
-				parser.skip(1);
-				opcode = parser.parseOpcode();
-			}
-			if (opcode != curOpcode) {
-				// Different opcode, lookup the handler
-				curHandler = handlers.get(opcode);
-				curOpcode = opcode;
 			}
 
 			// Parse arguments and run the handler
-			if (curHandler != null) {
+			final InstructionHandler handler = (slot >= 0) ? dispatcher.value(slot) : null;
+			if (handler != null) {
 				parser.parseArguments(instruction);
-				curHandler.execute(description, instruction);
+				handler.execute(description, instruction);
 				++msgNumProcessed;
 			}
 			else {
@@ -0,0 +1,240 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.common.services.guacplay.protocol;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import de.bwl.bwfla.common.services.guacplay.GuacDefs.ExtOpCode;
+import de.bwl.bwfla.common.services.guacplay.GuacDefs.OpCode;
+
+
+/**
+ * An open-addressing hash table, mapping opcodes to values. Lookups can be performed
+ * directly on slices of char-arrays, hence no temporary strings need to be allocated.
+ */
+public final class OpcodeTable<T>
+{
+	private String[] keys;
+	private char[][] chars;
+	private Object[] values;
+	private int size;
+	private int mask;
+
+	/** Shared table of all known opcodes, mapped to their constants. */
+	private static final OpcodeTable<String> KNOWN_OPCODES = OpcodeTable.newKnownOpcodeTable();
+
+	private static final int INITIAL_CAPACITY = 64;
+
+
+	/** Constructor */
+	public OpcodeTable()
+	{
+		this.allocate(INITIAL_CAPACITY);
+	}
+
+	/** Returns the number of entries in this table. */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Add a value for the specified opcode.
+	 * @return The previously added value or null.
+	 */
+	public T put(String opcode, T value)
+	{
+		final char[] data = opcode.toCharArray();
+		int slot = this.find(data, 0, data.length);
+		if (slot >= 0) {
+			@SuppressWarnings("unchecked")
+			final T oldvalue = (T) values[slot];
+			values[slot] = value;
+			return oldvalue;
+		}
+
+		// Keep the load factor below 50%
+		if (2 * (size + 1) > keys.length)
+			this.resize(2 * keys.length);
+
+		slot = OpcodeTable.hash(data, 0, data.length) & mask;
+		while (keys[slot] != null)
+			slot = (slot + 1) & mask;
+
+		keys[slot] = opcode;
+		chars[slot] = data;
+		values[slot] = value;
+		++size;
+		return null;
+	}
+
+	/**
+	 * Remove the value for the specified opcode.
+	 * @return The removed value or null.
+	 */
+	public T remove(String opcode)
+	{
+		final int slot = this.find(opcode);
+		if (slot < 0)
+			return null;
+
+		@SuppressWarnings("unchecked")
+		final T value = (T) values[slot];
+
+		// Removals are rare, simply rehash all remaining entries
+		keys[slot] = null;
+		this.resize(keys.length);
+		return value;
+	}
+
+	/** Returns the value for the specified opcode or null. */
+	public T get(String opcode)
+	{
+		final int slot = this.find(opcode);
+		return (slot >= 0) ? this.value(slot) : null;
+	}
+
+	/** Returns the slot of the specified opcode, or -1 if not found. */
+	public int find(String opcode)
+	{
+		final char[] data = opcode.toCharArray();
+		return this.find(data, 0, data.length);
+	}
+
+	/**
+	 * Find the slot of an opcode, stored in a char-array.
+	 * @param data The array containing the opcode.
+	 * @param offset The offset of opcode's first char.
+	 * @param length The length of the opcode.
+	 * @return The opcode's slot if found, else -1.
+	 */
+	public int find(char[] data, int offset, int length)
+	{
+		int slot = OpcodeTable.hash(data, offset, length) & mask;
+		char[] key;
+		while ((key = chars[slot]) != null) {
+			if (OpcodeTable.equals(key, data, offset, length))
+				return slot;
+
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/** Returns the opcode stored in the specified slot. */
+	public String key(int slot)
+	{
+		return keys[slot];
+	}
+
+	/** Returns the value stored in the specified slot. */
+	@SuppressWarnings("unchecked")
+	public T value(int slot)
+	{
+		return (T) values[slot];
+	}
+
+	/**
+	 * Returns the opcode stored in a char-array as a string. For known opcodes
+	 * the shared constants from {@link OpCode} and {@link ExtOpCode} are returned,
+	 * hence a new string is allocated only for unknown opcodes.
+	 */
+	public static String intern(char[] data, int offset, int length)
+	{
+		final int slot = KNOWN_OPCODES.find(data, offset, length);
+		if (slot < 0)
+			return new String(data, offset, length);
+
+		return KNOWN_OPCODES.key(slot);
+	}
+
+
+	/* =============== Internal Methods =============== */
+
+	private void allocate(int capacity)
+	{
+		this.keys = new String[capacity];
+		this.chars = new char[capacity][];
+		this.values = new Object[capacity];
+		this.size = 0;
+		this.mask = capacity - 1;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void resize(int capacity)
+	{
+		final String[] oldkeys = keys;
+		final Object[] oldvalues = values;
+
+		this.allocate(capacity);
+		for (int i = 0; i < oldkeys.length; ++i) {
+			if (oldkeys[i] != null)
+				this.put(oldkeys[i], (T) oldvalues[i]);
+		}
+	}
+
+	private static int hash(char[] data, int offset, int length)
+	{
+		int hash = 0;
+		for (int end = offset + length; offset < end; ++offset)
+			hash = 31 * hash + data[offset];
+
+		// Spread higher bits, since tables are small
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean equals(char[] key, char[] data, int offset, int length)
+	{
+		if (key.length != length)
+			return false;
+
+		for (int i = 0; i < length; ++i) {
+			if (key[i] != data[offset + i])
+				return false;
+		}
+
+		return true;
+	}
+
+	private static OpcodeTable<String> newKnownOpcodeTable()
+	{
+		final OpcodeTable<String> table = new OpcodeTable<String>();
+		for (Class<?> clazz : new Class<?>[] { OpCode.class, ExtOpCode.class }) {
+			for (Field field : clazz.getFields()) {
+				final int modifiers = field.getModifiers();
+				if (!Modifier.isStatic(modifiers) || field.getType() != String.class)
+					continue;
+
+				try {
+					final String opcode = (String) field.get(null);
+					table.put(opcode, opcode);
+				}
+				catch (IllegalAccessException error) {
+					throw new IllegalStateException(error);
+				}
+			}
+		}
+
+		return table;
+	}
+}
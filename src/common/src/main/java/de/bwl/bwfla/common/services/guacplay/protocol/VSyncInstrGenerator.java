@@ -20,9 +20,7 @@
 package de.bwl.bwfla.common.services.guacplay.protocol;
 
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferInt;
-import java.awt.image.SampleModel;
 import java.nio.CharBuffer;
 
 import org.slf4j.Logger;
@@ -284,25 +282,30 @@ final class AverageColorVSyncInstrGenerator extends VSyncInstrGenerator
 		/** Compute the average color of the specified image. */
 		public void compute(BufferedImage image, int xpos, int ypos, int width, int height)
 		{
-			final int xmax = xpos + width;
-			final int ymax = ypos + height;
-			
-			final DataBuffer buffer = image.getRaster().getDataBuffer();
-			final SampleModel model = image.getSampleModel();
-			int[] samples = null;
-
-			for (int i = 0; i < NUM_SAMPLES; ++i)
-				sums[i] = 0;
+			// Get pixel-data, bypassing the whole Java2D abstraction!
+			final DataBufferInt pixbuf = (DataBufferInt) image.getRaster().getDataBuffer();
+			final int[] pixels = pixbuf.getData();
+			final int skip = image.getWidth() - width;
+			int offset = pixbuf.getOffset() + (ypos * image.getWidth()) + xpos;
+			int rsum = 0, gsum = 0, bsum = 0;
 			
-			// For all pixels, sum all samples
-			for (int y = ypos; y < ymax; ++y) {
-				for (int x = xpos; x < xmax; ++x) {
-					samples = model.getPixel(x, y, samples, buffer);
-					for (int i = 0; i < NUM_SAMPLES; ++i)
-						sums[i] += samples[i];
+			// For all ARGB-pixels, sum the color samples
+			for (int i = 0; i < height; ++i) {
+				final int maxoff = offset + width;
+				while (offset < maxoff) {
+					final int pixel = pixels[offset++];
+					rsum += (pixel >> 16) & 0xFF;
+					gsum += (pixel >> 8) & 0xFF;
+					bsum += pixel & 0xFF;
 				}
+				
+				offset += skip;  // Goto next scanline
 			}
 			
+			sums[0] = rsum;
+			sums[1] = gsum;
+			sums[2] = bsum;
+			
 			// Compute the averages
 			final float count = (float) (width * height);
 			for (int i = 0; i < NUM_SAMPLES; ++i)
@@ -20,9 +20,7 @@
 package de.bwl.bwfla.common.services.guacplay.protocol.handler;
 
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferInt;
-import java.awt.image.SampleModel;
 import java.io.IOException;
 import java.nio.IntBuffer;
 
@@ -187,13 +185,26 @@ public class VSyncInstrHandler extends InstructionHandler implements IGuacEventL
 		
 		// Wait, until vsync matches or exit requested
 		while (!exitflag) {
-			// Render the current content
+			boolean matched = false;
+			
 			synchronized (canvas) {
-				canvas.render(xpos, ypos, width, height, image);
+				final boolean inside = (xpos >= 0) && (ypos >= 0)
+						&& (xpos + width <= canvas.getWidth())
+						&& (ypos + height <= canvas.getHeight());
+				
+				if (inside) {
+					// Recomposite only the damaged tiles and compare in-place
+					canvas.render(xpos, ypos, width, height);
+					matched = iparser.match(canvas.getBufferedImage(), xpos, ypos, width, height);
+				}
+				else {
+					// Render the current content, clipped to the sync-rectangle
+					canvas.render(xpos, ypos, width, height, image);
+					matched = iparser.match(image, 0, 0, width, height);
+				}
 			}
 			
-			// Compare the rendered image with target
-			if (iparser.match(image, 0, 0, width, height))
+			if (matched)
 				break;  // Match detected!
 			
 			// No match, retry later!
@@ -422,7 +433,6 @@ final class AverageColorVSyncInstrParser extends VSyncInstrParser
 	private final float threshold;
 	private final float[] avgs;
 	private final int[] sums;
-	private int[] samples;
 	
 	public static final int NUM_SAMPLES = 3;
 	
@@ -434,7 +444,6 @@ final class AverageColorVSyncInstrParser extends VSyncInstrParser
 		this.threshold = threshold;
 		this.avgs = new float[NUM_SAMPLES];
 		this.sums = new int[NUM_SAMPLES];
-		this.samples = null;
 	}
 
 	@Override
@@ -455,23 +464,29 @@ final class AverageColorVSyncInstrParser extends VSyncInstrParser
 	@Override
 	public boolean match(BufferedImage image, int xpos, int ypos, int width, int height)
 	{
-		final int xmax = xpos + width;
-		final int ymax = ypos + height;
-		
-		final DataBuffer buffer = image.getRaster().getDataBuffer();
-		final SampleModel model = image.getSampleModel();
-
-		for (int i = 0; i < NUM_SAMPLES; ++i)
-			sums[i] = 0;
+		// Get image's pixel-data, bypassing the whole Java2D abstraction!
+		final DataBufferInt imgbuf = (DataBufferInt) image.getRaster().getDataBuffer();
+		final int[] pixels = imgbuf.getData();
+		final int skip = image.getWidth() - width;
+		int offset = imgbuf.getOffset() + (ypos * image.getWidth()) + xpos;
+		int rsum = 0, gsum = 0, bsum = 0;
 		
-		// For all pixels, sum all samples
-		for (int y = ypos; y < ymax; ++y) {
-			for (int x = xpos; x < xmax; ++x) {
-				samples = model.getPixel(x, y, samples, buffer);
-				for (int i = 0; i < NUM_SAMPLES; ++i)
-					sums[i] += samples[i];
+		// For all ARGB-pixels, sum the color samples
+		for (int i = 0; i < height; ++i) {
+			final int maxoff = offset + width;
+			while (offset < maxoff) {
+				final int pixel = pixels[offset++];
+				rsum += (pixel >> 16) & 0xFF;
+				gsum += (pixel >> 8) & 0xFF;
+				bsum += pixel & 0xFF;
 			}
+			
+			offset += skip;  // Goto next scanline
 		}
+		
+		sums[0] = rsum;
+		sums[1] = gsum;
+		sums[2] = bsum;
 
 		// Compute and compare averages
 		final float count = (float) (width * height);
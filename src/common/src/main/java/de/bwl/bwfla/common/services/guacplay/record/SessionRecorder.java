@@ -39,6 +39,8 @@ import de.bwl.bwfla.common.services.guacplay.events.EventSink;
 import de.bwl.bwfla.common.services.guacplay.events.GuacEvent;
 import de.bwl.bwfla.common.services.guacplay.events.SessionBeginEvent;
 import de.bwl.bwfla.common.services.guacplay.graphics.OffscreenCanvas;
+import de.bwl.bwfla.common.services.guacplay.io.BinaryTraceWriter;
+import de.bwl.bwfla.common.services.guacplay.io.ITraceEntryWriter;
 import de.bwl.bwfla.common.services.guacplay.io.MetadataChunk;
 import de.bwl.bwfla.common.services.guacplay.io.TraceBlockWriter;
 import de.bwl.bwfla.common.services.guacplay.io.Metadata;
@@ -86,6 +88,8 @@ public class SessionRecorder implements IGuacInterceptor, IGuacInstructionConsum
 	private final BufferedMessageProcessor serverMsgProcessor;
 	private TraceFile tfile;
 	private TraceFileWriter twriter;
+	private BinaryTraceWriter bwriter;
+	private ITraceEntryWriter tentries;
 	
 	// Members read/written by different threads
 	private volatile long startRecTimestamp;
@@ -204,6 +208,8 @@ public class SessionRecorder implements IGuacInterceptor, IGuacInstructionConsum
 				
 		this.tfile = null;
 		this.twriter = null;
+		this.bwriter = null;
+		this.tentries = null;
 		this.startRecTimestamp = Long.MAX_VALUE;
 		this.stopRecTimestamp = Long.MIN_VALUE;
 		this.isRecordingEnabled = false;
@@ -287,20 +293,40 @@ public class SessionRecorder implements IGuacInterceptor, IGuacInstructionConsum
 	
 	/** Prepare the trace-file for writing. */
 	public void prepare(Path dstpath) throws IOException
+	{
+		this.prepare(dstpath, false);
+	}
+	
+	/**
+	 * Prepare the trace-file for writing.
+	 * @param dstpath The trace-file's path.
+	 * @param binary If true, then the seekable binary format will be used, else the text format.
+	 */
+	public void prepare(Path dstpath, boolean binary) throws IOException
 	{
 		if (state != State.READY)
 			throw new IllegalStateException("Attempt to call SessionRecorder.prepare() multiple times!");
 		
 		// Create a writer using the specified path
-		tfile = new TraceFile(dstpath, StandardCharsets.UTF_8);
-		twriter = tfile.newBufferedWriter();
-		twriter.prepare();
+		tfile = new TraceFile(dstpath, StandardCharsets.UTF_8, binary);
+		if (binary) {
+			bwriter = tfile.newBinaryWriter();
+			bwriter.prepare();
+			tentries = bwriter;
+		}
+		else {
+			twriter = tfile.newBufferedWriter();
+			twriter.prepare();
+			tentries = tblock;
+		}
 		
 		log.info("Recording into trace-file:  {}", dstpath.toString());
 		
-		twriter.comment("User's input-events and server's updates.");
-		twriter.comment("Format: " + tblock.format());
-		twriter.begin(tblock);
+		if (twriter != null) {
+			twriter.comment("User's input-events and server's updates.");
+			twriter.comment("Format: " + tblock.format());
+			twriter.begin(tblock);
+		}
 		
 		// Start processing
 		tbuffer.start();
@@ -329,15 +355,23 @@ public class SessionRecorder implements IGuacInterceptor, IGuacInstructionConsum
 		
 		// At this point all pending messages are processed and the connection is closed.
 		
-		final String numEntries = Integer.toString(tblock.getNumEntriesWritten());
+		final String numEntries = Integer.toString(tentries.getNumEntriesWritten());
 		this.addMetadataEntry(MetadataTag.INTERNAL, MDKEY_NUM_TRACE_ENTRIES, numEntries);
 		
 		// Finish writing to the trace-file and close it too!
-		twriter.finish();
-		twriter.close();
+		final long numBytesWritten;
+		if (bwriter != null) {
+			bwriter.close();
+			numBytesWritten = bwriter.getNumBytesWritten();
+		}
+		else {
+			twriter.finish();
+			twriter.close();
+			numBytesWritten = twriter.getNumBytesWritten();
+		}
 		
 		final String path = tfile.getPath().toString();
-		log.info("{} bytes written to trace-file:  {}", twriter.getNumBytesWritten(), path);
+		log.info("{} bytes written to trace-file:  {}", numBytesWritten, path);
 		
 		state = State.FINISHED;
 	}
@@ -387,14 +421,9 @@ public class SessionRecorder implements IGuacInterceptor, IGuacInstructionConsum
 		++index;
 		length -= index - offset;
 
-		long newTimestamp = -1;
-		
 		// Try to parse the timestamp only
 		iparser.setInput(array, index, length);
-		final String tsval = iparser.parseOpcode();
-		final char c = tsval.charAt(0);
-		if (c >= '0' && c <= '9')
-			newTimestamp = Long.parseLong(tsval);
+		final long newTimestamp = iparser.parseTimestamp();
 		
 		// Pass the message unmodified to the processor
 		if (clientMsgProcessor.postMessage(SourceType.CLIENT, timestamp.get(), message) == 1)
@@ -430,7 +459,7 @@ public class SessionRecorder implements IGuacInterceptor, IGuacInstructionConsum
 				|| instr.getOpcode().startsWith(ExtOpCode.SCREEN_UPDATE);
 		
 		if (record)
-			tblock.write(desc, instr);
+			tentries.write(desc, instr);
 	}
 	
 	
@@ -464,7 +493,7 @@ public class SessionRecorder implements IGuacInterceptor, IGuacInstructionConsum
 		int xpos, jmax;
 		
 		// Write instructions to file
-		synchronized (twriter) {
+		synchronized (tentries) {
 			
 			// From top to bottom (y-direction)
 			for (int i = 0, ypos = ymargin; i < 5; ++i, ypos += dy) {
@@ -481,7 +510,7 @@ public class SessionRecorder implements IGuacInterceptor, IGuacInstructionConsum
 				for (int j = 0; j < jmax; ++j, xpos += xstep) {
 					vsyncgen.generate(xpos, ypos, vsync);
 					idesc.setTimestamp(timestamp.get() + 1);
-					tblock.write(idesc, vsync);
+					tentries.write(idesc, vsync);
 				}
 			}
 		}
@@ -489,7 +518,8 @@ public class SessionRecorder implements IGuacInterceptor, IGuacInstructionConsum
 	
 	public String toString()
 	{
-		if (state != State.FINISHED)
+		// Binary traces can't be represented as strings!
+		if (state != State.FINISHED || tfile.isBinary())
 			return null;
 		
 		try {
@@ -25,6 +25,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.logging.Logger;
 
 import de.bwl.bwfla.common.services.guacplay.GuacDefs.MetadataTag;
+import de.bwl.bwfla.common.services.guacplay.io.BinaryTraceReader;
 import de.bwl.bwfla.common.services.guacplay.io.Metadata;
 import de.bwl.bwfla.common.services.guacplay.io.MetadataChunk;
 import de.bwl.bwfla.common.services.guacplay.io.TraceFile;
@@ -44,9 +45,17 @@ public class IWDMetaData {
 	
 	public IWDMetaData(File trace) throws IOException
 	{
-		TraceFile tfile = new TraceFile(trace.toPath(), StandardCharsets.UTF_8);
-		TraceFileReader treader = tfile.newBufferedReader();
-		treader.prepare();
+		TraceFile tfile = TraceFile.open(trace.toPath(), StandardCharsets.UTF_8);
+		if (tfile.isBinary()) {
+			try (BinaryTraceReader breader = tfile.newBinaryReader()) {
+				breader.prepare();
+			}
+		}
+		else {
+			try (TraceFileReader treader = tfile.newBufferedReader()) {
+				treader.prepare();
+			}
+		}
 		
 		Metadata metaData = tfile.getMetadata();
 		MetadataChunk chunkInt = metaData.getChunk(MetadataTag.INTERNAL);
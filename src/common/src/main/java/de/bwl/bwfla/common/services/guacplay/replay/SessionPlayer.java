@@ -38,6 +38,7 @@ import de.bwl.bwfla.common.services.guacplay.events.GuacEvent;
 import de.bwl.bwfla.common.services.guacplay.events.IGuacEventListener;
 import de.bwl.bwfla.common.services.guacplay.graphics.OffscreenCanvas;
 import de.bwl.bwfla.common.services.guacplay.graphics.ScreenRegionList;
+import de.bwl.bwfla.common.services.guacplay.io.BinaryTraceReader;
 import de.bwl.bwfla.common.services.guacplay.io.BlockReader;
 import de.bwl.bwfla.common.services.guacplay.io.Metadata;
 import de.bwl.bwfla.common.services.guacplay.io.MetadataChunk;
@@ -91,6 +92,7 @@ public class SessionPlayer implements ICharArrayConsumer, IGuacEventListener
 	private final ServerMessageReader serverMsgReader;
 	private TraceFile tfile;
 	private TraceFileReader treader;
+	private BinaryTraceReader breader;
 	private IReplayProgress progress;
 	private volatile State state;
 	
@@ -122,6 +124,7 @@ public class SessionPlayer implements ICharArrayConsumer, IGuacEventListener
 		this.tblock = new TraceBlockReader();
 		this.tfile = null;
 		this.treader = null;
+		this.breader = null;
 		this.progress = null;
 		
 		id = id.toUpperCase();
@@ -129,7 +132,7 @@ public class SessionPlayer implements ICharArrayConsumer, IGuacEventListener
 		this.serverMsgProcessor = new BufferedMessageProcessor("SMP-" + id, MESSAGE_BUFFER_CAPACITY);
 		this.traceFileProcessor = new MessageProcessor("TFP-" + id);
 		this.serverMsgWorker = new ServerMessageProcessor(serverMsgProcessor);
-		this.traceFileWorker = new TraceFileProcessor(traceFileProcessor, tblock, esink);
+		this.traceFileWorker = new TraceFileProcessor(traceFileProcessor, esink);
 		this.serverMsgReader = (headless) ? new ServerMessageReader("SMR-" + id, serverMsgProcessor, emutunnel.getGuacReader(), this) : null;
 
 		final ICharArrayConsumer emuinput = new ICharArrayConsumer() {
@@ -284,25 +287,54 @@ public class SessionPlayer implements ICharArrayConsumer, IGuacEventListener
 	
 	/** Prepare the trace-file for reading. */
 	public void prepare(Path path) throws IOException
+	{
+		this.prepare(path, 0L);
+	}
+	
+	/**
+	 * Prepare the trace-file for reading, starting the replay at the specified offset.
+	 * Binary trace-files are positioned using their seek-index, while all entries
+	 * preceding the offset will be read and skipped for text trace-files.
+	 * @param path The trace-file's path.
+	 * @param offset The offset relative to the first trace-entry (in ms).
+	 */
+	public void prepare(Path path, long offset) throws IOException
 	{
 		if (state != State.READY)
 			throw new IllegalStateException("Attempt to call SessionPlayer.prepare() multiple times!");
 		
 		// Create a reader using the specified path
-		tfile = new TraceFile(path, StandardCharsets.UTF_8);
-		treader = tfile.newBufferedReader();
-		treader.prepare();
-		treader.begin(tblock);
-
-		log.info("Replaying from trace-file:  {}", path.toString());
-		
-		// Initialize the progress handler
-		MetadataChunk chunk = tfile.getMetadata().getChunk(MetadataTag.INTERNAL);
-		if (chunk.containsKey(SessionRecorder.MDKEY_NUM_TRACE_ENTRIES)) {
-			int numEntriesMax = chunk.getAsInt(SessionRecorder.MDKEY_NUM_TRACE_ENTRIES);
-			progress = new EntryBasedProgress(traceFileWorker, numEntriesMax);
+		tfile = TraceFile.open(path, StandardCharsets.UTF_8);
+		if (tfile.isBinary()) {
+			breader = tfile.newBinaryReader();
+			breader.prepare();
+			
+			int numEntriesSkipped = 0;
+			if (offset > 0L && breader.getNumEntries() > 0)
+				numEntriesSkipped = breader.seek(breader.getFirstTimestamp() + offset);
+			
+			traceFileWorker.setTraceReader(breader, 0L);
+			progress = new EntryBasedProgress(traceFileWorker, breader.getNumEntries() - numEntriesSkipped);
+		}
+		else {
+			treader = tfile.newBufferedReader();
+			treader.prepare();
+			treader.begin(tblock);
+			
+			traceFileWorker.setTraceReader(tblock, offset);
+			
+			// Initialize the progress handler
+			MetadataChunk chunk = tfile.getMetadata().getChunk(MetadataTag.INTERNAL);
+			if (chunk.containsKey(SessionRecorder.MDKEY_NUM_TRACE_ENTRIES)) {
+				int numEntriesMax = chunk.getAsInt(SessionRecorder.MDKEY_NUM_TRACE_ENTRIES);
+				progress = new EntryBasedProgress(traceFileWorker, numEntriesMax);
+			}
+			else progress = new SizeBasedProgress(tblock);
 		}
-		else progress = new SizeBasedProgress(tblock); 
+		
+		if (offset > 0L)
+			log.info("Replaying from trace-file:  {} (starting at {} ms)", path.toString(), offset);
+		else log.info("Replaying from trace-file:  {}", path.toString());
 		
 		// Start the processors now
 		serverMsgWorker.start();
@@ -335,11 +367,14 @@ public class SessionPlayer implements ICharArrayConsumer, IGuacEventListener
 		serverMsgWorker.terminate(true);
 		
 		// Finish reading and close!
-		if (tfile != null) {
+		if (treader != null) {
 			treader.finish();
 			treader.close();
 		}
 		
+		if (breader != null)
+			breader.close();
+		
 		// Close also the tunnels!
 		if (tunnel != null && tunnel.isOpen())
 			tunnel.close();
@@ -413,6 +448,9 @@ final class EntryBasedProgress implements IReplayProgress
 	@Override
 	public int getCurrentValue() throws IOException
 	{
+		if (numEntriesMax <= 0)
+			return 100;
+		
 		int curnum = processor.getNumEntriesRead();
 		return (curnum * 100) / numEntriesMax;
 	}
@@ -22,7 +22,7 @@ package de.bwl.bwfla.common.services.guacplay.replay;
 import de.bwl.bwfla.common.services.guacplay.GuacDefs.EventType;
 import de.bwl.bwfla.common.services.guacplay.events.EventSink;
 import de.bwl.bwfla.common.services.guacplay.events.GuacEvent;
-import de.bwl.bwfla.common.services.guacplay.io.TraceBlockReader;
+import de.bwl.bwfla.common.services.guacplay.io.ITraceEntryReader;
 import de.bwl.bwfla.common.services.guacplay.protocol.AsyncWorker;
 import de.bwl.bwfla.common.services.guacplay.protocol.Message;
 import de.bwl.bwfla.common.services.guacplay.protocol.MessageProcessor;
@@ -35,28 +35,43 @@ final class TraceFileProcessor extends AsyncWorker
 {
 	// Member fields
 	private final MessageProcessor processor;
-	private final TraceBlockReader block;
 	private final EventSink esink;
 	private final Message message;
 	private final StopWatch stopwatch;
+	private ITraceEntryReader reader;
 	private long lastTimestamp;
+	private long startTimestamp;
+	private long startOffset;
 	private volatile int numEntriesRead;
 
 	
 	/** Constructor */
-	public TraceFileProcessor(MessageProcessor processor, TraceBlockReader block, EventSink esink)
+	public TraceFileProcessor(MessageProcessor processor, EventSink esink)
 	{
 		super();
 		
 		this.processor = processor;
-		this.block = block;
 		this.esink = esink;
 		this.message = new Message();
 		this.stopwatch = new StopWatch();
+		this.reader = null;
 		this.lastTimestamp = Long.MAX_VALUE;
+		this.startTimestamp = Long.MIN_VALUE;
+		this.startOffset = 0L;
 		this.numEntriesRead = 0;
 	}
 	
+	/**
+	 * Set the reader for trace-entries. Must be called before starting this processor.
+	 * @param reader The reader to use.
+	 * @param offset All entries within this offset (in ms) from the first one read will be skipped.
+	 */
+	public void setTraceReader(ITraceEntryReader reader, long offset)
+	{
+		this.reader = reader;
+		this.startOffset = offset;
+	}
+	
 	/** Returns the number of entries read from the trace-block. */
 	public int getNumEntriesRead()
 	{
@@ -70,8 +85,17 @@ final class TraceFileProcessor extends AsyncWorker
 	protected void execute() throws Exception
 	{
 		// Read and process the next message
-		if (block.read(message)) {
+		if (reader.read(message)) {
 			final long timestamp = message.getTimestamp();
+			if (startTimestamp == Long.MIN_VALUE)
+				startTimestamp = timestamp + startOffset;
+			
+			if (timestamp < startTimestamp) {
+				// Skip entries preceding the start
+				++numEntriesRead;
+				return;
+			}
+			
 			if (timestamp > lastTimestamp) {
 				// Compute the delay for the current message/instruction
 				final long elapsed = stopwatch.timems();
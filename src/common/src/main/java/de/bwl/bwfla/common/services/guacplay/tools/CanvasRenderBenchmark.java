@@ -0,0 +1,324 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.common.services.guacplay.tools;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.bwl.bwfla.common.services.guacplay.GuacDefs;
+import de.bwl.bwfla.common.services.guacplay.GuacDefs.CompositeMode;
+import de.bwl.bwfla.common.services.guacplay.GuacDefs.ExtOpCode;
+import de.bwl.bwfla.common.services.guacplay.graphics.OffscreenCanvas;
+import de.bwl.bwfla.common.services.guacplay.io.BinaryTraceReader;
+import de.bwl.bwfla.common.services.guacplay.io.TraceBlockReader;
+import de.bwl.bwfla.common.services.guacplay.io.TraceFile;
+import de.bwl.bwfla.common.services.guacplay.io.TraceFileReader;
+import de.bwl.bwfla.common.services.guacplay.protocol.Instruction;
+import de.bwl.bwfla.common.services.guacplay.protocol.InstructionDescription;
+import de.bwl.bwfla.common.services.guacplay.protocol.InstructionHandler;
+import de.bwl.bwfla.common.services.guacplay.protocol.Message;
+import de.bwl.bwfla.common.services.guacplay.protocol.MessageProcessor;
+
+
+/**
+ * Compares full-frame compositing of the {@link OffscreenCanvas} with the damage-tracked one,
+ * for screenshots and vsync-matching. The screen-updates and vsync-rectangles are replayed
+ * from a recorded trace-file, if one is specified as CLI-argument, else a synthetic trace is used.
+ */
+public class CanvasRenderBenchmark
+{
+	private static final int SCREEN_WIDTH = 1920;
+	private static final int SCREEN_HEIGHT = 1080;
+
+	private static final int NUM_SYNTHETIC_OPERATIONS = 20000;
+	private static final int NUM_UPDATES_PER_SCREENSHOT = 16;
+	private static final int NUM_WARMUP_ITERATIONS = 3;
+	private static final int NUM_ITERATIONS = 5;
+
+	private static final String RESULT_FORMAT = "%-8s %10.1f us/screenshot, %8.1f us/vsync, %8.1f ms/replay\n";
+
+
+	/** CLI-Argument: optional name of the trace-file */
+	public static void main(String[] args) throws Exception
+	{
+		final List<Operation> operations = (args.length > 0) ?
+				CanvasRenderBenchmark.load(args[0]) : CanvasRenderBenchmark.generate();
+
+		System.out.println("Replaying " + operations.size() + " operation(s) on a "
+				+ SCREEN_WIDTH + "x" + SCREEN_HEIGHT + " canvas...");
+
+		final Renderer full = new FullRenderer();
+		final Renderer damaged = new DamageRenderer();
+		for (int i = 0; i < NUM_WARMUP_ITERATIONS; ++i) {
+			CanvasRenderBenchmark.replay(full, operations, new Result());
+			CanvasRenderBenchmark.replay(damaged, operations, new Result());
+		}
+
+		CanvasRenderBenchmark.measure("full", full, operations);
+		CanvasRenderBenchmark.measure("damaged", damaged, operations);
+	}
+
+
+	/* ==================== Internal Methods ==================== */
+
+	/** A replayed screen-update or vsync-check */
+	private static class Operation
+	{
+		public final boolean vsync;
+		public final int x, y, width, height;
+
+		public Operation(boolean vsync, int x, int y, int width, int height)
+		{
+			this.vsync = vsync;
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+		}
+	}
+
+	private static class Result
+	{
+		public long screenshotTime;
+		public long vsyncTime;
+		public int numScreenshots;
+		public int numVSyncs;
+		public long checksum;
+	}
+
+	private interface Renderer
+	{
+		/** Render the whole canvas, as for a screenshot */
+		void screenshot(OffscreenCanvas canvas);
+
+		/** Render the rectangle and compute its average color, as for a vsync-check */
+		int vsync(OffscreenCanvas canvas, int x, int y, int width, int height);
+	}
+
+	/** The former approach: recomposite everything, read pixels through the SampleModel */
+	private static class FullRenderer implements Renderer
+	{
+		private final BufferedImage image = new BufferedImage(GuacDefs.VSYNC_RECT_WIDTH,
+				GuacDefs.VSYNC_RECT_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+
+		private int[] samples = null;
+
+		@Override
+		public void screenshot(OffscreenCanvas canvas)
+		{
+			canvas.invalidate();
+			canvas.render();
+		}
+
+		@Override
+		public int vsync(OffscreenCanvas canvas, int x, int y, int width, int height)
+		{
+			canvas.render(x, y, width, height, image);
+
+			final DataBuffer buffer = image.getRaster().getDataBuffer();
+			final SampleModel model = image.getSampleModel();
+			int sum = 0;
+			for (int j = 0; j < height; ++j) {
+				for (int i = 0; i < width; ++i) {
+					samples = model.getPixel(i, j, samples, buffer);
+					sum += samples[0] + samples[1] + samples[2];
+				}
+			}
+
+			return sum;
+		}
+	}
+
+	/** The damage-tracked approach: recomposite dirty tiles, read the raw raster in-place */
+	private static class DamageRenderer implements Renderer
+	{
+		@Override
+		public void screenshot(OffscreenCanvas canvas)
+		{
+			canvas.render();
+		}
+
+		@Override
+		public int vsync(OffscreenCanvas canvas, int x, int y, int width, int height)
+		{
+			canvas.render(x, y, width, height);
+
+			final BufferedImage image = canvas.getBufferedImage();
+			final DataBufferInt buffer = (DataBufferInt) image.getRaster().getDataBuffer();
+			final int[] pixels = buffer.getData();
+			final int stride = image.getWidth();
+			int sum = 0;
+			for (int j = 0; j < height; ++j) {
+				int offset = buffer.getOffset() + (y + j) * stride + x;
+				for (final int end = offset + width; offset < end; ++offset) {
+					final int pixel = pixels[offset];
+					sum += ((pixel >> 16) & 0xFF) + ((pixel >> 8) & 0xFF) + (pixel & 0xFF);
+				}
+			}
+
+			return sum;
+		}
+	}
+
+	private static void replay(Renderer renderer, List<Operation> operations, Result result)
+	{
+		final OffscreenCanvas canvas = new OffscreenCanvas();
+		canvas.resize(0, SCREEN_WIDTH, SCREEN_HEIGHT);
+
+		final BufferedImage update = CanvasRenderBenchmark.newNoiseImage(SCREEN_WIDTH, SCREEN_HEIGHT);
+		int numUpdates = 0;
+
+		for (Operation op : operations) {
+			if (op.vsync) {
+				// Skip rectangles, not fully inside of the screen
+				if ((op.x < 0) || (op.y < 0) || (op.x + op.width > SCREEN_WIDTH) || (op.y + op.height > SCREEN_HEIGHT))
+					continue;
+
+				final long start = System.nanoTime();
+				result.checksum += renderer.vsync(canvas, op.x, op.y, op.width, op.height);
+				result.vsyncTime += System.nanoTime() - start;
+				++result.numVSyncs;
+			}
+			else {
+				final int width = Math.min(op.width, SCREEN_WIDTH);
+				final int height = Math.min(op.height, SCREEN_HEIGHT);
+				canvas.drawImage(0, CompositeMode.SRC_OVER, op.x, op.y, update, width, height);
+				if (++numUpdates % NUM_UPDATES_PER_SCREENSHOT != 0)
+					continue;
+
+				final long start = System.nanoTime();
+				renderer.screenshot(canvas);
+				result.screenshotTime += System.nanoTime() - start;
+				result.checksum += canvas.getBufferedImage().getRGB(op.x & 1023, op.y & 511);
+				++result.numScreenshots;
+			}
+		}
+	}
+
+	private static void measure(String name, Renderer renderer, List<Operation> operations)
+	{
+		final Result result = new Result();
+		final long start = System.nanoTime();
+		for (int i = 0; i < NUM_ITERATIONS; ++i)
+			CanvasRenderBenchmark.replay(renderer, operations, result);
+
+		final double duration = (double) (System.nanoTime() - start);
+		final double screenshot = (double) result.screenshotTime / Math.max(1, result.numScreenshots);
+		final double vsync = (double) result.vsyncTime / Math.max(1, result.numVSyncs);
+		System.out.printf(RESULT_FORMAT, name, screenshot / 1000.0, vsync / 1000.0, duration / (NUM_ITERATIONS * 1000000.0));
+		System.out.println("Checksum: " + result.checksum);
+	}
+
+	private static BufferedImage newNoiseImage(int width, int height)
+	{
+		final Random random = new Random(42L);
+		final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		final int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		for (int i = 0; i < pixels.length; ++i)
+			pixels[i] = 0xFF000000 | random.nextInt(0x1000000);
+
+		return image;
+	}
+
+	private static List<Operation> load(String filename) throws Exception
+	{
+		final List<Operation> operations = new ArrayList<Operation>();
+		final MessageProcessor processor = new MessageProcessor("benchmark");
+		processor.addInstructionHandler(ExtOpCode.SCREEN_UPDATE, new InstructionHandler(ExtOpCode.SCREEN_UPDATE) {
+			@Override
+			public void execute(InstructionDescription desc, Instruction instruction) throws Exception
+			{
+				operations.add(new Operation(false, instruction.argAsInt(0), instruction.argAsInt(1),
+						instruction.argAsInt(2), instruction.argAsInt(3)));
+			}
+		});
+
+		processor.addInstructionHandler(ExtOpCode.VSYNC, new InstructionHandler(ExtOpCode.VSYNC) {
+			@Override
+			public void execute(InstructionDescription desc, Instruction instruction) throws Exception
+			{
+				operations.add(new Operation(true, instruction.argAsInt(1), instruction.argAsInt(2),
+						instruction.argAsInt(3), instruction.argAsInt(4)));
+			}
+		});
+
+		final TraceFile file = TraceFile.open(Paths.get(filename).toAbsolutePath(), StandardCharsets.UTF_8);
+		final Message message = new Message();
+		if (file.isBinary()) {
+			try (BinaryTraceReader reader = file.newBinaryReader()) {
+				reader.prepare(false);
+				while (reader.read(message))
+					processor.process(message);
+			}
+		}
+		else {
+			final TraceFileReader reader = file.newBufferedReader();
+			final TraceBlockReader block = new TraceBlockReader();
+			try {
+				reader.prepare(false);
+				reader.begin(block);
+				while (block.read(message))
+					processor.process(message);
+			}
+			finally {
+				reader.close();
+			}
+		}
+
+		if (operations.isEmpty())
+			throw new IOException("No screen-updates or vsync-instructions found in " + filename);
+
+		return operations;
+	}
+
+	private static List<Operation> generate()
+	{
+		final Random random = new Random(42L);
+		final List<Operation> operations = new ArrayList<Operation>(NUM_SYNTHETIC_OPERATIONS);
+		for (int i = 0; i < NUM_SYNTHETIC_OPERATIONS; ++i) {
+			if (random.nextInt(4) == 0) {
+				// Vsync-rectangles around the mouse-pointer
+				final int x = random.nextInt(SCREEN_WIDTH - GuacDefs.VSYNC_RECT_WIDTH);
+				final int y = random.nextInt(SCREEN_HEIGHT - GuacDefs.VSYNC_RECT_HEIGHT);
+				operations.add(new Operation(true, x, y, GuacDefs.VSYNC_RECT_WIDTH, GuacDefs.VSYNC_RECT_HEIGHT));
+			}
+			else {
+				// Mostly small updates (text, cursor), rarely bigger ones (windows)
+				final int max = (random.nextInt(20) == 0) ? 640 : 96;
+				final int width = 8 + random.nextInt(max);
+				final int height = 8 + random.nextInt(max);
+				final int x = random.nextInt(SCREEN_WIDTH - width);
+				final int y = random.nextInt(SCREEN_HEIGHT - height);
+				operations.add(new Operation(false, x, y, width, height));
+			}
+		}
+
+		return operations;
+	}
+}
@@ -0,0 +1,278 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.common.services.guacplay.tools;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import de.bwl.bwfla.common.services.guacplay.GuacDefs.ExtOpCode;
+import de.bwl.bwfla.common.services.guacplay.GuacDefs.OpCode;
+import de.bwl.bwfla.common.services.guacplay.GuacDefs.SourceType;
+import de.bwl.bwfla.common.services.guacplay.io.TraceBlockReader;
+import de.bwl.bwfla.common.services.guacplay.io.TraceFile;
+import de.bwl.bwfla.common.services.guacplay.io.TraceFileReader;
+import de.bwl.bwfla.common.services.guacplay.protocol.Instruction;
+import de.bwl.bwfla.common.services.guacplay.protocol.InstructionDescription;
+import de.bwl.bwfla.common.services.guacplay.protocol.InstructionHandler;
+import de.bwl.bwfla.common.services.guacplay.protocol.InstructionParser;
+import de.bwl.bwfla.common.services.guacplay.protocol.Message;
+import de.bwl.bwfla.common.services.guacplay.protocol.MessageProcessor;
+
+
+/**
+ * Compares the former string-based opcode dispatch with the table-based dispatch
+ * of the {@link MessageProcessor}. Messages are loaded from a recorded trace-file,
+ * if one is specified as CLI-argument, else a synthetic trace is generated.
+ */
+public class InstructionDispatchBenchmark
+{
+	private static final String[] OPCODES = {
+		OpCode.MOUSE, OpCode.KEY, OpCode.SYNC, OpCode.PNG, OpCode.COPY,
+		OpCode.RECT, OpCode.CFILL, OpCode.SIZE, ExtOpCode.SCREEN_UPDATE, ExtOpCode.VSYNC
+	};
+
+	private static final int NUM_SYNTHETIC_MESSAGES = 100000;
+	private static final int NUM_WARMUP_ITERATIONS = 20;
+	private static final int NUM_ITERATIONS = 50;
+
+	private static final String RESULT_FORMAT = "%-8s %8.1f ns/instr, %8.1f bytes/instr\n";
+
+
+	/** CLI-Argument: optional name of the trace-file */
+	public static void main(String[] args) throws Exception
+	{
+		final List<Message> messages = (args.length > 0) ?
+				InstructionDispatchBenchmark.load(args[0]) : InstructionDispatchBenchmark.generate();
+
+		System.out.println("Benchmarking dispatch of " + messages.size() + " message(s)...");
+
+		final Counter counter = new Counter();
+		final Map<String, InstructionHandler> handlers = new HashMap<String, InstructionHandler>();
+		final MessageProcessor processor = new MessageProcessor("benchmark");
+		for (String opcode : OPCODES) {
+			final InstructionHandler handler = new CountingHandler(opcode, counter);
+			processor.addInstructionHandler(opcode, handler);
+			handlers.put(opcode, handler);
+		}
+
+		final Dispatcher legacy = (message) -> InstructionDispatchBenchmark.dispatch(handlers, message);
+		final Dispatcher table = processor::process;
+
+		for (int i = 0; i < NUM_WARMUP_ITERATIONS; ++i) {
+			InstructionDispatchBenchmark.run(legacy, messages);
+			InstructionDispatchBenchmark.run(table, messages);
+		}
+
+		counter.value = 0L;
+		InstructionDispatchBenchmark.measure("legacy", legacy, messages, counter);
+		InstructionDispatchBenchmark.measure("table", table, messages, counter);
+	}
+
+
+	/* ==================== Internal Methods ==================== */
+
+	private interface Dispatcher
+	{
+		void process(Message message) throws Exception;
+	}
+
+	private static class Counter
+	{
+		public long value;
+	}
+
+	private static class CountingHandler extends InstructionHandler
+	{
+		private final Counter counter;
+
+		public CountingHandler(String opcode, Counter counter)
+		{
+			super(opcode);
+			this.counter = counter;
+		}
+
+		@Override
+		public void execute(InstructionDescription desc, Instruction instruction)
+		{
+			counter.value += instruction.getNumArguments();
+		}
+	}
+
+	/** The former dispatch algorithm, as implemented in MessageProcessor */
+	private static final InstructionParser PARSER = new InstructionParser();
+	private static final InstructionDescription DESCRIPTION = new InstructionDescription();
+	private static final Instruction INSTRUCTION = new Instruction(8);
+
+	private static void dispatch(Map<String, InstructionHandler> handlers, Message message) throws Exception
+	{
+		PARSER.setInput(message.getDataArray(), message.getOffset(), message.getLength());
+		while (PARSER.available()) {
+			String opcode = InstructionDispatchBenchmark.parseOpcode();
+			final char c = opcode.charAt(0);
+			if (c >= '0' && c <= '9') {
+				DESCRIPTION.setTimestamp(Long.parseLong(opcode));
+				PARSER.skip(1);
+				opcode = InstructionDispatchBenchmark.parseOpcode();
+			}
+
+			final InstructionHandler handler = handlers.get(opcode);
+			if (handler != null) {
+				PARSER.parseArguments(INSTRUCTION);
+				handler.execute(DESCRIPTION, INSTRUCTION);
+			}
+			else PARSER.skipArguments();
+		}
+	}
+
+	/** The former opcode parsing, constructing a new string per call */
+	private static String parseOpcode()
+	{
+		final char[] data = PARSER.getDataArray();
+		final int start = PARSER.getCurrentPosition();
+		int position = start;
+		int length = 0;
+		while (data[position] != '.')
+			length = 10 * length + (data[position++] - '0');
+
+		final String opcode = new String(data, position + 1, length);
+		PARSER.skip(position + 1 - start + length);
+		return opcode;
+	}
+
+	private static void run(Dispatcher dispatcher, List<Message> messages) throws Exception
+	{
+		for (Message message : messages)
+			dispatcher.process(message);
+	}
+
+	private static void measure(String name, Dispatcher dispatcher, List<Message> messages, Counter counter) throws Exception
+	{
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final long tid = Thread.currentThread().getId();
+		final long numInstructions = (long) NUM_ITERATIONS * InstructionDispatchBenchmark.count(messages);
+
+		final long allocated = threads.getThreadAllocatedBytes(tid);
+		final long start = System.nanoTime();
+		for (int i = 0; i < NUM_ITERATIONS; ++i)
+			InstructionDispatchBenchmark.run(dispatcher, messages);
+
+		final double duration = (double) (System.nanoTime() - start);
+		final double bytes = (double) (threads.getThreadAllocatedBytes(tid) - allocated);
+		System.out.printf(RESULT_FORMAT, name, duration / numInstructions, bytes / numInstructions);
+		System.out.println("Checksum: " + counter.value);
+		counter.value = 0L;
+	}
+
+	private static long count(List<Message> messages)
+	{
+		long count = 0L;
+		for (Message message : messages) {
+			final char[] data = message.getDataArray();
+			for (int i = message.getOffset(), end = i + message.getLength(); i < end; ++i) {
+				if (data[i] == ';')
+					++count;
+			}
+		}
+
+		return count;
+	}
+
+	private static List<Message> load(String filename) throws IOException
+	{
+		final TraceFile file = new TraceFile(Paths.get(filename).toAbsolutePath(), StandardCharsets.UTF_8);
+		final TraceFileReader reader = file.newBufferedReader();
+		final TraceBlockReader block = new TraceBlockReader();
+		final List<Message> messages = new ArrayList<Message>();
+		final Message msg = new Message();
+		try {
+			reader.prepare();
+			reader.begin(block);
+			while (block.read(msg)) {
+				// Copy the data, since the reader's buffers are reused
+				final char[] data = new char[msg.getLength()];
+				System.arraycopy(msg.getDataArray(), msg.getOffset(), data, 0, data.length);
+				messages.add(new Message(SourceType.UNKNOWN, msg.getTimestamp(), data, 0, data.length));
+			}
+		}
+		finally {
+			reader.close();
+		}
+
+		return messages;
+	}
+
+	private static List<Message> generate()
+	{
+		final Random random = new Random(42L);
+		final StringBuilder builder = new StringBuilder(256);
+		final List<Message> messages = new ArrayList<Message>(NUM_SYNTHETIC_MESSAGES);
+		long timestamp = 1384534160529L;
+		for (int i = 0; i < NUM_SYNTHETIC_MESSAGES; ++i) {
+			builder.setLength(0);
+			timestamp += random.nextInt(50);
+
+			// Client messages are prefixed with timestamps
+			final boolean client = random.nextBoolean();
+			if (client) {
+				InstructionDispatchBenchmark.append(builder, Long.toString(timestamp), ',');
+				if (random.nextBoolean())
+					InstructionDispatchBenchmark.instruction(builder, OpCode.MOUSE, random, 3);
+				else InstructionDispatchBenchmark.instruction(builder, OpCode.KEY, random, 2);
+			}
+			else {
+				// Server messages contain multiple instructions
+				final int count = 1 + random.nextInt(4);
+				for (int j = 0; j < count; ++j) {
+					final String opcode = OPCODES[2 + random.nextInt(OPCODES.length - 2)];
+					InstructionDispatchBenchmark.instruction(builder, opcode, random, 1 + random.nextInt(6));
+				}
+			}
+
+			final char[] data = builder.toString().toCharArray();
+			final SourceType source = (client) ? SourceType.CLIENT : SourceType.SERVER;
+			messages.add(new Message(source, timestamp, data, 0, data.length));
+		}
+
+		return messages;
+	}
+
+	private static void instruction(StringBuilder builder, String opcode, Random random, int numArgs)
+	{
+		InstructionDispatchBenchmark.append(builder, opcode, (numArgs > 0) ? ',' : ';');
+		for (int i = 0; i < numArgs; ++i)
+			InstructionDispatchBenchmark.append(builder, Integer.toString(random.nextInt(2000)), (i + 1 < numArgs) ? ',' : ';');
+	}
+
+	private static void append(StringBuilder builder, String token, char separator)
+	{
+		builder.append(token.length());
+		builder.append('.');
+		builder.append(token);
+		builder.append(separator);
+	}
+}
@@ -21,6 +21,7 @@ package de.bwl.bwfla.common.services.guacplay.tools;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
@@ -28,6 +29,10 @@ import java.util.LinkedHashMap;
 import java.util.concurrent.TimeUnit;
 import de.bwl.bwfla.common.services.guacplay.GuacDefs.ExtOpCode;
 import de.bwl.bwfla.common.services.guacplay.GuacDefs.OpCode;
+import de.bwl.bwfla.common.services.guacplay.io.BinaryTraceReader;
+import de.bwl.bwfla.common.services.guacplay.io.BinaryTraceWriter;
+import de.bwl.bwfla.common.services.guacplay.io.ITraceEntryReader;
+import de.bwl.bwfla.common.services.guacplay.io.MetadataChunk;
 import de.bwl.bwfla.common.services.guacplay.io.TraceBlockReader;
 import de.bwl.bwfla.common.services.guacplay.io.TraceFile;
 import de.bwl.bwfla.common.services.guacplay.io.TraceFileReader;
@@ -42,10 +47,13 @@ public final class TraceStats
 	private static final String INDENT_2X = INDENT_1X + INDENT_1X;
 	
 	
-	/** CLI-Argument: name of the trace-file */
+	/**
+	 * CLI-Arguments: name of the trace-file and optionally the name of the output-file, for converting
+	 * text trace-files into the binary format. Without an output-file, a temporary file will be used.
+	 */
 	public static void main(String[] args) throws IOException
 	{
-		if (args.length != 1) {
+		if (args.length < 1 || args.length > 2) {
 			System.out.println("Trace-Filename not specified!");
 			return;
 		}
@@ -53,20 +61,39 @@ public final class TraceStats
 		final Path path = Paths.get(args[0]).toAbsolutePath();
 		System.out.println("Trace-File: " + path.toString());
 		
-		final TraceFile file = new TraceFile(path, StandardCharsets.UTF_8);
-		final TraceFileReader reader = file.newBufferedReader();
-		final TraceBlockReader block = new TraceBlockReader();
+		final TraceFile file = TraceFile.open(path, StandardCharsets.UTF_8);
+		System.out.println("Version: " + file.getVersion().toString());
 		
-		try {
-			reader.prepare();
-			reader.begin(block);
+		final long size = Files.size(path);
+		TraceStats.printFileSize("File-Size: ", size);
+		
+		final Stats stats = TraceStats.collect(file);
+		stats.print();
+		System.out.println("Parse-Time: " + stats.elapsed() + " ms");
+		
+		// Compare with the binary format
+		if (!file.isBinary()) {
+			final Path output = (args.length > 1) ? Paths.get(args[1]).toAbsolutePath()
+					: Files.createTempFile("trace-", ".v2");
 			
-			TraceStats.printFileSize(reader.size());
-			TraceStats.printTraceStats(block);
-		}
-		finally {
-			// Always close the reader!
-			reader.close();
+			try {
+				System.out.println();
+				System.out.println("Converting into binary format: " + output.toString());
+				
+				final TraceFile binfile = TraceStats.convert(file, output);
+				final long binsize = Files.size(output);
+				TraceStats.printFileSize("File-Size: ", binsize);
+				System.out.println(String.format("Size-Ratio: %1.2f %%", (100.0 * binsize) / size));
+				
+				final Stats binstats = TraceStats.collect(binfile);
+				System.out.println("Parse-Time: " + binstats.elapsed() + " ms");
+				if (binstats.numEntries() != stats.numEntries())
+					System.out.println("WARNING: Number of entries differs: " + binstats.numEntries());
+			}
+			finally {
+				if (args.length < 2)
+					Files.deleteIfExists(output);
+			}
 		}
 		
 		System.out.println("Done!");
@@ -76,7 +103,68 @@ public final class TraceStats
 	
 	/* ==================== Internal Methods ==================== */
 	
-	private static void printFileSize(int size)
+	private static Stats collect(TraceFile file) throws IOException
+	{
+		final Stats stats = new Stats();
+		if (file.isBinary()) {
+			final long start = System.nanoTime();
+			try (BinaryTraceReader reader = file.newBinaryReader()) {
+				reader.prepare();
+				stats.collect(reader);
+				System.out.println("Seek-Points: " + reader.getNumSeekPoints()
+						+ " (every " + reader.getSeekInterval() + " ms)");
+			}
+			
+			stats.setElapsedTime(System.nanoTime() - start);
+		}
+		else {
+			final long start = System.nanoTime();
+			final TraceFileReader reader = file.newBufferedReader();
+			final TraceBlockReader block = new TraceBlockReader();
+			try {
+				reader.prepare();
+				reader.begin(block);
+				stats.collect(block);
+				reader.finish();
+			}
+			finally {
+				// Always close the reader!
+				reader.close();
+			}
+			
+			stats.setElapsedTime(System.nanoTime() - start);
+		}
+		
+		return stats;
+	}
+	
+	private static TraceFile convert(TraceFile file, Path output) throws IOException
+	{
+		final TraceFile binfile = new TraceFile(output, file.getCharset(), true);
+		for (MetadataChunk chunk : file.getMetadata().getChunks())
+			binfile.getMetadata().addChunk(chunk);
+		
+		final TraceFileReader reader = file.newBufferedReader();
+		final TraceBlockReader block = new TraceBlockReader();
+		try (BinaryTraceWriter writer = binfile.newBinaryWriter()) {
+			reader.prepare(false);
+			reader.begin(block);
+			writer.prepare();
+			
+			final Message msg = new Message();
+			while (block.read(msg))
+				writer.write(msg.getTimestamp(), msg.getDataArray(), msg.getOffset(), msg.getLength());
+			
+			reader.finish();
+		}
+		finally {
+			reader.close();
+		}
+		
+		return binfile;
+	}
+	
+	private static void printFileSize(String prefix, long size)
 	{
 		final int KB = 1024;
 		final int MB = KB * KB;
@@ -86,7 +174,7 @@ public final class TraceStats
 			sizestr += String.format(" (%1.2f KB)", ((double) size / (double) KB));
 		else sizestr += String.format(" (%1.2f MB)", ((double) size / (double) MB));
 
-		System.out.println("File-Size: " + sizestr);
+		System.out.println(prefix + sizestr);
 	}
 	
 	private static void printSessionDuration(long durns)
@@ -101,59 +189,84 @@ public final class TraceStats
 		}
 	}
 	
-	private static void printTraceStats(TraceBlockReader block) throws IOException
+	
+	private static class Stats
 	{
 		// Construct the predefined counters
-		final Counter numEntriesCounter = new Counter("Number of Trace-Entries");
-		final Counter inputEventCounter = new Counter("Input-Events", numEntriesCounter);
-		final Counter mouseEventCounter = new Counter("Mouse-Events", inputEventCounter);
-		final Counter keyEventCounter = new Counter("Key-Events", inputEventCounter);
-		final Counter serverUpdateCounter = new Counter("Server-Updates", numEntriesCounter);
-		final Counter vsyncEntryCounter = new Counter("Visual-Syncs", numEntriesCounter);
-		final Counter specialEntryCounter = new Counter("Special-Entries", numEntriesCounter);
-		final HashMap<String, Counter> counters = new LinkedHashMap<String, Counter>();
-		counters.put(OpCode.MOUSE, mouseEventCounter);
-		counters.put(OpCode.KEY, keyEventCounter);
-		counters.put(ExtOpCode.VSYNC, vsyncEntryCounter);
-		counters.put(ExtOpCode.SCREEN_UPDATE, serverUpdateCounter);
-		
-		final InstructionParser parser = new InstructionParser();
-		final Message msg = new Message();
-		String lastOpcode = "";
-		Counter counter = null;
-		long firstTimestamp = -1L;
-		long lastTimestamp = -1L;
-		
-		// Read trace-block and collect stats
-		while (block.read(msg)) {
-			parser.setInput(msg.getDataArray(), msg.getOffset(), msg.getLength());
-			final String opcode = parser.parseOpcode();
-			if (!opcode.contentEquals(lastOpcode)) {
-				lastOpcode = opcode;
-				counter = counters.get(opcode);
-				if (counter == null)
-					counter = specialEntryCounter;
-			}
+		private final Counter numEntriesCounter = new Counter("Number of Trace-Entries");
+		private final Counter inputEventCounter = new Counter("Input-Events", numEntriesCounter);
+		private final Counter mouseEventCounter = new Counter("Mouse-Events", inputEventCounter);
+		private final Counter keyEventCounter = new Counter("Key-Events", inputEventCounter);
+		private final Counter serverUpdateCounter = new Counter("Server-Updates", numEntriesCounter);
+		private final Counter vsyncEntryCounter = new Counter("Visual-Syncs", numEntriesCounter);
+		private final Counter specialEntryCounter = new Counter("Special-Entries", numEntriesCounter);
+		private long firstTimestamp = -1L;
+		private long lastTimestamp = -1L;
+		private long elapsed = 0L;
+		
+		public void collect(ITraceEntryReader reader) throws IOException
+		{
+			final HashMap<String, Counter> counters = new LinkedHashMap<String, Counter>();
+			counters.put(OpCode.MOUSE, mouseEventCounter);
+			counters.put(OpCode.KEY, keyEventCounter);
+			counters.put(ExtOpCode.VSYNC, vsyncEntryCounter);
+			counters.put(ExtOpCode.SCREEN_UPDATE, serverUpdateCounter);
 			
-			counter.increment();
+			final InstructionParser parser = new InstructionParser();
+			final Message msg = new Message();
+			String lastOpcode = "";
+			Counter counter = null;
 			
-			// Update timestamps
-			lastTimestamp = msg.getTimestamp();
-			if (firstTimestamp < 0)
-				firstTimestamp = msg.getTimestamp();
-		}
-		
-		TraceStats.printSessionDuration(lastTimestamp - firstTimestamp);
-		
-		// Print the counters
-		System.out.println(numEntriesCounter.toString());
-		System.out.println(INDENT_1X + serverUpdateCounter.toString());
-		System.out.println(INDENT_1X + vsyncEntryCounter.toString());
-		System.out.println(INDENT_1X + inputEventCounter.toString());
-		System.out.println(INDENT_2X + mouseEventCounter.toString());
-		System.out.println(INDENT_2X + keyEventCounter.toString());
-		if (specialEntryCounter.value() > 0)
-			System.out.println(INDENT_1X + specialEntryCounter.toString());
+			// Read trace-entries and collect stats
+			while (reader.read(msg)) {
+				parser.setInput(msg.getDataArray(), msg.getOffset(), msg.getLength());
+				final String opcode = parser.parseOpcode();
+				if (!opcode.contentEquals(lastOpcode)) {
+					lastOpcode = opcode;
+					counter = counters.get(opcode);
+					if (counter == null)
+						counter = specialEntryCounter;
+				}
+				
+				counter.increment();
+				
+				// Update timestamps
+				lastTimestamp = msg.getTimestamp();
+				if (firstTimestamp < 0)
+					firstTimestamp = msg.getTimestamp();
+			}
+		}
+		
+		public void setElapsedTime(long durns)
+		{
+			this.elapsed = durns;
+		}
+		
+		/** Returns the elapsed time in ms. */
+		public long elapsed()
+		{
+			return TimeUtils.convert(elapsed, TimeUnit.NANOSECONDS, TimeUnit.MILLISECONDS);
+		}
+		
+		public int numEntries()
+		{
+			return numEntriesCounter.value();
+		}
+		
+		public void print()
+		{
+			TraceStats.printSessionDuration(lastTimestamp - firstTimestamp);
+			
+			// Print the counters
+			System.out.println(numEntriesCounter.toString());
+			System.out.println(INDENT_1X + serverUpdateCounter.toString());
+			System.out.println(INDENT_1X + vsyncEntryCounter.toString());
+			System.out.println(INDENT_1X + inputEventCounter.toString());
+			System.out.println(INDENT_2X + mouseEventCounter.toString());
+			System.out.println(INDENT_2X + keyEventCounter.toString());
+			if (specialEntryCounter.value() > 0)
+				System.out.println(INDENT_1X + specialEntryCounter.toString());
+		}
 	}
 	
 	
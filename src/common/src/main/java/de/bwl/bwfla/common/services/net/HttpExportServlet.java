@@ -21,7 +21,7 @@ package de.bwl.bwfla.common.services.net;
 
 import de.bwl.bwfla.common.exceptions.BWFLAException;
 import de.bwl.bwfla.common.utils.ByteRange;
-import de.bwl.bwfla.common.utils.FileRangeIterator;
+import de.bwl.bwfla.common.utils.StringUtils;
 import org.apache.tamaya.inject.api.Config;
 
 import javax.annotation.PostConstruct;
@@ -34,17 +34,23 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
-import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -68,6 +74,18 @@ public abstract class HttpExportServlet extends HttpServlet
 	@Config("http_export_servlet.file_cache.entry_eviction_timeout")
 	private Duration fileCacheEntryEvictionTimeout = null;
 
+	@Inject
+	@Config("http_export_servlet.zero_copy")
+	private boolean zeroCopyEnabled = false;
+
+	@Inject
+	@Config("http_export_servlet.read_ahead_size")
+	private int readAheadSize = 0;
+
+	@Inject
+	@Config("http_export_servlet.range_coalescing_gap")
+	private int rangeCoalescingGap = 0;
+
 
 	public abstract File resolveRequest(String path);
 	public abstract File resolveMetaData(String path) throws ServletException;
@@ -90,13 +108,17 @@ public abstract class HttpExportServlet extends HttpServlet
 	private void respond(HttpServletRequest request, HttpServletResponse response, boolean sendFileData)
 			throws ServletException, IOException
 	{
+		FileCacheEntry entry = null;
 		File file = null;
 		boolean isMetadata = request.getHeader("metadata") != null && request.getHeader("metadata").equals("true");
 
 		if (isMetadata)
 			file = this.resolveMetaData(request.getPathInfo());
-		else
-			file = this.doResolveRequest(request.getPathInfo());
+		else {
+			entry = this.doResolveRequest(request.getPathInfo());
+			if (entry != null)
+				file = entry.file();
+		}
 
 		if (file == null || !file.exists()) {
 			log.severe("looking for :" + request.getPathInfo());
@@ -114,16 +136,27 @@ public abstract class HttpExportServlet extends HttpServlet
 		}
 
 		try {
+			final long startTime = System.nanoTime();
+			long numBytesSent = 0L;
+
 			if (HttpUtils.hasRangeHeader(request)) {
-				final List<ByteRange> ranges = HttpUtils.parseRangeHeader(request, length);
+				final List<ByteRange> ranges = HttpUtils.coalesce(HttpUtils.parseRangeHeader(request, length), rangeCoalescingGap);
 				HttpUtils.prepare(response, ranges, length);
 				if (!sendFileData)
 					return;
 
 				// Send file's ranges
-				try (final FileRangeIterator channels = new FileRangeIterator(file.toPath(), ranges)) {
+				try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
 					final ServletOutputStream output = response.getOutputStream();
-					HttpUtils.write(output, channels, length, ranges.size() > 1);
+					if (ranges.size() > 1) {
+						for (ByteRange range : ranges) {
+							HttpUtils.writePartHeader(output, range, length);
+							numBytesSent += this.write(channel, range, output, null);
+						}
+
+						HttpUtils.writePartsEnd(output);
+					}
+					else numBytesSent += this.write(channel, ranges.get(0), output, entry);
 				}
 			}
 			else {
@@ -132,16 +165,25 @@ public abstract class HttpExportServlet extends HttpServlet
 					return;
 
 				// Send complete file
-				final ServletOutputStream output = response.getOutputStream();
-				final long written = Files.copy(file.toPath(), output);
-
-				final int padSize = (int)(length - written);
-				if(padSize > 0) {
-					byte[] bytes = new byte[padSize];
-					Arrays.fill(bytes, (byte) 0);
-					output.write(bytes);
+				try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+					final ServletOutputStream output = response.getOutputStream();
+					final long size = channel.size();
+					long written = 0L;
+					if (zeroCopyEnabled && HttpUtils.transferFrom(channel, output)) {
+						if (entry != null)
+							entry.stats().numZeroCopyTransfers.increment();
+
+						written = size;
+					}
+					else written = HttpUtils.transfer(channel, 0L, size, output);
+
+					HttpUtils.writePadding(output, length - written);
+					numBytesSent = length;
 				}
 			}
+
+			if (entry != null)
+				entry.stats().update(numBytesSent, System.nanoTime() - startTime);
 		}
 		catch (Exception error) {
 			final Logger log = Logger.getLogger(this.getClass().getName());
@@ -150,7 +192,26 @@ public abstract class HttpExportServlet extends HttpServlet
 		}
 	}
 
-	private File doResolveRequest(String path)
+	/** Writes range's data, serving it from read-ahead buffer when possible */
+	private long write(FileChannel channel, ByteRange range, OutputStream output, FileCacheEntry entry)
+			throws IOException
+	{
+		final long offset = range.getStartOffset();
+		final long length = range.getLength();
+
+		long written = -1L;
+		if (entry != null && readAheadSize > 0)
+			written = entry.readahead().write(channel, offset, length, readAheadSize, output);
+
+		if (written < 0L)
+			written = HttpUtils.transfer(channel, offset, length, output);
+
+		// Range can exceed file's data, when padded
+		HttpUtils.writePadding(output, length - written);
+		return length;
+	}
+
+	private FileCacheEntry doResolveRequest(String path)
 	{
 		if (!path.startsWith("/")) {
 			log.warning("Invalid request path: " + path);
@@ -162,12 +223,10 @@ public abstract class HttpExportServlet extends HttpServlet
 			return (file != null) ? new FileCacheEntry(file) : null;
 		});
 
-		if (entry != null) {
+		if (entry != null)
 			entry.update();
-			return entry.file();
-		}
 
-		return null;
+		return entry;
 	}
 
 	private void scheduleFileCacheCleanup(Runnable task)
@@ -194,11 +253,15 @@ public abstract class HttpExportServlet extends HttpServlet
 	{
 		private final AtomicLong timestamp;
 		private final File file;
+		private final ExportStats stats;
+		private final ReadAheadBuffer readahead;
 
 		public FileCacheEntry(File file)
 		{
 			this.timestamp = new AtomicLong(HttpExportServlet.timems());
 			this.file = file;
+			this.stats = new ExportStats();
+			this.readahead = new ReadAheadBuffer(stats);
 		}
 
 		public File file()
@@ -206,6 +269,16 @@ public abstract class HttpExportServlet extends HttpServlet
 			return file;
 		}
 
+		public ExportStats stats()
+		{
+			return stats;
+		}
+
+		public ReadAheadBuffer readahead()
+		{
+			return readahead;
+		}
+
 		public long timestamp()
 		{
 			return timestamp.get();
@@ -217,6 +290,225 @@ public abstract class HttpExportServlet extends HttpServlet
 		}
 	}
 
+	/** Throughput counters of an exported file */
+	private static class ExportStats
+	{
+		private final LongAdder numRequests = new LongAdder();
+		private final LongAdder numBytesSent = new LongAdder();
+		private final LongAdder numReadAheadHits = new LongAdder();
+		private final LongAdder numZeroCopyTransfers = new LongAdder();
+		private final LongAdder transferTime = new LongAdder();
+		private long numReportedRequests = 0L;
+
+		public void update(long numBytesSent, long duration)
+		{
+			this.numRequests.increment();
+			this.numBytesSent.add(numBytesSent);
+			this.transferTime.add(duration);
+		}
+
+		/** Returns a summary, if new requests were served since last call, else null */
+		public synchronized String report()
+		{
+			final long numRequests = this.numRequests.sum();
+			if (numRequests == numReportedRequests)
+				return null;
+
+			this.numReportedRequests = numRequests;
+
+			final long numBytesSent = this.numBytesSent.sum();
+			final long duration = Math.max(transferTime.sum(), 1L);
+			final long throughput = (long) (numBytesSent / (duration / 1_000_000_000.0));
+			return numRequests + " request(s), " + StringUtils.toHumanSize(numBytesSent) + " sent, "
+					+ StringUtils.toHumanSize(throughput) + "/s, "
+					+ numReadAheadHits.sum() + " read-ahead hit(s), "
+					+ numZeroCopyTransfers.sum() + " zero-copy transfer(s)";
+		}
+	}
+
+	/** Buffer for serving sequential range requests from larger reads */
+	private static class ReadAheadBuffer
+	{
+		/** Window arrays shared by all exported files */
+		private static final BufferPool BUFFERS = new BufferPool(16);
+
+		private final ExportStats stats;
+		private Window window;
+		private long nextOffset;
+
+		public ReadAheadBuffer(ExportStats stats)
+		{
+			this.stats = stats;
+			this.window = null;
+			this.nextOffset = -1L;
+		}
+
+		/** Writes requested range, returns number of written bytes or -1 if not served from buffer */
+		public long write(FileChannel channel, long offset, long length, int size, OutputStream output)
+				throws IOException
+		{
+			final Window current;
+			final boolean sequential;
+			synchronized (this) {
+				sequential = (offset == nextOffset);
+				nextOffset = offset + length;
+				current = (window != null) ? window.retain() : null;
+			}
+
+			try {
+				if (current != null && current.contains(offset, length)) {
+					stats.numReadAheadHits.increment();
+					return current.write(offset, length, output);
+				}
+			}
+			finally {
+				if (current != null)
+					current.release();
+			}
+
+			// Read ahead only for sequential accesses
+			if (!sequential || length >= size)
+				return -1L;
+
+			final Window next = Window.read(channel, offset, size);
+			try {
+				if (!next.contains(offset, length))
+					return -1L;
+
+				this.replace(next.retain());
+				return next.write(offset, length, output);
+			}
+			finally {
+				next.release();
+			}
+		}
+
+		/** Drops current window, returning its data to the pool once unused */
+		public void clear()
+		{
+			this.replace(null);
+		}
+
+		private void replace(Window next)
+		{
+			final Window previous;
+			synchronized (this) {
+				previous = window;
+				window = next;
+			}
+
+			if (previous != null)
+				previous.release();
+		}
+
+		private static class Window
+		{
+			private final long offset;
+			private final byte[] data;
+			private final int length;
+			private final boolean eof;
+			private final AtomicInteger numReferences;
+
+			private Window(long offset, byte[] data, int length, boolean eof)
+			{
+				this.offset = offset;
+				this.data = data;
+				this.length = length;
+				this.eof = eof;
+				this.numReferences = new AtomicInteger(1);
+			}
+
+			/** Reads a new window, owned by the caller */
+			public static Window read(FileChannel channel, long offset, int size) throws IOException
+			{
+				final byte[] data = BUFFERS.acquire(size);
+				final ByteBuffer buffer = ByteBuffer.wrap(data);
+				boolean eof = false;
+				try {
+					while (buffer.hasRemaining()) {
+						if (channel.read(buffer, offset + buffer.position()) < 0) {
+							eof = true;
+							break;
+						}
+					}
+				}
+				catch (IOException | RuntimeException error) {
+					BUFFERS.release(data);
+					throw error;
+				}
+
+				return new Window(offset, data, buffer.position(), eof);
+			}
+
+			public Window retain()
+			{
+				numReferences.incrementAndGet();
+				return this;
+			}
+
+			public void release()
+			{
+				if (numReferences.decrementAndGet() == 0)
+					BUFFERS.release(data);
+			}
+
+			public boolean contains(long start, long count)
+			{
+				final long end = offset + length;
+				if (start < offset || start > end)
+					return false;
+
+				// Ranges exceeding the end of file will be padded
+				return (start + count <= end) || eof;
+			}
+
+			public long write(long start, long count, OutputStream output) throws IOException
+			{
+				final int position = (int) (start - offset);
+				final int numBytesToWrite = (int) Math.min(count, length - position);
+				output.write(data, position, numBytesToWrite);
+				return numBytesToWrite;
+			}
+		}
+	}
+
+	/** Bounded pool of reusable read-ahead arrays */
+	private static class BufferPool
+	{
+		private final Queue<byte[]> buffers;
+		private final AtomicInteger numBuffers;
+		private final int capacity;
+
+		public BufferPool(int capacity)
+		{
+			this.buffers = new ConcurrentLinkedQueue<>();
+			this.numBuffers = new AtomicInteger(0);
+			this.capacity = capacity;
+		}
+
+		public byte[] acquire(int size)
+		{
+			final byte[] buffer = buffers.poll();
+			if (buffer != null) {
+				numBuffers.decrementAndGet();
+				if (buffer.length == size)
+					return buffer;
+			}
+
+			return new byte[size];
+		}
+
+		public void release(byte[] buffer)
+		{
+			if (numBuffers.incrementAndGet() > capacity) {
+				numBuffers.decrementAndGet();
+				return;
+			}
+
+			buffers.offer(buffer);
+		}
+	}
+
 	private class FileCacheCleanupTask implements Runnable
 	{
 		@Override
@@ -230,10 +522,15 @@ public abstract class HttpExportServlet extends HttpServlet
 				final Iterator<Map.Entry<String, FileCacheEntry>> iter = exportedFileCache.entrySet().iterator();
 				while (iter.hasNext()) {
 					final Map.Entry<String, FileCacheEntry> entry = iter.next();
+					final String stats = entry.getValue().stats().report();
+					if (stats != null)
+						log.info("Exported '" + entry.getKey() + "': " + stats);
+
 					final long elapsed = HttpExportServlet.timems() - entry.getValue().timestamp();
 					if (elapsed > maxTimeout) {
 						++numEvictedEntries;
 						iter.remove();
+						entry.getValue().readahead().clear();
 					}
 
 					++numCachedEntries;
@@ -30,9 +30,17 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 public class HttpUtils
@@ -41,8 +49,19 @@ public class HttpUtils
 
 	public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
 
+	public static final int DEFAULT_COPY_BUFFER_SIZE = 256 * 1024;
+
 	private static final String MULTIPART_BOUNDARY = "MULTIPART-BYTE-RANGE";
 
+	/** Shared source for padding bytes */
+	private static final byte[] ZEROS = new byte[64 * 1024];
+
+	/** Per-thread buffers for copying file data into output streams */
+	private static final ThreadLocal<byte[]> COPY_BUFFERS = ThreadLocal.withInitial(() -> new byte[DEFAULT_COPY_BUFFER_SIZE]);
+
+	/** Container-specific sendfile methods, looked up per output stream class */
+	private static final Map<Class<?>, Optional<MethodHandle>> TRANSFER_METHODS = new ConcurrentHashMap<>();
+
 
 	/** Returns true if given URL is relative */
 	public static boolean isRelativeUrl(String url)
@@ -161,22 +180,16 @@ public class HttpUtils
 			// Partial content with multiple parts
 			while (ranges.hasNext()) {
 				final ByteRangeChannel range = ranges.next();
-				final long start = range.getStartOffset();
-				final long end = range.getEndOffset();
 
 				// Write multipart boundary and headers first
-				output.println();
-				output.println("--" + MULTIPART_BOUNDARY);
-				output.println("Content-Type: application/octet-stream");
-				output.println("Content-Range: bytes " + start + "-" + end + "/" + length);
-				output.println();
+				HttpUtils.writePartHeader(output, range.getRange(), length);
 
 				// Write range's data buffer
 				HttpUtils.write(output, range, buffer);
 			}
 
 			// End multipart boundary
-			output.println("--" + MULTIPART_BOUNDARY + "--");
+			HttpUtils.writePartsEnd(output);
 		}
 		else {
 			// Partial content with single part
@@ -186,8 +199,126 @@ public class HttpUtils
 	}
 
 
+	/**
+	 * Merges overlapping ranges and ranges separated by less than maxGap bytes, as allowed by RFC 7233.
+	 * Returned ranges are sorted by their start offsets.
+	 */
+	public static List<ByteRange> coalesce(List<ByteRange> ranges, long maxGap)
+	{
+		if (ranges.size() < 2)
+			return ranges;
+
+		final List<ByteRange> sorted = new ArrayList<ByteRange>(ranges);
+		sorted.sort(Comparator.comparingLong(ByteRange::getStartOffset));
+
+		final List<ByteRange> result = new ArrayList<ByteRange>(sorted.size());
+		ByteRange current = sorted.get(0);
+		for (int i = 1; i < sorted.size(); ++i) {
+			final ByteRange next = sorted.get(i);
+			final long start = current.getStartOffset();
+			final long end = Math.max(current.getEndOffset(), next.getEndOffset());
+			final boolean mergeable = next.getStartOffset() <= current.getEndOffset() + 1L + maxGap
+					&& end - start + 1L <= ByteRange.MAX_SUPPORTED_RANGE_LENGTH;
+
+			if (mergeable)
+				current = new ByteRange(start, end - start + 1L);
+			else {
+				result.add(current);
+				current = next;
+			}
+		}
+
+		result.add(current);
+		return result;
+	}
+
+	/**
+	 * Sends the file's data starting at its current position, using the container's
+	 * zero-copy transfer method if available.
+	 *
+	 * @return true when data was sent, false when the container does not support zero-copy transfers.
+	 */
+	public static boolean transferFrom(FileChannel source, OutputStream output) throws IOException
+	{
+		final Optional<MethodHandle> method = TRANSFER_METHODS.computeIfAbsent(output.getClass(), HttpUtils::lookupTransferMethod);
+		if (method.isEmpty())
+			return false;
+
+		try {
+			method.get().invoke(output, source);
+			return true;
+		}
+		catch (IOException | RuntimeException | Error error) {
+			throw error;
+		}
+		catch (Throwable error) {
+			throw new IOException(error);
+		}
+	}
+
+	/** Copies length bytes starting at offset from source to output, returns the number of bytes copied */
+	public static long transfer(FileChannel source, long offset, long length, OutputStream output) throws IOException
+	{
+		final byte[] bytes = COPY_BUFFERS.get();
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		long position = offset;
+		long remaining = length;
+		while (remaining > 0L) {
+			buffer.clear();
+			buffer.limit((int) Math.min(remaining, bytes.length));
+			final int numBytesRead = source.read(buffer, position);
+			if (numBytesRead < 0)
+				break;  // EOF
+
+			output.write(bytes, 0, numBytesRead);
+			position += numBytesRead;
+			remaining -= numBytesRead;
+		}
+
+		return length - remaining;
+	}
+
+	/** Writes length zero bytes to output */
+	public static void writePadding(OutputStream output, long length) throws IOException
+	{
+		while (length > 0L) {
+			final int size = (int) Math.min(length, ZEROS.length);
+			output.write(ZEROS, 0, size);
+			length -= size;
+		}
+	}
+
+	/** Writes the multipart boundary and headers for a range */
+	public static void writePartHeader(ServletOutputStream output, ByteRange range, long length) throws IOException
+	{
+		output.println();
+		output.println("--" + MULTIPART_BOUNDARY);
+		output.println("Content-Type: application/octet-stream");
+		output.println("Content-Range: bytes " + range.getStartOffset() + "-" + range.getEndOffset() + "/" + length);
+		output.println();
+	}
+
+	/** Writes the final multipart boundary */
+	public static void writePartsEnd(ServletOutputStream output) throws IOException
+	{
+		output.println("--" + MULTIPART_BOUNDARY + "--");
+	}
+
+
 	/* =============== Internal Helpers =============== */
 
+	private static Optional<MethodHandle> lookupTransferMethod(Class<?> clazz)
+	{
+		// Undertow's ServletOutputStreamImpl provides a sendfile-based transferFrom(FileChannel)
+		try {
+			final MethodType type = MethodType.methodType(void.class, FileChannel.class);
+			return Optional.of(MethodHandles.publicLookup().findVirtual(clazz, "transferFrom", type));
+		}
+		catch (NoSuchMethodException | IllegalAccessException error) {
+			return Optional.empty();
+		}
+	}
+
 	/** Parses a substring of the given value as Long */
 	private static long parseOffset(String value, int beginIndex, int endIndex)
 	{
@@ -210,18 +341,6 @@ public class HttpUtils
 		}
 
 		// Padding needed?
-		for (int padding = (int) range.getNumBytesRemaining(); padding > 0;) {
-			buffer.clear();
-
-			for (int i = Math.min(padding, buffer.remaining()); i > 0; --i)
-				buffer.put((byte) 0);
-
-			buffer.flip();
-
-			// Write padding bytes...
-			final int offset = buffer.arrayOffset() + buffer.position();
-			output.write(buffer.array(), offset, buffer.remaining());
-			padding -= buffer.remaining();
-		}
+		HttpUtils.writePadding(output, range.getNumBytesRemaining());
 	}
 }
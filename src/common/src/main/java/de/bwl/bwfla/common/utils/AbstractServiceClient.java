@@ -23,11 +23,16 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.xml.ws.BindingProvider;
 import javax.xml.ws.Service;
@@ -38,10 +43,26 @@ import de.bwl.bwfla.common.concurrent.FirstAccessComputationFuture;
 import de.bwl.bwfla.common.utils.net.SSLUtilities;
 
 
+/**
+ * Base class for SOAP clients, caching parsed services and port proxies per WSDL location
+ * or per service instance.
+ * <p/>
+ * The cache is bounded: least recently used endpoints are evicted when the max. number
+ * of entries is reached, idle endpoints are evicted on subsequent accesses. In WSDL-template
+ * mode, only the first WSDL is fetched and parsed, ports for all other locations are
+ * created from that template by replacing scheme, host and port of each port's address.
+ */
 public abstract class AbstractServiceClient<T extends Service> {
-    protected Map<URI, Future<T>> serviceMap = new ConcurrentHashMap<>();
-    protected ConcurrentMap<T, ConcurrentMap<Class<?>, Future<Object>>> portMap = new ConcurrentHashMap<T, ConcurrentMap<Class<?>, Future<Object>>>();
-    
+    /** Default max. number of cached service endpoints */
+    public static final int DEFAULT_MAX_NUM_ENDPOINTS = 256;
+
+    /** Default max. idle time of cached service endpoints */
+    public static final Duration DEFAULT_MAX_IDLE_TIME = Duration.ofMinutes(30);
+
+    private final EndpointCache endpoints = new EndpointCache();
+    private final AtomicReference<Future<T>> template = new AtomicReference<>();
+    private volatile boolean templateModeEnabled = false;
+
     protected abstract T createService(URL url);
     protected abstract String getWsdlUrl(String host);
 
@@ -50,59 +71,300 @@ public abstract class AbstractServiceClient<T extends Service> {
 //    }
 
 
-    protected T getService(URL url) throws BWFLAException {
+    /** Sets the max. number of cached endpoints and their max. idle time. */
+    protected void setCacheLimits(int maxNumEndpoints, Duration maxIdleTime) {
+        if (maxNumEndpoints < 1)
+            throw new IllegalArgumentException("Invalid max. number of endpoints: " + maxNumEndpoints);
+
+        if (maxIdleTime.isNegative() || maxIdleTime.isZero())
+            throw new IllegalArgumentException("Invalid max. idle time: " + maxIdleTime);
+
+        endpoints.setLimits(maxNumEndpoints, maxIdleTime.toNanos());
+    }
+
+    /**
+     * Enables or disables WSDL-template mode. Should only be enabled, when all
+     * endpoints accessed through this client are described by the same WSDL.
+     */
+    protected void setWsdlTemplateModeEnabled(boolean enabled) {
+        this.templateModeEnabled = enabled;
+        template.set(null);
+        endpoints.clear();
+    }
+
+    public boolean isWsdlTemplateModeEnabled() {
+        return templateModeEnabled;
+    }
+
+    /** Removes all cached objects for given WSDL location. */
+    public void invalidate(URL wsdl) {
         try {
-            URI uri = url.toURI();
-            
-            Future<T> future = serviceMap.computeIfAbsent(uri, u -> new FirstAccessComputationFuture<T>(() -> createService(url)));
+            endpoints.remove(wsdl.toURI());
+        } catch (URISyntaxException e) {
+            // Such endpoints can't be cached!
+        }
+    }
 
-            return future.get();
-        } catch (URISyntaxException|InterruptedException|ExecutionException e) {
-            throw new BWFLAException("Could not create web service endpoint: " + e.getMessage(), e);
+    /** Removes all cached objects for given host. */
+    public void invalidate(String host) {
+        try {
+            this.invalidate(this.toWsdlUrl(host));
+        } catch (BWFLAException e) {
+            // Such endpoints can't be cached!
         }
     }
+
+    /** Removes all cached objects. */
+    public void invalidateAll() {
+        template.set(null);
+        endpoints.clear();
+    }
+
+    public int getNumCachedEndpoints() {
+        return endpoints.size();
+    }
+
+    protected T getService(URL url) throws BWFLAException {
+        return this.getService(this.lookup(url));
+    }
     
     protected T getService(String host) throws BWFLAException {
+        return getService(this.toWsdlUrl(host));
+    }
+    
+    public <P> P getPort(URL host, Class<P> port) throws BWFLAException {
+        return getPort(this.lookup(host), port);
+    }
+
+    public <P> P getPort(String host, Class<P> port) throws BWFLAException {
+        return getPort(this.toWsdlUrl(host), port);
+    }
+    
+    /** Returns a port proxy for given service, cached per service instance. */
+    @SuppressWarnings("unchecked")
+    public <P> P getPort(Service service, Class<P> port) throws BWFLAException {
+        final ServiceKey key = new ServiceKey(service);
+        final Endpoint<T> endpoint = endpoints.get(key, () -> {
+            return new Endpoint<T>(key, CompletableFuture.completedFuture((T) service), null);
+        });
+
+        return getPort(endpoint, port);
+    }
+
+
+    /* ==================== Internal Helpers ==================== */
+
+    private URL toWsdlUrl(String host) throws BWFLAException {
         try {
             // FIXME make protocol check more generic
             if(!host.contains("http://") && !host.contains("https://")){
                 host = "http://" + host;
             }
             URI uri = new URI(getWsdlUrl(host));
-            return getService(uri.toURL());
+            return uri.toURL();
         } catch (MalformedURLException|URISyntaxException e) {
             throw new BWFLAException("Could not create web service endpoint: " + e.getMessage(), e);
         }
     }
-    
-    public <P> P getPort(URL host, Class<P> port) throws BWFLAException {
-        return getPort(getService(host), port);
+
+    private Endpoint<T> lookup(URL wsdl) throws BWFLAException {
+        final URI uri;
+        try {
+            uri = wsdl.toURI();
+        } catch (URISyntaxException e) {
+            throw new BWFLAException("Could not create web service endpoint: " + e.getMessage(), e);
+        }
+
+        return endpoints.get(uri, () -> {
+            if (!templateModeEnabled)
+                return new Endpoint<T>(uri, new FirstAccessComputationFuture<T>(() -> createService(wsdl)), null);
+
+            // Share one parsed service between all endpoints
+            final Future<T> service = template.updateAndGet((current) -> {
+                return (current != null) ? current : new FirstAccessComputationFuture<T>(() -> createService(wsdl));
+            });
+
+            return new Endpoint<T>(uri, service, uri);
+        });
     }
 
-    public <P> P getPort(String host, Class<P> port) throws BWFLAException {
-        return getPort(getService(host), port);
+    private T getService(Endpoint<T> endpoint) throws BWFLAException {
+        try {
+            return endpoint.service.get();
+        } catch (InterruptedException e) {
+            throw new BWFLAException("Could not create web service endpoint: " + e.getMessage(), e);
+        } catch (ExecutionException e) {
+            // Don't cache failures, retry on next access
+            template.compareAndSet(endpoint.service, null);
+            endpoints.remove(endpoint.key, endpoint);
+            throw new BWFLAException("Could not create web service endpoint: " + e.getMessage(), e);
+        }
     }
-    
-    @SuppressWarnings("unchecked")
-    public <P> P getPort(Service service, Class<P> port) throws BWFLAException {
-        ConcurrentMap<Class<?>, Future<Object>> ports = portMap.computeIfAbsent((T) service, s -> new ConcurrentHashMap<Class<?>, Future<Object>>());
-
-        Future<Object> future = ports.computeIfAbsent(port, p ->
-            new FirstAccessComputationFuture<Object>(() -> {
-                // Disable timeouts and enable MTOM for large file transfers
-                BindingProvider bp = (BindingProvider) service.getPort(port);
-                bp.getRequestContext().put("javax.xml.ws.client.receiveTimeout", "0");
-                bp.getRequestContext().put("javax.xml.ws.client.connectionTimeout", "0");
-                bp.getRequestContext().put("com.sun.xml.internal.ws.transport.http.client.streaming.chunk.size", 8192);
-                ((SOAPBinding) bp.getBinding()).setMTOMEnabled(true);
-                return bp;
-            })
+
+    private <P> P getPort(Endpoint<T> endpoint, Class<P> port) throws BWFLAException {
+        final T service = this.getService(endpoint);
+        final Future<Object> future = endpoint.ports.computeIfAbsent(port, p ->
+            new FirstAccessComputationFuture<Object>(() -> AbstractServiceClient.createPort(service, port, endpoint.target))
         );
         
         try {
             return port.cast(future.get());
-        } catch (InterruptedException | ExecutionException e) {
+        } catch (InterruptedException e) {
+            throw new BWFLAException("Could not create web service proxy object: " + e.getMessage(), e);
+        } catch (ExecutionException e) {
+            endpoint.ports.remove(port, future);
             throw new BWFLAException("Could not create web service proxy object: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Returns the port's address from a WSDL-template, with scheme, host and port
+     * replaced by those of the target location. The port's path is kept as is.
+     */
+    static String rebase(String address, URI target) throws URISyntaxException {
+        final URI source = new URI(address);
+        final StringBuilder result = new StringBuilder(address.length() + 32)
+                .append(target.getScheme())
+                .append("://")
+                .append(target.getRawAuthority());
+
+        if (source.getRawPath() != null)
+            result.append(source.getRawPath());
+
+        if (source.getRawQuery() != null)
+            result.append('?').append(source.getRawQuery());
+
+        return result.toString();
+    }
+
+    private static Object createPort(Service service, Class<?> port, URI target) {
+        // Disable timeouts and enable MTOM for large file transfers
+        BindingProvider bp = (BindingProvider) service.getPort(port);
+        bp.getRequestContext().put("javax.xml.ws.client.receiveTimeout", "0");
+        bp.getRequestContext().put("javax.xml.ws.client.connectionTimeout", "0");
+        bp.getRequestContext().put("com.sun.xml.internal.ws.transport.http.client.streaming.chunk.size", 8192);
+        if (target != null) {
+            // Each port has its own address in the template, retarget it
+            final Object address = bp.getRequestContext().get(BindingProvider.ENDPOINT_ADDRESS_PROPERTY);
+            if (address == null)
+                throw new IllegalStateException("Address of port '" + port.getSimpleName() + "' is unknown!");
+
+            try {
+                bp.getRequestContext().put(BindingProvider.ENDPOINT_ADDRESS_PROPERTY, AbstractServiceClient.rebase(address.toString(), target));
+            }
+            catch (URISyntaxException error) {
+                throw new IllegalStateException("Invalid address of port '" + port.getSimpleName() + "': " + address, error);
+            }
+        }
+
+        ((SOAPBinding) bp.getBinding()).setMTOMEnabled(true);
+        return bp;
+    }
+
+    private static class Endpoint<T> {
+        private final Object key;
+        private final Future<T> service;
+        private final URI target;
+        private final ConcurrentMap<Class<?>, Future<Object>> ports;
+        private long lastAccessTime;
+
+        public Endpoint(Object key, Future<T> service, URI target) {
+            this.key = key;
+            this.service = service;
+            this.target = target;
+            this.ports = new ConcurrentHashMap<Class<?>, Future<Object>>();
+            this.lastAccessTime = System.nanoTime();
+        }
+    }
+
+    /** Key for services created outside of this client, compared by identity */
+    private static final class ServiceKey {
+        private final Service service;
+
+        public ServiceKey(Service service) {
+            this.service = service;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return (other instanceof ServiceKey) && ((ServiceKey) other).service == service;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(service);
+        }
+    }
+
+    @FunctionalInterface
+    private interface EndpointFactory<T> {
+        Endpoint<T> create() throws BWFLAException;
+    }
+
+    /** LRU-cache for endpoints, evicting entries when idle for too long */
+    private class EndpointCache {
+        private final LinkedHashMap<Object, Endpoint<T>> entries;
+        private int maxNumEntries;
+        private long maxIdleTime;
+
+        public EndpointCache() {
+            this.entries = new LinkedHashMap<Object, Endpoint<T>>(16, 0.75F, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, Endpoint<T>> eldest) {
+                    return this.size() > maxNumEntries;
+                }
+            };
+
+            this.maxNumEntries = DEFAULT_MAX_NUM_ENDPOINTS;
+            this.maxIdleTime = DEFAULT_MAX_IDLE_TIME.toNanos();
+        }
+
+        public synchronized void setLimits(int maxNumEntries, long maxIdleTime) {
+            this.maxNumEntries = maxNumEntries;
+            this.maxIdleTime = maxIdleTime;
+            this.evict(System.nanoTime());
+        }
+
+        public synchronized Endpoint<T> get(Object key, EndpointFactory<T> factory) throws BWFLAException {
+            final long curtime = System.nanoTime();
+            this.evict(curtime);
+
+            Endpoint<T> endpoint = entries.get(key);
+            if (endpoint == null) {
+                endpoint = factory.create();
+                entries.put(key, endpoint);
+            }
+
+            endpoint.lastAccessTime = curtime;
+            return endpoint;
+        }
+
+        public synchronized void remove(Object key) {
+            entries.remove(key);
+        }
+
+        public synchronized void remove(Object key, Endpoint<T> endpoint) {
+            entries.remove(key, endpoint);
+        }
+
+        public synchronized void clear() {
+            entries.clear();
+        }
+
+        public synchronized int size() {
+            return entries.size();
+        }
+
+        /** Removes idle entries, starting with the least recently accessed one */
+        private void evict(long curtime) {
+            final Iterator<Endpoint<T>> iter = entries.values().iterator();
+            while (iter.hasNext()) {
+                final Endpoint<T> endpoint = iter.next();
+                if (curtime - endpoint.lastAccessTime < maxIdleTime)
+                    break;
+
+                iter.remove();
+            }
+        }
+    }
 }
@@ -0,0 +1,509 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.common.utils;
+
+import de.bwl.bwfla.common.datatypes.QemuImage;
+import de.bwl.bwfla.common.services.net.HttpUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+
+/**
+ * In-process reader for image metadata, as reported by "qemu-img info".
+ * <p/>
+ * Only qcow2 headers and raw images are recognized, for all other formats
+ * the probe gives up and callers are expected to fall back to qemu-img.
+ * Local images are read directly, remote images using HTTP range requests.
+ * Probed metadata is cached, keyed by the path and validated by size and
+ * modification time for local images or by the ETag for remote images.
+ */
+public final class ImageFormatProbe
+{
+	/** Number of bytes to read initially, covering qcow2 headers with default cluster size */
+	private static final int HEADER_SIZE = 64 * 1024;
+
+	/** Number of bytes to read from the end, for checking footer-based formats */
+	private static final int FOOTER_SIZE = 512;
+
+	/** Max. length of a backing file name, as accepted by qemu */
+	private static final int MAX_BACKING_FILE_NAME_LENGTH = 1023;
+
+	private static final int MAX_CACHE_ENTRIES = 512;
+
+	private static final int HTTP_TIMEOUT = 30 * 1000;
+
+	private static final Pattern PROTOCOL_PREFIX = Pattern.compile("[a-z][a-z0-9+.-]*:");
+
+	/** Cached metadata, in least-recently-used order */
+	private static final Map<String, CacheEntry> CACHE = new LinkedHashMap<>(64, 0.75F, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest)
+		{
+			return this.size() > MAX_CACHE_ENTRIES;
+		}
+	};
+
+
+	/**
+	 * Probe the metadata of an image, given as a local path or an HTTP(S) URL.
+	 * @return Image's metadata or null, if the image or its format is not supported.
+	 *         Returned instances are shared and must not be modified!
+	 */
+	public static QemuImage probe(String image) throws IOException
+	{
+		if (HttpUtils.isAbsoluteUrl(image))
+			return ImageFormatProbe.probe(new URL(image));
+
+		final Path path;
+		try {
+			path = Paths.get(image);
+		}
+		catch (InvalidPathException error) {
+			return null;
+		}
+
+		// Anything else (e.g. NBD or other protocols) is handled by qemu-img
+		if (!Files.isRegularFile(path))
+			return null;
+
+		return ImageFormatProbe.probe(path);
+	}
+
+	/** Drop cached metadata of an image, e.g. after modifying it in place */
+	public static void invalidate(String image)
+	{
+		final String key = (HttpUtils.isAbsoluteUrl(image)) ? image : Paths.get(image).toAbsolutePath().normalize().toString();
+		synchronized (CACHE) {
+			CACHE.remove(key);
+		}
+	}
+
+
+	// ========== Internal Helpers ==============================
+
+	private static QemuImage probe(Path path) throws IOException
+	{
+		final String key = path.toAbsolutePath().normalize().toString();
+		final BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+		final String version = attrs.size() + "@" + attrs.lastModifiedTime().toMillis();
+		final QemuImage cached = ImageFormatProbe.lookup(key, version);
+		if (cached != null)
+			return cached;
+
+		try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final ByteSource source = (offset, length) -> {
+				final ByteBuffer buffer = ByteBuffer.allocate(length);
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer, offset + buffer.position()) < 0)
+						break;
+				}
+
+				return buffer.flip();
+			};
+
+			final QemuImage info = ImageFormatProbe.parse(path.toString(), attrs.size(), source);
+			if (info != null) {
+				final Path parent = path.toAbsolutePath().getParent();
+				final String bfname = info.getBackingFile();
+				if (bfname != null && ImageFormatProbe.isRelativePath(bfname) && parent != null)
+					info.setFullBackingName(parent.resolve(bfname).normalize().toString());
+
+				ImageFormatProbe.insert(key, version, info);
+			}
+
+			return info;
+		}
+	}
+
+	private static QemuImage probe(URL url) throws IOException
+	{
+		final String key = url.toString();
+		final CacheEntry cached;
+		synchronized (CACHE) {
+			cached = CACHE.get(key);
+		}
+
+		final HttpURLConnection connection = ImageFormatProbe.connect(url, 0L, HEADER_SIZE);
+		try {
+			if (cached != null)
+				connection.setRequestProperty("If-None-Match", cached.version);
+
+			final int code = connection.getResponseCode();
+			if (code == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null)
+				return cached.info;
+
+			final long size;
+			switch (code) {
+				case HttpURLConnection.HTTP_PARTIAL:
+					size = ImageFormatProbe.getTotalLength(connection.getHeaderField("Content-Range"));
+					break;
+				case HttpURLConnection.HTTP_OK:
+					size = connection.getContentLengthLong();
+					break;
+				default:
+					throw new IOException("Fetching image header from '" + url + "' failed with HTTP " + code);
+			}
+
+			if (size < 0L)
+				return null;
+
+			final ByteBuffer header;
+			try (final InputStream istream = connection.getInputStream()) {
+				header = ImageFormatProbe.read(istream, (int) Math.min(HEADER_SIZE, size));
+			}
+
+			final ByteSource source = (offset, length) -> {
+				if (offset == 0L && length <= header.limit())
+					return header.duplicate().limit(length);
+
+				final HttpURLConnection rconnection = ImageFormatProbe.connect(url, offset, length);
+				try {
+					final int rcode = rconnection.getResponseCode();
+					if (rcode != HttpURLConnection.HTTP_PARTIAL)
+						throw new IOException("Range request to '" + url + "' failed with HTTP " + rcode);
+
+					try (final InputStream istream = rconnection.getInputStream()) {
+						return ImageFormatProbe.read(istream, length);
+					}
+				}
+				finally {
+					rconnection.disconnect();
+				}
+			};
+
+			final QemuImage info = ImageFormatProbe.parse(key, size, source);
+			if (info != null) {
+				final String bfname = info.getBackingFile();
+				if (bfname != null && ImageFormatProbe.isRelativePath(bfname))
+					info.setFullBackingName(URI.create(key).resolve(bfname).toString());
+
+				final String etag = connection.getHeaderField("ETag");
+				if (etag != null)
+					ImageFormatProbe.insert(key, etag, info);
+			}
+
+			return info;
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+	private static QemuImage parse(String filename, long size, ByteSource source) throws IOException
+	{
+		final ByteBuffer header = source.read(0L, (int) Math.min(HEADER_SIZE, size))
+				.order(ByteOrder.BIG_ENDIAN);
+
+		final QemuImage info;
+		if (Qcow2.matches(header))
+			info = Qcow2.parse(header, size, source);
+		else if (ImageFormatProbe.isRaw(header, size, source)) {
+			info = new QemuImage();
+			info.setFormat("raw");
+			info.setVirtualSize(Long.toString(size));
+		}
+		else return null;
+
+		if (info == null)
+			return null;
+
+		info.setFilename(filename);
+		if (info.getFullBackingName() == null)
+			info.setFullBackingName(info.getBackingFile());
+
+		return info;
+	}
+
+	/** Returns true, if none of the signatures probed by qemu match */
+	private static boolean isRaw(ByteBuffer header, long size, ByteSource source) throws IOException
+	{
+		for (byte[] signature : Signatures.HEADERS) {
+			if (ImageFormatProbe.startsWith(header, 0, signature))
+				return false;
+		}
+
+		// VDI images start with a text description, followed by the signature
+		if (header.limit() >= 68 && Integer.reverseBytes(header.getInt(64)) == Signatures.VDI)
+			return false;
+
+		// VMDK descriptors are plain-text files
+		final int length = Math.min(header.limit(), 1024);
+		final String text = new String(header.array(), header.arrayOffset(), length, StandardCharsets.ISO_8859_1);
+		if (text.contains(Signatures.VMDK_DESCRIPTOR))
+			return false;
+
+		if (size < FOOTER_SIZE)
+			return true;
+
+		final ByteBuffer footer = source.read(size - FOOTER_SIZE, FOOTER_SIZE);
+		for (byte[] signature : Signatures.FOOTERS) {
+			if (ImageFormatProbe.startsWith(footer, 0, signature))
+				return false;
+		}
+
+		// VPC footers can also be 511 bytes long
+		return !ImageFormatProbe.startsWith(footer, 1, Signatures.VPC);
+	}
+
+	/** Returns true, if given backing file name is a relative path, not an absolute one or an URL */
+	private static boolean isRelativePath(String name)
+	{
+		return !name.startsWith("/") && !PROTOCOL_PREFIX.matcher(name).lookingAt();
+	}
+
+	private static boolean startsWith(ByteBuffer buffer, int offset, byte[] prefix)
+	{
+		if (buffer.limit() < offset + prefix.length)
+			return false;
+
+		for (int i = 0; i < prefix.length; ++i) {
+			if (buffer.get(offset + i) != prefix[i])
+				return false;
+		}
+
+		return true;
+	}
+
+	private static HttpURLConnection connect(URL url, long offset, int length) throws IOException
+	{
+		final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setConnectTimeout(HTTP_TIMEOUT);
+		connection.setReadTimeout(HTTP_TIMEOUT);
+		connection.setRequestProperty("Range", "bytes=" + offset + "-" + (offset + length - 1L));
+		return connection;
+	}
+
+	private static ByteBuffer read(InputStream istream, int length) throws IOException
+	{
+		final byte[] buffer = new byte[length];
+		int offset = 0;
+		while (offset < length) {
+			final int num = istream.read(buffer, offset, length - offset);
+			if (num < 0)
+				break;
+
+			offset += num;
+		}
+
+		return ByteBuffer.wrap(buffer, 0, offset);
+	}
+
+	/** Parse total length from a header like "bytes 0-1023/4096" */
+	private static long getTotalLength(String range)
+	{
+		if (range == null)
+			return -1L;
+
+		final String total = range.substring(range.lastIndexOf('/') + 1)
+				.trim();
+
+		return (total.equals("*")) ? -1L : Long.parseLong(total);
+	}
+
+	private static QemuImage lookup(String key, String version)
+	{
+		synchronized (CACHE) {
+			final CacheEntry entry = CACHE.get(key);
+			return (entry != null && entry.version.equals(version)) ? entry.info : null;
+		}
+	}
+
+	private static void insert(String key, String version, QemuImage info)
+	{
+		synchronized (CACHE) {
+			CACHE.put(key, new CacheEntry(version, info));
+		}
+	}
+
+	private ImageFormatProbe()
+	{
+		// Empty!
+	}
+
+
+	@FunctionalInterface
+	private interface ByteSource
+	{
+		/** Read up to length bytes at offset, returned buffer is positioned at offset */
+		ByteBuffer read(long offset, int length) throws IOException;
+	}
+
+	private static final class CacheEntry
+	{
+		private final String version;
+		private final QemuImage info;
+
+		private CacheEntry(String version, QemuImage info)
+		{
+			this.version = version;
+			this.info = info;
+		}
+	}
+
+	/** Parser for qcow2 headers, see qemu's docs/interop/qcow2.txt */
+	private static final class Qcow2
+	{
+		private static final int MAGIC = 0x514649FB;
+
+		private static final int HEADER_LENGTH_V2 = 72;
+
+		private static final int EXTENSION_END = 0x00000000;
+		private static final int EXTENSION_BACKING_FORMAT = 0xE2792ACA;
+
+		private static final int MIN_CLUSTER_BITS = 9;
+		private static final int MAX_CLUSTER_BITS = 21;
+
+
+		static boolean matches(ByteBuffer header)
+		{
+			return header.limit() >= HEADER_LENGTH_V2 && header.getInt(0) == MAGIC;
+		}
+
+		static QemuImage parse(ByteBuffer header, long size, ByteSource source) throws IOException
+		{
+			final int version = header.getInt(4);
+			if (version != 2 && version != 3)
+				return null;  // qcow v1 or unknown versions
+
+			final long bfoffset = header.getLong(8);
+			final int bflength = header.getInt(16);
+			final int clusterBits = header.getInt(20);
+			if (clusterBits < MIN_CLUSTER_BITS || clusterBits > MAX_CLUSTER_BITS)
+				throw new IOException("Invalid qcow2 cluster size!");
+
+			if (bflength < 0 || bflength > MAX_BACKING_FILE_NAME_LENGTH)
+				throw new IOException("Invalid qcow2 backing file name length!");
+
+			final int clusterSize = 1 << clusterBits;
+			if (version == 3 && header.limit() < 104)
+				throw new IOException("Truncated qcow2 header!");
+
+			final int hdrlength = (version == 2) ? HEADER_LENGTH_V2 : header.getInt(100);
+			if (hdrlength < HEADER_LENGTH_V2 || hdrlength > clusterSize)
+				throw new IOException("Invalid qcow2 header length!");
+
+			final QemuImage info = new QemuImage();
+			info.setFormat("qcow2");
+			info.setVirtualSize(Long.toString(header.getLong(24)));
+			info.setClusterSize(Integer.toString(clusterSize));
+			if (bfoffset == 0L || bflength == 0)
+				return info;
+
+			// Header extensions are stored in the first cluster
+			final int limit = (int) Math.min(clusterSize, size);
+			info.setBackingFileFormat(Qcow2.findBackingFileFormat(header, hdrlength, limit, source));
+
+			final ByteBuffer bfname = (bfoffset + bflength <= header.limit()) ?
+					header.duplicate().position((int) bfoffset).limit((int) bfoffset + bflength) : source.read(bfoffset, bflength);
+
+			if (bfname.remaining() != bflength)
+				throw new IOException("Truncated qcow2 backing file name!");
+
+			info.setBackingFile(StandardCharsets.UTF_8.decode(bfname).toString());
+			return info;
+		}
+
+		private static String findBackingFileFormat(ByteBuffer header, int offset, int limit, ByteSource source)
+				throws IOException
+		{
+			while (offset + 8 <= limit) {
+				if (offset + 8 > header.limit())
+					header = source.read(0L, limit);
+
+				final int type = header.getInt(offset);
+				final int length = header.getInt(offset + 4);
+				if (type == EXTENSION_END)
+					break;
+
+				offset += 8;
+				if (length < 0 || offset + length > limit)
+					throw new IOException("Invalid qcow2 header extension!");
+
+				if (type == EXTENSION_BACKING_FORMAT) {
+					if (offset + length > header.limit())
+						header = source.read(0L, limit);
+
+					final ByteBuffer name = header.duplicate().position(offset).limit(offset + length);
+					return StandardCharsets.US_ASCII.decode(name).toString();
+				}
+
+				// Extension data is padded to multiples of 8 bytes
+				offset += (length + 7) & ~7;
+			}
+
+			return null;
+		}
+	}
+
+	/** Signatures of other formats supported by qemu */
+	private static final class Signatures
+	{
+		private static final byte[] VPC = ascii("conectix");
+
+		private static final int VDI = 0xBEDA107F;
+
+		private static final String VMDK_DESCRIPTOR = "# Disk DescriptorFile";
+
+		/** Signatures found at the start of images */
+		private static final byte[][] HEADERS = {
+				ascii("QFI\u00FB"),       // qcow, all versions
+				ascii("QED\0"),           // qed
+				VPC,                      // vpc, dynamic images
+				ascii("KDMV"),            // vmdk, sparse extents
+				ascii("COWD"),            // vmdk, ESX sparse extents
+				ascii("vhdxfile"),        // vhdx
+				ascii("LUKS\u00BA\u00BE"), // luks
+				ascii("Bochs Virtual HD Image"),    // bochs
+				ascii("WithoutFreeSpace"),          // parallels
+				ascii("WithouFreSpacExt"),          // parallels, extended
+				ascii("#!/bin/sh\n#V2.0 Format\n"), // cloop
+				ascii("EVF\t\r\n\u00FF\0"),   // ewf
+		};
+
+		/** Signatures found in the last 512 bytes of images */
+		private static final byte[][] FOOTERS = {
+				VPC,                      // vpc, fixed images
+				ascii("koly"),            // dmg
+		};
+
+		private static byte[] ascii(String string)
+		{
+			return string.getBytes(StandardCharsets.ISO_8859_1);
+		}
+	}
+}
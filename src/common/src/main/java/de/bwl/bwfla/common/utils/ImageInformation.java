@@ -30,6 +30,20 @@ public class ImageInformation {
     }
 
     public ImageInformation(String imageFile, Logger log) throws IOException, BWFLAException {
+        // OPTIMIZATION: qcow2 and raw images can be inspected in-process,
+        //               without forking qemu-img and transferring whole images
+        try {
+            imageInfo = ImageFormatProbe.probe(imageFile);
+        }
+        catch (Exception error) {
+            log.warning("Probing image '" + imageFile + "' failed, falling back to qemu-img! " + error.getMessage());
+        }
+
+        if (imageInfo == null)
+            imageInfo = ImageInformation.query(imageFile, log);
+    }
+
+    private static QemuImage query(String imageFile, Logger log) throws IOException, BWFLAException {
         ProcessRunner process = new ProcessRunner();
         process.setCommand("qemu-img");
         process.addArguments("info");
@@ -43,8 +57,12 @@ public class ImageInformation {
         if (result == null || !result.successful())
             throw new BWFLAException("qemu-img info '" + imageFile + "' failed!");
 
-        imageInfo = QemuImage.fromJsonValueWithoutRoot(result.stdout(), QemuImage.class);
-        process.cleanup();
+        try {
+            return QemuImage.fromJsonValueWithoutRoot(result.stdout(), QemuImage.class);
+        }
+        finally {
+            process.cleanup();
+        }
     }
 
     public boolean hasBackingFile() {
@@ -59,6 +77,15 @@ public class ImageInformation {
         return QemuImageFormat.valueOf(imageInfo.getFormat().toUpperCase());
     }
 
+    public long getVirtualSize() {
+        return Long.parseLong(imageInfo.getVirtualSize());
+    }
+
+    public int getClusterSize() {
+        final var csize = imageInfo.getClusterSize();
+        return (csize != null) ? Integer.parseInt(csize) : 0;
+    }
+
     public QemuImageFormat getBackingFileFormat() {
         final var bfformat = imageInfo.getBackingFileFormat();
         return (bfformat != null) ? QemuImageFormat.valueOf(bfformat.toUpperCase()) : null;
@@ -0,0 +1,308 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.common.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Registry of per-command execution metrics, collected by all {@link ProcessRunner}s.
+ * <p/>
+ * Commands are grouped by the name of the executed binary, ignoring wrappers like sudo.
+ */
+public final class ProcessMetrics
+{
+	private static final ProcessMetrics INSTANCE = new ProcessMetrics();
+
+	private final Map<String, Entry> entries;
+
+
+	/** Returns the metrics collected by all process-runners */
+	public static ProcessMetrics instance()
+	{
+		return INSTANCE;
+	}
+
+	/** Returns a snapshot of all entries, sorted by total run time in descending order */
+	public List<Entry> entries()
+	{
+		final List<Entry> snapshot = new ArrayList<>(entries.values());
+		snapshot.sort(Comparator.comparingLong(Entry::getTotalRunTimeNanos).reversed());
+		return snapshot;
+	}
+
+	/** Returns the entry for given command name or null, if not found */
+	public Entry lookup(String name)
+	{
+		return entries.get(name);
+	}
+
+	/** Remove all collected metrics */
+	public void reset()
+	{
+		entries.clear();
+	}
+
+	/** Returns a summary of the top-N commands, sorted by total run time */
+	public String summary(int maxNumEntries)
+	{
+		final StringBuilder builder = new StringBuilder(1024);
+		for (Entry entry : this.entries()) {
+			if (maxNumEntries-- <= 0)
+				break;
+
+			builder.append(entry)
+					.append('\n');
+		}
+
+		return builder.toString();
+	}
+
+	@Override
+	public String toString()
+	{
+		return this.summary(Integer.MAX_VALUE);
+	}
+
+
+	public static final class Entry
+	{
+		private final String name;
+		private final LongAdder numStarts;
+		private final LongAdder numFailedStarts;
+		private final LongAdder numFinished;
+		private final LongAdder forkTime;
+		private final AtomicLong maxForkTime;
+		private final LongAdder runTime;
+		private final AtomicLong maxRunTime;
+		private final Map<Integer, LongAdder> exitcodes;
+
+		private Entry(String name)
+		{
+			this.name = name;
+			this.numStarts = new LongAdder();
+			this.numFailedStarts = new LongAdder();
+			this.numFinished = new LongAdder();
+			this.forkTime = new LongAdder();
+			this.maxForkTime = new AtomicLong(0L);
+			this.runTime = new LongAdder();
+			this.maxRunTime = new AtomicLong(0L);
+			this.exitcodes = new ConcurrentHashMap<>();
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		/** Returns the number of successfully started processes */
+		public long getNumStarts()
+		{
+			return numStarts.sum();
+		}
+
+		/** Returns the number of processes, that could not be started */
+		public long getNumFailedStarts()
+		{
+			return numFailedStarts.sum();
+		}
+
+		/** Returns the number of processes, that were waited for until termination */
+		public long getNumFinished()
+		{
+			return numFinished.sum();
+		}
+
+		/** Returns the number of terminated processes with a non-zero exit code */
+		public long getNumFailures()
+		{
+			return this.getNumFinished() - this.getNumExits(0);
+		}
+
+		/** Returns the number of terminated processes with given exit code */
+		public long getNumExits(int code)
+		{
+			final LongAdder counter = exitcodes.get(code);
+			return (counter != null) ? counter.sum() : 0L;
+		}
+
+		/** Returns the number of terminated processes per exit code */
+		public Map<Integer, Long> getExitCodes()
+		{
+			final Map<Integer, Long> result = new TreeMap<>();
+			exitcodes.forEach((code, counter) -> result.put(code, counter.sum()));
+			return result;
+		}
+
+		/** Returns the total time spent in spawning processes */
+		public long getTotalForkTimeNanos()
+		{
+			return forkTime.sum();
+		}
+
+		public Duration getAvgForkTime()
+		{
+			return Entry.average(this.getTotalForkTimeNanos(), this.getNumStarts() + this.getNumFailedStarts());
+		}
+
+		public Duration getMaxForkTime()
+		{
+			return Duration.ofNanos(maxForkTime.get());
+		}
+
+		/** Returns the total time between start and termination of processes */
+		public long getTotalRunTimeNanos()
+		{
+			return runTime.sum();
+		}
+
+		public Duration getAvgRunTime()
+		{
+			return Entry.average(this.getTotalRunTimeNanos(), this.getNumFinished());
+		}
+
+		public Duration getMaxRunTime()
+		{
+			return Duration.ofNanos(maxRunTime.get());
+		}
+
+		@Override
+		public String toString()
+		{
+			return name + ": " + this.getNumStarts() + " start(s), "
+					+ this.getNumFailedStarts() + " failed start(s), "
+					+ this.getNumFailures() + " failure(s), "
+					+ "fork avg/max " + Entry.toMillis(this.getAvgForkTime()) + "/" + Entry.toMillis(this.getMaxForkTime()) + " ms, "
+					+ "run avg/max/total " + Entry.toMillis(this.getAvgRunTime()) + "/" + Entry.toMillis(this.getMaxRunTime())
+					+ "/" + Entry.toMillis(Duration.ofNanos(this.getTotalRunTimeNanos())) + " ms, "
+					+ "exit codes " + this.getExitCodes();
+		}
+
+		private void started(long forktime)
+		{
+			numStarts.increment();
+			this.addForkTime(forktime);
+		}
+
+		private void failed(long forktime)
+		{
+			numFailedStarts.increment();
+			this.addForkTime(forktime);
+		}
+
+		private void finished(int code, long runtime)
+		{
+			numFinished.increment();
+			exitcodes.computeIfAbsent(code, (unused) -> new LongAdder())
+					.increment();
+
+			runTime.add(runtime);
+			maxRunTime.accumulateAndGet(runtime, Math::max);
+		}
+
+		private void addForkTime(long forktime)
+		{
+			forkTime.add(forktime);
+			maxForkTime.accumulateAndGet(forktime, Math::max);
+		}
+
+		private static Duration average(long total, long count)
+		{
+			return Duration.ofNanos((count > 0L) ? total / count : 0L);
+		}
+
+		private static String toMillis(Duration duration)
+		{
+			return String.format("%.2f", duration.toNanos() / 1_000_000.0);
+		}
+	}
+
+
+	// ========== Internal Helpers ==============================
+
+	private ProcessMetrics()
+	{
+		this.entries = new ConcurrentHashMap<>();
+	}
+
+	void started(List<String> command, long forktime)
+	{
+		this.lookup(command).started(forktime);
+	}
+
+	void failed(List<String> command, long forktime)
+	{
+		this.lookup(command).failed(forktime);
+	}
+
+	void finished(List<String> command, int code, long runtime)
+	{
+		this.lookup(command).finished(code, runtime);
+	}
+
+	private Entry lookup(List<String> command)
+	{
+		return entries.computeIfAbsent(ProcessMetrics.toCommandName(command), Entry::new);
+	}
+
+	/** Returns the name of the actually executed binary */
+	static String toCommandName(List<String> command)
+	{
+		int index = 0;
+
+		// Skip sudo and its options
+		while (index < command.size() - 1 && ProcessMetrics.basename(command.get(index)).equals("sudo")) {
+			do {
+				++index;
+			}
+			while (index < command.size() - 1 && command.get(index).startsWith("-"));
+		}
+
+		final String name = ProcessMetrics.basename(command.get(index));
+
+		// Shell scripts are grouped by their first command
+		final boolean isShell = name.equals("sh") || name.equals("bash");
+		if (isShell && index + 2 < command.size() && command.get(index + 1).equals("-c")) {
+			final String script = command.get(index + 2).trim();
+			final int end = script.indexOf(' ');
+			return name + ":" + ProcessMetrics.basename((end > 0) ? script.substring(0, end) : script);
+		}
+
+		return name;
+	}
+
+	private static String basename(String path)
+	{
+		// Arguments of piped commands are quoted
+		if (path.length() > 1 && path.startsWith("'") && path.endsWith("'"))
+			path = path.substring(1, path.length() - 1);
+
+		return path.substring(path.lastIndexOf('/') + 1);
+	}
+}
@@ -19,6 +19,7 @@
 
 package de.bwl.bwfla.common.utils;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -27,7 +28,9 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -38,14 +41,19 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import com.openslx.eaas.common.config.util.MemoryUnitParser;
 import de.bwl.bwfla.conf.CommonSingleton;
 
 
@@ -69,7 +77,9 @@ public class ProcessRunner
 	private ProcessOutput stdout;
 	private ProcessOutput stderr;
 	private boolean redirectStdErrToStdOut = false;
+	private boolean captureOutput = true;
 	private int pid;
+	private long startTime;
 	private Path workdir;
 	private Path outdir;
 	private final AtomicInteger numWaitingCallers;
@@ -105,6 +115,28 @@ public class ProcessRunner
 	private static final String PROPERTY_TMPDIR_PREFIX = CommonSingleton.runnerConf.tmpdirPrefix;
 	private static final String PROPERTY_STDOUT_FILENAME = CommonSingleton.runnerConf.stdoutFilename;
 	private static final String PROPERTY_STDERR_FILENAME = CommonSingleton.runnerConf.stderrFilename;
+	private static final long PROPERTY_CAPTURE_THRESHOLD = new MemoryUnitParser().parse(CommonSingleton.runnerConf.captureThreshold);
+
+	/** Shared threads for capturing process output, independent of the number of processes */
+	private static final ScheduledExecutorService OUTPUT_PUMPS = Executors.newScheduledThreadPool(
+			Math.max(2, Runtime.getRuntime().availableProcessors()), (task) -> {
+				final Thread thread = new Thread(task, "process-output-pump");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+	/** Output handling modes */
+	private enum OutputMode
+	{
+		/** Expose the pipes of the process */
+		PIPE,
+
+		/** Redirect into files */
+		FILE,
+
+		/** Capture in memory, spilling into files when large */
+		CAPTURE
+	}
 
 
 	/** Create a new ProcessRunner. */
@@ -401,6 +433,19 @@ public class ProcessRunner
 		return this;
 	}
 
+	/**
+	 * Capture stdout + stderr of redirected processes in memory, instead of writing them into
+	 * temporary files. Outputs exceeding a threshold are spilled into files, as well as outputs
+	 * whose paths are requested using {@link #getStdOutPath()} and {@link #getStdErrPath()}.
+	 * Enabled by default. Long-running processes, whose output is only inspected via files,
+	 * should disable it to avoid polling their output for their whole lifetime.
+	 */
+	public ProcessRunner captureOutput(boolean capture)
+	{
+		this.captureOutput = capture;
+		return this;
+	}
+
 	/** Returns the stdin of the process, as byte-stream. */
 	public OutputStream getStdInStream() throws IOException
 	{
@@ -572,14 +617,23 @@ public class ProcessRunner
 
 	/**
 	 * Start the process, that is represented by this runner.
+	 * @param redirect If true, then stdout + stderr will be redirected, else exposed as pipes.
 	 * @return true when the start was successful, else false.
 	 */
 	public boolean start(boolean redirect)
+	{
+		if (!redirect)
+			return this.start(OutputMode.PIPE);
+
+		return this.start((captureOutput) ? OutputMode.CAPTURE : OutputMode.FILE);
+	}
+
+	private boolean start(OutputMode mode)
 	{
 		if (state != State.READY)
 			throw new IllegalStateException("Process not ready to start!");
 
-		if (redirect) {
+		if (mode == OutputMode.FILE) {
 			// Create the temp-directory for process' output
 			try {
 				outdir = Files.createTempDirectory(PROPERTY_TMPDIR_BASE, PROPERTY_TMPDIR_PREFIX).toAbsolutePath();
@@ -601,7 +655,7 @@ public class ProcessRunner
 			builder.directory(workdir.toFile());
 
 		// Setup stdout + stderr redirection
-		if (redirect) {
+		if (mode == OutputMode.FILE) {
 			builder.redirectOutput(stdout.file());
 			builder.redirectError(stderr.file());
 		}
@@ -610,17 +664,31 @@ public class ProcessRunner
 			builder.redirectErrorStream(true);
 
 		// Finally start the process
+		startTime = System.nanoTime();
 		try {
 			process = builder.start();
+			ProcessMetrics.instance()
+					.started(command, System.nanoTime() - startTime);
+
 			pid = ProcessRunner.lookupUnixPid(process);
 			log.info("Subprocess " + pid + " started:  " + this.getCommandString());
 
-			if (!redirect) {
-				stdout = new ProcessOutput(process.getInputStream());
-				stderr = new ProcessOutput(process.getErrorStream());
+			switch (mode) {
+				case PIPE:
+					stdout = new ProcessOutput(process.getInputStream());
+					stderr = new ProcessOutput(process.getErrorStream());
+					break;
+				case CAPTURE:
+					stdout = this.capture(process, process.getInputStream(), PROPERTY_STDOUT_FILENAME);
+					stderr = (redirectStdErrToStdOut) ? new ProcessOutput(process.getErrorStream())
+							: this.capture(process, process.getErrorStream(), PROPERTY_STDERR_FILENAME);
+					break;
 			}
 		}
 		catch (IOException exception) {
+			ProcessMetrics.instance()
+					.failed(command, System.nanoTime() - startTime);
+
 			log.log(Level.SEVERE, "Starting new subprocess failed! CMD was: " + this.getCommandString(), exception);
 			this.cleanup();
 			return false;
@@ -658,6 +726,7 @@ public class ProcessRunner
 		// Fist waiting caller?
 		if (isFirstCaller) {
 			log.info("Subprocess " + pid + " terminated with code " + retcode);
+			this.finished(retcode);
 			state = State.STOPPED;
 		}
 
@@ -692,6 +761,9 @@ public class ProcessRunner
 		// Fist waiting caller?
 		if (isFirstCaller) {
 			log.info("Subprocess " + pid + " terminated!");
+			if (exited)
+				this.finished(process.exitValue());
+
 			state = State.STOPPED;
 		}
 
@@ -786,7 +858,7 @@ public class ProcessRunner
 	 */
 	public boolean execute(boolean verbose)
 	{
-		if (!this.start(false))
+		if (!this.start(OutputMode.CAPTURE))
 			return false;
 
 		final int retcode = this.waitUntilFinished();
@@ -825,7 +897,7 @@ public class ProcessRunner
 	 */
 	public Optional<Result> executeWithResult(boolean verbose, boolean redirect) throws IOException
 	{
-		if (!this.start(redirect))
+		if (!this.start((redirect) ? OutputMode.FILE : OutputMode.CAPTURE))
 			return Optional.empty();
 
 		try {
@@ -886,6 +958,13 @@ public class ProcessRunner
 	}
 
 
+	/** Returns the metrics collected for all executed commands. */
+	public static ProcessMetrics metrics()
+	{
+		return ProcessMetrics.instance();
+	}
+
+
 	/* ==================== Internal Methods ==================== */
 
 	private static int lookupUnixPid(Process process)
@@ -893,6 +972,37 @@ public class ProcessRunner
 		return (int) process.pid();
 	}
 
+	private ProcessOutput capture(Process process, InputStream source, String name)
+	{
+		final OutputCapture capture = new OutputCapture(source, process::isAlive, PROPERTY_CAPTURE_THRESHOLD,
+				() -> this.getOutputDirectory().resolve(name));
+
+		capture.start(OUTPUT_PUMPS);
+		return new ProcessOutput(capture);
+	}
+
+	/** Returns the temp-directory for process' output, creating it on first use */
+	private synchronized Path getOutputDirectory() throws IOException
+	{
+		if (outdir == null)
+			outdir = Files.createTempDirectory(PROPERTY_TMPDIR_BASE, PROPERTY_TMPDIR_PREFIX).toAbsolutePath();
+
+		return outdir;
+	}
+
+	private void finished(int retcode)
+	{
+		ProcessMetrics.instance()
+				.finished(command, retcode, System.nanoTime() - startTime);
+
+		// Let capturing pumps collect the remaining output
+		if (stdout != null)
+			stdout.exited();
+
+		if (stderr != null)
+			stderr.exited();
+	}
+
 	private void printStdOut(String output)
 	{
 		if (output.isEmpty())
@@ -924,6 +1034,7 @@ public class ProcessRunner
 		stderr = null;
 
 		pid = INVALID_PID;
+		startTime = 0L;
 		numWaitingCallers.set(0);
 		state = State.INVALID;
 	}
@@ -982,22 +1093,42 @@ public class ProcessRunner
 final class ProcessOutput
 {
 	private final Path outpath;
+	private final OutputCapture capture;
 	private InputStream outstream;
 
 	ProcessOutput(Path path)
 	{
 		this.outpath = path;
+		this.capture = null;
 		this.outstream = null;
 	}
 
 	ProcessOutput(InputStream stream)
 	{
 		this.outpath = null;
+		this.capture = null;
 		this.outstream = stream;
 	}
 
+	ProcessOutput(OutputCapture capture)
+	{
+		this.outpath = null;
+		this.capture = capture;
+		this.outstream = null;
+	}
+
 	public Path path()
 	{
+		if (capture != null) {
+			try {
+				capture.drain();
+				return capture.spill();
+			}
+			catch (IOException error) {
+				throw new UncheckedIOException("Spilling captured process-output failed!", error);
+			}
+		}
+
 		return outpath;
 	}
 
@@ -1011,6 +1142,12 @@ final class ProcessOutput
 
 	public InputStream stream() throws IOException
 	{
+		if (capture != null) {
+			// Return a snapshot of the output captured so far
+			capture.drain();
+			return (outstream = capture.stream());
+		}
+
 		if (outstream == null)
 			outstream = Files.newInputStream(outpath);
 
@@ -1025,6 +1162,11 @@ final class ProcessOutput
 
 	public String string() throws IOException
 	{
+		if (capture != null) {
+			capture.drain();
+			return capture.string();
+		}
+
 		StringBuilder builder = new StringBuilder(1024);
 		char[] buffer = new char[512];
 		try (Reader reader = this.reader()) {
@@ -1044,19 +1186,346 @@ final class ProcessOutput
 	{
 		if (outstream != null)
 			outstream.close();
+
+		if (capture != null)
+			capture.close();
 	}
 
 	public void cleanup() throws IOException
 	{
 		if (outpath != null)
 			Files.deleteIfExists(outpath);
+
+		if (capture != null)
+			capture.cleanup();
+	}
+
+	/** Notifies this output, that its process has exited */
+	void exited()
+	{
+		if (capture != null)
+			capture.wakeup();
 	}
 
 	public boolean exists()
 	{
+		if (capture != null)
+			return true;
+
 		if (outpath == null)
 			return false;
 
 		return Files.exists(outpath);
 	}
 }
+
+
+/**
+ * Pumps process' output into memory, spilling it into a file when exceeding a threshold.
+ * <p/>
+ * The pump never blocks in reads, since a daemonized child may inherit the pipe and keep it
+ * open long after the process exited. Instead, it reads only available bytes and polls while
+ * the process runs. Once exited, all output of the process is buffered in the pipe already,
+ * hence the capture is complete when no more bytes are available.
+ * <p/>
+ * Polls are scheduled as short tasks on a shared executor, hence a small number of threads
+ * can serve the output of any number of processes.
+ */
+final class OutputCapture
+{
+	private static final int CHUNK_SIZE = 8 * 1024;
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/** Max. number of chunks to read in one poll, before yielding to other captures */
+	private static final int MAX_CHUNKS_PER_POLL = 16;
+
+	/** Min. and max. delays between polls of a running process' output (in ms) */
+	private static final long MIN_POLL_DELAY = 1L;
+	private static final long MAX_POLL_DELAY = 50L;
+
+	/** Default max. time to wait for remaining output of an exited process (in ms) */
+	private static final long DEFAULT_DRAIN_TIMEOUT = 30L * 1000L;
+
+	private final InputStream source;
+	private final BooleanSupplier running;
+	private final long threshold;
+	private final long timeout;
+	private final PathSupplier spillpath;
+	private final byte[] chunk;
+	private ScheduledExecutorService scheduler;
+	private ScheduledFuture<?> pending;
+	private long delay;
+	private boolean woken;
+	private byte[] buffer;
+	private int length;
+	private Path path;
+	private OutputStream spill;
+	private IOException failure;
+	private boolean finished;
+	private boolean closed;
+
+	@FunctionalInterface
+	interface PathSupplier
+	{
+		Path get() throws IOException;
+	}
+
+	OutputCapture(InputStream source, BooleanSupplier running, long threshold, PathSupplier spillpath)
+	{
+		this(source, running, threshold, DEFAULT_DRAIN_TIMEOUT, spillpath);
+	}
+
+	OutputCapture(InputStream source, BooleanSupplier running, long threshold, long timeout, PathSupplier spillpath)
+	{
+		this.source = source;
+		this.running = running;
+		this.threshold = threshold;
+		this.timeout = timeout;
+		this.spillpath = spillpath;
+		this.chunk = new byte[CHUNK_SIZE];
+		this.scheduler = null;
+		this.pending = null;
+		this.delay = MIN_POLL_DELAY;
+		this.woken = false;
+		this.buffer = new byte[0];
+		this.length = 0;
+		this.path = null;
+		this.spill = null;
+		this.failure = null;
+		this.finished = false;
+		this.closed = false;
+	}
+
+	/** Start polling the output, using given executor */
+	public synchronized void start(ScheduledExecutorService scheduler)
+	{
+		if (this.scheduler != null)
+			throw new IllegalStateException("Process-output capture is already started!");
+
+		this.scheduler = scheduler;
+		this.schedule(0L);
+	}
+
+	/** Wakes up the pump, e.g. when the process exited */
+	public synchronized void wakeup()
+	{
+		this.notifyAll();
+		if (finished || scheduler == null)
+			return;
+
+		// poll again as soon as possible, instead of waiting for the current delay
+		woken = true;
+		if (pending != null && pending.cancel(false)) {
+			pending = null;
+			this.schedule(0L);
+		}
+	}
+
+	/**
+	 * Waits until all output of an exited process is captured.
+	 * For a running process, returns immediately, since its output is incomplete anyway.
+	 */
+	public synchronized void drain() throws IOException
+	{
+		if (running.getAsBoolean())
+			return;
+
+		this.wakeup();
+
+		final long deadline = System.currentTimeMillis() + timeout;
+		try {
+			long waittime;
+			while (!finished && (waittime = deadline - System.currentTimeMillis()) > 0L)
+				this.wait(waittime);
+		}
+		catch (InterruptedException error) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Waiting for process-output was interrupted!", error);
+		}
+
+		if (!finished)
+			throw new IOException("Capturing process-output timed out after " + timeout + " ms!");
+
+		if (failure != null)
+			throw new IOException("Capturing process-output failed!", failure);
+	}
+
+	/** Move captured output into a file, returning its path */
+	public synchronized Path spill() throws IOException
+	{
+		if (closed)
+			throw new IllegalStateException("Process-output capture is closed!");
+
+		if (spill == null) {
+			path = spillpath.get();
+			spill = Files.newOutputStream(path);
+			spill.write(buffer, 0, length);
+			buffer = null;
+			length = 0;
+		}
+
+		spill.flush();
+		return path;
+	}
+
+	/** Returns a snapshot of the output captured so far */
+	public synchronized InputStream stream() throws IOException
+	{
+		if (spill != null) {
+			spill.flush();
+			return Files.newInputStream(path);
+		}
+
+		return new ByteArrayInputStream(buffer, 0, length);
+	}
+
+	public synchronized String string() throws IOException
+	{
+		if (spill != null) {
+			spill.flush();
+			return new String(Files.readAllBytes(path), Charset.defaultCharset());
+		}
+
+		return new String(buffer, 0, length, Charset.defaultCharset());
+	}
+
+	public void close() throws IOException
+	{
+		synchronized (this) {
+			if (closed)
+				return;
+
+			closed = true;
+			this.notifyAll();
+			if (spill != null)
+				spill.close();
+
+			// a pending poll would only notice the closing
+			if (pending != null && pending.cancel(false)) {
+				pending = null;
+				this.finish(null);
+			}
+		}
+
+		// The pump does not block in reads, hence it stops now
+		source.close();
+	}
+
+	public synchronized void cleanup() throws IOException
+	{
+		if (path != null)
+			Files.deleteIfExists(path);
+	}
+
+
+	// ===== Internal Helpers ====================
+
+	/** Reads available output, then reschedules itself while the process runs */
+	private void poll()
+	{
+		// NOTE: concurrent polls are possible, when a wakeup raced with a starting poll,
+		//       hence polls are serialized using the read-buffer they share!
+		synchronized (chunk) {
+			synchronized (this) {
+				pending = null;
+				if (finished)
+					return;
+
+				woken = false;
+			}
+
+			try {
+				for (int i = 0; i < MAX_CHUNKS_PER_POLL; ++i) {
+					if (this.isClosed()) {
+						this.finish(null);
+						return;
+					}
+
+					// Check the process' state first, so that no output written before exiting is missed
+					final boolean exited = !running.getAsBoolean();
+					final int available = source.available();
+					if (available > 0) {
+						final int length = source.read(chunk, 0, Math.min(available, chunk.length));
+						if (length < 0) {
+							this.finish(null);  // End-of-stream
+							return;
+						}
+
+						this.append(chunk, length);
+						delay = MIN_POLL_DELAY;
+						continue;
+					}
+
+					if (exited) {
+						this.finish(null);  // All output is captured
+						return;
+					}
+
+					// Nothing available, wait longer next time
+					synchronized (this) {
+						this.schedule((woken) ? 0L : delay);
+					}
+
+					delay = Math.min(2L * delay, MAX_POLL_DELAY);
+
+					return;
+				}
+
+				// More output might be available, but let other captures run first
+				this.schedule(0L);
+			}
+			catch (IOException error) {
+				synchronized (this) {
+					this.finish((closed) ? null : error);
+				}
+			}
+			catch (RuntimeException error) {
+				this.finish(new IOException("Capturing process-output failed!", error));
+			}
+		}
+	}
+
+	private synchronized void schedule(long delay)
+	{
+		if (finished || pending != null)
+			return;
+
+		pending = scheduler.schedule(this::poll, delay, TimeUnit.MILLISECONDS);
+	}
+
+	private synchronized void finish(IOException error)
+	{
+		if (finished)
+			return;
+
+		failure = error;
+		finished = true;
+		this.notifyAll();
+	}
+
+	private synchronized boolean isClosed()
+	{
+		return closed;
+	}
+
+	private synchronized void append(byte[] data, int size) throws IOException
+	{
+		if (closed)
+			throw new IOException("Process-output capture is closed!");
+
+		if (spill == null && length + size > threshold)
+			this.spill();
+
+		if (spill != null)
+			spill.write(data, 0, size);
+		else {
+			if (length + size > buffer.length) {
+				final long capacity = Math.max(Math.max(2L * buffer.length, INITIAL_CAPACITY), length + size);
+				buffer = Arrays.copyOf(buffer, (int) Math.min(capacity, threshold));
+			}
+
+			System.arraycopy(data, 0, buffer, length, size);
+			length += size;
+		}
+	}
+}
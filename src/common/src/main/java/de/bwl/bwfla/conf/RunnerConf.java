@@ -38,4 +38,6 @@ public class RunnerConf
 	public String stdoutFilename; 
 	@Config("runners.stderrfilename")
 	public String stderrFilename;
+	@Config("runners.capture_threshold")
+	public String captureThreshold;
 }
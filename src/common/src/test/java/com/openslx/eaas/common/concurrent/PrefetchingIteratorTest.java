@@ -0,0 +1,239 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.openslx.eaas.common.concurrent;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+
+public class PrefetchingIteratorTest
+{
+	private ExecutorService executor;
+
+
+	@Before
+	public void setUp()
+	{
+		executor = Executors.newFixedThreadPool(8);
+	}
+
+	@After
+	public void tearDown() throws InterruptedException
+	{
+		executor.shutdownNow();
+		Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testAllElementsAreConsumed() throws Exception
+	{
+		final var numSources = 3;
+		final var numElements = 500;
+		final var consumed = ConcurrentHashMap.<Integer>newKeySet();
+		final var duplicates = new AtomicInteger(0);
+
+		final var elements = new PrefetchingIterator<Integer>(16);
+		for (int i = 0; i < numSources; ++i) {
+			final var source = IntStream.range(i * numElements, (i + 1) * numElements)
+					.boxed()
+					.iterator();
+
+			elements.add(source, PrefetchingIteratorTest::fail);
+		}
+
+		try (elements) {
+			ParallelProcessors.consumer((Integer value) -> {
+						if (!consumed.add(value))
+							duplicates.incrementAndGet();
+					})
+					.setNumTasks(4)
+					.consume(elements.start(executor), executor);
+		}
+
+		Assert.assertEquals(numSources * numElements, consumed.size());
+		Assert.assertEquals(0, duplicates.get());
+	}
+
+	@Test
+	public void testSlowSourceDoesNotBlockConsumers() throws Exception
+	{
+		final var numFastElements = 100;
+		final var released = new CountDownLatch(1);
+		final var numFastConsumed = new AtomicInteger(0);
+		final var consumed = ConcurrentHashMap.<Integer>newKeySet();
+
+		// the slow source blocks, until all elements of the fast source were consumed...
+		final var slow = new Iterator<Integer>() {
+			private boolean done = false;
+
+			@Override
+			public boolean hasNext()
+			{
+				if (!done) {
+					try {
+						if (!released.await(5, TimeUnit.SECONDS))
+							throw new IllegalStateException("Consumers were blocked by slow source!");
+					}
+					catch (InterruptedException error) {
+						throw new IllegalStateException(error);
+					}
+				}
+
+				return !done;
+			}
+
+			@Override
+			public Integer next()
+			{
+				if (!this.hasNext())
+					throw new NoSuchElementException();
+
+				done = true;
+				return -1;
+			}
+		};
+
+		final var fast = IntStream.range(0, numFastElements)
+				.boxed()
+				.iterator();
+
+		final var failure = new AtomicReference<Exception>();
+		final var elements = new PrefetchingIterator<Integer>(8)
+				.add(slow, failure::set)
+				.add(fast, failure::set);
+
+		try (elements) {
+			ParallelProcessors.consumer((Integer value) -> {
+						consumed.add(value);
+						if (value >= 0 && numFastConsumed.incrementAndGet() == numFastElements)
+							released.countDown();
+					})
+					.setNumTasks(4)
+					.consume(elements.start(executor), executor);
+		}
+
+		Assert.assertNull(failure.get());
+		Assert.assertEquals(numFastElements + 1, consumed.size());
+		Assert.assertTrue(consumed.contains(-1));
+	}
+
+	@Test
+	public void testFailingSourceIsReported() throws Exception
+	{
+		final var numElements = 10;
+		final var failing = new Iterator<Integer>() {
+			private int count = 0;
+
+			@Override
+			public boolean hasNext()
+			{
+				if (count == numElements)
+					throw new IllegalStateException("Listing failed!");
+
+				return true;
+			}
+
+			@Override
+			public Integer next()
+			{
+				this.hasNext();
+				return count++;
+			}
+		};
+
+		final var intact = IntStream.range(numElements, 2 * numElements)
+				.boxed()
+				.iterator();
+
+		final var failures = new AtomicInteger(0);
+		final var consumed = ConcurrentHashMap.<Integer>newKeySet();
+		final var elements = new PrefetchingIterator<Integer>(4)
+				.add(failing, (error) -> failures.incrementAndGet())
+				.add(intact, PrefetchingIteratorTest::fail);
+
+		try (elements) {
+			ParallelProcessors.consumer(consumed::add)
+					.setNumTasks(2)
+					.consume(elements.start(executor), executor);
+		}
+
+		Assert.assertEquals(1, failures.get());
+		Assert.assertEquals(2 * numElements, consumed.size());
+	}
+
+	@Test
+	public void testCloseStopsProducers() throws Exception
+	{
+		final var numProduced = new AtomicInteger(0);
+		final var endless = new Iterator<Integer>() {
+			@Override
+			public boolean hasNext()
+			{
+				return true;
+			}
+
+			@Override
+			public Integer next()
+			{
+				return numProduced.incrementAndGet();
+			}
+		};
+
+		final var elements = new PrefetchingIterator<Integer>(4)
+				.add(endless, PrefetchingIteratorTest::fail)
+				.start(executor);
+
+		for (int i = 0; i < 10; ++i)
+			Assert.assertNotNull(elements.next());
+
+		elements.close();
+		Assert.assertFalse(elements.hasNext());
+
+		executor.shutdown();
+		Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+		// producer must not be running anymore
+		final var count = numProduced.get();
+		Thread.sleep(50L);
+		Assert.assertEquals(count, numProduced.get());
+	}
+
+
+	// ===== Internal Helpers ====================
+
+	private static void fail(Exception error)
+	{
+		throw new AssertionError("Iterating source failed!", error);
+	}
+}
@@ -0,0 +1,225 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.openslx.eaas.common.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.bwl.bwfla.common.exceptions.BWFLAException;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+public class RangedDownloaderTest
+{
+	private static final String ETAG = "\"v1\"";
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	private static HttpServer server;
+	private static byte[] remote;
+	private static final AtomicInteger NUM_RANGE_REQUESTS = new AtomicInteger(0);
+	private static final Set<String> FAILED_RANGES = ConcurrentHashMap.newKeySet();
+
+
+	@BeforeClass
+	public static void setUp() throws IOException
+	{
+		remote = new byte[16 * CHUNK_SIZE + 123];
+		new Random(42L).nextBytes(remote);
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", RangedDownloaderTest::serve);
+		server.start();
+	}
+
+	@AfterClass
+	public static void tearDown()
+	{
+		server.stop(0);
+	}
+
+	@Before
+	public void reset()
+	{
+		NUM_RANGE_REQUESTS.set(0);
+		FAILED_RANGES.clear();
+	}
+
+	@Test
+	public void testParallelDownload() throws BWFLAException
+	{
+		final var downloader = RangedDownloaderTest.downloader("ranged");
+		final var resource = downloader.probe();
+		Assert.assertTrue(resource.seekable());
+		Assert.assertEquals(remote.length, resource.size());
+		Assert.assertEquals(ETAG, resource.validator());
+
+		final var result = new byte[remote.length];
+		downloader.download(resource, (chunk, data) -> RangedDownloaderTest.copy(chunk, data, result));
+		Assert.assertArrayEquals(remote, result);
+		Assert.assertEquals(17, NUM_RANGE_REQUESTS.get());
+	}
+
+	@Test
+	public void testSkippedChunks() throws BWFLAException
+	{
+		final var downloader = RangedDownloaderTest.downloader("ranged");
+		final var resource = downloader.probe();
+		final var indexes = ConcurrentHashMap.<Integer>newKeySet();
+		downloader.download(resource, (index) -> index % 2 == 0, (chunk, data) -> {
+			data.readAllBytes();
+			indexes.add(chunk.index());
+		});
+
+		Assert.assertEquals(8, indexes.size());
+		Assert.assertTrue(indexes.stream().allMatch((index) -> index % 2 == 1));
+	}
+
+	@Test
+	public void testRetriedChunks() throws BWFLAException
+	{
+		final var downloader = RangedDownloaderTest.downloader("flaky")
+				.retries(1);
+
+		final var resource = downloader.probe();
+		final var result = new byte[remote.length];
+		downloader.download(resource, (chunk, data) -> RangedDownloaderTest.copy(chunk, data, result));
+		Assert.assertArrayEquals(remote, result);
+		Assert.assertEquals(2 * 17, NUM_RANGE_REQUESTS.get());
+	}
+
+	@Test
+	public void testUnsupportedRanges() throws BWFLAException
+	{
+		final var resource = RangedDownloaderTest.downloader("plain")
+				.probe();
+
+		Assert.assertFalse(resource.seekable());
+		Assert.assertEquals(remote.length, resource.size());
+	}
+
+	@Test
+	public void testChangedResource() throws BWFLAException
+	{
+		final var downloader = RangedDownloaderTest.downloader("changed");
+		final var resource = downloader.probe();
+		Assert.assertTrue(resource.seekable());
+		try {
+			downloader.download(resource, (chunk, data) -> data.readAllBytes());
+			Assert.fail("Download of changed resource should fail!");
+		}
+		catch (BWFLAException error) {
+			// Expected!
+		}
+
+		// changed resources should not be retried
+		Assert.assertTrue(NUM_RANGE_REQUESTS.get() <= 4);
+	}
+
+	@Test
+	public void testParseTotalSize()
+	{
+		Assert.assertEquals(1234L, RangedDownloader.parseTotalSize("bytes 0-0/1234"));
+		Assert.assertEquals(-1L, RangedDownloader.parseTotalSize("bytes 0-0/*"));
+		Assert.assertEquals(-1L, RangedDownloader.parseTotalSize(null));
+	}
+
+
+	// ===== Internal Helpers ====================
+
+	private static RangedDownloader downloader(String name)
+	{
+		final var url = "http://127.0.0.1:" + server.getAddress().getPort() + "/" + name;
+		return new RangedDownloader()
+				.url(url)
+				.chunksize(CHUNK_SIZE)
+				.parallelism(4)
+				.retries(0);
+	}
+
+	private static void copy(RangedDownloader.Chunk chunk, java.io.InputStream data, byte[] result) throws IOException
+	{
+		final var bytes = data.readAllBytes();
+		Assert.assertEquals(chunk.length(), bytes.length);
+		System.arraycopy(bytes, 0, result, (int) chunk.offset(), bytes.length);
+	}
+
+	private static void serve(HttpExchange exchange) throws IOException
+	{
+		final var mode = exchange.getRequestURI().getPath().substring(1);
+		final var headers = exchange.getResponseHeaders();
+		final var range = exchange.getRequestHeaders().getFirst("Range");
+		final var ranged = !mode.equals("plain");
+		if (ranged) {
+			headers.add("Accept-Ranges", "bytes");
+			headers.add("ETag", ETAG);
+		}
+
+		try (exchange) {
+			if (exchange.getRequestMethod().equals("HEAD")) {
+				headers.add("Content-Length", Integer.toString(remote.length));
+				exchange.sendResponseHeaders(200, -1);
+				return;
+			}
+
+			int first = 0;
+			int last = remote.length - 1;
+			int code = 200;
+			if (ranged && range != null) {
+				final var bounds = range.substring("bytes=".length()).split("-");
+				first = Integer.parseInt(bounds[0]);
+				last = Math.min(last, Integer.parseInt(bounds[1]));
+				code = 206;
+
+				NUM_RANGE_REQUESTS.incrementAndGet();
+				if (mode.equals("flaky") && FAILED_RANGES.add(range)) {
+					exchange.sendResponseHeaders(503, -1);
+					return;
+				}
+
+				if (mode.equals("changed") && exchange.getRequestHeaders().containsKey("If-Range")) {
+					first = 0;
+					last = remote.length - 1;
+					code = 200;
+				}
+			}
+
+			if (code == 206)
+				headers.add("Content-Range", "bytes " + first + "-" + last + "/" + remote.length);
+
+			final var length = last - first + 1;
+			exchange.sendResponseHeaders(code, length);
+			try (OutputStream output = exchange.getResponseBody()) {
+				output.write(remote, first, length);
+			}
+		}
+	}
+}
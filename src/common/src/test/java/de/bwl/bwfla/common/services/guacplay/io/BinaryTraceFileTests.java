@@ -0,0 +1,201 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.common.services.guacplay.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.bwl.bwfla.common.services.guacplay.BaseTest;
+import de.bwl.bwfla.common.services.guacplay.GuacDefs;
+import de.bwl.bwfla.common.services.guacplay.protocol.Message;
+
+
+public class BinaryTraceFileTests extends BaseTest
+{
+	private static final Random RANDOM = new Random();
+	private static final int NUM_MESSAGES = 10000;
+	private static final long[] TIMESTAMPS = new long[NUM_MESSAGES];
+	private static final String[] MESSAGES = new String[NUM_MESSAGES];
+	private static Path PATH = null;
+	
+	
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception
+	{
+		final Logger log = LoggerFactory.getLogger(BinaryTraceFileTests.class);
+		
+		log.info("Generating trace-data...");
+		
+		long timestamp = RANDOM.nextInt(Integer.MAX_VALUE / 1000);
+		for (int i = 0; i < NUM_MESSAGES; ++i) {
+			final int length = 8 + RANDOM.nextInt(64);
+			final StringBuilder builder = new StringBuilder(length);
+			for (int j = 0; j < length; ++j) {
+				// Include some non-ASCII chars too
+				final char c = (RANDOM.nextInt(50) == 0) ? (char) (0xC0 + RANDOM.nextInt(64)) : (char) ('a' + RANDOM.nextInt(26));
+				builder.append(c);
+			}
+			
+			builder.append(GuacDefs.INSTRUCTION_TERMINATOR);
+			MESSAGES[i] = builder.toString();
+			TIMESTAMPS[i] = timestamp;
+			timestamp += RANDOM.nextInt(100);
+		}
+		
+		log.info("Writing temporary binary trace-file...");
+		
+		PATH = Files.createTempFile("guacplay-", GuacDefs.TRACE_FILE_EXT);
+		final TraceFile file = new TraceFile(PATH, StandardCharsets.UTF_8, true);
+		file.getMetadata().addChunkEntry("internal", "id", "1234");
+		file.getMetadata().addChunk(new MetadataChunk("public", "Public metadata"));
+		file.getMetadata().addChunkEntry("public", "title", "Multi-line\ntitle");
+		
+		try (BinaryTraceWriter writer = file.newBinaryWriter(500, true)) {
+			writer.prepare();
+			for (int i = 0; i < NUM_MESSAGES; ++i) {
+				final char[] data = MESSAGES[i].toCharArray();
+				writer.write(TIMESTAMPS[i], data, 0, data.length);
+			}
+			
+			Assert.assertEquals(NUM_MESSAGES, writer.getNumEntriesWritten());
+		}
+		
+		log.info("{} bytes written to: {}", Files.size(PATH), PATH.toString());
+	}
+	
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception
+	{
+		if (TESTS_PASSED && PATH != null)
+			Files.deleteIfExists(PATH);
+		
+		BaseTest.tearDownAfterClass();
+	}
+	
+	@Test
+	public void testVersionDetection() throws IOException
+	{
+		log.info("Testing version detection...");
+		
+		final TraceFile file = TraceFile.open(PATH, StandardCharsets.UTF_8);
+		Assert.assertTrue("Binary format was not detected!", file.isBinary());
+		Assert.assertEquals(2, file.getVersion().getMajor());
+		
+		this.markAsPassed();
+	}
+	
+	@Test
+	public void testReadingMetadata() throws IOException
+	{
+		log.info("Testing metadata-frame...");
+		
+		final TraceFile file = TraceFile.open(PATH, StandardCharsets.UTF_8);
+		try (BinaryTraceReader reader = file.newBinaryReader()) {
+			reader.prepare(true);
+			
+			final Metadata metadata = file.getMetadata();
+			Assert.assertEquals("1234", metadata.getChunk("internal").get("id"));
+			Assert.assertNull(metadata.getChunk("internal").getComment());
+			Assert.assertEquals("Multi-line\ntitle", metadata.getChunk("public").get("title"));
+			Assert.assertEquals("Public metadata", metadata.getChunk("public").getComment());
+		}
+		
+		this.markAsPassed();
+	}
+	
+	@Test
+	public void testReadingTraceFrames() throws IOException
+	{
+		log.info("Testing trace-frames...");
+		
+		final TraceFile file = TraceFile.open(PATH, StandardCharsets.UTF_8);
+		try (BinaryTraceReader reader = file.newBinaryReader()) {
+			reader.prepare(false);
+			Assert.assertEquals(NUM_MESSAGES, reader.getNumEntries());
+			Assert.assertEquals(TIMESTAMPS[0], reader.getFirstTimestamp());
+			Assert.assertEquals(TIMESTAMPS[NUM_MESSAGES - 1], reader.getLastTimestamp());
+			
+			final Message message = new Message();
+			int index = 0;
+			while (reader.read(message)) {
+				Assert.assertTrue(index < NUM_MESSAGES);
+				BinaryTraceFileTests.check(message, index);
+				++index;
+			}
+			
+			Assert.assertEquals("Invalid number of messages read/written!", NUM_MESSAGES, index);
+		}
+		
+		this.markAsPassed();
+	}
+	
+	@Test
+	public void testSeeking() throws IOException
+	{
+		log.info("Testing seeking...");
+		
+		final TraceFile file = TraceFile.open(PATH, StandardCharsets.UTF_8);
+		try (BinaryTraceReader reader = file.newBinaryReader()) {
+			reader.prepare(false);
+			
+			final Message message = new Message();
+			final long first = TIMESTAMPS[0] - 10L;
+			final long range = TIMESTAMPS[NUM_MESSAGES - 1] - first + 20L;
+			for (int i = 0; i < 100; ++i) {
+				final long timestamp = first + (long) (RANDOM.nextDouble() * range);
+				
+				// Find the expected entry
+				int expected = 0;
+				while (expected < NUM_MESSAGES && TIMESTAMPS[expected] < timestamp)
+					++expected;
+				
+				Assert.assertEquals("Invalid position after seeking!", expected, reader.seek(timestamp));
+				if (expected < NUM_MESSAGES) {
+					Assert.assertTrue(reader.read(message));
+					BinaryTraceFileTests.check(message, expected);
+				}
+				else Assert.assertFalse(reader.read(message));
+			}
+		}
+		
+		this.markAsPassed();
+	}
+	
+	
+	/* =============== INTERNAL STUFF =============== */
+	
+	private static void check(Message message, int index)
+	{
+		final String data = new String(message.getDataArray(), message.getOffset(), message.getLength());
+		Assert.assertEquals("Invalid timestamp read!", TIMESTAMPS[index], message.getTimestamp());
+		Assert.assertEquals("Invalid message read!", MESSAGES[index], data);
+	}
+}
@@ -26,7 +26,8 @@ import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
 @SuiteClasses({
-	TraceFileTests.class
+	TraceFileTests.class,
+	BinaryTraceFileTests.class
 })
 public class IOTestSuite
 {
@@ -108,6 +108,50 @@ public class DrawingInstrHandlerTest extends BaseTest
 		this.markAsPassed();
 	}
 	
+	@Test
+	public void testDamageTracking() throws Exception
+	{
+		log.info("Testing damage-tracked rendering...");
+		
+		this.resetCanvas();
+		
+		final LineInstrHandler lineHandler = new LineInstrHandler(canvas);
+		final BufferedImage expimg = canvas.newBufferedImage();
+		for (int i = 0; i < NUMBER_ITERATIONS; ++i) {
+			// Draw a random triangle, without clearing the previous content
+			this.startPath(random.nextInt(CANVAS_WIDTH), random.nextInt(CANVAS_HEIGHT));
+			for (int j = 0; j < 2; ++j) {
+				final Instruction lineInstr = new Instruction(3);
+				ibuilder.start(OpCode.LINE, lineInstr);
+				ibuilder.addArgument(MAIN_LAYER);
+				ibuilder.addArgument(random.nextInt(CANVAS_WIDTH));
+				ibuilder.addArgument(random.nextInt(CANVAS_HEIGHT));
+				ibuilder.finish(false);
+				
+				lineHandler.execute(null, lineInstr);
+			}
+			
+			this.closePath();
+			
+			final int r = this.nextColorSample();
+			final int g = this.nextColorSample();
+			final int b = this.nextColorSample();
+			final int a = this.nextColorSample();
+			
+			// Only the damaged areas are recomposited here...
+			BufferedImage actimg = (random.nextBoolean()) ?
+					this.stroke(2 * this.nextThickness(), this.nextCapStyle(), this.nextJoinStyle(), r, g, b, a)
+					: this.fill(r, g, b, a);
+			
+			// ...and should match a full recomposition
+			canvas.render(0, 0, CANVAS_WIDTH, CANVAS_HEIGHT, expimg);
+			DrawingInstrHandlerTest.compare(expimg, actimg);
+			Assert.assertFalse("Canvas is still damaged!", canvas.isDamaged());
+		}
+		
+		this.markAsPassed();
+	}
+	
 	
 	/* ==================== TEST RUNNERS ==================== */
 	
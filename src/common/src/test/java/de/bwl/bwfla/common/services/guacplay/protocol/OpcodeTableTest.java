@@ -0,0 +1,111 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.common.services.guacplay.protocol;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.bwl.bwfla.common.services.guacplay.BaseTest;
+import de.bwl.bwfla.common.services.guacplay.GuacDefs.ExtOpCode;
+import de.bwl.bwfla.common.services.guacplay.GuacDefs.OpCode;
+
+
+public class OpcodeTableTest extends BaseTest
+{
+	private static final String[] OPCODES = {
+			OpCode.ARC, OpCode.CFILL, OpCode.COPY, OpCode.KEY, OpCode.MOUSE, OpCode.PNG,
+			OpCode.SIZE, OpCode.SYNC, ExtOpCode.SCREEN_UPDATE, ExtOpCode.VSYNC, ExtOpCode.SCREENSHOT
+	};
+
+
+	@Test
+	public void testLookups()
+	{
+		log.info("Testing opcode-table lookups...");
+
+		final OpcodeTable<Integer> table = new OpcodeTable<Integer>();
+		for (int i = 0; i < OPCODES.length; ++i)
+			Assert.assertNull(table.put(OPCODES[i], i));
+
+		Assert.assertEquals(OPCODES.length, table.size());
+
+		// Lookup opcodes embedded in larger arrays
+		for (int i = 0; i < OPCODES.length; ++i) {
+			final char[] data = ("12." + OPCODES[i] + ",").toCharArray();
+			final int slot = table.find(data, 3, OPCODES[i].length());
+			Assert.assertTrue("Opcode not found: " + OPCODES[i], slot >= 0);
+			Assert.assertSame(OPCODES[i], table.key(slot));
+			Assert.assertEquals(i, (int) table.value(slot));
+		}
+
+		final char[] unknown = "mous".toCharArray();
+		Assert.assertEquals(-1, table.find(unknown, 0, unknown.length));
+
+		// Remove some entries
+		Assert.assertEquals(Integer.valueOf(4), table.remove(OpCode.MOUSE));
+		Assert.assertNull(table.get(OpCode.MOUSE));
+		Assert.assertEquals(Integer.valueOf(3), table.get(OpCode.KEY));
+		Assert.assertEquals(OPCODES.length - 1, table.size());
+
+		this.markAsPassed();
+	}
+
+	@Test
+	public void testInterning()
+	{
+		log.info("Testing opcode interning...");
+
+		final char[] data = (OpCode.MOUSE + "xyz").toCharArray();
+		Assert.assertSame(OpCode.MOUSE, OpcodeTable.intern(data, 0, OpCode.MOUSE.length()));
+		Assert.assertEquals("mousexyz", OpcodeTable.intern(data, 0, data.length));
+
+		this.markAsPassed();
+	}
+
+	@Test
+	public void testTimestampParsing()
+	{
+		log.info("Testing timestamp parsing...");
+
+		final OpcodeTable<Object> table = new OpcodeTable<Object>();
+		table.put(OpCode.KEY, null);
+
+		final InstructionParser parser = new InstructionParser();
+		final Instruction instruction = new Instruction(4);
+		final char[] data = "13.1384534160529,3.key,5.65507,1.1;5.mouse,1.0,1.0,1.0;".toCharArray();
+		parser.setInput(data, 0, data.length);
+
+		int slot = parser.parseOpcode(table);
+		Assert.assertEquals(1384534160529L, parser.getTimestamp());
+		Assert.assertSame(OpCode.KEY, table.key(slot));
+		Assert.assertEquals(2, parser.parseArguments(instruction));
+		Assert.assertSame(OpCode.KEY, instruction.getOpcode());
+
+		slot = parser.parseOpcode(table);
+		Assert.assertEquals(-1L, parser.getTimestamp());
+		Assert.assertEquals(-1, slot);
+		Assert.assertEquals(3, parser.parseArguments(instruction));
+		Assert.assertSame(OpCode.MOUSE, instruction.getOpcode());
+		Assert.assertFalse(parser.available());
+
+		this.markAsPassed();
+	}
+}
@@ -27,7 +27,8 @@ import org.junit.runners.Suite.SuiteClasses;
 @RunWith(Suite.class)
 @SuiteClasses({
 	DrawingInstrHandlerTest.class,
-	InstructionParserTest.class
+	InstructionParserTest.class,
+	OpcodeTableTest.class
 })
 public class ProtocolTestSuite
 {
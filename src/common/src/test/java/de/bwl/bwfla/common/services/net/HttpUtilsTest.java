@@ -0,0 +1,225 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.bwl.bwfla.common.services.net;
+
+import de.bwl.bwfla.common.utils.ByteRange;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+
+public class HttpUtilsTest
+{
+	private Path file;
+	private byte[] data;
+
+
+	@Before
+	public void setUp() throws IOException
+	{
+		data = new byte[3 * HttpUtils.DEFAULT_COPY_BUFFER_SIZE + 123];
+		new Random(42L).nextBytes(data);
+
+		file = Files.createTempFile("http-utils-", ".bin");
+		Files.write(file, data);
+	}
+
+	@After
+	public void tearDown() throws IOException
+	{
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	public void testCoalesceSingleRange()
+	{
+		final List<ByteRange> ranges = List.of(new ByteRange(10, 5));
+		Assert.assertSame(ranges, HttpUtils.coalesce(ranges, 0L));
+	}
+
+	@Test
+	public void testCoalesceOverlappingRanges()
+	{
+		final List<ByteRange> ranges = List.of(new ByteRange(0, 100), new ByteRange(50, 100), new ByteRange(120, 10));
+		HttpUtilsTest.assertRanges(HttpUtils.coalesce(ranges, 0L), 0, 150);
+	}
+
+	@Test
+	public void testCoalesceAdjacentRanges()
+	{
+		final List<ByteRange> ranges = List.of(new ByteRange(0, 10), new ByteRange(10, 10));
+		HttpUtilsTest.assertRanges(HttpUtils.coalesce(ranges, 0L), 0, 20);
+	}
+
+	@Test
+	public void testCoalesceRespectsMaxGap()
+	{
+		final List<ByteRange> ranges = List.of(new ByteRange(0, 10), new ByteRange(15, 10), new ByteRange(100, 10));
+		HttpUtilsTest.assertRanges(HttpUtils.coalesce(ranges, 5L), 0, 25, 100, 10);
+		HttpUtilsTest.assertRanges(HttpUtils.coalesce(ranges, 4L), 0, 10, 15, 10, 100, 10);
+	}
+
+	@Test
+	public void testCoalesceSortsRanges()
+	{
+		final List<ByteRange> ranges = List.of(new ByteRange(100, 10), new ByteRange(0, 10), new ByteRange(5, 10));
+		HttpUtilsTest.assertRanges(HttpUtils.coalesce(ranges, 0L), 0, 15, 100, 10);
+
+		// input list should not be modified
+		Assert.assertEquals(100L, ranges.get(0).getStartOffset());
+	}
+
+	@Test
+	public void testCoalesceRespectsMaxRangeLength()
+	{
+		final long maxlen = ByteRange.MAX_SUPPORTED_RANGE_LENGTH;
+		final List<ByteRange> ranges = List.of(new ByteRange(0, maxlen), new ByteRange(maxlen, 10));
+		HttpUtilsTest.assertRanges(HttpUtils.coalesce(ranges, 0L), 0, maxlen, maxlen, 10);
+	}
+
+	@Test
+	public void testTransferWholeFile() throws IOException
+	{
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (FileChannel channel = FileChannel.open(file)) {
+			Assert.assertEquals(data.length, HttpUtils.transfer(channel, 0L, data.length, output));
+		}
+
+		Assert.assertArrayEquals(data, output.toByteArray());
+	}
+
+	@Test
+	public void testTransferRange() throws IOException
+	{
+		final int offset = HttpUtils.DEFAULT_COPY_BUFFER_SIZE - 7;
+		final int length = HttpUtils.DEFAULT_COPY_BUFFER_SIZE + 11;
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (FileChannel channel = FileChannel.open(file)) {
+			Assert.assertEquals(length, HttpUtils.transfer(channel, offset, length, output));
+
+			// channel's position should not be changed
+			Assert.assertEquals(0L, channel.position());
+		}
+
+		Assert.assertArrayEquals(Arrays.copyOfRange(data, offset, offset + length), output.toByteArray());
+	}
+
+	@Test
+	public void testTransferStopsAtEndOfFile() throws IOException
+	{
+		final int offset = data.length - 100;
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (FileChannel channel = FileChannel.open(file)) {
+			Assert.assertEquals(100L, HttpUtils.transfer(channel, offset, 1000L, output));
+		}
+
+		Assert.assertArrayEquals(Arrays.copyOfRange(data, offset, data.length), output.toByteArray());
+	}
+
+	@Test
+	public void testTransferFromUnsupportedOutput() throws IOException
+	{
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (FileChannel channel = FileChannel.open(file)) {
+			Assert.assertFalse(HttpUtils.transferFrom(channel, output));
+		}
+
+		Assert.assertEquals(0, output.size());
+	}
+
+	@Test
+	public void testTransferFromSupportedOutput() throws IOException
+	{
+		final ZeroCopyOutputStream output = new ZeroCopyOutputStream();
+		try (FileChannel channel = FileChannel.open(file)) {
+			channel.position(data.length - 100);
+			Assert.assertTrue(HttpUtils.transferFrom(channel, output));
+		}
+
+		Assert.assertArrayEquals(Arrays.copyOfRange(data, data.length - 100, data.length), output.toByteArray());
+	}
+
+	@Test
+	public void testTransferFromPropagatesFailures() throws IOException
+	{
+		final ZeroCopyOutputStream output = new ZeroCopyOutputStream();
+		output.failing = true;
+		try (FileChannel channel = FileChannel.open(file)) {
+			HttpUtils.transferFrom(channel, output);
+			Assert.fail("Failures of zero-copy transfers should be rethrown!");
+		}
+		catch (IOException error) {
+			Assert.assertEquals("Transfer failed!", error.getMessage());
+		}
+	}
+
+	@Test
+	public void testWritePadding() throws IOException
+	{
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		final int length = 3 * 64 * 1024 + 5;
+		HttpUtils.writePadding(output, length);
+		Assert.assertArrayEquals(new byte[length], output.toByteArray());
+
+		output.reset();
+		HttpUtils.writePadding(output, 0L);
+		Assert.assertEquals(0, output.size());
+	}
+
+
+	/* =============== Internal Helpers =============== */
+
+	/** Checks ranges against expected pairs of start offsets and lengths */
+	private static void assertRanges(List<ByteRange> ranges, long... expected)
+	{
+		Assert.assertEquals(expected.length / 2, ranges.size());
+		for (int i = 0; i < ranges.size(); ++i) {
+			Assert.assertEquals(expected[2 * i], ranges.get(i).getStartOffset());
+			Assert.assertEquals(expected[2 * i + 1], ranges.get(i).getLength());
+		}
+	}
+
+	/** Output stream providing a container-like transferFrom(FileChannel) method */
+	public static class ZeroCopyOutputStream extends ByteArrayOutputStream
+	{
+		private boolean failing = false;
+
+		public void transferFrom(FileChannel source) throws IOException
+		{
+			if (failing)
+				throw new IOException("Transfer failed!");
+
+			final byte[] bytes = new byte[(int) (source.size() - source.position())];
+			source.read(ByteBuffer.wrap(bytes));
+			this.write(bytes);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.common.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URI;
+
+
+public class AbstractServiceClientTest
+{
+	private static final String[] PORT_NAMES = {
+			"Component",
+			"Machine",
+			"Container",
+			"NetworkSwitch"
+	};
+
+	@Test
+	public void testRebasePortsOfTemplate() throws Exception
+	{
+		// Port addresses as found in the template (see Combine.wsdl)
+		final String template = "http://localhost:8080/emucomp/ComponentService/";
+		final URI[] targets = {
+				new URI("http://10.0.0.5:8080/emucomp/ComponentService?wsdl"),
+				new URI("https://node-1.example.org/emucomp/ComponentService?wsdl"),
+				new URI("http://[fd00::1]:9090/emucomp/ComponentService?wsdl")
+		};
+
+		for (URI target : targets) {
+			final String base = target.getScheme() + "://" + target.getRawAuthority()
+					+ "/emucomp/ComponentService/";
+
+			for (String name : PORT_NAMES) {
+				final String address = AbstractServiceClient.rebase(template + name, target);
+				Assert.assertEquals(base + name, address);
+			}
+		}
+	}
+
+	@Test
+	public void testRebaseKeepsQuery() throws Exception
+	{
+		final URI target = new URI("https://node-2:8443/emucomp/ComponentService?wsdl");
+		final String address = AbstractServiceClient.rebase("http://localhost:8080/a/b%20c?x=1", target);
+		Assert.assertEquals("https://node-2:8443/a/b%20c?x=1", address);
+	}
+
+	@Test
+	public void testRebaseIsIdempotent() throws Exception
+	{
+		final URI target = new URI("http://node-3:8080/emucomp/ComponentService?wsdl");
+		final String address = "http://node-3:8080/emucomp/ComponentService/Machine";
+		Assert.assertEquals(address, AbstractServiceClient.rebase(address, target));
+	}
+}
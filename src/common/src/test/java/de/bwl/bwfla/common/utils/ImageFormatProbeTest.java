@@ -0,0 +1,251 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.common.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.bwl.bwfla.common.datatypes.QemuImage;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+
+public class ImageFormatProbeTest
+{
+	private static final long GB = 1024L * 1024L * 1024L;
+
+	private static Path tmpdir;
+	private static HttpServer server;
+	private static byte[] remote;
+	private static final AtomicInteger NUM_REQUESTS = new AtomicInteger(0);
+
+
+	@BeforeClass
+	public static void setUp() throws IOException
+	{
+		tmpdir = Files.createTempDirectory("image-probe-");
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/images/", ImageFormatProbeTest::serve);
+		server.start();
+	}
+
+	@AfterClass
+	public static void tearDown() throws IOException
+	{
+		server.stop(0);
+		try (final Stream<Path> paths = Files.walk(tmpdir)) {
+			paths.sorted(Comparator.reverseOrder())
+					.forEach((path) -> path.toFile().delete());
+		}
+	}
+
+	@Test
+	public void testQcow2WithBackingFile() throws IOException
+	{
+		final Path image = tmpdir.resolve("cow.qcow2");
+		Files.write(image, ImageFormatProbeTest.qcow2(3, 16, 10L * GB, "base.img", "raw", 512));
+
+		final QemuImage info = ImageFormatProbe.probe(image.toString());
+		Assert.assertNotNull(info);
+		Assert.assertEquals("qcow2", info.getFormat());
+		Assert.assertEquals(Long.toString(10L * GB), info.getVirtualSize());
+		Assert.assertEquals("65536", info.getClusterSize());
+		Assert.assertEquals("base.img", info.getBackingFile());
+		Assert.assertEquals("raw", info.getBackingFileFormat());
+		Assert.assertEquals(tmpdir.resolve("base.img").toString(), info.getFullBackingName());
+	}
+
+	@Test
+	public void testQcow2WithoutBackingFile() throws IOException
+	{
+		final Path image = tmpdir.resolve("plain.qcow2");
+		Files.write(image, ImageFormatProbeTest.qcow2(2, 12, GB, null, null, 0));
+
+		final QemuImage info = ImageFormatProbe.probe(image.toString());
+		Assert.assertNotNull(info);
+		Assert.assertEquals("qcow2", info.getFormat());
+		Assert.assertEquals(Long.toString(GB), info.getVirtualSize());
+		Assert.assertEquals("4096", info.getClusterSize());
+		Assert.assertNull(info.getBackingFile());
+		Assert.assertNull(info.getBackingFileFormat());
+	}
+
+	@Test
+	public void testRawImage() throws IOException
+	{
+		final byte[] data = new byte[3 * 1024 * 1024];
+		data[510] = 0x55;
+		data[511] = (byte) 0xAA;
+
+		final Path image = tmpdir.resolve("disk.img");
+		Files.write(image, data);
+
+		final QemuImage info = ImageFormatProbe.probe(image.toString());
+		Assert.assertNotNull(info);
+		Assert.assertEquals("raw", info.getFormat());
+		Assert.assertEquals(Integer.toString(data.length), info.getVirtualSize());
+		Assert.assertNull(info.getBackingFile());
+	}
+
+	@Test
+	public void testUnsupportedFormats() throws IOException
+	{
+		final byte[] vhdx = new byte[4096];
+		System.arraycopy("vhdxfile".getBytes(StandardCharsets.US_ASCII), 0, vhdx, 0, 8);
+
+		final byte[] vpc = new byte[4096];
+		System.arraycopy("conectix".getBytes(StandardCharsets.US_ASCII), 0, vpc, vpc.length - 512, 8);
+
+		final byte[] vmdk = "# Disk DescriptorFile\nversion=1\n".getBytes(StandardCharsets.US_ASCII);
+
+		final byte[] qcow1 = ImageFormatProbeTest.qcow2(2, 12, GB, null, null, 0);
+		qcow1[7] = 1;
+
+		for (byte[] data : new byte[][] { vhdx, vpc, vmdk, qcow1 }) {
+			final Path image = tmpdir.resolve("unsupported.img");
+			Files.write(image, data);
+			Assert.assertNull(ImageFormatProbe.probe(image.toString()));
+		}
+
+		Assert.assertNull(ImageFormatProbe.probe(tmpdir.resolve("missing.img").toString()));
+		Assert.assertNull(ImageFormatProbe.probe("nbd:localhost:10809:exportname=image"));
+	}
+
+	@Test
+	public void testModifiedImage() throws IOException
+	{
+		final Path image = tmpdir.resolve("modified.qcow2");
+		Files.write(image, ImageFormatProbeTest.qcow2(3, 16, GB, "a.qcow2", "qcow2", 1024));
+		Assert.assertEquals("a.qcow2", ImageFormatProbe.probe(image.toString()).getBackingFile());
+
+		// Rebasing keeps the image's size
+		Files.write(image, ImageFormatProbeTest.qcow2(3, 16, GB, "b.qcow2", "qcow2", 1024));
+		ImageFormatProbe.invalidate(image.toString());
+		Assert.assertEquals("b.qcow2", ImageFormatProbe.probe(image.toString()).getBackingFile());
+	}
+
+	@Test
+	public void testRemoteImage() throws IOException
+	{
+		// Backing file name is stored outside of the initially fetched range
+		remote = ImageFormatProbeTest.qcow2(3, 20, 4L * GB, "http://localhost/images/base", "qcow2", 100000);
+		final String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/images/cow";
+
+		NUM_REQUESTS.set(0);
+		final QemuImage info = ImageFormatProbe.probe(url);
+		Assert.assertNotNull(info);
+		Assert.assertEquals("qcow2", info.getFormat());
+		Assert.assertEquals(Long.toString(4L * GB), info.getVirtualSize());
+		Assert.assertEquals("1048576", info.getClusterSize());
+		Assert.assertEquals("http://localhost/images/base", info.getBackingFile());
+		Assert.assertEquals("qcow2", info.getBackingFileFormat());
+		Assert.assertEquals(2, NUM_REQUESTS.get());
+
+		// Unmodified images should be revalidated only
+		Assert.assertSame(info, ImageFormatProbe.probe(url));
+		Assert.assertEquals(3, NUM_REQUESTS.get());
+	}
+
+
+	// ========== Internal Helpers ==============================
+
+	private static byte[] qcow2(int version, int clusterBits, long size, String bfname, String bfformat, int bfoffset)
+	{
+		final int length = Math.max(bfoffset + 2048, 1 << clusterBits);
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+		final int hdrlength = (version == 2) ? 72 : 104;
+		buffer.putInt(0x514649FB)
+				.putInt(version)
+				.putLong((bfname != null) ? bfoffset : 0L)
+				.putInt((bfname != null) ? bfname.length() : 0)
+				.putInt(clusterBits)
+				.putLong(size);
+
+		if (version == 3)
+			buffer.putInt(100, hdrlength);
+
+		buffer.position(hdrlength);
+		if (bfformat != null) {
+			// Feature name table, to be skipped
+			buffer.putInt(0x6803F857)
+					.putInt(48)
+					.put(new byte[48]);
+
+			buffer.putInt(0xE2792ACA)
+					.putInt(bfformat.length())
+					.put(bfformat.getBytes(StandardCharsets.US_ASCII));
+		}
+
+		buffer.position((buffer.position() + 7) & ~7);
+		buffer.putInt(0)
+				.putInt(0);
+
+		if (bfname != null) {
+			buffer.position(bfoffset);
+			buffer.put(bfname.getBytes(StandardCharsets.UTF_8));
+		}
+
+		return buffer.array();
+	}
+
+	private static void serve(HttpExchange exchange) throws IOException
+	{
+		NUM_REQUESTS.incrementAndGet();
+
+		final String etag = "\"" + remote.length + "-" + remote[0] + "\"";
+		exchange.getResponseHeaders()
+				.add("ETag", etag);
+
+		if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+			exchange.sendResponseHeaders(304, -1);
+			exchange.close();
+			return;
+		}
+
+		final String range = exchange.getRequestHeaders()
+				.getFirst("Range");
+
+		final String[] bounds = range.substring("bytes=".length())
+				.split("-");
+
+		final int start = Integer.parseInt(bounds[0]);
+		final int end = Math.min(Integer.parseInt(bounds[1]), remote.length - 1);
+		exchange.getResponseHeaders()
+				.add("Content-Range", "bytes " + start + "-" + end + "/" + remote.length);
+
+		exchange.sendResponseHeaders(206, end - start + 1);
+		try (final OutputStream ostream = exchange.getResponseBody()) {
+			ostream.write(remote, start, end - start + 1);
+		}
+	}
+}
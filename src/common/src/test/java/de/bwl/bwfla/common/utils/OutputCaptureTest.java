@@ -0,0 +1,360 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.common.utils;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+
+public class OutputCaptureTest
+{
+	private static final long THRESHOLD = 64 * 1024;
+
+	private Path outdir;
+	private ScheduledExecutorService pumps;
+
+
+	@Before
+	public void setUp() throws IOException
+	{
+		outdir = Files.createTempDirectory("output-capture-");
+
+		// a single thread must be enough for all captures
+		pumps = Executors.newSingleThreadScheduledExecutor();
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		pumps.shutdownNow();
+		Assert.assertTrue(pumps.awaitTermination(5L, TimeUnit.SECONDS));
+
+		try (Stream<Path> files = Files.walk(outdir)) {
+			files.sorted(Comparator.reverseOrder())
+					.forEach((file) -> file.toFile().delete());
+		}
+	}
+
+	@Test
+	public void testCaptureInMemory() throws Exception
+	{
+		final byte[] data = OutputCaptureTest.generate(THRESHOLD - 1);
+		final OutputCapture capture = this.start(new ByteArrayInputStream(data), () -> false);
+		try {
+			capture.drain();
+			Assert.assertEquals(new String(data), capture.string());
+			try (InputStream stream = capture.stream()) {
+				Assert.assertArrayEquals(data, stream.readAllBytes());
+			}
+
+			// Nothing should be spilled
+			Assert.assertEquals(0L, OutputCaptureTest.count(outdir));
+		}
+		finally {
+			capture.close();
+			capture.cleanup();
+		}
+	}
+
+	@Test
+	public void testCaptureSpillsAboveThreshold() throws Exception
+	{
+		final byte[] data = OutputCaptureTest.generate(16L * THRESHOLD + 123L);
+		final OutputCapture capture = this.start(new ByteArrayInputStream(data), () -> false);
+		try {
+			capture.drain();
+			Assert.assertEquals(1L, OutputCaptureTest.count(outdir));
+
+			final Path path = capture.spill();
+			Assert.assertArrayEquals(data, Files.readAllBytes(path));
+			Assert.assertEquals(new String(data), capture.string());
+		}
+		finally {
+			capture.close();
+			capture.cleanup();
+		}
+
+		Assert.assertEquals(0L, OutputCaptureTest.count(outdir));
+	}
+
+	@Test
+	public void testSpillOnPathRequest() throws Exception
+	{
+		final PipedOutputStream writer = new PipedOutputStream();
+		final PipedInputStream reader = new PipedInputStream(writer, 4096);
+		final Process process = new Process();
+		final OutputCapture capture = this.start(reader, process::isRunning);
+		try {
+			final byte[] head = "head\n".getBytes(StandardCharsets.UTF_8);
+			final byte[] tail = "tail\n".getBytes(StandardCharsets.UTF_8);
+			writer.write(head);
+			writer.flush();
+			OutputCaptureTest.await(capture, head.length);
+
+			// Below threshold, but path is requested, hence spilled
+			final Path path = capture.spill();
+			Assert.assertArrayEquals(head, Files.readAllBytes(path));
+
+			// Further output is appended to the spilled file
+			writer.write(tail);
+			writer.close();
+			process.exit(capture);
+			capture.drain();
+
+			Assert.assertEquals("head\ntail\n", new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+			Assert.assertEquals("head\ntail\n", capture.string());
+		}
+		finally {
+			capture.close();
+			capture.cleanup();
+		}
+	}
+
+	@Test
+	public void testSlowOutputIsCapturedCompletely() throws Exception
+	{
+		// Output is produced slower than any fixed idle-timeout
+		final byte[] data = OutputCaptureTest.generate(8L * THRESHOLD);
+		final PipedOutputStream writer = new PipedOutputStream();
+		final PipedInputStream reader = new PipedInputStream(writer, data.length);
+		final Process process = new Process();
+		final OutputCapture capture = this.start(reader, process::isRunning);
+		final Thread producer = new Thread(() -> {
+			try {
+				final int chunksize = data.length / 8;
+				for (int offset = 0; offset < data.length; offset += chunksize) {
+					writer.write(data, offset, Math.min(chunksize, data.length - offset));
+					writer.flush();
+					Thread.sleep(200L);
+				}
+
+				writer.close();
+			}
+			catch (Exception error) {
+				throw new IllegalStateException(error);
+			}
+		});
+
+		try {
+			producer.start();
+			producer.join();
+			process.exit(capture);
+			capture.drain();
+			Assert.assertEquals(new String(data), capture.string());
+		}
+		finally {
+			capture.close();
+			capture.cleanup();
+		}
+	}
+
+	@Test
+	public void testSnapshotOfRunningProcess() throws Exception
+	{
+		final PipedOutputStream writer = new PipedOutputStream();
+		final PipedInputStream reader = new PipedInputStream(writer, 4096);
+		final OutputCapture capture = this.start(reader, () -> true);
+		try {
+			writer.write("partial".getBytes(StandardCharsets.UTF_8));
+			writer.flush();
+			OutputCaptureTest.await(capture, "partial".length());
+
+			// Must not block, while the process is running
+			capture.drain();
+			Assert.assertEquals("partial", capture.string());
+		}
+		finally {
+			capture.close();
+			capture.cleanup();
+			writer.close();
+		}
+	}
+
+	@Test
+	public void testDrainTimeoutIsAnError() throws Exception
+	{
+		// Output keeps arriving after the process exited
+		final InputStream endless = new InputStream() {
+			@Override
+			public int read()
+			{
+				return 'x';
+			}
+
+			@Override
+			public int available()
+			{
+				return 1;
+			}
+		};
+
+		final OutputCapture capture = new OutputCapture(endless, () -> false, THRESHOLD, 500L, () -> outdir.resolve("stdout.log"));
+		capture.start(pumps);
+		try {
+			capture.drain();
+			Assert.fail("Timeout expected!");
+		}
+		catch (IOException error) {
+			// Expected!
+		}
+		finally {
+			capture.close();
+			capture.cleanup();
+		}
+
+		// The pump must stop polling once closed
+		pumps.shutdown();
+		Assert.assertTrue(pumps.awaitTermination(5L, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testManyCapturesShareOneThread() throws Exception
+	{
+		final int numCaptures = 64;
+		final List<PipedOutputStream> writers = new ArrayList<>();
+		final List<Process> processes = new ArrayList<>();
+		final List<OutputCapture> captures = new ArrayList<>();
+		try {
+			for (int i = 0; i < numCaptures; ++i) {
+				final PipedOutputStream writer = new PipedOutputStream();
+				final Process process = new Process();
+				writers.add(writer);
+				processes.add(process);
+				captures.add(this.start(new PipedInputStream(writer, 4096), process::isRunning));
+			}
+
+			// All captures are polled concurrently, while their processes run
+			for (int i = 0; i < numCaptures; ++i) {
+				writers.get(i).write(("output-" + i).getBytes(StandardCharsets.UTF_8));
+				writers.get(i).flush();
+			}
+
+			for (int i = 0; i < numCaptures; ++i)
+				OutputCaptureTest.await(captures.get(i), ("output-" + i).length());
+
+			for (int i = 0; i < numCaptures; ++i) {
+				writers.get(i).close();
+				processes.get(i).exit(captures.get(i));
+				captures.get(i).drain();
+				Assert.assertEquals("output-" + i, captures.get(i).string());
+			}
+		}
+		finally {
+			for (OutputCapture capture : captures) {
+				capture.close();
+				capture.cleanup();
+			}
+		}
+	}
+
+	@Test
+	public void testPipeHeldByDaemonizedChild() throws Exception
+	{
+		// The background child inherits stdout and keeps it open
+		final java.lang.Process process = new ProcessBuilder("sh", "-c", "sleep 10 & echo done")
+				.start();
+
+		final OutputCapture capture = this.start(process.getInputStream(), process::isAlive);
+		try {
+			Assert.assertTrue(process.waitFor(5L, TimeUnit.SECONDS));
+			capture.wakeup();
+
+			final long start = System.currentTimeMillis();
+			capture.drain();
+			Assert.assertTrue(System.currentTimeMillis() - start < 5000L);
+			Assert.assertEquals("done\n", capture.string());
+		}
+		finally {
+			capture.close();
+			capture.cleanup();
+			process.descendants()
+					.forEach(ProcessHandle::destroyForcibly);
+		}
+	}
+
+
+	// ===== Internal Helpers ====================
+
+	private OutputCapture start(InputStream source, java.util.function.BooleanSupplier running)
+	{
+		final OutputCapture capture = new OutputCapture(source, running, THRESHOLD, 10000L, () -> outdir.resolve("stdout.log"));
+		capture.start(pumps);
+		return capture;
+	}
+
+	private static byte[] generate(long size)
+	{
+		final byte[] data = new byte[(int) size];
+		for (int i = 0; i < data.length; ++i)
+			data[i] = (byte) ('a' + (i % 26));
+
+		return data;
+	}
+
+	private static long count(Path dir) throws IOException
+	{
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.count();
+		}
+	}
+
+	private static void await(OutputCapture capture, int length) throws Exception
+	{
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while (capture.string().length() < length && System.currentTimeMillis() < deadline)
+			Thread.sleep(10L);
+	}
+
+	/** A fake process' state */
+	private static class Process
+	{
+		private volatile boolean running = true;
+
+		public boolean isRunning()
+		{
+			return running;
+		}
+
+		public void exit(OutputCapture capture)
+		{
+			running = false;
+			capture.wakeup();
+		}
+	}
+}
@@ -0,0 +1,52 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.common.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+
+public class ProcessMetricsTest
+{
+	@Test
+	public void testCommandNames()
+	{
+		final Checker checker = (expected, command) -> {
+			Assert.assertEquals(expected, ProcessMetrics.toCommandName(Arrays.asList(command)));
+		};
+
+		checker.check("qemu-img", "qemu-img", "info", "--output", "json", "image.qcow2");
+		checker.check("qemu-img", "/usr/bin/qemu-img", "info", "image.qcow2");
+		checker.check("mount", "sudo", "-n", "/bin/mount", "-o", "ro", "/dev/loop0", "/mnt");
+		checker.check("sudo", "sudo");
+		checker.check("sh:curl", "/bin/sh", "-c", "'curl' '-s' 'http://localhost' | 'tar' '-x'");
+		checker.check("bash:rsync", "bash", "-c", "rsync -a src/ dst/");
+		checker.check("sh", "sh", "script.sh");
+	}
+
+	@FunctionalInterface
+	private interface Checker
+	{
+		void check(String expected, String... command);
+	}
+}
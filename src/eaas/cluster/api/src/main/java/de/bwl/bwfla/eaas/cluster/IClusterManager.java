@@ -26,6 +26,7 @@ import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 import de.bwl.bwfla.eaas.cluster.dump.IDumpable;
 import de.bwl.bwfla.eaas.cluster.exception.AllocationFailureException;
@@ -66,4 +67,8 @@ public interface IClusterManager extends IDumpable, IDescribable<ClusterDescript
 	public Comparator<IResourceProvider> getResourceProviderComparator();
 	public String getName();
 	public Collection<String> getProviderNames();
+
+	/** Registers a listener, called whenever a node is removed from any resource provider */
+	public void addNodeUnregisteredListener(Consumer<NodeID> listener);
+	public void removeNodeUnregisteredListener(Consumer<NodeID> listener);
 }
@@ -19,6 +19,8 @@
 
 package de.bwl.bwfla.eaas.cluster.config;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import javax.json.Json;
@@ -36,6 +38,14 @@ import de.bwl.bwfla.eaas.cluster.dump.DumpHelpers;
 
 public abstract class NodePoolScalerConfig extends BaseConfig
 {
+	public static final String MODE_REACTIVE   = "reactive";
+	public static final String MODE_PREDICTIVE = "predictive";
+
+	private static final Collection<String> MODES = List.of(MODE_REACTIVE, MODE_PREDICTIVE);
+
+	@Config("mode")
+	private String mode = MODE_REACTIVE;
+
 	@Config("pool_scaling_interval")
 	@WithPropertyConverter(DurationPropertyConverter.class)
 	private long poolScalingInterval = -1L;
@@ -48,9 +58,55 @@ public abstract class NodePoolScalerConfig extends BaseConfig
 	@WithPropertyConverter(DurationPropertyConverter.class)
 	private long nodeCoolDownPeriod = -1L;
 
+	@Config("forecast.interval")
+	@WithPropertyConverter(DurationPropertyConverter.class)
+	private long forecastInterval = -1L;
+
+	@Config("forecast.season_length")
+	@WithPropertyConverter(DurationPropertyConverter.class)
+	private long forecastSeasonLength = -1L;
+
+	@Config("forecast.lead_time")
+	@WithPropertyConverter(DurationPropertyConverter.class)
+	private long forecastLeadTime = -1L;
+
+	@Config("forecast.level_smoothing")
+	private float forecastLevelSmoothing = -1.0F;
+
+	@Config("forecast.trend_smoothing")
+	private float forecastTrendSmoothing = -1.0F;
+
+	@Config("forecast.seasonal_smoothing")
+	private float forecastSeasonalSmoothing = -1.0F;
+
+	@Config("forecast.hysteresis")
+	private float forecastHysteresis = -1.0F;
+
+	@Config("forecast.state_dir")
+	private String forecastStateDir = null;
+
 
 	/* ========== Getters and Setters ========== */
 
+	public String getMode()
+	{
+		return mode;
+	}
+
+	public void setMode(String mode)
+	{
+		ConfigHelpers.check(mode, "Pool scaler mode is invalid!");
+		if (!MODES.contains(mode))
+			throw new ConfigException("Pool scaler mode is invalid: " + mode);
+
+		this.mode = mode;
+	}
+
+	public boolean isPredictive()
+	{
+		return MODE_PREDICTIVE.equals(mode);
+	}
+
 	public long getPoolScalingInterval()
 	{
 		return poolScalingInterval;
@@ -100,6 +156,110 @@ public abstract class NodePoolScalerConfig extends BaseConfig
 	}
 
 
+	public long getForecastInterval()
+	{
+		return forecastInterval;
+	}
+
+	public void setForecastInterval(long interval)
+	{
+		ConfigHelpers.check(interval, 1L, Long.MAX_VALUE, "Forecast interval is invalid!");
+		this.forecastInterval = interval;
+	}
+
+	public void setForecastInterval(long interval, TimeUnit unit)
+	{
+		this.setForecastInterval(unit.toMillis(interval));
+	}
+
+	public long getForecastSeasonLength()
+	{
+		return forecastSeasonLength;
+	}
+
+	public void setForecastSeasonLength(long length)
+	{
+		ConfigHelpers.check(length, 1L, Long.MAX_VALUE, "Forecast season length is invalid!");
+		this.forecastSeasonLength = length;
+	}
+
+	public void setForecastSeasonLength(long length, TimeUnit unit)
+	{
+		this.setForecastSeasonLength(unit.toMillis(length));
+	}
+
+	public long getForecastLeadTime()
+	{
+		return forecastLeadTime;
+	}
+
+	public void setForecastLeadTime(long time)
+	{
+		ConfigHelpers.check(time, 0L, Long.MAX_VALUE, "Forecast lead time is invalid!");
+		this.forecastLeadTime = time;
+	}
+
+	public void setForecastLeadTime(long time, TimeUnit unit)
+	{
+		this.setForecastLeadTime(unit.toMillis(time));
+	}
+
+	public float getForecastLevelSmoothing()
+	{
+		return forecastLevelSmoothing;
+	}
+
+	public void setForecastLevelSmoothing(float factor)
+	{
+		ConfigHelpers.check(factor, 0.0F, 1.0F, "Forecast level smoothing factor is invalid!");
+		this.forecastLevelSmoothing = factor;
+	}
+
+	public float getForecastTrendSmoothing()
+	{
+		return forecastTrendSmoothing;
+	}
+
+	public void setForecastTrendSmoothing(float factor)
+	{
+		ConfigHelpers.check(factor, 0.0F, 1.0F, "Forecast trend smoothing factor is invalid!");
+		this.forecastTrendSmoothing = factor;
+	}
+
+	public float getForecastSeasonalSmoothing()
+	{
+		return forecastSeasonalSmoothing;
+	}
+
+	public void setForecastSeasonalSmoothing(float factor)
+	{
+		ConfigHelpers.check(factor, 0.0F, 1.0F, "Forecast seasonal smoothing factor is invalid!");
+		this.forecastSeasonalSmoothing = factor;
+	}
+
+	public float getForecastHysteresis()
+	{
+		return forecastHysteresis;
+	}
+
+	public void setForecastHysteresis(float hysteresis)
+	{
+		ConfigHelpers.check(hysteresis, 0.0F, Float.MAX_VALUE, "Forecast hysteresis is invalid!");
+		this.forecastHysteresis = hysteresis;
+	}
+
+	public String getForecastStateDir()
+	{
+		return forecastStateDir;
+	}
+
+	public void setForecastStateDir(String path)
+	{
+		// Persisting of forecast state is optional!
+		this.forecastStateDir = (path == null || path.isEmpty()) ? null : path;
+	}
+
+
 	/* ========== Initialization ========== */
 
 	@Override
@@ -109,6 +269,24 @@ public abstract class NodePoolScalerConfig extends BaseConfig
 		this.setPoolScalingInterval(poolScalingInterval);
 		this.setNodeWarmUpPeriod(nodeWarmUpPeriod);
 		this.setNodeCoolDownPeriod(nodeCoolDownPeriod);
+		this.setMode(mode);
+		if (!this.isPredictive())
+			return;
+
+		this.setForecastInterval(forecastInterval);
+		this.setForecastSeasonLength(forecastSeasonLength);
+		this.setForecastLeadTime(forecastLeadTime);
+		this.setForecastLevelSmoothing(forecastLevelSmoothing);
+		this.setForecastTrendSmoothing(forecastTrendSmoothing);
+		this.setForecastSeasonalSmoothing(forecastSeasonalSmoothing);
+		this.setForecastHysteresis(forecastHysteresis);
+		this.setForecastStateDir(forecastStateDir);
+		if (forecastSeasonLength < forecastInterval) {
+			final String message = "Pool scaler is misconfigured! "
+					+ "forecast.season_length < forecast.interval";
+
+			throw new ConfigException(message);
+		}
 	}
 	
 	protected JsonObject dump()
@@ -117,9 +295,23 @@ public abstract class NodePoolScalerConfig extends BaseConfig
 				.add("node_warmup_period", DumpHelpers.toDurationString(nodeWarmUpPeriod))
 				.add("node_cooldown_period", DumpHelpers.toDurationString(nodeCoolDownPeriod));
 
+		final JsonObjectBuilder forecastJson = Json.createObjectBuilder()
+				.add("interval", DumpHelpers.toDurationString(forecastInterval))
+				.add("season_length", DumpHelpers.toDurationString(forecastSeasonLength))
+				.add("lead_time", DumpHelpers.toDurationString(forecastLeadTime))
+				.add("level_smoothing", forecastLevelSmoothing)
+				.add("trend_smoothing", forecastTrendSmoothing)
+				.add("seasonal_smoothing", forecastSeasonalSmoothing)
+				.add("hysteresis", forecastHysteresis);
+
+		if (forecastStateDir != null)
+			forecastJson.add("state_dir", forecastStateDir);
+
 		return Json.createObjectBuilder()
+				.add("mode", mode)
 				.add("pool_scaling_interval", DumpHelpers.toDurationString(poolScalingInterval))
 				.add("scaledown", scaleDownJson.build())
+				.add("forecast", forecastJson.build())
 				.build();
 	}
 	
@@ -21,6 +21,7 @@ package de.bwl.bwfla.eaas.cluster.config;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
@@ -51,6 +52,15 @@ public class ResourceProviderConfig extends BaseConfig
 	public static final String TYPE_GCE      = "gce";
 	public static final String TYPE_JCLOUDS  = "jclouds";
 	
+	/** Supported node placement policies */
+	public static final String PLACEMENT_BEST_FIT   = "best-fit";
+	public static final String PLACEMENT_WORST_FIT  = "worst-fit";
+	public static final String PLACEMENT_SPREAD     = "spread";
+	public static final String PLACEMENT_FIRST_FIT  = "first-fit";
+
+	private static final Collection<String> PLACEMENT_POLICIES = List.of(
+			PLACEMENT_BEST_FIT, PLACEMENT_WORST_FIT, PLACEMENT_SPREAD, PLACEMENT_FIRST_FIT);
+
 	/** All supported provider types */
 	private static final Map<String, Supplier<NodeAllocatorConfig>> NODE_ALLOCATOR_TYPES;
 	static {
@@ -87,6 +97,9 @@ public class ResourceProviderConfig extends BaseConfig
 	@Config("protocol")
 	private String protocol = null;
 	
+	@Config("placement_policy")
+	private String placementPolicy = null;
+
 	@Config("deferred_allocations_gc_interval")
 	@WithPropertyConverter(DurationPropertyConverter.class)
 	private long deferredAllocationsGcInterval = -1L;
@@ -150,6 +163,20 @@ public class ResourceProviderConfig extends BaseConfig
 		return protocol;
 	}
 
+	public String getPlacementPolicy()
+	{
+		return placementPolicy;
+	}
+
+	public void setPlacementPolicy(String policy)
+	{
+		ConfigHelpers.check(policy, "Placement policy is invalid!");
+		if (!PLACEMENT_POLICIES.contains(policy))
+			throw new ConfigException("Unknown placement policy: " + policy);
+
+		this.placementPolicy = policy;
+	}
+
 	public NodeAllocatorConfig getNodeAllocatorConfig()
 	{
 		return nodeAllocator;
@@ -354,6 +381,7 @@ public class ResourceProviderConfig extends BaseConfig
 		// Re-check the arguments...
 		this.setName(name);
 		this.setType(type);
+		this.setPlacementPolicy(placementPolicy);
 		this.setDeferredAllocationsGcInterval(deferredAllocationsGcInterval);
 		this.setRequestHistoryUpdateInterval(reqHistoryUpdateInterval);
 		this.setRequestHistoryMaxRequestAge(reqHistoryMaxRequestAge);
@@ -379,6 +407,7 @@ public class ResourceProviderConfig extends BaseConfig
 			final ObjectDumper dumper = new ObjectDumper(json, dconf, flags, this.getClass());
 			dumper.add(DumpFields.NAME, () -> json.write(DumpFields.NAME, name));
 			dumper.add(DumpFields.TYPE, () -> json.write(DumpFields.TYPE, type));
+			dumper.add(DumpFields.PLACEMENT_POLICY, () -> json.write(DumpFields.PLACEMENT_POLICY, placementPolicy));
 			dumper.add(DumpFields.DEFERRED_ALLOCATIONS_GC_INTERVAL, () -> {
 				json.write(DumpFields.DEFERRED_ALLOCATIONS_GC_INTERVAL,
 						DumpHelpers.toDurationString(deferredAllocationsGcInterval));
@@ -430,6 +459,7 @@ public class ResourceProviderConfig extends BaseConfig
 	{
 		private static final String NAME             = "name";
 		private static final String TYPE             = "type";
+		private static final String PLACEMENT_POLICY = "placement_policy";
 		private static final String LABELS           = "labels";
 		private static final String REQUEST_HISTORY  = "request_history";
 		private static final String PREALLOCATION    = "preallocation";
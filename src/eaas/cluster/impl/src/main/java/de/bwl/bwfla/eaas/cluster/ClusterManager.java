@@ -36,6 +36,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.logging.Level;
@@ -80,6 +81,7 @@ public class ClusterManager implements IClusterManager
 	private ClusterManagerExecutors executors;
 	private Map<String, IResourceProvider> providers;
 	private Comparator<IResourceProvider> comparator;
+	private final List<Consumer<NodeID>> nodeUnregisteredListeners = new CopyOnWriteArrayList<Consumer<NodeID>>();
 
 	@Inject
 	private TenantManager tenants = null;
@@ -223,6 +225,18 @@ public class ClusterManager implements IClusterManager
 		return Collections.unmodifiableCollection(providers.keySet());
 	}
 
+	@Override
+	public void addNodeUnregisteredListener(Consumer<NodeID> listener)
+	{
+		nodeUnregisteredListeners.add(Objects.requireNonNull(listener));
+	}
+
+	@Override
+	public void removeNodeUnregisteredListener(Consumer<NodeID> listener)
+	{
+		nodeUnregisteredListeners.remove(listener);
+	}
+
 	@Override
 	public ClusterDescription describe(boolean detailed)
 	{
@@ -336,7 +350,7 @@ public class ClusterManager implements IClusterManager
 			try {
 				final String name = rpc.getName();
 				log.info("Initializing '" + name + "' resource provider...");
-				final ResourceProvider provider = new ResourceProvider(rpc, executors);
+				final ResourceProvider provider = new ResourceProvider(rpc, executors, this::notifyNodeUnregistered);
 				final String rank = provider.getLabelIndex().get(Labels.RANK);
 				providers.put(name, provider);
 				log.info("Rank " + rank + " assigned to resource provider '" + name + "'");
@@ -351,6 +365,18 @@ public class ClusterManager implements IClusterManager
 		}
 	}
 	
+	private void notifyNodeUnregistered(NodeID nid)
+	{
+		for (Consumer<NodeID> listener : nodeUnregisteredListeners) {
+			try {
+				listener.accept(nid);
+			}
+			catch (Exception exception) {
+				log.log(Level.WARNING, "Notifying listener about unregistered node '" + nid + "' failed!", exception);
+			}
+		}
+	}
+
 	private ResourceHandle doAllocation(IResourceProvider provider, String tenant, UUID aid,
 			ResourceSpec spec, boolean scaleup, long timeout, TimeUnit unit)
 			throws TimeoutException, OutOfResourcesException, AllocationFailureException
@@ -27,6 +27,7 @@ import de.bwl.bwfla.eaas.cluster.ResourceSpec;
 
 // package-private
 
+/** Thread-safe history of recent allocation requests */
 class AllocationRequestHistory
 {
 	private final Deque<AllocationRequestHistory.Entry> requests;
@@ -42,7 +43,7 @@ class AllocationRequestHistory
 		this.maxRequestAge = maxRequestAge;
 	}
 
-	public void add(ResourceSpec spec)
+	public synchronized void add(ResourceSpec spec)
 	{
 		// Request history tracking disabled?
 		if (maxNumRequests <= 0)
@@ -59,7 +60,7 @@ class AllocationRequestHistory
 		curSpecSum.add(spec);
 	}
 
-	public void update()
+	public synchronized void update()
 	{
 		final long curtime = ResourceProvider.getCurrentTime();
 		AllocationRequestHistory.Entry entry = null;
@@ -74,20 +75,20 @@ class AllocationRequestHistory
 		}
 	}
 
-	public void reset()
+	public synchronized void reset()
 	{
 		curSpecSum.reset();
 		requests.clear();
 	}
 
-	public int size()
+	public synchronized int size()
 	{
 		return requests.size();
 	}
 
-	public ResourceSpec getResourceSum()
+	public synchronized ResourceSpec getResourceSum()
 	{
-		return curSpecSum;
+		return new ResourceSpec(curSpecSum);
 	}
 
 
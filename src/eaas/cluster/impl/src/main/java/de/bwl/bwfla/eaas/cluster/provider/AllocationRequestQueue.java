@@ -43,12 +43,16 @@ class AllocationRequestQueue implements IDumpable
 	private final PriorityQueue<AllocationRequest> requests;
 	private final TreeSet<AllocationRequest> resources;
 	private final MutableResourceSpec specsum;
+
+	/** Number of queued requests, readable from any thread */
+	private volatile int numRequests;
 	
 	public AllocationRequestQueue()
 	{
 		this.requests = new PriorityQueue<AllocationRequest>(DEADLINE_COMPARATOR);
 		this.resources = new TreeSet<AllocationRequest>(RESOURCE_COMPARATOR);
 		this.specsum = new MutableResourceSpec();
+		this.numRequests = 0;
 	}
 	
 	public ResourceSpec getResourceSum()
@@ -61,6 +65,7 @@ class AllocationRequestQueue implements IDumpable
 		specsum.add(request.getResourceSpec());
 		requests.add(request);
 		resources.add(request);
+		numRequests = requests.size();
 	}
 	
 	/**
@@ -86,19 +91,22 @@ class AllocationRequestQueue implements IDumpable
 		if (request != null) {
 			specsum.sub(request.getResourceSpec());
 			resources.remove(request);
+			numRequests = requests.size();
 		}
 		
 		return request;
 	}
 	
+	/** Can be called concurrently with modifications of this queue */
 	public boolean isEmpty()
 	{
-		return requests.isEmpty();
+		return numRequests == 0;
 	}
 	
+	/** Can be called concurrently with modifications of this queue */
 	public int size()
 	{
-		return requests.size();
+		return numRequests;
 	}
 	
 	@Override
@@ -212,6 +220,7 @@ class AllocationRequestQueue implements IDumpable
 			outer.requests.remove(request);
 			outer.resources.remove(request);
 			outer.specsum.sub(request.getResourceSpec());
+			outer.numRequests = outer.requests.size();
 			
 			// Since remaining set is backed by the
 			// outer queue, nothing more to do!
@@ -0,0 +1,335 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.eaas.cluster.provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonWriter;
+
+import de.bwl.bwfla.eaas.cluster.MutableResourceSpec;
+import de.bwl.bwfla.eaas.cluster.ResourceSpec;
+import de.bwl.bwfla.eaas.cluster.config.NodePoolScalerConfig;
+
+
+/**
+ * Forecaster for a node-pool's resource demand, based on additive Holt-Winters smoothing.
+ * <p>
+ * Observed demand is aggregated into fixed-size intervals, where each interval's peak
+ * updates a smoothed level, a (damped) trend and a seasonal profile per dimension.
+ * The seasonal profile captures the time-of-day pattern of demand, while the trend
+ * captures load ramps. Until the first season is complete, the last interval's peak
+ * is used as forecast. The model's state can be saved and restored across restarts.
+ */
+public class DemandForecaster
+{
+	private static final int STATE_VERSION = 1;
+	private static final double TREND_DAMPING = 0.9;
+	private static final int MIN_NUM_INTERVALS = 2;
+
+	private final long interval;
+	private final int numSeasonalIntervals;
+	private final double alpha;
+	private final double beta;
+	private final double gamma;
+
+	private final Model cpu;
+	private final Model memory;
+
+	/** Peak demand observed in current interval */
+	private final MutableResourceSpec peak;
+
+	/** Index of current interval, since epoch */
+	private long curIntervalIndex;
+
+	/** Number of intervals used for training so far */
+	private long numIntervals;
+
+	/** Has the state changed since last save? */
+	private boolean modified;
+
+
+	public DemandForecaster(NodePoolScalerConfig config)
+	{
+		this(config.getForecastInterval(), config.getForecastSeasonLength(), config.getForecastLevelSmoothing(),
+				config.getForecastTrendSmoothing(), config.getForecastSeasonalSmoothing());
+	}
+
+	public DemandForecaster(long interval, long season, double alpha, double beta, double gamma)
+	{
+		if (interval <= 0L || season < interval)
+			throw new IllegalArgumentException("Invalid forecast interval or season length!");
+
+		this.interval = interval;
+		this.numSeasonalIntervals = (int) Math.max(1L, season / interval);
+		this.alpha = alpha;
+		this.beta = beta;
+		this.gamma = gamma;
+		this.cpu = new Model(numSeasonalIntervals);
+		this.memory = new Model(numSeasonalIntervals);
+		this.peak = new MutableResourceSpec();
+		this.curIntervalIndex = -1L;
+		this.numIntervals = 0L;
+		this.modified = false;
+	}
+
+	/** Record demand observed at given time. Returns true, when an interval was completed. */
+	public boolean observe(long timestamp, ResourceSpec demand)
+	{
+		final long index = timestamp / interval;
+		if (curIntervalIndex < 0L) {
+			curIntervalIndex = index;
+			peak.set(demand);
+			return false;
+		}
+
+		if (index <= curIntervalIndex) {
+			peak.max(demand);
+			return false;
+		}
+
+		// Current interval is complete, update the model
+		this.update(curIntervalIndex, peak.cpu(), peak.memory());
+
+		// No demand was observed in skipped intervals (e.g. during downtimes),
+		// but older ones than one season would be overwritten anyway
+		final long first = Math.max(curIntervalIndex + 1L, index - numSeasonalIntervals);
+		for (long skipped = first; skipped < index; ++skipped)
+			this.update(skipped, 0, 0);
+
+		curIntervalIndex = index;
+		peak.set(demand);
+		modified = true;
+		return true;
+	}
+
+	/** Returns the max. demand forecasted within given horizon or null, if the model is not trained yet. */
+	public ResourceSpec forecast(long timestamp, long horizon)
+	{
+		if (!this.isTrained())
+			return null;
+
+		final long index = Math.max(timestamp / interval, curIntervalIndex);
+		final long steps = Math.max(1L, (horizon + interval - 1L) / interval);
+		final long offset = index - curIntervalIndex;
+
+		double maxcpu = 0.0;
+		double maxmem = 0.0;
+		for (long step = 1L; step <= steps; ++step) {
+			final int season = this.toSeasonalIndex(index + step);
+			maxcpu = Math.max(maxcpu, cpu.forecast(offset + step, season));
+			maxmem = Math.max(maxmem, memory.forecast(offset + step, season));
+		}
+
+		final MutableResourceSpec result = new MutableResourceSpec(DemandForecaster.toInt(maxcpu), DemandForecaster.toInt(maxmem));
+		if (index == curIntervalIndex)
+			result.max(peak);
+
+		return result;
+	}
+
+	public boolean isTrained()
+	{
+		return numIntervals >= MIN_NUM_INTERVALS;
+	}
+
+	public long getNumIntervals()
+	{
+		return numIntervals;
+	}
+
+	public boolean isModified()
+	{
+		return modified;
+	}
+
+	/** Save current model's state into given file */
+	public void save(Path path) throws IOException
+	{
+		final JsonObject json = Json.createObjectBuilder()
+				.add("version", STATE_VERSION)
+				.add("interval", interval)
+				.add("num_seasonal_intervals", numSeasonalIntervals)
+				.add("num_intervals", numIntervals)
+				.add("cur_interval_index", curIntervalIndex)
+				.add("peak", Json.createObjectBuilder()
+						.add("cpu", peak.cpu())
+						.add("memory", peak.memory()))
+				.add("cpu", cpu.toJson())
+				.add("memory", memory.toJson())
+				.build();
+
+		Files.createDirectories(path.toAbsolutePath().getParent());
+
+		// Write into a temp-file first and replace the target atomically
+		final Path tmpfile = path.resolveSibling(path.getFileName() + ".tmp");
+		try (OutputStream ostream = Files.newOutputStream(tmpfile);
+			 JsonWriter writer = Json.createWriter(ostream)) {
+			writer.writeObject(json);
+		}
+
+		Files.move(tmpfile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		modified = false;
+	}
+
+	/** Restore model's state from given file. Returns false, if the file is missing or incompatible. */
+	public boolean load(Path path) throws IOException
+	{
+		if (!Files.exists(path))
+			return false;
+
+		final JsonObject json;
+		try (InputStream istream = Files.newInputStream(path);
+			 JsonReader reader = Json.createReader(istream)) {
+			json = reader.readObject();
+		}
+
+		final boolean compatible = json.getInt("version", -1) == STATE_VERSION
+				&& json.getJsonNumber("interval").longValue() == interval
+				&& json.getInt("num_seasonal_intervals") == numSeasonalIntervals;
+
+		if (!compatible)
+			return false;
+
+		cpu.fromJson(json.getJsonObject("cpu"));
+		memory.fromJson(json.getJsonObject("memory"));
+		numIntervals = json.getJsonNumber("num_intervals").longValue();
+		curIntervalIndex = json.getJsonNumber("cur_interval_index").longValue();
+		final JsonObject jpeak = json.getJsonObject("peak");
+		peak.cpu(jpeak.getInt("cpu"))
+				.memory(jpeak.getInt("memory"));
+
+		modified = false;
+		return true;
+	}
+
+
+	/* ========== Internal Helpers ========== */
+
+	private void update(long index, int cpuDemand, int memoryDemand)
+	{
+		final int season = this.toSeasonalIndex(index);
+		cpu.update(cpuDemand, season, alpha, beta, gamma);
+		memory.update(memoryDemand, season, alpha, beta, gamma);
+		++numIntervals;
+	}
+
+	private int toSeasonalIndex(long index)
+	{
+		return (int) (index % numSeasonalIntervals);
+	}
+
+	private static int toInt(double value)
+	{
+		return (int) Math.min(Math.max(Math.ceil(value), 0.0), Integer.MAX_VALUE);
+	}
+
+	private static class Model
+	{
+		private final double[] seasonals;
+		private double level;
+		private double trend;
+		private double last;
+		private long count;
+
+		public Model(int numSeasonalIntervals)
+		{
+			this.seasonals = new double[numSeasonalIntervals];
+			this.level = 0.0;
+			this.trend = 0.0;
+			this.last = 0.0;
+			this.count = 0L;
+		}
+
+		public void update(double value, int season, double alpha, double beta, double gamma)
+		{
+			last = value;
+
+			if (count < seasonals.length) {
+				// Still in the first season, record raw values
+				seasonals[season] = value;
+				level += (value - level) / (double) (++count);
+				if (count < seasonals.length)
+					return;
+
+				// First season complete, make seasonal components relative to its mean
+				for (int i = 0; i < seasonals.length; ++i)
+					seasonals[i] -= level;
+
+				return;
+			}
+
+			final double seasonal = seasonals[season];
+			final double prevLevel = level;
+			level = alpha * (value - seasonal) + (1.0 - alpha) * (prevLevel + TREND_DAMPING * trend);
+			trend = beta * (level - prevLevel) + (1.0 - beta) * TREND_DAMPING * trend;
+			seasonals[season] = gamma * (value - level) + (1.0 - gamma) * seasonal;
+			++count;
+		}
+
+		public double forecast(long steps, int season)
+		{
+			// Seasonal profile is incomplete, fall back to the last value
+			if (count < seasonals.length)
+				return last;
+
+			// Sum of damped trend components: phi + phi^2 + ... + phi^steps
+			final double damping = TREND_DAMPING * (1.0 - Math.pow(TREND_DAMPING, steps)) / (1.0 - TREND_DAMPING);
+			return level + damping * trend + seasonals[season];
+		}
+
+		public JsonObject toJson()
+		{
+			final JsonArrayBuilder array = Json.createArrayBuilder();
+			for (double value : seasonals)
+				array.add(value);
+
+			return Json.createObjectBuilder()
+					.add("level", level)
+					.add("trend", trend)
+					.add("last", last)
+					.add("count", count)
+					.add("seasonals", array)
+					.build();
+		}
+
+		public void fromJson(JsonObject json)
+		{
+			final JsonArray array = json.getJsonArray("seasonals");
+			for (int i = 0; i < seasonals.length; ++i)
+				seasonals[i] = array.getJsonNumber(i).doubleValue();
+
+			level = json.getJsonNumber("level").doubleValue();
+			trend = json.getJsonNumber("trend").doubleValue();
+			last = json.getJsonNumber("last").doubleValue();
+			count = json.getJsonNumber("count").longValue();
+		}
+	}
+}
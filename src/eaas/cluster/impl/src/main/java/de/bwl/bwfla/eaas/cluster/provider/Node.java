@@ -46,6 +46,9 @@ public class Node implements Comparable<Node>, IDumpable
 	/** Callback for receiving changes of node's used-state */
 	private BiConsumer<NodeID, Boolean> onUsedStateChangedCallback;
 	
+	/** Callback for receiving changes of node's health-state */
+	private volatile BiConsumer<NodeID, Boolean> onHealthStateChangedCallback;
+	
 	public Node(NodeID id, ResourceSpec capacity)
 	{
 		final long curtime = Node.nowms();
@@ -57,6 +60,7 @@ public class Node implements Comparable<Node>, IDumpable
 		this.unusedTimestamp = new AtomicLong(curtime);
 		this.bootTimestamp = curtime;
 		this.onUsedStateChangedCallback = null;
+		this.onHealthStateChangedCallback = null;
 	}
 	
 	public NodeID getId()
@@ -93,9 +97,13 @@ public class Node implements Comparable<Node>, IDumpable
 		return healthy.get();
 	}
 	
-	public void setHealthy(boolean healthy)
+	public void setHealthy(boolean newhealthy)
 	{
-		this.healthy.set(healthy);
+		if (healthy.getAndSet(newhealthy) == newhealthy)
+			return;  // State is unchanged!
+		
+		if (onHealthStateChangedCallback != null)
+			onHealthStateChangedCallback.accept(id, newhealthy);
 	}
 	
 	public boolean isUsed()
@@ -119,6 +127,11 @@ public class Node implements Comparable<Node>, IDumpable
 	{
 		this.onUsedStateChangedCallback = callback;
 	}
+	
+	public void setOnHealthStateChangedCallback(BiConsumer<NodeID, Boolean> callback)
+	{
+		this.onHealthStateChangedCallback = callback;
+	}
 
 	@Override
 	public int compareTo(Node other)
@@ -106,6 +106,11 @@ public class NodePool implements IDumpable
 		return true;
 	}
 	
+	public boolean hasNode(NodeID nid)
+	{
+		return registry.containsKey(nid);
+	}
+	
 	public void onNodeUsedStateChanged(NodeID nid, boolean used)
 	{
 		if (used) {
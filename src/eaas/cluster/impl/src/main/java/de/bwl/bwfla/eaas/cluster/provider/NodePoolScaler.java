@@ -42,6 +42,7 @@ public class NodePoolScaler
 	private final ResourceSpec maxPoolSize;
 	private final ResourceSpec maxScaleUpAdjustment;
 	private final ResourceSpec maxScaleDownAdjustment;
+	private final DemandForecaster forecaster;
 	
 	
 	public static NodePoolScaler create(HomogeneousNodePoolScalerConfig config, ResourceSpec nodeCapacity)
@@ -67,6 +68,7 @@ public class NodePoolScaler
 		this.maxPoolSize = maxPoolSize;
 		this.maxScaleUpAdjustment = maxScaleUpAdjustment;
 		this.maxScaleDownAdjustment = maxScaleDownAdjustment;
+		this.forecaster = (config.isPredictive()) ? new DemandForecaster(config) : null;
 	}
 	
 	public NodePoolScalerConfig getConfig()
@@ -74,6 +76,12 @@ public class NodePoolScaler
 		return config;
 	}
 
+	/** Returns the demand forecaster, or null in reactive mode */
+	public DemandForecaster getDemandForecaster()
+	{
+		return forecaster;
+	}
+
 	public boolean isMaxPoolSizeReached(NodePool pool)
 	{
 		final ResourceSpec capacity = pool.getCapacity();
@@ -81,6 +89,11 @@ public class NodePoolScaler
 	}
 	
 	public Action execute(NodePool pool, ResourceSpec missing, ResourceSpec requested, ResourceSpec used)
+	{
+		return this.execute(pool, missing, requested, used, ResourceProvider.getCurrentTime());
+	}
+
+	public Action execute(NodePool pool, ResourceSpec missing, ResourceSpec requested, ResourceSpec used, long curtime)
 	{
 		final ResourceSpec capacity = pool.getCapacity();
 		if (ResourceSpec.compare(used, capacity) > 0)
@@ -94,6 +107,23 @@ public class NodePoolScaler
 			goal = MutableResourceSpec.max(goal, spec);
 		}
 		
+		// Resources to keep, when scaling down
+		MutableResourceSpec keep = goal;
+
+		if (forecaster != null) {
+			// Learn the actual demand and pre-warm nodes for the expected one
+			forecaster.observe(curtime, MutableResourceSpec.add(used, missing));
+			final ResourceSpec expected = forecaster.forecast(curtime, config.getForecastLeadTime());
+			if (expected != null)
+				goal.max(expected);
+
+			// Scale down only when capacity exceeds the goal by the hysteresis margin
+			keep = new MutableResourceSpec(goal);
+			keep.scale(1.0F + config.getForecastHysteresis());
+			keep.max(minPoolSize);
+			keep.min(maxPoolSize);
+		}
+		
 		// Check poolsize bounds
 		goal.max(minPoolSize);
 		goal.min(maxPoolSize);
@@ -108,9 +138,9 @@ public class NodePoolScaler
 			spec = MutableResourceSpec.min(spec, maxScaleUpAdjustment);
 			action = (spec.isDefined()) ? new ScaleUpAction(spec) : NOOP_ACTION;
 		}
-		else if ((cmp > 0) && (pool.getNumUnusedNodes() > 0)) {
+		else if ((cmp > 0) && (ResourceSpec.compare(capacity, keep) > 0) && (pool.getNumUnusedNodes() > 0)) {
 			// Scale-down node pool by looking at currently unused nodes
-			MutableResourceSpec unused = MutableResourceSpec.fromDiff(capacity, goal);
+			MutableResourceSpec unused = MutableResourceSpec.fromDiff(capacity, keep);
 			unused = MutableResourceSpec.min(unused, maxScaleDownAdjustment);
 			
 			Stream<Node> nodes = pool.getUnusedNodes().stream();
@@ -19,6 +19,8 @@
 
 package de.bwl.bwfla.eaas.cluster.provider;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
@@ -26,6 +28,7 @@ import java.util.List;
 import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -60,6 +63,7 @@ import de.bwl.bwfla.eaas.cluster.exception.OutOfResourcesException;
 import de.bwl.bwfla.eaas.cluster.metadata.LabelSelector;
 import de.bwl.bwfla.eaas.cluster.metadata.LabelIndex;
 import de.bwl.bwfla.eaas.cluster.provider.allocation.IResourceAllocator;
+import de.bwl.bwfla.eaas.cluster.provider.allocation.PlacementPolicy;
 import de.bwl.bwfla.eaas.cluster.provider.allocation.ResourceAllocator;
 import de.bwl.bwfla.eaas.cluster.provider.iaas.INodeAllocator;
 import de.bwl.bwfla.eaas.cluster.provider.iaas.NodeAllocatorBLADES;
@@ -100,12 +104,22 @@ public class ResourceProvider implements IResourceProvider
 
 	private final AllocationRequestHistory history;
 	private final AllocationRequestQueue requests;
+	private final Consumer<NodeID> onNodeUnregisteredCallback;
+
+	/** Number of allocations submitted to the executor, but not processed yet */
+	private final AtomicInteger numQueuedAllocations;
 
 	private boolean isOneShotPoolScalingScheduled;
 	private boolean isShutdownRequested;
 	
 	
 	public ResourceProvider(ResourceProviderConfig config, ClusterManagerExecutors executors) throws Exception
+	{
+		this(config, executors, (nid) -> {});
+	}
+
+	public ResourceProvider(ResourceProviderConfig config, ClusterManagerExecutors executors,
+			Consumer<NodeID> onNodeUnregisteredCallback) throws Exception
 	{
 		final PrefixLoggerContext logContext = new PrefixLoggerContext()
 				.add("RP", config.getName());
@@ -116,14 +130,16 @@ public class ResourceProvider implements IResourceProvider
 		this.config = config;
 		this.scheduler = executors.scheduler();
 		this.executor = new SequentialExecutor(log, executors.computation(), 128);
-		this.resources = new ResourceAllocator(config.getName());
+		this.resources = new ResourceAllocator(config.getName(), PlacementPolicy.from(config.getPlacementPolicy()));
 		this.pool = new NodePool(config.hasHomogeneousNodes());
 		this.labels = new LabelIndex();
 		this.history = new AllocationRequestHistory(config.getRequestHistoryMaxNumRequests(), config.getRequestHistoryMaxRequestAge());
 		this.requests = new AllocationRequestQueue();
+		this.numQueuedAllocations = new AtomicInteger(0);
 		this.isOneShotPoolScalingScheduled = false;
 		this.isShutdownRequested = false;
 		this.ioExecutor = executors.io();
+		this.onNodeUnregisteredCallback = onNodeUnregisteredCallback;
 		
 		Consumer<NodeID> onDownCallback = (NodeID nid) -> {
 			// Task for unregistering the node from this provider
@@ -154,6 +170,9 @@ public class ResourceProvider implements IResourceProvider
 			throw new IllegalArgumentException("Invalid or unsupported NodeAllocator configured: " + clazz);
 		}
 		
+		// Restore the learned demand profile
+		this.loadDemandForecast();
+
 		// Build the label index
 		config.getLabels().forEach((label) -> labels.add(label));
 		
@@ -174,10 +193,6 @@ public class ResourceProvider implements IResourceProvider
 
 		Runnable task = () -> {
 			try {
-				// Update stats
-				metrics.requested();
-				history.add(spec);
-	
 				// Check request's deadline
 				if (ResourceProvider.isDeadlineExpired(deadline)) {
 					log.warning("Deadline expired for allocation " + allocationId + "! Aborting...");
@@ -214,6 +229,9 @@ public class ResourceProvider implements IResourceProvider
 				result.completeExceptionally(throwable);
 				metrics.failed();
 			}
+			finally {
+				numQueuedAllocations.decrementAndGet();
+			}
 		};
 		
 		// Log the processing time...
@@ -233,19 +251,29 @@ public class ResourceProvider implements IResourceProvider
 		}
 		
 		// Check, whether the request can be serviced at all
-		if (ResourceSpec.compare(spec, nodes.getNodeCapacity()) <= 0) {
-			// Yes, submit the request
-			this.submit(PRIORITY_ALLOCATE, task);
-		}
-		else {
+		if (ResourceSpec.compare(spec, nodes.getNodeCapacity()) > 0) {
 			final String message = "Requested resources can't be serviced by this provider!\n"
 					+ "        Requested resources: " + spec + "\n"
 					+ "        Node's capacity:     " + nodes.getNodeCapacity();
 			
 			log.warning(message);
 			result.cancel(false);
+			return result;
 		}
-		
+
+		// Update stats
+		metrics.requested();
+		history.add(spec);
+
+		// Fast path: allocate on the caller's thread, without queueing behind
+		// pool-scaling and node-management tasks. Skipped, when older requests
+		// are still queued or deferred, since they should be serviced first.
+		if (numQueuedAllocations.get() == 0 && requests.isEmpty() && this.tryAllocate(allocationId, spec, result))
+			return result;
+
+		// Slow path: defer the request, possibly scaling up the pool
+		numQueuedAllocations.incrementAndGet();
+		this.submit(PRIORITY_ALLOCATE, task);
 		return result;
 	}
 	
@@ -256,15 +284,22 @@ public class ResourceProvider implements IResourceProvider
 			throw new IllegalArgumentException();
 
 		CompletableFuture<ResourceSpec> result = new CompletableFuture<>();
-
-		Runnable task = () -> {
+		try {
+			// Releasing resources is a short operation, perform it directly!
 			result.complete(resources.release(handle));
 			log.info("Resources for allocation " + handle.getAllocationID() + " released");
 			log.info("Resources from " + resources.getNumAllocations() + " allocation(s) still reserved");
-			this.processDeferredAllocations();
-		};
-		
-		this.submit(PRIORITY_RELEASE, task);
+		}
+		catch (Throwable throwable) {
+			log.log(Level.WARNING, "Releasing allocation " + handle.getAllocationID() + " failed!\n", throwable);
+			result.completeExceptionally(throwable);
+			return result;
+		}
+
+		// Queued allocations could be deferred any time, hence check them first!
+		if (numQueuedAllocations.get() > 0 || !requests.isEmpty())
+			this.submit(PRIORITY_RELEASE, () -> this.processDeferredAllocations());
+
 		return result;
 	}
 	
@@ -354,6 +389,9 @@ public class ResourceProvider implements IResourceProvider
 		public int getNumRequestsDeferred();
 		public int getNumRequestsFailed();
 		public int getNumRequestsExpired();
+		public int getNumRequestsFastPath();
+		public long getAverageTaskQueueWaitTime(TimeUnit unit);
+		public long getAverageTaskServiceTime(TimeUnit unit);
 	}
 	
 	
@@ -469,12 +507,45 @@ public class ResourceProvider implements IResourceProvider
 	
 	private void submit(Runnable task)
 	{
-		executor.execute(PRIORITY_DEFAULT, task);
+		this.submit(PRIORITY_DEFAULT, task);
 	}
 	
 	private void submit(int priority, Runnable task)
 	{
-		executor.execute(priority, task);
+		final long timestamp = System.nanoTime();
+		final Runnable wrapper = () -> {
+			final long start = System.nanoTime();
+			metrics.queued(start - timestamp);
+			try {
+				task.run();
+			}
+			finally {
+				metrics.serviced(System.nanoTime() - start);
+			}
+		};
+
+		executor.execute(priority, wrapper);
+	}
+
+	private boolean tryAllocate(UUID allocationId, ResourceSpec spec, CompletableFuture<ResourceHandle> result)
+	{
+		final long start = System.nanoTime();
+		ResourceHandle handle = null;
+		try {
+			handle = resources.allocate(allocationId, spec);
+		}
+		catch (Throwable throwable) {
+			// Let the slow path handle the error
+			log.log(Level.WARNING, "Fast allocation " + allocationId + " failed!\n", throwable);
+		}
+
+		metrics.allocated(handle != null, System.nanoTime() - start);
+		if (handle == null)
+			return false;
+
+		log.info("Resources for " + allocationId + " allocated on node '" + handle.getNodeID() + "'");
+		result.complete(handle);
+		return true;
 	}
 	
 	private void schedulePoolScaling(boolean delayed, boolean oneshot)
@@ -571,6 +642,7 @@ public class ResourceProvider implements IResourceProvider
 		final ResourceSpec reqResources = ResourceProvider.toPreAllocationSpec(history.getResourceSum(), config);
 		
 		NodePoolScaler.Action action = poolscaler.execute(pool, missingResources, reqResources, usedResources);
+		this.saveDemandForecast();
 		if (action.getClass() == NodePoolScaler.ScaleUpAction.class) {
 			Consumer<NodeID> onAllocatedCallback = (NodeID nid) -> {
 				nid.setProtocol(config.getProtocol());
@@ -620,7 +692,7 @@ public class ResourceProvider implements IResourceProvider
 					processRunner.redirectStdErrToStdOut(false);
 					processRunner.setLogger(log);
 					try {
-						final ProcessRunner.Result result = processRunner.executeWithResult(true, true)
+						final ProcessRunner.Result result = processRunner.executeWithResult(true)
 								.orElse(null);
 
 						return (result != null && result.successful()) ? result.stdout() : null;
@@ -644,12 +716,56 @@ public class ResourceProvider implements IResourceProvider
 			
 			// Shutdown nodes!
 			for (NodeID nid : sda.getNodes()) {
+				// Nodes could have been used concurrently
+				if (!resources.unregisterUnusedNode(nid)) {
+					log.info("Node '" + nid + "' is used again, skipping shutdown");
+					continue;
+				}
+
 				this.unregisterNode(nid);
 				nodes.release(nid);
 			}
 		}
 	}
 	
+	private Path getDemandForecastPath()
+	{
+		final String statedir = poolscaler.getConfig().getForecastStateDir();
+		if (poolscaler.getDemandForecaster() == null || statedir == null)
+			return null;
+
+		return Paths.get(statedir, config.getName() + ".json");
+	}
+
+	private void loadDemandForecast()
+	{
+		final Path path = this.getDemandForecastPath();
+		if (path == null)
+			return;
+
+		try {
+			if (poolscaler.getDemandForecaster().load(path))
+				log.info("Demand forecast restored from '" + path + "'");
+		}
+		catch (Exception error) {
+			log.log(Level.WARNING, "Restoring demand forecast from '" + path + "' failed!", error);
+		}
+	}
+
+	private void saveDemandForecast()
+	{
+		final Path path = this.getDemandForecastPath();
+		if (path == null || !poolscaler.getDemandForecaster().isModified())
+			return;
+
+		try {
+			poolscaler.getDemandForecaster().save(path);
+		}
+		catch (Exception error) {
+			log.log(Level.WARNING, "Saving demand forecast to '" + path + "' failed!", error);
+		}
+	}
+
 	private String getNodePoolStateSummary()
 	{
 		final ResourceSpec usedResources = resources.getUsedResources();
@@ -719,7 +835,15 @@ public class ResourceProvider implements IResourceProvider
 	{
 		final BiConsumer<NodeID, Boolean> onUsedStateChangedCallback = (nid, used) -> {
 			log.info("Node '" + nid + "' is now " + ((used) ? "used" : "unused"));
-			pool.onNodeUsedStateChanged(nid, used);
+
+			// Allocations can run on any thread, but the pool
+			// must be updated on this provider's executor only!
+			final Runnable task = () -> {
+				if (pool.hasNode(nid))
+					pool.onNodeUsedStateChanged(nid, node.isUsed());
+			};
+
+			this.submit(PRIORITY_NODEMGMNT, task);
 		};
 		
 		node.setOnUsedStateChangedCallback(onUsedStateChangedCallback);
@@ -736,6 +860,7 @@ public class ResourceProvider implements IResourceProvider
 		pool.unregisterNode(nid);
 
 		ioExecutor.execute(() -> this.removeDnsRecord(nid));
+		ioExecutor.execute(() -> onNodeUnregisteredCallback.accept(nid));
 	}
 
 	private boolean isMaxPoolSizeReached()
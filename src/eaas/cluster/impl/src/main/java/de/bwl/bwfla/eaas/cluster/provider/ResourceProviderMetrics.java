@@ -19,6 +19,11 @@
 
 package de.bwl.bwfla.eaas.cluster.provider;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
 import javax.json.stream.JsonGenerator;
 
 import de.bwl.bwfla.eaas.cluster.dump.DumpConfig;
@@ -31,45 +36,84 @@ import de.bwl.bwfla.eaas.cluster.dump.ObjectDumper;
 
 class ResourceProviderMetrics implements ResourceProvider.Metrics, IDumpable
 {
-	private int numRequestsTotal;
-	private int numRequestsDeferred;
-	private int numRequestsFailed;
-	private int numRequestsExpired;
+	private final AtomicInteger numRequestsTotal;
+	private final AtomicInteger numRequestsDeferred;
+	private final AtomicInteger numRequestsFailed;
+	private final AtomicInteger numRequestsExpired;
+	private final AtomicInteger numRequestsFastPath;
+
+	/** Time allocations spent on the fast path */
+	private final TimeStats fastPathServiceTime;
+
+	/** Time tasks spent waiting in the provider's task queue */
+	private final TimeStats taskQueueWaitTime;
+
+	/** Time tasks spent executing on the provider's task queue */
+	private final TimeStats taskServiceTime;
 
 	public ResourceProviderMetrics()
 	{
-		this.numRequestsTotal = 0;
-		this.numRequestsDeferred = 0;
-		this.numRequestsFailed = 0;
-		this.numRequestsExpired = 0;
+		this.numRequestsTotal = new AtomicInteger(0);
+		this.numRequestsDeferred = new AtomicInteger(0);
+		this.numRequestsFailed = new AtomicInteger(0);
+		this.numRequestsExpired = new AtomicInteger(0);
+		this.numRequestsFastPath = new AtomicInteger(0);
+		this.fastPathServiceTime = new TimeStats();
+		this.taskQueueWaitTime = new TimeStats();
+		this.taskServiceTime = new TimeStats();
 	}
 
 	public void reset()
 	{
-		numRequestsTotal = 0;
-		numRequestsDeferred = 0;
-		numRequestsFailed = 0;
-		numRequestsExpired = 0;
+		numRequestsTotal.set(0);
+		numRequestsDeferred.set(0);
+		numRequestsFailed.set(0);
+		numRequestsExpired.set(0);
+		numRequestsFastPath.set(0);
+		fastPathServiceTime.reset();
+		taskQueueWaitTime.reset();
+		taskServiceTime.reset();
 	}
 
 	public void requested()
 	{
-		++numRequestsTotal;
+		numRequestsTotal.incrementAndGet();
 	}
 	
 	public void deferred()
 	{
-		++numRequestsDeferred;
+		numRequestsDeferred.incrementAndGet();
 	}
 
 	public void failed()
 	{
-		++numRequestsFailed;
+		numRequestsFailed.incrementAndGet();
 	}
 
 	public void expired()
 	{
-		++numRequestsExpired;
+		numRequestsExpired.incrementAndGet();
+	}
+
+	/** Record an allocation attempt on the fast path */
+	public void allocated(boolean successful, long durationInNanos)
+	{
+		if (successful)
+			numRequestsFastPath.incrementAndGet();
+
+		fastPathServiceTime.add(durationInNanos);
+	}
+
+	/** Record the time a task spent waiting in the queue */
+	public void queued(long durationInNanos)
+	{
+		taskQueueWaitTime.add(durationInNanos);
+	}
+
+	/** Record the time a task spent executing */
+	public void serviced(long durationInNanos)
+	{
+		taskServiceTime.add(durationInNanos);
 	}
 
 	@Override
@@ -94,6 +138,22 @@ class ResourceProviderMetrics implements ResourceProvider.Metrics, IDumpable
 				json.write(DumpFields.NUM_REQUESTS_FAILED, this.getNumRequestsFailed());
 			});
 
+			dumper.add(DumpFields.NUM_REQUESTS_FAST_PATH, () -> {
+				json.write(DumpFields.NUM_REQUESTS_FAST_PATH, this.getNumRequestsFastPath());
+			});
+
+			dumper.add(DumpFields.FAST_PATH_SERVICE_TIME, () -> {
+				fastPathServiceTime.dump(json, DumpFields.FAST_PATH_SERVICE_TIME);
+			});
+
+			dumper.add(DumpFields.TASK_QUEUE_WAIT_TIME, () -> {
+				taskQueueWaitTime.dump(json, DumpFields.TASK_QUEUE_WAIT_TIME);
+			});
+
+			dumper.add(DumpFields.TASK_SERVICE_TIME, () -> {
+				taskServiceTime.dump(json, DumpFields.TASK_SERVICE_TIME);
+			});
+
 			dumper.run();
 		});
 		
@@ -106,6 +166,10 @@ class ResourceProviderMetrics implements ResourceProvider.Metrics, IDumpable
 		private static final String NUM_REQUESTS_DEFERRED  = "num_requests_deferred";
 		private static final String NUM_REQUESTS_EXPIRED   = "num_requests_expired";
 		private static final String NUM_REQUESTS_FAILED    = "num_requests_failed";
+		private static final String NUM_REQUESTS_FAST_PATH = "num_requests_fast_path";
+		private static final String FAST_PATH_SERVICE_TIME = "fast_path_service_time";
+		private static final String TASK_QUEUE_WAIT_TIME   = "task_queue_wait_time";
+		private static final String TASK_SERVICE_TIME      = "task_service_time";
 	}
 
 
@@ -114,24 +178,87 @@ class ResourceProviderMetrics implements ResourceProvider.Metrics, IDumpable
 	@Override
 	public int getNumRequests()
 	{
-		return numRequestsTotal;
+		return numRequestsTotal.get();
 	}
 	
 	@Override
 	public int getNumRequestsDeferred()
 	{
-		return numRequestsDeferred;
+		return numRequestsDeferred.get();
 	}
 
 	@Override
 	public int getNumRequestsFailed()
 	{
-		return numRequestsFailed;
+		return numRequestsFailed.get();
 	}
 
 	@Override
 	public int getNumRequestsExpired()
 	{
-		return numRequestsExpired;
+		return numRequestsExpired.get();
+	}
+
+	@Override
+	public int getNumRequestsFastPath()
+	{
+		return numRequestsFastPath.get();
+	}
+
+	@Override
+	public long getAverageTaskQueueWaitTime(TimeUnit unit)
+	{
+		return unit.convert(taskQueueWaitTime.average(), TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public long getAverageTaskServiceTime(TimeUnit unit)
+	{
+		return unit.convert(taskServiceTime.average(), TimeUnit.NANOSECONDS);
+	}
+
+
+	/** Lock-free statistics for durations */
+	private static class TimeStats
+	{
+		private final LongAdder count;
+		private final LongAdder total;
+		private final AtomicLong max;
+
+		public TimeStats()
+		{
+			this.count = new LongAdder();
+			this.total = new LongAdder();
+			this.max = new AtomicLong(0L);
+		}
+
+		public void add(long duration)
+		{
+			count.increment();
+			total.add(duration);
+			max.accumulateAndGet(duration, Math::max);
+		}
+
+		public long average()
+		{
+			final long num = count.sum();
+			return (num > 0L) ? total.sum() / num : 0L;
+		}
+
+		public void reset()
+		{
+			count.reset();
+			total.reset();
+			max.set(0L);
+		}
+
+		public void dump(JsonGenerator json, String name)
+		{
+			json.writeStartObject(name);
+			json.write("count", count.sum());
+			json.write("avg_usecs", TimeUnit.NANOSECONDS.toMicros(this.average()));
+			json.write("max_usecs", TimeUnit.NANOSECONDS.toMicros(max.get()));
+			json.writeEnd();
+		}
 	}
 }
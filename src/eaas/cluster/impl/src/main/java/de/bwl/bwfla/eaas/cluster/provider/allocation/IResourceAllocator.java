@@ -35,6 +35,9 @@ public interface IResourceAllocator extends IDumpable, IDescribable<Collection<N
 {
 	public boolean registerNode(Node node);
 	public void unregisterNode(NodeID id);
+
+	/** Unregisters the node, only if it has no allocations. Returns false, if the node is in use. */
+	public boolean unregisterUnusedNode(NodeID id);
 	
 	public ResourceSpec getFreeResources();
 	public ResourceSpec getUsedResources();
@@ -61,6 +61,11 @@ class NodeInfo implements IDumpable, IDescribable<NodeDescription>
 		return node.getId();
 	}
 	
+	public Node getNode()
+	{
+		return node;
+	}
+	
 	public ResourceSpec getUsedResources()
 	{
 		return MutableResourceSpec.fromDiff(node.getCapacity(), freeResources);
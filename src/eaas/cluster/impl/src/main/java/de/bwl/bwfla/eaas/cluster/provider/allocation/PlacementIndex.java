@@ -0,0 +1,398 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.eaas.cluster.provider.allocation;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.json.stream.JsonGenerator;
+
+import de.bwl.bwfla.eaas.cluster.ResourceSpec;
+import de.bwl.bwfla.eaas.cluster.dump.DumpConfig;
+import de.bwl.bwfla.eaas.cluster.dump.DumpTrigger;
+import de.bwl.bwfla.eaas.cluster.dump.ObjectDumper;
+
+// package-private
+
+/**
+ * An index for healthy nodes, supporting 2-D dominance queries over node's free resources.
+ * <p/>
+ * Nodes are stored in a treap ordered by (cpu, memory), where every entry is augmented with
+ * the max. free memory of its subtree. This allows to find the first or last node with
+ * enough free CPU and memory in O(log n), without visiting nodes that can't fit the request.
+ * Unhealthy nodes are parked outside of the treap, until their health-state changes.
+ */
+class PlacementIndex implements IResourceIndex
+{
+	private final PlacementPolicy policy;
+	private final Map<NodeInfo, Entry> entries;
+	private final Set<NodeInfo> parked;
+	private final Random random;
+	private Entry root;
+	private long seqnum;
+
+	/** Last selected position, used by spread-policy */
+	private final Entry cursor;
+
+	
+	public PlacementIndex(PlacementPolicy policy)
+	{
+		if (policy == PlacementPolicy.FIRST_FIT)
+			throw new IllegalArgumentException("Unsupported placement policy: " + policy);
+
+		this.policy = policy;
+		this.entries = new HashMap<NodeInfo, Entry>();
+		this.parked = new LinkedHashSet<NodeInfo>();
+		this.random = new Random(0x5EED);
+		this.root = null;
+		this.seqnum = 0L;
+		this.cursor = new Entry(null, -1, -1, -1L, 0);
+	}
+
+	@Override
+	public void add(NodeInfo node)
+	{
+		this.remove(node);
+
+		if (!node.isHealthy()) {
+			parked.add(node);
+			return;
+		}
+
+		final ResourceSpec free = node.getFreeResources();
+		final Entry entry = new Entry(node, free.cpu(), free.memory(), ++seqnum, random.nextInt());
+		entries.put(node, entry);
+		root = PlacementIndex.insert(root, entry);
+	}
+
+	@Override
+	public boolean remove(NodeInfo node)
+	{
+		if (parked.remove(node))
+			return true;
+
+		final Entry entry = entries.remove(node);
+		if (entry == null)
+			return false;
+
+		root = PlacementIndex.remove(root, entry);
+		return true;
+	}
+
+	@Override
+	public void update(NodeInfo node)
+	{
+		final boolean indexed = entries.containsKey(node);
+		if (!indexed && !parked.contains(node))
+			return;  // Unknown node!
+
+		// Move node between treap and parked nodes, if needed
+		if (indexed != node.isHealthy())
+			this.add(node);
+	}
+
+	@Override
+	public NodeInfo find(ResourceSpec spec, boolean remove)
+	{
+		while (true) {
+			final Entry entry = this.select(spec.cpu(), spec.memory());
+			if (entry == null)
+				return null;  // No suitable node found!
+
+			final NodeInfo node = entry.node;
+			if (!node.isHealthy()) {
+				// Health-state changed without notification, park node!
+				this.add(node);
+				continue;
+			}
+
+			if (remove)
+				this.remove(node);
+
+			return node;
+		}
+	}
+
+	public int size()
+	{
+		return entries.size();
+	}
+
+	public int getNumParkedNodes()
+	{
+		return parked.size();
+	}
+
+	@Override
+	public void dump(JsonGenerator json, DumpConfig dconf, int flags)
+	{
+		final DumpTrigger trigger = new DumpTrigger(dconf);
+		trigger.setResourceDumpHandler(() -> {
+			final Consumer<Entry> entryDumpFunctor = (entry) -> {
+				json.writeStartObject();
+				json.write("node", entry.node.getNodeID().toString());
+				json.write("cpu", entry.cpu);
+				json.write("memory", entry.memory);
+				json.writeEnd();
+			};
+
+			final ObjectDumper dumper = new ObjectDumper(json, dconf, flags, this.getClass());
+			dumper.add("policy", () -> json.write("policy", policy.name()));
+			dumper.add("entries", () -> {
+				json.write("num_entries", entries.size());
+				json.writeStartArray("entries");
+				PlacementIndex.traverse(root, entryDumpFunctor);
+				json.writeEnd();
+			});
+
+			dumper.add("parked", () -> {
+				json.write("num_parked", parked.size());
+				json.writeStartArray("parked");
+				parked.forEach((node) -> json.write(node.getNodeID().toString()));
+				json.writeEnd();
+			});
+
+			dumper.run();
+		});
+
+		trigger.run();
+	}
+
+
+	/* ========== Internal Helpers ========== */
+
+	private Entry select(int cpu, int memory)
+	{
+		final Entry lower = new Entry(null, cpu, memory, Long.MIN_VALUE, 0);
+		switch (policy)
+		{
+			case BEST_FIT:
+				return PlacementIndex.first(root, lower, memory);
+
+			case WORST_FIT:
+				return PlacementIndex.last(root, lower, memory);
+
+			case SPREAD: {
+				// Continue after last selected position, wrapping around at the end
+				final Entry next = new Entry(null, cursor.cpu, cursor.memory, cursor.seqnum + 1L, 0);
+				final Entry start = (PlacementIndex.compare(next, lower) > 0) ? next : lower;
+				Entry entry = PlacementIndex.first(root, start, memory);
+				if (entry == null && start != lower)
+					entry = PlacementIndex.first(root, lower, memory);
+
+				if (entry != null)
+					cursor.set(entry);
+
+				return entry;
+			}
+
+			default:
+				throw new IllegalStateException("Unsupported placement policy: " + policy);
+		}
+	}
+
+	/** Find first entry >= lower, with at least given free memory */
+	private static Entry first(Entry node, Entry lower, int memory)
+	{
+		if (node == null || node.maxMemory < memory)
+			return null;
+
+		// Node and its left subtree are out of range?
+		if (PlacementIndex.compare(node, lower) < 0)
+			return PlacementIndex.first(node.right, lower, memory);
+
+		final Entry result = PlacementIndex.first(node.left, lower, memory);
+		if (result != null)
+			return result;
+
+		if (node.memory >= memory)
+			return node;
+
+		return PlacementIndex.first(node.right, lower, memory);
+	}
+
+	/** Find last entry >= lower, with at least given free memory */
+	private static Entry last(Entry node, Entry lower, int memory)
+	{
+		if (node == null || node.maxMemory < memory)
+			return null;
+
+		// Node and its left subtree are out of range?
+		if (PlacementIndex.compare(node, lower) < 0)
+			return PlacementIndex.last(node.right, lower, memory);
+
+		final Entry result = PlacementIndex.last(node.right, lower, memory);
+		if (result != null)
+			return result;
+
+		if (node.memory >= memory)
+			return node;
+
+		return PlacementIndex.last(node.left, lower, memory);
+	}
+
+	private static Entry insert(Entry node, Entry entry)
+	{
+		if (node == null)
+			return entry;
+
+		if (entry.priority > node.priority) {
+			final Entry[] parts = PlacementIndex.split(node, entry);
+			entry.left = parts[0];
+			entry.right = parts[1];
+			return entry.update();
+		}
+
+		if (PlacementIndex.compare(entry, node) < 0)
+			node.left = PlacementIndex.insert(node.left, entry);
+		else node.right = PlacementIndex.insert(node.right, entry);
+
+		return node.update();
+	}
+
+	private static Entry remove(Entry node, Entry entry)
+	{
+		if (node == null)
+			return null;
+
+		if (node == entry)
+			return PlacementIndex.merge(node.left, node.right);
+
+		if (PlacementIndex.compare(entry, node) < 0)
+			node.left = PlacementIndex.remove(node.left, entry);
+		else node.right = PlacementIndex.remove(node.right, entry);
+
+		return node.update();
+	}
+
+	/** Split subtree into entries < key and entries >= key */
+	private static Entry[] split(Entry node, Entry key)
+	{
+		if (node == null)
+			return new Entry[] { null, null };
+
+		if (PlacementIndex.compare(node, key) < 0) {
+			final Entry[] parts = PlacementIndex.split(node.right, key);
+			node.right = parts[0];
+			parts[0] = node.update();
+			return parts;
+		}
+		else {
+			final Entry[] parts = PlacementIndex.split(node.left, key);
+			node.left = parts[1];
+			parts[1] = node.update();
+			return parts;
+		}
+	}
+
+	/** Merge two subtrees, where all entries of left one are smaller */
+	private static Entry merge(Entry left, Entry right)
+	{
+		if (left == null)
+			return right;
+
+		if (right == null)
+			return left;
+
+		if (left.priority > right.priority) {
+			left.right = PlacementIndex.merge(left.right, right);
+			return left.update();
+		}
+		else {
+			right.left = PlacementIndex.merge(left, right.left);
+			return right.update();
+		}
+	}
+
+	private static void traverse(Entry node, Consumer<Entry> visitor)
+	{
+		if (node == null)
+			return;
+
+		PlacementIndex.traverse(node.left, visitor);
+		visitor.accept(node);
+		PlacementIndex.traverse(node.right, visitor);
+	}
+
+	private static int compare(Entry e1, Entry e2)
+	{
+		int result = Integer.compare(e1.cpu, e2.cpu);
+		if (result != 0)
+			return result;
+
+		result = Integer.compare(e1.memory, e2.memory);
+		if (result != 0)
+			return result;
+
+		return Long.compare(e1.seqnum, e2.seqnum);
+	}
+
+	private static class Entry
+	{
+		private final NodeInfo node;
+		private final int priority;
+		private int cpu;
+		private int memory;
+		private long seqnum;
+
+		/** Max. free memory in this subtree */
+		private int maxMemory;
+
+		private Entry left;
+		private Entry right;
+
+		public Entry(NodeInfo node, int cpu, int memory, long seqnum, int priority)
+		{
+			this.node = node;
+			this.priority = priority;
+			this.cpu = cpu;
+			this.memory = memory;
+			this.seqnum = seqnum;
+			this.maxMemory = memory;
+			this.left = null;
+			this.right = null;
+		}
+
+		public void set(Entry other)
+		{
+			this.cpu = other.cpu;
+			this.memory = other.memory;
+			this.seqnum = other.seqnum;
+		}
+
+		public Entry update()
+		{
+			int max = memory;
+			if (left != null)
+				max = Math.max(max, left.maxMemory);
+
+			if (right != null)
+				max = Math.max(max, right.maxMemory);
+
+			this.maxMemory = max;
+			return this;
+		}
+	}
+}
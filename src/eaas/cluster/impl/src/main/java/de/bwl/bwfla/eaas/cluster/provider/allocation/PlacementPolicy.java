@@ -0,0 +1,65 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.eaas.cluster.provider.allocation;
+
+import de.bwl.bwfla.eaas.cluster.config.ResourceProviderConfig;
+
+
+/** Supported policies for selecting one of multiple suitable nodes. */
+public enum PlacementPolicy
+{
+	/** Select the node with the tightest fit, comparing CPU first */
+	BEST_FIT,
+
+	/** Select the node with most free resources, comparing CPU first */
+	WORST_FIT,
+
+	/** Rotate through all suitable nodes */
+	SPREAD,
+
+	/** Select the first suitable node in key-order (legacy behaviour) */
+	FIRST_FIT;
+
+
+	public static PlacementPolicy from(String name)
+	{
+		if (name == null)
+			return BEST_FIT;
+
+		switch (name)
+		{
+			case ResourceProviderConfig.PLACEMENT_BEST_FIT:
+				return BEST_FIT;
+
+			case ResourceProviderConfig.PLACEMENT_WORST_FIT:
+				return WORST_FIT;
+
+			case ResourceProviderConfig.PLACEMENT_SPREAD:
+				return SPREAD;
+
+			case ResourceProviderConfig.PLACEMENT_FIRST_FIT:
+				return FIRST_FIT;
+
+			default:
+				throw new IllegalArgumentException("Unknown placement policy: " + name);
+		}
+	}
+}
@@ -22,7 +22,10 @@ package de.bwl.bwfla.eaas.cluster.provider.allocation;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import javax.json.stream.JsonGenerator;
@@ -42,21 +45,38 @@ import de.bwl.bwfla.eaas.cluster.provider.Node;
 import de.bwl.bwfla.eaas.cluster.rest.NodeDescription;
 
 
+/**
+ * Thread-safe allocator for node resources.
+ * <p>
+ * Provider-wide free resources are reserved optimistically via CAS, hence requests
+ * that can't be satisfied fail without locking. Node selection and index updates
+ * are short in-memory operations, performed while holding this allocator's lock.
+ */
 public class ResourceAllocator implements IResourceAllocator, IDumpable
 {
 	private final Map<NodeID, NodeInfo> nodes;
-	private final ResourceIndex index;
+	private final Queue<NodeID> healthChanges;
+	private final IResourceIndex index;
 	private final MutableResourceSpec capacity;
-	private final MutableResourceSpec available;
+
+	/** Free resources, packed as (cpu << 32 | memory) */
+	private final AtomicLong available;
+
 	private final String provider;
 	private int numAllocations;
 	
 	public ResourceAllocator(String providerName)
+	{
+		this(providerName, PlacementPolicy.BEST_FIT);
+	}
+	
+	public ResourceAllocator(String providerName, PlacementPolicy policy)
 	{
 		this.nodes = new HashMap<NodeID, NodeInfo>();
-		this.index = new ResourceIndex();
+		this.healthChanges = new ConcurrentLinkedQueue<NodeID>();
+		this.index = ResourceAllocator.newResourceIndex(policy);
 		this.capacity = new MutableResourceSpec();
-		this.available = new MutableResourceSpec();
+		this.available = new AtomicLong(0L);
 		this.provider = providerName;
 		this.numAllocations = 0;
 	}
@@ -65,7 +85,7 @@ public class ResourceAllocator implements IResourceAllocator, IDumpable
 	/* ========== IResourceAllocator Implementation ========== */
 	
 	@Override
-	public boolean registerNode(Node node)
+	public synchronized boolean registerNode(Node node)
 	{
 		if (node == null)
 			throw new IllegalArgumentException();
@@ -77,8 +97,9 @@ public class ResourceAllocator implements IResourceAllocator, IDumpable
 
 		// Register the new node
 		info = new NodeInfo(node);
+		node.setOnHealthStateChangedCallback((nid, healthy) -> healthChanges.add(nid));
 		capacity.add(node.getCapacity());
-		available.add(node.getCapacity());
+		this.free(node.getCapacity());
 		nodes.put(node.getId(), info);
 		index.add(info);
 
@@ -86,7 +107,7 @@ public class ResourceAllocator implements IResourceAllocator, IDumpable
 	}
 
 	@Override
-	public void unregisterNode(NodeID nodeid)
+	public synchronized void unregisterNode(NodeID nodeid)
 	{
 		if (nodeid == null)
 			throw new IllegalArgumentException();
@@ -96,28 +117,42 @@ public class ResourceAllocator implements IResourceAllocator, IDumpable
 		if (node == null)
 			return;  // No!
 
-		index.remove(node);
+		this.unregister(node);
+	}
 
-		// All node's resources are gone!
-		capacity.sub(node.getCapacity(), true);
-		available.sub(node.getCapacity(), true);
-		numAllocations -= node.getNumAllocations();
+	@Override
+	public synchronized boolean unregisterUnusedNode(NodeID nodeid)
+	{
+		if (nodeid == null)
+			throw new IllegalArgumentException();
+
+		NodeInfo node = nodes.get(nodeid);
+		if (node == null)
+			return true;  // Already unregistered!
+
+		// Node could have been used concurrently
+		if (node.getNumAllocations() > 0)
+			return false;
+
+		nodes.remove(nodeid);
+		this.unregister(node);
+		return true;
 	}
 
 	@Override
 	public ResourceSpec getFreeResources()
 	{
-		return available;
+		return ResourceAllocator.unpack(available.get());
 	}
 
 	@Override
-	public ResourceSpec getUsedResources()
+	public synchronized ResourceSpec getUsedResources()
 	{
-		return MutableResourceSpec.fromDiff(capacity, available);
+		return MutableResourceSpec.fromDiff(capacity, this.getFreeResources());
 	}
 
 	@Override
-	public int getNumAllocations()
+	public synchronized int getNumAllocations()
 	{
 		return numAllocations;
 	}
@@ -126,29 +161,41 @@ public class ResourceAllocator implements IResourceAllocator, IDumpable
 	public ResourceHandle allocate(UUID allocationId, ResourceSpec spec)
 	{
 		// Are enough free resources available?
-		if (!available.reserve(spec))
+		if (!this.reserve(spec))
 			return null;  // No!
-		
-		// Find a node with enough free resources...
-		NodeInfo node = index.find(spec, true);
-		if (node == null) {
-			available.free(spec);  // No node found, release already reserved resources!
-			throw new IllegalStateException("ResourceAllocator's ResourceIndex seems to be broken!");
-		}
 
-		// Perform the allocation
-		ResourceHandle handle = new ResourceHandle(provider, node.getNodeID(), allocationId);
-		node.addAllocation(new ResourceAllocation(handle, spec));
-		++numAllocations;
+		synchronized (this) {
+			// Apply pending changes of node's health-states
+			this.updateHealthStates();
 
-		// Re-add the modified node to the index
-		index.add(node);
-		
-		return handle;
+			// Find a node with enough free resources...
+			NodeInfo node = index.find(spec, true);
+			if (node == null) {
+				// No node found, release already reserved resources!
+				this.free(spec);
+
+				// Free resources can be fragmented across nodes, or only unhealthy
+				// nodes could fit this request. Anything else is an index failure!
+				if (this.isServiceable(spec))
+					throw new IllegalStateException("ResourceAllocator's resource-index seems to be broken!");
+
+				return null;
+			}
+
+			// Perform the allocation
+			ResourceHandle handle = new ResourceHandle(provider, node.getNodeID(), allocationId);
+			node.addAllocation(new ResourceAllocation(handle, spec));
+			++numAllocations;
+
+			// Re-add the modified node to the index
+			index.add(node);
+
+			return handle;
+		}
 	}
 
 	@Override
-	public ResourceSpec release(ResourceHandle handle)
+	public synchronized ResourceSpec release(ResourceHandle handle)
 	{
 		NodeInfo node = nodes.get(handle.getNodeID());
 		if (node == null)
@@ -163,7 +210,7 @@ public class ResourceAllocator implements IResourceAllocator, IDumpable
 		ResourceAllocation allocation = node.removeAllocation(handle);
 		if (allocation != null) {
 			spec = allocation.getResourceSpec();
-			available.free(spec);
+			this.free(spec);
 			--numAllocations;
 		}
 		
@@ -174,7 +221,7 @@ public class ResourceAllocator implements IResourceAllocator, IDumpable
 	}
 
 	@Override
-	public Collection<NodeDescription> describe(boolean detailed)
+	public synchronized Collection<NodeDescription> describe(boolean detailed)
 	{
 		return nodes.values()
 				.stream()
@@ -183,7 +230,7 @@ public class ResourceAllocator implements IResourceAllocator, IDumpable
 	}
 	
 	@Override
-	public void dump(JsonGenerator json, DumpConfig dconf, int flags)
+	public synchronized void dump(JsonGenerator json, DumpConfig dconf, int flags)
 	{
 		final DumpTrigger trigger = new DumpTrigger(dconf);
 		
@@ -262,6 +309,99 @@ public class ResourceAllocator implements IResourceAllocator, IDumpable
 		trigger.run();
 	}
 	
+	private void unregister(NodeInfo node)
+	{
+		index.remove(node);
+		node.getNode().setOnHealthStateChangedCallback(null);
+
+		// All node's resources are gone!
+		capacity.sub(node.getCapacity(), true);
+		this.sub(node.getFreeResources());
+		numAllocations -= node.getNumAllocations();
+	}
+
+	private boolean reserve(ResourceSpec spec)
+	{
+		while (true) {
+			final long curvalue = available.get();
+			final int cpu = ResourceAllocator.cpu(curvalue) - spec.cpu();
+			final int memory = ResourceAllocator.memory(curvalue) - spec.memory();
+			if (cpu < 0 || memory < 0)
+				return false;
+
+			if (available.compareAndSet(curvalue, ResourceAllocator.pack(cpu, memory)))
+				return true;
+		}
+	}
+
+	private void free(ResourceSpec spec)
+	{
+		available.getAndUpdate((curvalue) -> {
+			final int cpu = ResourceAllocator.cpu(curvalue) + spec.cpu();
+			final int memory = ResourceAllocator.memory(curvalue) + spec.memory();
+			return ResourceAllocator.pack(cpu, memory);
+		});
+	}
+
+	private void sub(ResourceSpec spec)
+	{
+		available.getAndUpdate((curvalue) -> {
+			final int cpu = Math.max(0, ResourceAllocator.cpu(curvalue) - spec.cpu());
+			final int memory = Math.max(0, ResourceAllocator.memory(curvalue) - spec.memory());
+			return ResourceAllocator.pack(cpu, memory);
+		});
+	}
+
+	private static long pack(int cpu, int memory)
+	{
+		return ((long) cpu << 32) | ((long) memory & 0xFFFFFFFFL);
+	}
+
+	private static int cpu(long value)
+	{
+		return (int) (value >>> 32);
+	}
+
+	private static int memory(long value)
+	{
+		return (int) value;
+	}
+
+	private static ResourceSpec unpack(long value)
+	{
+		return new MutableResourceSpec(ResourceAllocator.cpu(value), ResourceAllocator.memory(value));
+	}
+
+	/** Check, whether any healthy node has enough free resources for spec */
+	private boolean isServiceable(ResourceSpec spec)
+	{
+		for (NodeInfo node : nodes.values()) {
+			final ResourceSpec free = node.getFreeResources();
+			if (node.isHealthy() && spec.cpu() <= free.cpu() && spec.memory() <= free.memory())
+				return true;
+		}
+
+		return false;
+	}
+
+	private void updateHealthStates()
+	{
+		NodeID nid;
+		while ((nid = healthChanges.poll()) != null) {
+			final NodeInfo node = nodes.get(nid);
+			if (node != null)
+				index.update(node);
+		}
+	}
+	
+	private static IResourceIndex newResourceIndex(PlacementPolicy policy)
+	{
+		if (policy == PlacementPolicy.FIRST_FIT)
+			return new ResourceIndex();
+		
+		return new PlacementIndex(policy);
+	}
+	
 	private static class DumpFields
 	{
 		private static final String NUM_ALLOCATIONS  = "num_allocations";
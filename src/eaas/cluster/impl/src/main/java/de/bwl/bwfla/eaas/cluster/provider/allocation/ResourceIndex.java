@@ -32,13 +32,12 @@ import javax.json.stream.JsonGenerator;
 import de.bwl.bwfla.eaas.cluster.ResourceSpec;
 import de.bwl.bwfla.eaas.cluster.dump.DumpConfig;
 import de.bwl.bwfla.eaas.cluster.dump.DumpTrigger;
-import de.bwl.bwfla.eaas.cluster.dump.IDumpable;
 import de.bwl.bwfla.eaas.cluster.dump.ObjectDumper;
 
 // package-private
 
 /** An index for nodes, sorted by node's free resources. */
-class ResourceIndex implements IDumpable
+class ResourceIndex implements IResourceIndex
 {
 	private final NavigableMap<Long, HashSet<NodeInfo>> entries;
 
@@ -58,6 +57,7 @@ class ResourceIndex implements IDumpable
 		this.entries = new TreeMap<Long, HashSet<NodeInfo>>(ENTRIES_COMPARATOR);
 	}
 	
+	@Override
 	public void add(NodeInfo node)
 	{
 		final long key = ResourceIndex.toKey(node.getFreeResources());
@@ -70,19 +70,33 @@ class ResourceIndex implements IDumpable
 		nodes.add(node);
 	}
 	
+	@Override
 	public boolean remove(NodeInfo node)
 	{
 		final long key = ResourceIndex.toKey(node.getFreeResources());
 		return this.remove(key, node);
 	}
 
+	@Override
+	public void update(NodeInfo node)
+	{
+		// Empty! Node's health-state is checked in find()
+	}
+
 	/** Find a node with enough free resources */
+	@Override
 	public NodeInfo find(ResourceSpec spec, boolean remove)
 	{
 		Map.Entry<Long, HashSet<NodeInfo>> entry =
 				entries.ceilingEntry(ResourceIndex.toKey(spec));
 		
 		while (entry != null) {
+			// Entries with more CPU, but not enough memory can't be used!
+			if ((entry.getKey() & MEMORY_MASK) < spec.memory()) {
+				entry = entries.higherEntry(entry.getKey());
+				continue;
+			}
+
 			final HashSet<NodeInfo> nodes = entry.getValue();
 			final NodeInfo node = this.findHealthyNode(nodes);
 			if (node != null) {
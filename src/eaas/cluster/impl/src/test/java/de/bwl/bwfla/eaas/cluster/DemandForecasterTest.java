@@ -0,0 +1,187 @@
+package de.bwl.bwfla.eaas.cluster;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.bwl.bwfla.eaas.cluster.config.HeterogeneousNodePoolScalerConfig;
+import de.bwl.bwfla.eaas.cluster.config.NodePoolScalerConfig;
+import de.bwl.bwfla.eaas.cluster.provider.DemandForecaster;
+import de.bwl.bwfla.eaas.cluster.provider.Node;
+import de.bwl.bwfla.eaas.cluster.provider.NodePool;
+import de.bwl.bwfla.eaas.cluster.provider.NodePoolScaler;
+
+
+public class DemandForecasterTest extends BaseTest
+{
+	private static final long MINUTE = TimeUnit.MINUTES.toMillis(1L);
+	private static final long HOUR = TimeUnit.HOURS.toMillis(1L);
+	private static final long DAY = TimeUnit.DAYS.toMillis(1L);
+
+	private static final ResourceSpec LOW_DEMAND = new ResourceSpec(1000, 2000);
+	private static final ResourceSpec HIGH_DEMAND = new ResourceSpec(10000, 20000);
+
+	@Test
+	public void testUntrainedForecast()
+	{
+		this.info("Testing DemandForecaster's untrained state...");
+
+		final DemandForecaster forecaster = DemandForecasterTest.newForecaster();
+		Assert.assertNull(forecaster.forecast(0L, HOUR));
+
+		forecaster.observe(0L, LOW_DEMAND);
+		forecaster.observe(15L * MINUTE, LOW_DEMAND);
+		Assert.assertNull(forecaster.forecast(15L * MINUTE, HOUR));
+
+		// Until the first season is complete, the last peak should be used
+		forecaster.observe(30L * MINUTE, HIGH_DEMAND);
+		forecaster.observe(45L * MINUTE, LOW_DEMAND);
+		Assert.assertTrue(forecaster.isTrained());
+		Assert.assertEquals(0, ResourceSpec.compare(HIGH_DEMAND, forecaster.forecast(45L * MINUTE, HOUR)));
+	}
+
+	@Test
+	public void testSeasonalForecast()
+	{
+		this.info("Testing DemandForecaster's seasonal forecast...");
+
+		final DemandForecaster forecaster = DemandForecasterTest.newForecaster();
+		final long curtime = DemandForecasterTest.train(forecaster, 2L * DAY + 8L * HOUR + 30L * MINUTE);
+
+		// Demand ramp at 09:00 should be anticipated
+		final ResourceSpec morning = forecaster.forecast(curtime, HOUR);
+		Assert.assertTrue("Forecast: " + morning, morning.cpu() >= 9 * LOW_DEMAND.cpu());
+		Assert.assertTrue("Forecast: " + morning, morning.memory() >= 9 * LOW_DEMAND.memory());
+
+		// Demand drop at 17:00 should be anticipated too
+		final long evening = DemandForecasterTest.train(forecaster, curtime, 2L * DAY + 20L * HOUR);
+		final ResourceSpec night = forecaster.forecast(evening, 15L * MINUTE);
+		Assert.assertTrue("Forecast: " + night, night.cpu() <= 2 * LOW_DEMAND.cpu());
+		Assert.assertTrue("Forecast: " + night, night.memory() <= 2 * LOW_DEMAND.memory());
+	}
+
+	@Test
+	public void testSkippedIntervals()
+	{
+		this.info("Testing DemandForecaster's handling of skipped intervals...");
+
+		final DemandForecaster forecaster = DemandForecasterTest.newForecaster();
+		final long curtime = DemandForecasterTest.train(forecaster, 2L * DAY);
+		final long numIntervals = forecaster.getNumIntervals();
+
+		// Intervals without observations should be recorded as idle
+		Assert.assertTrue(forecaster.observe(curtime + 2L * HOUR, LOW_DEMAND));
+		Assert.assertEquals(numIntervals + 1L + 8L, forecaster.getNumIntervals());
+
+		// ...but never more than one season of them
+		Assert.assertTrue(forecaster.observe(curtime + 30L * DAY, LOW_DEMAND));
+		Assert.assertEquals(numIntervals + 9L + 1L + 96L, forecaster.getNumIntervals());
+	}
+
+	@Test
+	public void testPersistence() throws Exception
+	{
+		this.info("Testing DemandForecaster's persistence...");
+
+		final DemandForecaster forecaster = DemandForecasterTest.newForecaster();
+		final long curtime = DemandForecasterTest.train(forecaster, 2L * DAY);
+		Assert.assertTrue(forecaster.isModified());
+
+		final Path path = Files.createTempFile("forecast-", ".json");
+		try {
+			forecaster.save(path);
+			Assert.assertFalse(forecaster.isModified());
+
+			final DemandForecaster restored = DemandForecasterTest.newForecaster();
+			Assert.assertTrue(restored.load(path));
+			Assert.assertEquals(forecaster.getNumIntervals(), restored.getNumIntervals());
+			for (long horizon = MINUTE; horizon < DAY; horizon += HOUR) {
+				final ResourceSpec expected = forecaster.forecast(curtime + MINUTE, horizon);
+				final ResourceSpec actual = restored.forecast(curtime + MINUTE, horizon);
+				Assert.assertEquals(0, ResourceSpec.compare(expected, actual));
+			}
+
+			// State of differently configured forecasters should be ignored
+			final DemandForecaster other = new DemandForecaster(HOUR, DAY, 0.5, 0.1, 0.3);
+			Assert.assertFalse(other.load(path));
+		}
+		finally {
+			Files.deleteIfExists(path);
+		}
+	}
+
+	@Test
+	public void testPredictiveScaleUp()
+	{
+		this.info("Testing NodePoolScaler's predictive scale-up action...");
+
+		final NodePoolScaler reactive = NodePoolScaler.create(DemandForecasterTest.newConfig(NodePoolScalerConfig.MODE_REACTIVE));
+		final NodePoolScaler predictive = NodePoolScaler.create(DemandForecasterTest.newConfig(NodePoolScalerConfig.MODE_PREDICTIVE));
+		final NodePool pool = new NodePool(false);
+		pool.registerNode(new Node(new NodeID("node-1"), HIGH_DEMAND));
+
+		final ResourceSpec empty = new ResourceSpec();
+		final long endtime = 2L * DAY + 8L * HOUR + 30L * MINUTE;
+		for (long curtime = 0L; curtime < endtime; curtime += MINUTE)
+			predictive.execute(pool, empty, empty, DemandForecasterTest.demand(curtime), curtime);
+
+		pool.unregisterNode(new NodeID("node-1"));
+		pool.registerNode(new Node(new NodeID("node-2"), LOW_DEMAND));
+
+		// Only the predictive scaler should pre-warm nodes before the ramp
+		final NodePoolScaler.Action action = predictive.execute(pool, empty, empty, LOW_DEMAND, endtime);
+		Assert.assertTrue(action instanceof NodePoolScaler.ScaleUpAction);
+		Assert.assertFalse(reactive.execute(pool, empty, empty, LOW_DEMAND, endtime) instanceof NodePoolScaler.ScaleUpAction);
+	}
+
+
+	private static DemandForecaster newForecaster()
+	{
+		return new DemandForecaster(15L * MINUTE, DAY, 0.5, 0.1, 0.3);
+	}
+
+	private static ResourceSpec demand(long timestamp)
+	{
+		// Office-hours load pattern
+		final long hour = (timestamp % DAY) / HOUR;
+		return (hour >= 9L && hour < 17L) ? HIGH_DEMAND : LOW_DEMAND;
+	}
+
+	private static long train(DemandForecaster forecaster, long endtime)
+	{
+		return DemandForecasterTest.train(forecaster, 0L, endtime);
+	}
+
+	private static long train(DemandForecaster forecaster, long curtime, long endtime)
+	{
+		for (; curtime < endtime; curtime += MINUTE)
+			forecaster.observe(curtime, DemandForecasterTest.demand(curtime));
+
+		return curtime;
+	}
+
+	private static HeterogeneousNodePoolScalerConfig newConfig(String mode)
+	{
+		final HeterogeneousNodePoolScalerConfig config = new HeterogeneousNodePoolScalerConfig();
+		config.setMode(mode);
+		config.setPoolScalingInterval(MINUTE);
+		config.setMinPoolSize(new ResourceSpec());
+		config.setMaxPoolSize(ResourceSpec.create(10, HIGH_DEMAND));
+		config.setMaxPoolSizeScaleUpAdjustment(HIGH_DEMAND);
+		config.setMaxPoolSizeScaleDownAdjustment(HIGH_DEMAND);
+		config.setNodeWarmUpPeriod(0L);
+		config.setNodeCoolDownPeriod(0L);
+		config.setForecastInterval(15L, TimeUnit.MINUTES);
+		config.setForecastSeasonLength(24L, TimeUnit.HOURS);
+		config.setForecastLeadTime(1L, TimeUnit.HOURS);
+		config.setForecastLevelSmoothing(0.5F);
+		config.setForecastTrendSmoothing(0.1F);
+		config.setForecastSeasonalSmoothing(0.3F);
+		config.setForecastHysteresis(0.2F);
+		config.validate();
+		return config;
+	}
+}
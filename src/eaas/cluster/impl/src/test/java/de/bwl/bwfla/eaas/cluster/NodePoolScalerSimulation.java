@@ -0,0 +1,301 @@
+package de.bwl.bwfla.eaas.cluster;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import de.bwl.bwfla.eaas.cluster.config.HomogeneousNodePoolScalerConfig;
+import de.bwl.bwfla.eaas.cluster.config.NodePoolScalerConfig;
+import de.bwl.bwfla.eaas.cluster.provider.Node;
+import de.bwl.bwfla.eaas.cluster.provider.NodePool;
+import de.bwl.bwfla.eaas.cluster.provider.NodePoolScaler;
+
+
+/**
+ * Replays allocation request traces against the NodePoolScaler and reports
+ * the time requests had to wait for resources and the number of idle node-hours.
+ * <p>
+ * Usage: NodePoolScalerSimulation [trace.csv]
+ * <p>
+ * Each trace line is expected to be in the form: {@code <arrival secs>,<duration secs>,<cpu millicores>,<memory mb>}.
+ * Without a trace, a synthetic week of diurnal demand with random spikes is generated.
+ */
+public class NodePoolScalerSimulation
+{
+	private static final ResourceSpec NODE_CAPACITY = new ResourceSpec(4000, 16 * 1024);
+
+	private static final long STEP = TimeUnit.MINUTES.toMillis(1L);
+	private static final long NODE_BOOT_TIME = TimeUnit.MINUTES.toMillis(4L);
+	private static final long REQUEST_HISTORY_AGE = TimeUnit.MINUTES.toMillis(5L);
+	private static final float REQUEST_HISTORY_MULTIPLIER = 0.5F;
+
+	private static final String RESULT_FORMAT = "%-10s %8d requests | wait: avg %7.1f s, p95 %7.1f s, max %7.1f s"
+			+ " | %6.1f node-hours, %6.1f idle (%4.1f%%) | %5d scale-ups, %5d scale-downs\n";
+
+
+	public static void main(String[] args) throws Exception
+	{
+		final List<Request> trace = (args.length > 0) ? NodePoolScalerSimulation.load(args[0])
+				: NodePoolScalerSimulation.generate(7, 42L);
+
+		for (String mode : new String[] { NodePoolScalerConfig.MODE_REACTIVE, NodePoolScalerConfig.MODE_PREDICTIVE }) {
+			final Result result = NodePoolScalerSimulation.simulate(trace, mode);
+			result.print(mode);
+		}
+	}
+
+	public static Result simulate(List<Request> trace, String mode)
+	{
+		final NodePoolScaler scaler = NodePoolScaler.create(NodePoolScalerSimulation.newConfig(mode), NODE_CAPACITY);
+		final NodePool pool = new NodePool(true);
+		final Result result = new Result(trace.size());
+
+		final PriorityQueue<long[]> boots = new PriorityQueue<long[]>((a, b) -> Long.compare(a[0], b[0]));
+		final PriorityQueue<Request> running = new PriorityQueue<Request>((a, b) -> Long.compare(a.end, b.end));
+		final Deque<Request> waiting = new ArrayDeque<Request>();
+		final Deque<Request> history = new ArrayDeque<Request>();
+		final List<Node> nodes = new ArrayList<Node>();
+		final MutableResourceSpec used = new MutableResourceSpec();
+		final MutableResourceSpec missing = new MutableResourceSpec();
+		final MutableResourceSpec requested = new MutableResourceSpec();
+
+		final long endtime = trace.get(trace.size() - 1).arrival + STEP;
+		int next = 0;
+		int nodeid = 0;
+
+		for (long curtime = 0L; curtime < endtime || !running.isEmpty() || !waiting.isEmpty(); curtime += STEP) {
+			// Register all booted nodes
+			while (!boots.isEmpty() && boots.peek()[0] <= curtime) {
+				final long count = boots.poll()[1];
+				for (long i = 0; i < count; ++i) {
+					final Node node = new Node(new NodeID("node-" + (++nodeid)), NODE_CAPACITY);
+					node.setOnUsedStateChangedCallback(pool::onNodeUsedStateChanged);
+					pool.registerNode(node);
+					nodes.add(node);
+				}
+			}
+
+			// Release finished allocations
+			while (!running.isEmpty() && running.peek().end <= curtime)
+				used.sub(running.poll().spec);
+
+			// Enqueue new requests
+			for (; next < trace.size() && trace.get(next).arrival < curtime + STEP; ++next) {
+				final Request request = trace.get(next);
+				waiting.add(request);
+				history.add(request);
+				requested.add(request.spec);
+			}
+
+			while (!history.isEmpty() && history.peek().arrival + REQUEST_HISTORY_AGE <= curtime)
+				requested.sub(history.poll().spec);
+
+			// Serve waiting requests in FIFO order
+			while (!waiting.isEmpty()) {
+				final Request request = waiting.peek();
+				final MutableResourceSpec total = MutableResourceSpec.add(used, request.spec);
+				if (total.cpu() > pool.getCapacity().cpu() || total.memory() > pool.getCapacity().memory())
+					break;
+
+				final long start = Math.max(curtime, request.arrival);
+				result.waits[result.numServed++] = start - request.arrival;
+				request.end = start + request.duration;
+				running.add(request);
+				used.set(total);
+				waiting.poll();
+			}
+
+			missing.reset();
+			waiting.forEach((request) -> missing.add(request.spec));
+
+			// Mark nodes as used, assuming a perfect packing
+			nodes.removeIf((node) -> !pool.getAllNodes().contains(node));
+			final int numUsedNodes = NodePoolScalerSimulation.toNumNodes(used);
+			for (int i = 0; i < nodes.size(); ++i)
+				nodes.get(i).setUsed(i < numUsedNodes);
+
+			result.nodeTime += nodes.size() * STEP;
+			result.idleNodeTime += pool.getNumUnusedNodes() * STEP;
+
+			final ResourceSpec preallocation = ResourceSpec.create(REQUEST_HISTORY_MULTIPLIER, requested);
+			final NodePoolScaler.Action action = scaler.execute(pool, missing, preallocation, used, curtime);
+			if (action instanceof NodePoolScaler.ScaleUpAction) {
+				final ResourceSpec spec = ((NodePoolScaler.ScaleUpAction) action).getResourceSpec();
+				final int count = NodePoolScalerSimulation.toNumNodes(spec);
+				pool.addPendingResources(ResourceSpec.create(count, NODE_CAPACITY));
+				boots.add(new long[] { curtime + NODE_BOOT_TIME, count });
+				++result.numScaleUps;
+			}
+			else if (action instanceof NodePoolScaler.ScaleDownAction) {
+				((NodePoolScaler.ScaleDownAction) action).getNodes()
+						.forEach(pool::unregisterNode);
+
+				++result.numScaleDowns;
+			}
+		}
+
+		return result;
+	}
+
+	public static List<Request> load(String path) throws IOException
+	{
+		return Files.lines(Paths.get(path))
+				.map(String::trim)
+				.filter((line) -> !line.isEmpty() && !line.startsWith("#"))
+				.map((line) -> {
+					final String[] fields = line.split(",");
+					final long arrival = TimeUnit.SECONDS.toMillis(Long.parseLong(fields[0].trim()));
+					final long duration = TimeUnit.SECONDS.toMillis(Long.parseLong(fields[1].trim()));
+					final int cpu = Integer.parseInt(fields[2].trim());
+					final int memory = Integer.parseInt(fields[3].trim());
+					return new Request(arrival, duration, new ResourceSpec(cpu, memory));
+				})
+				.sorted((r1, r2) -> Long.compare(r1.arrival, r2.arrival))
+				.collect(Collectors.toList());
+	}
+
+	public static List<Request> generate(int numDays, long seed)
+	{
+		final Random random = new Random(seed);
+		final List<Request> trace = new ArrayList<Request>();
+		final long day = TimeUnit.DAYS.toMillis(1L);
+		final long end = numDays * day;
+
+		for (long curtime = 0L; curtime < end; curtime += STEP) {
+			// Office-hours demand, peaking at midday, plus occasional spikes
+			final double hour = (double) (curtime % day) / TimeUnit.HOURS.toMillis(1L);
+			double rate = 0.2 + ((hour >= 8.0 && hour < 18.0) ? 6.0 * Math.sin(Math.PI * (hour - 8.0) / 10.0) : 0.0);
+			if (random.nextInt(2000) == 0)
+				rate += 30.0;
+
+			final int count = NodePoolScalerSimulation.poisson(random, rate);
+			for (int i = 0; i < count; ++i) {
+				final long arrival = curtime + (long) random.nextInt((int) STEP);
+				final long duration = TimeUnit.MINUTES.toMillis(5L + random.nextInt(40));
+				final ResourceSpec spec = new ResourceSpec(500 * (1 + random.nextInt(4)), 1024 * (1 + random.nextInt(4)));
+				trace.add(new Request(arrival, duration, spec));
+			}
+		}
+
+		trace.sort((r1, r2) -> Long.compare(r1.arrival, r2.arrival));
+		return trace;
+	}
+
+
+	public static class Request
+	{
+		private final long arrival;
+		private final long duration;
+		private final ResourceSpec spec;
+		private long end;
+
+		public Request(long arrival, long duration, ResourceSpec spec)
+		{
+			this.arrival = arrival;
+			this.duration = duration;
+			this.spec = spec;
+		}
+	}
+
+	public static class Result
+	{
+		private final long[] waits;
+		private int numServed;
+		private long nodeTime;
+		private long idleNodeTime;
+		private int numScaleUps;
+		private int numScaleDowns;
+
+		public Result(int numRequests)
+		{
+			this.waits = new long[numRequests];
+		}
+
+		public double getAverageWaitTime()
+		{
+			return Arrays.stream(waits, 0, numServed).average().orElse(0.0);
+		}
+
+		public long getWaitTimePercentile(double percentile)
+		{
+			final long[] sorted = Arrays.copyOf(waits, numServed);
+			Arrays.sort(sorted);
+			return (numServed > 0) ? sorted[(int) Math.min(numServed - 1, percentile * numServed)] : 0L;
+		}
+
+		public double getNodeHours()
+		{
+			return NodePoolScalerSimulation.toHours(nodeTime);
+		}
+
+		public double getIdleNodeHours()
+		{
+			return NodePoolScalerSimulation.toHours(idleNodeTime);
+		}
+
+		public void print(String mode)
+		{
+			final double idleRatio = (nodeTime > 0L) ? 100.0 * idleNodeTime / nodeTime : 0.0;
+			System.out.printf(RESULT_FORMAT, mode, numServed, this.getAverageWaitTime() / 1000.0,
+					this.getWaitTimePercentile(0.95) / 1000.0, this.getWaitTimePercentile(1.0) / 1000.0,
+					this.getNodeHours(), this.getIdleNodeHours(), idleRatio, numScaleUps, numScaleDowns);
+		}
+	}
+
+
+	private static HomogeneousNodePoolScalerConfig newConfig(String mode)
+	{
+		final HomogeneousNodePoolScalerConfig config = new HomogeneousNodePoolScalerConfig();
+		config.setMode(mode);
+		config.setPoolScalingInterval(STEP);
+		config.setMinPoolSize(0);
+		config.setMaxPoolSize(500);
+		config.setMaxPoolSizeScaleUpAdjustment(20);
+		config.setMaxPoolSizeScaleDownAdjustment(20);
+		config.setNodeWarmUpPeriod(0L);
+		config.setNodeCoolDownPeriod(0L);
+		config.setForecastInterval(15L, TimeUnit.MINUTES);
+		config.setForecastSeasonLength(24L, TimeUnit.HOURS);
+		config.setForecastLeadTime(NODE_BOOT_TIME + STEP);
+		config.setForecastLevelSmoothing(0.5F);
+		config.setForecastTrendSmoothing(0.1F);
+		config.setForecastSeasonalSmoothing(0.3F);
+		config.setForecastHysteresis(0.2F);
+		config.validate();
+		return config;
+	}
+
+	private static int toNumNodes(ResourceSpec spec)
+	{
+		final int cpu = (spec.cpu() + NODE_CAPACITY.cpu() - 1) / NODE_CAPACITY.cpu();
+		final int memory = (spec.memory() + NODE_CAPACITY.memory() - 1) / NODE_CAPACITY.memory();
+		return Math.max(cpu, memory);
+	}
+
+	private static double toHours(long duration)
+	{
+		return (double) duration / TimeUnit.HOURS.toMillis(1L);
+	}
+
+	private static int poisson(Random random, double lambda)
+	{
+		final double limit = Math.exp(-lambda);
+		double product = random.nextDouble();
+		int count = 0;
+		while (product > limit) {
+			product *= random.nextDouble();
+			++count;
+		}
+
+		return count;
+	}
+}
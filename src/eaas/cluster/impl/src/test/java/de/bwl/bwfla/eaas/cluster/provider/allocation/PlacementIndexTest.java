@@ -0,0 +1,147 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.bwl.bwfla.eaas.cluster.provider.allocation;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.bwl.bwfla.eaas.cluster.BaseTest;
+import de.bwl.bwfla.eaas.cluster.MutableResourceSpec;
+import de.bwl.bwfla.eaas.cluster.NodeID;
+import de.bwl.bwfla.eaas.cluster.ResourceSpec;
+import de.bwl.bwfla.eaas.cluster.provider.Node;
+
+
+public class PlacementIndexTest extends BaseTest
+{
+	@Test
+	public void testDominance()
+	{
+		this.info("Testing PlacementIndex's dominance lookup...");
+
+		final NodeInfo cpuRichNode = PlacementIndexTest.newNode("node-1", 4000, 1000);
+		final NodeInfo memRichNode = PlacementIndexTest.newNode("node-2", 2000, 8000);
+		final ResourceSpec spec = new MutableResourceSpec(1000, 4000);
+
+		for (PlacementPolicy policy : PlacementPolicy.values()) {
+			final IResourceIndex index = PlacementIndexTest.newIndex(policy);
+			index.add(cpuRichNode);
+			index.add(memRichNode);
+
+			Assert.assertSame(policy.name(), memRichNode, index.find(spec, false));
+			Assert.assertNull(policy.name(), index.find(new MutableResourceSpec(3000, 4000), false));
+		}
+	}
+
+	@Test
+	public void testBestAndWorstFit()
+	{
+		this.info("Testing PlacementIndex's best-fit and worst-fit policies...");
+
+		final NodeInfo small = PlacementIndexTest.newNode("node-1", 1000, 4000);
+		final NodeInfo medium = PlacementIndexTest.newNode("node-2", 2000, 4000);
+		final NodeInfo large = PlacementIndexTest.newNode("node-3", 4000, 4000);
+		final ResourceSpec spec = new MutableResourceSpec(500, 1000);
+
+		final PlacementIndex bestfit = new PlacementIndex(PlacementPolicy.BEST_FIT);
+		final PlacementIndex worstfit = new PlacementIndex(PlacementPolicy.WORST_FIT);
+		for (PlacementIndex index : new PlacementIndex[] { bestfit, worstfit }) {
+			index.add(medium);
+			index.add(large);
+			index.add(small);
+		}
+
+		Assert.assertSame(small, bestfit.find(spec, false));
+		Assert.assertSame(large, worstfit.find(spec, false));
+		Assert.assertSame(medium, bestfit.find(new MutableResourceSpec(1500, 1000), false));
+
+		// Found nodes should be removed on request
+		Assert.assertSame(small, bestfit.find(spec, true));
+		Assert.assertSame(medium, bestfit.find(spec, true));
+		Assert.assertEquals(1, bestfit.size());
+	}
+
+	@Test
+	public void testUnhealthyNodes()
+	{
+		this.info("Testing PlacementIndex's handling of unhealthy nodes...");
+
+		final NodeInfo node1 = PlacementIndexTest.newNode("node-1", 1000, 1000);
+		final NodeInfo node2 = PlacementIndexTest.newNode("node-2", 2000, 2000);
+		final ResourceSpec spec = new MutableResourceSpec(500, 500);
+
+		final PlacementIndex index = new PlacementIndex(PlacementPolicy.BEST_FIT);
+		index.add(node1);
+		index.add(node2);
+
+		// Unnoticed health changes should be detected by find()
+		node1.getNode().setHealthy(false);
+		Assert.assertSame(node2, index.find(spec, false));
+		Assert.assertEquals(1, index.getNumParkedNodes());
+
+		// Recovered nodes should be found again after an update
+		node1.getNode().setHealthy(true);
+		index.update(node1);
+		Assert.assertSame(node1, index.find(spec, false));
+		Assert.assertEquals(0, index.getNumParkedNodes());
+
+		// Parked nodes should be removable too
+		node2.getNode().setHealthy(false);
+		index.update(node2);
+		Assert.assertTrue(index.remove(node2));
+		Assert.assertEquals(0, index.getNumParkedNodes());
+		Assert.assertEquals(1, index.size());
+	}
+
+	@Test
+	public void testSpread()
+	{
+		this.info("Testing PlacementIndex's spread policy...");
+
+		final PlacementIndex index = new PlacementIndex(PlacementPolicy.SPREAD);
+		for (int i = 0; i < 3; ++i)
+			index.add(PlacementIndexTest.newNode("node-" + i, 1000, 1000));
+
+		final ResourceSpec spec = new MutableResourceSpec(100, 100);
+		final Set<NodeInfo> selected = new HashSet<NodeInfo>();
+		for (int i = 0; i < 3; ++i)
+			selected.add(index.find(spec, false));
+
+		Assert.assertEquals(3, selected.size());
+	}
+
+
+	private static IResourceIndex newIndex(PlacementPolicy policy)
+	{
+		if (policy == PlacementPolicy.FIRST_FIT)
+			return new ResourceIndex();
+
+		return new PlacementIndex(policy);
+	}
+
+	private static NodeInfo newNode(String id, int cpu, int memory)
+	{
+		final ResourceSpec capacity = new MutableResourceSpec(cpu, memory);
+		return new NodeInfo(new Node(new NodeID(id), capacity));
+	}
+}
@@ -0,0 +1,129 @@
+package de.bwl.bwfla.eaas.cluster.provider.allocation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.bwl.bwfla.eaas.cluster.BaseTest;
+import de.bwl.bwfla.eaas.cluster.MutableResourceSpec;
+import de.bwl.bwfla.eaas.cluster.NodeID;
+import de.bwl.bwfla.eaas.cluster.ResourceHandle;
+import de.bwl.bwfla.eaas.cluster.ResourceSpec;
+import de.bwl.bwfla.eaas.cluster.provider.Node;
+
+
+public class ResourceAllocatorTest extends BaseTest
+{
+	private static final ResourceSpec NODE_CAPACITY = new MutableResourceSpec(4000, 16000);
+
+	@Test
+	public void testConcurrentAllocations() throws Exception
+	{
+		this.info("Testing ResourceAllocator's concurrent allocations...");
+
+		final int numNodes = 16;
+		final int numThreads = 8;
+		final int numIterations = 10000;
+
+		final ResourceAllocator allocator = new ResourceAllocator("test");
+		for (int i = 0; i < numNodes; ++i)
+			allocator.registerNode(new Node(new NodeID("node-" + i), NODE_CAPACITY));
+
+		final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			final List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int t = 0; t < numThreads; ++t) {
+				final Runnable task = () -> {
+					final ThreadLocalRandom random = ThreadLocalRandom.current();
+					final List<ResourceHandle> handles = new ArrayList<ResourceHandle>();
+					for (int i = 0; i < numIterations; ++i) {
+						if (handles.isEmpty() || random.nextBoolean()) {
+							final ResourceSpec spec = new MutableResourceSpec(250 * (1 + random.nextInt(4)), 1000 * (1 + random.nextInt(4)));
+							final ResourceHandle handle = allocator.allocate(UUID.randomUUID(), spec);
+							if (handle != null)
+								handles.add(handle);
+						}
+						else {
+							final ResourceHandle handle = handles.remove(random.nextInt(handles.size()));
+							Assert.assertNotNull(allocator.release(handle));
+						}
+
+						// Free resources should never be overcommitted
+						final ResourceSpec free = allocator.getFreeResources();
+						Assert.assertTrue(free.cpu() >= 0 && free.memory() >= 0);
+					}
+
+					handles.forEach((handle) -> Assert.assertNotNull(allocator.release(handle)));
+				};
+
+				futures.add(executor.submit(task));
+			}
+
+			for (Future<?> future : futures)
+				future.get();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		final ResourceSpec expected = ResourceSpec.create(numNodes, NODE_CAPACITY);
+		Assert.assertEquals(0, allocator.getNumAllocations());
+		Assert.assertEquals(0, ResourceSpec.compare(expected, allocator.getFreeResources()));
+		Assert.assertFalse(allocator.getUsedResources().isDefined());
+	}
+
+	@Test
+	public void testFragmentedResources()
+	{
+		this.info("Testing ResourceAllocator's allocations with fragmented resources...");
+
+		final ResourceAllocator allocator = new ResourceAllocator("test");
+		allocator.registerNode(new Node(new NodeID("node-1"), NODE_CAPACITY));
+		allocator.registerNode(new Node(new NodeID("node-2"), NODE_CAPACITY));
+
+		final ResourceSpec used = new MutableResourceSpec(3000, 1000);
+		Assert.assertNotNull(allocator.allocate(UUID.randomUUID(), used));
+		Assert.assertNotNull(allocator.allocate(UUID.randomUUID(), used));
+
+		// Enough free resources in total, but no single node can fit them
+		final ResourceSpec free = allocator.getFreeResources();
+		Assert.assertNull(allocator.allocate(UUID.randomUUID(), new MutableResourceSpec(1500, 1000)));
+		Assert.assertEquals(0, ResourceSpec.compare(free, allocator.getFreeResources()));
+		Assert.assertEquals(2, allocator.getNumAllocations());
+	}
+
+	@Test
+	public void testUnregisterUnusedNode()
+	{
+		this.info("Testing ResourceAllocator's conditional node unregistration...");
+
+		final ResourceAllocator allocator = new ResourceAllocator("test");
+		final Node node1 = new Node(new NodeID("node-1"), NODE_CAPACITY);
+		final Node node2 = new Node(new NodeID("node-2"), NODE_CAPACITY);
+		allocator.registerNode(node1);
+		allocator.registerNode(node2);
+
+		final ResourceSpec spec = new MutableResourceSpec(1000, 1000);
+		final ResourceHandle handle = allocator.allocate(UUID.randomUUID(), spec);
+		Assert.assertNotNull(handle);
+
+		final NodeID used = handle.getNodeID();
+		final NodeID unused = (used.equals(node1.getId())) ? node2.getId() : node1.getId();
+		Assert.assertFalse(allocator.unregisterUnusedNode(used));
+		Assert.assertTrue(allocator.unregisterUnusedNode(unused));
+		Assert.assertEquals(0, ResourceSpec.compare(MutableResourceSpec.sub(NODE_CAPACITY, spec), allocator.getFreeResources()));
+
+		// Unregistering a used node should drop its allocations too
+		allocator.unregisterNode(used);
+		Assert.assertEquals(0, allocator.getNumAllocations());
+		Assert.assertFalse(allocator.getFreeResources().isDefined());
+		Assert.assertFalse(allocator.getUsedResources().isDefined());
+	}
+}
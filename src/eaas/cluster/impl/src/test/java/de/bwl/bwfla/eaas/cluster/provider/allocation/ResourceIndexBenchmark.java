@@ -0,0 +1,120 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.bwl.bwfla.eaas.cluster.provider.allocation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import de.bwl.bwfla.eaas.cluster.MutableResourceSpec;
+import de.bwl.bwfla.eaas.cluster.NodeID;
+import de.bwl.bwfla.eaas.cluster.ResourceHandle;
+import de.bwl.bwfla.eaas.cluster.ResourceSpec;
+import de.bwl.bwfla.eaas.cluster.provider.Node;
+
+
+/** Compares allocation throughput of the legacy ResourceIndex and the PlacementIndex. */
+public class ResourceIndexBenchmark
+{
+	private static final int[] NUM_NODES = { 1000, 2500, 5000, 10000 };
+	private static final float UNHEALTHY_NODE_RATIO = 0.25F;
+	private static final int NUM_WARMUP_ITERATIONS = 20000;
+	private static final int NUM_ITERATIONS = 200000;
+
+	private static final String RESULT_FORMAT = "%-10s %6d nodes: %8.1f ns/op, %6.2f%% failed\n";
+
+
+	public static void main(String[] args)
+	{
+		for (int numNodes : NUM_NODES) {
+			for (PlacementPolicy policy : PlacementPolicy.values()) {
+				ResourceIndexBenchmark.run(policy, numNodes, NUM_WARMUP_ITERATIONS, false);
+				ResourceIndexBenchmark.run(policy, numNodes, NUM_ITERATIONS, true);
+			}
+
+			System.out.println();
+		}
+	}
+
+	private static void run(PlacementPolicy policy, int numNodes, int numIterations, boolean print)
+	{
+		final Random random = new Random(42L);
+		final IResourceIndex index = (policy == PlacementPolicy.FIRST_FIT) ?
+				new ResourceIndex() : new PlacementIndex(policy);
+
+		// Heterogeneous nodes, some of them unhealthy
+		final Map<NodeID, NodeInfo> nodes = new HashMap<NodeID, NodeInfo>();
+		for (int i = 0; i < numNodes; ++i) {
+			final int cpu = (1 + random.nextInt(32)) * 1000;
+			final int memory = (1 + random.nextInt(128)) * 1024;
+			final Node node = new Node(new NodeID("node-" + i), new MutableResourceSpec(cpu, memory));
+			node.setHealthy(random.nextFloat() >= UNHEALTHY_NODE_RATIO);
+
+			final NodeInfo info = new NodeInfo(node);
+			nodes.put(info.getNodeID(), info);
+			index.add(info);
+		}
+
+		final List<ResourceAllocation> allocations = new ArrayList<ResourceAllocation>();
+		int numFailures = 0;
+
+		final long start = System.nanoTime();
+		for (int i = 0; i < numIterations; ++i) {
+			if (allocations.isEmpty() || random.nextInt(100) < 55) {
+				// Allocate...
+				final ResourceSpec spec = new MutableResourceSpec(250 * (1 + random.nextInt(8)), 512 * (1 + random.nextInt(16)));
+				final NodeInfo node = index.find(spec, true);
+				if (node == null) {
+					++numFailures;
+					continue;
+				}
+
+				final UUID aid = new UUID(0L, i);
+				final ResourceAllocation allocation = new ResourceAllocation(new ResourceHandle("bench", node.getNodeID(), aid), spec);
+				node.addAllocation(allocation);
+				allocations.add(allocation);
+				index.add(node);
+			}
+			else {
+				// Release...
+				final int last = allocations.size() - 1;
+				final int position = random.nextInt(allocations.size());
+				final ResourceAllocation allocation = allocations.get(position);
+				allocations.set(position, allocations.get(last));
+				allocations.remove(last);
+
+				final NodeInfo node = nodes.get(allocation.getHandle().getNodeID());
+				index.remove(node);
+				node.removeAllocation(allocation.getHandle());
+				index.add(node);
+			}
+		}
+
+		final long duration = System.nanoTime() - start;
+		if (print) {
+			final double nsPerOp = (double) duration / (double) numIterations;
+			final double failed = 100.0 * numFailures / numIterations;
+			System.out.printf(RESULT_FORMAT, policy.name(), numNodes, nsPerOp, failed);
+		}
+	}
+}
@@ -7,6 +7,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import de.bwl.bwfla.common.services.net.HttpUtils;
+import de.bwl.bwfla.common.utils.ImageFormatProbe;
 import de.bwl.bwfla.common.utils.ImageInformation;
 
 import de.bwl.bwfla.common.exceptions.BWFLAException;
@@ -164,6 +165,8 @@ public class EmulatorUtils {
 		if (!process.execute()) {
 			throw new BWFLAException("qemu-img rebase " + image.toString() + " failed");
 		}
+
+		ImageFormatProbe.invalidate(image.toString());
 	}
 
 	public static void convertImage(Path inFile, Path outFile, ImageInformation.QemuImageFormat fmt, Logger log) throws BWFLAException {
@@ -27,6 +27,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import javax.enterprise.concurrent.ManagedScheduledExecutorService;
 import javax.enterprise.concurrent.ManagedThreadFactory;
@@ -45,6 +46,7 @@ import de.bwl.bwfla.common.exceptions.BWFLAException;
 import de.bwl.bwfla.common.logging.PrefixLogger;
 import de.bwl.bwfla.emucomp.components.AbstractEaasComponent;
 import de.bwl.bwfla.emucomp.components.emulators.EmulatorBean;
+import de.bwl.bwfla.emucomp.components.emulators.IpcSocketPoller;
 import de.bwl.bwfla.emucomp.components.network.NetworkSwitchBean;
 import de.bwl.bwfla.emucomp.components.network.VdeSlirpBean;
 
@@ -75,8 +77,12 @@ public class NodeManager {
     private final AtomicBoolean isGcTriggered = new AtomicBoolean(false);
     
     
-    // TODO: does it make sense to do something for @PreDestroy?
-    
+    @PreDestroy
+    protected void destroy()
+    {
+        // Stop the shared poller of websocket proxies
+        IpcSocketPoller.shutdown();
+    }
 
     public ManagedThreadFactory getWorkerThreadFactory()
     {
@@ -31,10 +31,13 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -48,6 +51,8 @@ public class BindingsManager
 	private final Map<String, Binding> bindings;
 	private final Map<String, String> paths;
 	private final ImageMounter imageMounter;
+	private final ImageCache imageCache;
+	private final List<ImageCache.Lease> leases;
 
 	private static final ObjectArchiveHelper objectArchiveHelper;
 	static {
@@ -85,6 +90,8 @@ public class BindingsManager
 		this.paths = new LinkedHashMap<String, String>();
 		this.log = log;
 		this.imageMounter = new ImageMounter(log);
+		this.imageCache = ImageCache.instance();
+		this.leases = new ArrayList<ImageCache.Lease>();
 	}
 
 	/** Returns all registered bindings: binding's ID -> binding object */
@@ -259,6 +266,12 @@ public class BindingsManager
 
 				QcowOptions qcowOptions = new QcowOptions();
 				qcowOptions.setBackingFile(resource.getUrl());
+				if (this.isCacheable(resource)) {
+					// Back the overlay by a node-local copy, kept until cleanup
+					final ImageCache.Lease lease = imageCache.acquire(resource);
+					qcowOptions.setBackingFile(lease.path().toString());
+					leases.add(lease);
+				}
 
 				EmulatorUtils.createCowFile(imgPath, qcowOptions);
 
@@ -270,7 +283,13 @@ public class BindingsManager
 				break;
 			case COPY:
 				imgPath = outdir.resolve(realBindingId + ".copy");
-				EmulatorUtils.copyRemoteUrl(resource, imgPath, log);
+				if (this.isCacheable(resource)) {
+					// The copy may still reference cached backing files, keep them until cleanup
+					final ImageCache.Lease lease = imageCache.acquire(resource);
+					leases.add(lease);
+					Files.copy(lease.path(), imgPath, StandardCopyOption.REPLACE_EXISTING);
+				}
+				else EmulatorUtils.copyRemoteUrl(resource, imgPath, log);
 				resourcePath =imgPath.toString();
 				break;
 		}
@@ -334,6 +353,10 @@ public class BindingsManager
 			idsToRemove.forEach((id) -> this.remove(id));
 			idsToRemove.clear();
 		}
+
+		// Cached images are not used by overlays and copies anymore
+		leases.forEach(ImageCache.Lease::close);
+		leases.clear();
 	}
 
 	public static String toBindingId(String base, EntryType type)
@@ -374,6 +397,11 @@ public class BindingsManager
 			paths.remove(BindingsManager.toBindingId(id, type));
 	}
 
+	private boolean isCacheable(Binding resource)
+	{
+		return imageCache != null && ImageCache.isCacheable(resource.getUrl());
+	}
+
 	private String getImageFileSystem(Binding resource)
 	{
 		String fstype = null;
@@ -0,0 +1,690 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.emucomp.components;
+
+import com.openslx.eaas.common.config.util.MemoryUnitParser;
+import de.bwl.bwfla.common.exceptions.BWFLAException;
+import de.bwl.bwfla.common.services.net.HttpUtils;
+import de.bwl.bwfla.common.utils.ImageInformation;
+import de.bwl.bwfla.emucomp.api.Binding;
+import de.bwl.bwfla.emucomp.api.EmulatorUtils;
+import org.apache.tamaya.Configuration;
+import org.apache.tamaya.ConfigurationProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+/**
+ * A node-wide, read-through cache for binding images, shared by all sessions.
+ *
+ * Images are identified by a session-independent key, derived from their URLs, and their
+ * ETags (if provided by the server). Concurrent requests for the same image share a single
+ * download. Backing files of cached qcow2 images are cached too and rebased onto the local
+ * copies. Images are evicted in LRU order, when the configured disk budget is exceeded,
+ * except for images still in use by some session or by other cached images.
+ */
+public class ImageCache
+{
+	private final Logger log;
+	private final Path basedir;
+	private final long capacity;
+
+	/** Cached entries: entry's name -> entry, in LRU order */
+	private final LinkedHashMap<String, Entry> entries;
+
+	/** Most recent entry for an image: image's key -> entry's name */
+	private final Map<String, String> versions;
+
+	/** Pending downloads: entry's name -> download */
+	private final Map<String, Download> downloads;
+
+	private long size;
+
+	// Counters
+	private final AtomicLong numHits;
+	private final AtomicLong numMisses;
+	private final AtomicLong numBytesDownloaded;
+	private final AtomicLong numBytesEvicted;
+
+	private static final String IMAGE_FILE_SUFFIX = ".img";
+	private static final String META_FILE_SUFFIX = ".meta";
+	private static final String PARTIAL_FILE_SUFFIX = ".part";
+
+	private static final int HEAD_REQUEST_TIMEOUT = 10 * 1000;
+
+	private static ImageCache instance;
+	private static boolean initialized = false;
+
+
+	/** Returns the node-wide cache instance, or null if caching is disabled. */
+	public static synchronized ImageCache instance()
+	{
+		if (initialized)
+			return instance;
+
+		final Logger log = Logger.getLogger(ImageCache.class.getName());
+		final Configuration config = ConfigurationProvider.getConfiguration();
+		if (config.getOrDefault("emucomp.image_cache.enabled", Boolean.class, false)) {
+			final Path basedir = Paths.get(config.get("emucomp.image_cache.basedir"));
+			final long capacity = new MemoryUnitParser()
+					.parse(config.get("emucomp.image_cache.capacity"));
+
+			try {
+				instance = new ImageCache(basedir, capacity, log);
+			}
+			catch (Exception error) {
+				log.log(Level.WARNING, "Initializing image-cache failed! Caching is disabled.", error);
+			}
+		}
+
+		initialized = true;
+		return instance;
+	}
+
+	public ImageCache(Path basedir, long capacity, Logger log) throws IOException
+	{
+		if (capacity <= 0L)
+			throw new IllegalArgumentException("Invalid image-cache capacity: " + capacity);
+
+		this.log = log;
+		this.basedir = basedir;
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<>(64, 0.75F, true);
+		this.versions = new HashMap<>();
+		this.downloads = new HashMap<>();
+		this.size = 0L;
+		this.numHits = new AtomicLong(0L);
+		this.numMisses = new AtomicLong(0L);
+		this.numBytesDownloaded = new AtomicLong(0L);
+		this.numBytesEvicted = new AtomicLong(0L);
+
+		Files.createDirectories(basedir);
+		this.load();
+	}
+
+	/** Returns true, if the image at given URL can be cached. */
+	public static boolean isCacheable(String url)
+	{
+		return url != null && (url.startsWith("http:") || url.startsWith("https:"));
+	}
+
+	/**
+	 * Looks up a local copy of the binding's image, downloading it if not cached yet.
+	 * The returned lease must be closed, when the image is not used anymore.
+	 */
+	public Lease acquire(Binding binding) throws BWFLAException
+	{
+		final Entry entry = this.acquire(binding.getUrl(), binding.getUsername(), binding.getPassword());
+		return new Lease(entry);
+	}
+
+	/** Returns the number of lookups served from the cache. */
+	public long getNumHits()
+	{
+		return numHits.get();
+	}
+
+	/** Returns the number of lookups requiring a download. */
+	public long getNumMisses()
+	{
+		return numMisses.get();
+	}
+
+	/** Returns the number of downloaded bytes. */
+	public long getNumBytesDownloaded()
+	{
+		return numBytesDownloaded.get();
+	}
+
+	/** Returns the number of bytes freed by evictions. */
+	public long getNumBytesEvicted()
+	{
+		return numBytesEvicted.get();
+	}
+
+	/** Returns the number of bytes currently used by cached images. */
+	public synchronized long size()
+	{
+		return size;
+	}
+
+	/** Returns the disk budget in bytes. */
+	public long capacity()
+	{
+		return capacity;
+	}
+
+	/** Returns the number of cached images. */
+	public synchronized int getNumEntries()
+	{
+		return entries.size();
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return "hits: " + numHits.get() + ", misses: " + numMisses.get()
+				+ ", downloaded: " + numBytesDownloaded.get() + " bytes"
+				+ ", evicted: " + numBytesEvicted.get() + " bytes"
+				+ ", used: " + size + " of " + capacity + " bytes in " + entries.size() + " image(s)";
+	}
+
+	/**
+	 * Derives a session-independent key for an image-URL. Resolver-URLs contain the
+	 * component's ID and optionally an access-token, which are dropped from the key.
+	 * Query-parameters (e.g. presigned signatures) are dropped too.
+	 */
+	public static String toCacheKey(String url)
+	{
+		int end = url.indexOf('?');
+		if (end < 0)
+			end = url.indexOf('#');
+
+		String key = (end < 0) ? url : url.substring(0, end);
+
+		// Resolver-URLs have the form: <endpoint>[/t/<token>]/components/<id>/<kind>/<resource>
+		final String marker = "/components/";
+		final int cpos = key.indexOf(marker);
+		if (cpos > 0) {
+			final int kpos = key.indexOf('/', cpos + marker.length());
+			if (kpos > 0) {
+				String endpoint = key.substring(0, cpos);
+				final int tpos = endpoint.lastIndexOf("/t/");
+				if (tpos > 0)
+					endpoint = endpoint.substring(0, tpos);
+
+				key = endpoint + key.substring(kpos);
+			}
+		}
+
+		return key;
+	}
+
+
+	/** A handle for an image in use, pinning it in the cache until closed. */
+	public class Lease implements AutoCloseable
+	{
+		private Entry entry;
+
+		private Lease(Entry entry)
+		{
+			this.entry = entry;
+		}
+
+		/** Returns the path to the local copy of the image. */
+		public Path path()
+		{
+			return entry.path;
+		}
+
+		@Override
+		public void close()
+		{
+			if (entry == null)
+				return;
+
+			ImageCache.this.release(entry);
+			entry = null;
+		}
+	}
+
+
+	// ========== Internal Helpers ==============================
+
+	private static class Entry
+	{
+		final String name;
+		final String key;
+		final String etag;
+		final Path path;
+		final long size;
+		final Entry parent;
+
+		/** Number of sessions and cached images using this entry */
+		int refcount;
+
+		Entry(String name, String key, String etag, Path path, long size, Entry parent)
+		{
+			this.name = name;
+			this.key = key;
+			this.etag = etag;
+			this.path = path;
+			this.size = size;
+			this.parent = parent;
+			this.refcount = 0;
+		}
+	}
+
+	private static class Download
+	{
+		final CompletableFuture<Entry> result = new CompletableFuture<>();
+
+		/** Number of other sessions waiting for this download */
+		int numWaiters = 0;
+	}
+
+	private Entry acquire(String url, String username, String password) throws BWFLAException
+	{
+		final String key = ImageCache.toCacheKey(url);
+		final String etag = this.fetchETag(url, username, password);
+
+		Download download = null;
+		Download pending = null;
+		Entry cached = null;
+		final String name;
+		synchronized (this) {
+			// Without an ETag, the most recent version of the image is reused
+			name = (etag != null || !versions.containsKey(key)) ?
+					ImageCache.toEntryName(key, etag) : versions.get(key);
+
+			cached = entries.get(name);
+			if (cached != null) {
+				++cached.refcount;
+				numHits.incrementAndGet();
+			}
+			else {
+				numMisses.incrementAndGet();
+
+				pending = downloads.get(name);
+				if (pending != null) {
+					// Another session is already downloading this image
+					++pending.numWaiters;
+				}
+				else {
+					download = new Download();
+					downloads.put(name, download);
+				}
+			}
+		}
+
+		if (cached != null) {
+			// Referenced entries are never evicted, hence no lock is needed here
+			this.touch(cached);
+			return cached;
+		}
+
+		if (pending != null)
+			return this.await(pending.result, url);
+
+		Entry entry = null;
+		try {
+			entry = this.download(name, key, etag, url, username, password);
+		}
+		catch (Exception error) {
+			synchronized (this) {
+				downloads.remove(name);
+			}
+
+			download.result.completeExceptionally(error);
+			if (error instanceof BWFLAException)
+				throw (BWFLAException) error;
+
+			throw new BWFLAException("Caching image failed: " + url, error);
+		}
+
+		synchronized (this) {
+			// One reference for the requesting session and one per waiting session
+			entry.refcount = 1 + download.numWaiters;
+			entries.put(name, entry);
+			versions.put(key, name);
+			downloads.remove(name);
+			size += entry.size;
+
+			this.evict();
+		}
+
+		download.result.complete(entry);
+
+		log.info("Cached image '" + key + "' (" + entry.size + " bytes). Image-cache stats: " + this);
+		return entry;
+	}
+
+	private Entry await(CompletableFuture<Entry> download, String url) throws BWFLAException
+	{
+		try {
+			return download.get();
+		}
+		catch (InterruptedException error) {
+			// The reference counted for this waiter must be dropped, once the download completes
+			download.thenAccept(this::release);
+			Thread.currentThread().interrupt();
+			throw new BWFLAException("Waiting for image download was interrupted: " + url, error);
+		}
+		catch (ExecutionException error) {
+			throw new BWFLAException("Caching image failed: " + url, error.getCause());
+		}
+	}
+
+	private Entry download(String name, String key, String etag, String url, String username, String password)
+			throws BWFLAException, IOException
+	{
+		final Path partial = basedir.resolve(name + PARTIAL_FILE_SUFFIX);
+		final Path image = basedir.resolve(name + IMAGE_FILE_SUFFIX);
+
+		log.info("Downloading image '" + key + "' into cache...");
+
+		Entry parent = null;
+		try {
+			Files.deleteIfExists(partial);
+			this.fetch(url, username, password, partial);
+
+			// Rebase the image onto a cached copy of its remote backing file
+			final ImageInformation info = new ImageInformation(partial.toString(), log);
+			if (info.hasBackingFile() && HttpUtils.isAbsoluteUrl(info.getBackingFile())) {
+				final String bfurl = info.getBackingFile();
+				if (ImageCache.isCacheable(bfurl)) {
+					parent = this.acquire(bfurl, username, password);
+					EmulatorUtils.changeBackingFile(partial, parent.path.toString(), info.getBackingFileFormat(), log);
+				}
+			}
+
+			final long size = Files.size(partial);
+			final Entry entry = new Entry(name, key, etag, image, size, parent);
+			Files.move(partial, image, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			this.store(entry);
+			numBytesDownloaded.addAndGet(size);
+			return entry;
+		}
+		catch (BWFLAException | IOException | RuntimeException error) {
+			Files.deleteIfExists(partial);
+			if (parent != null)
+				this.release(parent);
+
+			throw error;
+		}
+	}
+
+	private synchronized void release(Entry entry)
+	{
+		if (--entry.refcount < 0)
+			throw new IllegalStateException("Image-cache entry released too often: " + entry.key);
+
+		if (size > capacity)
+			this.evict();
+	}
+
+	/** Evicts unused entries in LRU order, until the cache fits into its disk budget. */
+	private void evict()
+	{
+		// NOTE: must be called while holding this cache's lock!
+
+		while (size > capacity) {
+			Entry victim = null;
+			for (Entry entry : entries.values()) {
+				if (entry.refcount == 0) {
+					victim = entry;
+					break;
+				}
+			}
+
+			if (victim == null) {
+				log.warning("Image-cache exceeds its capacity, but all images are in use! " + this);
+				return;
+			}
+
+			this.remove(victim);
+		}
+	}
+
+	private void remove(Entry entry)
+	{
+		entries.remove(entry.name);
+		versions.remove(entry.key, entry.name);
+		size -= entry.size;
+		numBytesEvicted.addAndGet(entry.size);
+
+		try {
+			Files.deleteIfExists(basedir.resolve(entry.name + META_FILE_SUFFIX));
+			Files.deleteIfExists(entry.path);
+		}
+		catch (IOException error) {
+			log.log(Level.WARNING, "Deleting cached image failed: " + entry.path, error);
+		}
+
+		// The backing file may be evicted now too
+		if (entry.parent != null)
+			--entry.parent.refcount;
+
+		log.info("Evicted image '" + entry.key + "' (" + entry.size + " bytes) from cache");
+	}
+
+	private void touch(Entry entry)
+	{
+		// The metafile's timestamp preserves the LRU order across restarts
+		try {
+			final Path metafile = basedir.resolve(entry.name + META_FILE_SUFFIX);
+			Files.setLastModifiedTime(metafile, FileTime.fromMillis(System.currentTimeMillis()));
+		}
+		catch (IOException error) {
+			log.log(Level.FINE, "Updating access time failed!", error);
+		}
+	}
+
+	private void store(Entry entry) throws IOException
+	{
+		final Properties properties = new Properties();
+		properties.setProperty("key", entry.key);
+		properties.setProperty("size", Long.toString(entry.size));
+		if (entry.etag != null)
+			properties.setProperty("etag", entry.etag);
+
+		if (entry.parent != null)
+			properties.setProperty("parent", entry.parent.name);
+
+		final Path metafile = basedir.resolve(entry.name + META_FILE_SUFFIX);
+		try (OutputStream output = Files.newOutputStream(metafile)) {
+			properties.store(output, null);
+		}
+	}
+
+	/** Restores the index of previously cached images. */
+	private void load() throws IOException
+	{
+		final List<Path> metafiles;
+		try (Stream<Path> files = Files.list(basedir)) {
+			metafiles = files.filter((file) -> {
+						final String filename = file.getFileName().toString();
+						if (!filename.endsWith(PARTIAL_FILE_SUFFIX))
+							return filename.endsWith(META_FILE_SUFFIX);
+
+						// Remove leftovers of interrupted downloads
+						try {
+							Files.deleteIfExists(file);
+						}
+						catch (IOException error) {
+							log.log(Level.WARNING, "Deleting partial download failed: " + file, error);
+						}
+
+						return false;
+					})
+					.sorted(Comparator.comparing(ImageCache::getLastModifiedTime))
+					.collect(Collectors.toList());
+		}
+
+		final Map<String, Properties> found = new LinkedHashMap<>();
+		for (Path metafile : metafiles) {
+			final String filename = metafile.getFileName().toString();
+			final String name = filename.substring(0, filename.length() - META_FILE_SUFFIX.length());
+			final Properties properties = new Properties();
+			try (InputStream input = Files.newInputStream(metafile)) {
+				properties.load(input);
+			}
+
+			if (Files.exists(basedir.resolve(name + IMAGE_FILE_SUFFIX)))
+				found.put(name, properties);
+			else Files.delete(metafile);
+		}
+
+		// Restore all entries, whose backing files are still cached
+		final List<String> invalid = new ArrayList<>();
+		for (String name : found.keySet())
+			this.restore(name, found, invalid);
+
+		for (String name : invalid) {
+			Files.deleteIfExists(basedir.resolve(name + META_FILE_SUFFIX));
+			Files.deleteIfExists(basedir.resolve(name + IMAGE_FILE_SUFFIX));
+		}
+
+		// Preserve the LRU order of the metafiles
+		for (Path metafile : metafiles) {
+			final String filename = metafile.getFileName().toString();
+			entries.get(filename.substring(0, filename.length() - META_FILE_SUFFIX.length()));
+		}
+
+		log.info("Image-cache at '" + basedir + "' restored. " + this);
+		this.evict();
+	}
+
+	private Entry restore(String name, Map<String, Properties> found, List<String> invalid)
+	{
+		Entry entry = entries.get(name);
+		if (entry != null)
+			return entry;
+
+		final Properties properties = found.get(name);
+		if (properties == null || invalid.contains(name))
+			return null;
+
+		Entry parent = null;
+		final String pname = properties.getProperty("parent");
+		if (pname != null) {
+			parent = this.restore(pname, found, invalid);
+			if (parent == null) {
+				invalid.add(name);
+				return null;
+			}
+
+			++parent.refcount;
+		}
+
+		final String key = properties.getProperty("key");
+		final long size = Long.parseLong(properties.getProperty("size", "0"));
+		entry = new Entry(name, key, properties.getProperty("etag"), basedir.resolve(name + IMAGE_FILE_SUFFIX), size, parent);
+		entries.put(name, entry);
+		versions.put(key, name);
+		this.size += size;
+		return entry;
+	}
+
+	/** Downloads the image at given URL into the target file. */
+	protected void fetch(String url, String username, String password, Path target) throws BWFLAException
+	{
+		final Binding source = new Binding();
+		source.setUrl(url);
+		source.setUsername(username);
+		source.setPassword(password);
+
+		EmulatorUtils.copyRemoteUrl(source, target, log);
+	}
+
+	/**
+	 * Returns the image's ETag, or null if the server does not provide one.
+	 * Fails if the image is not accessible, hence cached copies are never
+	 * returned for images deleted at source or for unauthorized callers.
+	 */
+	protected String fetchETag(String url, String username, String password) throws BWFLAException
+	{
+		HttpURLConnection connection = null;
+		try {
+			connection = (HttpURLConnection) new URL(url).openConnection();
+			connection.setRequestMethod("HEAD");
+			connection.setInstanceFollowRedirects(true);
+			connection.setConnectTimeout(HEAD_REQUEST_TIMEOUT);
+			connection.setReadTimeout(HEAD_REQUEST_TIMEOUT);
+			if (username != null && password != null) {
+				final String credentials = username + ":" + password;
+				connection.setRequestProperty("Authorization", "Basic "
+						+ Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+			}
+
+			final int status = connection.getResponseCode();
+			if (status != HttpURLConnection.HTTP_OK)
+				throw new BWFLAException("Looking up image failed with status " + status + ": " + url);
+
+			return connection.getHeaderField("ETag");
+		}
+		catch (IOException error) {
+			throw new BWFLAException("Looking up image failed: " + url, error);
+		}
+		finally {
+			if (connection != null)
+				connection.disconnect();
+		}
+	}
+
+	private static String toEntryName(String key, String etag)
+	{
+		try {
+			final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(key.getBytes(StandardCharsets.UTF_8));
+			if (etag != null) {
+				digest.update((byte) 0);
+				digest.update(etag.getBytes(StandardCharsets.UTF_8));
+			}
+
+			final StringBuilder name = new StringBuilder(64);
+			for (byte value : digest.digest())
+				name.append(String.format("%02x", value));
+
+			return name.toString();
+		}
+		catch (NoSuchAlgorithmException error) {
+			throw new IllegalStateException(error);
+		}
+	}
+
+	private static FileTime getLastModifiedTime(Path path)
+	{
+		try {
+			return Files.getLastModifiedTime(path);
+		}
+		catch (IOException error) {
+			return FileTime.fromMillis(0L);
+		}
+	}
+}
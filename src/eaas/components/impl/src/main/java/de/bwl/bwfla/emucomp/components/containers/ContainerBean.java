@@ -200,6 +200,7 @@ public abstract class ContainerBean extends EaasComponentBean implements Contain
 			conBeanState.set(ContainerState.BUSY);
 		}
 
+		conRunner.captureOutput(false);
 		if (!conRunner.start())
 			this.fail("Starting container failed!");
 
@@ -123,6 +123,10 @@ public abstract class EmulatorBean extends EaasComponentBean implements Emulator
 	@Config("emucomp.blobstore_soap")
 	private String blobStoreAddressSoap = null;
 
+	@Inject
+	@Config("emucomp.snapshot_upload_mode")
+	private String snapshotUploadMode = null;
+
     @Resource(lookup = "java:jboss/ee/concurrency/executor/io")
     protected ExecutorService ioTaskExecutor;
 
@@ -766,6 +770,7 @@ public abstract class EmulatorBean extends EaasComponentBean implements Emulator
 		}
 
 		emuRunner.redirectStdErrToStdOut(true);
+		emuRunner.captureOutput(false);
 
 		if (!emuRunner.start()) {
 			throw new BWFLAException("Starting emulator failed!")
@@ -784,7 +789,7 @@ public abstract class EmulatorBean extends EaasComponentBean implements Emulator
 				this.waitUntilPathExists(this.getXpraSocketPath(), EmuCompState.EMULATOR_BUSY);
 			}
 			RuncStateInformation info = RuncStateInformation.getRuncStateInformationForComponent(this.getComponentId());
-			IPCWebsocketProxy.wait(Path.of(xprasockInContainer), Path.of("/proc", info.getPid()));
+			IPCWebsocketProxy.wait(this.getXpraSocketPath(), Path.of(xprasockInContainer), Path.of("/proc", info.getPid()));
 		}
 		else if (this.isSdlBackendEnabled()) {
 			if (emuEnvironment.hasCheckpointBindingId()) {
@@ -1393,43 +1398,13 @@ public abstract class EmulatorBean extends EaasComponentBean implements Emulator
 		this.unmountBindings();
 		this.sync();
 
-		// TODO: filter out all unchanged images with qemu-img compare!
-
-		final BlobStore blobstore = BlobStoreClient.get()
-				.getBlobStorePort(blobStoreAddressSoap);
+		// Upload only modified images, concurrently
+		final SnapshotUploader uploader = new SnapshotUploader(this.getComponentId(), ioTaskExecutor,
+				SnapshotUploader.Mode.from(snapshotUploadMode), blobStoreAddressSoap, blobStoreRestAddress, LOG);
 
-		// Create one DataHandler per image
-		final List<BindingDataHandler> handlers = new ArrayList<BindingDataHandler>();
+		final List<BindingDataHandler> handlers;
 		try {
-			for (Map.Entry<String, String> entry : images.entrySet()) {
-				final String id = entry.getKey();
-				final String path = entry.getValue();
-
-				final BlobDescription blob = new BlobDescription()
-						.setDescription("Snapshot for session " + this.getComponentId())
-						.setNamespace("emulator-snapshots")
-						.setDataFromFile(Paths.get(path))
-						.setType(".qcow")
-						.setName(id);
-
-				// Upload image to blobstore and register cleanup handler
-				final BlobHandle handle = blobstore.put(blob);
-				cleanups.push("delete-blob/" + handle.getId(), () -> {
-					try {
-						blobstore.delete(handle);
-					}
-					catch (Exception exception) {
-						LOG.log(Level.WARNING, "Removing snapshot-image from blobstore failed!", exception);
-					}
-				});
-
-				final String location = handle.toRestUrl(blobStoreRestAddress);
-				final BindingDataHandler handler = new BindingDataHandler()
-						.setUrl(location)
-						.setId(id);
-
-				handlers.add(handler);
-			}
+			handlers = uploader.upload(images, cleanups);
 		}
 		catch (BWFLAException error) {
 			LOG.log(Level.WARNING, "Uploading images failed!", error);
@@ -2604,6 +2579,7 @@ public abstract class EmulatorBean extends EaasComponentBean implements Emulator
 			process.addArgument("-hub");
 			process.addArgument("-s");
 			process.addArgument(vdeHubName.toString());
+			process.captureOutput(false);
 			if (!process.start())
 				return; // Failure
 
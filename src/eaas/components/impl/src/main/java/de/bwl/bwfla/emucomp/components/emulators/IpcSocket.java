@@ -33,6 +33,7 @@ import com.sun.jna.LastErrorException;
 import com.sun.jna.Native;
 import com.sun.jna.NativeLong;
 import com.sun.jna.Platform;
+import com.sun.jna.Pointer;
 import com.sun.jna.Structure;
 
 import de.bwl.bwfla.emucomp.components.emulators.SocketAPI.pollfd;
@@ -199,7 +200,8 @@ public class IpcSocket
 		
 		try {
 			final int flags = (blocking) ? 0 : SocketAPI.MSG_DONTWAIT;
-			int numbytes = SocketAPI.recv(sockfd, buffer.array(), buffer.capacity(), flags);
+			int numbytes = (buffer.isDirect()) ? SocketAPI.recv(sockfd, buffer, buffer.capacity(), flags)
+					: SocketAPI.recv(sockfd, buffer.array(), buffer.capacity(), flags);
 			if (numbytes == 0)
 				throw new IOException("Socket reached end-of-stream!");
 			
@@ -263,6 +265,12 @@ public class IpcSocket
 		return sockname;
 	}
 	
+	/** Returns the socket's native descriptor. */
+	int getFileDescriptor()
+	{
+		return sockfd;
+	}
+
 	/** Returns the message size attribute. */
 	public int getMaxMsgSize()
 	{
@@ -387,12 +395,19 @@ final class SocketAPI
 	// Error ID for "IO operation would block."
 	public static final int EAGAIN = 11;
 
+	// Error ID for "Interrupted system call."
+	public static final int EINTR = 4;
+
+	// Flag for nonblocking pipes
+	public static final int O_NONBLOCK = 04000;
+
 
 	/* ========== Constants from poll.h ========== */
 
 	public static final short POLLIN   = 0x01;
 	public static final short POLLOUT  = 0x04;
 	public static final short POLLERR  = 0x08;
+	public static final short POLLHUP  = 0x10;
 	public static final short POLLNVAL = 0x20;
 	
 	
@@ -495,10 +510,15 @@ final class SocketAPI
 	public static native int send(int sockfd, byte[] buf, int len, int flags) throws LastErrorException;
 	public static native int sendto(int sockfd, byte[] buf, int len, int flags, sockaddr_un destaddr, int addrlen) throws LastErrorException;
 	public static native int recv(int sockfd, byte[] buf, int len, int flags) throws LastErrorException;
+	public static native int recv(int sockfd, Buffer buf, int len, int flags) throws LastErrorException;
 	public static native int recvfrom(int sockfd, byte[] buf, int len, int flags, sockaddr_un srcaddr, Buffer addrlen) throws LastErrorException;
 	public static native int close(int fd) throws LastErrorException;
 	public static native int unlink(String name) throws LastErrorException;
 	public static native int poll(pollfd fds, NativeLong nfds, int timeout) throws LastErrorException;
+	public static native int poll(Pointer fds, NativeLong nfds, int timeout) throws LastErrorException;
+	public static native int pipe2(int[] fds, int flags) throws LastErrorException;
+	public static native int read(int fd, byte[] buf, int len) throws LastErrorException;
+	public static native int write(int fd, byte[] buf, int len) throws LastErrorException;
 	
 	static {
 		if (!Platform.isLinux())
@@ -0,0 +1,442 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.emucomp.components.emulators;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.sun.jna.LastErrorException;
+import com.sun.jna.Memory;
+import com.sun.jna.NativeLong;
+
+
+/**
+ * Readiness notifications for many IPC sockets, using a single polling thread.
+ * <p/>
+ * Registrations are one-shot: once a socket becomes readable, it is not polled again
+ * until the handler re-arms its registration. Handlers are called on the polling thread
+ * and must not block, slow operations should be passed to {@link #execute(Runnable)}.
+ * <p/>
+ * Cancelling a registration waits until the polling thread has released the socket,
+ * hence the socket can be safely closed afterwards. The shared instance is started on
+ * first use and stopped with {@link #shutdown()}.
+ */
+public class IpcSocketPoller implements Runnable
+{
+	/** Logger instance. */
+	private static final Logger LOG = Logger.getLogger("IpcSocketPoller");
+
+	/** Interval between handler ticks, in ms */
+	private static final int TICK_INTERVAL = 1000;
+
+	/** Max. time to wait for the polling thread to release a socket or to stop, in ms */
+	private static final long RELEASE_TIMEOUT = 5000L;
+
+	/** Max. number of threads running blocking tasks */
+	private static final int MAX_NUM_EXECUTOR_THREADS = 8;
+
+	/** Time after which idle executor threads are stopped, in ms */
+	private static final long EXECUTOR_KEEPALIVE_TIMEOUT = 60000L;
+
+	/** sizeof(struct pollfd) */
+	private static final int POLLFD_SIZE = 8;
+
+	private static IpcSocketPoller instance = null;
+
+	private final Set<Registration> registrations;
+	private final Queue<Registration> cancellations;
+	private final List<Registration> polled;
+	private final AtomicBoolean wakeupPending;
+	private final ExecutorService executor;
+	private final int[] wakeup;
+	private Thread worker;
+	private volatile boolean running;
+	private volatile boolean terminated;
+	private Memory fds;
+	private int capacity;
+
+
+	/** Callback for socket events */
+	public interface Handler
+	{
+		/** Called when the socket is readable or failed. The registration is disarmed until re-armed. */
+		void onReadable(Registration registration);
+
+		/** Called periodically, for all registrations. */
+		default void onTick(Registration registration, long curtime)
+		{
+			// Empty!
+		}
+	}
+
+	/** Returns the shared poller instance, starting it when needed */
+	public static synchronized IpcSocketPoller get(ThreadFactory factory) throws IOException
+	{
+		if (instance == null) {
+			final IpcSocketPoller poller = new IpcSocketPoller(factory);
+			poller.worker = factory.newThread(poller);
+			poller.worker.setName("ipc-socket-poller");
+			poller.worker.start();
+			instance = poller;
+		}
+
+		return instance;
+	}
+
+	/** Stops the shared poller instance, if started. All remaining registrations are cancelled. */
+	public static synchronized void shutdown()
+	{
+		if (instance == null)
+			return;
+
+		instance.stop();
+		instance = null;
+	}
+
+	/** Registers a socket, initially armed */
+	public Registration register(IpcSocket socket, Handler handler) throws IOException
+	{
+		if (!running)
+			throw new IOException("IPC socket poller is stopped!");
+
+		final Registration registration = new Registration(socket, handler);
+		registrations.add(registration);
+		this.wakeup();
+		return registration;
+	}
+
+	/** Runs a (blocking) task outside of the polling thread */
+	public void execute(Runnable task)
+	{
+		executor.execute(task);
+	}
+
+	public int getNumRegistrations()
+	{
+		return registrations.size();
+	}
+
+	public class Registration
+	{
+		private final IpcSocket socket;
+		private final Handler handler;
+		private final CountDownLatch released;
+		private volatile boolean armed;
+		private volatile boolean cancelled;
+
+		private Registration(IpcSocket socket, Handler handler)
+		{
+			this.socket = socket;
+			this.handler = handler;
+			this.released = new CountDownLatch(1);
+			this.armed = true;
+			this.cancelled = false;
+		}
+
+		public IpcSocket socket()
+		{
+			return socket;
+		}
+
+		public boolean isArmed()
+		{
+			return armed;
+		}
+
+		/** Re-enables notifications for this socket */
+		public void arm()
+		{
+			if (cancelled)
+				return;
+
+			this.armed = true;
+			IpcSocketPoller.this.wakeup();
+		}
+
+		public boolean isCancelled()
+		{
+			return cancelled;
+		}
+
+		/**
+		 * Removes this socket from the poller. When called outside of the polling thread,
+		 * waits until the socket is not used by the polling thread anymore.
+		 */
+		public void cancel()
+		{
+			if (!cancelled) {
+				this.cancelled = true;
+				this.armed = false;
+				registrations.remove(this);
+				if (Thread.currentThread() == worker) {
+					// Socket is not polled while handlers run
+					released.countDown();
+					return;
+				}
+
+				cancellations.add(this);
+				if (terminated)
+					IpcSocketPoller.this.release();
+				else IpcSocketPoller.this.wakeup();
+			}
+
+			if (Thread.currentThread() == worker)
+				return;
+
+			try {
+				if (!released.await(RELEASE_TIMEOUT, TimeUnit.MILLISECONDS))
+					LOG.warning("Releasing IPC socket by poller timed out!");
+			}
+			catch (InterruptedException error) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+
+	/* ==================== Runnable Implementation ==================== */
+
+	@Override
+	public void run()
+	{
+		final byte[] trash = new byte[64];
+		long nextTickTimestamp = System.currentTimeMillis() + TICK_INTERVAL;
+
+		LOG.info("IPC socket poller started");
+
+		while (running) {
+			try {
+				wakeupPending.set(false);
+
+				// Sockets polled previously are not used anymore
+				this.release();
+
+				// Collect all armed sockets, the wakeup-pipe is always at index 0
+				polled.clear();
+				for (Registration registration : registrations) {
+					if (registration.armed)
+						polled.add(registration);
+				}
+
+				final int numfds = polled.size() + 1;
+				this.ensureCapacity(numfds);
+				this.setPollFd(0, wakeup[0]);
+				for (int i = 1; i < numfds; ++i)
+					this.setPollFd(i, polled.get(i - 1).socket.getFileDescriptor());
+
+				final int timeout = (int) Math.max(0L, nextTickTimestamp - System.currentTimeMillis());
+				int numready = 0;
+				try {
+					numready = SocketAPI.poll(fds, new NativeLong(numfds), timeout);
+				}
+				catch (LastErrorException error) {
+					if (error.getErrorCode() != SocketAPI.EINTR)
+						throw error;
+				}
+
+				if (numready > 0) {
+					if (this.getPollRevents(0) != 0)
+						this.drain(trash);
+
+					for (int i = 1; i < numfds; ++i) {
+						if (this.getPollRevents(i) == 0)
+							continue;
+
+						final Registration registration = polled.get(i - 1);
+						if (registration.cancelled)
+							continue;
+
+						registration.armed = false;
+						try {
+							registration.handler.onReadable(registration);
+						}
+						catch (Exception error) {
+							LOG.log(Level.WARNING, "Handling IPC socket event failed!", error);
+						}
+					}
+				}
+
+				final long curtime = System.currentTimeMillis();
+				if (curtime >= nextTickTimestamp) {
+					for (Registration registration : registrations) {
+						try {
+							registration.handler.onTick(registration, curtime);
+						}
+						catch (Exception error) {
+							LOG.log(Level.WARNING, "Handling IPC socket tick failed!", error);
+						}
+					}
+
+					nextTickTimestamp = curtime + TICK_INTERVAL;
+				}
+			}
+			catch (Throwable error) {
+				LOG.log(Level.SEVERE, "Polling IPC sockets failed!", error);
+				try {
+					Thread.sleep(TICK_INTERVAL);
+				}
+				catch (InterruptedException exception) {
+					// Ignore it!
+				}
+			}
+		}
+
+		terminated = true;
+		registrations.clear();
+		this.release();
+
+		LOG.info("IPC socket poller stopped");
+	}
+
+
+	/* ==================== Internal Methods ==================== */
+
+	private IpcSocketPoller(ThreadFactory factory) throws IOException
+	{
+		this.registrations = ConcurrentHashMap.newKeySet();
+		this.cancellations = new ConcurrentLinkedQueue<Registration>();
+		this.polled = new ArrayList<Registration>();
+		this.wakeupPending = new AtomicBoolean(false);
+		this.executor = IpcSocketPoller.newExecutor(factory);
+		this.wakeup = new int[2];
+		this.worker = null;
+		this.running = true;
+		this.terminated = false;
+		this.capacity = 0;
+		this.fds = null;
+
+		try {
+			SocketAPI.pipe2(wakeup, SocketAPI.O_NONBLOCK);
+		}
+		catch (LastErrorException error) {
+			throw new IOException("Creating wakeup-pipe failed! Cause: " + SocketAPI.strerror(error));
+		}
+	}
+
+	/** Returns an executor with a bounded number of threads, queueing excess tasks */
+	static ThreadPoolExecutor newExecutor(ThreadFactory factory)
+	{
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_NUM_EXECUTOR_THREADS, MAX_NUM_EXECUTOR_THREADS,
+				EXECUTOR_KEEPALIVE_TIMEOUT, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), factory);
+
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private void stop()
+	{
+		running = false;
+		this.wakeup();
+
+		try {
+			worker.join(RELEASE_TIMEOUT);
+		}
+		catch (InterruptedException error) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (worker.isAlive()) {
+			LOG.warning("Stopping IPC socket poller timed out!");
+			return;  // Keep the wakeup-pipe, it may still be polled
+		}
+
+		executor.shutdown();
+		for (int fd : wakeup) {
+			try {
+				SocketAPI.close(fd);
+			}
+			catch (LastErrorException error) {
+				LOG.warning("Closing wakeup-pipe failed! Cause: " + SocketAPI.strerror(error));
+			}
+		}
+	}
+
+	/** Notifies all pending cancellations, that their sockets are released */
+	private void release()
+	{
+		Registration registration;
+		while ((registration = cancellations.poll()) != null)
+			registration.released.countDown();
+	}
+
+	private void wakeup()
+	{
+		if (terminated)
+			return;  // Wakeup-pipe may be closed already
+
+		if (!wakeupPending.compareAndSet(false, true))
+			return;  // Already pending
+
+		try {
+			SocketAPI.write(wakeup[1], new byte[] { 1 }, 1);
+		}
+		catch (LastErrorException error) {
+			// Pipe is full, poller will wakeup anyway!
+		}
+	}
+
+	private void drain(byte[] buffer)
+	{
+		try {
+			while (SocketAPI.read(wakeup[0], buffer, buffer.length) > 0)
+				continue;
+		}
+		catch (LastErrorException error) {
+			// Pipe is empty!
+		}
+	}
+
+	private void ensureCapacity(int numfds)
+	{
+		if (numfds <= capacity)
+			return;
+
+		capacity = Math.max(numfds, 2 * capacity);
+		fds = new Memory((long) capacity * POLLFD_SIZE);
+	}
+
+	private void setPollFd(int index, int fd)
+	{
+		final long offset = (long) index * POLLFD_SIZE;
+		fds.setInt(offset, fd);
+		fds.setShort(offset + 4, SocketAPI.POLLIN);
+		fds.setShort(offset + 6, (short) 0);
+	}
+
+	private short getPollRevents(int index)
+	{
+		return fds.getShort((long) index * POLLFD_SIZE + 6);
+	}
+}
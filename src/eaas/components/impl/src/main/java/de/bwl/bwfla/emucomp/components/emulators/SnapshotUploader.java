@@ -0,0 +1,338 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.emucomp.components.emulators;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import de.bwl.bwfla.api.blobstore.BlobStore;
+import de.bwl.bwfla.blobstore.api.BlobDescription;
+import de.bwl.bwfla.blobstore.api.BlobHandle;
+import de.bwl.bwfla.blobstore.client.BlobStoreClient;
+import de.bwl.bwfla.common.exceptions.BWFLAException;
+import de.bwl.bwfla.common.taskmanager.BlockingTask;
+import de.bwl.bwfla.common.utils.ProcessRunner;
+import de.bwl.bwfla.common.utils.StringUtils;
+import de.bwl.bwfla.common.utils.TaskStack;
+import de.bwl.bwfla.emucomp.api.BindingDataHandler;
+
+
+/**
+ * Uploads the modified images of a session's snapshot concurrently.
+ * <p/>
+ * Overlays without any clusters allocated in the top layer are considered unmodified and skipped.
+ */
+public class SnapshotUploader
+{
+	private static final String NAMESPACE = "emulator-snapshots";
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private final Logger log;
+	private final String componentId;
+	private final Executor executor;
+	private final Mode mode;
+	private final String blobStoreAddressSoap;
+	private final String blobStoreRestAddress;
+
+	public enum Mode
+	{
+		/** Upload through blobstore's SOAP interface */
+		SOAP,
+
+		/** Upload directly into S3 buckets, using multipart uploads */
+		S3;
+
+		public static Mode from(String value)
+		{
+			return Mode.valueOf(value.toUpperCase());
+		}
+	}
+
+
+	public SnapshotUploader(String componentId, Executor executor, Mode mode,
+							String blobStoreAddressSoap, String blobStoreRestAddress, Logger log)
+	{
+		this.log = log;
+		this.componentId = componentId;
+		this.executor = executor;
+		this.mode = mode;
+		this.blobStoreAddressSoap = blobStoreAddressSoap;
+		this.blobStoreRestAddress = blobStoreRestAddress;
+	}
+
+	/**
+	 * Uploads all modified images concurrently.
+	 *
+	 * @param images Binding's ID -> image's path
+	 * @param cleanups Stack, where cleanup handlers for uploaded images will be pushed to
+	 * @return One handler per uploaded image
+	 */
+	public List<BindingDataHandler> upload(Map<String, String> images, TaskStack cleanups) throws BWFLAException
+	{
+		final List<UploadTask> tasks = new ArrayList<UploadTask>(images.size());
+		for (Map.Entry<String, String> entry : images.entrySet()) {
+			final String id = entry.getKey();
+			final Path path = Paths.get(entry.getValue());
+			if (!SnapshotUploader.isModified(path, log)) {
+				log.info("Image for binding '" + id + "' is unmodified! Skipping upload.");
+				continue;
+			}
+
+			tasks.add(this.newUploadTask(id, path));
+		}
+
+		if (tasks.isEmpty()) {
+			log.info("No modified images found for snapshot");
+			return new ArrayList<BindingDataHandler>();
+		}
+
+		log.info("Uploading " + tasks.size() + " out of " + images.size() + " image(s) for snapshot...");
+
+		final AtomicInteger numTasksDone = new AtomicInteger(0);
+		for (UploadTask task : tasks) {
+			task.getTaskResult()
+					.thenRun(() -> log.info("Uploaded " + numTasksDone.incrementAndGet() + " out of " + tasks.size() + " snapshot image(s)"));
+
+			executor.execute(task);
+		}
+
+		// Wait for all uploads to finish, even if some of them fail
+		BWFLAException failure = null;
+		final List<BindingDataHandler> handlers = new ArrayList<BindingDataHandler>(tasks.size());
+		for (UploadTask task : tasks) {
+			try {
+				final Upload upload = task.getTaskResult().get();
+				cleanups.push("delete-blob/" + upload.name, upload.cleanup);
+				handlers.add(upload.handler);
+			}
+			catch (InterruptedException | ExecutionException error) {
+				final Throwable cause = (error instanceof ExecutionException) ? error.getCause() : error;
+				log.log(Level.WARNING, "Uploading snapshot image '" + task.id + "' failed!", cause);
+				if (failure == null) {
+					failure = (cause instanceof BWFLAException) ? (BWFLAException) cause
+							: new BWFLAException("Uploading snapshot image failed!", cause);
+				}
+			}
+		}
+
+		if (failure != null)
+			throw failure;
+
+		return handlers;
+	}
+
+	/** Returns true if the overlay has any data allocated in its top layer, or if that can't be determined */
+	public static boolean isModified(Path image, Logger log)
+	{
+		final ProcessRunner process = new ProcessRunner();
+		process.setCommand("qemu-img");
+		process.addArguments("map");
+		process.addArguments("--output", "json");
+		process.addArgument(image.toString());
+		process.setLogger(log);
+
+		try {
+			final ProcessRunner.Result result = process.executeWithResult(false)
+					.orElse(null);
+
+			if (result == null || !result.successful()) {
+				log.warning("Mapping image '" + image + "' failed! Assuming it was modified.");
+				return true;
+			}
+
+			return SnapshotUploader.isModified(result.stdout());
+		}
+		catch (Exception error) {
+			log.log(Level.WARNING, "Mapping image '" + image + "' failed! Assuming it was modified.", error);
+			return true;
+		}
+		finally {
+			process.cleanup();
+		}
+	}
+
+
+	/** Returns true if given output of "qemu-img map" contains any extents allocated in the top layer */
+	static boolean isModified(String mapping) throws IOException
+	{
+		// Every extent with depth 0 is allocated in the overlay itself
+		try (JsonParser parser = JSON_FACTORY.createParser(mapping)) {
+			JsonToken token;
+			while ((token = parser.nextToken()) != null) {
+				if (token != JsonToken.FIELD_NAME || !parser.getCurrentName().equals("depth"))
+					continue;
+
+				if (parser.nextToken() == JsonToken.VALUE_NUMBER_INT && parser.getIntValue() == 0)
+					return true;
+			}
+		}
+
+		return false;
+	}
+
+
+	/* ==================== Internal Helpers ==================== */
+
+	private UploadTask newUploadTask(String id, Path path)
+	{
+		switch (mode) {
+			case SOAP:
+				return new SoapUploadTask(id, path);
+			case S3:
+				return new S3UploadTask(id, path);
+			default:
+				throw new IllegalStateException("Unsupported upload mode: " + mode);
+		}
+	}
+
+	private static class Upload
+	{
+		private final String name;
+		private final BindingDataHandler handler;
+		private final TaskStack.IRunnable cleanup;
+
+		public Upload(String name, BindingDataHandler handler, TaskStack.IRunnable cleanup)
+		{
+			this.name = name;
+			this.handler = handler;
+			this.cleanup = cleanup;
+		}
+	}
+
+	private abstract class UploadTask extends BlockingTask<Upload>
+	{
+		protected final String id;
+		protected final Path path;
+
+		protected UploadTask(String id, Path path)
+		{
+			this.id = id;
+			this.path = path;
+		}
+
+		@Override
+		protected Upload execute() throws Exception
+		{
+			final long size = Files.size(path);
+			final long start = System.currentTimeMillis();
+			final Upload upload = this.upload();
+			final long duration = Math.max(System.currentTimeMillis() - start, 1L);
+			SnapshotUploader.this.log.info("Snapshot image '" + id + "' (" + StringUtils.toHumanSize(size) + ") uploaded in " + duration + " ms ("
+					+ StringUtils.toHumanSize(size * 1000L / duration) + "/s)");
+
+			return upload;
+		}
+
+		protected abstract Upload upload() throws Exception;
+
+		protected BindingDataHandler newBindingDataHandler(String location)
+		{
+			return new BindingDataHandler()
+					.setUrl(location)
+					.setId(id);
+		}
+	}
+
+	private class SoapUploadTask extends UploadTask
+	{
+		public SoapUploadTask(String id, Path path)
+		{
+			super(id, path);
+		}
+
+		@Override
+		protected Upload upload() throws Exception
+		{
+			final BlobStore blobstore = BlobStoreClient.get()
+					.getBlobStorePort(blobStoreAddressSoap);
+
+			final BlobDescription blob = new BlobDescription()
+					.setDescription("Snapshot for session " + componentId)
+					.setNamespace(NAMESPACE)
+					.setDataFromFile(path)
+					.setType(".qcow")
+					.setName(id);
+
+			final BlobHandle handle = blobstore.put(blob);
+			final TaskStack.IRunnable cleanup = () -> {
+				try {
+					blobstore.delete(handle);
+				}
+				catch (Exception exception) {
+					SnapshotUploader.this.log.log(Level.WARNING, "Removing snapshot-image from blobstore failed!", exception);
+				}
+			};
+
+			final String location = handle.toRestUrl(blobStoreRestAddress);
+			return new Upload(handle.getId(), this.newBindingDataHandler(location), cleanup);
+		}
+	}
+
+	private class S3UploadTask extends UploadTask
+	{
+		public S3UploadTask(String id, Path path)
+		{
+			super(id, path);
+		}
+
+		@Override
+		protected Upload upload() throws Exception
+		{
+			final de.bwl.bwfla.blobstore.BlobStore blobstore = de.bwl.bwfla.blobstore.BlobStore.create(SnapshotUploader.this.log);
+			final de.bwl.bwfla.blobstore.Blob blob = blobstore.blob(de.bwl.bwfla.blobstore.BlobStore.getDefaultBucket(),
+					NAMESPACE + "/" + componentId + "/" + id + ".qcow");
+
+			// Large files will be uploaded in multiple parts
+			blob.uploader()
+					.filename(path)
+					.contentType("application/octet-stream")
+					.userdata("description", "Snapshot for session " + componentId)
+					.upload();
+
+			final TaskStack.IRunnable cleanup = () -> {
+				try {
+					blob.remove();
+				}
+				catch (Exception exception) {
+					SnapshotUploader.this.log.log(Level.WARNING, "Removing snapshot-image from blobstore failed!", exception);
+				}
+			};
+
+			return new Upload(blob.name(), this.newBindingDataHandler(blob.newPreSignedGetUrl()), cleanup);
+		}
+	}
+}
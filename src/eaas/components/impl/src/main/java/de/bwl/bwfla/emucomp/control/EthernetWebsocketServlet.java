@@ -19,7 +19,6 @@
 
 package de.bwl.bwfla.emucomp.control;
 
-import java.io.IOException;
 import java.util.UUID;
 import java.util.logging.Level;
 
@@ -75,9 +74,7 @@ public class EthernetWebsocketServlet extends IPCWebsocketProxy{
         }
         catch (Throwable error) {
             log.log(Level.WARNING, "Setting up websocket proxy for component '" + componentId + "' failed!", error);
-            try {
-                session.close(new CloseReason(CloseReason.CloseCodes.GOING_AWAY, "component is gone"));
-            } catch (IOException ignore) { }
+            this.closeSession(session, new CloseReason(CloseReason.CloseCodes.GOING_AWAY, "component is gone"));
             this.stop(session);
         }
     }
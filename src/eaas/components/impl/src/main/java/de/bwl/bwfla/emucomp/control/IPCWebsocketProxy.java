@@ -1,63 +1,133 @@
 package de.bwl.bwfla.emucomp.control;
 
 import de.bwl.bwfla.common.exceptions.BWFLAException;
-import de.bwl.bwfla.common.utils.ProcessRunner;
+import de.bwl.bwfla.common.utils.StringUtils;
 import de.bwl.bwfla.emucomp.components.emulators.IpcSocket;
+import de.bwl.bwfla.emucomp.components.emulators.IpcSocketPoller;
 
 import javax.enterprise.concurrent.ManagedThreadFactory;
 import javax.websocket.*;
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public abstract class IPCWebsocketProxy {
 
     final static Logger log = Logger.getLogger(IPCWebsocketProxy.class.getName());
+
+    /** Shared pool of direct buffers for reading from io-sockets */
+    private static final BufferPool BUFFERS = new BufferPool(16 * 1024, 1024);
+
+    /** Max. time to wait for a socket to become ready, in ms */
+    private static final long SOCKET_READY_TIMEOUT = 60000L;
+
+    /** Interval for re-checking an existing socket, that is not listening yet, in ms */
+    private static final long SOCKET_LISTEN_RECHECK_INTERVAL = 50L;
+
     protected IpcSocket iosock;
     protected OutputStreamer streamer;
     protected String componentId;
+    protected final LinkMetrics metrics = new LinkMetrics();
+    private final AtomicBoolean stopped = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
 
 
     public static void wait(Path path) throws BWFLAException
     {
-        wait(path, Path.of("/proc"));
+        wait(path, path, Path.of("/proc"));
+    }
+
+    /**
+     * Waits until the socket at given host-side path exists and is listening
+     * on given path, as seen in the socket table of the procfs' network namespace.
+     */
+    public static void wait(Path sockpath, Path path, Path procfsPath) throws BWFLAException
+    {
+        wait(sockpath, path, procfsPath, SOCKET_READY_TIMEOUT);
     }
 
-    public static void wait(Path path, Path procfsPath) throws BWFLAException
+    static void wait(Path sockpath, Path path, Path procfsPath, long timeout) throws BWFLAException
     {
         log.info("Waiting for socket to become ready...");
 
-        final int timeout = 60000;  // in ms
-        final int waittime = 1000;  // in ms
-        for (int numretries = timeout / waittime; numretries > 0; --numretries) {
-
-            ProcessRunner runner = new ProcessRunner();
-            runner.setCommand("awk");
-            runner.addArgument("BEGIN {e=1} $8==sock && $4==\"00010000\" {e=0; exit} END {exit e}");
-            runner.addArgument("sock=" + path.toString());
-            runner.addArgument(procfsPath.resolve("net/unix").toString());
-            if (runner.execute(false)) {
-                log.info("socket seems to be ready now");
-                return;
-            }
+        final long deadline = System.currentTimeMillis() + timeout;
+        final Path sockets = procfsPath.resolve("net/unix");
+        try (WatchService watcher = sockpath.getFileSystem().newWatchService()) {
+            // Sockets are (re-)created in their directory, before listening on them
+            sockpath.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+            long remaining = timeout;
+            do {
+                final boolean exists = Files.exists(sockpath);
+                if (exists && IPCWebsocketProxy.isListening(sockets, path.toString())) {
+                    log.info("socket seems to be ready now");
+                    return;
+                }
 
-            try {
-                Thread.sleep(waittime);
-            }
-            catch (Exception error) {
-                // Ignore it!
+                // Calls to listen() produce no directory events, but follow bind() closely
+                final long waittime = (exists) ? Math.min(remaining, SOCKET_LISTEN_RECHECK_INTERVAL) : remaining;
+                final WatchKey key = watcher.poll(waittime, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    if (!key.reset())
+                        break;  // Socket's directory is gone!
+                }
+
+                remaining = deadline - System.currentTimeMillis();
             }
+            while (remaining > 0L);
+        }
+        catch (IOException error) {
+            throw new BWFLAException("Watching socket's directory failed!", error);
+        }
+        catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+            throw new BWFLAException("Waiting for socket was interrupted!", error);
         }
 
         throw new BWFLAException("Socket is not available!");
     }
 
+    /** Returns true, if a listening socket with given path is found in procfs' socket table */
+    private static boolean isListening(Path sockets, String path)
+    {
+        // Format: Num RefCount Protocol Flags Type St Inode Path
+        try (BufferedReader reader = Files.newBufferedReader(sockets)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] fields = line.trim().split("\\s+");
+                if (fields.length >= 8 && fields[3].equals("00010000") && fields[7].equals(path))
+                    return true;
+            }
+        }
+        catch (IOException error) {
+            log.log(Level.FINE, "Reading socket table failed!", error);
+        }
+
+        return false;
+    }
+
     protected void stop(Session session)
     {
+        if (!stopped.compareAndSet(false, true))
+            return;
+
         log.info("Stopping websocket proxy for component '" + componentId + "'...");
 
+        // Waits until the io-socket is not polled anymore
         if (streamer != null && streamer.isRunning()) {
             try {
                 streamer.stop();
@@ -76,14 +146,23 @@ public abstract class IPCWebsocketProxy {
             }
         }
 
+        this.closeSession(session, new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, null));
+
+        log.info("Websocket proxy for component '" + componentId + "' stopped. " + metrics);
+    }
+
+    /** Closes the websocket session, if not already closed */
+    protected void closeSession(Session session, CloseReason reason)
+    {
+        if (!closed.compareAndSet(false, true) || !session.isOpen())
+            return;
+
         try {
-            session.close();
+            session.close(reason);
         }
         catch (Exception error) {
             log.log(Level.WARNING, "Closing websocket session failed!", error);
         }
-
-        log.info("Websocket proxy for component '" + componentId + "' stopped");
     }
 
     @OnMessage
@@ -91,6 +170,8 @@ public abstract class IPCWebsocketProxy {
     {
         // Forward message from client to iosocket
         iosock.send(message, true);
+        metrics.numClientMessages.increment();
+        metrics.numClientBytes.add(message.length);
     }
 
     @OnClose
@@ -108,16 +189,30 @@ public abstract class IPCWebsocketProxy {
         this.stop(session);
     }
 
-    protected class OutputStreamer implements Runnable
+    /**
+     * Forwards data from io-socket to client, without a dedicated thread.
+     * <p/>
+     * The io-socket is watched by a shared poller. When data is available, it is read into
+     * a pooled buffer and sent asynchronously. The socket is polled again after the send completed.
+     */
+    protected class OutputStreamer implements IpcSocketPoller.Handler
     {
-        private final Thread worker;
         private final Session session;
-        private boolean running;
+        private final ManagedThreadFactory wfactory;
+        private final ByteBuffer ping;
+        private final AtomicBoolean sending;
+        private IpcSocketPoller poller;
+        private IpcSocketPoller.Registration registration;
+        private long nextPingTimestamp;
+        private volatile boolean running;
 
         public OutputStreamer(Session session, ManagedThreadFactory wfactory)
         {
-            this.worker = wfactory.newThread(this);
             this.session = session;
+            this.wfactory = wfactory;
+            this.ping = ByteBuffer.allocate(1);
+            this.sending = new AtomicBoolean(false);
+            this.nextPingTimestamp = 0L;
             this.running = false;
         }
 
@@ -126,56 +221,201 @@ public abstract class IPCWebsocketProxy {
             return running;
         }
 
-        public void start()
+        public void start() throws IOException
         {
             running = true;
-            worker.start();
+            poller = IpcSocketPoller.get(wfactory);
+            registration = poller.register(iosock, this);
         }
 
-        public void stop() throws InterruptedException
+        /** Stops forwarding, returns when the io-socket is not used by the poller anymore */
+        public void stop()
         {
+            if (!running)
+                return;
+
             running = false;
-            worker.join();
+            if (registration != null)
+                registration.cancel();
+
+            final String message = "Server requested to closed connection!";
+            IPCWebsocketProxy.this.closeSession(session, new CloseReason(CloseReason.CloseCodes.GOING_AWAY, message));
         }
 
         @Override
-        public void run()
+        public void onReadable(IpcSocketPoller.Registration registration)
         {
-            try {
-                final ByteBuffer buffer = ByteBuffer.allocate(4 * 1024);
-                final ByteBuffer ping = ByteBuffer.allocate(1);
-
-                long nextPingTimestamp = 0L;
+            if (!running)
+                return;
 
-                while (running) {
-                    if (!session.isOpen())
-                        break;
+            if (!session.isOpen()) {
+                poller.execute(this::stop);
+                return;
+            }
 
-                    final var curtime = System.currentTimeMillis();
-                    if (curtime > nextPingTimestamp) {
-                        // not sure what the payload should be
-                        session.getBasicRemote()
-                                .sendPing(ping);
+            final long startTimestamp = System.nanoTime();
+            final ByteBuffer buffer = BUFFERS.acquire();
+            try {
+                if (!iosock.receive(buffer, false)) {
+                    // Spurious wakeup, no data available yet
+                    BUFFERS.release(buffer);
+                    registration.arm();
+                    return;
+                }
+            }
+            catch (Exception error) {
+                BUFFERS.release(buffer);
+                this.fail(error);
+                return;
+            }
 
-                        nextPingTimestamp = curtime + (60L * 1000L);
-                    }
+            final int length = buffer.remaining();
+            sending.set(true);
+            session.getAsyncRemote()
+                    .sendBinary(buffer, (result) -> {
+                        BUFFERS.release(buffer);
+                        sending.set(false);
+                        if (!result.isOK()) {
+                            this.fail(result.getException());
+                            return;
+                        }
+
+                        metrics.update(length, System.nanoTime() - startTimestamp);
+                        registration.arm();
+                    });
+        }
 
-                    if (!iosock.receive(buffer, 1000))
-                        continue;
+        @Override
+        public void onTick(IpcSocketPoller.Registration registration, long curtime)
+        {
+            // Ping only idle sessions, where no sends are in progress
+            if (!running || !registration.isArmed() || curtime < nextPingTimestamp)
+                return;
 
-                    session.getBasicRemote()
-                            .sendBinary(buffer);
-                }
+            // Sends are started only on poller's thread, hence
+            // no new send can start while the ping is in progress
+            if (!sending.compareAndSet(false, true))
+                return;
 
-                final String message = "Server requested to closed connection!";
-                session.close(new CloseReason(CloseReason.CloseCodes.GOING_AWAY, message));
+            try {
+                // not sure what the payload should be
+                session.getAsyncRemote()
+                        .sendPing(ping.duplicate());
             }
             catch (Exception error) {
+                this.fail(error);
+                return;
+            }
+            finally {
+                sending.set(false);
+            }
+
+            nextPingTimestamp = curtime + (60L * 1000L);
+        }
+
+        private void fail(Throwable error)
+        {
+            if (!running)
+                return;
+
+            running = false;
+            registration.cancel();
+
+            // Closing the session may block, do it outside of poller's thread
+            poller.execute(() -> {
                 log.log(Level.WARNING, "Forwarding from io-socket to client failed!", error);
-                try {
-                    session.close(new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION, error.getMessage()));
-                } catch (IOException ignore) { }
+                final CloseReason reason = new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION, error.getMessage());
+                IPCWebsocketProxy.this.closeSession(session, reason);
+            });
+        }
+    }
+
+    /** Throughput and latency counters of a websocket link */
+    protected static class LinkMetrics
+    {
+        private final long startTimestamp = System.currentTimeMillis();
+        private final LongAdder numClientMessages = new LongAdder();
+        private final LongAdder numClientBytes = new LongAdder();
+        private final LongAdder numServerMessages = new LongAdder();
+        private final LongAdder numServerBytes = new LongAdder();
+        private final LongAdder totalLatency = new LongAdder();
+        private final AtomicLong maxLatency = new AtomicLong(0L);
+
+        /** Records a message sent to client, with latency from reading it until it was sent */
+        public void update(int length, long latency)
+        {
+            numServerMessages.increment();
+            numServerBytes.add(length);
+            totalLatency.add(latency);
+            maxLatency.accumulateAndGet(latency, Math::max);
+        }
+
+        public long getNumServerBytes()
+        {
+            return numServerBytes.sum();
+        }
+
+        public long getNumClientBytes()
+        {
+            return numClientBytes.sum();
+        }
+
+        /** Returns the average latency of sending messages to client, in microseconds */
+        public long getAverageLatency()
+        {
+            final long count = numServerMessages.sum();
+            return (count > 0L) ? totalLatency.sum() / count / 1000L : 0L;
+        }
+
+        @Override
+        public String toString()
+        {
+            final long duration = Math.max(System.currentTimeMillis() - startTimestamp, 1L);
+            final long outbytes = numServerBytes.sum();
+            final long inbytes = numClientBytes.sum();
+            return "To client: " + numServerMessages.sum() + " message(s), " + StringUtils.toHumanSize(outbytes)
+                    + " (" + StringUtils.toHumanSize(outbytes * 1000L / duration) + "/s), latency avg/max: "
+                    + this.getAverageLatency() + "/" + (maxLatency.get() / 1000L) + " usecs. "
+                    + "From client: " + numClientMessages.sum() + " message(s), " + StringUtils.toHumanSize(inbytes)
+                    + " (" + StringUtils.toHumanSize(inbytes * 1000L / duration) + "/s)";
+        }
+    }
+
+    /** Bounded pool of equally sized direct buffers */
+    private static class BufferPool
+    {
+        private final ConcurrentLinkedQueue<ByteBuffer> buffers;
+        private final AtomicInteger numPooledBuffers;
+        private final int bufsize;
+        private final int capacity;
+
+        public BufferPool(int bufsize, int capacity)
+        {
+            this.buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+            this.numPooledBuffers = new AtomicInteger(0);
+            this.bufsize = bufsize;
+            this.capacity = capacity;
+        }
+
+        public ByteBuffer acquire()
+        {
+            final ByteBuffer buffer = buffers.poll();
+            if (buffer == null)
+                return ByteBuffer.allocateDirect(bufsize);
+
+            numPooledBuffers.decrementAndGet();
+            return buffer;
+        }
+
+        public void release(ByteBuffer buffer)
+        {
+            if (numPooledBuffers.incrementAndGet() > capacity) {
+                numPooledBuffers.decrementAndGet();
+                return;  // Pool is full, let GC collect it
             }
+
+            buffer.clear();
+            buffers.offer(buffer);
         }
     }
 }
@@ -98,6 +98,7 @@ public class EthernetConnector implements IConnector {
 
         runner.addEnvVariable("SOCATCMD", socatExec);
         runner.addArgument("exec:sh -c $SOCATCMD");
+        runner.captureOutput(false);
         if (!runner.start())
             throw new BWFLAException("Running emulator-side vde-plug failed!");
 
@@ -27,6 +27,7 @@ public class XpraUtils
         runner.addArgValue(command);
         // temporary hotfix
         runner.addEnvVariable("XDG_RUNTIME_DIR", "/tmp/" + port);
+        runner.captureOutput(false);
         return runner.start();
     }
 
@@ -42,6 +43,7 @@ public class XpraUtils
         runner.addArgument("--html=on");
         // temporary hotfix
         runner.addEnvVariable("XDG_RUNTIME_DIR", "/tmp/" + port);
+        runner.captureOutput(false);
         return runner.start();
     }
 
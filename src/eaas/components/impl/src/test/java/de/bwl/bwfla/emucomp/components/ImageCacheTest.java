@@ -0,0 +1,447 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.emucomp.components;
+
+import de.bwl.bwfla.common.exceptions.BWFLAException;
+import de.bwl.bwfla.emucomp.api.Binding;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+
+public class ImageCacheTest
+{
+	private static final Logger LOG = Logger.getLogger(ImageCacheTest.class.getName());
+
+	private static final int IMAGE_SIZE = 64;
+
+	private Path basedir;
+
+
+	@Before
+	public void setUp() throws IOException
+	{
+		basedir = Files.createTempDirectory("image-cache-");
+	}
+
+	@After
+	public void tearDown() throws IOException
+	{
+		try (Stream<Path> files = Files.walk(basedir)) {
+			files.sorted(Comparator.reverseOrder())
+					.forEach((file) -> file.toFile().delete());
+		}
+	}
+
+	@Test
+	public void testCacheKeys()
+	{
+		final String expected = "http://resolver/emil/images/abc";
+		Assert.assertEquals(expected, ImageCache.toCacheKey("http://resolver/emil/components/c1/images/abc"));
+		Assert.assertEquals(expected, ImageCache.toCacheKey("http://resolver/emil/t/token/components/c2/images/abc?x=1"));
+		Assert.assertEquals("http://host/image.qcow2", ImageCache.toCacheKey("http://host/image.qcow2#fragment"));
+	}
+
+	@Test
+	public void testHitsAndMisses() throws Exception
+	{
+		final TestImageCache cache = new TestImageCache(basedir, 10L * IMAGE_SIZE);
+		try (ImageCache.Lease lease = cache.acquire(binding("http://resolver/components/c1/images/a"))) {
+			Assert.assertTrue(Files.exists(lease.path()));
+		}
+
+		// Same image, requested by another session
+		try (ImageCache.Lease lease = cache.acquire(binding("http://resolver/components/c2/images/a"))) {
+			Assert.assertTrue(Files.exists(lease.path()));
+		}
+
+		Assert.assertEquals(1, cache.numDownloads.get());
+		Assert.assertEquals(1L, cache.getNumHits());
+		Assert.assertEquals(1L, cache.getNumMisses());
+		Assert.assertEquals(IMAGE_SIZE, cache.size());
+		Assert.assertEquals(IMAGE_SIZE, cache.getNumBytesDownloaded());
+	}
+
+	@Test
+	public void testSingleFlightDownload() throws Exception
+	{
+		final int numSessions = 8;
+		// Unused images are evicted immediately
+		final TestImageCache cache = new TestImageCache(basedir, IMAGE_SIZE / 2);
+		cache.gate = new CountDownLatch(1);
+
+		final ExecutorService executor = Executors.newFixedThreadPool(numSessions);
+		try {
+			final List<Future<ImageCache.Lease>> results = new ArrayList<>();
+			for (int i = 0; i < numSessions; ++i) {
+				final Binding binding = binding("http://resolver/components/c" + i + "/images/a");
+				results.add(executor.submit(() -> cache.acquire(binding)));
+			}
+
+			// Wait until all sessions requested the image, then finish the download
+			ImageCacheTest.awaitNumMisses(cache, numSessions);
+			cache.gate.countDown();
+
+			final List<ImageCache.Lease> leases = new ArrayList<>();
+			for (Future<ImageCache.Lease> result : results)
+				leases.add(result.get(10L, TimeUnit.SECONDS));
+
+			Assert.assertEquals(1, cache.numDownloads.get());
+			for (ImageCache.Lease lease : leases)
+				Assert.assertEquals(leases.get(0).path(), lease.path());
+
+			// The image must stay cached, until all sessions released it
+			for (int i = 0; i < numSessions - 1; ++i) {
+				leases.get(i).close();
+				Assert.assertEquals(1, cache.getNumEntries());
+			}
+
+			leases.get(numSessions - 1).close();
+			Assert.assertEquals(0, cache.getNumEntries());
+			Assert.assertEquals(0L, cache.size());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testInterruptedWaiterReleasesImage() throws Exception
+	{
+		// Unused images are evicted immediately
+		final TestImageCache cache = new TestImageCache(basedir, IMAGE_SIZE / 2);
+		cache.gate = new CountDownLatch(1);
+
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final Future<ImageCache.Lease> result = executor.submit(() -> cache.acquire(binding("http://host/a")));
+			ImageCacheTest.awaitNumMisses(cache, 1);
+
+			// Another session waits for the same download, but gets interrupted
+			final AtomicReference<Exception> failure = new AtomicReference<>();
+			final Thread waiter = new Thread(() -> {
+				try {
+					cache.acquire(binding("http://host/a")).close();
+				}
+				catch (Exception error) {
+					failure.set(error);
+				}
+			});
+
+			waiter.start();
+			ImageCacheTest.awaitNumMisses(cache, 2);
+			waiter.interrupt();
+			waiter.join(10000L);
+			Assert.assertFalse(waiter.isAlive());
+			Assert.assertTrue(failure.get() instanceof BWFLAException);
+
+			cache.gate.countDown();
+			final ImageCache.Lease lease = result.get(10L, TimeUnit.SECONDS);
+			Assert.assertEquals(1, cache.getNumEntries());
+
+			// The image must not be pinned by the interrupted session
+			lease.close();
+			Assert.assertEquals(0, cache.getNumEntries());
+			Assert.assertEquals(0L, cache.size());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testFailedDownloadIsNotCached() throws Exception
+	{
+		final TestImageCache cache = new TestImageCache(basedir, 10L * IMAGE_SIZE);
+		cache.failures.set(1);
+		try {
+			cache.acquire(binding("http://host/a"));
+			Assert.fail("Download failure expected!");
+		}
+		catch (BWFLAException error) {
+			// Expected!
+		}
+
+		Assert.assertEquals(0, cache.getNumEntries());
+		try (Stream<Path> files = Files.list(basedir)) {
+			Assert.assertEquals(0L, files.count());
+		}
+
+		// Next request must retry the download
+		try (ImageCache.Lease lease = cache.acquire(binding("http://host/a"))) {
+			Assert.assertTrue(Files.exists(lease.path()));
+		}
+
+		Assert.assertEquals(1, cache.getNumEntries());
+	}
+
+	@Test
+	public void testReleaseTooOften() throws Exception
+	{
+		final TestImageCache cache = new TestImageCache(basedir, 10L * IMAGE_SIZE);
+		final ImageCache.Lease lease = cache.acquire(binding("http://host/a"));
+		lease.close();
+		lease.close();  // must be a no-op
+		Assert.assertEquals(1, cache.getNumEntries());
+	}
+
+	@Test
+	public void testEvictionInLruOrder() throws Exception
+	{
+		final TestImageCache cache = new TestImageCache(basedir, 2L * IMAGE_SIZE);
+		cache.acquire(binding("http://host/a")).close();
+		cache.acquire(binding("http://host/b")).close();
+		cache.acquire(binding("http://host/a")).close();
+
+		// Least recently used image is 'b'
+		cache.acquire(binding("http://host/c")).close();
+		Assert.assertEquals(2, cache.getNumEntries());
+		Assert.assertEquals(2L * IMAGE_SIZE, cache.size());
+		Assert.assertEquals(IMAGE_SIZE, cache.getNumBytesEvicted());
+
+		final int numDownloads = cache.numDownloads.get();
+		cache.acquire(binding("http://host/a")).close();
+		cache.acquire(binding("http://host/c")).close();
+		Assert.assertEquals(numDownloads, cache.numDownloads.get());
+
+		cache.acquire(binding("http://host/b")).close();
+		Assert.assertEquals(numDownloads + 1, cache.numDownloads.get());
+	}
+
+	@Test
+	public void testLeasedImagesAreNotEvicted() throws Exception
+	{
+		final TestImageCache cache = new TestImageCache(basedir, IMAGE_SIZE);
+		final ImageCache.Lease a = cache.acquire(binding("http://host/a"));
+		final ImageCache.Lease b = cache.acquire(binding("http://host/b"));
+
+		// Both images are in use, the capacity is exceeded temporarily
+		Assert.assertEquals(2, cache.getNumEntries());
+		Assert.assertTrue(Files.exists(a.path()));
+		Assert.assertTrue(Files.exists(b.path()));
+
+		final Path path = a.path();
+		a.close();
+		Assert.assertEquals(1, cache.getNumEntries());
+		Assert.assertFalse(Files.exists(path));
+		Assert.assertTrue(Files.exists(b.path()));
+		b.close();
+	}
+
+	@Test
+	public void testETagVersions() throws Exception
+	{
+		final TestImageCache cache = new TestImageCache(basedir, 10L * IMAGE_SIZE);
+		final String url = "http://host/a";
+
+		cache.etags.put(url, "\"v1\"");
+		final Path v1;
+		try (ImageCache.Lease lease = cache.acquire(binding(url))) {
+			v1 = lease.path();
+		}
+
+		// Changed images must be downloaded again
+		cache.etags.put(url, "\"v2\"");
+		final Path v2;
+		try (ImageCache.Lease lease = cache.acquire(binding(url))) {
+			v2 = lease.path();
+		}
+
+		Assert.assertNotEquals(v1, v2);
+		Assert.assertEquals(2, cache.numDownloads.get());
+
+		// Without an ETag, the most recent version is reused
+		cache.etags.remove(url);
+		try (ImageCache.Lease lease = cache.acquire(binding(url))) {
+			Assert.assertEquals(v2, lease.path());
+		}
+
+		Assert.assertEquals(2, cache.numDownloads.get());
+	}
+
+	@Test
+	public void testRestoreOnStartup() throws Exception
+	{
+		final TestImageCache cache = new TestImageCache(basedir, 10L * IMAGE_SIZE);
+		final Path a;
+		try (ImageCache.Lease lease = cache.acquire(binding("http://host/a"))) {
+			a = lease.path();
+		}
+
+		cache.acquire(binding("http://host/b")).close();
+		cache.etags.put("http://host/c", "\"v1\"");
+		cache.acquire(binding("http://host/c")).close();
+
+		// Leftovers of interrupted downloads and orphaned metadata
+		final Path partial = Files.createFile(basedir.resolve("partial.part"));
+		final Path orphan = Files.createFile(basedir.resolve("orphan.meta"));
+
+		final TestImageCache restored = new TestImageCache(basedir, 10L * IMAGE_SIZE);
+		restored.etags.put("http://host/c", "\"v1\"");
+		Assert.assertEquals(3, restored.getNumEntries());
+		Assert.assertEquals(3L * IMAGE_SIZE, restored.size());
+		Assert.assertFalse(Files.exists(partial));
+		Assert.assertFalse(Files.exists(orphan));
+
+		try (ImageCache.Lease lease = restored.acquire(binding("http://host/a"))) {
+			Assert.assertEquals(a, lease.path());
+		}
+
+		restored.acquire(binding("http://host/b")).close();
+		restored.acquire(binding("http://host/c")).close();
+		Assert.assertEquals(0, restored.numDownloads.get());
+		Assert.assertEquals(3L, restored.getNumHits());
+	}
+
+	@Test
+	public void testRestoreEvictsOverCapacity() throws Exception
+	{
+		final TestImageCache cache = new TestImageCache(basedir, 10L * IMAGE_SIZE);
+		cache.acquire(binding("http://host/a")).close();
+		cache.acquire(binding("http://host/b")).close();
+		cache.acquire(binding("http://host/c")).close();
+
+		final TestImageCache restored = new TestImageCache(basedir, 2L * IMAGE_SIZE);
+		Assert.assertEquals(2, restored.getNumEntries());
+		Assert.assertEquals(2L * IMAGE_SIZE, restored.size());
+	}
+
+	@Test
+	public void testInaccessibleImagesAreNotServed() throws Exception
+	{
+		final AtomicInteger status = new AtomicInteger(200);
+		final HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", (exchange) -> {
+			exchange.sendResponseHeaders(status.get(), -1);
+			exchange.close();
+		});
+
+		server.start();
+		try {
+			final String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/images/a";
+			final TestImageCache cache = new TestImageCache(basedir, 10L * IMAGE_SIZE);
+			cache.remote = true;
+
+			// Server provides no ETag
+			cache.acquire(binding(url)).close();
+			cache.acquire(binding(url)).close();
+			Assert.assertEquals(1, cache.numDownloads.get());
+
+			for (int code : new int[] { 401, 403, 404, 500 }) {
+				status.set(code);
+				try {
+					cache.acquire(binding(url)).close();
+					Assert.fail("Cached image served for status " + code);
+				}
+				catch (BWFLAException error) {
+					// Expected!
+				}
+			}
+
+			Assert.assertEquals(1L, cache.getNumHits());
+		}
+		finally {
+			server.stop(0);
+		}
+	}
+
+
+	// ========== Internal Helpers ==============================
+
+	private static void awaitNumMisses(ImageCache cache, long expected) throws InterruptedException
+	{
+		final long deadline = System.currentTimeMillis() + 10000L;
+		while (cache.getNumMisses() < expected && System.currentTimeMillis() < deadline)
+			Thread.sleep(10L);
+
+		Assert.assertEquals(expected, cache.getNumMisses());
+	}
+
+	private static Binding binding(String url)
+	{
+		final Binding binding = new Binding();
+		binding.setUrl(url);
+		return binding;
+	}
+
+	private static class TestImageCache extends ImageCache
+	{
+		private final Map<String, String> etags = new ConcurrentHashMap<>();
+		private final AtomicInteger numDownloads = new AtomicInteger(0);
+		private final AtomicInteger failures = new AtomicInteger(0);
+		private volatile CountDownLatch gate = null;
+		private volatile boolean remote = false;
+
+		public TestImageCache(Path basedir, long capacity) throws IOException
+		{
+			super(basedir, capacity, LOG);
+		}
+
+		@Override
+		protected String fetchETag(String url, String username, String password) throws BWFLAException
+		{
+			return (remote) ? super.fetchETag(url, username, password) : etags.get(url);
+		}
+
+		@Override
+		protected void fetch(String url, String username, String password, Path target) throws BWFLAException
+		{
+			try {
+				if (gate != null && !gate.await(10L, TimeUnit.SECONDS))
+					throw new BWFLAException("Download timed out!");
+
+				if (failures.getAndUpdate((n) -> Math.max(0, n - 1)) > 0)
+					throw new BWFLAException("Download failed!");
+
+				// Raw images without backing files
+				final byte[] data = new byte[IMAGE_SIZE];
+				data[0] = (byte) url.hashCode();
+				Files.write(target, data);
+				numDownloads.incrementAndGet();
+			}
+			catch (InterruptedException | IOException error) {
+				throw new BWFLAException(error);
+			}
+		}
+	}
+}
@@ -0,0 +1,223 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.bwl.bwfla.emucomp.components.emulators;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+
+public class IpcSocketPollerTest
+{
+	private Path basedir;
+	private IpcSocket server;
+	private IpcSocket client;
+	private IpcSocketPoller poller;
+
+
+	@Before
+	public void setUp() throws IOException
+	{
+		basedir = Files.createTempDirectory("ipc-poller-");
+		final String sockname = basedir.resolve("server.sock").toString();
+		server = IpcSocket.create(sockname, IpcSocket.Type.DGRAM);
+		client = IpcSocket.connect(sockname, IpcSocket.Type.DGRAM, 1, TimeUnit.SECONDS);
+		poller = IpcSocketPoller.get(Executors.defaultThreadFactory());
+	}
+
+	@After
+	public void tearDown() throws IOException
+	{
+		IpcSocketPoller.shutdown();
+		client.close();
+		server.close();
+
+		try (Stream<Path> files = Files.walk(basedir)) {
+			files.sorted(Comparator.reverseOrder())
+					.forEach((file) -> file.toFile().delete());
+		}
+	}
+
+	@Test
+	public void testReadableSocketIsDispatched() throws Exception
+	{
+		final ReceivingHandler handler = new ReceivingHandler();
+		final IpcSocketPoller.Registration registration = poller.register(server, handler);
+		this.send("hello");
+
+		Assert.assertTrue(handler.received.await(5L, TimeUnit.SECONDS));
+		Assert.assertEquals(1, handler.numMessages.get());
+		Assert.assertFalse(registration.isArmed());
+		registration.cancel();
+	}
+
+	@Test
+	public void testDisarmedSocketIsNotDispatchedUntilRearmed() throws Exception
+	{
+		final ReceivingHandler handler = new ReceivingHandler();
+		final IpcSocketPoller.Registration registration = poller.register(server, handler);
+		this.send("first");
+		Assert.assertTrue(handler.received.await(5L, TimeUnit.SECONDS));
+
+		handler.received = new CountDownLatch(1);
+		this.send("second");
+		Assert.assertFalse(handler.received.await(200L, TimeUnit.MILLISECONDS));
+		Assert.assertEquals(1, handler.numMessages.get());
+
+		registration.arm();
+		Assert.assertTrue(handler.received.await(5L, TimeUnit.SECONDS));
+		Assert.assertEquals(2, handler.numMessages.get());
+		registration.cancel();
+	}
+
+	@Test
+	public void testCancelledSocketIsNotDispatched() throws Exception
+	{
+		final ReceivingHandler handler = new ReceivingHandler();
+		final IpcSocketPoller.Registration registration = poller.register(server, handler);
+		registration.cancel();
+		Assert.assertTrue(registration.isCancelled());
+		Assert.assertEquals(0, poller.getNumRegistrations());
+
+		this.send("ignored");
+		Assert.assertFalse(handler.received.await(200L, TimeUnit.MILLISECONDS));
+		Assert.assertEquals(0, handler.numMessages.get());
+
+		// Re-arming a cancelled registration should have no effect
+		registration.arm();
+		Assert.assertFalse(registration.isArmed());
+	}
+
+	@Test
+	public void testRegisteredSocketsAreTicked() throws Exception
+	{
+		final CountDownLatch ticked = new CountDownLatch(2);
+		final IpcSocketPoller.Registration registration = poller.register(server, new IpcSocketPoller.Handler() {
+			@Override
+			public void onReadable(IpcSocketPoller.Registration registration)
+			{
+				// Empty!
+			}
+
+			@Override
+			public void onTick(IpcSocketPoller.Registration registration, long curtime)
+			{
+				ticked.countDown();
+			}
+		});
+
+		Assert.assertTrue(ticked.await(5L, TimeUnit.SECONDS));
+		registration.cancel();
+	}
+
+	@Test
+	public void testStoppedPollerRejectsRegistrations() throws Exception
+	{
+		IpcSocketPoller.shutdown();
+		try {
+			poller.register(server, new ReceivingHandler());
+			Assert.fail("Registering with a stopped poller should fail!");
+		}
+		catch (IOException error) {
+			// Expected!
+		}
+	}
+
+	@Test
+	public void testExecutorIsBounded() throws Exception
+	{
+		final ThreadPoolExecutor executor = IpcSocketPoller.newExecutor(Executors.defaultThreadFactory());
+		final int maxNumThreads = executor.getMaximumPoolSize();
+		final int numTasks = 4 * maxNumThreads;
+		final CountDownLatch gate = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(numTasks);
+		final AtomicInteger numRunning = new AtomicInteger(0);
+		final AtomicInteger maxNumRunning = new AtomicInteger(0);
+		try {
+			for (int i = 0; i < numTasks; ++i) {
+				executor.execute(() -> {
+					maxNumRunning.accumulateAndGet(numRunning.incrementAndGet(), Math::max);
+					try {
+						gate.await();
+					}
+					catch (InterruptedException error) {
+						Thread.currentThread().interrupt();
+					}
+
+					numRunning.decrementAndGet();
+					done.countDown();
+				});
+			}
+
+			Assert.assertTrue(executor.getPoolSize() <= maxNumThreads);
+			Assert.assertEquals(numTasks - executor.getPoolSize(), executor.getQueue().size());
+
+			gate.countDown();
+			Assert.assertTrue(done.await(5L, TimeUnit.SECONDS));
+			Assert.assertTrue(maxNumRunning.get() <= maxNumThreads);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+
+	// ========== Internal Helpers ==============================
+
+	private void send(String message) throws IOException
+	{
+		Assert.assertTrue(client.send(message.getBytes(StandardCharsets.UTF_8), true));
+	}
+
+	private static class ReceivingHandler implements IpcSocketPoller.Handler
+	{
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(IpcSocket.DEFAULT_MSGBUFFER_CAPACITY);
+		private final AtomicInteger numMessages = new AtomicInteger(0);
+		private volatile CountDownLatch received = new CountDownLatch(1);
+
+		@Override
+		public void onReadable(IpcSocketPoller.Registration registration)
+		{
+			try {
+				while (registration.socket().receive(buffer, false))
+					numMessages.incrementAndGet();
+			}
+			catch (IOException error) {
+				throw new IllegalStateException(error);
+			}
+
+			received.countDown();
+		}
+	}
+}
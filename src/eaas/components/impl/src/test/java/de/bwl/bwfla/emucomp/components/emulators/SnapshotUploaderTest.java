@@ -0,0 +1,99 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.bwl.bwfla.emucomp.components.emulators;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.logging.Logger;
+
+
+public class SnapshotUploaderTest
+{
+	private static final Logger LOG = Logger.getLogger(SnapshotUploaderTest.class.getName());
+
+
+	@Test
+	public void testUnmodifiedOverlay() throws IOException
+	{
+		final String mapping = "["
+				+ SnapshotUploaderTest.extent(0L, 65536L, 1, true)
+				+ "," + SnapshotUploaderTest.extent(65536L, 1048576L, 1, false)
+				+ "]";
+
+		Assert.assertFalse(SnapshotUploader.isModified(mapping));
+	}
+
+	@Test
+	public void testModifiedOverlay() throws IOException
+	{
+		final String mapping = "["
+				+ SnapshotUploaderTest.extent(0L, 65536L, 1, true)
+				+ "," + SnapshotUploaderTest.extent(65536L, 65536L, 0, true)
+				+ "," + SnapshotUploaderTest.extent(131072L, 1048576L, 1, false)
+				+ "]";
+
+		Assert.assertTrue(SnapshotUploader.isModified(mapping));
+	}
+
+	@Test
+	public void testEmptyMapping() throws IOException
+	{
+		Assert.assertFalse(SnapshotUploader.isModified("[]"));
+	}
+
+	@Test
+	public void testOnlyDepthFieldsAreChecked() throws IOException
+	{
+		// Other fields with zero values must not be taken as top-layer extents
+		final String mapping = "[{ \"start\": 0, \"length\": 0, \"offset\": 0, \"depth\": 2, \"present\": true }]";
+		Assert.assertFalse(SnapshotUploader.isModified(mapping));
+	}
+
+	@Test
+	public void testMalformedMapping()
+	{
+		try {
+			SnapshotUploader.isModified("[{ \"depth\": ");
+			Assert.fail("Parsing a truncated mapping should fail!");
+		}
+		catch (IOException error) {
+			// Expected!
+		}
+	}
+
+	@Test
+	public void testUnmappableImageIsAssumedModified()
+	{
+		final Path image = Path.of("/nonexistent", "snapshot-" + System.nanoTime() + ".qcow2");
+		Assert.assertTrue(SnapshotUploader.isModified(image, LOG));
+	}
+
+
+	// ========== Internal Helpers ==============================
+
+	private static String extent(long start, long length, int depth, boolean data)
+	{
+		return String.format("{ \"start\": %d, \"length\": %d, \"depth\": %d, \"present\": true, \"zero\": %b, \"data\": %b }",
+				start, length, depth, !data, data);
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.bwl.bwfla.emucomp.control;
+
+import de.bwl.bwfla.common.exceptions.BWFLAException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+
+public class IPCWebsocketProxyTest
+{
+	private static final String SOCKET_TABLE_HEADER = "Num       RefCount Protocol Flags    Type St Inode Path\n";
+
+	private Path basedir;
+	private Path procfs;
+	private Path sockpath;
+
+
+	@Before
+	public void setUp() throws IOException
+	{
+		basedir = Files.createTempDirectory("ipc-proxy-");
+		procfs = Files.createDirectories(basedir.resolve("proc/net")).getParent();
+		sockpath = Files.createDirectories(basedir.resolve("sockets")).resolve("xpra-iosocket");
+		this.writeSocketTable();
+	}
+
+	@After
+	public void tearDown() throws IOException
+	{
+		try (Stream<Path> files = Files.walk(basedir)) {
+			files.sorted(Comparator.reverseOrder())
+					.forEach((file) -> file.toFile().delete());
+		}
+	}
+
+	@Test
+	public void testListeningSocketIsReady() throws Exception
+	{
+		Files.createFile(sockpath);
+		this.writeSocketTable(listening("/tmp/xpra-iosocket"));
+		IPCWebsocketProxy.wait(sockpath, Path.of("/tmp/xpra-iosocket"), procfs, 1000L);
+	}
+
+	@Test
+	public void testWaitsForSocketCreation() throws Exception
+	{
+		final CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+			try {
+				IPCWebsocketProxy.wait(sockpath, Path.of("/tmp/xpra-iosocket"), procfs, 10000L);
+			}
+			catch (BWFLAException error) {
+				throw new IllegalStateException(error);
+			}
+		});
+
+		Thread.sleep(200L);
+		Assert.assertFalse(waiter.isDone());
+
+		this.writeSocketTable(listening("/tmp/xpra-iosocket"));
+		Files.createFile(sockpath);
+		waiter.get(5L, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testWaitsForListeningSocket() throws Exception
+	{
+		Files.createFile(sockpath);
+		this.writeSocketTable(unconnected("/tmp/xpra-iosocket"));
+
+		final CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+			try {
+				IPCWebsocketProxy.wait(sockpath, Path.of("/tmp/xpra-iosocket"), procfs, 10000L);
+			}
+			catch (BWFLAException error) {
+				throw new IllegalStateException(error);
+			}
+		});
+
+		Thread.sleep(200L);
+		Assert.assertFalse(waiter.isDone());
+
+		this.writeSocketTable(listening("/tmp/xpra-iosocket"));
+		waiter.get(5L, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testOtherListeningSocketIsIgnored() throws Exception
+	{
+		Files.createFile(sockpath);
+		this.writeSocketTable(listening("/tmp/other-socket"), unconnected("/tmp/xpra-iosocket"));
+
+		final long timestamp = System.currentTimeMillis();
+		try {
+			IPCWebsocketProxy.wait(sockpath, Path.of("/tmp/xpra-iosocket"), procfs, 300L);
+			Assert.fail("Waiting for a non-listening socket should time out!");
+		}
+		catch (BWFLAException error) {
+			// Expected!
+		}
+
+		Assert.assertTrue(System.currentTimeMillis() - timestamp >= 300L);
+	}
+
+	@Test
+	public void testMissingSocketTimesOut() throws Exception
+	{
+		this.writeSocketTable(listening("/tmp/xpra-iosocket"));
+		try {
+			IPCWebsocketProxy.wait(sockpath, Path.of("/tmp/xpra-iosocket"), procfs, 300L);
+			Assert.fail("Waiting for a missing socket should time out!");
+		}
+		catch (BWFLAException error) {
+			// Expected!
+		}
+	}
+
+
+	// ========== Internal Helpers ==============================
+
+	private void writeSocketTable(String... entries) throws IOException
+	{
+		final Path table = procfs.resolve("net/unix");
+		final Path tmpfile = table.resolveSibling("unix.tmp");
+		Files.writeString(tmpfile, SOCKET_TABLE_HEADER + String.join("", entries));
+		Files.move(tmpfile, table, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static String listening(String path)
+	{
+		return "0000000000000000: 00000002 00000000 00010000 0001 01 12345 " + path + "\n";
+	}
+
+	private static String unconnected(String path)
+	{
+		return "0000000000000000: 00000002 00000000 00000000 0001 01 12345 " + path + "\n";
+	}
+}
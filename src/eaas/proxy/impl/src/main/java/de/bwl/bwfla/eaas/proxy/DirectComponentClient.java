@@ -19,14 +19,20 @@
 
 package de.bwl.bwfla.eaas.proxy;
 
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Typed;
+import javax.inject.Inject;
 
 import de.bwl.bwfla.api.emucomp.Component;
 import de.bwl.bwfla.api.emucomp.Container;
 import de.bwl.bwfla.api.emucomp.Machine;
 import de.bwl.bwfla.api.emucomp.NetworkSwitch;
 import de.bwl.bwfla.common.exceptions.BWFLAException;
+import de.bwl.bwfla.eaas.cluster.IClusterManager;
 import de.bwl.bwfla.eaas.cluster.NodeID;
 import de.bwl.bwfla.emucomp.client.ComponentClient;
 
@@ -36,6 +42,25 @@ public class DirectComponentClient extends ComponentClient {
     // TODO: should only be "/ComponentService?wsdl", because this is the public
     //       interface of a web service
     final private String WSDL_URL_TEMPLATE = "%s/emucomp/ComponentService?wsdl";
+
+    @Inject
+    private IClusterManager clusterManager;
+
+    private final Consumer<NodeID> onNodeUnregistered = (nid) -> this.invalidate(nid.getNodeAddress());
+
+    @PostConstruct
+    protected void initialize() {
+        // All nodes serve the same WSDL, hence parse it only once
+        this.setWsdlTemplateModeEnabled(true);
+
+        // Drop cached ports of removed nodes
+        clusterManager.addNodeUnregisteredListener(onNodeUnregistered);
+    }
+
+    @PreDestroy
+    protected void destroy() {
+        clusterManager.removeNodeUnregisteredListener(onNodeUnregistered);
+    }
     
     @Override
     protected String getWsdlUrl(String host) {
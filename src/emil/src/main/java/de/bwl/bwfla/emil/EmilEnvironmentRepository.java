@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -25,12 +26,14 @@ import com.openslx.eaas.imagearchive.api.v2.common.FetchOptionsV2;
 import com.openslx.eaas.imagearchive.api.v2.common.ReplaceOptionsV2;
 import com.openslx.eaas.imagearchive.api.v2.databind.MetaDataKindV2;
 import com.openslx.eaas.migration.IMigratable;
+import com.openslx.eaas.migration.IMigration;
 import com.openslx.eaas.migration.MigrationRegistry;
 import com.openslx.eaas.migration.MigrationUtils;
 import com.openslx.eaas.migration.config.MigrationConfig;
 import de.bwl.bwfla.common.exceptions.BWFLAException;
 import de.bwl.bwfla.common.services.security.*;
 import de.bwl.bwfla.common.utils.jaxb.JaxbType;
+import de.bwl.bwfla.configuration.converters.DurationPropertyConverter;
 import de.bwl.bwfla.common.database.MongodbEaasConnector;
 import de.bwl.bwfla.emil.datatypes.*;
 import de.bwl.bwfla.emil.datatypes.rest.ContainerNetworkingType;
@@ -42,6 +45,7 @@ import de.bwl.bwfla.emil.datatypes.rest.ImportContainerRequest;
 import de.bwl.bwfla.emil.utils.ImportCounts;
 import de.bwl.bwfla.emucomp.api.*;
 import org.apache.tamaya.inject.api.Config;
+import org.apache.tamaya.inject.api.WithPropertyConverter;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -108,6 +112,14 @@ public class EmilEnvironmentRepository implements IMigratable
 	private final ImageArchiveMappers.FromJsonTree<NetworkEnvironment> NETWORK_MAPPER
 			= new ImageArchiveMappers.FromJsonTree<>(NetworkEnvironment.class);
 
+	@Inject
+	@Config(value = "emil.environment_lineage_max_age")
+	@WithPropertyConverter(DurationPropertyConverter.class)
+	private Duration lineageMaxAge = null;
+
+	/** Parent/child relations between all environments */
+	private EnvironmentLineageIndex lineage;
+
 	private static boolean initialized = false;
 
 	public boolean isInitialized()
@@ -219,14 +231,27 @@ public class EmilEnvironmentRepository implements IMigratable
 				.setLocation(MetadataCollection.PUBLIC)
 				.setFromTime(filter.from())
 				.setUntilTime(filter.until())
-				.setOffset(filter.offset())
 				.setLimit(filter.limit());
 
-		final var result = imagearchive.api()
+		final var metadata = imagearchive.api()
 				.v2()
-				.metadata(MetaDataKindV2.ENVIRONMENTS)
-				.fetch(ENVIRONMENT_MAPPER, options);
+				.metadata(MetaDataKindV2.ENVIRONMENTS);
+
+		if (!filter.isCursorPaging()) {
+			final var result = metadata.fetch(ENVIRONMENT_MAPPER, options.setOffset(filter.offset()));
+			return result.stream()
+					.onClose(result::close);
+		}
+
+		if (filter.offset() != 0)
+			throw new BWFLAException("Offsets are not supported with cursor-based paging!");
 
+		// list environments ordered by modification time, continuing after filter's cursor
+		options.setSortBy("mtime")
+				.setCursor(filter.cursor());
+
+		final var result = metadata.fetchPage(ENVIRONMENT_MAPPER, options);
+		filter.setCursor(options.cursor());
 		return result.stream()
 				.onClose(result::close);
 	}
@@ -314,6 +339,7 @@ public class EmilEnvironmentRepository implements IMigratable
 		}
 
 		db = dbConnector.getInstance(dbName);
+		lineage = new EnvironmentLineageIndex(() -> this.loadEmilEnvironments(null), lineageMaxAge, LOG);
 
 		if (serverdatadir != null) {
 			Path cache = Paths.get(serverdatadir);
@@ -411,8 +437,7 @@ public class EmilEnvironmentRepository implements IMigratable
 					.metadata(MetaDataKindV2.ENVIRONMENTS)
 					.fetch(envid, ENVIRONMENT_MAPPER);
 
-			final var isPrivate = MetadataCollection.DEFAULT.equals(env.getArchive());
-			if (!isPrivate || this.checkPermissions(env, EmilEnvironmentPermissions.Permissions.READ, userctx))
+			if (this.isReadable(env, userctx))
 				return env;
 		}
 		catch (Exception error) {
@@ -422,6 +447,39 @@ public class EmilEnvironmentRepository implements IMigratable
 		return null;
 	}
 
+	/** Look up all readable environments with given IDs, using a single listing request */
+	public Map<String, EmilEnvironment> getEmilEnvironmentsByIds(Collection<String> ids, UserContext userctx)
+			throws BWFLAException
+	{
+		final Map<String, EmilEnvironment> result = new HashMap<>();
+		if (ids.isEmpty())
+			return result;
+
+		final var options = new FetchOptionsV2()
+				.setIds(ids);
+
+		final var environments = imagearchive.api()
+				.v2()
+				.metadata(MetaDataKindV2.ENVIRONMENTS)
+				.fetch(ENVIRONMENT_MAPPER, options);
+
+		// NOTE: duplicate IDs are resolved by taking the first one,
+		//       as done when listing all environments!
+		try (environments) {
+			environments.stream()
+					.filter((env) -> this.isReadable(env, userctx))
+					.forEach((env) -> result.putIfAbsent(env.getEnvId(), env));
+		}
+
+		return result;
+	}
+
+	private boolean isReadable(EmilEnvironment env, UserContext userctx)
+	{
+		final var isPrivate = MetadataCollection.DEFAULT.equals(env.getArchive());
+		return !isPrivate || this.checkPermissions(env, EmilEnvironmentPermissions.Permissions.READ, userctx);
+	}
+
 	public boolean isEnvironmentVisible(EmilEnvironment env)
 	{
 		Set<String> ids = env.getChildrenEnvIds();
@@ -470,6 +528,8 @@ public class EmilEnvironmentRepository implements IMigratable
 					.metadata(MetaDataKindV2.ENVIRONMENTS)
 					.delete(env.getEnvId());
 
+			lineage.remove(env.getEnvId());
+
 			String parent = env.getParentEnvId();
 			String lastPrivateChild = env.getEnvId();
 			while(parent != null)
@@ -503,6 +563,8 @@ public class EmilEnvironmentRepository implements IMigratable
 								.v2()
 								.metadata(MetaDataKindV2.ENVIRONMENTS)
 								.delete(p.getEnvId());
+
+						lineage.remove(p.getEnvId());
 					}
 					catch (Exception error) {
 						LOG.log(Level.WARNING, "Deleting parent environment failed!", error);
@@ -567,6 +629,8 @@ public class EmilEnvironmentRepository implements IMigratable
 				.v2()
 				.metadata(MetaDataKindV2.ENVIRONMENTS)
 				.replace(env.getEnvId(), env, ImageArchiveMappers.OBJECT_TO_JSON_TREE, options);
+
+		lineage.put(env);
 	}
 
 	public void saveNetworkEnvironment(NetworkEnvironment env) throws BWFLAException {
@@ -610,6 +674,7 @@ public class EmilEnvironmentRepository implements IMigratable
 						.metadata(MetaDataKindV2.ENVIRONMENTS)
 						.delete(envId);
 
+				lineage.remove(envId);
 				classification.cleanupClassificationData(envId);
 			}
 			else {
@@ -660,10 +725,20 @@ public class EmilEnvironmentRepository implements IMigratable
 	@Override
 	public void register(@Observes MigrationRegistry migrations) throws Exception
 	{
-		migrations.register("import-local-emil-environments", (mc) -> this.importFromFolder("import"));
-		migrations.register("import-legacy-emil-database-v1", this::importLegacyDatabaseV1);
-		migrations.register("create-absent-emil-environments", this::createAbsentEmilEnvironments);
-		migrations.register("assign-default-owner-to-emil-environments", this::assignDefaultOwnerToEmilEnvironments);
+		// NOTE: migrations modify stored environments directly, hence lineage index must be rebuilt!
+		final Function<IMigration, IMigration> invalidating = (migration) -> (mc) -> {
+			try {
+				migration.execute(mc);
+			}
+			finally {
+				lineage.invalidate();
+			}
+		};
+
+		migrations.register("import-local-emil-environments", invalidating.apply((mc) -> this.importFromFolder("import")));
+		migrations.register("import-legacy-emil-database-v1", invalidating.apply(this::importLegacyDatabaseV1));
+		migrations.register("create-absent-emil-environments", invalidating.apply(this::createAbsentEmilEnvironments));
+		migrations.register("assign-default-owner-to-emil-environments", invalidating.apply(this::assignDefaultOwnerToEmilEnvironments));
 	}
 
 	private void createAbsentEmilEnvironments(MigrationConfig mc) throws Exception
@@ -1013,19 +1088,24 @@ public class EmilEnvironmentRepository implements IMigratable
 	}
 
 	public List<EmilEnvironment> getChildren(String envId, List<EmilEnvironment> envs, UserContext userCtx) throws BWFLAException {
-		List<EmilEnvironment> result = new ArrayList<>();
-		for (EmilEnvironment e : envs) {
-			if (e.getParentEnvId() != null && e.getParentEnvId().equals(envId)) {
-				LOG.info("getChildren: found child " + e.getEnvId() + " for envId " + envId);
-				result.addAll(getChildren(e.getEnvId(), envs, userCtx));
+		// only follow children contained in given environments
+		final Map<String, EmilEnvironment> candidates = new HashMap<>();
+		for (EmilEnvironment e : envs)
+			candidates.putIfAbsent(e.getEnvId(), e);
+
+		final List<EmilEnvironment> result = new ArrayList<>();
+		for (String id : lineage.leaves(envId, candidates::containsKey)) {
+			final EmilEnvironment e = candidates.get(id);
+			if (e == null) {
+				// no children found, environment is its own latest revision
+				final EmilEnvironment self = this.getEmilEnvironmentById(id, userCtx);
+				if (self != null)
+					result.add(self);
 			}
+			else if (this.isReadable(e, userCtx))
+				result.add(e);
 		}
-		if (result.size() == 0) {
-			LOG.info("no child found for " + envId);
-			EmilEnvironment emilEnvironment = getEmilEnvironmentById(envId, userCtx);
-			if (emilEnvironment != null)
-				result.add(emilEnvironment);
-		}
+
 		return result;
 	}
 
@@ -1064,21 +1144,71 @@ public class EmilEnvironmentRepository implements IMigratable
 
 	public List<EmilEnvironment> getParents(String envId)
 	{
-		EmilEnvironment root = getEmilEnvironmentById(envId);
-		List<EmilEnvironment> result = new ArrayList<>();
-		if(root == null)
-		{
+		return this.getParents(envId, this.getUserContext());
+	}
+
+	public List<EmilEnvironment> getParents(String envId, UserContext userctx)
+	{
+		final EmilEnvironment env = this.getEmilEnvironmentById(envId, userctx);
+		if (env == null) {
 			LOG.severe("no environment found for id: " + envId);
-			return result;
+			return new ArrayList<>();
 		}
 
-		if (root.getParentEnvId() != null) {
-			EmilEnvironment parentEnv = getEmilEnvironmentById(root.getParentEnvId());
-			while (parentEnv != null) {
-				result.add(parentEnv);
-				parentEnv = getEmilEnvironmentById(parentEnv.getParentEnvId());
-			}
+		try {
+			final Map<String, EmilEnvironment> parents = this.getEmilEnvironmentsByIds(this.getParentIds(envId), userctx);
+			return this.getParents(env, parents::get);
+		}
+		catch (BWFLAException error) {
+			LOG.log(Level.WARNING, "Looking up parents of environment '" + envId + "' failed!", error);
+			return new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Look up environment's parents, ordered from the parent to the root.
+	 * @param resolver Function returning the readable environment for an ID, or null
+	 */
+	public List<EmilEnvironment> getParents(EmilEnvironment env, Function<String, EmilEnvironment> resolver)
+			throws BWFLAException
+	{
+		// stop at the first missing or inaccessible parent
+		final List<EmilEnvironment> result = new ArrayList<>();
+		for (String id : this.getParentIds(env.getEnvId())) {
+			final EmilEnvironment parent = resolver.apply(id);
+			if (parent == null)
+				break;
+
+			result.add(parent);
+		}
+
+		return result;
+	}
+
+	/** Look up IDs of environment's parents, ordered from the parent to the root */
+	public List<String> getParentIds(String envId) throws BWFLAException
+	{
+		return lineage.ancestors(envId);
+	}
+
+	/** Look up ID of environment's root revision */
+	public String getRootEnvId(String envId) throws BWFLAException
+	{
+		return lineage.root(envId);
+	}
+
+	/** Look up all (transitive) children of an environment, ordered breadth-first */
+	public List<EmilEnvironment> getDescendants(String envId, UserContext userctx) throws BWFLAException
+	{
+		final List<String> ids = lineage.descendants(envId);
+		final Map<String, EmilEnvironment> descendants = this.getEmilEnvironmentsByIds(ids, userctx);
+		final List<EmilEnvironment> result = new ArrayList<>(descendants.size());
+		for (String id : ids) {
+			final EmilEnvironment env = descendants.get(id);
+			if (env != null)
+				result.add(env);
 		}
+
 		return result;
 	}
 
@@ -1105,6 +1235,8 @@ public class EmilEnvironmentRepository implements IMigratable
 		private int limit;
 		private long fromtime;
 		private long untiltime;
+		private boolean paged;
+		private String cursor;
 
 		public Filter setOffset(int offset)
 		{
@@ -1149,5 +1281,26 @@ public class EmilEnvironmentRepository implements IMigratable
 		{
 			return untiltime;
 		}
+
+		/**
+		 * Enable cursor-based paging, starting after given cursor (or at the beginning if null).
+		 * After listing, the cursor will point to the next page, or will be null if no more pages exist.
+		 */
+		public Filter setCursor(String cursor)
+		{
+			this.paged = true;
+			this.cursor = cursor;
+			return this;
+		}
+
+		public String cursor()
+		{
+			return cursor;
+		}
+
+		public boolean isCursorPaging()
+		{
+			return paged;
+		}
 	}
 }
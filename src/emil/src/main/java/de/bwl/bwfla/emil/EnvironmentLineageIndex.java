@@ -0,0 +1,320 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.emil;
+
+import de.bwl.bwfla.common.exceptions.BWFLAException;
+import de.bwl.bwfla.emil.datatypes.EmilEnvironment;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+
+/**
+ * In-memory index of parent/child relations between environments.
+ * <p/>
+ * Only environment IDs are indexed, hence callers resolve the environments themselves
+ * and no instances are shared between them. The index is built lazily from all stored
+ * environments and updated incrementally, whenever environments are saved or deleted
+ * locally. Since other instances may modify the stored environments too, the index is
+ * rebuilt on access once it gets older than the configured max-age. Ancestors,
+ * descendants and latest revisions can be looked up in O(result) time.
+ */
+class EnvironmentLineageIndex
+{
+	private final Logger log;
+	private final Loader loader;
+	private final long maxAge;
+
+	/** Indexed environments by their IDs */
+	private final Map<String, Node> nodes;
+
+	/** Children IDs by parent ID, parent may be not (yet) indexed! */
+	private final Map<String, Set<String>> children;
+
+	/** Time of last rebuild, or -1 if not loaded */
+	private long timestamp;
+
+
+	public interface Loader
+	{
+		Stream<EmilEnvironment> load() throws BWFLAException;
+	}
+
+	public EnvironmentLineageIndex(Loader loader, Duration maxAge, Logger log)
+	{
+		this.log = log;
+		this.loader = loader;
+		this.maxAge = maxAge.toMillis();
+		this.nodes = new HashMap<>();
+		this.children = new HashMap<>();
+		this.timestamp = -1L;
+	}
+
+	/** Add or update an environment */
+	public synchronized void put(EmilEnvironment env)
+	{
+		// index will be loaded from stored environments later!
+		if (timestamp < 0L)
+			return;
+
+		this.insert(env.getEnvId(), env.getParentEnvId());
+	}
+
+	/** Remove an environment, its children become roots until it is re-added */
+	public synchronized void remove(String envId)
+	{
+		if (timestamp < 0L)
+			return;
+
+		final var node = nodes.remove(envId);
+		if (node == null)
+			return;
+
+		this.unlink(envId, node.parent);
+		for (var child : this.children(envId))
+			this.update(child);
+	}
+
+	/** Drop all entries, forcing a rebuild on next access */
+	public synchronized void invalidate()
+	{
+		nodes.clear();
+		children.clear();
+		timestamp = -1L;
+	}
+
+	/** Look up IDs of environment's ancestors, ordered from the parent to the root */
+	public synchronized List<String> ancestors(String envId) throws BWFLAException
+	{
+		this.load();
+
+		final var node = nodes.get(envId);
+		if (node == null)
+			return Collections.emptyList();
+
+		// NOTE: visited IDs are tracked to guard against broken, cyclic lineages!
+		final var result = new ArrayList<String>(node.depth);
+		final var visited = new HashSet<String>();
+		visited.add(envId);
+		for (var parent = nodes.get(node.parent); parent != null && visited.add(parent.id); parent = nodes.get(parent.parent))
+			result.add(parent.id);
+
+		return result;
+	}
+
+	/** Look up IDs of environment's descendants, ordered breadth-first */
+	public synchronized List<String> descendants(String envId) throws BWFLAException
+	{
+		this.load();
+
+		final var result = new ArrayList<String>();
+		final var visited = new HashSet<String>();
+		final var queue = new ArrayDeque<String>();
+		visited.add(envId);
+		queue.add(envId);
+		while (!queue.isEmpty()) {
+			for (var child : this.children(queue.remove())) {
+				if (!nodes.containsKey(child) || !visited.add(child))
+					continue;
+
+				result.add(child);
+				queue.add(child);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Look up IDs of latest revisions of an environment, i.e. the leaves of its subtree.
+	 * Only children passing the filter are followed. If none exists, the environment's
+	 * own ID is returned as its latest revision.
+	 */
+	public synchronized List<String> leaves(String envId, Predicate<String> filter) throws BWFLAException
+	{
+		this.load();
+
+		final var result = new ArrayList<String>();
+		final var visited = new HashSet<String>();
+		final var stack = new ArrayDeque<String>();
+		visited.add(envId);
+		stack.push(envId);
+		while (!stack.isEmpty()) {
+			final var current = stack.pop();
+			boolean leaf = true;
+			for (var child : this.children(current)) {
+				// NOTE: visited IDs are tracked to guard against broken, cyclic lineages!
+				if (!nodes.containsKey(child) || !filter.test(child) || !visited.add(child))
+					continue;
+
+				stack.push(child);
+				leaf = false;
+			}
+
+			if (leaf)
+				result.add(current);
+		}
+
+		return result;
+	}
+
+	/** Look up ID of environment's root, or null if not indexed */
+	public synchronized String root(String envId) throws BWFLAException
+	{
+		this.load();
+
+		final var node = nodes.get(envId);
+		return (node != null) ? node.root : null;
+	}
+
+	/** Look up environment's depth in its tree, or -1 if not indexed */
+	public synchronized int depth(String envId) throws BWFLAException
+	{
+		this.load();
+
+		final var node = nodes.get(envId);
+		return (node != null) ? node.depth : -1;
+	}
+
+	public synchronized int size()
+	{
+		return nodes.size();
+	}
+
+
+	// ===== Internal Helpers ==============================
+
+	private static class Node
+	{
+		private final String id;
+		private String parent;
+		private String root;
+		private int depth;
+
+		Node(String id)
+		{
+			this.id = id;
+			this.root = id;
+			this.depth = 0;
+		}
+	}
+
+	private void load() throws BWFLAException
+	{
+		final long now = System.currentTimeMillis();
+		if (timestamp >= 0L && (now - timestamp) <= maxAge)
+			return;
+
+		this.invalidate();
+		try (final var environments = loader.load()) {
+			// NOTE: duplicate IDs are resolved by taking the first one,
+			//       as done when listing all environments!
+			environments.filter((env) -> !nodes.containsKey(env.getEnvId()))
+					.forEach((env) -> this.insert(env.getEnvId(), env.getParentEnvId()));
+		}
+		catch (RuntimeException error) {
+			this.invalidate();
+			throw new BWFLAException("Loading environment lineage failed!", error);
+		}
+
+		timestamp = now;
+
+		final long duration = System.currentTimeMillis() - now;
+		log.info("Indexed lineage of " + nodes.size() + " environment(s) in " + duration + " msec");
+	}
+
+	private void insert(String id, String parent)
+	{
+		var node = nodes.get(id);
+		if (node == null) {
+			node = new Node(id);
+			nodes.put(id, node);
+		}
+		else if (Objects.equals(node.parent, parent))
+			return;  // lineage unchanged
+		else this.unlink(id, node.parent);
+
+		node.parent = parent;
+		if (parent != null) {
+			children.computeIfAbsent(parent, (unused) -> new LinkedHashSet<>())
+					.add(id);
+		}
+
+		this.update(id);
+	}
+
+	private void unlink(String id, String parent)
+	{
+		if (parent == null)
+			return;
+
+		final var siblings = children.get(parent);
+		if (siblings == null)
+			return;
+
+		siblings.remove(id);
+		if (siblings.isEmpty())
+			children.remove(parent);
+	}
+
+	private Set<String> children(String id)
+	{
+		return children.getOrDefault(id, Collections.emptySet());
+	}
+
+	/** Recompute root and depth of a subtree, after it was moved */
+	private void update(String id)
+	{
+		final var visited = new HashSet<String>();
+		final var queue = new ArrayDeque<String>();
+		queue.add(id);
+		while (!queue.isEmpty()) {
+			final var current = nodes.get(queue.remove());
+			if (current == null || !visited.add(current.id))
+				continue;
+
+			final var parent = nodes.get(current.parent);
+			if (parent == null || parent.id.equals(current.id)) {
+				// parent is unknown, hence a new root
+				current.root = current.id;
+				current.depth = 0;
+			}
+			else {
+				current.root = parent.root;
+				current.depth = parent.depth + 1;
+			}
+
+			queue.addAll(this.children(current.id));
+		}
+	}
+}
@@ -27,6 +27,7 @@ import com.openslx.eaas.generalization.ImageGeneralizationPatchDescription;
 import com.openslx.eaas.generalization.ImageGeneralizationPatchResponse;
 import com.openslx.eaas.imagearchive.ImageArchiveClient;
 import com.openslx.eaas.imagearchive.ImageArchiveMappers;
+import com.openslx.eaas.imagearchive.api.v2.common.FetchOptionsV2;
 import com.openslx.eaas.imagearchive.api.v2.common.ReplaceOptionsV2;
 import com.openslx.eaas.imagearchive.api.v2.common.ResolveOptionsV2;
 import com.openslx.eaas.imagearchive.api.v2.databind.AccessMethodV2;
@@ -109,10 +110,12 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 @ApplicationScoped
@@ -133,6 +136,10 @@ public class EnvironmentRepository extends EmilRest
 	@Config(value = "ws.imagebuilder")
 	String imageBuilderAddress;
 
+	@Inject
+	@Config(value = "emil.environments_listing_batch_size")
+	private int environmentsBatchSize = 100;
+
 	@Inject
 	private EmilEnvironmentRepository emilEnvRepo = null;
 
@@ -561,8 +568,8 @@ public class EnvironmentRepository extends EmilRest
 			try {
 				final Stream<EmilEnvironment> environments = emilEnvRepo.getEmilEnvironments();
 				final Stream<Object> entries = (!detailed) ? environments.filter((env) -> (!localOnly || !(env).getArchive().equals("remote"))).map(EnvironmentListItem::new)
-						: environments.map((env) -> (Object) this.addEnvironmentDetailsNoThrow(env))
-								.filter(Objects::nonNull)
+						: this.addEnvironmentDetails(environments)
+								.map((env) -> (Object) env)
 								.filter((env) -> (!localOnly || !((EnvironmentDetails) env).getArchive().equals("remote")));
 
 				// Construct response (in streaming-mode)
@@ -1024,15 +1031,109 @@ public class EnvironmentRepository extends EmilRest
 			return new EnvironmentDetails(emilenv, machine, parents, swHelper);
 		}
 
-		private EnvironmentDetails addEnvironmentDetailsNoThrow(EmilEnvironment emilenv)
+		/** Add details to all environments, looking up their configurations and parents in batches */
+		private Stream<EnvironmentDetails> addEnvironmentDetails(Stream<EmilEnvironment> environments)
 		{
-			try {
-				return this.addEnvironmentDetails(emilenv);
+			final var userctx = EnvironmentRepository.this.getUserContext();
+
+			// NOTE: environments usually share their parents, hence resolve each one only once per listing!
+			final var parents = new HashMap<String, Optional<EmilEnvironment>>();
+
+			final var iterator = environments.iterator();
+			final var batches = new Iterator<List<EmilEnvironment>>() {
+				@Override
+				public boolean hasNext()
+				{
+					return iterator.hasNext();
+				}
+
+				@Override
+				public List<EmilEnvironment> next()
+				{
+					final var batch = new ArrayList<EmilEnvironment>(environmentsBatchSize);
+					while (iterator.hasNext() && batch.size() < environmentsBatchSize)
+						batch.add(iterator.next());
+
+					return batch;
+				}
+			};
+
+			final var spliterator = Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED | Spliterator.NONNULL);
+			return StreamSupport.stream(spliterator, false)
+					.onClose(environments::close)
+					.flatMap((batch) -> {
+						try {
+							return this.addEnvironmentDetails(batch, parents, userctx);
+						}
+						catch (BWFLAException error) {
+							throw new IllegalStateException("Collecting details of environments failed!", error);
+						}
+					});
+		}
+
+		/** Add details to a batch of environments, fetching configurations and unknown parents with one listing each */
+		private Stream<EnvironmentDetails> addEnvironmentDetails(List<EmilEnvironment> batch,
+				Map<String, Optional<EmilEnvironment>> parents, UserContext userctx) throws BWFLAException
+		{
+			final var ids = new ArrayList<String>(batch.size());
+			for (EmilEnvironment emilenv : batch)
+				ids.add(emilenv.getEnvId());
+
+			// NOTE: container-environments have no machine configuration, but must be known too
+			final var machines = new HashMap<String, MachineConfiguration>();
+			final var configs = imagearchive.api()
+					.v2()
+					.environments()
+					.fetch(new FetchOptionsV2().setIds(ids));
+
+			try (configs) {
+				configs.stream()
+						.filter((env) -> !machines.containsKey(env.getId()))
+						.forEach((env) -> {
+							final var machine = (env instanceof MachineConfiguration) ? (MachineConfiguration) env : null;
+							machines.put(env.getId(), machine);
+						});
 			}
-			catch (Exception error) {
-				LOG.warning("Collecting environment's details failed! " + error.getMessage());
-				return null;
+
+			// parents are looked up in the lineage index, hence only unknown ones must be fetched
+			final var unknown = new LinkedHashSet<String>();
+			for (String id : ids) {
+				for (String parent : emilEnvRepo.getParentIds(id)) {
+					if (!parents.containsKey(parent))
+						unknown.add(parent);
+				}
 			}
+
+			final var chunk = new ArrayList<String>(environmentsBatchSize);
+			final var iterator = unknown.iterator();
+			while (iterator.hasNext()) {
+				chunk.add(iterator.next());
+				if (chunk.size() < environmentsBatchSize && iterator.hasNext())
+					continue;
+
+				final var resolved = emilEnvRepo.getEmilEnvironmentsByIds(chunk, userctx);
+				for (String id : chunk)
+					parents.put(id, Optional.ofNullable(resolved.get(id)));
+
+				chunk.clear();
+			}
+
+			final Function<String, EmilEnvironment> resolver = (id) -> parents.getOrDefault(id, Optional.empty())
+					.orElse(null);
+
+			final var result = new ArrayList<EnvironmentDetails>(batch.size());
+			for (EmilEnvironment emilenv : batch) {
+				if (!machines.containsKey(emilenv.getEnvId())) {
+					LOG.warning("Collecting details of environment '" + emilenv.getEnvId() + "' failed! Configuration is missing!");
+					continue;
+				}
+
+				final var machine = machines.get(emilenv.getEnvId());
+				final var ancestors = emilEnvRepo.getParents(emilenv, resolver);
+				result.add(new EnvironmentDetails(emilenv, machine, ancestors, swHelper));
+			}
+
+			return result.stream();
 		}
 	}
 
@@ -31,6 +31,7 @@ import de.bwl.bwfla.metadata.repository.api.ItemIdentifierDescription;
 import de.bwl.bwfla.metadata.repository.source.ItemIdentifierSource;
 import de.bwl.bwfla.metadata.repository.source.ItemSource;
 import de.bwl.bwfla.metadata.repository.source.MetaDataSource;
+import de.bwl.bwfla.metadata.repository.source.Page;
 import de.bwl.bwfla.metadata.repository.source.QueryOptions;
 
 import java.util.concurrent.CompletableFuture;
@@ -163,7 +164,13 @@ public class MetaDataSources
 
 		protected CompletableFuture<Stream<EmilEnvironment>> listEnvironments(QueryOptions options)
 		{
-			final Supplier<Stream<EmilEnvironment>> supplier = () -> {
+			return this.pageEnvironments(options)
+					.thenApply(Page::items);
+		}
+
+		protected CompletableFuture<Page<EmilEnvironment>> pageEnvironments(QueryOptions options)
+		{
+			final Supplier<Page<EmilEnvironment>> supplier = () -> {
 				final var filter = new EmilEnvironmentRepository.Filter()
 						.setOffset(options.offset())
 						.setLimit(options.count());
@@ -174,8 +181,14 @@ public class MetaDataSources
 				if (options.hasUntil())
 					filter.setUntilTime(options.until());
 
+				if (options.hasCursor()) {
+					final var cursor = options.cursor();
+					filter.setCursor(QueryOptions.FIRST_CURSOR.equals(cursor) ? null : cursor);
+				}
+
 				try {
-					return environmentRepository.listPublicEnvironments(filter);
+					final var environments = environmentRepository.listPublicEnvironments(filter);
+					return new Page<>(environments, filter.cursor());
 				}
 				catch (BWFLAException error) {
 					throw new RuntimeException("Listing public environments failed!", error);
@@ -230,6 +243,13 @@ public class MetaDataSources
 			return super.listEnvironments(options)
 					.thenApply((environments) -> environments.map(MAPPER));
 		}
+
+		@Override
+		public CompletableFuture<Page<ItemIdentifierDescription>> page(QueryOptions options)
+		{
+			return super.pageEnvironments(options)
+					.thenApply((page) -> new Page<>(page.items().map(MAPPER), page.cursor()));
+		}
 	}
 
 	private static class EnvironmentIdentifierSource extends AbstractEnvironmentSource implements ItemIdentifierSource
@@ -321,6 +341,13 @@ public class MetaDataSources
 			return super.listEnvironments(options)
 					.thenApply((environments) -> environments.map(MAPPER));
 		}
+
+		@Override
+		public CompletableFuture<Page<ItemDescription>> page(QueryOptions options)
+		{
+			return super.pageEnvironments(options)
+					.thenApply((page) -> new Page<>(page.items().map(MAPPER), page.cursor()));
+		}
 	}
 
 	private static class AbstractSoftwareSource
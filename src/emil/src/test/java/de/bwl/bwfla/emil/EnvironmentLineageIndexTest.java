@@ -0,0 +1,315 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.emil;
+
+import de.bwl.bwfla.common.exceptions.BWFLAException;
+import de.bwl.bwfla.emil.datatypes.EmilEnvironment;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+
+public class EnvironmentLineageIndexTest
+{
+	private static final Logger LOG = Logger.getLogger(EnvironmentLineageIndexTest.class.getName());
+
+	private static final Duration MAX_AGE = Duration.ofMinutes(5);
+
+	private final List<EmilEnvironment> stored = new ArrayList<>();
+	private final AtomicInteger numLoads = new AtomicInteger(0);
+
+
+	@Test
+	public void testLeaves() throws BWFLAException
+	{
+		// root -> a -> a1
+		//      -> b
+		this.store("root", null);
+		this.store("a", "root");
+		this.store("a1", "a");
+		this.store("b", "root");
+
+		final EnvironmentLineageIndex index = this.index(MAX_AGE);
+		Assert.assertEquals(set("a1", "b"), new HashSet<>(index.leaves("root", (id) -> true)));
+		Assert.assertEquals(Collections.singletonList("a1"), index.leaves("a", (id) -> true));
+		Assert.assertEquals(Collections.singletonList("b"), index.leaves("b", (id) -> true));
+		Assert.assertEquals(4, index.size());
+
+		// filtered children are not followed
+		Assert.assertEquals(set("a", "b"), new HashSet<>(index.leaves("root", (id) -> !id.equals("a1"))));
+		Assert.assertEquals(Collections.singletonList("root"), index.leaves("root", (id) -> false));
+
+		// unknown environments are their own leaves
+		Assert.assertEquals(Collections.singletonList("unknown"), index.leaves("unknown", (id) -> true));
+	}
+
+	@Test
+	public void testAncestors() throws BWFLAException
+	{
+		// root -> a -> a1 -> a2
+		//      -> b
+		this.store("root", null);
+		this.store("a", "root");
+		this.store("a1", "a");
+		this.store("a2", "a1");
+		this.store("b", "root");
+
+		final EnvironmentLineageIndex index = this.index(MAX_AGE);
+		Assert.assertEquals(Arrays.asList("a1", "a", "root"), index.ancestors("a2"));
+		Assert.assertEquals(Collections.singletonList("root"), index.ancestors("b"));
+		Assert.assertEquals(Collections.emptyList(), index.ancestors("root"));
+		Assert.assertEquals(Collections.emptyList(), index.ancestors("unknown"));
+
+		Assert.assertEquals("root", index.root("a2"));
+		Assert.assertEquals("root", index.root("root"));
+		Assert.assertNull(index.root("unknown"));
+		Assert.assertEquals(3, index.depth("a2"));
+		Assert.assertEquals(0, index.depth("root"));
+		Assert.assertEquals(-1, index.depth("unknown"));
+	}
+
+	@Test
+	public void testDescendants() throws BWFLAException
+	{
+		// root -> a -> a1
+		//      -> b -> b1 -> b2
+		this.store("root", null);
+		this.store("a", "root");
+		this.store("b", "root");
+		this.store("a1", "a");
+		this.store("b1", "b");
+		this.store("b2", "b1");
+
+		final EnvironmentLineageIndex index = this.index(MAX_AGE);
+		Assert.assertEquals(Arrays.asList("a", "b", "a1", "b1", "b2"), index.descendants("root"));
+		Assert.assertEquals(Arrays.asList("b1", "b2"), index.descendants("b"));
+		Assert.assertEquals(Collections.emptyList(), index.descendants("a1"));
+		Assert.assertEquals(Collections.emptyList(), index.descendants("unknown"));
+	}
+
+	@Test
+	public void testLineageUpdates() throws BWFLAException
+	{
+		// root -> a -> a1
+		// other
+		this.store("root", null);
+		this.store("a", "root");
+		this.store("a1", "a");
+		this.store("other", null);
+
+		final EnvironmentLineageIndex index = this.index(MAX_AGE);
+		Assert.assertEquals(2, index.depth("a1"));
+
+		// move a subtree to another root
+		index.put(env("a", "other"));
+		Assert.assertEquals(Arrays.asList("a", "other"), index.ancestors("a1"));
+		Assert.assertEquals("other", index.root("a1"));
+		Assert.assertEquals(Arrays.asList("a", "a1"), index.descendants("other"));
+		Assert.assertEquals(Collections.emptyList(), index.descendants("root"));
+
+		// removed environments split their subtrees
+		index.remove("a");
+		Assert.assertEquals(Collections.emptyList(), index.ancestors("a1"));
+		Assert.assertEquals("a1", index.root("a1"));
+		Assert.assertEquals(0, index.depth("a1"));
+		Assert.assertEquals(Collections.emptyList(), index.descendants("other"));
+
+		// ...and re-attach them, when re-added
+		index.put(env("a", "root"));
+		Assert.assertEquals(Arrays.asList("a", "root"), index.ancestors("a1"));
+		Assert.assertEquals("root", index.root("a1"));
+		Assert.assertEquals(2, index.depth("a1"));
+		Assert.assertEquals(Arrays.asList("a", "a1"), index.descendants("root"));
+		Assert.assertEquals(1, numLoads.get());
+	}
+
+	@Test
+	public void testLazyLoading() throws BWFLAException
+	{
+		this.store("root", null);
+
+		final EnvironmentLineageIndex index = this.index(MAX_AGE);
+		index.put(env("child", "root"));
+		Assert.assertEquals(0, numLoads.get());
+		Assert.assertEquals(0, index.size());
+
+		// changes before first access are picked up from storage
+		this.store("child", "root");
+		Assert.assertEquals(Collections.singletonList("child"), index.leaves("root", (id) -> true));
+		Assert.assertEquals(1, numLoads.get());
+
+		index.leaves("root", (id) -> true);
+		Assert.assertEquals(1, numLoads.get());
+	}
+
+	@Test
+	public void testUpdates() throws BWFLAException
+	{
+		this.store("root", null);
+		this.store("a", "root");
+		this.store("b", "root");
+
+		final EnvironmentLineageIndex index = this.index(MAX_AGE);
+		Assert.assertEquals(set("a", "b"), new HashSet<>(index.leaves("root", (id) -> true)));
+
+		// add a new revision
+		index.put(env("a1", "a"));
+		Assert.assertEquals(set("a1", "b"), new HashSet<>(index.leaves("root", (id) -> true)));
+
+		// move a subtree
+		index.put(env("a", "b"));
+		Assert.assertEquals(Collections.singletonList("a1"), index.leaves("root", (id) -> true));
+		Assert.assertEquals(Collections.singletonList("a1"), index.leaves("b", (id) -> true));
+
+		// unchanged lineage
+		index.put(env("a", "b"));
+		Assert.assertEquals(Collections.singletonList("a1"), index.leaves("b", (id) -> true));
+
+		// removed environments are not followed anymore
+		index.remove("a");
+		Assert.assertEquals(Collections.singletonList("b"), index.leaves("root", (id) -> true));
+
+		// ...but their children are still linked, when re-added
+		index.put(env("a", "root"));
+		Assert.assertEquals(set("a1", "b"), new HashSet<>(index.leaves("root", (id) -> true)));
+		Assert.assertEquals(1, numLoads.get());
+	}
+
+	@Test
+	public void testInvalidate() throws BWFLAException
+	{
+		this.store("root", null);
+
+		final EnvironmentLineageIndex index = this.index(MAX_AGE);
+		Assert.assertEquals(Collections.singletonList("root"), index.leaves("root", (id) -> true));
+
+		// environments written directly to storage
+		this.store("child", "root");
+		Assert.assertEquals(Collections.singletonList("root"), index.leaves("root", (id) -> true));
+
+		index.invalidate();
+		Assert.assertEquals(Collections.singletonList("child"), index.leaves("root", (id) -> true));
+		Assert.assertEquals(2, numLoads.get());
+	}
+
+	@Test
+	public void testExpiration() throws BWFLAException
+	{
+		this.store("root", null);
+
+		// environments changed by other instances must become visible
+		final EnvironmentLineageIndex index = this.index(Duration.ZERO);
+		Assert.assertEquals(Collections.singletonList("root"), index.leaves("root", (id) -> true));
+
+		this.store("child", "root");
+		Assert.assertEquals(Collections.singletonList("child"), index.leaves("root", (id) -> true));
+		Assert.assertTrue(numLoads.get() >= 2);
+	}
+
+	@Test
+	public void testCyclicLineage() throws BWFLAException
+	{
+		this.store("a", "b");
+		this.store("b", "a");
+
+		final EnvironmentLineageIndex index = this.index(MAX_AGE);
+		Assert.assertEquals(Collections.singletonList("a"), index.leaves("b", (id) -> true));
+		Assert.assertEquals(Collections.singletonList("b"), index.leaves("a", (id) -> true));
+		Assert.assertEquals(Collections.singletonList("b"), index.ancestors("a"));
+		Assert.assertEquals(Collections.singletonList("a"), index.descendants("b"));
+	}
+
+	@Test
+	public void testDuplicates() throws BWFLAException
+	{
+		// first entry wins, as when listing environments
+		this.store("a", null);
+		this.store("b", null);
+		this.store("c", "a");
+		this.store("c", "b");
+
+		final EnvironmentLineageIndex index = this.index(MAX_AGE);
+		Assert.assertEquals(Collections.singletonList("c"), index.leaves("a", (id) -> true));
+		Assert.assertEquals(Collections.singletonList("b"), index.leaves("b", (id) -> true));
+		Assert.assertEquals(3, index.size());
+	}
+
+	@Test
+	public void testLoadingFailure() throws BWFLAException
+	{
+		this.store("root", null);
+
+		final AtomicInteger numFailures = new AtomicInteger(1);
+		final EnvironmentLineageIndex index = new EnvironmentLineageIndex(() -> {
+			if (numFailures.getAndDecrement() > 0)
+				throw new IllegalStateException("Storage unavailable!");
+
+			return new ArrayList<>(stored).stream();
+		}, MAX_AGE, LOG);
+
+		try {
+			index.leaves("root", (id) -> true);
+			Assert.fail("Loading failure was not reported!");
+		}
+		catch (BWFLAException error) {
+			// Expected!
+		}
+
+		Assert.assertEquals(0, index.size());
+		Assert.assertEquals(Collections.singletonList("root"), index.leaves("root", (id) -> true));
+		Assert.assertEquals(1, index.size());
+	}
+
+
+	private EnvironmentLineageIndex index(Duration maxAge)
+	{
+		return new EnvironmentLineageIndex(() -> {
+			numLoads.incrementAndGet();
+			return new ArrayList<>(stored).stream();
+		}, maxAge, LOG);
+	}
+
+	private void store(String id, String parent)
+	{
+		stored.add(env(id, parent));
+	}
+
+	private static EmilEnvironment env(String id, String parent)
+	{
+		final EmilEnvironment env = new EmilEnvironment();
+		env.setEnvId(id);
+		env.setParentEnvId(parent);
+		return env;
+	}
+
+	private static HashSet<String> set(String... values)
+	{
+		return new HashSet<>(Arrays.asList(values));
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.emil.utils;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.openslx.eaas.common.databind.DataUtils;
+import de.bwl.bwfla.common.database.document.DocumentCodecs;
+import de.bwl.bwfla.common.services.security.EmilEnvironmentOwner;
+import de.bwl.bwfla.common.utils.jaxb.JaxbType;
+import de.bwl.bwfla.emil.datatypes.EmilEnvironment;
+import de.bwl.bwfla.emil.datatypes.EmilObjectEnvironment;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+
+/**
+ * Compares the former decoding of environment documents, converting them to JSON text
+ * and parsing it again, with the direct decoding from BSON using {@link DocumentCodecs}.
+ */
+public class DocumentDecodingBenchmark
+{
+	private static final int NUM_DOCUMENTS = 2000;
+	private static final int NUM_WARMUP_ITERATIONS = 20;
+	private static final int NUM_ITERATIONS = 50;
+
+	private static final String RESULT_FORMAT = "%-8s %8.1f us/doc, %10.1f bytes/doc\n";
+
+
+	public static void main(String[] args) throws Exception
+	{
+		final List<RawBsonDocument> documents = DocumentDecodingBenchmark.generate();
+		System.out.println("Benchmarking decoding of " + documents.size() + " document(s)...");
+
+		final DocumentCodec codec = new DocumentCodec();
+		final Decoder legacy = (document) -> {
+			final Document result = document.decode(codec);
+			final Class<? extends JaxbType> clazz = DocumentDecodingBenchmark.resolve(result.getString("type"));
+			return JaxbType.fromJsonValueWithoutRoot(result.toJson(), clazz);
+		};
+
+		final Decoder direct = (document) -> {
+			final String classname = document.getString("type").getValue();
+			final ObjectReader reader = DocumentCodecs.reader(DataUtils.json().mapper(), DocumentCodecs.lookup(classname));
+			return DocumentCodecs.decode(document, reader);
+		};
+
+		// Both decoders must produce equal objects!
+		for (RawBsonDocument document : documents) {
+			final String expected = legacy.decode(document).jsonValueWithoutRoot(false);
+			final String actual = direct.decode(document).jsonValueWithoutRoot(false);
+			if (!expected.equals(actual))
+				throw new IllegalStateException("Decoded objects differ:\n" + expected + "\n" + actual);
+		}
+
+		for (int i = 0; i < NUM_WARMUP_ITERATIONS; ++i) {
+			DocumentDecodingBenchmark.run(legacy, documents);
+			DocumentDecodingBenchmark.run(direct, documents);
+		}
+
+		DocumentDecodingBenchmark.measure("legacy", legacy, documents);
+		DocumentDecodingBenchmark.measure("direct", direct, documents);
+	}
+
+
+	/* ==================== Internal Methods ==================== */
+
+	private interface Decoder
+	{
+		JaxbType decode(RawBsonDocument document) throws Exception;
+	}
+
+	/** The former class resolution, as implemented in MongodbEaasConnector */
+	@SuppressWarnings("unchecked")
+	private static Class<? extends JaxbType> resolve(String classname) throws ClassNotFoundException
+	{
+		try {
+			return (Class<? extends JaxbType>) Class.forName(classname);
+		}
+		catch (ClassNotFoundException error) {
+			return (Class<? extends JaxbType>) Class.forName("de.bwl.bwfla.emil.datatypes." + classname);
+		}
+	}
+
+	private static long run(Decoder decoder, List<RawBsonDocument> documents) throws Exception
+	{
+		long count = 0L;
+		for (RawBsonDocument document : documents) {
+			if (decoder.decode(document) != null)
+				++count;
+		}
+
+		return count;
+	}
+
+	private static void measure(String name, Decoder decoder, List<RawBsonDocument> documents) throws Exception
+	{
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final long tid = Thread.currentThread().getId();
+		final long numDocuments = (long) NUM_ITERATIONS * documents.size();
+
+		long count = 0L;
+		final long allocated = threads.getThreadAllocatedBytes(tid);
+		final long start = System.nanoTime();
+		for (int i = 0; i < NUM_ITERATIONS; ++i)
+			count += DocumentDecodingBenchmark.run(decoder, documents);
+
+		final double duration = (double) (System.nanoTime() - start) / 1000.0;
+		final double bytes = (double) (threads.getThreadAllocatedBytes(tid) - allocated);
+		System.out.printf(RESULT_FORMAT, name, duration / numDocuments, bytes / numDocuments);
+		System.out.println("Decoded: " + count);
+	}
+
+	/** Generate documents resembling stored environments */
+	private static List<RawBsonDocument> generate()
+	{
+		final List<RawBsonDocument> documents = new ArrayList<>(NUM_DOCUMENTS);
+		for (int i = 0; i < NUM_DOCUMENTS; ++i) {
+			final EmilEnvironment environment = (i % 4 == 0) ? new EmilObjectEnvironment() : new EmilEnvironment();
+			environment.setEnvId(UUID.randomUUID().toString());
+			environment.setParentEnvId(UUID.randomUUID().toString());
+			environment.setTitle("Environment " + i);
+			environment.setDescription("Generated environment number " + i + " for benchmarking purposes");
+			environment.setOs("Windows 98 SE");
+			environment.setEmulator("Qemu");
+			environment.setAuthor("benchmark");
+			environment.setVersion(Integer.toString(i % 7));
+			environment.setTimestamp(Instant.now().toString());
+			environment.setHelpText("Press F12 to enter the boot-menu");
+			environment.setEnableRelativeMouse(i % 2 == 0);
+			for (int j = 0; j < i % 5; ++j)
+				environment.addChildEnvId(UUID.randomUUID().toString());
+
+			final EmilEnvironmentOwner owner = new EmilEnvironmentOwner();
+			owner.setUsername("user-" + (i % 10));
+			owner.setUsergroup("group-" + (i % 3));
+			environment.setOwner(owner);
+
+			if (environment instanceof EmilObjectEnvironment) {
+				final EmilObjectEnvironment oenv = (EmilObjectEnvironment) environment;
+				oenv.setObjectId("object-" + i);
+				oenv.setObjectArchiveId("default");
+				oenv.setDriveId(1);
+			}
+
+			documents.add(RawBsonDocument.parse(environment.jsonValueWithoutRoot(false)));
+		}
+
+		return documents;
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.emil.utils;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.openslx.eaas.common.databind.DataUtils;
+import de.bwl.bwfla.common.database.document.DocumentCodecs;
+import de.bwl.bwfla.common.services.security.EmilEnvironmentOwner;
+import de.bwl.bwfla.common.utils.jaxb.JaxbType;
+import de.bwl.bwfla.emil.datatypes.EmilEnvironment;
+import de.bwl.bwfla.emil.datatypes.EmilObjectEnvironment;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class DocumentDecodingTest
+{
+	private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec();
+
+
+	@Test
+	public void testEnvironment() throws Exception
+	{
+		final EmilEnvironment environment = new EmilEnvironment();
+		DocumentDecodingTest.populate(environment, 3);
+		DocumentDecodingTest.check(environment);
+	}
+
+	@Test
+	public void testObjectEnvironment() throws Exception
+	{
+		final EmilObjectEnvironment environment = new EmilObjectEnvironment();
+		DocumentDecodingTest.populate(environment, 0);
+		environment.setObjectId("object-1");
+		environment.setObjectArchiveId("default");
+		environment.setDriveId(1);
+		DocumentDecodingTest.check(environment);
+	}
+
+	@Test
+	public void testMinimalEnvironment() throws Exception
+	{
+		final EmilEnvironment environment = new EmilEnvironment();
+		environment.setEnvId("env-1");
+		DocumentDecodingTest.check(environment);
+	}
+
+	@Test
+	public void testNonAsciiValues() throws Exception
+	{
+		final EmilEnvironment environment = new EmilEnvironment();
+		DocumentDecodingTest.populate(environment, 1);
+		environment.setTitle("Umgebung \u00e4\u00f6\u00fc \u2603 \"quoted\"");
+		environment.setDescription("multi\nline\ttext");
+		DocumentDecodingTest.check(environment);
+	}
+
+	@Test
+	public void testDeprecatedFields() throws Exception
+	{
+		// Decoders must agree on documents with deprecated networking fields,
+		// so that the connector's upgrade path is taken in the same cases
+		final EmilEnvironment environment = new EmilEnvironment();
+		DocumentDecodingTest.populate(environment, 0);
+
+		final Document document = Document.parse(environment.jsonValueWithoutRoot(false));
+		document.put("serverIp", "10.0.0.1");
+		document.put("enableInternet", true);
+		final RawBsonDocument raw = RawBsonDocument.parse(document.toJson());
+
+		JaxbType legacy = null;
+		try {
+			legacy = DocumentDecodingTest.legacy(raw, EmilEnvironment.class);
+		}
+		catch (Exception error) {
+			// Expected, if unknown fields are rejected!
+		}
+
+		JaxbType direct = null;
+		try {
+			direct = DocumentDecodingTest.direct(raw, EmilEnvironment.class);
+		}
+		catch (Exception error) {
+			// Expected, if unknown fields are rejected!
+		}
+
+		Assert.assertEquals(legacy == null, direct == null);
+		if (legacy != null)
+			Assert.assertEquals(legacy.jsonValueWithoutRoot(false), direct.jsonValueWithoutRoot(false));
+	}
+
+
+	/** Both decoders must produce equal objects */
+	private static void check(EmilEnvironment environment) throws Exception
+	{
+		final Class<? extends EmilEnvironment> clazz = environment.getClass();
+		final RawBsonDocument document = RawBsonDocument.parse(environment.jsonValueWithoutRoot(false));
+		final JaxbType expected = DocumentDecodingTest.legacy(document, clazz);
+		final JaxbType actual = DocumentDecodingTest.direct(document, clazz);
+		Assert.assertEquals(clazz, actual.getClass());
+		Assert.assertEquals(expected.jsonValueWithoutRoot(false), actual.jsonValueWithoutRoot(false));
+		Assert.assertEquals(environment.jsonValueWithoutRoot(false), actual.jsonValueWithoutRoot(false));
+	}
+
+	/** The former decoding, converting documents to JSON text */
+	private static JaxbType legacy(RawBsonDocument document, Class<? extends JaxbType> clazz) throws Exception
+	{
+		return JaxbType.fromJsonValueWithoutRoot(document.decode(DOCUMENT_CODEC).toJson(), clazz);
+	}
+
+	/** The direct decoding from BSON, as done by MongodbEaasConnector */
+	private static JaxbType direct(RawBsonDocument document, Class<? extends JaxbType> clazz) throws Exception
+	{
+		final ObjectReader reader = DocumentCodecs.reader(DataUtils.json().mapper(), clazz);
+		return DocumentCodecs.decode(document, reader);
+	}
+
+	private static void populate(EmilEnvironment environment, int numChildren)
+	{
+		environment.setEnvId("env-" + numChildren);
+		environment.setParentEnvId("parent-" + numChildren);
+		environment.setTitle("Environment " + numChildren);
+		environment.setDescription("Generated environment for testing purposes");
+		environment.setOs("Windows 98 SE");
+		environment.setEmulator("Qemu");
+		environment.setAuthor("test");
+		environment.setVersion("2");
+		environment.setTimestamp("2020-01-01T00:00:00Z");
+		environment.setEnableRelativeMouse(true);
+		for (int i = 0; i < numChildren; ++i)
+			environment.addChildEnvId("child-" + i);
+
+		final EmilEnvironmentOwner owner = new EmilEnvironmentOwner();
+		owner.setUsername("user");
+		owner.setUsergroup("group");
+		environment.setOwner(owner);
+	}
+}
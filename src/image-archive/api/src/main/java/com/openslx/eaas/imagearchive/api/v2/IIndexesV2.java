@@ -53,4 +53,14 @@ public interface IIndexesV2
 	@Path("/all/build")
 	@SecuredInternal
 	void rebuild() throws BWFLAException;
+
+	@POST
+	@Path("/{name}/refresh")
+	@SecuredInternal
+	void refresh(@PathParam("name") String name) throws BWFLAException;
+
+	@POST
+	@Path("/all/refresh")
+	@SecuredInternal
+	void refresh() throws BWFLAException;
 }
@@ -19,8 +19,30 @@
 
 package com.openslx.eaas.imagearchive.api.v2.common;
 
+import javax.ws.rs.QueryParam;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 
 public class FetchOptionsV2 extends RangeOptionsV2<FetchOptionsV2>
 {
-	// Empty!
+	@QueryParam("fields")
+	private String fields;
+
+
+	/** Return only specified data fields (comma-separated) */
+	public FetchOptionsV2 setFields(String... fields)
+	{
+		this.fields = (fields.length > 0) ? String.join(",", fields) : null;
+		return this;
+	}
+
+	public List<String> fields()
+	{
+		if (fields == null || fields.isEmpty())
+			return Collections.emptyList();
+
+		return Arrays.asList(fields.split(","));
+	}
 }
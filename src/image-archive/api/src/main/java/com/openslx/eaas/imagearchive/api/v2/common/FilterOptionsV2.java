@@ -20,6 +20,10 @@
 package com.openslx.eaas.imagearchive.api.v2.common;
 
 import javax.ws.rs.QueryParam;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 
 public class FilterOptionsV2<T extends FilterOptionsV2<T>>
@@ -31,6 +35,9 @@ public class FilterOptionsV2<T extends FilterOptionsV2<T>>
 	@QueryParam("until-time")
 	private long untilts = 0L;
 
+	@QueryParam("ids")
+	private String ids;
+
 
 	public T setFromTime(long timestamp)
 	{
@@ -53,4 +60,19 @@ public class FilterOptionsV2<T extends FilterOptionsV2<T>>
 	{
 		return untilts;
 	}
+
+	/** Select only records with specified IDs (comma-separated) */
+	public T setIds(Collection<String> ids)
+	{
+		this.ids = (ids != null && !ids.isEmpty()) ? String.join(",", ids) : null;
+		return (T) this;
+	}
+
+	public List<String> ids()
+	{
+		if (ids == null || ids.isEmpty())
+			return Collections.emptyList();
+
+		return Arrays.asList(ids.split(","));
+	}
 }
@@ -25,12 +25,22 @@ import javax.ws.rs.QueryParam;
 public class RangeOptionsV2<T extends RangeOptionsV2<T>>
 		extends FilterOptionsV2<T>
 {
+	/** Number of records to skip, not allowed with cursor-based paging */
 	@QueryParam("offset")
 	private int offset = 0;
 
 	@QueryParam("limit")
 	private int limit = 0;
 
+	@QueryParam("sort-by")
+	private String sortby;
+
+	@QueryParam("cursor")
+	private String cursor;
+
+	/** Response header containing the cursor for the next page */
+	public static final String NEXT_CURSOR_HEADER = "eaas-next-cursor";
+
 
 	public T setOffset(int offset)
 	{
@@ -53,4 +63,33 @@ public class RangeOptionsV2<T extends RangeOptionsV2<T>>
 	{
 		return (limit == 0) ? Integer.MAX_VALUE : limit;
 	}
+
+	/** Sort records by given key ("name" or "mtime"), enabling cursor-based paging */
+	public T setSortBy(String key)
+	{
+		this.sortby = key;
+		return (T) this;
+	}
+
+	public String sortby()
+	{
+		return sortby;
+	}
+
+	/** Continue listing after position returned in {@link #NEXT_CURSOR_HEADER} */
+	public T setCursor(String cursor)
+	{
+		this.cursor = cursor;
+		return (T) this;
+	}
+
+	public String cursor()
+	{
+		return cursor;
+	}
+
+	public boolean isKeysetPaging()
+	{
+		return sortby != null || cursor != null;
+	}
 }
@@ -126,6 +126,14 @@ public class EnvironmentsV2
 		return Streamable.of(stream, adapter.cleanups());
 	}
 
+	/** List all environments, requesting at most pagesize records at once */
+	public Streamable<String> list(ListOptionsV2 options, int pagesize)
+	{
+		final var opts = (options != null) ? options : new ListOptionsV2();
+		final Pager<String> pager = (resource) -> resource.list(opts, pagesize);
+		return this.page(pager, opts);
+	}
+
 
 	// ===== IReadable API ==============================
 
@@ -163,6 +171,14 @@ public class EnvironmentsV2
 		return Streamable.of(stream, adapter.cleanups());
 	}
 
+	/** Fetch all environments, requesting at most pagesize records at once */
+	public Streamable<Environment> fetch(FetchOptionsV2 options, int pagesize)
+	{
+		final var opts = (options != null) ? options : new FetchOptionsV2();
+		final Pager<Environment> pager = (resource) -> resource.fetch(opts, pagesize);
+		return this.page(pager, opts);
+	}
+
 
 	// ===== IWritable API ==============================
 
@@ -393,6 +409,37 @@ public class EnvironmentsV2
 				throws Exception;
 	}
 
+	private interface Pager<T>
+	{
+		Streamable<? extends T> fetch(RemoteResourceRWM<? extends Environment, ?> resource);
+	}
+
+	private <T> Streamable<T> page(Pager<T> pager, RangeOptionsV2<?> options)
+	{
+		final var limit = options.limit();
+		final var sortby = options.sortby();
+		final var cleanups = new TaskStack(logger);
+		final Function<RemoteResourceRWM<? extends Environment, ?>, Stream<T>> adapter = (resource) -> {
+			// restart paging for every resource, since cursors are resource-specific
+			options.setSortBy(sortby)
+					.setCursor(null)
+					.setLimit(limit);
+
+			final var streamable = pager.fetch(resource);
+			cleanups.push("close-paged-stream", streamable::close);
+			return streamable.stream()
+					.map(Function.<T>identity());
+		};
+
+		var stream = resources.stream()
+				.flatMap(adapter);
+
+		if (limit != Integer.MAX_VALUE)
+			stream = stream.limit(limit);
+
+		return Streamable.of(stream, cleanups);
+	}
+
 	private static class RangeAdapter<T, O extends RangeOptionsV2<?>>
 			implements Function<RemoteResourceRWM<? extends Environment, ?>, Stream<T>>
 	{
@@ -432,7 +479,7 @@ public class EnvironmentsV2
 				options.setOffset(0);
 				return streamable.stream()
 						.peek(this::update)
-						.map((record) -> (T) record);
+						.map(Function.<T>identity());
 			}
 			catch (Exception error) {
 				throw new RuntimeException(error);
@@ -58,4 +58,14 @@ public class IndexesV2 extends RemoteResource<IIndexesV2>
 	{
 		api.rebuild();
 	}
+
+	public void refresh(String name) throws BWFLAException
+	{
+		api.refresh(name);
+	}
+
+	public void refresh() throws BWFLAException
+	{
+		api.refresh();
+	}
 }
@@ -0,0 +1,137 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.openslx.eaas.imagearchive.client.endpoint.v2.common;
+
+import com.openslx.eaas.common.databind.Streamable;
+import com.openslx.eaas.imagearchive.api.v2.common.RangeOptionsV2;
+import de.bwl.bwfla.common.exceptions.BWFLAException;
+
+import javax.ws.rs.core.Response;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+
+/** Helper for lazily fetching all records page by page, using cursor-based paging */
+public class CursorPager<T, U> implements Iterator<U>
+{
+	private final RangeOptionsV2<?> options;
+	private final Fetcher fetcher;
+	private final Class<T> clazz;
+	private final Function<T, U> mapper;
+	private Iterator<U> page;
+	private boolean finished;
+
+
+	public interface Fetcher
+	{
+		Response fetch() throws BWFLAException;
+	}
+
+	/** Stream all records in given range, fetching at most pagesize records per request */
+	public static <T, U> Streamable<U> stream(RangeOptionsV2<?> options, int pagesize, Fetcher fetcher,
+											  Class<T> clazz, Function<T, U> mapper)
+	{
+		if (pagesize <= 0)
+			throw new IllegalArgumentException("Invalid page size: " + pagesize);
+
+		if (options.offset() != 0)
+			throw new IllegalArgumentException("Offsets are not supported with cursor-based paging!");
+
+		final var limit = options.limit();
+		if (!options.isKeysetPaging())
+			options.setSortBy("name");
+
+		options.setLimit(pagesize);
+
+		final var pager = new CursorPager<>(options, fetcher, clazz, mapper);
+		final var spliterator = Spliterators.spliteratorUnknownSize(pager, 0);
+		var stream = StreamSupport.stream(spliterator, false);
+		if (limit != Integer.MAX_VALUE)
+			stream = stream.limit(limit);
+
+		return Streamable.of(stream);
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		while (!page.hasNext()) {
+			if (finished)
+				return false;
+
+			page = this.fetch();
+		}
+
+		return true;
+	}
+
+	@Override
+	public U next()
+	{
+		if (!this.hasNext())
+			throw new NoSuchElementException();
+
+		return page.next();
+	}
+
+
+	// ===== Internal Helpers ==============================
+
+	private CursorPager(RangeOptionsV2<?> options, Fetcher fetcher, Class<T> clazz, Function<T, U> mapper)
+	{
+		this.options = options;
+		this.fetcher = fetcher;
+		this.clazz = clazz;
+		this.mapper = mapper;
+		this.page = Collections.emptyIterator();
+		this.finished = false;
+	}
+
+	private Iterator<U> fetch()
+	{
+		try {
+			final var response = fetcher.fetch();
+			final var cursor = response.getHeaderString(RangeOptionsV2.NEXT_CURSOR_HEADER);
+
+			// pages are bounded, hence can be collected eagerly
+			final var records = Streamable.of(response, clazz, mapper);
+			try (records) {
+				final var page = records.stream()
+						.collect(Collectors.toList());
+
+				if (cursor == null || page.isEmpty())
+					finished = true;
+				else options.setCursor(cursor);
+
+				return page.iterator();
+			}
+		}
+		catch (BWFLAException error) {
+			throw new RuntimeException("Fetching next page failed!", error);
+		}
+	}
+}
@@ -25,6 +25,8 @@ import com.openslx.eaas.imagearchive.api.v2.common.IListable;
 import com.openslx.eaas.imagearchive.api.v2.common.ListOptionsV2;
 import de.bwl.bwfla.common.exceptions.BWFLAException;
 
+import java.util.function.Function;
+
 
 public interface IListableResource
 {
@@ -67,6 +69,16 @@ public interface IListableResource
 		return Streamable.of(response, String.class);
 	}
 
+	/** List all records, fetching at most pagesize records per request */
+	default Streamable<String> list(ListOptionsV2 options, int pagesize)
+	{
+		final var opts = (options != null) ? options : new ListOptionsV2();
+		final CursorPager.Fetcher fetcher = () -> this.api()
+				.list(opts);
+
+		return CursorPager.stream(opts, pagesize, fetcher, String.class, Function.identity());
+	}
+
 
 	// ===== Internal Helpers ==============================
 
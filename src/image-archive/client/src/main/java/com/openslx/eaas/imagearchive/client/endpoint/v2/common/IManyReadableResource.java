@@ -22,6 +22,7 @@ package com.openslx.eaas.imagearchive.client.endpoint.v2.common;
 import com.openslx.eaas.common.databind.Streamable;
 import com.openslx.eaas.imagearchive.api.v2.common.FetchOptionsV2;
 import com.openslx.eaas.imagearchive.api.v2.common.IManyReadable;
+import com.openslx.eaas.imagearchive.api.v2.common.RangeOptionsV2;
 import de.bwl.bwfla.common.exceptions.BWFLAException;
 
 import java.util.function.Function;
@@ -57,6 +58,38 @@ public interface IManyReadableResource<T>
 		return Streamable.of(response, this.getTargetClass(), mapper);
 	}
 
+	/**
+	 * Fetch a single page of records, following options' cursor. Afterwards, options' cursor
+	 * will point to the next page, or will be null if no more records exist.
+	 */
+	default <U> Streamable<U> fetchPage(Function<T,U> mapper, FetchOptionsV2 options) throws BWFLAException
+	{
+		if (!options.isKeysetPaging())
+			throw new IllegalArgumentException("Cursor-based paging is not enabled!");
+
+		final var response = this.api()
+				.fetch(options);
+
+		options.setCursor(response.getHeaderString(RangeOptionsV2.NEXT_CURSOR_HEADER));
+		return Streamable.of(response, this.getTargetClass(), mapper);
+	}
+
+	/** Fetch all records, requesting at most pagesize records at once */
+	default Streamable<T> fetch(FetchOptionsV2 options, int pagesize)
+	{
+		return this.fetch(Function.identity(), options, pagesize);
+	}
+
+	/** Fetch all records, requesting at most pagesize records at once */
+	default <U> Streamable<U> fetch(Function<T,U> mapper, FetchOptionsV2 options, int pagesize)
+	{
+		final var opts = (options != null) ? options : new FetchOptionsV2();
+		final CursorPager.Fetcher fetcher = () -> this.api()
+				.fetch(opts);
+
+		return CursorPager.stream(opts, pagesize, fetcher, this.getTargetClass(), mapper);
+	}
+
 
 	// ===== Internal Helpers ==============================
 
@@ -36,6 +36,7 @@ import javax.enterprise.event.Observes;
 import javax.enterprise.inject.spi.CDI;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -130,10 +131,11 @@ public class ArchiveBackend
 		try {
 			this.config = ImageArchiveConfig.create(LOG);
 			this.storage = StorageRegistry.create(config.getStorageConfig());
-			this.indexes = IndexRegistry.create()
+			this.indexes = IndexRegistry.create(config.getIndexerConfig(), executor)
 					.rebuild(storage);
 
 			this.services = ServiceRegistry.create(this);
+			this.schedule(new IndexRefreshTask());
 		}
 		catch (Exception error) {
 			throw new RuntimeException(error);
@@ -148,6 +150,18 @@ public class ArchiveBackend
 		ArchiveBackend.close(storage);
 	}
 
+	private void schedule(IndexRefreshTask task)
+	{
+		final var interval = config.getIndexerConfig()
+				.getRefreshInterval();
+
+		if (interval.isZero() || interval.isNegative())
+			return;
+
+		final Runnable trigger = () -> executor.execute(task);
+		scheduler.schedule(trigger, interval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
 	private static void close(AutoCloseable service)
 	{
 		try {
@@ -159,6 +173,23 @@ public class ArchiveBackend
 	}
 
 
+	private class IndexRefreshTask implements Runnable
+	{
+		@Override
+		public void run()
+		{
+			try {
+				indexes.refresh(storage);
+			}
+			catch (Exception error) {
+				LOG.log(Level.WARNING, "Refreshing data-indexes failed!", error);
+			}
+
+			ArchiveBackend.this.schedule(this);
+		}
+	}
+
+
 	// ===== Lifecycle Hooks ==============================
 
 	private void handle(@Observes @Initialized(ApplicationScoped.class) Object unused)
@@ -30,6 +30,7 @@ public class ImageArchiveConfig extends BaseConfig<ImageArchiveConfig>
 {
 	private StorageRegistryConfig storage = new StorageRegistryConfig();
 	private ImporterConfig importer = new ImporterConfig();
+	private IndexerConfig indexer = new IndexerConfig();
 
 
 	// ===== Getters and Setters ====================
@@ -56,6 +57,17 @@ public class ImageArchiveConfig extends BaseConfig<ImageArchiveConfig>
 		return importer;
 	}
 
+	public void setIndexerConfig(IndexerConfig indexer)
+	{
+		ConfigHelpers.check(indexer, "Indexer config is invalid!");
+		this.indexer = indexer;
+	}
+
+	public IndexerConfig getIndexerConfig()
+	{
+		return indexer;
+	}
+
 
 	// ===== Initialization ====================
 
@@ -79,6 +91,7 @@ public class ImageArchiveConfig extends BaseConfig<ImageArchiveConfig>
 		log.info("Loading image-archive's configuration...");
 		storage.load(ConfigHelpers.filter(config,"imagearchive.storage."), log);
 		importer.load(ConfigHelpers.filter(config,"imagearchive.importer."), log);
+		indexer.load(ConfigHelpers.filter(config,"imagearchive.indexer."), log);
 		return super.load(config, log);
 	}
 }
@@ -19,6 +19,7 @@
 
 package com.openslx.eaas.imagearchive.config;
 
+import com.openslx.eaas.common.config.util.MemoryUnitParser;
 import de.bwl.bwfla.common.utils.ConfigHelpers;
 import de.bwl.bwfla.configuration.converters.DurationPropertyConverter;
 import org.apache.tamaya.inject.api.Config;
@@ -35,6 +36,12 @@ public class ImporterConfig extends BaseConfig<ImporterConfig>
 	private Duration maxRecordAge;
 	private Path basedir;
 	private Path tmpdir;
+	private long chunkSize;
+	private int numChunkWorkers;
+	private int maxChunkRetries;
+
+	/** Min. part-size supported by S3 multipart operations */
+	private static final long MIN_CHUNK_SIZE = 5L * 1024L * 1024L;
 
 
 	// ===== Getters and Setters ====================
@@ -100,4 +107,46 @@ public class ImporterConfig extends BaseConfig<ImporterConfig>
 	{
 		return tmpdir;
 	}
+
+	@Config("chunk_size")
+	public void setChunkSize(String size)
+	{
+		ConfigHelpers.check(size, "Chunk size is invalid!");
+		this.setChunkSize(new MemoryUnitParser().parse(size));
+	}
+
+	public void setChunkSize(long size)
+	{
+		ConfigHelpers.check(size, MIN_CHUNK_SIZE, Long.MAX_VALUE, "Chunk size is invalid!");
+		this.chunkSize = size;
+	}
+
+	public long getChunkSize()
+	{
+		return chunkSize;
+	}
+
+	@Config("num_chunk_workers")
+	public void setNumChunkWorkers(int num)
+	{
+		ConfigHelpers.check(num, 1, 64, "Number of chunk workers is invalid!");
+		this.numChunkWorkers = num;
+	}
+
+	public int getNumChunkWorkers()
+	{
+		return numChunkWorkers;
+	}
+
+	@Config("max_chunk_retries")
+	public void setMaxChunkRetries(int num)
+	{
+		ConfigHelpers.check(num, 0, 100, "Number of chunk retries is invalid!");
+		this.maxChunkRetries = num;
+	}
+
+	public int getMaxChunkRetries()
+	{
+		return maxChunkRetries;
+	}
 }
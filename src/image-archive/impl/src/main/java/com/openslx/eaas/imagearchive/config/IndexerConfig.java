@@ -0,0 +1,76 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openslx.eaas.imagearchive.config;
+
+import de.bwl.bwfla.common.utils.ConfigHelpers;
+import de.bwl.bwfla.configuration.converters.DurationPropertyConverter;
+import org.apache.tamaya.inject.api.Config;
+import org.apache.tamaya.inject.api.WithPropertyConverter;
+
+import java.time.Duration;
+
+
+public class IndexerConfig extends BaseConfig<IndexerConfig>
+{
+	private Duration refreshInterval;
+	private int numWorkers;
+	private int batchSize;
+
+
+	// ===== Getters and Setters ====================
+
+	@Config("num_workers")
+	public void setNumWorkers(int num)
+	{
+		ConfigHelpers.check(num, 1, 256, "Number of workers is invalid!");
+		this.numWorkers = num;
+	}
+
+	public int getNumWorkers()
+	{
+		return numWorkers;
+	}
+
+	@Config("batch_size")
+	public void setBatchSize(int size)
+	{
+		ConfigHelpers.check(size, 1, 4096, "Batch size is invalid!");
+		this.batchSize = size;
+	}
+
+	public int getBatchSize()
+	{
+		return batchSize;
+	}
+
+	@Config("refresh_interval")
+	@WithPropertyConverter(DurationPropertyConverter.class)
+	public void setRefreshInterval(Duration interval)
+	{
+		ConfigHelpers.check(interval, "Refresh interval is invalid!");
+		this.refreshInterval = interval;
+	}
+
+	/** Interval between incremental index refreshes, zero if disabled */
+	public Duration getRefreshInterval()
+	{
+		return refreshInterval;
+	}
+}
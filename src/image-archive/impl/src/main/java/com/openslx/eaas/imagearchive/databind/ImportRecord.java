@@ -38,6 +38,7 @@ public class ImportRecord
 	private int taskid;
 	private ImportTask task;
 	private ImportFailure failure;
+	private ImportTransfer transfer;
 	private long ctime = -1L;
 	private long stime = -1L;
 	private long ftime = -1L;
@@ -100,6 +101,18 @@ public class ImportRecord
 		return failure != null;
 	}
 
+	@JsonSetter(Fields.TRANSFER)
+	public void setTransfer(ImportTransfer transfer)
+	{
+		this.transfer = transfer;
+	}
+
+	@JsonGetter(Fields.TRANSFER)
+	public ImportTransfer transfer()
+	{
+		return transfer;
+	}
+
 	@JsonSetter(Fields.CREATED_AT_TIME)
 	public void setCreatedAtTime(long timestamp)
 	{
@@ -189,8 +202,15 @@ public class ImportRecord
 
 	public static DocumentCollection.Filter pending()
 	{
+		// NOTE: started but unfinished tasks were interrupted and must be resumed too!
 		return DocumentCollection.filter()
-				.lt(Fields.STARTED_AT_TIME, 0L);
+				.lt(Fields.FINISHED_AT_TIME, 0L);
+	}
+
+	public static DocumentCollection.Update transferred(int part)
+	{
+		return DocumentCollection.updater()
+				.addToSet(Fields.TRANSFER + "." + ImportTransfer.Fields.PARTS, part);
 	}
 
 	public static void index(DocumentCollection<ImportRecord> records) throws BWFLAException
@@ -205,6 +225,7 @@ public class ImportRecord
 		public static final String PARENT_ID        = "pid";
 		public static final String TASK_CONFIG      = "cfg";
 		public static final String FAILURE          = "fai";
+		public static final String TRANSFER         = "tfr";
 		public static final String CREATED_AT_TIME  = "cts";
 		public static final String STARTED_AT_TIME  = "sts";
 		public static final String FINISHED_AT_TIME = "fts";
@@ -0,0 +1,157 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.openslx.eaas.imagearchive.databind;
+
+import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonSetter;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+
+/** State of a chunked transfer, recorded for resuming interrupted imports */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportTransfer
+{
+	private String id;
+	private long size = -1L;
+	private long chunksize = -1L;
+	private String validator;
+	private Set<Integer> parts;
+
+	@JsonSetter(Fields.ID)
+	public ImportTransfer setId(String id)
+	{
+		this.id = id;
+		return this;
+	}
+
+	@JsonGetter(Fields.ID)
+	public String id()
+	{
+		return id;
+	}
+
+	@JsonSetter(Fields.SIZE)
+	public ImportTransfer setSize(long size)
+	{
+		this.size = size;
+		return this;
+	}
+
+	@JsonGetter(Fields.SIZE)
+	public long size()
+	{
+		return size;
+	}
+
+	@JsonSetter(Fields.CHUNK_SIZE)
+	public ImportTransfer setChunkSize(long size)
+	{
+		this.chunksize = size;
+		return this;
+	}
+
+	@JsonGetter(Fields.CHUNK_SIZE)
+	public long chunksize()
+	{
+		return chunksize;
+	}
+
+	@JsonSetter(Fields.VALIDATOR)
+	public ImportTransfer setValidator(String validator)
+	{
+		this.validator = validator;
+		return this;
+	}
+
+	@JsonGetter(Fields.VALIDATOR)
+	public String validator()
+	{
+		return validator;
+	}
+
+	@JsonSetter(Fields.PARTS)
+	public synchronized ImportTransfer setParts(Set<Integer> parts)
+	{
+		this.parts = parts;
+		return this;
+	}
+
+	@JsonGetter(Fields.PARTS)
+	public synchronized Set<Integer> parts()
+	{
+		if (parts == null)
+			parts = new HashSet<>();
+
+		return parts;
+	}
+
+	/** Mark given part as transferred */
+	public synchronized void complete(int part)
+	{
+		this.parts()
+				.add(part);
+	}
+
+	/** Was given part already transferred? */
+	public synchronized boolean completed(int part)
+	{
+		return parts != null && parts.contains(part);
+	}
+
+	/** Number of parts of this transfer */
+	@JsonIgnore
+	public int count()
+	{
+		return (int) ((size + chunksize - 1L) / chunksize);
+	}
+
+	/** Can this transfer be resumed for a source with given properties? */
+	public boolean resumable(long size, long chunksize, String validator)
+	{
+		return id != null && this.size == size && this.chunksize == chunksize
+				&& validator != null && validator.equals(this.validator);
+	}
+
+	public static ImportTransfer create(long size, long chunksize, String validator)
+	{
+		return new ImportTransfer()
+				.setId(UUID.randomUUID().toString())
+				.setSize(size)
+				.setChunkSize(chunksize)
+				.setValidator(validator);
+	}
+
+
+	public static final class Fields
+	{
+		public static final String ID         = "id";
+		public static final String SIZE       = "sz";
+		public static final String CHUNK_SIZE = "csz";
+		public static final String VALIDATOR  = "val";
+		public static final String PARTS      = "prt";
+	}
+}
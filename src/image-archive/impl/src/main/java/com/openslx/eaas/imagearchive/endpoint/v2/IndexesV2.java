@@ -78,6 +78,23 @@ public class IndexesV2 implements IIndexesV2
 		indexes.rebuild(storage);
 	}
 
+	@Override
+	public void refresh(String name) throws BWFLAException
+	{
+		final var kind = BlobKind.from(name);
+		final var index = indexes.lookup(kind);
+		if (index == null)
+			throw new NotFoundException();
+
+		index.refresh(storage);
+	}
+
+	@Override
+	public void refresh() throws BWFLAException
+	{
+		indexes.refresh(storage);
+	}
+
 
 	// ===== Internal Helpers ==============================
 
@@ -23,13 +23,19 @@ import com.openslx.eaas.common.databind.Streamable;
 import com.openslx.eaas.imagearchive.api.v2.common.CountOptionsV2;
 import com.openslx.eaas.imagearchive.api.v2.common.FilterOptionsV2;
 import com.openslx.eaas.imagearchive.api.v2.common.ListOptionsV2;
+import com.openslx.eaas.imagearchive.api.v2.common.RangeOptionsV2;
 import com.openslx.eaas.imagearchive.indexing.BlobDescriptor;
 import com.openslx.eaas.imagearchive.indexing.FilterOptions;
+import com.openslx.eaas.imagearchive.indexing.PageCursor;
 import com.openslx.eaas.imagearchive.service.AbstractService;
 import de.bwl.bwfla.common.exceptions.BWFLAException;
 
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.NotFoundException;
 import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 public abstract class AbstractResource<T extends BlobDescriptor>
@@ -53,12 +59,8 @@ public abstract class AbstractResource<T extends BlobDescriptor>
 
 	public Response list(ListOptionsV2 options) throws BWFLAException
 	{
-		final var result = this.service()
-				.list(AbstractResource.convert(options), options.offset(), options.limit())
-				.map(T::name);
-
-		return Response.ok(Streamable.of(result))
-				.build();
+		// only record names are returned, hence skip loading of remaining fields
+		return this.list(options, T::name, BlobDescriptor.Fields.NAME);
 	}
 
 
@@ -66,11 +68,67 @@ public abstract class AbstractResource<T extends BlobDescriptor>
 
 	protected abstract AbstractService<T> service();
 
+	/** List records in requested range, using either offset- or cursor-based paging */
+	protected <U> Response list(RangeOptionsV2<?> options, Function<T, U> mapper, String... fields)
+			throws BWFLAException
+	{
+		final var filter = AbstractResource.convert(options);
+		if (!options.isKeysetPaging()) {
+			final var result = this.service()
+					.list(filter, options.offset(), options.limit(), fields)
+					.map(mapper);
+
+			return Response.ok(Streamable.of(result))
+					.build();
+		}
+
+		final var cursor = AbstractResource.cursor(options);
+		final var limit = options.limit();
+		final var result = this.service()
+				.list(filter, cursor, limit, fields);
+
+		if (limit == Integer.MAX_VALUE) {
+			// unbounded listing, no further pages possible
+			return Response.ok(Streamable.of(result.map(mapper)))
+					.build();
+		}
+
+		// collect bounded page first, since the next cursor must be sent in a header
+		final List<T> records;
+		try (result) {
+			records = result.collect(Collectors.toList());
+		}
+
+		final var response = Response.ok(Streamable.of(records, mapper));
+		if (records.size() == limit) {
+			final var last = records.get(limit - 1);
+			response.header(RangeOptionsV2.NEXT_CURSOR_HEADER, PageCursor.after(cursor.key(), last));
+		}
+
+		return response.build();
+	}
+
+	public static PageCursor cursor(RangeOptionsV2<?> options)
+	{
+		// cursors already point after all previously returned records
+		if (options.offset() != 0)
+			throw new BadRequestException("Offsets are not supported with cursor-based paging!");
+
+		try {
+			return (options.cursor() != null) ? PageCursor.parse(options.cursor())
+					: PageCursor.start(PageCursor.SortKey.from(options.sortby()));
+		}
+		catch (IllegalArgumentException error) {
+			throw new BadRequestException(error.getMessage(), error);
+		}
+	}
+
 	public static FilterOptions convert(FilterOptionsV2<?> options)
 	{
 		return new FilterOptions()
 				.setLocation(options.location())
 				.setFromTime(options.from())
-				.setUntilTime(options.until());
+				.setUntilTime(options.until())
+				.setIds(options.ids());
 	}
 }
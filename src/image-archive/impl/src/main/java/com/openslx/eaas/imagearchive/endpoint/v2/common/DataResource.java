@@ -19,11 +19,11 @@
 
 package com.openslx.eaas.imagearchive.endpoint.v2.common;
 
-import com.openslx.eaas.common.databind.Streamable;
 import com.openslx.eaas.imagearchive.api.v2.common.FetchOptionsV2;
 import com.openslx.eaas.imagearchive.api.v2.common.InsertOptionsV2;
 import com.openslx.eaas.imagearchive.api.v2.common.ReplaceOptionsV2;
 import com.openslx.eaas.imagearchive.api.v2.common.ResolveOptionsV2;
+import com.openslx.eaas.imagearchive.indexing.BlobDescriptor;
 import com.openslx.eaas.imagearchive.indexing.DataRecord;
 import com.openslx.eaas.imagearchive.service.DataService;
 import de.bwl.bwfla.common.exceptions.BWFLAException;
@@ -61,12 +61,13 @@ public abstract class DataResource<D, T extends DataRecord<D>> extends AbstractR
 
 	public Response fetch(FetchOptionsV2 options) throws BWFLAException
 	{
-		final var result = this.service()
-				.list(DataResource.convert(options), options.offset(), options.limit())
-				.map(T::data);
+		// project requested data fields only, if any
+		final var fields = options.fields()
+				.stream()
+				.map((field) -> BlobDescriptor.Fields.DATA + "." + field)
+				.toArray(String[]::new);
 
-		return Response.ok(Streamable.of(result))
-				.build();
+		return this.list(options, T::data, fields);
 	}
 
 
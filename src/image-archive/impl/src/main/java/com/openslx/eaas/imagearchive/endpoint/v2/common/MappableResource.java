@@ -19,7 +19,6 @@
 
 package com.openslx.eaas.imagearchive.endpoint.v2.common;
 
-import com.openslx.eaas.common.databind.Streamable;
 import com.openslx.eaas.imagearchive.api.v2.common.FetchOptionsV2;
 import com.openslx.eaas.imagearchive.api.v2.common.InsertOptionsV2;
 import com.openslx.eaas.imagearchive.api.v2.common.ReplaceOptionsV2;
@@ -61,12 +60,8 @@ public abstract class MappableResource<T, D, R extends DataRecord<D>> extends Ab
 
 	public Response fetch(FetchOptionsV2 options) throws BWFLAException
 	{
-		final var result = this.service()
-				.list(MappableResource.convert(options), options.offset(), options.limit())
-				.map((record) -> this.map(record.data()));
-
-		return Response.ok(Streamable.of(result))
-				.build();
+		// NOTE: mapping requires complete data, hence no field projections here!
+		return this.list(options, (record) -> this.map(record.data()));
 	}
 
 
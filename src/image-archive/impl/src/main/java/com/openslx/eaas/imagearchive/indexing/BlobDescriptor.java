@@ -115,6 +115,16 @@ public class BlobDescriptor
 		return aliases;
 	}
 
+	/** Check whether this entry still describes a blob with given etag and aliases */
+	public boolean isUpToDate(String etag, Set<String> aliases)
+	{
+		if (this.etag == null || !this.etag.equals(etag))
+			return false;
+
+		// NOTE: aliases are inlined during ingestion, but can change independently of blobs!
+		return this.aliases().equals(aliases);
+	}
+
 	public static DocumentCollection.Filter filter(String name)
 	{
 		final var f1 = DocumentCollection.filter()
@@ -138,6 +148,17 @@ public class BlobDescriptor
 		if (options.until() > 0L)
 			filter.lt(Fields.MTIME, options.until());
 
+		if (!options.ids().isEmpty()) {
+			// IDs are matched like in single lookups, by name or alias
+			final var f1 = DocumentCollection.filter()
+					.in(Fields.NAME, options.ids());
+
+			final var f2 = DocumentCollection.filter()
+					.in(Fields.ALIASES, options.ids());
+
+			filter.and(DocumentCollection.Filter.or(f1, f2));
+		}
+
 		return filter;
 	}
 
@@ -150,6 +171,9 @@ public class BlobDescriptor
 
 		// entries should be queryable by their aliases too
 		entries.index(Fields.ALIASES);
+
+		// keyset pagination sorts entries by 'mtime', using 'name' as tie-breaker
+		entries.index(Fields.MTIME, Fields.NAME);
 	}
 
 
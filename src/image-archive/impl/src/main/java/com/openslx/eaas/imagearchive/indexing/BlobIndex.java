@@ -19,18 +19,24 @@
 
 package com.openslx.eaas.imagearchive.indexing;
 
+import com.openslx.eaas.imagearchive.ArchiveBackend;
 import com.openslx.eaas.imagearchive.BlobKind;
+import com.openslx.eaas.imagearchive.config.IndexerConfig;
 import com.openslx.eaas.imagearchive.storage.StorageLocation;
 import com.openslx.eaas.imagearchive.storage.StorageRegistry;
 import de.bwl.bwfla.blobstore.BlobDescription;
 import de.bwl.bwfla.common.exceptions.BWFLAException;
 
+import java.util.concurrent.ExecutorService;
+
 
 public class BlobIndex<T extends BlobDescriptor> extends Index<T>
 {
 	private final BlobKind kind;
 	private final IBlobIngestor<T> ingestor;
 	private final MetaFetcher fetcher;
+	private ExecutorService executor;
+	private IndexerConfig config;
 
 
 	public int id()
@@ -45,7 +51,7 @@ public class BlobIndex<T extends BlobDescriptor> extends Index<T>
 
 	public synchronized void rebuild(StorageRegistry storage) throws BWFLAException
 	{
-		try (final var indexer = new BlobIndexer<>(this)) {
+		try (final var indexer = new BlobIndexer<>(this, executor, config)) {
 			indexer.index(storage, fetcher);
 		}
 		catch (Exception error) {
@@ -55,6 +61,20 @@ public class BlobIndex<T extends BlobDescriptor> extends Index<T>
 		}
 	}
 
+	/** Incrementally update this index with blobs changed in storage since last update */
+	public synchronized void refresh(StorageRegistry storage) throws BWFLAException
+	{
+		final var timestamp = ArchiveBackend.now();
+		try (final var indexer = new BlobIndexer<>(this, executor, config)) {
+			indexer.update(storage, fetcher, timestamp);
+		}
+		catch (Exception error) {
+			if (error instanceof BWFLAException)
+				throw (BWFLAException) error;
+			else throw new BWFLAException(error);
+		}
+	}
+
 	public void ingest(BlobDescription blob, StorageLocation location) throws BWFLAException
 	{
 		try {
@@ -85,6 +105,12 @@ public class BlobIndex<T extends BlobDescriptor> extends Index<T>
 		this.fetcher = fetcher;
 	}
 
+	void setup(IndexerConfig config, ExecutorService executor)
+	{
+		this.config = config;
+		this.executor = executor;
+	}
+
 	protected IBlobIngestor<T> ingestor()
 	{
 		return ingestor;
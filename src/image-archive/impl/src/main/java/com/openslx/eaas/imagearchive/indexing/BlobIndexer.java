@@ -19,33 +19,59 @@
 
 package com.openslx.eaas.imagearchive.indexing;
 
+import com.openslx.eaas.common.concurrent.ParallelProcessors;
+import com.openslx.eaas.common.concurrent.PrefetchingIterator;
+import com.openslx.eaas.imagearchive.config.IndexerConfig;
 import com.openslx.eaas.imagearchive.storage.StorageLocation;
 import com.openslx.eaas.imagearchive.storage.StorageRegistry;
 import de.bwl.bwfla.blobstore.BlobDescription;
+import de.bwl.bwfla.blobstore.BlobStore;
 import de.bwl.bwfla.blobstore.Bucket;
+import de.bwl.bwfla.common.database.document.DocumentCollection;
 import de.bwl.bwfla.common.exceptions.BWFLAException;
 import de.bwl.bwfla.common.utils.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 
 public class BlobIndexer<T extends BlobDescriptor> implements AutoCloseable
 {
 	private final BlobIndex<T> target;
+	private final ExecutorService executor;
+	private final int numWorkers;
+	private final int batchsize;
+
+	private static final int DEFAULT_BATCH_SIZE = 64;
+	private static final int MAX_NUM_PREFETCHED_BLOBS = 1024;
 
 
 	public BlobIndexer(BlobIndex<T> target)
 	{
-		this.target = target;
+		this(target, null, null);
 	}
 
-	public void index(StorageRegistry storage, MetaFetcher fetcher) throws BWFLAException
+	/** Create an indexer, processing blobs in parallel using given executor and config */
+	public BlobIndexer(BlobIndex<T> target, ExecutorService executor, IndexerConfig config)
 	{
-		this.index(storage, fetcher, false);
+		this.target = target;
+		this.executor = executor;
+		this.numWorkers = (executor != null && config != null) ? config.getNumWorkers() : 1;
+		this.batchsize = (config != null) ? config.getBatchSize() : DEFAULT_BATCH_SIZE;
 	}
 
-	public void index(StorageRegistry storage, MetaFetcher fetcher, boolean parallel) throws BWFLAException
+	public void index(StorageRegistry storage, MetaFetcher fetcher) throws BWFLAException
 	{
 		final var tmpname = target.name() + "-" + StringUtils.random(8);
 		final var collection = Index.construct(tmpname, target.clazz(), target.logger());
@@ -53,8 +79,8 @@ public class BlobIndexer<T extends BlobDescriptor> implements AutoCloseable
 			target.preparer()
 					.prepare(collection);
 
-			final var context = new BlobIngestorContext<>(target, collection, fetcher);
-			BlobIndexer.ingest(context, storage, parallel);
+			final var context = new BlobIngestorContext<>(target, collection, fetcher, batchsize);
+			BlobIndexer.ingest(context, storage, executor, numWorkers);
 			target.switchto(collection);
 		}
 		catch (Exception error) {
@@ -67,6 +93,17 @@ public class BlobIndexer<T extends BlobDescriptor> implements AutoCloseable
 		}
 	}
 
+	/**
+	 * Incrementally update target's live collection, by comparing current index entries
+	 * with blobs found in storage and only applying insertions, replacements and deletions.
+	 * Entries modified after given watermark are never considered stale.
+	 */
+	public void update(StorageRegistry storage, MetaFetcher fetcher, long watermark) throws BWFLAException
+	{
+		final var context = new BlobIngestorContext<>(target, target.collection(), fetcher);
+		BlobIndexer.update(context, storage, watermark, executor, numWorkers, batchsize);
+	}
+
 	@Override
 	public void close() throws Exception
 	{
@@ -76,101 +113,322 @@ public class BlobIndexer<T extends BlobDescriptor> implements AutoCloseable
 
 	// ===== Internal Helpers ==============================
 
-	private static <D extends BlobDescriptor> void ingest(BlobIngestorContext<D> context, StorageRegistry storage, boolean parallel)
+	private static <D extends BlobDescriptor> void ingest(BlobIngestorContext<D> context, StorageRegistry storage,
+														  ExecutorService executor, int numWorkers)
 			throws BWFLAException
 	{
 		final var counters = new Result();
 		final var logger = context.target().logger();
-		logger.info("Indexing storage locations...");
+		logger.info("Indexing storage locations using " + numWorkers + " worker(s)...");
+
+		// prepare per-location states, sharing the same workers...
+		final var states = new ArrayList<LocationState<D>>(storage.locations().size());
+		for (StorageLocation location : storage.locations().values()) {
+			try {
+				final var state = LocationState.create(context.fork(), location);
+				if (state != null)
+					states.add(state);
+			}
+			catch (Exception error) {
+				logger.log(Level.WARNING, "Indexing storage location '" + location.name() + "' failed!", error);
+				counters.onAbort();
+			}
+		}
+
+		// process blobs from all locations in parallel...
+		try {
+			final Consumer<Work<D>> processor = (work) -> BlobIndexer.ingest(work, logger);
+			final var consumer = ParallelProcessors.consumer(processor)
+					.setLogger(logger)
+					.setNumTasks(numWorkers);
+
+			if (executor != null) {
+				// list each location on its own task, since fetching listing pages
+				// would otherwise block all workers waiting for their next blob!
+				try (final var works = BlobIndexer.prefetch(states, executor, logger)) {
+					consumer.consume(works, executor);
+				}
+			}
+			else consumer.consume(new WorkIterator<>(states, logger), null);
+		}
+		catch (Exception error) {
+			logger.log(Level.WARNING, "Indexing storage locations failed!", error);
+			for (var state : states)
+				state.result.onAbort();
+		}
+
+		for (var state : states) {
+			state.close();
+
+			final var result = state.result;
+			if (!result.isAborted()) {
+				try {
+					// write remaining batched entries
+					state.context.flush();
+				}
+				catch (Exception error) {
+					logger.log(Level.WARNING, "Writing index entries for location '" + state.location.name() + "' failed!", error);
+					result.onAbort();
+				}
+			}
+
+			// entries of aborted locations will never be written
+			state.context.discard();
+
+			if (state.context.isBatched()) {
+				// batched entries are counted only once their write completed!
+				final var written = state.context.counters();
+				result.onInsertions(written.getNumDocumentsWritten());
+				result.onFailures(written.getNumDocumentsFailed());
+			}
+
+			BlobIndexer.summary(state.context, state.location, result, logger);
+
+			counters.insertions += result.getNumInsertions();
+			counters.failures += result.getNumFailures();
+			if (result.isAborted())
+				counters.onAbort();
+		}
+
+		if (counters.getNumAborts() == storage.locations().size())
+			throw new BWFLAException("Indexing storage locations failed!");
+
+		BlobIndexer.summary(storage, counters, logger);
+	}
+
+	private static <D extends BlobDescriptor> PrefetchingIterator<Work<D>> prefetch(List<LocationState<D>> states,
+																					ExecutorService executor, Logger logger)
+	{
+		final var works = new PrefetchingIterator<Work<D>>(MAX_NUM_PREFETCHED_BLOBS);
+		for (final var state : states) {
+			final Consumer<Exception> handler = (error) -> {
+				logger.log(Level.WARNING, "Listing blobs from location '" + state.location.name() + "' failed!", error);
+				state.result.onAbort();
+			};
+
+			works.add(state.works(), handler);
+		}
+
+		return works.start(executor);
+	}
+
+	private static <D extends BlobDescriptor> void ingest(Work<D> work, Logger logger)
+	{
+		final int MAX_NUM_FAILURES = 5;
+
+		final var state = work.state;
+		final var result = state.result;
+		if (result.isAborted())
+			return;  // skip remaining blobs!
+
+		var blob = work.blob;
+		try {
+			if (blob.etag() == null)
+				blob = BlobIndexer.updateETag(state.location.bucket(), blob, logger);
+
+			state.context
+					.target()
+					.ingestor()
+					.ingest(state.context, blob, state.location);
+
+			// NOTE: batched entries are counted once written!
+			if (!state.context.isBatched())
+				result.onInsertion();
+		}
+		catch (BlobIngestorContext.BatchWriteException error) {
+			// all entries of the failed batch are counted by context
+			logger.log(Level.WARNING, "Writing index entries for location '" + state.location.name() + "' failed!", error);
+			synchronized (result) {
+				if (!result.isAborted()) {
+					logger.warning("Writing batched index entries failed! Aborting early!");
+					result.onAbort();
+				}
+			}
+		}
+		catch (Exception error) {
+			logger.log(Level.WARNING, "Processing blob '" + blob.name() + "' from bucket '" + blob.bucket() + "' failed!", error);
+
+			synchronized (result) {
+				result.onFailure();
+				if (result.getNumFailures() > MAX_NUM_FAILURES && !result.isAborted()) {
+					logger.warning("Processing multiple blobs failed! Aborting early!");
+					result.onAbort();
+				}
+			}
+		}
+	}
 
-		// TODO: index each location in parallel!
+	private static <D extends BlobDescriptor> void update(BlobIngestorContext<D> context, StorageRegistry storage, long watermark,
+														  ExecutorService executor, int numWorkers, int batchsize)
+			throws BWFLAException
+	{
+		final var counters = new Result();
+		final var logger = context.target().logger();
+		logger.info("Updating index from storage locations using " + numWorkers + " worker(s)...");
 
-		// build a single index over all configured storage locations...
 		for (StorageLocation location : storage.locations().values()) {
 			try {
-				final var result = BlobIndexer.ingest(context.fork(), location, parallel);
+				final var result = BlobIndexer.update(context.fork(), location, watermark, executor, numWorkers, batchsize);
 				counters.insertions += result.getNumInsertions();
+				counters.replacements += result.getNumReplacements();
+				counters.deletions += result.getNumDeletions();
 				counters.failures += result.getNumFailures();
 				if (result.isAborted())
 					counters.onAbort();
 			}
 			catch (Exception error) {
-				logger.log(Level.WARNING, "Indexing storage location '" + location.name() + "' failed!", error);
+				logger.log(Level.WARNING, "Updating from storage location '" + location.name() + "' failed!", error);
 				counters.onAbort();
 			}
 		}
 
 		if (counters.getNumAborts() == storage.locations().size())
-			throw new BWFLAException("Indexing storage locations failed!");
+			throw new BWFLAException("Updating index from storage locations failed!");
 
 		BlobIndexer.summary(storage, counters, logger);
 	}
 
-	private static <D extends BlobDescriptor> Result ingest(BlobIngestorContext<D> context, StorageLocation location, boolean parallel)
+	private static <D extends BlobDescriptor> Result update(BlobIngestorContext<D> context, StorageLocation location, long watermark,
+														   ExecutorService executor, int numWorkers, int batchsize)
 			throws BWFLAException
 	{
-		final int MAX_NUM_FAILURES = 5;
-		final var result = new Result();
-
-		final var path = location.config()
-				.getPathPrefix(context.target().kind());
+		final var state = LocationState.create(context, location);
 
 		// should data be available there?
-		if (path == null)
-			return result;
+		if (state == null)
+			return new Result();
 
-		final var prefix = path.toString() + "/";
+		final var result = state.result;
 		final var logger = context.target().logger();
-		final var blobs = location.bucket()
-				.list(prefix);
+		final var collection = context.target()
+				.collection();
 
-		// TODO: index each blob in parallel!
-		// TODO: use collection's operation-batching!
+		// load current state of all entries indexed for this location...
+		final var entries = new ConcurrentHashMap<String, BlobDescriptor>();
+		{
+			final var filter = DocumentCollection.filter()
+					.eq(BlobDescriptor.Fields.LOCATION, location.name());
+
+			final var fields = new String[] {
+					BlobDescriptor.Fields.NAME,
+					BlobDescriptor.Fields.ETAG,
+					BlobDescriptor.Fields.MTIME,
+					BlobDescriptor.Fields.ALIASES
+			};
+
+			try (final var found = collection.find(filter, fields)) {
+				for (BlobDescriptor entry : found)
+					entries.put(entry.name(), entry);
+			}
+		}
 
-		try (blobs) {
-			// process each blob stored at given location...
-			for (final var iter = blobs.iterator(); iter.hasNext();) {
-				BlobDescription blob = null;
-				try {
-					blob = iter.next();
-					if (prefix.equals(blob.name()))
-						continue;  // skip base-dir!
+		// compare each blob stored at given location with its indexed state...
+		try (state) {
+			final Consumer<Work<D>> processor = (work) -> BlobIndexer.update(work, entries, logger);
+			final var consumer = ParallelProcessors.consumer(processor)
+					.setLogger(logger)
+					.setNumTasks(numWorkers);
+
+			final var states = List.of(state);
+			if (executor != null) {
+				try (final var works = BlobIndexer.prefetch(states, executor, logger)) {
+					consumer.consume(works, executor);
+				}
+			}
+			else consumer.consume(new WorkIterator<>(states, logger), null);
+		}
+		catch (Exception error) {
+			logger.log(Level.WARNING, "Updating from storage location '" + location.name() + "' failed!", error);
+			result.onAbort();
+		}
 
-					if (blob.etag() == null)
-						blob = BlobIndexer.updateETag(location.bucket(), blob, logger);
+		if (result.isAborted()) {
+			// listing was incomplete, deletions can't be computed reliably!
+			BlobIndexer.summary(context, location, result, logger);
+			return result;
+		}
 
-					context.target()
-							.ingestor()
-							.ingest(context, blob, location);
+		// remaining entries are not backed by any blob anymore...
+		final var batch = collection.batch(Math.max(1, Math.min(entries.size(), batchsize)));
+		for (BlobDescriptor entry : entries.values()) {
+			// NOTE: entries modified after watermark could have been added
+			//       concurrently while listing blobs, hence keep them!
+			if (entry.mtime() >= watermark)
+				continue;
+
+			final var filter = DocumentCollection.filter()
+					.eq(BlobDescriptor.Fields.NAME, entry.name())
+					.eq(BlobDescriptor.Fields.LOCATION, location.name());
+
+			batch.delete(filter);
+			result.onDeletion();
+			if (batch.size() >= batchsize)
+				batch.execute(false);
+		}
 
-					result.onInsertion();
-				}
-				catch (Exception error) {
-					final String name, bucket;
-					if (blob != null) {
-						name = blob.name();
-						bucket = blob.bucket();
-					}
-					else {
-						name = "unknown";
-						bucket = location.bucket()
-								.name();
-					}
+		if (batch.size() > 0)
+			batch.execute(false);
+
+		BlobIndexer.summary(context, location, result, logger);
+		return result;
+	}
+
+	private static <D extends BlobDescriptor> void update(Work<D> work, Map<String, BlobDescriptor> entries, Logger logger)
+	{
+		final int MAX_NUM_FAILURES = 5;
 
-					logger.log(Level.WARNING, "Processing blob '" + name + "' from bucket '" + bucket + "' failed!", error);
+		final var state = work.state;
+		final var result = state.result;
+		if (result.isAborted())
+			return;  // skip remaining blobs!
 
-					result.onFailure();
-					if (result.getNumFailures() > MAX_NUM_FAILURES) {
-						logger.warning("Processing multiple blobs failed! Aborting early!");
-						result.onAbort();
-						break;
-					}
+		var blob = work.blob;
+		try {
+			final var entry = entries.remove(BlobIndexer.filename(blob));
+			if (entry != null && entry.isUpToDate(blob.etag(), BlobIndexer.aliases(state.context, entry.name()))) {
+				result.onSkip();
+				return;
+			}
+
+			if (blob.etag() == null)
+				blob = BlobIndexer.updateETag(state.location.bucket(), blob, logger);
+
+			state.context
+					.target()
+					.ingestor()
+					.ingest(state.context, blob, state.location);
+
+			if (entry != null)
+				result.onReplacement();
+			else result.onInsertion();
+		}
+		catch (Exception error) {
+			logger.log(Level.WARNING, "Updating blob '" + blob.name() + "' from location '" + state.location.name() + "' failed!", error);
+
+			synchronized (result) {
+				result.onFailure();
+				if (result.getNumFailures() > MAX_NUM_FAILURES && !result.isAborted()) {
+					logger.warning("Updating multiple blobs failed! Aborting early!");
+					result.onAbort();
 				}
 			}
 		}
+	}
 
-		BlobIndexer.summary(context, location, result, logger);
-		return result;
+	private static Set<String> aliases(BlobIngestorContext<?> context, String name) throws BWFLAException
+	{
+		final var aliasing = context.fetcher()
+				.aliasing(name);
+
+		return (aliasing != null) ? aliasing.aliases() : Collections.emptySet();
+	}
+
+	private static String filename(BlobDescription blob)
+	{
+		// NOTE: indexed names are blob filenames only, without prefixes!
+		return BlobStore.path(blob.name())
+				.last()
+				.toString();
 	}
 
 	private static BlobDescription updateETag(Bucket bucket, BlobDescription blob, Logger logger)
@@ -199,6 +457,7 @@ public class BlobIndexer<T extends BlobDescriptor> implements AutoCloseable
 		message.append(" blob(s) from location '");
 		message.append(location.name());
 		message.append("'");
+		BlobIndexer.changes(message, result);
 
 		final var counters = context.counters();
 		if (counters.getNumBlobsReused() > 0) {
@@ -234,6 +493,7 @@ public class BlobIndexer<T extends BlobDescriptor> implements AutoCloseable
 		message.append(" blob(s) from ");
 		message.append(numLocations);
 		message.append(" location(s)");
+		BlobIndexer.changes(message, result);
 		if (result.getNumFailures() > 0) {
 			message.append(", failed ");
 			message.append(result.getNumFailures());
@@ -245,26 +505,226 @@ public class BlobIndexer<T extends BlobDescriptor> implements AutoCloseable
 			logger.warning("Indexing " + result.getNumAborts() + " out of " + numLocations + " storage location(s) failed!");
 	}
 
+	private static void changes(StringBuilder message, Result result)
+	{
+		if (result.getNumReplacements() > 0) {
+			message.append(", replaced ");
+			message.append(result.getNumReplacements());
+		}
+
+		if (result.getNumDeletions() > 0) {
+			message.append(", removed ");
+			message.append(result.getNumDeletions());
+		}
+
+		if (result.getNumSkips() > 0) {
+			message.append(", unchanged ");
+			message.append(result.getNumSkips());
+		}
+	}
+
+	/** Ingestion state of a single storage location */
+	private static class LocationState<D extends BlobDescriptor> implements AutoCloseable
+	{
+		private final BlobIngestorContext<D> context;
+		private final StorageLocation location;
+		private final String prefix;
+		private final Stream<BlobDescription> blobs;
+		private final Iterator<BlobDescription> iterator;
+		private final Result result;
+		private boolean exhausted;
+
+		private LocationState(BlobIngestorContext<D> context, StorageLocation location, String prefix)
+				throws BWFLAException
+		{
+			this.context = context;
+			this.location = location;
+			this.prefix = prefix;
+			this.blobs = location.bucket()
+					.list(prefix);
+
+			this.iterator = blobs.iterator();
+			this.result = new Result();
+			this.exhausted = false;
+		}
+
+		/** Return next blob to ingest or null, if listing is exhausted */
+		public BlobDescription next()
+		{
+			while (!exhausted && !result.isAborted() && iterator.hasNext()) {
+				final var blob = iterator.next();
+				if (!prefix.equals(blob.name()))
+					return blob;  // skip base-dir!
+			}
+
+			exhausted = true;
+			return null;
+		}
+
+		/** Return remaining blobs to ingest, as work items */
+		public Iterator<Work<D>> works()
+		{
+			final var state = this;
+			return new Iterator<>() {
+				private BlobDescription pending = null;
+
+				@Override
+				public boolean hasNext()
+				{
+					if (pending == null)
+						pending = state.next();
+
+					return pending != null;
+				}
+
+				@Override
+				public Work<D> next()
+				{
+					if (!this.hasNext())
+						throw new NoSuchElementException();
+
+					final var work = new Work<>(state, pending);
+					pending = null;
+					return work;
+				}
+			};
+		}
+
+		@Override
+		public void close()
+		{
+			blobs.close();
+		}
+
+		public static <D extends BlobDescriptor> LocationState<D> create(BlobIngestorContext<D> context, StorageLocation location)
+				throws BWFLAException
+		{
+			final var path = location.config()
+					.getPathPrefix(context.target().kind());
+
+			// should data be available there?
+			if (path == null)
+				return null;
+
+			return new LocationState<>(context, location, path.toString() + "/");
+		}
+	}
+
+	/** A single blob to ingest */
+	private static class Work<D extends BlobDescriptor>
+	{
+		private final LocationState<D> state;
+		private final BlobDescription blob;
+
+		private Work(LocationState<D> state, BlobDescription blob)
+		{
+			this.state = state;
+			this.blob = blob;
+		}
+	}
+
+	/** Iterator interleaving blob listings of multiple locations, listing them on the caller's thread */
+	private static class WorkIterator<D extends BlobDescriptor> implements Iterator<Work<D>>
+	{
+		private final List<LocationState<D>> states;
+		private final Logger logger;
+		private Work<D> pending;
+		private int index;
+
+		private WorkIterator(List<LocationState<D>> states, Logger logger)
+		{
+			this.states = new ArrayList<>(states);
+			this.logger = logger;
+			this.pending = null;
+			this.index = 0;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			while (pending == null && !states.isEmpty()) {
+				index = index % states.size();
+				final var state = states.get(index);
+				try {
+					final var blob = state.next();
+					if (blob != null) {
+						pending = new Work<>(state, blob);
+						++index;
+						continue;
+					}
+				}
+				catch (Exception error) {
+					logger.log(Level.WARNING, "Listing blobs from location '" + state.location.name() + "' failed!", error);
+					state.result.onAbort();
+				}
+
+				// location is done, remove it!
+				states.remove(index);
+			}
+
+			return pending != null;
+		}
+
+		@Override
+		public Work<D> next()
+		{
+			if (!this.hasNext())
+				throw new NoSuchElementException();
+
+			final var work = pending;
+			pending = null;
+			return work;
+		}
+	}
+
 	private static class Result
 	{
 		private int insertions = 0;
+		private int replacements = 0;
+		private int deletions = 0;
+		private int skips = 0;
 		private int failures = 0;
 		private int aborts = 0;
 
 
 		// ===== Updaters ===============
 
-		public void onInsertion()
+		public synchronized void onInsertion()
 		{
 			++insertions;
 		}
 
-		public void onFailure()
+		public synchronized void onReplacement()
+		{
+			++replacements;
+		}
+
+		public synchronized void onDeletion()
+		{
+			++deletions;
+		}
+
+		public synchronized void onSkip()
+		{
+			++skips;
+		}
+
+		public synchronized void onFailure()
 		{
 			++failures;
 		}
 
-		public void onAbort()
+		public synchronized void onInsertions(int count)
+		{
+			insertions += count;
+		}
+
+		public synchronized void onFailures(int count)
+		{
+			failures += count;
+		}
+
+		public synchronized void onAbort()
 		{
 			++aborts;
 		}
@@ -272,22 +732,37 @@ public class BlobIndexer<T extends BlobDescriptor> implements AutoCloseable
 
 		// ===== Getters ===============
 
-		public int getNumInsertions()
+		public synchronized int getNumInsertions()
 		{
 			return insertions;
 		}
 
-		public int getNumFailures()
+		public synchronized int getNumReplacements()
+		{
+			return replacements;
+		}
+
+		public synchronized int getNumDeletions()
+		{
+			return deletions;
+		}
+
+		public synchronized int getNumSkips()
+		{
+			return skips;
+		}
+
+		public synchronized int getNumFailures()
 		{
 			return failures;
 		}
 
-		public int getNumAborts()
+		public synchronized int getNumAborts()
 		{
 			return aborts;
 		}
 
-		public boolean isAborted()
+		public synchronized boolean isAborted()
 		{
 			return aborts > 0;
 		}
@@ -20,19 +20,30 @@
 package com.openslx.eaas.imagearchive.indexing;
 
 import de.bwl.bwfla.common.database.document.DocumentCollection;
+import de.bwl.bwfla.common.exceptions.BWFLAException;
 
 
 public class BlobIngestorContext<T extends BlobDescriptor>
 {
 	private final BlobIndex<T> target;
 	private final DocumentCollection<T> buffer;
+	private final DocumentCollection<T>.Batch batch;
+	private final int batchsize;
 	private final MetaFetcher fetcher;
 	private final Counters counters;
 
 	public BlobIngestorContext(BlobIndex<T> target, DocumentCollection<T> buffer, MetaFetcher fetcher)
+	{
+		this(target, buffer, fetcher, 0);
+	}
+
+	/** Create a context, batching writes to buffer-collection if batch-size is positive */
+	public BlobIngestorContext(BlobIndex<T> target, DocumentCollection<T> buffer, MetaFetcher fetcher, int batchsize)
 	{
 		this.target = target;
 		this.buffer = buffer;
+		this.batch = (batchsize > 0) ? buffer.batch(batchsize) : null;
+		this.batchsize = batchsize;
 		this.fetcher = fetcher;
 		this.counters = new Counters();
 	}
@@ -57,48 +68,147 @@ public class BlobIngestorContext<T extends BlobDescriptor>
 		return counters;
 	}
 
+	/** Returns true if writes to buffer-collection are deferred */
+	public boolean isBatched()
+	{
+		return batch != null;
+	}
+
+	/** Replace or insert document matching filter, possibly deferring the write */
+	public void replace(DocumentCollection.Filter filter, T document) throws BWFLAException
+	{
+		if (batch == null) {
+			buffer.replace(filter, document);
+			return;
+		}
+
+		synchronized (batch) {
+			batch.replace(filter, document);
+			if (batch.size() >= batchsize)
+				this.execute();
+		}
+	}
+
+	/** Write all deferred documents to buffer-collection */
+	public void flush() throws BWFLAException
+	{
+		if (batch == null)
+			return;
+
+		synchronized (batch) {
+			if (batch.size() > 0)
+				this.execute();
+		}
+	}
+
+	/** Drop all deferred documents, counting them as failed */
+	public void discard()
+	{
+		if (batch == null)
+			return;
+
+		synchronized (batch) {
+			counters.onDocumentsFailed(batch.size());
+			batch.clear();
+		}
+	}
+
 	public BlobIngestorContext<T> fork()
 	{
-		return new BlobIngestorContext<>(target, buffer, fetcher);
+		return new BlobIngestorContext<>(target, buffer, fetcher, batchsize);
+	}
+
+
+	// ===== Internal Helpers ===============
+
+	/** Write batched documents, the batch is cleared even on failures */
+	private void execute() throws BatchWriteException
+	{
+		final int size = batch.size();
+		try {
+			batch.execute(false);
+		}
+		catch (BWFLAException | RuntimeException error) {
+			batch.clear();
+			counters.onDocumentsFailed(size);
+			throw new BatchWriteException(size, error);
+		}
+
+		counters.onDocumentsWritten(size);
+	}
+
+
+	/** Signals a failed write of deferred documents, which are all counted as failed */
+	public static class BatchWriteException extends BWFLAException
+	{
+		public BatchWriteException(int count, Throwable cause)
+		{
+			super("Writing " + count + " batched document(s) failed!", cause);
+		}
 	}
 
 
+	/** Counters, safe to be updated by concurrent ingestors */
 	public static class Counters
 	{
 		private long numBytesDownloaded = 0L;
 		private int numBlobsDownloaded = 0;
 		private int numBlobsReused = 0;
+		private int numDocumentsWritten = 0;
+		private int numDocumentsFailed = 0;
 
 
 		// ===== Updaters ===============
 
-		public void onBlobDownloaded(long bytes)
+		public synchronized void onBlobDownloaded(long bytes)
 		{
 			numBytesDownloaded += bytes;
 			++numBlobsDownloaded;
 		}
 
-		public void onBlobReused()
+		public synchronized void onBlobReused()
 		{
 			++numBlobsReused;
 		}
 
+		public synchronized void onDocumentsWritten(int count)
+		{
+			numDocumentsWritten += count;
+		}
+
+		public synchronized void onDocumentsFailed(int count)
+		{
+			numDocumentsFailed += count;
+		}
+
 
 		// ===== Getters ===============
 
-		public long getNumBytesDownloaded()
+		public synchronized long getNumBytesDownloaded()
 		{
 			return numBytesDownloaded;
 		}
 
-		public int getNumBlobsDownloaded()
+		public synchronized int getNumBlobsDownloaded()
 		{
 			return numBlobsDownloaded;
 		}
 
-		public int getNumBlobsReused()
+		public synchronized int getNumBlobsReused()
 		{
 			return numBlobsReused;
 		}
+
+		/** Number of successfully written batched documents */
+		public synchronized int getNumDocumentsWritten()
+		{
+			return numDocumentsWritten;
+		}
+
+		/** Number of batched documents, that could not be written */
+		public synchronized int getNumDocumentsFailed()
+		{
+			return numDocumentsFailed;
+		}
 	}
 }
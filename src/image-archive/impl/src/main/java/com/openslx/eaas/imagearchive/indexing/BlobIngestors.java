@@ -140,7 +140,6 @@ public class BlobIngestors
 	private static <T extends BlobDescriptor> void insert(T descriptor, BlobIngestorContext<T> context, DocumentCollection.Filter filter)
 			throws BWFLAException
 	{
-		context.buffer()
-				.replace(filter, descriptor);
+		context.replace(filter, descriptor);
 	}
 }
@@ -19,12 +19,16 @@
 
 package com.openslx.eaas.imagearchive.indexing;
 
+import java.util.Collection;
+import java.util.Collections;
+
 
 public class FilterOptions
 {
 	private String location;
 	private long fromts = -1L;
 	private long untilts = -1L;
+	private Collection<String> ids = Collections.emptyList();
 
 
 	public FilterOptions setLocation(String location)
@@ -59,4 +63,15 @@ public class FilterOptions
 	{
 		return untilts;
 	}
+
+	public FilterOptions setIds(Collection<String> ids)
+	{
+		this.ids = (ids != null) ? ids : Collections.emptyList();
+		return this;
+	}
+
+	public Collection<String> ids()
+	{
+		return ids;
+	}
 }
@@ -22,6 +22,7 @@ package com.openslx.eaas.imagearchive.indexing;
 import com.openslx.eaas.imagearchive.AbstractRegistry;
 import com.openslx.eaas.imagearchive.ArchiveBackend;
 import com.openslx.eaas.imagearchive.BlobKind;
+import com.openslx.eaas.imagearchive.config.IndexerConfig;
 import com.openslx.eaas.imagearchive.indexing.impl.AliasingIndex;
 import com.openslx.eaas.imagearchive.indexing.impl.CheckpointIndex;
 import com.openslx.eaas.imagearchive.indexing.impl.ContainerIndex;
@@ -36,6 +37,7 @@ import com.openslx.eaas.imagearchive.storage.StorageRegistry;
 import de.bwl.bwfla.common.exceptions.BWFLAException;
 
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 import java.util.stream.Stream;
 
@@ -77,6 +79,32 @@ public class IndexRegistry extends AbstractRegistry<BlobIndex<?>>
 		return this;
 	}
 
+	public IndexRegistry refresh(StorageRegistry storage) throws BWFLAException
+	{
+		int numFailures = 0;
+
+		final var logger = ArchiveBackend.logger();
+		logger.info("Refreshing all data-indexes...");
+		for (var index : super.entries) {
+			if (index == null)
+				continue;
+
+			try {
+				index.refresh(storage);
+			}
+			catch (Exception error) {
+				logger.log(Level.WARNING, "Refreshing index '" + index.name() + "' failed!", error);
+				++numFailures;
+			}
+		}
+
+		if (numFailures > 0)
+			throw new BWFLAException("Refreshing data-indexes failed!");
+
+		logger.info("All data-indexes refreshed successfully");
+		return this;
+	}
+
 	public AliasingIndex aliases()
 	{
 		return this.lookup(BlobKind.ALIASING, AliasingIndex.class);
@@ -147,9 +175,9 @@ public class IndexRegistry extends AbstractRegistry<BlobIndex<?>>
 		return imports;
 	}
 
-	public static IndexRegistry create() throws BWFLAException
+	public static IndexRegistry create(IndexerConfig config, ExecutorService executor) throws BWFLAException
 	{
-		final var registry = new IndexRegistry();
+		final var registry = new IndexRegistry(config, executor);
 		final var aliases = new AliasingIndex();
 		final var fetcher = new MetaFetcher()
 				.with(aliases);
@@ -174,15 +202,21 @@ public class IndexRegistry extends AbstractRegistry<BlobIndex<?>>
 
 	// ===== Internal Helpers ==============================
 
+	private final IndexerConfig config;
+	private final ExecutorService executor;
 	private ImportIndex imports;
 
-	private IndexRegistry()
+	private IndexRegistry(IndexerConfig config, ExecutorService executor)
 	{
 		super();
+
+		this.config = config;
+		this.executor = executor;
 	}
 
 	private void insert(BlobIndex<?> index)
 	{
+		index.setup(config, executor);
 		super.insert(index.kind(), index);
 	}
 
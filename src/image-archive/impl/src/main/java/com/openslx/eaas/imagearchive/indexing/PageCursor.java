@@ -0,0 +1,181 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.openslx.eaas.imagearchive.indexing;
+
+import com.openslx.eaas.imagearchive.indexing.BlobDescriptor.Fields;
+import de.bwl.bwfla.common.database.document.DocumentCollection;
+
+
+/**
+ * Position in a keyset-paginated listing of indexed records.
+ * <p/>
+ * Records are ordered by an indexed sort-key, with the record's name as a tie-breaker.
+ * Since names uniquely identify records, the ordering is total and records sharing
+ * the same mtime are never skipped or repeated across page boundaries. Hence, next
+ * pages can be looked up directly by the last returned key, without scanning all
+ * previously returned records again, as offset-based paging does.
+ * <p/>
+ * When ordered by mtime, records updated while paging move past the cursor and
+ * will be returned again on a later page, but are never skipped.
+ */
+public class PageCursor
+{
+	private final SortKey key;
+	private final String name;
+	private final long mtime;
+
+	private static final char SEPARATOR = ':';
+
+
+	/** Cursor pointing before the first record, ordered by given key */
+	public static PageCursor start(SortKey key)
+	{
+		return new PageCursor(key, null, -1L);
+	}
+
+	/** Cursor pointing after given record */
+	public static PageCursor after(SortKey key, BlobDescriptor record)
+	{
+		return new PageCursor(key, record.name(), record.mtime());
+	}
+
+	/** Parse a cursor previously returned by {@link #toString()} */
+	public static PageCursor parse(String value)
+	{
+		final var pos = value.indexOf(SEPARATOR);
+		if (pos < 0)
+			throw new IllegalArgumentException("Invalid cursor: " + value);
+
+		final var key = SortKey.from(value.substring(0, pos));
+		if (key == SortKey.NAME)
+			return new PageCursor(key, value.substring(pos + 1), -1L);
+
+		final var end = value.indexOf(SEPARATOR, pos + 1);
+		if (end < 0)
+			throw new IllegalArgumentException("Invalid cursor: " + value);
+
+		try {
+			final var mtime = Long.parseLong(value.substring(pos + 1, end));
+			return new PageCursor(key, value.substring(end + 1), mtime);
+		}
+		catch (NumberFormatException error) {
+			throw new IllegalArgumentException("Invalid cursor: " + value, error);
+		}
+	}
+
+	public SortKey key()
+	{
+		return key;
+	}
+
+	public boolean isStart()
+	{
+		return name == null;
+	}
+
+	/** Fields to sort records by */
+	public String[] sorting()
+	{
+		if (key == SortKey.MTIME)
+			return new String[] { Fields.MTIME, Fields.NAME };
+
+		return new String[] { Fields.NAME };
+	}
+
+	/** Fields required for constructing the next cursor */
+	public String[] fields()
+	{
+		return new String[] { Fields.NAME, Fields.MTIME };
+	}
+
+	/** Filter for records following this cursor, or null if at start */
+	public DocumentCollection.Filter filter()
+	{
+		if (this.isStart())
+			return null;
+
+		if (key == SortKey.NAME) {
+			return DocumentCollection.filter()
+					.gt(Fields.NAME, name);
+		}
+
+		final var f1 = DocumentCollection.filter()
+				.gt(Fields.MTIME, mtime);
+
+		final var f2 = DocumentCollection.filter()
+				.eq(Fields.MTIME, mtime)
+				.gt(Fields.NAME, name);
+
+		return DocumentCollection.Filter.or(f1, f2);
+	}
+
+	@Override
+	public String toString()
+	{
+		final var prefix = key.value() + SEPARATOR;
+		if (key == SortKey.NAME)
+			return prefix + name;
+
+		return prefix + mtime + SEPARATOR + name;
+	}
+
+
+	public enum SortKey
+	{
+		NAME("name"),
+		MTIME("mtime");
+
+		private final String value;
+
+		SortKey(String value)
+		{
+			this.value = value;
+		}
+
+		public String value()
+		{
+			return value;
+		}
+
+		public static SortKey from(String value)
+		{
+			if (value == null || value.isEmpty())
+				return NAME;
+
+			for (var key : SortKey.values()) {
+				if (key.value.equals(value))
+					return key;
+			}
+
+			throw new IllegalArgumentException("Unknown sort-key: " + value);
+		}
+	}
+
+
+	// ===== Internal Helpers ==============================
+
+	private PageCursor(SortKey key, String name, long mtime)
+	{
+		this.key = key;
+		this.name = name;
+		this.mtime = mtime;
+	}
+}
@@ -24,9 +24,12 @@ import com.openslx.eaas.imagearchive.BlobKind;
 import com.openslx.eaas.imagearchive.indexing.BlobDescriptor;
 import com.openslx.eaas.imagearchive.indexing.BlobIndex;
 import com.openslx.eaas.imagearchive.indexing.FilterOptions;
+import com.openslx.eaas.imagearchive.indexing.PageCursor;
 import de.bwl.bwfla.common.database.document.DocumentCollection;
 import de.bwl.bwfla.common.exceptions.BWFLAException;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.function.Function;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
@@ -41,6 +44,8 @@ public abstract class AbstractService<T extends BlobDescriptor> implements AutoC
 
 	public static final String UNKNOWN_LOCATION = null;
 
+	private static final String[] NO_FIELDS = new String[0];
+
 
 	/** Count currently indexed records */
 	public long count()
@@ -73,11 +78,35 @@ public abstract class AbstractService<T extends BlobDescriptor> implements AutoC
 	/** List all indexed records within given range */
 	public Stream<T> list(FilterOptions options, int offset, int limit) throws BWFLAException
 	{
-		final var collection = index.collection();
-		final var result = (options == null) ? collection.list()
-				: collection.find(optfilter.apply(options));
+		return this.list(options, offset, limit, NO_FIELDS);
+	}
 
-		return result.skip(offset)
+	/** List all indexed records within given range, returning only specified fields */
+	public Stream<T> list(FilterOptions options, int offset, int limit, String... fields) throws BWFLAException
+	{
+		final var filter = (options == null) ? DocumentCollection.filter() : optfilter.apply(options);
+		return this.find(filter, fields)
+				.skip(offset)
+				.limit(limit)
+				.stream();
+	}
+
+	/** List up to limit indexed records following given cursor, returning only specified fields */
+	public Stream<T> list(FilterOptions options, PageCursor cursor, int limit, String... fields) throws BWFLAException
+	{
+		final var filter = (options == null) ? DocumentCollection.filter() : optfilter.apply(options);
+		if (!cursor.isStart())
+			filter.and(cursor.filter());
+
+		if (fields.length > 0) {
+			// sort-keys are always needed for constructing the next cursor
+			final var extended = new LinkedHashSet<>(Arrays.asList(fields));
+			extended.addAll(Arrays.asList(cursor.fields()));
+			fields = extended.toArray(new String[0]);
+		}
+
+		return this.find(filter, fields)
+				.sort(cursor.sorting())
 				.limit(limit)
 				.stream();
 	}
@@ -123,6 +152,13 @@ public abstract class AbstractService<T extends BlobDescriptor> implements AutoC
 		this.index = index;
 	}
 
+	protected DocumentCollection.FindResult<T> find(DocumentCollection.Filter filter, String... fields)
+			throws BWFLAException
+	{
+		final var collection = index.collection();
+		return (fields.length == 0) ? collection.find(filter) : collection.find(filter, fields);
+	}
+
 	protected BlobIndex<T> index()
 	{
 		return index;
@@ -45,6 +45,12 @@ public abstract class BlobService<T extends BlobDescriptor> extends AbstractServ
 
 	public static final long UNKNOWN_SIZE = -1L;
 
+	/** Max. number of staged parts, that can be composed into one blob */
+	public static final int MAX_NUM_COMPOSED_PARTS = 10000;
+
+	/** Path prefix for parts of staged uploads */
+	private static final BlobStore.Path STAGING_PATH_PREFIX = BlobStore.path("/.staging");
+
 
 	/** Look up blob for given ID */
 	public Blob blob(String id) throws BWFLAException
@@ -103,21 +109,7 @@ public abstract class BlobService<T extends BlobDescriptor> extends AbstractServ
 		if (id == null)
 			throw new IllegalArgumentException("Invalid blob ID!");
 
-		// NOTE: upload given data to blob's storage location if known,
-		//       else just use default storage location from config!
-
-		final var descriptor = this.lookup(id);
-		final var curlocname = (descriptor != null) ? descriptor.location()
-				: storage.config().getDefaultLocation();
-
-		if (locname == null)
-			locname = curlocname;
-
-		// should blob's location change?
-		if (!locname.equals(curlocname))
-			this.remove(id);
-
-		final var location = this.location(locname);
+		final var location = this.prepare(locname, id);
 		final var path = this.path(location, id);
 		final var blob = location.bucket()
 				.blob(path.toString());
@@ -128,15 +120,75 @@ public abstract class BlobService<T extends BlobDescriptor> extends AbstractServ
 				.stream(data, size)
 				.upload();
 
-		try {
-			// refresh index with uploaded blob...
-			final var description = blob.stat();
-			this.index()
-					.ingest(description, location);
-		}
-		catch (Exception error) {
-			blob.remove();  // blob seems to be invalid, cleanup!
-			throw new BWFLAException("Indexing uploaded blob failed!", error);
+		this.ingest(blob, location);
+	}
+
+	/** Upload one part of a staged upload to given storage location */
+	public void stage(String locname, String upload, int part, InputStream data, long size) throws BWFLAException
+	{
+		if (size < 0L)
+			throw new IllegalArgumentException("Size of staged parts must be known!");
+
+		final var location = this.location(this.locname(locname, null));
+		this.staging(location, upload, part)
+				.uploader()
+				.contentType(MediaType.APPLICATION_OCTET_STREAM)
+				.stream(data, size)
+				.upload();
+	}
+
+	/** Compose all staged parts of an upload into a new blob at given storage location */
+	public String compose(String locname, String upload, int numparts) throws BWFLAException
+	{
+		final var id = this.nextid();
+		this.compose(locname, id, upload, numparts);
+		return id;
+	}
+
+	/**
+	 * Compose all staged parts of an upload into blob with given ID.
+	 * Parts are concatenated server-side and removed afterwards.
+	 */
+	public void compose(String locname, String id, String upload, int numparts) throws BWFLAException
+	{
+		if (id == null)
+			throw new IllegalArgumentException("Invalid blob ID!");
+
+		if (numparts > MAX_NUM_COMPOSED_PARTS)
+			throw new IllegalArgumentException("Too many staged parts to compose: " + numparts);
+
+		// NOTE: parts are staged at default location, if not specified!
+		final var location = this.prepare(this.locname(locname, null), id);
+		final var path = this.path(location, id);
+		final var blob = location.bucket()
+				.blob(path.toString());
+
+		final var copier = blob.copier()
+				.multipart(true)
+				.header("Content-Type", MediaType.APPLICATION_OCTET_STREAM);
+
+		for (int part = 0; part < numparts; ++part)
+			copier.source(this.staging(location, upload, part));
+
+		copier.copy();
+
+		this.ingest(blob, location);
+		this.discard(location.name(), upload);
+	}
+
+	/** Remove all staged parts of an upload */
+	public void discard(String locname, String upload) throws BWFLAException
+	{
+		final var location = this.location(this.locname(locname, null));
+		final var prefix = STAGING_PATH_PREFIX.resolve(upload)
+				.toString() + "/";
+
+		final var parts = location.bucket()
+				.blobs(prefix);
+
+		try (parts) {
+			for (final var iter = parts.iterator(); iter.hasNext();)
+				iter.next().remove();
 		}
 	}
 
@@ -258,4 +310,55 @@ public abstract class BlobService<T extends BlobDescriptor> extends AbstractServ
 		return UUID.randomUUID()
 			.toString();
 	}
+
+	/** Find storage location for given blob, moving it if requested location differs */
+	private StorageLocation prepare(String locname, String id) throws BWFLAException
+	{
+		// NOTE: upload given data to blob's storage location if known,
+		//       else just use default storage location from config!
+
+		final var descriptor = this.lookup(id);
+		final var curlocname = this.locname(null, descriptor);
+		if (locname == null)
+			locname = curlocname;
+
+		// should blob's location change?
+		if (!locname.equals(curlocname))
+			this.remove(id);
+
+		return this.location(locname);
+	}
+
+	/** Resolve name of a storage location, defaulting to blob's or configured one */
+	private String locname(String locname, T descriptor)
+	{
+		if (locname != null)
+			return locname;
+
+		return (descriptor != null) ? descriptor.location() : storage.config().getDefaultLocation();
+	}
+
+	/** Refresh index with given uploaded blob */
+	private void ingest(Blob blob, StorageLocation location) throws BWFLAException
+	{
+		try {
+			final var description = blob.stat();
+			this.index()
+					.ingest(description, location);
+		}
+		catch (Exception error) {
+			blob.remove();  // blob seems to be invalid, cleanup!
+			throw new BWFLAException("Indexing uploaded blob failed!", error);
+		}
+	}
+
+	/** Blob for a staged upload's part */
+	private Blob staging(StorageLocation location, String upload, int part)
+	{
+		final var path = STAGING_PATH_PREFIX.resolve(upload)
+				.resolve(String.format("part-%05d", part));
+
+		return location.bucket()
+				.blob(path.toString());
+	}
 }
@@ -0,0 +1,132 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openslx.eaas.imagearchive.service.impl;
+
+import com.openslx.eaas.common.util.RangedDownloader;
+import com.openslx.eaas.imagearchive.databind.ImportRecord;
+import com.openslx.eaas.imagearchive.databind.ImportTransfer;
+import de.bwl.bwfla.common.database.document.DocumentCollection;
+import de.bwl.bwfla.common.exceptions.BWFLAException;
+
+import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/** Chunked import of a remote resource, staging its chunks as parts of the final blob */
+class ChunkedTransfer
+{
+	private final Logger logger;
+	private final ImportRecord record;
+	private final IStagingArea staging;
+	private final Consumer<DocumentCollection.Update> updater;
+
+
+	/** Storage for parts of staged uploads */
+	interface IStagingArea
+	{
+		/** Store one part of given upload */
+		void stage(String upload, int part, InputStream data, long size) throws BWFLAException;
+
+		/** Compose all parts of given upload into a blob, returning blob's name */
+		String compose(String upload, int numparts) throws BWFLAException;
+
+		/** Remove all parts of given upload */
+		void discard(String upload) throws BWFLAException;
+	}
+
+	/**
+	 * @param record Import-record, holding transfer-state to resume
+	 * @param staging Storage for transferred parts
+	 * @param updater Callback for persisting record's transfer-state
+	 */
+	ChunkedTransfer(ImportRecord record, IStagingArea staging, Consumer<DocumentCollection.Update> updater, Logger logger)
+	{
+		this.logger = logger;
+		this.record = record;
+		this.staging = staging;
+		this.updater = updater;
+	}
+
+	/**
+	 * Fetch all missing parts of resource and compose them into a blob, returning blob's name.
+	 * On failures, record's transfer-state is kept for resuming later.
+	 */
+	String execute(RangedDownloader downloader, RangedDownloader.Resource resource, long chunksize)
+			throws BWFLAException
+	{
+		downloader.chunksize(chunksize);
+
+		var transfer = record.transfer();
+		if (transfer != null && transfer.resumable(resource.size(), chunksize, resource.validator())) {
+			final var message = "Resuming transfer for import-task %d, %d of %d part(s) already done";
+			logger.info(String.format(message, record.taskid(), transfer.parts().size(), transfer.count()));
+		}
+		else {
+			// previous transfer is outdated, start a new one!
+			if (transfer != null)
+				this.discard(transfer);
+
+			transfer = ImportTransfer.create(resource.size(), chunksize, resource.validator());
+			record.setTransfer(transfer);
+
+			final var update = DocumentCollection.updater()
+					.set(ImportRecord.Fields.TRANSFER, transfer);
+
+			updater.accept(update);
+		}
+
+		// fetch missing chunks and stage them as parts of final blob
+		final var state = transfer;
+		final RangedDownloader.ChunkHandler handler = (chunk, data) -> {
+			staging.stage(state.id(), chunk.index(), data, chunk.length());
+			state.complete(chunk.index());
+			updater.accept(ImportRecord.transferred(chunk.index()));
+		};
+
+		downloader.download(resource, state::completed, handler);
+
+		// all parts are staged, compose final blob from them
+		final var name = staging.compose(state.id(), state.count());
+		record.setTransfer(null);
+		return name;
+	}
+
+	/** Returns the chunk size for a resource, respecting the max. number of composable parts */
+	static long chunksize(long size, long minsize, int maxparts)
+	{
+		return Math.max(minsize, (size + maxparts - 1L) / maxparts);
+	}
+
+
+	// ===== Internal Helpers ==============================
+
+	private void discard(ImportTransfer transfer)
+	{
+		try {
+			staging.discard(transfer.id());
+		}
+		catch (Exception error) {
+			final var message = "Discarding outdated parts of import-task " + record.taskid() + " failed!";
+			logger.log(Level.WARNING, message, error);
+		}
+	}
+}
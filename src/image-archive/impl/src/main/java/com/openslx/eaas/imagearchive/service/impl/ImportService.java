@@ -20,6 +20,7 @@
 package com.openslx.eaas.imagearchive.service.impl;
 
 import com.openslx.eaas.common.util.CurlTool;
+import com.openslx.eaas.common.util.RangedDownloader;
 import com.openslx.eaas.imagearchive.ArchiveBackend;
 import com.openslx.eaas.imagearchive.BlobKind;
 import com.openslx.eaas.imagearchive.config.ImporterConfig;
@@ -29,8 +30,10 @@ import com.openslx.eaas.imagearchive.databind.ImportSource;
 import com.openslx.eaas.imagearchive.databind.ImportStatus;
 import com.openslx.eaas.imagearchive.databind.ImportTarget;
 import com.openslx.eaas.imagearchive.databind.ImportTask;
+import com.openslx.eaas.imagearchive.databind.ImportTransfer;
 import com.openslx.eaas.imagearchive.indexing.impl.ImportIndex;
 import com.openslx.eaas.imagearchive.service.BlobService;
+import de.bwl.bwfla.common.database.document.DocumentCollection;
 import de.bwl.bwfla.common.exceptions.BWFLAException;
 import de.bwl.bwfla.common.utils.ImageInformation;
 import de.bwl.bwfla.common.utils.TaskStack;
@@ -39,8 +42,11 @@ import de.bwl.bwfla.emucomp.api.EmulatorUtils;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -294,6 +300,49 @@ public class ImportService implements AutoCloseable
 		}
 	}
 
+	private RangedDownloader downloader(ImportSource source)
+	{
+		// NOTE: chunks are fetched using downloader's own threads, since
+		//       sharing backend's executor with import-workers may deadlock!
+		final var downloader = new RangedDownloader(logger)
+				.url(source.url())
+				.chunksize(config.getChunkSize())
+				.parallelism(config.getNumChunkWorkers())
+				.retries(config.getMaxChunkRetries());
+
+		final var headers = source.headers();
+		if (headers != null)
+			downloader.headers(headers);
+
+		return downloader;
+	}
+
+	private static void download(RangedDownloader downloader, RangedDownloader.Resource resource, Path outfile)
+			throws BWFLAException, IOException
+	{
+		final var options = new StandardOpenOption[] {
+				StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING
+		};
+
+		try (final var channel = FileChannel.open(outfile, options)) {
+			// write every chunk at its own position, concurrently
+			final RangedDownloader.ChunkHandler handler = (chunk, data) -> {
+				final var buffer = new byte[64 * 1024];
+				var position = chunk.offset();
+				int length;
+				while ((length = data.read(buffer)) > 0) {
+					final var bytes = ByteBuffer.wrap(buffer, 0, length);
+					while (bytes.hasRemaining())
+						position += channel.write(bytes, position);
+				}
+			};
+
+			downloader.download(resource, handler);
+		}
+	}
+
 	@FunctionalInterface
 	private interface IPreprocessor
 	{
@@ -358,6 +407,19 @@ public class ImportService implements AutoCloseable
 			cleanups.push("orig-import-image", () -> Files.deleteIfExists(outfile));
 
 			final var source = record.task().source();
+			try {
+				// fetch chunks in parallel, if remote source supports byte-ranges
+				final var downloader = ImportService.this.downloader(source);
+				final var resource = downloader.probe();
+				if (resource.seekable()) {
+					ImportService.download(downloader, resource, outfile);
+					return outfile;
+				}
+			}
+			catch (Exception error) {
+				logger.log(Level.WARNING, "Downloading remote image in chunks failed! Retrying as single stream...", error);
+			}
+
 			final var headers = source.headers();
 			final var curl = new CurlTool(logger)
 					.url(source.url());
@@ -502,9 +564,21 @@ public class ImportService implements AutoCloseable
 					final var message = "Blob '%s' (%s) already exists! Skipping import-task %d!";
 					logger.info(String.format(message, target.name(), target.kindstr(), record.taskid()));
 				}
+
+				// cleanup outdated transfer-state, if any
+				this.discard(record);
 			}
 			catch (Exception error) {
+				if (isClosed) {
+					// task was interrupted by shutdown, keep its state for resuming later!
+					logger.info("Import-task " + record.taskid() + " interrupted, it will be resumed after restart");
+					return;
+				}
+
 				logger.log(Level.WARNING, "Executing import-task " + record.taskid() + " failed!", error);
+				if (!ImportService.retryable(error))
+					this.discard(record);
+
 				final var failure = new ImportFailure()
 						.setReason("Importing blob failed!")
 						.setDetail(error.getMessage());
@@ -562,7 +636,7 @@ public class ImportService implements AutoCloseable
 			switch (uri.getScheme()) {
 				case "http":
 				case "https":
-					this.webdata(uri, source, target);
+					this.webdata(record, uri, source, target);
 					break;
 				case "file":
 					this.filedata(uri, source, target);
@@ -585,7 +659,84 @@ public class ImportService implements AutoCloseable
 			}
 		}
 
-		private void webdata(URI uri, ImportSource source, ImportTarget target)
+		private void webdata(ImportRecord record, URI uri, ImportSource source, ImportTarget target)
+				throws BWFLAException
+		{
+			RangedDownloader.Resource resource = null;
+			final var downloader = self.downloader(source);
+			try {
+				resource = downloader.probe();
+			}
+			catch (Exception error) {
+				logger.log(Level.WARNING, "Probing remote source failed! Falling back to streaming...", error);
+			}
+
+			if (resource == null || !resource.seekable() || resource.size() <= config.getChunkSize()) {
+				// chunking is not possible or not worth it, stream data directly!
+				final var size = (resource != null) ? resource.size() : BlobService.UNKNOWN_SIZE;
+				this.webstream(uri, source, target, size);
+				return;
+			}
+
+			this.transfer(record, downloader, resource, target);
+		}
+
+		private void transfer(ImportRecord record, RangedDownloader downloader, RangedDownloader.Resource resource, ImportTarget target)
+				throws BWFLAException
+		{
+			final var service = this.service(target);
+			final var staging = new ChunkedTransfer.IStagingArea() {
+				@Override
+				public void stage(String upload, int part, InputStream data, long size) throws BWFLAException
+				{
+					service.stage(target.location(), upload, part, data, size);
+				}
+
+				@Override
+				public String compose(String upload, int numparts) throws BWFLAException
+				{
+					if (target.name() == null)
+						return service.compose(target.location(), upload, numparts);
+
+					service.compose(target.location(), target.name(), upload, numparts);
+					return target.name();
+				}
+
+				@Override
+				public void discard(String upload) throws BWFLAException
+				{
+					service.discard(target.location(), upload);
+				}
+			};
+
+			// NOTE: number of composable parts is limited, hence larger blobs need larger chunks!
+			final var chunksize = ChunkedTransfer.chunksize(resource.size(), config.getChunkSize(), BlobService.MAX_NUM_COMPOSED_PARTS);
+			final var name = new ChunkedTransfer(record, staging, (update) -> this.update(record, update), logger)
+					.execute(downloader, resource, chunksize);
+
+			target.setName(name);
+		}
+
+		private void discard(ImportRecord record)
+		{
+			// NOTE: if discarding fails, transfer-state is kept for removing staged parts on expiry!
+			if (self.discard(record))
+				record.setTransfer(null);
+		}
+
+		private void update(ImportRecord record, DocumentCollection.Update update)
+		{
+			try {
+				imports.collection()
+						.update(ImportRecord.filter(record.taskid()), update);
+			}
+			catch (Exception error) {
+				// NOTE: progress is not persisted, but import itself can still proceed!
+				logger.log(Level.WARNING, "Updating transfer state of import-task " + record.taskid() + " failed!", error);
+			}
+		}
+
+		private void webstream(URI uri, ImportSource source, ImportTarget target, long size)
 				throws BWFLAException
 		{
 			final var curl = new CurlTool(logger)
@@ -596,7 +747,7 @@ public class ImportService implements AutoCloseable
 				curl.headers(headers);
 
 			final CurlTool.ResponseBodyHandler<Void> handler = (data) -> {
-				this.upload(target, data, -1L);
+				this.upload(target, data, size);
 				return null;
 			};
 
@@ -607,22 +758,25 @@ public class ImportService implements AutoCloseable
 
 		private void upload(ImportTarget target, InputStream data, long size) throws BWFLAException
 		{
-			final var service = (BlobService<?>) backend.services()
-					.lookup(target.kind());
-
+			final var service = this.service(target);
 			if (target.name() != null)
 				service.upload(target.location(), target.name(), data, size);
 			else target.setName(service.upload(target.location(), data, size));
 		}
 
+		private BlobService<?> service(ImportTarget target)
+		{
+			return (BlobService<?>) backend.services()
+					.lookup(target.kind());
+		}
+
 		private boolean exists(ImportTarget target) throws BWFLAException
 		{
 			final var name = target.name();
 			if (name == null)
 				return false;
 
-			final var service = (BlobService<?>) backend.services()
-					.lookup(target.kind());
+			final var service = this.service(target);
 
 			// does the target blob already exist?
 			final var descriptor = service.lookup(name);
@@ -635,6 +789,37 @@ public class ImportService implements AutoCloseable
 		}
 	}
 
+	/** Can given failure be retried, resuming the task from its transfer-state? */
+	private static boolean retryable(Exception error)
+	{
+		// NOTE: staged parts of retryable failures are kept until task's record expires,
+		//       while invalid tasks would fail again and their parts can be removed now!
+		return !(error instanceof IllegalArgumentException);
+	}
+
+	/** Remove staged parts of record's transfer, if any. Returns true on success */
+	private boolean discard(ImportRecord record)
+	{
+		final var transfer = record.transfer();
+		if (transfer == null)
+			return true;
+
+		final var target = record.task()
+				.target();
+
+		try {
+			final var service = (BlobService<?>) backend.services()
+					.lookup(target.kind());
+
+			service.discard(target.location(), transfer.id());
+			return true;
+		}
+		catch (Exception error) {
+			logger.log(Level.WARNING, "Discarding staged parts of import-task " + record.taskid() + " failed!", error);
+			return false;
+		}
+	}
+
 	private class CleanupTask implements Runnable
 	{
 		@Override
@@ -667,8 +852,29 @@ public class ImportService implements AutoCloseable
 		private int cleanup() throws Exception
 		{
 			final var timestamp = ArchiveBackend.now() - this.maxage();
-			final var filter = ImportRecord.expired(timestamp);
-			return (int) imports.collection()
+			final var transfers = ImportRecord.expired(timestamp)
+					.ne(ImportRecord.Fields.TRANSFER, null);
+
+			// remove staged parts of expired transfers first,
+			// keeping records for retrying on failures
+			int count = 0;
+			final var records = imports.collection()
+					.find(transfers);
+
+			try (records) {
+				for (final var record : records) {
+					if (!ImportService.this.discard(record))
+						continue;
+
+					if (imports.collection().delete(ImportRecord.filter(record.taskid())))
+						++count;
+				}
+			}
+
+			final var filter = ImportRecord.expired(timestamp)
+					.eq(ImportRecord.Fields.TRANSFER, null);
+
+			return count + (int) imports.collection()
 					.delete(filter, true);
 		}
 
@@ -0,0 +1,90 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openslx.eaas.imagearchive.indexing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+
+public class BlobDescriptorTest
+{
+	@Test
+	public void testUnchangedEntryIsUpToDate()
+	{
+		final var entry = BlobDescriptorTest.entry("etag-1", "alias-1", "alias-2");
+		Assert.assertTrue(entry.isUpToDate("etag-1", Set.of("alias-1", "alias-2")));
+		Assert.assertTrue(BlobDescriptorTest.entry("etag-1").isUpToDate("etag-1", Set.of()));
+	}
+
+	@Test
+	public void testChangedBlobIsStale()
+	{
+		final var entry = BlobDescriptorTest.entry("etag-1", "alias-1");
+		Assert.assertFalse(entry.isUpToDate("etag-2", Set.of("alias-1")));
+		Assert.assertFalse(entry.isUpToDate(null, Set.of("alias-1")));
+
+		// entries without etags must always be re-ingested
+		Assert.assertFalse(BlobDescriptorTest.entry(null).isUpToDate(null, Set.of()));
+	}
+
+	@Test
+	public void testChangedAliasesAreStale()
+	{
+		final var entry = BlobDescriptorTest.entry("etag-1", "alias-1");
+		Assert.assertFalse(entry.isUpToDate("etag-1", Set.of()));
+		Assert.assertFalse(entry.isUpToDate("etag-1", Set.of("alias-1", "alias-2")));
+		Assert.assertFalse(entry.isUpToDate("etag-1", Set.of("alias-2")));
+		Assert.assertFalse(BlobDescriptorTest.entry("etag-1").isUpToDate("etag-1", Set.of("alias-1")));
+	}
+
+	@Test
+	public void testStoredEntryIsUpToDate() throws Exception
+	{
+		// entries are loaded from the index, where empty aliases are omitted
+		final var mapper = new ObjectMapper();
+		for (var entry : new BlobDescriptor[] { BlobDescriptorTest.entry("etag-1"), BlobDescriptorTest.entry("etag-1", "alias-1") }) {
+			final var json = mapper.writeValueAsString(entry);
+			final var stored = mapper.readValue(json, BlobDescriptor.class);
+			Assert.assertTrue(json, stored.isUpToDate("etag-1", new HashSet<>(entry.aliases())));
+		}
+
+		final var json = mapper.writeValueAsString(BlobDescriptorTest.entry("etag-1"));
+		Assert.assertFalse(json, json.contains(BlobDescriptor.Fields.ALIASES));
+	}
+
+
+	// ===== Internal Helpers ====================
+
+	private static BlobDescriptor entry(String etag, String... aliases)
+	{
+		final var entry = new BlobDescriptor();
+		entry.setName("blob-1");
+		entry.setLocation("default");
+		entry.setEtag(etag);
+		if (aliases.length > 0)
+			entry.setAliases(new HashSet<>(Set.of(aliases)));
+
+		return entry;
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.openslx.eaas.imagearchive.indexing;
+
+import com.openslx.eaas.imagearchive.indexing.BlobDescriptor.Fields;
+import com.openslx.eaas.imagearchive.indexing.PageCursor.SortKey;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class PageCursorTest
+{
+	@Test
+	public void testStart()
+	{
+		final PageCursor byname = PageCursor.start(SortKey.NAME);
+		Assert.assertTrue(byname.isStart());
+		Assert.assertNull(byname.filter());
+		Assert.assertArrayEquals(new String[] { Fields.NAME }, byname.sorting());
+
+		final PageCursor bymtime = PageCursor.start(SortKey.MTIME);
+		Assert.assertTrue(bymtime.isStart());
+		Assert.assertNull(bymtime.filter());
+		Assert.assertArrayEquals(new String[] { Fields.MTIME, Fields.NAME }, bymtime.sorting());
+	}
+
+	@Test
+	public void testNameRoundTrip()
+	{
+		for (String value : new String[] { "name:env-1", "name:a:b", "name:1234:c" }) {
+			final PageCursor cursor = PageCursor.parse(value);
+			Assert.assertEquals(SortKey.NAME, cursor.key());
+			Assert.assertFalse(cursor.isStart());
+			Assert.assertNotNull(cursor.filter());
+			Assert.assertEquals(value, cursor.toString());
+			Assert.assertEquals(value, PageCursor.parse(cursor.toString()).toString());
+		}
+	}
+
+	@Test
+	public void testModTimeRoundTrip()
+	{
+		for (String value : new String[] { "mtime:0:env-1", "mtime:1600000000000:a:b", "mtime:-1:c" }) {
+			final PageCursor cursor = PageCursor.parse(value);
+			Assert.assertEquals(SortKey.MTIME, cursor.key());
+			Assert.assertFalse(cursor.isStart());
+			Assert.assertNotNull(cursor.filter());
+			Assert.assertEquals(value, cursor.toString());
+			Assert.assertEquals(value, PageCursor.parse(cursor.toString()).toString());
+		}
+	}
+
+	@Test
+	public void testAfterRecord()
+	{
+		final BlobDescriptor record = new BlobDescriptor();
+		record.setName("env:42");
+		record.setModTime(1234L);
+
+		final PageCursor byname = PageCursor.after(SortKey.NAME, record);
+		Assert.assertEquals("name:env:42", byname.toString());
+		Assert.assertEquals(byname.toString(), PageCursor.parse(byname.toString()).toString());
+
+		final PageCursor bymtime = PageCursor.after(SortKey.MTIME, record);
+		Assert.assertEquals("mtime:1234:env:42", bymtime.toString());
+		Assert.assertEquals(bymtime.toString(), PageCursor.parse(bymtime.toString()).toString());
+	}
+
+	@Test
+	public void testInvalidCursors()
+	{
+		final String[] values = {
+				"", "name", "mtime", "mtime:1234", "mtime:abc:env-1", "size:env-1"
+		};
+
+		for (String value : values) {
+			try {
+				PageCursor.parse(value);
+				Assert.fail("Invalid cursor was accepted: " + value);
+			}
+			catch (IllegalArgumentException error) {
+				// Expected!
+			}
+		}
+	}
+
+	@Test
+	public void testSortKeys()
+	{
+		Assert.assertEquals(SortKey.NAME, SortKey.from(null));
+		Assert.assertEquals(SortKey.NAME, SortKey.from(""));
+		for (SortKey key : SortKey.values())
+			Assert.assertEquals(key, SortKey.from(key.value()));
+	}
+}
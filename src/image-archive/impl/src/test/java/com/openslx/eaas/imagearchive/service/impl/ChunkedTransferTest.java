@@ -0,0 +1,330 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openslx.eaas.imagearchive.service.impl;
+
+import com.openslx.eaas.common.util.RangedDownloader;
+import com.openslx.eaas.imagearchive.databind.ImportRecord;
+import com.openslx.eaas.imagearchive.databind.ImportTransfer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.bwl.bwfla.common.exceptions.BWFLAException;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+
+public class ChunkedTransferTest
+{
+	private static final Logger LOG = Logger.getLogger(ChunkedTransferTest.class.getName());
+
+	private static final int CHUNK_SIZE = 64 * 1024;
+	private static final int NUM_CHUNKS = 5;
+
+	private static HttpServer server;
+	private static byte[] remote;
+	private static final AtomicInteger NUM_RANGE_REQUESTS = new AtomicInteger(0);
+
+	private ImportRecord record;
+	private TestStagingArea staging;
+	private AtomicInteger numUpdates;
+
+
+	@BeforeClass
+	public static void setUpServer() throws IOException
+	{
+		remote = new byte[(NUM_CHUNKS - 1) * CHUNK_SIZE + 123];
+		new Random(42L).nextBytes(remote);
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", ChunkedTransferTest::serve);
+		server.start();
+	}
+
+	@AfterClass
+	public static void tearDownServer()
+	{
+		server.stop(0);
+	}
+
+	@Before
+	public void setUp()
+	{
+		NUM_RANGE_REQUESTS.set(0);
+
+		record = new ImportRecord();
+		record.setTaskId(1);
+		staging = new TestStagingArea();
+		numUpdates = new AtomicInteger(0);
+	}
+
+	@Test
+	public void testNewTransferComposesAllParts() throws BWFLAException
+	{
+		final var name = this.execute("v1");
+
+		Assert.assertNull(record.transfer());
+		Assert.assertEquals(1, staging.composed.size());
+		Assert.assertArrayEquals(remote, staging.composed.get(name));
+		Assert.assertEquals(NUM_CHUNKS, NUM_RANGE_REQUESTS.get());
+		Assert.assertTrue(staging.discarded.isEmpty());
+
+		// transfer-state is persisted once, then once per part
+		Assert.assertEquals(1 + NUM_CHUNKS, numUpdates.get());
+	}
+
+	@Test
+	public void testResumedTransferSkipsCompletedParts() throws BWFLAException
+	{
+		final var transfer = ImportTransfer.create(remote.length, CHUNK_SIZE, ChunkedTransferTest.etag("v1"));
+		for (int part : Set.of(0, 2, 4)) {
+			staging.put(transfer.id(), part, ChunkedTransferTest.chunk(part));
+			transfer.complete(part);
+		}
+
+		record.setTransfer(transfer);
+
+		final var name = this.execute("v1");
+		Assert.assertEquals("blob-" + transfer.id(), name);
+		Assert.assertArrayEquals(remote, staging.composed.get(name));
+		Assert.assertEquals(2, NUM_RANGE_REQUESTS.get());
+		Assert.assertEquals(2, numUpdates.get());
+		Assert.assertTrue(staging.discarded.isEmpty());
+		Assert.assertNull(record.transfer());
+	}
+
+	@Test
+	public void testChangedSourceRestartsTransfer() throws BWFLAException
+	{
+		final var outdated = ImportTransfer.create(remote.length, CHUNK_SIZE, ChunkedTransferTest.etag("v1"));
+		staging.put(outdated.id(), 0, ChunkedTransferTest.chunk(0));
+		outdated.complete(0);
+		record.setTransfer(outdated);
+
+		final var name = this.execute("v2");
+		Assert.assertEquals(List.of(outdated.id()), staging.discarded);
+		Assert.assertNotEquals("blob-" + outdated.id(), name);
+		Assert.assertArrayEquals(remote, staging.composed.get(name));
+		Assert.assertEquals(NUM_CHUNKS, NUM_RANGE_REQUESTS.get());
+	}
+
+	@Test
+	public void testFailedTransferKeepsStagedParts() throws BWFLAException
+	{
+		try {
+			this.execute("failing");
+			Assert.fail("Transfer from a failing source should fail!");
+		}
+		catch (BWFLAException error) {
+			// Expected!
+		}
+
+		// completed parts must be kept for resuming later
+		final var transfer = record.transfer();
+		Assert.assertNotNull(transfer);
+		Assert.assertTrue(staging.discarded.isEmpty());
+		Assert.assertTrue(staging.composed.isEmpty());
+		Assert.assertEquals(transfer.parts(), staging.parts(transfer.id()));
+		Assert.assertFalse(transfer.completed(NUM_CHUNKS - 1));
+
+		// retrying should fetch only missing parts
+		final var numDoneParts = transfer.parts().size();
+		NUM_RANGE_REQUESTS.set(0);
+
+		final var name = this.execute("v1");
+		Assert.assertEquals("blob-" + transfer.id(), name);
+		Assert.assertArrayEquals(remote, staging.composed.get(name));
+		Assert.assertEquals(NUM_CHUNKS - numDoneParts, NUM_RANGE_REQUESTS.get());
+	}
+
+	@Test
+	public void testFailedComposeKeepsTransferState() throws BWFLAException
+	{
+		staging.failing = true;
+		try {
+			this.execute("v1");
+			Assert.fail("Failing compose should fail the transfer!");
+		}
+		catch (BWFLAException error) {
+			// Expected!
+		}
+
+		final var transfer = record.transfer();
+		Assert.assertNotNull(transfer);
+		Assert.assertEquals(NUM_CHUNKS, transfer.parts().size());
+
+		// retrying should only compose already staged parts
+		staging.failing = false;
+		NUM_RANGE_REQUESTS.set(0);
+
+		final var name = this.execute("v1");
+		Assert.assertArrayEquals(remote, staging.composed.get(name));
+		Assert.assertEquals(0, NUM_RANGE_REQUESTS.get());
+	}
+
+	@Test
+	public void testChunkSizeRespectsComposeLimit()
+	{
+		final var maxparts = 10000;
+		final var minsize = 5L * 1024L * 1024L;
+		Assert.assertEquals(minsize, ChunkedTransfer.chunksize(1024L, minsize, maxparts));
+		Assert.assertEquals(minsize, ChunkedTransfer.chunksize(minsize * maxparts, minsize, maxparts));
+
+		final var size = minsize * maxparts + 1L;
+		final var chunksize = ChunkedTransfer.chunksize(size, minsize, maxparts);
+		Assert.assertTrue(chunksize > minsize);
+		Assert.assertTrue((size + chunksize - 1L) / chunksize <= maxparts);
+	}
+
+
+	// ===== Internal Helpers ====================
+
+	private String execute(String mode) throws BWFLAException
+	{
+		final var downloader = new RangedDownloader(LOG)
+				.url("http://127.0.0.1:" + server.getAddress().getPort() + "/" + mode)
+				.parallelism(2)
+				.retries(0);
+
+		final var resource = downloader.probe();
+		return new ChunkedTransfer(record, staging, (update) -> numUpdates.incrementAndGet(), LOG)
+				.execute(downloader, resource, CHUNK_SIZE);
+	}
+
+	private static byte[] chunk(int index)
+	{
+		final var offset = index * CHUNK_SIZE;
+		final var length = Math.min(CHUNK_SIZE, remote.length - offset);
+		final var data = new byte[length];
+		System.arraycopy(remote, offset, data, 0, length);
+		return data;
+	}
+
+	private static String etag(String version)
+	{
+		return "\"" + version + "\"";
+	}
+
+	private static void serve(HttpExchange exchange) throws IOException
+	{
+		final var mode = exchange.getRequestURI().getPath().substring(1);
+		final var headers = exchange.getResponseHeaders();
+		final var range = exchange.getRequestHeaders().getFirst("Range");
+		headers.add("Accept-Ranges", "bytes");
+		headers.add("ETag", ChunkedTransferTest.etag(mode.equals("v2") ? "v2" : "v1"));
+
+		try (exchange) {
+			if (exchange.getRequestMethod().equals("HEAD")) {
+				headers.add("Content-Length", Integer.toString(remote.length));
+				exchange.sendResponseHeaders(200, -1);
+				return;
+			}
+
+			final var bounds = range.substring("bytes=".length()).split("-");
+			final var first = Integer.parseInt(bounds[0]);
+			final var last = Math.min(remote.length - 1, Integer.parseInt(bounds[1]));
+			NUM_RANGE_REQUESTS.incrementAndGet();
+
+			// last chunk is never available from failing source
+			if (mode.equals("failing") && last == remote.length - 1) {
+				exchange.sendResponseHeaders(503, -1);
+				return;
+			}
+
+			final var length = last - first + 1;
+			headers.add("Content-Range", "bytes " + first + "-" + last + "/" + remote.length);
+			exchange.sendResponseHeaders(206, length);
+			try (OutputStream output = exchange.getResponseBody()) {
+				output.write(remote, first, length);
+			}
+		}
+	}
+
+	private static class TestStagingArea implements ChunkedTransfer.IStagingArea
+	{
+		private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+		private final Map<String, byte[]> composed = new ConcurrentHashMap<>();
+		private final List<String> discarded = new ArrayList<>();
+		private volatile boolean failing = false;
+
+		@Override
+		public void stage(String upload, int part, InputStream data, long size) throws BWFLAException
+		{
+			try {
+				final var bytes = data.readAllBytes();
+				Assert.assertEquals(size, bytes.length);
+				this.put(upload, part, bytes);
+			}
+			catch (IOException error) {
+				throw new BWFLAException("Staging part failed!", error);
+			}
+		}
+
+		@Override
+		public String compose(String upload, int numparts) throws BWFLAException
+		{
+			if (failing)
+				throw new BWFLAException("Composing parts failed!");
+
+			final var parts = uploads.get(upload);
+			final var output = new ByteArrayOutputStream();
+			for (int i = 0; i < numparts; ++i)
+				output.writeBytes(parts.get(i));
+
+			final var name = "blob-" + upload;
+			composed.put(name, output.toByteArray());
+			return name;
+		}
+
+		@Override
+		public void discard(String upload)
+		{
+			uploads.remove(upload);
+			discarded.add(upload);
+		}
+
+		public void put(String upload, int part, byte[] data)
+		{
+			uploads.computeIfAbsent(upload, (key) -> new ConcurrentHashMap<>())
+					.put(part, data);
+		}
+
+		public Set<Integer> parts(String upload)
+		{
+			return uploads.get(upload)
+					.keySet();
+		}
+	}
+}
@@ -0,0 +1,410 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.imageproposer.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+
+/**
+ * An inverted index mapping keys (e.g. PUIDs) to sets of entries (e.g. environment IDs).
+ * Entries are assigned dense integer IDs and postings are stored as bitsets, which
+ * keeps the index compact and makes multi-key queries cheap. The index can be
+ * updated incrementally and is safe for concurrent use.
+ */
+public class BitsetIndex
+{
+	private final List<String> entries;
+	private final Map<String, Integer> slots;
+	private final BitSet freeslots;
+	private final Map<String, BitSet> postings;
+	private final Map<String, Set<String>> keysByEntry;
+	private final ReadWriteLock lock;
+
+	public BitsetIndex()
+	{
+		this.entries = new ArrayList<>();
+		this.slots = new HashMap<>();
+		this.freeslots = new BitSet();
+		this.postings = new HashMap<>();
+		this.keysByEntry = new HashMap<>();
+		this.lock = new ReentrantReadWriteLock();
+	}
+
+	/** Add a single key for given entry */
+	public void add(String key, String entry)
+	{
+		lock.writeLock().lock();
+		try {
+			this.insert(key, entry, this.allocate(entry));
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Replace all keys of given entry, updating only changed postings.
+	 * @return true when entry's keys have changed, else false
+	 */
+	public boolean update(String entry, Collection<String> keys)
+	{
+		final Set<String> newkeys = (keys instanceof Set) ? (Set<String>) keys : new HashSet<>(keys);
+
+		// Unchanged entries require no exclusive access
+		lock.readLock().lock();
+		try {
+			if (this.matches(entry, newkeys))
+				return false;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+
+		if (newkeys.isEmpty())
+			return this.remove(entry);
+
+		lock.writeLock().lock();
+		try {
+			if (this.matches(entry, newkeys))
+				return false;
+
+			final int slot = this.allocate(entry);
+			final var oldkeys = keysByEntry.get(entry)
+					.toArray(new String[0]);
+
+			// NOTE: insert new keys first, so that the slot
+			//       will not be released while erasing!
+			for (final var key : newkeys)
+				this.insert(key, entry, slot);
+
+			for (final var key : oldkeys) {
+				if (!newkeys.contains(key))
+					this.erase(key, entry, slot);
+			}
+
+			return true;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/** Replace all entries of given key */
+	public void put(String key, Collection<String> entries)
+	{
+		lock.writeLock().lock();
+		try {
+			final var posting = postings.get(key);
+			if (posting != null) {
+				for (int slot = posting.nextSetBit(0); slot >= 0; slot = posting.nextSetBit(slot + 1))
+					this.erase(key, this.entries.get(slot), slot);
+			}
+
+			for (final var entry : entries)
+				this.insert(key, entry, this.allocate(entry));
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Remove given entry from all postings.
+	 * @return true when entry was indexed, else false
+	 */
+	public boolean remove(String entry)
+	{
+		lock.writeLock().lock();
+		try {
+			final var slot = slots.get(entry);
+			if (slot == null)
+				return false;
+
+			final var keys = keysByEntry.get(entry);
+			for (final var key : keys.toArray(new String[0]))
+				this.erase(key, entry, slot);
+
+			return true;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/** Return a copy of all entries for given key, or null if key is unknown */
+	public Set<String> lookup(String key)
+	{
+		lock.readLock().lock();
+		try {
+			final var posting = postings.get(key);
+			if (posting == null)
+				return null;
+
+			return this.toEntries(posting);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/** Find entries matching most of the given keys */
+	public Matches match(Collection<String> keys)
+	{
+		final var weights = new HashMap<String, Integer>();
+		for (final var key : keys)
+			weights.put(key, 1);
+
+		return this.match(weights);
+	}
+
+	/** Find entries matching the highest total weight of given keys, weights must be positive */
+	public Matches match(Map<String, Integer> weights)
+	{
+		lock.readLock().lock();
+		try {
+			final var found = new ArrayList<BitSet>(weights.size());
+			final var foundweights = new ArrayList<Integer>(weights.size());
+			int total = 0;
+			for (final var weight : weights.entrySet()) {
+				final var posting = postings.get(weight.getKey());
+				if (posting == null)
+					continue;
+
+				if (weight.getValue() < 1)
+					throw new IllegalArgumentException("Invalid weight for key: " + weight.getKey());
+
+				found.add(posting);
+				foundweights.add(weight.getValue());
+				total += weight.getValue();
+			}
+
+			if (found.isEmpty())
+				return Matches.NONE;
+
+			// Fast path: some entries match all known keys?
+			final var common = (BitSet) found.get(0).clone();
+			for (int i = 1; i < found.size() && !common.isEmpty(); ++i)
+				common.and(found.get(i));
+
+			if (!common.isEmpty())
+				return new Matches(this.toEntries(common), total);
+
+			// Slow path: sum up weights per entry, using dense slots
+			final var counts = new int[entries.size()];
+			int maxcount = 0;
+			for (int i = 0; i < found.size(); ++i) {
+				final var posting = found.get(i);
+				final int weight = foundweights.get(i);
+				for (int slot = posting.nextSetBit(0); slot >= 0; slot = posting.nextSetBit(slot + 1)) {
+					final int count = counts[slot] += weight;
+					if (count > maxcount)
+						maxcount = count;
+				}
+			}
+
+			final var best = new BitSet(counts.length);
+			for (int slot = 0; slot < counts.length; ++slot) {
+				if (counts[slot] == maxcount)
+					best.set(slot);
+			}
+
+			return new Matches(this.toEntries(best), maxcount);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/** Return a copy of all indexed entries */
+	public Set<String> entries()
+	{
+		lock.readLock().lock();
+		try {
+			return new HashSet<>(slots.keySet());
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/** Return a copy of all keys and their entries */
+	public Map<String, Set<String>> toMap()
+	{
+		lock.readLock().lock();
+		try {
+			final var map = new TreeMap<String, Set<String>>();
+			postings.forEach((key, posting) -> map.put(key, this.toEntries(posting)));
+			return map;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/** Number of indexed keys */
+	public int size()
+	{
+		lock.readLock().lock();
+		try {
+			return postings.size();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/** Number of indexed entries */
+	public int numEntries()
+	{
+		lock.readLock().lock();
+		try {
+			return slots.size();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public void clear()
+	{
+		lock.writeLock().lock();
+		try {
+			entries.clear();
+			slots.clear();
+			freeslots.clear();
+			postings.clear();
+			keysByEntry.clear();
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/** Result of a multi-key query */
+	public static class Matches
+	{
+		private final Set<String> entries;
+		private final int count;
+
+		private static final Matches NONE = new Matches(Collections.emptySet(), 0);
+
+		private Matches(Set<String> entries, int count)
+		{
+			this.entries = entries;
+			this.count = count;
+		}
+
+		/** Entries matching the most keys */
+		public Set<String> entries()
+		{
+			return entries;
+		}
+
+		/** Number of keys (or their total weight) matched by each of the entries */
+		public int count()
+		{
+			return count;
+		}
+	}
+
+
+	// ===== Internal Helpers ===============
+
+	private int allocate(String entry)
+	{
+		final var slot = slots.get(entry);
+		if (slot != null)
+			return slot;
+
+		// reuse slots of removed entries, to keep bitsets dense
+		int newslot = freeslots.nextSetBit(0);
+		if (newslot >= 0) {
+			freeslots.clear(newslot);
+			entries.set(newslot, entry);
+		}
+		else {
+			newslot = entries.size();
+			entries.add(entry);
+		}
+
+		slots.put(entry, newslot);
+		keysByEntry.put(entry, new HashSet<>());
+		return newslot;
+	}
+
+	private boolean matches(String entry, Set<String> keys)
+	{
+		final var oldkeys = keysByEntry.get(entry);
+		if (oldkeys == null)
+			return keys.isEmpty();
+
+		return oldkeys.equals(keys);
+	}
+
+	private void insert(String key, String entry, int slot)
+	{
+		postings.computeIfAbsent(key, (unused) -> new BitSet())
+				.set(slot);
+
+		keysByEntry.get(entry)
+				.add(key);
+	}
+
+	private void erase(String key, String entry, int slot)
+	{
+		final var posting = postings.get(key);
+		if (posting != null) {
+			posting.clear(slot);
+			if (posting.isEmpty())
+				postings.remove(key);
+		}
+
+		final var keys = keysByEntry.get(entry);
+		keys.remove(key);
+		if (keys.isEmpty()) {
+			// entry is not referenced anymore
+			keysByEntry.remove(entry);
+			slots.remove(entry);
+			entries.set(slot, null);
+			freeslots.set(slot);
+		}
+	}
+
+	private Set<String> toEntries(BitSet posting)
+	{
+		final var result = new HashSet<String>(2 * posting.cardinality());
+		for (int slot = posting.nextSetBit(0); slot >= 0; slot = posting.nextSetBit(slot + 1))
+			result.add(entries.get(slot));
+
+		return result;
+	}
+}
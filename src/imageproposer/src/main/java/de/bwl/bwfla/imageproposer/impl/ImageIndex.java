@@ -41,20 +41,20 @@ import javax.json.JsonValue;
 
 public class ImageIndex
 {
-	private final Map<String, Set<String>> entriesByPUID;
-	private final Map<String, Set<String>> entriesByExt;
-	private final Map<String, Set<String>> operatingSystemsPUIDInv;
-	private final Map<String, Set<String>> operatingSystemsExtInv;
+	private final BitsetIndex entriesByPUID;
+	private final BitsetIndex entriesByExt;
+	private final BitsetIndex operatingSystemsPUIDInv;
+	private final BitsetIndex operatingSystemsExtInv;
 	private final Map<String, OperatingSystemInformation> operatingSystems;
 	private final Map<String, OperatingSystemInformation> operatingSystemExtMap;
 
 	public ImageIndex(Map<String, OperatingSystemInformation> operatingSystems)
 	{
 		this.operatingSystems = operatingSystems;
-		this.entriesByPUID = new HashMap<String, Set<String>>();
-		this.entriesByExt = new HashMap<String, Set<String>>();
-		this.operatingSystemsPUIDInv = new HashMap<String, Set<String>>();
-		this.operatingSystemsExtInv = new HashMap<String, Set<String>>();
+		this.entriesByPUID = new BitsetIndex();
+		this.entriesByExt = new BitsetIndex();
+		this.operatingSystemsPUIDInv = new BitsetIndex();
+		this.operatingSystemsExtInv = new BitsetIndex();
 		this.operatingSystemExtMap = new HashMap<>();
 
 		if(operatingSystems == null)
@@ -65,27 +65,13 @@ public class ImageIndex
 			OperatingSystemInformation operatingSystemInformation = operatingSystems.get(os);
 
 			if(operatingSystemInformation.getPuids() != null) {
-				for (String puid : operatingSystemInformation.getPuids()) {
-					Set<String> osSet = operatingSystemsPUIDInv.get(puid);
-					if (osSet == null) {
-						osSet = new HashSet<String>();
-						operatingSystemsPUIDInv.put(puid, osSet);
-					}
-
-					osSet.add(os);
-				}
+				for (String puid : operatingSystemInformation.getPuids())
+					operatingSystemsPUIDInv.add(puid, os);
 			}
 
 			if(operatingSystemInformation.getExtensions() != null) {
-				for (String ext : operatingSystemInformation.getExtensions()) {
-					Set<String> osSet = operatingSystemsExtInv.get(ext);
-					if(osSet == null)
-					{
-						osSet = new HashSet<>();
-						operatingSystemsExtInv.put(ext, osSet);
-					}
-					osSet.add(os);
-				}
+				for (String ext : operatingSystemInformation.getExtensions())
+					operatingSystemsExtInv.add(ext, os);
 			}
 		}
 
@@ -104,10 +90,10 @@ public class ImageIndex
 	public void printMaps(){
 
 		printEntry("operatingSystems", this.operatingSystems);
-		printEntry("entriesByExt", this.entriesByExt);
-		printEntry("entriesByPUID", this.entriesByPUID);
-		printEntry("operatingSystemsExtInv", this.operatingSystemsExtInv);
-		printEntry("operatingSystemsPUIDInv", this.operatingSystemsPUIDInv);
+		printEntry("entriesByExt", this.entriesByExt.toMap());
+		printEntry("entriesByPUID", this.entriesByPUID.toMap());
+		printEntry("operatingSystemsExtInv", this.operatingSystemsExtInv.toMap());
+		printEntry("operatingSystemsPUIDInv", this.operatingSystemsPUIDInv.toMap());
 		printEntry("operatingSystemExtMap", this.operatingSystemExtMap);
 	}
 
@@ -118,9 +104,7 @@ public class ImageIndex
 
 	public Set<String> getOsRequirementByPUID(String format)
 	{
-		if(!operatingSystemsPUIDInv.containsKey(format))
-			return null;
-		return new HashSet<String>(operatingSystemsPUIDInv.get(format));
+		return operatingSystemsPUIDInv.lookup(format);
 	}
 
 	public OperatingSystemInformation getOperatingSystemByExt(String osId)
@@ -130,61 +114,89 @@ public class ImageIndex
 
 	public Set<String> getOsRequirementByExt(String format)
 	{
-		if(!operatingSystemsExtInv.containsKey(format))
-			return null;
-		return new HashSet<String>(operatingSystemsExtInv.get(format));
+		return operatingSystemsExtInv.lookup(format);
 	}
-	
+
 	public Set<String> getEnvironmentsByPUID(String format)
 	{
-		return entriesByPUID.get(format);
+		return entriesByPUID.lookup(format);
 	}
 
 	public Set<String> getEnvironmentsByExt(String ext)
 	{
-		return entriesByExt.get(ext);
+		return entriesByExt.lookup(ext);
 	}
-	
+
+	/** Find environments supporting most of the given PUIDs, weighted by their number of files */
+	public BitsetIndex.Matches matchEnvironmentsByPUID(Map<String, Integer> formats)
+	{
+		return entriesByPUID.match(formats);
+	}
+
+	/** Find operating systems supporting most of the given file extensions, weighted by their number of files */
+	public BitsetIndex.Matches matchOsRequirementsByExt(Map<String, Integer> exts)
+	{
+		return operatingSystemsExtInv.match(exts);
+	}
+
 	public void addEnvironmentWithPUID(String format, String image)
 	{
-		Set<String> entry = entriesByPUID.get(format);
-		if (entry == null) {
-			entry = new HashSet<String>();
-			entriesByPUID.put(format, entry);
-		}
-		
-		entry.add(image);
+		entriesByPUID.add(format, image);
 	}
 
 	public void addEnvironmentWithExt(String ext, String image) {
-		Set<String> entry = entriesByExt.get(ext);
-		if (entry == null) {
-			entry = new HashSet<String>();
-			entriesByExt.put(ext, entry);
-		}
+		entriesByExt.add(ext, image);
+	}
+
+	/**
+	 * Replace all indexed PUIDs and extensions of given environment.
+	 * @return true when environment's PUIDs or extensions have changed, else false
+	 */
+	public boolean updateEnvironment(String image, Collection<String> formats, Collection<String> exts)
+	{
+		final boolean changed = entriesByPUID.update(image, formats);
+		return entriesByExt.update(image, exts) || changed;
+	}
+
+	/** Return IDs of all indexed environments */
+	public Set<String> getEnvironments()
+	{
+		final Set<String> images = entriesByPUID.entries();
+		images.addAll(entriesByExt.entries());
+		return images;
+	}
 
-		entry.add(image);
+	public boolean removeEnvironment(String image)
+	{
+		final boolean removed = entriesByPUID.remove(image);
+		return entriesByExt.remove(image) || removed;
 	}
 
 
-	public List<OperatingSystemInformation> getOSforPUID(Set<String> valuesToCheck, int maxCount)
+	public List<OperatingSystemInformation> getOSforPUID(Map<String, Integer> valuesToCheck, int maxCount)
 	{
 		return getOSforValues(valuesToCheck, maxCount, false);
 	}
 
-	public List<OperatingSystemInformation> getOSforExtensions(Set<String> valuesToCheck, int maxCount)
+	public List<OperatingSystemInformation> getOSforExtensions(Map<String, Integer> valuesToCheck, int maxCount)
 	{
 		return getOSforValues(valuesToCheck, maxCount, true);
 
 	}
 
-	private List<OperatingSystemInformation> getOSforValues(Set<String> valuesToCheck, int maxCount, boolean isExt)
+	/** Find operating systems supporting values with a total weight of at least maxCount */
+	private List<OperatingSystemInformation> getOSforValues(Map<String, Integer> valuesToCheck, int maxCount, boolean isExt)
 	{
 		ArrayList<OperatingSystemInformation> supportedOSs = new ArrayList<>();
 
 		for (var potentialOS : operatingSystems.values()) {
 			var supportedValues = isExt ? potentialOS.getExtensions() : potentialOS.getPuids();
-			if(valuesToCheck.stream().filter(supportedValues::contains).count() >= maxCount){
+			final int count = valuesToCheck.entrySet().stream()
+					.filter((value) -> supportedValues.contains(value.getKey()))
+					.mapToInt(Map.Entry::getValue)
+					.sum();
+
+			if(count >= maxCount){
 				supportedOSs.add(potentialOS);
 			}
 		}
@@ -192,9 +204,9 @@ public class ImageIndex
 
 	}
 
-	public Set<String> put(String format, Set<String> images)
+	public void put(String format, Set<String> images)
 	{
-		return entriesByPUID.put(format, images);
+		entriesByPUID.put(format, images);
 	}
 	
 	public void clear()
@@ -21,9 +21,11 @@ package de.bwl.bwfla.imageproposer.impl;
 
 import java.io.*;
 import java.nio.file.Files;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -105,10 +107,17 @@ public class ImageIndexHandle
 			rebuildIsRunning = true;
 		}
 
-		ImageIndex newindex = builder.build();
-		boolean rebuilt = (newindex != null);
-		if (rebuilt)
-			index = newindex;
+		// update current index incrementally, if possible
+		final ImageIndex curindex = this.get();
+		boolean rebuilt;
+		if (curindex != null)
+			rebuilt = builder.update(curindex);
+		else {
+			ImageIndex newindex = builder.build();
+			rebuilt = (newindex != null);
+			if (rebuilt)
+				this.set(newindex);
+		}
 
 		synchronized (this) {
 		//	stopwatch.start();
@@ -163,61 +172,79 @@ public class ImageIndexHandle
 		}
 
 		public ImageIndex build()
+		{
+			final ImageIndex index = new ImageIndex(operatingSystems);
+			return (this.update(index)) ? index : null;
+		}
+
+		/** Update given index, re-indexing only changed and removed environments */
+		public boolean update(ImageIndex index)
 		{
 			try (final var machines = this.fetch()) {
-				ImageIndex index = new ImageIndex(operatingSystems);
+				// NOTE: look up each software package only once per update!
+				final Map<String, List<String>> formatsBySoftware = new HashMap<>();
+				final Set<String> images = new HashSet<>();
+				int numChanged = 0;
+				int numRemoved = 0;
 				for (var iter = machines.iterator(); iter.hasNext();) {
 					final MachineConfiguration config = iter.next();
 					final String image = config.getId();
-					
+					final Set<String> formats = new HashSet<>();
+					final Set<String> exts = new HashSet<>();
+
 					// adding base fmts first
 					String osId = config.getOperatingSystemId();
 					if (osId != null) {
 						OperatingSystemInformation operatingSystemInformation = operatingSystems.get(osId);
 						if (operatingSystemInformation != null) {
-							if(operatingSystemInformation.getPuids() != null) {
-								for (String fmt : operatingSystemInformation.getPuids())
-									index.addEnvironmentWithPUID(fmt, image);
-							}
+							if(operatingSystemInformation.getPuids() != null)
+								formats.addAll(operatingSystemInformation.getPuids());
+
 							if(operatingSystemInformation.getExtensions() != null)
-							{
-								for (String ext : operatingSystemInformation.getExtensions()) {
-									// log.severe("adding ext " + ext + " with img " + image);
-									index.addEnvironmentWithExt(ext, image);
-								}
-							}
+								exts.addAll(operatingSystemInformation.getExtensions());
 						}
 					}
-					
+
 					List<String> installedSoftware = config.getInstalledSoftwareIds();
-					if (installedSoftware == null || installedSoftware.isEmpty())
-						continue;
-					
-					for (String swid : installedSoftware) {
-						SoftwarePackage software = swHelper.getSoftwarePackageById(swid);
-						if (software == null)
-							continue;
-						List<String> formats = software.getSupportedFileFormats();
-						if (formats == null || formats.isEmpty())
-							continue;
-
-						// Add a new index entry
-						for (String format : formats)
-							index.addEnvironmentWithPUID(format, image);
+					if (installedSoftware != null) {
+						for (String swid : installedSoftware) {
+							List<String> swformats = formatsBySoftware.get(swid);
+							if (swformats == null && !formatsBySoftware.containsKey(swid)) {
+								SoftwarePackage software = swHelper.getSoftwarePackageById(swid);
+								swformats = (software != null) ? software.getSupportedFileFormats() : null;
+								formatsBySoftware.put(swid, swformats);
+							}
+
+							if (swformats != null)
+								formats.addAll(swformats);
+						}
 					}
+
+					// Only changed environments are re-indexed
+					if (index.updateEnvironment(image, formats, exts))
+						++numChanged;
+
+					images.add(image);
 				}
 
-				log.info("Image index rebuilt. ");
+				// Remove environments deleted since last update
+				for (String image : index.getEnvironments()) {
+					if (!images.contains(image) && index.removeEnvironment(image))
+						++numRemoved;
+				}
+
+				log.info("Image index updated, " + images.size() + " environment(s) indexed, "
+						+ numChanged + " changed, " + numRemoved + " removed.");
 				//index.printMaps();
-				return index;
+				return true;
 			}
 			catch (Exception exception) {
 				log.log(Level.WARNING, "Image index rebuilding for ImageProposer service failed!", exception);
 			}
-			
-			return null;
+
+			return false;
 		}
-		
+
 		private void loadDefaultsFromResource(String resource)
 		{
 			String serverDataDir = ConfigurationProvider.getConfiguration().get("commonconf.serverdatadir");
@@ -250,18 +277,14 @@ public class ImageIndexHandle
 			}
 		}
 
-		private Streamable<MachineConfiguration> fetch()
+		private Streamable<MachineConfiguration> fetch() throws Exception
 		{
-			try {
-				return imagearchive.api()
-						.v2()
-						.machines()
-						.fetch();
-			}
-			catch (Exception error) {
-				log.log(Level.WARNING, "Fetching machines failed!", error);
-				return Streamable.of(Collections.emptyList());
-			}
+			// NOTE: failures must not be reported as an empty list,
+			//       since that would remove all indexed environments!
+			return imagearchive.api()
+					.v2()
+					.machines()
+					.fetch();
 		}
 	}
 }
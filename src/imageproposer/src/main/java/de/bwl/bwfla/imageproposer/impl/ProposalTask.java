@@ -20,7 +20,6 @@
 package de.bwl.bwfla.imageproposer.impl;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import com.openslx.eaas.common.databind.DataUtils;
 import de.bwl.bwfla.common.datatypes.identification.DiskType;
@@ -45,9 +44,10 @@ public class ProposalTask extends BlockingTask<Object>
 		this.sorter = sorter;
 	}
 
-	private Set<String> getExtensions() throws JAXBException
+	/** Return all file extensions, with their number of files */
+	private Map<String, Integer> getExtensions() throws JAXBException
 	{
-		Set<String> extensions = new HashSet<>();
+		Map<String, Integer> extensions = new HashMap<>();
 		for (String key : request.getMediaFormats().keySet()) {
 			if (request.getMediaFormats().get(key) != null) {
 				DiskType diskType = request.getMediaFormats().get(key);
@@ -59,7 +59,7 @@ public class ProposalTask extends BlockingTask<Object>
 
 				String ext = getFileExtension(fileName);
 				if (ext == null) continue;
-				extensions.add(ext.trim().toLowerCase());
+				extensions.merge(ext.trim().toLowerCase(), 1, Integer::sum);
 				log.info("found extension: " + ext);
 			}
 		}
@@ -70,7 +70,7 @@ public class ProposalTask extends BlockingTask<Object>
 					for (String file : fileList) {
 						String ext = getFileExtension(file);
 						if (ext == null) continue;
-						extensions.add(ext.trim().toLowerCase());
+						extensions.merge(ext.trim().toLowerCase(), 1, Integer::sum);
 						log.info("found extension: " + ext);
 					}
 				}
@@ -95,8 +95,8 @@ public class ProposalTask extends BlockingTask<Object>
 	{
 		log.info("Could not find suitable images through PUIDs, now trying file extensions...");
 
-		Set<String> extensions = getExtensions();
-		if (getExtensions().isEmpty()) {
+		Map<String, Integer> extensions = getExtensions();
+		if (extensions.isEmpty()) {
 			log.info("Did not get any extensions, no results will be added.");
 			return;
 		}
@@ -109,45 +109,25 @@ public class ProposalTask extends BlockingTask<Object>
 							   Collection<String> envIdResults,
 							   Map<String, String> osSuggestion)
 	{
-		Set<String> puids = request.getFileFormats().values().stream()
+		// weight formats by their number of files
+		Map<String, Integer> puids = new HashMap<>();
+		request.getFileFormats().values().stream()
 				.flatMap(List::stream)
-				.map(ProposalRequest.Entry::getType)
-				.collect(Collectors.toSet());
+				.forEach((entry) -> puids.merge(entry.getType(), Math.max(entry.getCount(), 1), Integer::sum));
 
 		propose(index, puids, envIdResults, osSuggestion, false);
 	}
 
-	private void propose(ImageIndex index, Set<String> values, Collection<String> envIdResults, Map<String, String> osSuggestion, boolean byExtension)
+	private void propose(ImageIndex index, Map<String, Integer> values, Collection<String> envIdResults, Map<String, String> osSuggestion, boolean byExtension)
 	{
-		int maxCount = 0;
-		HashMap<String, Integer> resultMap = new HashMap<>(); // count hits per environment
-
 		log.info("Running propose algorithm...");
-		for (var entry : values) {
-			Set<String> envIds = byExtension ? index.getOsRequirementByExt(entry) : index.getEnvironmentsByPUID(entry);
-			if (envIds != null) {
-				for (String envId : envIds) {
-					Integer count = resultMap.get(envId);
-					if (count == null)
-						count = 0;
-					count += 1;
-					if (count > maxCount)
-						maxCount = count;
-					resultMap.put(envId, count);
-				}
-			}
-		}
 
+		// only use the environments that support the most files, ignore worse ones.
+		// e.g. for 5 txt, 1 json and 1 xml files, an env supporting txt only wins over one supporting json + xml
+		final var matches = byExtension ? index.matchOsRequirementsByExt(values) : index.matchEnvironmentsByPUID(values);
+		final int maxCount = matches.count();
 		log.info("propose: maxCount " + maxCount);
-		for (String proposedEnv : resultMap.keySet()) {
-			//only use the environments that support the most file formats, ignore worse ones
-			//TODO What about file count? 5 txt, 1 json, 1 xml - currently an env that supports json + xml but not txt would be suggested
-			Integer count = resultMap.get(proposedEnv);
-			if (count != maxCount)
-				continue;
-
-			envIdResults.add(proposedEnv);
-		}
+		envIdResults.addAll(matches.entries());
 
 		if(maxCount > 0){
 			//Checks if the provided types can be rendered by an operating system where no additional software is required
@@ -0,0 +1,265 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.imageproposer.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+
+public class BitsetIndexTest
+{
+	private static final int NUM_ENVIRONMENTS = 200;
+	private static final int NUM_FORMATS = 50;
+	private static final int NUM_OPERATIONS = 2000;
+
+
+	@Test
+	public void testAddAndLookup()
+	{
+		final BitsetIndex index = new BitsetIndex();
+		index.add("fmt/1", "env-a");
+		index.add("fmt/1", "env-b");
+		index.add("fmt/2", "env-a");
+
+		Assert.assertEquals(set("env-a", "env-b"), index.lookup("fmt/1"));
+		Assert.assertEquals(set("env-a"), index.lookup("fmt/2"));
+		Assert.assertNull(index.lookup("fmt/3"));
+		Assert.assertEquals(2, index.size());
+		Assert.assertEquals(2, index.numEntries());
+	}
+
+	@Test
+	public void testUpdate()
+	{
+		final BitsetIndex index = new BitsetIndex();
+		Assert.assertTrue(index.update("env-a", set("fmt/1", "fmt/2")));
+		Assert.assertTrue(index.update("env-b", set("fmt/2")));
+
+		// Unchanged keys should not modify the index
+		Assert.assertFalse(index.update("env-a", Arrays.asList("fmt/2", "fmt/1", "fmt/2")));
+
+		Assert.assertTrue(index.update("env-a", set("fmt/2", "fmt/3")));
+		Assert.assertNull(index.lookup("fmt/1"));
+		Assert.assertEquals(set("env-a", "env-b"), index.lookup("fmt/2"));
+		Assert.assertEquals(set("env-a"), index.lookup("fmt/3"));
+
+		// Updating with no keys removes the entry
+		Assert.assertTrue(index.update("env-a", Collections.emptySet()));
+		Assert.assertFalse(index.update("env-a", Collections.emptySet()));
+		Assert.assertEquals(set("env-b"), index.entries());
+		Assert.assertNull(index.lookup("fmt/3"));
+	}
+
+	@Test
+	public void testRemoveAndPut()
+	{
+		final BitsetIndex index = new BitsetIndex();
+		index.update("env-a", set("fmt/1", "fmt/2"));
+		index.update("env-b", set("fmt/1"));
+
+		Assert.assertTrue(index.remove("env-a"));
+		Assert.assertFalse(index.remove("env-a"));
+		Assert.assertEquals(set("env-b"), index.lookup("fmt/1"));
+		Assert.assertNull(index.lookup("fmt/2"));
+
+		// Slot of removed entry must not leak into new postings
+		index.put("fmt/2", set("env-c"));
+		Assert.assertEquals(set("env-c"), index.lookup("fmt/2"));
+		Assert.assertEquals(set("env-b"), index.lookup("fmt/1"));
+
+		// Entries without any other keys are dropped when replaced
+		index.put("fmt/1", set("env-c", "env-d"));
+		Assert.assertEquals(set("env-c", "env-d"), index.lookup("fmt/1"));
+		Assert.assertEquals(set("env-c", "env-d"), index.entries());
+
+		index.put("fmt/1", Collections.emptySet());
+		Assert.assertNull(index.lookup("fmt/1"));
+		Assert.assertEquals(set("env-c"), index.entries());
+	}
+
+	@Test
+	public void testMatch()
+	{
+		final BitsetIndex index = new BitsetIndex();
+		index.update("env-a", set("fmt/1", "fmt/2", "fmt/3"));
+		index.update("env-b", set("fmt/1", "fmt/2"));
+		index.update("env-c", set("fmt/3"));
+
+		// Some entries match all known keys
+		BitsetIndex.Matches matches = index.match(set("fmt/1", "fmt/2", "fmt/x"));
+		Assert.assertEquals(set("env-a", "env-b"), matches.entries());
+		Assert.assertEquals(2, matches.count());
+
+		// No entry matches all keys
+		index.update("env-a", set("fmt/1"));
+		matches = index.match(set("fmt/1", "fmt/2", "fmt/3"));
+		Assert.assertEquals(set("env-b"), matches.entries());
+		Assert.assertEquals(2, matches.count());
+
+		matches = index.match(set("fmt/x"));
+		Assert.assertTrue(matches.entries().isEmpty());
+		Assert.assertEquals(0, matches.count());
+	}
+
+	@Test
+	public void testWeightedMatch()
+	{
+		final BitsetIndex index = new BitsetIndex();
+		index.update("env-a", set("fmt/txt"));
+		index.update("env-b", set("fmt/json", "fmt/xml"));
+		index.update("env-c", set("fmt/json"));
+
+		// 5 txt files outweigh 1 json and 1 xml file
+		final Map<String, Integer> weights = new HashMap<>();
+		weights.put("fmt/txt", 5);
+		weights.put("fmt/json", 1);
+		weights.put("fmt/xml", 1);
+		weights.put("fmt/x", 10);
+
+		BitsetIndex.Matches matches = index.match(weights);
+		Assert.assertEquals(set("env-a"), matches.entries());
+		Assert.assertEquals(5, matches.count());
+
+		// Unweighted queries prefer most matched keys
+		matches = index.match(weights.keySet());
+		Assert.assertEquals(set("env-b"), matches.entries());
+		Assert.assertEquals(2, matches.count());
+
+		// Ties are all reported
+		weights.put("fmt/txt", 2);
+		matches = index.match(weights);
+		Assert.assertEquals(set("env-a", "env-b"), matches.entries());
+		Assert.assertEquals(2, matches.count());
+
+		// Entries matching all known keys report the total weight
+		index.update("env-d", set("fmt/txt", "fmt/json", "fmt/xml"));
+		matches = index.match(weights);
+		Assert.assertEquals(set("env-d"), matches.entries());
+		Assert.assertEquals(4, matches.count());
+
+		weights.put("fmt/xml", 0);
+		try {
+			index.match(weights);
+			Assert.fail("Non-positive weights must be rejected!");
+		}
+		catch (IllegalArgumentException error) {
+			// Expected!
+		}
+	}
+
+	@Test
+	public void testEquivalenceWithMapIndex()
+	{
+		final Random random = new Random(42L);
+		final BitsetIndex index = new BitsetIndex();
+		final Map<String, Set<String>> reference = new HashMap<>();
+
+		for (int i = 0; i < NUM_OPERATIONS; ++i) {
+			final String env = "env-" + random.nextInt(NUM_ENVIRONMENTS);
+			final int operation = random.nextInt(10);
+			if (operation == 0) {
+				index.remove(env);
+				reference.values().forEach((envs) -> envs.remove(env));
+			}
+			else if (operation == 1) {
+				final String format = "fmt/" + random.nextInt(NUM_FORMATS);
+				final Set<String> envs = new HashSet<>();
+				for (int n = random.nextInt(5); n > 0; --n)
+					envs.add("env-" + random.nextInt(NUM_ENVIRONMENTS));
+
+				index.put(format, envs);
+				reference.put(format, new HashSet<>(envs));
+			}
+			else {
+				final Set<String> formats = formats(random, random.nextInt(10));
+				index.update(env, formats);
+				reference.values().forEach((envs) -> envs.remove(env));
+				for (String format : formats)
+					reference.computeIfAbsent(format, (unused) -> new HashSet<>()).add(env);
+			}
+
+			reference.values().removeIf(Set::isEmpty);
+			if (i % 100 == 0)
+				Assert.assertEquals(reference, index.toMap());
+
+			final Set<String> query = formats(random, 1 + random.nextInt(5));
+			final BitsetIndex.Matches matches = index.match(query);
+			final Map<String, Integer> counts = count(reference, query);
+			final int maxcount = counts.values().stream()
+					.max(Integer::compare)
+					.orElse(0);
+
+			final Set<String> expected = new HashSet<>();
+			counts.forEach((entry, count) -> {
+				if (count == maxcount)
+					expected.add(entry);
+			});
+
+			Assert.assertEquals(expected, matches.entries());
+			Assert.assertEquals(maxcount, matches.count());
+		}
+
+		final Set<String> entries = new HashSet<>();
+		reference.values().forEach(entries::addAll);
+		Assert.assertEquals(reference, index.toMap());
+		Assert.assertEquals(entries, index.entries());
+	}
+
+
+	/** Counts hits per entry, as done by the former map-based index */
+	private static Map<String, Integer> count(Map<String, Set<String>> index, Collection<String> keys)
+	{
+		final Map<String, Integer> counts = new HashMap<>();
+		for (String key : keys) {
+			final Set<String> entries = index.get(key);
+			if (entries == null)
+				continue;
+
+			for (String entry : entries)
+				counts.merge(entry, 1, Integer::sum);
+		}
+
+		return counts;
+	}
+
+	private static Set<String> formats(Random random, int count)
+	{
+		final Set<String> formats = new HashSet<>();
+		while (formats.size() < count)
+			formats.add("fmt/" + random.nextInt(NUM_FORMATS));
+
+		return formats;
+	}
+
+	private static Set<String> set(String... values)
+	{
+		return new HashSet<>(Arrays.asList(values));
+	}
+}
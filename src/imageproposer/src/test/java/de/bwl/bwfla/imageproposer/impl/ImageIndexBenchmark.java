@@ -0,0 +1,149 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.imageproposer.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+
+/** Compares proposal queries of the legacy map-based index and the BitsetIndex, using synthetic catalogs. */
+public class ImageIndexBenchmark
+{
+	private static final int[] NUM_ENVIRONMENTS = { 1000, 5000, 10000 };
+	private static final int NUM_FORMATS = 2000;
+	private static final int MAX_FORMATS_PER_ENVIRONMENT = 200;
+	private static final int MAX_FORMATS_PER_QUERY = 8;
+	private static final int NUM_WARMUP_ITERATIONS = 2000;
+	private static final int NUM_ITERATIONS = 20000;
+	private static final int NUM_UPDATES = 1000;
+
+	private static final String RESULT_FORMAT = "%-8s %6d envs: %10.1f ns/query\n";
+	private static final String UPDATE_FORMAT = "%-8s %6d envs: %10.1f ns/update\n";
+
+
+	public static void main(String[] args)
+	{
+		for (int numEnvironments : NUM_ENVIRONMENTS) {
+			final Random random = new Random(42L);
+			final Map<String, Set<String>> catalog = ImageIndexBenchmark.catalog(random, numEnvironments);
+			final List<Set<String>> queries = new ArrayList<>();
+			for (int i = 0; i < NUM_ITERATIONS; ++i)
+				queries.add(ImageIndexBenchmark.formats(random, 1 + random.nextInt(MAX_FORMATS_PER_QUERY)));
+
+			final Map<String, Set<String>> legacy = new HashMap<>();
+			final BitsetIndex index = new BitsetIndex();
+			catalog.forEach((env, formats) -> {
+				for (String format : formats)
+					legacy.computeIfAbsent(format, (unused) -> new HashSet<>()).add(env);
+
+				index.update(env, formats);
+			});
+
+			ImageIndexBenchmark.run("legacy", numEnvironments, queries, (query) -> ImageIndexBenchmark.propose(legacy, query));
+			ImageIndexBenchmark.run("bitset", numEnvironments, queries, (query) -> index.match(query).entries().size());
+
+			// Incremental updates of random environments
+			final long start = System.nanoTime();
+			for (int i = 0; i < NUM_UPDATES; ++i) {
+				final String env = "env-" + random.nextInt(numEnvironments);
+				index.update(env, ImageIndexBenchmark.formats(random, 1 + random.nextInt(MAX_FORMATS_PER_ENVIRONMENT)));
+			}
+
+			final double nsPerUpdate = (double) (System.nanoTime() - start) / NUM_UPDATES;
+			System.out.printf(UPDATE_FORMAT, "bitset", numEnvironments, nsPerUpdate);
+			System.out.println();
+		}
+	}
+
+	private interface Query
+	{
+		int run(Set<String> formats);
+	}
+
+	private static void run(String name, int numEnvironments, List<Set<String>> queries, Query query)
+	{
+		int checksum = 0;
+		for (int i = 0; i < NUM_WARMUP_ITERATIONS; ++i)
+			checksum += query.run(queries.get(i));
+
+		final long start = System.nanoTime();
+		for (Set<String> formats : queries)
+			checksum += query.run(formats);
+
+		final double nsPerQuery = (double) (System.nanoTime() - start) / queries.size();
+		System.out.printf(RESULT_FORMAT, name, numEnvironments, nsPerQuery);
+		if (checksum == 42)
+			System.out.println();  // Prevent dead-code elimination
+	}
+
+	/** Counts hits per environment, as done by the former proposal algorithm */
+	private static int propose(Map<String, Set<String>> index, Collection<String> formats)
+	{
+		int maxCount = 0;
+		final HashMap<String, Integer> resultMap = new HashMap<>();
+		for (String format : formats) {
+			final Set<String> envIds = index.get(format);
+			if (envIds == null)
+				continue;
+
+			for (String envId : envIds) {
+				final int count = resultMap.merge(envId, 1, Integer::sum);
+				if (count > maxCount)
+					maxCount = count;
+			}
+		}
+
+		int numResults = 0;
+		for (int count : resultMap.values()) {
+			if (count == maxCount)
+				++numResults;
+		}
+
+		return numResults;
+	}
+
+	private static Map<String, Set<String>> catalog(Random random, int numEnvironments)
+	{
+		final Map<String, Set<String>> catalog = new HashMap<>();
+		for (int i = 0; i < numEnvironments; ++i)
+			catalog.put("env-" + i, ImageIndexBenchmark.formats(random, 1 + random.nextInt(MAX_FORMATS_PER_ENVIRONMENT)));
+
+		return catalog;
+	}
+
+	private static Set<String> formats(Random random, int count)
+	{
+		// Skewed distribution, since some formats are much more common than others
+		final Set<String> formats = new HashSet<>();
+		while (formats.size() < count) {
+			final double value = random.nextDouble();
+			formats.add("fmt/" + (int) (value * value * NUM_FORMATS));
+		}
+
+		return formats;
+	}
+}
@@ -85,13 +85,15 @@ public class ResumptionToken implements XmlWritable {
         private Date from;
         private Date until;
         private String metadataPrefix;
+        private String cursor;
 
         public boolean isEmpty () {
             return isNull().apply(offset) &&
                     isNull().apply(set) &&
                     isNull().apply(from) &&
                     isNull().apply(until) &&
-                    isNull().apply(metadataPrefix);
+                    isNull().apply(metadataPrefix) &&
+                    isNull().apply(cursor);
         }
 
         public Value withOffset (long integer) {
@@ -119,6 +121,15 @@ public class ResumptionToken implements XmlWritable {
             return this;
         }
 
+        /**
+         * Opaque position after the last returned item, as provided by the repository.
+         * Allows to continue listing without skipping over all previous items again.
+         */
+        public Value withCursor (String cursor) {
+            this.cursor = cursor;
+            return this;
+        }
+
         public Value next (long sum) {
             return new Value().withSetSpec(set)
                     .withFrom(from)
@@ -147,6 +158,10 @@ public class ResumptionToken implements XmlWritable {
             return metadataPrefix;
         }
 
+        public String getCursor() {
+            return cursor;
+        }
+
 
         public boolean hasOffset() {
             return offset != null;
@@ -168,6 +183,10 @@ public class ResumptionToken implements XmlWritable {
             return metadataPrefix != null;
         }
 
+        public boolean hasCursor() {
+            return cursor != null;
+        }
+
 
     }
 }
@@ -26,11 +26,13 @@ public class SimpleResumptionTokenFormat implements ResumptionTokenFormat {
         Date from = null;
         Date until = null;
         String metadataPrefix = null;
+        String cursor = null;
         if (resumptionToken == null || resumptionToken.trim().equals("")) {
             return new ResumptionToken.Value();
         } else {
             String s = Base64Utils.decode(resumptionToken);
-            String[] pieces = s.split(Pattern.quote("|"));
+            // NOTE: the cursor is the last piece and may contain separators itself!
+            String[] pieces = s.split(Pattern.quote("|"), 6);
             try {
                 if (pieces.length > 0) {
                     offset = Integer.parseInt(pieces[0].substring(2));
@@ -50,6 +52,11 @@ public class SimpleResumptionTokenFormat implements ResumptionTokenFormat {
                         if (metadataPrefix != null && metadataPrefix.equals(""))
                             metadataPrefix = null;
                     }
+                    if (pieces.length > 5) {
+                        cursor = pieces[5].substring(2);
+                        if (cursor.equals(""))
+                            cursor = null;
+                    }
                 } else
                     throw new InvalidResumptionTokenException();
             } catch (Exception ex) {
@@ -61,7 +68,8 @@ public class SimpleResumptionTokenFormat implements ResumptionTokenFormat {
                 .withFrom(from)
                 .withMetadataPrefix(metadataPrefix)
                 .withOffset(offset)
-                .withSetSpec(set);
+                .withSetSpec(set)
+                .withCursor(cursor);
     }
 
     @Override
@@ -79,6 +87,8 @@ public class SimpleResumptionTokenFormat implements ResumptionTokenFormat {
         s += "|5:";
         if (resumptionToken.hasMetadataPrefix())
             s += resumptionToken.getMetadataPrefix();
+        if (resumptionToken.hasCursor())
+            s += "|6:" + resumptionToken.getCursor();
 
         return Base64Utils.encode(s);
     }
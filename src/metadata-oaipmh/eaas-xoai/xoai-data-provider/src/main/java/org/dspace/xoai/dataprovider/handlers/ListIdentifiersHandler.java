@@ -47,7 +47,14 @@ public class ListIdentifiersHandler extends VerbHandler<ListIdentifiers> {
         int length = getRepository().getConfiguration().getMaxListIdentifiers();
         int offset = getOffset(parameters);
         ListItemIdentifiersResult listItemIdentifiersResult;
-        if (!parameters.hasSet()) {
+        String cursor = getCursor(parameters);
+        if (itemRepositoryHelper.supportsCursors() && (cursor != null || offset == 0)) {
+            if (parameters.hasSet() && !getRepository().getSetRepository().exists(parameters.getSet()) && !getContext().hasSet(parameters.getSet()))
+                throw new NoMatchesException();
+            listItemIdentifiersResult = itemRepositoryHelper.getItemIdentifiers(getContext(), cursor, length,
+                    parameters.getMetadataPrefix(), parameters.getSet(),
+                    parameters.getFrom(), parameters.getUntil());
+        } else if (!parameters.hasSet()) {
             if (parameters.hasFrom() && !parameters.hasUntil())
                 listItemIdentifiersResult = itemRepositoryHelper.getItemIdentifiers(getContext(), offset, length,
                         parameters.getMetadataPrefix(), parameters.getFrom());
@@ -96,7 +103,8 @@ public class ListIdentifiersHandler extends VerbHandler<ListIdentifiers> {
         }
 
         ResumptionTokenHelper resumptionTokenHelper = new ResumptionTokenHelper(currentResumptionToken,
-                getRepository().getConfiguration().getMaxListIdentifiers());
+                getRepository().getConfiguration().getMaxListIdentifiers())
+                .withNextCursor(listItemIdentifiersResult.getNextCursor());
         result.withResumptionToken(resumptionTokenHelper.resolve(listItemIdentifiersResult.hasMore()));
 
         return result;
@@ -111,6 +119,12 @@ public class ListIdentifiersHandler extends VerbHandler<ListIdentifiers> {
     }
 
 
+    private String getCursor(OAICompiledRequest parameters) {
+        if (!parameters.hasResumptionToken())
+            return null;
+        return parameters.getResumptionToken().getCursor();
+    }
+
     private Header createHeader(OAICompiledRequest parameters,
                                     ItemIdentifier itemIdentifier) throws BadArgumentException,
             OAIException,
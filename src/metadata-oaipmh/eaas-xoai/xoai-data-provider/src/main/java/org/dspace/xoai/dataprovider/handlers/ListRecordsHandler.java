@@ -33,6 +33,7 @@ import javax.xml.transform.TransformerException;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
 
 
@@ -49,7 +50,6 @@ public class ListRecordsHandler extends VerbHandler<ListRecords> {
 
     @Override
     public ListRecords handle(OAICompiledRequest parameters) throws OAIException, HandlerException {
-        ListRecords res = new ListRecords();
         int length = getRepository().getConfiguration().getMaxListRecords();
 
         if (parameters.hasSet() && !getRepository().getSetRepository().supportSets())
@@ -60,7 +60,14 @@ public class ListRecordsHandler extends VerbHandler<ListRecords> {
         log.debug("Getting items from data source");
         int offset = getOffset(parameters);
         ListItemsResults result;
-        if (!parameters.hasSet()) {
+        String cursor = getCursor(parameters);
+        if (itemRepositoryHelper.supportsCursors() && (cursor != null || offset == 0)) {
+            if (parameters.hasSet() && !setRepositoryHelper.exists(getContext(), parameters.getSet()))
+                throw new NoMatchesException();
+            result = itemRepositoryHelper.getItems(getContext(), cursor,
+                    length, parameters.getMetadataPrefix(), parameters.getSet(),
+                    parameters.getFrom(), parameters.getUntil());
+        } else if (!parameters.hasSet()) {
             if (parameters.hasFrom() && !parameters.hasUntil())
                 result = itemRepositoryHelper.getItems(getContext(), offset,
                         length, parameters.getMetadataPrefix(),
@@ -99,12 +106,22 @@ public class ListRecordsHandler extends VerbHandler<ListRecords> {
         }
         log.debug("Items retrieved from data source");
 
-        List<Item> results = result.getResults();
-        if (results.isEmpty()) throw new NoMatchesException();
-        log.debug("Now adding records to the OAI-PMH Output");
-        for (Item i : results)
-            res.withRecord(this.createRecord(parameters, i));
+        Iterator<Item> items = result.iterator();
+        if (!items.hasNext()) {
+            result.close();
+            throw new NoMatchesException();
+        }
 
+        ListRecords res;
+        if (result.isLazy()) {
+            // Records will be created one by one, while the response is being written
+            res = new StreamingListRecords(parameters, result, items);
+        } else {
+            log.debug("Now adding records to the OAI-PMH Output");
+            res = new ListRecords();
+            while (items.hasNext())
+                res.withRecord(this.createRecord(parameters, items.next()));
+        }
 
         ResumptionToken.Value currentResumptionToken = new ResumptionToken.Value();
         if (parameters.hasResumptionToken()) {
@@ -114,7 +131,8 @@ public class ListRecordsHandler extends VerbHandler<ListRecords> {
         }
 
         ResumptionTokenHelper resumptionTokenHelper = new ResumptionTokenHelper(currentResumptionToken,
-                getRepository().getConfiguration().getMaxListRecords());
+                getRepository().getConfiguration().getMaxListRecords())
+                .withNextCursor(result.getNextCursor());
         res.withResumptionToken(resumptionTokenHelper.resolve(result.hasMore()));
 
         return res;
@@ -129,6 +147,12 @@ public class ListRecordsHandler extends VerbHandler<ListRecords> {
         return parameters.getResumptionToken().getOffset().intValue();
     }
 
+    private String getCursor(OAICompiledRequest parameters) {
+        if (!parameters.hasResumptionToken())
+            return null;
+        return parameters.getResumptionToken().getCursor();
+    }
+
     private Record createRecord(OAICompiledRequest parameters, Item item)
             throws BadArgumentException, OAIException, NoMetadataFormatsException, CannotDisseminateFormatException {
         MetadataFormat format = getContext().formatForPrefix(parameters.getMetadataPrefix());
@@ -188,4 +212,51 @@ public class ListRecordsHandler extends VerbHandler<ListRecords> {
         writer.close();
         return new XSLPipeline(new ByteArrayInputStream(output.toByteArray()), true);
     }
+
+
+    /**
+     * ListRecords verb, whose records are created and written one by one,
+     * without keeping the complete list of records in memory.
+     */
+    private class StreamingListRecords extends ListRecords {
+        private final OAICompiledRequest parameters;
+        private final ListItemsResults result;
+        private final Iterator<Item> items;
+
+        public StreamingListRecords(OAICompiledRequest parameters, ListItemsResults result, Iterator<Item> items) {
+            this.parameters = parameters;
+            this.result = result;
+            this.items = items;
+        }
+
+        @Override
+        public List<Record> getRecords() {
+            try {
+                while (items.hasNext())
+                    records.add(createRecord(parameters, items.next()));
+            } catch (OAIException | HandlerException e) {
+                throw new InternalOAIException(e);
+            } finally {
+                result.close();
+            }
+
+            return records;
+        }
+
+        @Override
+        public void write(XmlWriter writer) throws XmlWriteException {
+            try {
+                for (Record record : records)
+                    writer.writeElement("record", record);
+                while (items.hasNext())
+                    writer.writeElement("record", createRecord(parameters, items.next()));
+            } catch (OAIException | HandlerException e) {
+                throw new XmlWriteException(e);
+            } finally {
+                result.close();
+            }
+
+            writer.writeElement("resumptionToken", resumptionToken);
+        }
+    }
 }
@@ -18,6 +18,7 @@ import org.dspace.xoai.dataprovider.handlers.results.ListItemsResults;
 import org.dspace.xoai.dataprovider.model.Context;
 import org.dspace.xoai.dataprovider.model.Item;
 import org.dspace.xoai.dataprovider.model.MetadataFormat;
+import org.dspace.xoai.dataprovider.repository.CursorItemRepository;
 import org.dspace.xoai.dataprovider.repository.ItemRepository;
 
 import java.util.ArrayList;
@@ -190,6 +191,34 @@ public class ItemRepositoryHelper {
             return itemRepository.getItems(filters, offset, length, setSpec, from, until);
     }
 
+    public boolean supportsCursors() {
+        return itemRepository instanceof CursorItemRepository;
+    }
+
+    public ListItemIdentifiersResult getItemIdentifiers(Context context, String cursor, int length,
+                                                        String metadataPrefix, String setSpec, Date from, Date until)
+            throws CannotDisseminateFormatException, OAIException {
+        List<ScopedFilter> filters = getScopedFilters(context, metadataPrefix);
+        if (setSpec != null && context.isStaticSet(setSpec)) {
+            filters.add(new ScopedFilter(context.getSet(setSpec).getCondition(), Scope.Set));
+            setSpec = null;
+        }
+
+        return ((CursorItemRepository) itemRepository).getItemIdentifiers(filters, cursor, length, setSpec, from, until);
+    }
+
+    public ListItemsResults getItems(Context context, String cursor, int length,
+                                     String metadataPrefix, String setSpec, Date from, Date until)
+            throws CannotDisseminateFormatException, OAIException {
+        List<ScopedFilter> filters = getScopedFilters(context, metadataPrefix);
+        if (setSpec != null && context.isStaticSet(setSpec)) {
+            filters.add(new ScopedFilter(context.getSet(setSpec).getCondition(), Scope.Set));
+            setSpec = null;
+        }
+
+        return ((CursorItemRepository) itemRepository).getItems(filters, cursor, length, setSpec, from, until);
+    }
+
     public Item getItem(String identifier) throws IdDoesNotExistException, OAIException {
         return itemRepository.getItem(identifier);
     }
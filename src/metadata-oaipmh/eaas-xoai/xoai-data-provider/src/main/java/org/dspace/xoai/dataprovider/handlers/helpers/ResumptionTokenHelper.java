@@ -17,6 +17,7 @@ public class ResumptionTokenHelper {
     private ResumptionToken.Value current;
     private long maxPerPage;
     private Long totalResults;
+    private String nextCursor;
 
     public ResumptionTokenHelper(ResumptionToken.Value current, long maxPerPage) {
         this.current = current;
@@ -28,11 +29,17 @@ public class ResumptionTokenHelper {
         return this;
     }
 
+    public ResumptionTokenHelper withNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+        return this;
+    }
+
     public ResumptionToken resolve (boolean hasMoreResults) {
         if (isInitialOffset() && !hasMoreResults) return null;
         else {
             if (hasMoreResults) {
-                ResumptionToken.Value next = current.next(maxPerPage);
+                ResumptionToken.Value next = current.next(maxPerPage)
+                        .withCursor(nextCursor);
                 return populate(new ResumptionToken(next));
             } else {
                 ResumptionToken resumptionToken = new ResumptionToken();
@@ -20,6 +20,7 @@ public class ListItemIdentifiersResult {
     private boolean hasMore;
     private List<ItemIdentifier> results;
     private int totalResults = -1;
+    private String nextCursor;
 
     public ListItemIdentifiersResult(boolean hasMoreResults, List<ItemIdentifier> results) {
         this.hasMore = hasMoreResults;
@@ -32,6 +33,14 @@ public class ListItemIdentifiersResult {
         this.totalResults = totalResults;
     }
 
+    /**
+     * Results with a cursor pointing after the last identifier, more results exist if it is not null.
+     */
+    public ListItemIdentifiersResult(List<ItemIdentifier> results, int totalResults, String nextCursor) {
+        this(nextCursor != null, results, totalResults);
+        this.nextCursor = nextCursor;
+    }
+
     public boolean hasMore() {
         return hasMore;
     }
@@ -47,4 +56,12 @@ public class ListItemIdentifiersResult {
     public int getTotal() {
         return this.totalResults;
     }
+
+    public boolean hasNextCursor() {
+        return nextCursor != null;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
 }
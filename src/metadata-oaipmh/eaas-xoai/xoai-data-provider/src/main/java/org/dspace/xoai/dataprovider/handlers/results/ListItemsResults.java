@@ -10,16 +10,24 @@ package org.dspace.xoai.dataprovider.handlers.results;
 
 import org.dspace.xoai.dataprovider.model.Item;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
  * @author Development @ Lyncode
  * @version 3.1.0
  */
-public class ListItemsResults {
+public class ListItemsResults implements Closeable {
     private boolean hasMore;
     private List<Item> results;
     private int totalResults = -1;
+    private String nextCursor;
+    private Iterator<Item> stream;
+    private Closeable resource;
 
     public ListItemsResults(boolean hasMoreResults, List<Item> results) {
         this.hasMore = hasMoreResults;
@@ -32,14 +40,54 @@ public class ListItemsResults {
         this.totalResults = total;
     }
 
+    /**
+     * Results with a cursor pointing after the last item, more results exist if it is not null.
+     */
+    public ListItemsResults(List<Item> results, int total, String nextCursor) {
+        this(nextCursor != null, results, total);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Lazily fetched results, allowing items to be serialized one by one.
+     * The given resource will be released once all items are consumed or the results are closed.
+     */
+    public ListItemsResults(Iterator<Item> stream, int total, String nextCursor, Closeable resource) {
+        this(nextCursor != null, null, total);
+        this.nextCursor = nextCursor;
+        this.stream = stream;
+        this.resource = resource;
+    }
+
     public boolean hasMore() {
         return hasMore;
     }
 
+    /** Returns all results, fetching all remaining items if needed */
     public List<Item> getResults() {
+        if (results == null) {
+            results = new ArrayList<Item>();
+            try {
+                while (stream.hasNext())
+                    results.add(stream.next());
+            } finally {
+                close();
+            }
+        }
+
         return results;
     }
 
+    /** Returns an iterator over all results, without fetching them eagerly */
+    public Iterator<Item> iterator() {
+        return (results != null) ? results.iterator() : stream;
+    }
+
+    /** Returns true, if results are fetched lazily */
+    public boolean isLazy() {
+        return stream != null;
+    }
+
     public boolean hasTotalResults() {
         return this.totalResults > 0;
     }
@@ -47,4 +95,26 @@ public class ListItemsResults {
     public int getTotal() {
         return this.totalResults;
     }
+
+    public boolean hasNextCursor() {
+        return nextCursor != null;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    @Override
+    public void close() {
+        if (resource == null)
+            return;
+
+        try {
+            resource.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            resource = null;
+        }
+    }
 }
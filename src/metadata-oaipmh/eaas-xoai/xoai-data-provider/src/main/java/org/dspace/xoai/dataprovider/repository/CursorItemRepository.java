@@ -0,0 +1,55 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.xoai.dataprovider.repository;
+
+import org.dspace.xoai.dataprovider.exceptions.OAIException;
+import org.dspace.xoai.dataprovider.filter.ScopedFilter;
+import org.dspace.xoai.dataprovider.handlers.results.ListItemIdentifiersResult;
+import org.dspace.xoai.dataprovider.handlers.results.ListItemsResults;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * An item repository, that supports cursor-based paging. For such repositories, the cursor-based
+ * listing methods are used instead of the offset-based ones, which avoids skipping all previous
+ * items for every page.
+ */
+public interface CursorItemRepository extends ItemRepository {
+    /**
+     * Gets a page of item identifiers, following the position of the given cursor.
+     *
+     * @param filters List of Filters <a href="https://github.com/lyncode/xoai/wiki/XOAI-Data-Provider-Architecture">details</a>
+     * @param cursor  Cursor returned with the previous page, or null for the first page
+     * @param length  Max items returned
+     * @param setSpec Set spec, may be null
+     * @param from    Date parameter, may be null
+     * @param until   Date parameter, may be null
+     * @return List of Item Identifiers, along with the cursor for the next page
+     * @throws OAIException
+     * @see <a href="client://www.openarchives.org/OAI/openarchivesprotocol.html#ListIdentifiers">List Identifiers Definition</a>
+     */
+    public ListItemIdentifiersResult getItemIdentifiers(List<ScopedFilter> filters, String cursor, int length,
+                                                        String setSpec, Date from, Date until) throws OAIException;
+
+    /**
+     * Gets a page of items, following the position of the given cursor.
+     *
+     * @param filters List of Filters <a href="https://github.com/lyncode/xoai/wiki/XOAI-Data-Provider-Architecture">details</a>
+     * @param cursor  Cursor returned with the previous page, or null for the first page
+     * @param length  Max items returned
+     * @param setSpec Set spec, may be null
+     * @param from    Date parameter, may be null
+     * @param until   Date parameter, may be null
+     * @return List of Items, along with the cursor for the next page
+     * @throws OAIException
+     * @see <a href="client://www.openarchives.org/OAI/openarchivesprotocol.html#ListRecords">List Records Definition</a>
+     */
+    public ListItemsResults getItems(List<ScopedFilter> filters, String cursor, int length,
+                                     String setSpec, Date from, Date until) throws OAIException;
+}
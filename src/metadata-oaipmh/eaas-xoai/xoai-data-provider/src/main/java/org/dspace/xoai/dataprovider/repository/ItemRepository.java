@@ -288,5 +288,4 @@ public interface ItemRepository {
      */
     public ListItemsResults getItems(List<ScopedFilter> filters,
                                      int offset, int length, String setSpec, Date from, Date until) throws OAIException;
-
 }
@@ -42,9 +42,24 @@ public class ListRecordHandler implements Source<Record> {
     private boolean ended = false;
 
     public ListRecordHandler(Context context, ListRecordsParameters parameters) {
+        this(context, parameters, null);
+    }
+
+    /**
+     * Continue a previous list-request from the given resumption token
+     */
+    public ListRecordHandler(Context context, ListRecordsParameters parameters, String resumptionToken) {
         this.context = context;
         this.parameters = parameters;
         this.client = context.getClient();
+        this.resumptionToken = resumptionToken;
+    }
+
+    /**
+     * Resumption token for the next iteration, or null if not yet known
+     */
+    public String getResumptionToken() {
+        return resumptionToken;
     }
 
     @Override
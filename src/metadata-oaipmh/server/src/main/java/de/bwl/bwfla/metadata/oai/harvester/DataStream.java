@@ -24,6 +24,7 @@ import de.bwl.bwfla.common.services.security.MachineTokenProvider;
 import de.bwl.bwfla.common.utils.ConfigHelpers;
 import de.bwl.bwfla.metadata.oai.harvester.config.BackendConfig;
 import de.bwl.bwfla.metadata.oai.harvester.config.HarvesterConfig;
+import de.bwl.bwfla.metadata.oai.harvester.config.HarvestingPlan;
 import de.bwl.bwfla.metadata.repository.api.ItemDescription;
 import de.bwl.bwfla.metadata.repository.api.ItemIdentifierDescription;
 import de.bwl.bwfla.metadata.repository.client.MetaDataRepository;
@@ -33,11 +34,11 @@ import org.dspace.xoai.model.oaipmh.MetadataFormat;
 import org.dspace.xoai.model.oaipmh.Record;
 import org.dspace.xoai.serviceprovider.ServiceProvider;
 import org.dspace.xoai.serviceprovider.client.HttpOAIClient;
-import org.dspace.xoai.serviceprovider.exceptions.BadArgumentException;
 import org.dspace.xoai.serviceprovider.exceptions.HarvestException;
 import org.dspace.xoai.serviceprovider.exceptions.IdDoesNotExistException;
 import org.dspace.xoai.serviceprovider.exceptions.InternalHarvestException;
 import org.dspace.xoai.serviceprovider.exceptions.NoMetadataFormatsException;
+import org.dspace.xoai.serviceprovider.handler.ListRecordHandler;
 import org.dspace.xoai.serviceprovider.model.Context;
 import org.dspace.xoai.serviceprovider.parameters.ListRecordsParameters;
 
@@ -49,11 +50,19 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -64,11 +73,26 @@ public class DataStream
 	private final BackendConfig.StreamConfig config;
 	private final MetaDataRepository mdrepo;
 	private final ServiceProvider service;
+	private final Executor executor;
+	private final Runnable checkpointer;
 
 	public DataStream(BackendConfig.StreamConfig config, Client http, Logger log)
+	{
+		this(config, http, Runnable::run, log);
+	}
+
+	public DataStream(BackendConfig.StreamConfig config, Client http, Executor executor, Logger log)
+	{
+		this(config, http, executor, () -> {}, log);
+	}
+
+	/** The checkpointer is called to persist the pending harvest whenever it progresses */
+	public DataStream(BackendConfig.StreamConfig config, Client http, Executor executor, Runnable checkpointer, Logger log)
 	{
 		this.log = log;
 		this.config = config;
+		this.executor = executor;
+		this.checkpointer = checkpointer;
 
 		final WebTarget endpoint = http.target(config.getSinkConfig().getBaseUrl());
 		this.mdrepo = new MetaDataRepository(endpoint, config.getSinkConfig().getSecret());
@@ -109,43 +133,68 @@ public class DataStream
 
 		log.info("Using metadata-format: " + mdprefix);
 
+		final HarvestingPlan plan = this.prepare(fromts, untilts);
 		final HarvestingResult result = new HarvestingResult(startTimestamp);
 
-		// Download and forward all records to the sink endpoint
-		log.info("Forwarding records to destination: " + sink.getBaseUrl());
-		final Iterator<Record> records = this.listRecords(mdprefix, fromts, untilts);
-		final Stream<ItemDescription> items = DataStream.toItemStream(records)
-				.peek((item) -> {
-					result.onRecordDownloaded();
+		// Harvest all unfinished partitions concurrently, forwarding records to the sink endpoint
+		final Queue<HarvestingPlan.Partition> partitions = plan.getPartitions()
+				.stream()
+				.filter((partition) -> !partition.isFinished())
+				.collect(Collectors.toCollection(ConcurrentLinkedQueue::new));
+
+		final int parallelism = Math.min(config.getMaxParallelism(), Math.max(partitions.size(), 1));
+		log.info("Forwarding records from " + partitions.size() + " partition(s) to destination: " + sink.getBaseUrl()
+				+ " (parallelism: " + parallelism + ")");
+
+		final Runnable worker = () -> {
+			try {
+				HarvestingPlan.Partition partition;
+				while ((partition = partitions.poll()) != null)
+					this.harvest(partition, mdprefix, result);
+			}
+			catch (RuntimeException error) {
+				// Stop all other workers too
+				partitions.clear();
+				throw error;
+			}
+		};
 
-					// Update latest item's timestamp
-					final Instant curts = Instant.parse(item.getIdentifier().getTimestamp());
-					if (curts.isAfter(config.getLatestItemTimestamp()))
-						config.setLatestItemTimestamp(curts);
-				});
+		final CompletableFuture<?>[] workers = new CompletableFuture<?>[parallelism];
+		for (int i = 0; i < parallelism; ++i)
+			workers[i] = CompletableFuture.runAsync(worker, executor);
 
-		// Prepare forwarding request
-		final MetaDataRepository.Items.Insert request = mdrepo.items()
-				.insert(items);
+		try {
+			CompletableFuture.allOf(workers)
+					.join();
+		}
+		catch (CompletionException error) {
+			// NOTE: progress is kept in pending plan, hence next run will resume from it!
+			final Throwable cause = error.getCause();
+			if (cause instanceof HarvestException)
+				throw (HarvestException) cause;
 
-		// Stream records to the sink endpoint
-		try (final Response response = request.execute()) {
-			if (response.getStatusInfo() == Response.Status.OK) {
-				final long durms = stopwatch.timems();
-				final long dursec = TimeUnit.MILLISECONDS.toSeconds(durms);
-				final String message = result.getNumRecordsDownloaded() + " record(s) forwarded in "
-						+ ((dursec != 0) ? (dursec + " second(s)") : (durms + " msec(s)"));
+			throw new InternalHarvestException(cause);
+		}
 
-				log.info(message);
+		// All partitions finished, advance to latest item's timestamp
+		final Instant latest = plan.getLatestItemTimestamp();
+		if (latest.isAfter(config.getLatestItemTimestamp()))
+			config.setLatestItemTimestamp(latest);
 
-				result.setDurationInSeconds(dursec);
-			}
-			else {
-				final String reason = response.getStatusInfo().getReasonPhrase();
-				throw new InternalHarvestException("Forwarding records failed with: " + reason);
-			}
-		}
+		config.setPendingHarvest(null);
+
+		final long durms = stopwatch.timems();
+		final long dursec = TimeUnit.MILLISECONDS.toSeconds(durms);
+		final String message = result.getNumRecordsDownloaded() + " record(s) forwarded in "
+				+ ((dursec != 0) ? (dursec + " second(s)") : (durms + " msec(s)"));
+
+		log.info(message);
 
+		final var stats = new HarvestingResult.StreamStats(source.getUrl(), plan.getPartitions().size(),
+				result.getNumRecordsDownloaded(), durms);
+
+		result.addStreamStats(stats);
+		result.setDurationInSeconds(dursec);
 		return result;
 	}
 
@@ -197,14 +246,109 @@ public class DataStream
 		return false;
 	}
 
-	private Iterator<Record> listRecords(String mdprefix, Instant fromts, Instant untilts) throws BadArgumentException
+	/** Resume pending harvest for the same window, or plan a new one */
+	private HarvestingPlan prepare(Instant fromts, Instant untilts)
 	{
-		final ListRecordsParameters params = new ListRecordsParameters()
-				.withMetadataPrefix(mdprefix)
-				.withFrom(new Date(fromts.toEpochMilli()))
-				.withUntil(new Date(untilts.toEpochMilli()));
+		final HarvestingPlan pending = config.getPendingHarvest();
+		if (pending != null && !pending.isFinished() && pending.getFromTimestamp().equals(fromts)) {
+			log.info("Resuming unfinished harvest for timestamp-range: " + pending.getFromTimestamp()
+					+ " -- " + pending.getUntilTimestamp());
+
+			return pending;
+		}
+
+		final HarvestingPlan plan = new HarvestingPlan(fromts, untilts, config.getNumPartitions());
+		config.setPendingHarvest(plan);
+		this.checkpoint();
+		return plan;
+	}
+
+	/** Harvest a single partition, resuming from its last checkpoint on failures */
+	private void harvest(HarvestingPlan.Partition partition, String mdprefix, HarvestingResult result)
+	{
+		final String range = partition.getFromTimestamp() + " -- " + partition.getUntilTimestamp();
+		final StopWatch stopwatch = new StopWatch();
+		final long numRecordsStart = partition.getNumRecordsDownloaded();
+
+		int numRetries = 0;
+		while (!partition.isFinished()) {
+			try {
+				// NOTE: transformers are not thread-safe, hence use a new context for every partition!
+				final ListRecordsParameters params = new ListRecordsParameters()
+						.withMetadataPrefix(mdprefix)
+						.withFrom(new Date(partition.getFromTimestamp().toEpochMilli()))
+						.withUntil(new Date(partition.getUntilTimestamp().toEpochMilli()));
+
+				final Context context = DataStream.newContext(config.getSourceConfig());
+				final ListRecordHandler handler = new ListRecordHandler(context, params, partition.getResumptionToken());
+				while (!partition.isFinished()) {
+					final List<Record> records = handler.nextIteration();
+					final Instant latest = this.forward(records);
+					final String token = (handler.endReached()) ? null : handler.getResumptionToken();
+					partition.checkpoint(token, latest, records.size());
+					result.onRecordsDownloaded(records.size());
+					this.checkpoint();
+					numRetries = 0;
+				}
+			}
+			catch (Exception error) {
+				if (++numRetries > config.getMaxNumRetries()) {
+					log.log(Level.WARNING, "Harvesting partition " + range + " failed!", error);
+					throw new CompletionException(error);
+				}
+
+				log.log(Level.WARNING, "Harvesting partition " + range + " failed, resuming from last checkpoint ("
+						+ numRetries + "/" + config.getMaxNumRetries() + ")...", error);
+
+				// Resumption tokens may have expired, hence restart partition on subsequent retries
+				if (numRetries > 1)
+					partition.rewind();
+			}
+		}
+
+		final long durms = stopwatch.timems();
+		final long count = partition.getNumRecordsDownloaded() - numRecordsStart;
+		log.info("Harvested " + count + " record(s) from partition " + range + " in " + durms + " msec(s)");
+	}
+
+	/** Persist pending harvest, so that interrupted runs can resume from it */
+	private void checkpoint()
+	{
+		try {
+			checkpointer.run();
+		}
+		catch (Exception error) {
+			log.log(Level.WARNING, "Saving harvesting checkpoint failed!", error);
+		}
+	}
+
+	/** Forward a batch of records to the sink, returns latest item's timestamp */
+	private Instant forward(List<Record> records) throws HarvestException
+	{
+		Instant latest = Instant.EPOCH;
+		if (records.isEmpty())
+			return latest;
+
+		final List<ItemDescription> items = DataStream.toItemStream(records.iterator())
+				.collect(Collectors.toList());
+
+		for (ItemDescription item : items) {
+			final Instant curts = Instant.parse(item.getIdentifier().getTimestamp());
+			if (curts.isAfter(latest))
+				latest = curts;
+		}
+
+		final MetaDataRepository.Items.Insert request = mdrepo.items()
+				.insert(items.stream());
+
+		try (final Response response = request.execute()) {
+			if (response.getStatusInfo() != Response.Status.OK) {
+				final String reason = response.getStatusInfo().getReasonPhrase();
+				throw new InternalHarvestException("Forwarding records failed with: " + reason);
+			}
+		}
 
-		return service.listRecords(params);
+		return latest;
 	}
 
 	private static Stream<ItemDescription> toItemStream(Iterator<Record> records)
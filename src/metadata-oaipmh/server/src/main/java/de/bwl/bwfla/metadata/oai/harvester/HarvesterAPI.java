@@ -162,6 +162,10 @@ public class HarvesterAPI
 				log.log(Level.WARNING, message, error);
 				return ResponseUtils.newInternalError(message, error);
 			}
+			finally {
+				// Persist checkpoints of this harvest
+				harvesters.save();
+			}
 		};
 
 		return CompletableFuture.supplyAsync(responder, executor);
@@ -33,6 +33,7 @@ import javax.ws.rs.client.Client;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
@@ -45,6 +46,16 @@ public class HarvesterBackend
 
 
 	public HarvesterBackend(StateDescription state, Client http)
+	{
+		this(state, http, Runnable::run);
+	}
+
+	public HarvesterBackend(StateDescription state, Client http, Executor executor)
+	{
+		this(state, http, executor, () -> {});
+	}
+
+	public HarvesterBackend(StateDescription state, Client http, Executor executor, Runnable checkpointer)
 	{
 		final BackendConfig config = state.getBackendConfig();
 		config.validate();
@@ -61,7 +72,7 @@ public class HarvesterBackend
 
 		for (BackendConfig.StreamConfig sc : config.getStreamConfigs()) {
 			sc.getSinkConfig().setSecret(secret);
-			streams.add(new DataStream(sc, http, log));
+			streams.add(new DataStream(sc, http, executor, checkpointer, log));
 		}
 	}
 
@@ -70,6 +81,16 @@ public class HarvesterBackend
 		this(new StateDescription(config), http);
 	}
 
+	public HarvesterBackend(BackendConfig config, Client http, Executor executor)
+	{
+		this(new StateDescription(config), http, executor);
+	}
+
+	public HarvesterBackend(BackendConfig config, Client http, Executor executor, Runnable checkpointer)
+	{
+		this(new StateDescription(config), http, executor, checkpointer);
+	}
+
 	public HarvestingResult execute() throws HarvestException
 	{
 		return this.execute(null, null);
@@ -84,11 +105,13 @@ public class HarvesterBackend
 		log.info("Starting " + streams.size() + " harvesting-stream(s)...");
 
 		// Execute all streams sequentially, since their order may be important!
+		// NOTE: each stream may harvest its own timestamp-range concurrently.
 		for (DataStream stream : streams) {
 			final Instant fts = (fromts != null) ? fromts : stream.getLatestItemTimestamp();
 			final Instant uts = (untilts != null) ? untilts : DataStream.getDefaultUntilTimestamp();
 			final HarvestingResult sr = stream.execute(fts, uts);
 			result.onRecordsDownloaded(sr.getNumRecordsDownloaded());
+			result.addStreamStats(sr.getStreamStats());
 		}
 
 		final long durms = stopwatch.timems();
@@ -28,6 +28,7 @@ import org.apache.tamaya.ConfigurationProvider;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
 import javax.ejb.ConcurrencyManagement;
 import javax.ejb.ConcurrencyManagementType;
 import javax.ejb.Singleton;
@@ -38,8 +39,10 @@ import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.Executor;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -52,10 +55,13 @@ public class HarvesterRegistry extends ObjectRegistry<HarvesterBackend>
 
 	private Client http;
 
+	@Resource(lookup = "java:jboss/ee/concurrency/executor/io")
+	private Executor executor = null;
+
 
 	public void add(BackendConfig backend)
 	{
-		this.add(new HarvesterBackend(backend, http));
+		this.add(new HarvesterBackend(backend, http, executor, this::checkpoint));
 	}
 
 
@@ -94,26 +100,49 @@ public class HarvesterRegistry extends ObjectRegistry<HarvesterBackend>
 		else log.info("Harvester backend '" + name + "' updated");
 	}
 
-	private void save()
+	/** Persist harvester's state, including checkpoints of unfinished harvests */
+	public synchronized void save()
 	{
-		final Path statepath = this.getStateDumpPath();
-
 		log.info("Saving harvester's state to file...");
-		try (final Writer writer = Files.newBufferedWriter(statepath)) {
-			final Collection<HarvesterBackend.StateDescription> backends = this.values().stream()
-					.map(HarvesterBackend::getStateDescription)
-					.collect(Collectors.toList());
+		final Path statepath = this.write();
+		log.info("Harvester's state saved to: " + statepath.toString());
+	}
 
-			final ObjectMapper mapper = new ObjectMapper()
-					.enable(SerializationFeature.INDENT_OUTPUT);
+	/** Persist harvester's state after a running harvest progressed */
+	private void checkpoint()
+	{
+		this.write();
+	}
 
-			mapper.writeValue(writer, new StateDescription(backends));
+	private synchronized Path write()
+	{
+		final Path statepath = this.getStateDumpPath();
+		try {
+			// Write to a temporary file first, to never leave a partial state behind
+			final Path tmppath = Files.createTempFile(statepath.getParent(), ".harvesters-", ".tmp");
+			try {
+				try (final Writer writer = Files.newBufferedWriter(tmppath)) {
+					final Collection<HarvesterBackend.StateDescription> backends = this.values().stream()
+							.map(HarvesterBackend::getStateDescription)
+							.collect(Collectors.toList());
+
+					final ObjectMapper mapper = new ObjectMapper()
+							.enable(SerializationFeature.INDENT_OUTPUT);
+
+					mapper.writeValue(writer, new StateDescription(backends));
+				}
+
+				Files.move(tmppath, statepath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			finally {
+				Files.deleteIfExists(tmppath);
+			}
 		}
 		catch (Exception error) {
 			throw new IllegalStateException("Saving harvester's state failed!", error);
 		}
 
-		log.info("Harvester's state saved to: " + statepath.toString());
+		return statepath;
 	}
 
 	private void restore()
@@ -137,7 +166,7 @@ public class HarvesterRegistry extends ObjectRegistry<HarvesterBackend>
 						bd.getBackendConfig()
 								.setName(name);
 
-						this.add(new HarvesterBackend(bd, http));
+						this.add(new HarvesterBackend(bd, http, executor, this::checkpoint));
 						log.info("Harvester's backend state restored: " + name);
 					});
 		}
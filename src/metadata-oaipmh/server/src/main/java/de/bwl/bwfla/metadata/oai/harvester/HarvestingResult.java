@@ -23,6 +23,8 @@ import com.fasterxml.jackson.annotation.JsonGetter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 
 public class HarvestingResult
@@ -30,12 +32,14 @@ public class HarvestingResult
 	private final String startTimestamp;
 	private int numRecordsDownloaded;
 	private int durationInSeconds;
+	private final List<StreamStats> streams;
 
 	public HarvestingResult(Instant startts)
 	{
 		this.startTimestamp = startts.toString();
 		this.numRecordsDownloaded = 0;
 		this.durationInSeconds = 0;
+		this.streams = new ArrayList<>();
 	}
 
 	@JsonGetter("start_timestamp")
@@ -56,24 +60,92 @@ public class HarvestingResult
 		return durationInSeconds;
 	}
 
+	@JsonGetter("streams")
+	public synchronized List<StreamStats> getStreamStats()
+	{
+		return streams;
+	}
+
 	@JsonIgnore
-	public HarvestingResult onRecordDownloaded()
+	public synchronized HarvestingResult onRecordDownloaded()
 	{
 		++numRecordsDownloaded;
 		return this;
 	}
 
 	@JsonIgnore
-	public HarvestingResult onRecordsDownloaded(int number)
+	public synchronized HarvestingResult onRecordsDownloaded(int number)
 	{
 		numRecordsDownloaded += number;
 		return this;
 	}
 
+	@JsonIgnore
+	public synchronized HarvestingResult addStreamStats(StreamStats stats)
+	{
+		streams.add(stats);
+		return this;
+	}
+
+	@JsonIgnore
+	public synchronized HarvestingResult addStreamStats(List<StreamStats> stats)
+	{
+		streams.addAll(stats);
+		return this;
+	}
+
 	@JsonIgnore
 	public HarvestingResult setDurationInSeconds(long duration)
 	{
 		this.durationInSeconds = (int) duration;
 		return this;
 	}
+
+
+	/** Throughput statistics of a single harvesting-stream */
+	public static class StreamStats
+	{
+		private final String source;
+		private final int numPartitions;
+		private final int numRecordsDownloaded;
+		private final long durationInMillis;
+
+		public StreamStats(String source, int numPartitions, int numRecords, long durationInMillis)
+		{
+			this.source = source;
+			this.numPartitions = numPartitions;
+			this.numRecordsDownloaded = numRecords;
+			this.durationInMillis = durationInMillis;
+		}
+
+		@JsonGetter("source")
+		public String getSource()
+		{
+			return source;
+		}
+
+		@JsonGetter("num_partitions")
+		public int getNumPartitions()
+		{
+			return numPartitions;
+		}
+
+		@JsonGetter("num_records_downloaded")
+		public int getNumRecordsDownloaded()
+		{
+			return numRecordsDownloaded;
+		}
+
+		@JsonGetter("duration_millis")
+		public long getDurationInMillis()
+		{
+			return durationInMillis;
+		}
+
+		@JsonGetter("records_per_second")
+		public double getRecordsPerSecond()
+		{
+			return (durationInMillis > 0L) ? (numRecordsDownloaded * 1000.0 / durationInMillis) : 0.0;
+		}
+	}
 }
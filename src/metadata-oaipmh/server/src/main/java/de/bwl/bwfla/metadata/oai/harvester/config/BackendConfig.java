@@ -161,6 +161,10 @@ public class BackendConfig extends BaseConfig
 		private Instant latestItemTimestamp = Instant.EPOCH;
 		private SourceConfig source = new SourceConfig();
 		private SinkConfig sink = new SinkConfig();
+		private int numPartitions = 1;
+		private int maxParallelism = 1;
+		private int maxNumRetries = 3;
+		private HarvestingPlan pending = null;
 
 		@JsonIgnore
 		public Instant getLatestItemTimestamp()
@@ -209,9 +213,61 @@ public class BackendConfig extends BaseConfig
 			this.sink = sink;
 		}
 
+		@JsonProperty(Fields.NUM_PARTITIONS)
+		public int getNumPartitions()
+		{
+			return numPartitions;
+		}
+
+		@Config(value = Fields.NUM_PARTITIONS, required = false)
+		public void setNumPartitions(int number)
+		{
+			ConfigHelpers.check(number, 1, 1024, "Number of partitions is invalid!");
+			this.numPartitions = number;
+		}
+
+		@JsonProperty(Fields.MAX_PARALLELISM)
+		public int getMaxParallelism()
+		{
+			return maxParallelism;
+		}
+
+		@Config(value = Fields.MAX_PARALLELISM, required = false)
+		public void setMaxParallelism(int number)
+		{
+			ConfigHelpers.check(number, 1, 64, "Max. parallelism is invalid!");
+			this.maxParallelism = number;
+		}
+
+		@JsonProperty(Fields.MAX_NUM_RETRIES)
+		public int getMaxNumRetries()
+		{
+			return maxNumRetries;
+		}
+
+		@Config(value = Fields.MAX_NUM_RETRIES, required = false)
+		public void setMaxNumRetries(int number)
+		{
+			ConfigHelpers.check(number, 0, 100, "Max. number of retries is invalid!");
+			this.maxNumRetries = number;
+		}
+
+		/** Checkpoints of an unfinished harvesting run, if any */
+		@JsonProperty(Fields.PENDING_HARVEST)
+		public HarvestingPlan getPendingHarvest()
+		{
+			return pending;
+		}
+
+		public void setPendingHarvest(HarvestingPlan plan)
+		{
+			this.pending = plan;
+		}
+
 		public void load(Configuration config)
 		{
 			// Configure annotated members of this instance
+			ConfigHelpers.configure(this, config);
 			ConfigHelpers.configure(source, ConfigHelpers.filter(config, Fields.SOURCE + "."));
 			ConfigHelpers.configure(sink, ConfigHelpers.filter(config, Fields.SINK + "."));
 		}
@@ -269,6 +325,10 @@ public class BackendConfig extends BaseConfig
 		private static final String URL      = "url";
 		private static final String BASE_URL = "base_url";
 		private static final String SECRET   = "secret";
+		private static final String NUM_PARTITIONS  = "num_partitions";
+		private static final String MAX_PARALLELISM = "max_parallelism";
+		private static final String MAX_NUM_RETRIES = "max_num_retries";
+		private static final String PENDING_HARVEST = "pending_harvest";
 	}
 
 	private static String sanitize(String url)
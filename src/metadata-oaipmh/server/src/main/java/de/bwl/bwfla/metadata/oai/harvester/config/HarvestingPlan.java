@@ -0,0 +1,261 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.metadata.oai.harvester.config;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSetter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/** Description of a (possibly partially completed) harvesting run, split into sub-ranges */
+public class HarvestingPlan
+{
+	private Instant from;
+	private Instant until;
+	private List<Partition> partitions = new ArrayList<>();
+
+
+	private HarvestingPlan()
+	{
+		// Default constructor
+	}
+
+	/** Split [from, until] into up to num non-overlapping sub-ranges of equal length */
+	public HarvestingPlan(Instant from, Instant until, int num)
+	{
+		this.from = from;
+		this.until = until;
+
+		// NOTE: OAI-PMH ranges are inclusive and use second-granularity!
+		final long seconds = Math.max(Duration.between(from, until).getSeconds() + 1L, 1L);
+		final long length = Math.max(seconds / Math.max(num, 1), 1L);
+		Instant start = from;
+		while (!start.isAfter(until)) {
+			Instant end = start.plusSeconds(length - 1L);
+			if (end.isAfter(until) || partitions.size() + 1 == num)
+				end = until;
+
+			partitions.add(new Partition(start, end));
+			start = end.plusSeconds(1L);
+		}
+	}
+
+	@JsonIgnore
+	public Instant getFromTimestamp()
+	{
+		return from;
+	}
+
+	@JsonIgnore
+	public Instant getUntilTimestamp()
+	{
+		return until;
+	}
+
+	@JsonProperty("from")
+	public String getFromTimestampAsString()
+	{
+		return from.toString();
+	}
+
+	@JsonSetter("from")
+	public void setFromTimestamp(String timestamp)
+	{
+		this.from = Instant.parse(timestamp);
+	}
+
+	@JsonProperty("until")
+	public String getUntilTimestampAsString()
+	{
+		return until.toString();
+	}
+
+	@JsonSetter("until")
+	public void setUntilTimestamp(String timestamp)
+	{
+		this.until = Instant.parse(timestamp);
+	}
+
+	@JsonProperty("partitions")
+	public List<Partition> getPartitions()
+	{
+		return partitions;
+	}
+
+	public void setPartitions(List<Partition> partitions)
+	{
+		this.partitions = partitions;
+	}
+
+	@JsonIgnore
+	public boolean isFinished()
+	{
+		return partitions.stream()
+				.allMatch(Partition::isFinished);
+	}
+
+	/** Latest timestamp of all harvested items */
+	@JsonIgnore
+	public Instant getLatestItemTimestamp()
+	{
+		return partitions.stream()
+				.map(Partition::getLatestItemTimestamp)
+				.max(Instant::compareTo)
+				.orElse(Instant.EPOCH);
+	}
+
+
+	/** Harvesting progress of a single sub-range */
+	public static class Partition
+	{
+		private Instant from;
+		private Instant until;
+		private String resumptionToken;
+		private Instant latestItemTimestamp = Instant.EPOCH;
+		private long numRecordsDownloaded;
+		private boolean finished;
+
+
+		private Partition()
+		{
+			// Default constructor
+		}
+
+		public Partition(Instant from, Instant until)
+		{
+			this.from = from;
+			this.until = until;
+		}
+
+		@JsonIgnore
+		public synchronized Instant getFromTimestamp()
+		{
+			return from;
+		}
+
+		@JsonIgnore
+		public Instant getUntilTimestamp()
+		{
+			return until;
+		}
+
+		@JsonProperty("from")
+		public synchronized String getFromTimestampAsString()
+		{
+			return from.toString();
+		}
+
+		@JsonSetter("from")
+		public synchronized void setFromTimestamp(String timestamp)
+		{
+			this.from = Instant.parse(timestamp);
+		}
+
+		@JsonProperty("until")
+		public String getUntilTimestampAsString()
+		{
+			return until.toString();
+		}
+
+		@JsonSetter("until")
+		public void setUntilTimestamp(String timestamp)
+		{
+			this.until = Instant.parse(timestamp);
+		}
+
+		@JsonProperty("resumption_token")
+		public synchronized String getResumptionToken()
+		{
+			return resumptionToken;
+		}
+
+		public synchronized void setResumptionToken(String token)
+		{
+			this.resumptionToken = token;
+		}
+
+		@JsonIgnore
+		public synchronized Instant getLatestItemTimestamp()
+		{
+			return latestItemTimestamp;
+		}
+
+		@JsonProperty("latest_item_timestamp")
+		public synchronized String getLatestItemTimestampAsString()
+		{
+			return latestItemTimestamp.toString();
+		}
+
+		@JsonSetter("latest_item_timestamp")
+		public synchronized void setLatestItemTimestamp(String timestamp)
+		{
+			this.latestItemTimestamp = Instant.parse(timestamp);
+		}
+
+		@JsonProperty("num_records_downloaded")
+		public synchronized long getNumRecordsDownloaded()
+		{
+			return numRecordsDownloaded;
+		}
+
+		public synchronized void setNumRecordsDownloaded(long number)
+		{
+			this.numRecordsDownloaded = number;
+		}
+
+		@JsonProperty("finished")
+		public synchronized boolean isFinished()
+		{
+			return finished;
+		}
+
+		public synchronized void setFinished(boolean finished)
+		{
+			this.finished = finished;
+		}
+
+		/** Record progress after a batch of items was forwarded */
+		public synchronized void checkpoint(String token, Instant latest, int numRecords)
+		{
+			if (latest.isAfter(latestItemTimestamp))
+				this.latestItemTimestamp = latest;
+
+			this.numRecordsDownloaded += numRecords;
+			this.resumptionToken = token;
+			this.finished = (token == null);
+		}
+
+		/**
+		 * Drop resumption token, restarting from partition's beginning instead.
+		 * NOTE: records are not returned in datestamp-order, hence continuing
+		 *       from latest harvested item could skip some remaining records!
+		 */
+		public synchronized void rewind()
+		{
+			this.resumptionToken = null;
+		}
+	}
+}
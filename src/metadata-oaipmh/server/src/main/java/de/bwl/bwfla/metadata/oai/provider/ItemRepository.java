@@ -28,6 +28,7 @@ import org.dspace.xoai.dataprovider.handlers.results.ListItemsResults;
 import org.dspace.xoai.dataprovider.model.Item;
 import org.dspace.xoai.dataprovider.model.ItemIdentifier;
 import org.dspace.xoai.dataprovider.model.Set;
+import org.dspace.xoai.dataprovider.repository.CursorItemRepository;
 import org.dspace.xoai.model.oaipmh.About;
 import org.dspace.xoai.model.oaipmh.Metadata;
 import de.bwl.bwfla.metadata.repository.api.ItemDescription;
@@ -40,12 +41,13 @@ import javax.ws.rs.core.Response;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
-public class ItemRepository implements org.dspace.xoai.dataprovider.repository.ItemRepository
+public class ItemRepository implements CursorItemRepository
 {
 	private final MetaDataRepository repository;
 
@@ -220,6 +222,20 @@ public class ItemRepository implements org.dspace.xoai.dataprovider.repository.I
 		return this.findItems(offset, length, options);
 	}
 
+	@Override
+	public ListItemIdentifiersResult getItemIdentifiers(List<ScopedFilter> filters, String cursor, int length, String setspec, Date from, Date until) throws OAIException
+	{
+		final QueryOptions options = ItemRepository.toQueryOptions(cursor, length, setspec, from, until);
+		return this.findItemIdentifiers(options);
+	}
+
+	@Override
+	public ListItemsResults getItems(List<ScopedFilter> filters, String cursor, int length, String setspec, Date from, Date until) throws OAIException
+	{
+		final QueryOptions options = ItemRepository.toQueryOptions(cursor, length, setspec, from, until);
+		return this.findItems(options);
+	}
+
 
 	// =============== Internal Helpers ==============================
 
@@ -326,6 +342,8 @@ public class ItemRepository implements org.dspace.xoai.dataprovider.repository.I
 		private List<ItemIdentifier> ids;
 		private boolean hasmore = false;
 		private int numtotal = -1;
+		private boolean cursored = false;
+		private String cursor = null;
 
 
 		public ListItemIdentifiersResultBuilder withHasMore(boolean hasmore)
@@ -346,18 +364,33 @@ public class ItemRepository implements org.dspace.xoai.dataprovider.repository.I
 			return this;
 		}
 
+		public ListItemIdentifiersResultBuilder withNextCursor(String cursor)
+		{
+			this.cursored = true;
+			this.cursor = cursor;
+			return this;
+		}
+
 		public ListItemIdentifiersResult build()
 		{
+			if (cursored)
+				return new ListItemIdentifiersResult(ids, numtotal, cursor);
+
 			return new ListItemIdentifiersResult(hasmore, ids, numtotal);
 		}
 	}
 
 	private ListItemIdentifiersResult findItemIdentifiers(int offset, int length, QueryOptions options) throws OAIException
 	{
-		try {
-			options.withOffset(offset)
-					.withCount(length);
+		options.withOffset(offset)
+				.withCount(length);
 
+		return this.findItemIdentifiers(options);
+	}
+
+	private ListItemIdentifiersResult findItemIdentifiers(QueryOptions options) throws OAIException
+	{
+		try {
 			final MetaDataRepository.ItemIdentifiers.List request = repository.identifiers()
 					.list(options);
 
@@ -369,8 +402,12 @@ public class ItemRepository implements org.dspace.xoai.dataprovider.repository.I
 						case ItemIdentifierDescriptionStream.Parts.HEADER:
 							final ItemIdentifierDescriptionStream.Header header = response.getHeader();
 							final int numtotal = header.getTotalCount();
-							result.withHasMore(offset + length < numtotal)
+							result.withHasMore(options.offset() + options.count() < numtotal)
 									.withTotalCount(numtotal);
+
+							if (options.hasCursor())
+								result.withNextCursor(header.getNextCursor());
+
 							break;
 
 						case ItemIdentifierDescriptionStream.Parts.IDENTIFIERS:
@@ -382,14 +419,16 @@ public class ItemRepository implements org.dspace.xoai.dataprovider.repository.I
 							break;
 
 						default:
-							// TODO: fail with more info!
-							throw new IllegalStateException("Unexpected JSON token found: " + part);
+							throw ItemRepository.unexpected(part);
 					}
 				}
 
 				return result.build();
 			}
 		}
+		catch (OAIException error) {
+			throw error;
+		}
 		catch (Exception error) {
 			throw new OAIException(error);
 		}
@@ -425,16 +464,88 @@ public class ItemRepository implements org.dspace.xoai.dataprovider.repository.I
 							break;
 
 						default:
-							// TODO: fail with more info!
-							throw new IllegalStateException("Unexpected JSON token found: " + part);
+							throw ItemRepository.unexpected(part);
 					}
 				}
 
 				return result.build();
 			}
 		}
+		catch (OAIException error) {
+			throw error;
+		}
+		catch (Exception error) {
+			throw new OAIException(error);
+		}
+	}
+
+	private ListItemsResults findItems(QueryOptions options) throws OAIException
+	{
+		final MetaDataRepository.Items.List request = repository.items()
+				.list(options);
+
+		// Send HTTP request and parse streaming response lazily...
+		ItemDescriptionStream response = null;
+		try {
+			response = request.execute();
+
+			int numtotal = -1;
+			String cursor = null;
+			for (String part : response) {
+				switch (part) {
+					case ItemDescriptionStream.Parts.HEADER:
+						final ItemDescriptionStream.Header header = response.getHeader();
+						numtotal = header.getTotalCount();
+						cursor = header.getNextCursor();
+						break;
+
+					case ItemDescriptionStream.Parts.ITEMS:
+						// Items are the last part, they will be mapped one by one when consumed
+						final Iterator<Item> items = response.getItemStream()
+								.map(ITEM_MAPPER)
+								.iterator();
+
+						return new ListItemsResults(items, numtotal, cursor, response::close);
+
+					default:
+						throw ItemRepository.unexpected(part);
+				}
+			}
+
+			response.close();
+			return new ListItemsResults(new ArrayList<>(), numtotal, cursor);
+		}
 		catch (Exception error) {
+			if (response != null)
+				response.close();
+
+			if (error instanceof OAIException)
+				throw (OAIException) error;
+
 			throw new OAIException(error);
 		}
 	}
+
+	private static OAIException unexpected(String part)
+	{
+		return new OAIException("Invalid response from metadata-repository, unexpected part: " + part);
+	}
+
+	private static QueryOptions toQueryOptions(String cursor, int length, String setspec, Date from, Date until)
+	{
+		final QueryOptions options = new QueryOptions()
+				.withCursor((cursor != null) ? cursor : QueryOptions.FIRST_CURSOR)
+				.withCount(length);
+
+		if (setspec != null)
+			options.withSetSpec(setspec);
+
+		if (from != null)
+			options.withFrom(from);
+
+		if (until != null)
+			options.withUntil(until);
+
+		return options;
+	}
 }
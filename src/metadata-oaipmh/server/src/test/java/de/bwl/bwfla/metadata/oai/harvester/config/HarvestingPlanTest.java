@@ -0,0 +1,143 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.bwl.bwfla.metadata.oai.harvester.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+
+public class HarvestingPlanTest
+{
+	private static final Instant FROM = Instant.parse("2020-01-01T00:00:00Z");
+	private static final Instant UNTIL = Instant.parse("2020-01-01T00:59:59Z");
+
+
+	@Test
+	public void testPartitionsCoverRange()
+	{
+		for (int num : new int[] { 1, 2, 3, 4, 7, 16 }) {
+			final var partitions = new HarvestingPlan(FROM, UNTIL, num)
+					.getPartitions();
+
+			Assert.assertEquals(num, partitions.size());
+			HarvestingPlanTest.check(partitions, FROM, UNTIL);
+		}
+	}
+
+	@Test
+	public void testShortRangeIsSplitBySeconds()
+	{
+		final var until = FROM.plusSeconds(2L);
+		final var partitions = new HarvestingPlan(FROM, until, 8)
+				.getPartitions();
+
+		Assert.assertEquals(3, partitions.size());
+		HarvestingPlanTest.check(partitions, FROM, until);
+
+		final var single = new HarvestingPlan(FROM, FROM, 4)
+				.getPartitions();
+
+		Assert.assertEquals(1, single.size());
+		HarvestingPlanTest.check(single, FROM, FROM);
+	}
+
+	@Test
+	public void testCheckpoints()
+	{
+		final var plan = new HarvestingPlan(FROM, UNTIL, 2);
+		final var partition = plan.getPartitions().get(0);
+		final var latest = FROM.plusSeconds(60L);
+
+		partition.checkpoint("token-1", latest, 10);
+		partition.checkpoint("token-2", FROM.plusSeconds(30L), 5);
+		Assert.assertEquals("token-2", partition.getResumptionToken());
+		Assert.assertEquals(latest, partition.getLatestItemTimestamp());
+		Assert.assertEquals(latest, plan.getLatestItemTimestamp());
+		Assert.assertEquals(15L, partition.getNumRecordsDownloaded());
+		Assert.assertFalse(partition.isFinished());
+
+		partition.checkpoint(null, FROM, 0);
+		Assert.assertTrue(partition.isFinished());
+		Assert.assertFalse(plan.isFinished());
+	}
+
+	@Test
+	public void testRewindRestartsPartition()
+	{
+		final var partition = new HarvestingPlan(FROM, UNTIL, 1)
+				.getPartitions()
+				.get(0);
+
+		// records are not ordered by datestamp, hence latest item can't be a lower bound
+		partition.checkpoint("token-1", UNTIL.minusSeconds(60L), 10);
+		partition.rewind();
+
+		Assert.assertNull(partition.getResumptionToken());
+		Assert.assertEquals(FROM, partition.getFromTimestamp());
+		Assert.assertEquals(UNTIL, partition.getUntilTimestamp());
+		Assert.assertEquals(10L, partition.getNumRecordsDownloaded());
+		Assert.assertFalse(partition.isFinished());
+	}
+
+	@Test
+	public void testRewoundPlanIsRestoredFromCheckpoint() throws Exception
+	{
+		final var plan = new HarvestingPlan(FROM, UNTIL, 3);
+		final var partition = plan.getPartitions().get(1);
+		final var from = partition.getFromTimestamp();
+		partition.checkpoint("token-1", partition.getUntilTimestamp(), 10);
+		partition.rewind();
+		plan.getPartitions().get(2).checkpoint(null, UNTIL, 5);
+
+		final var mapper = new ObjectMapper();
+		final var restored = mapper.readValue(mapper.writeValueAsString(plan), HarvestingPlan.class);
+		Assert.assertEquals(FROM, restored.getFromTimestamp());
+		Assert.assertEquals(UNTIL, restored.getUntilTimestamp());
+		HarvestingPlanTest.check(restored.getPartitions(), FROM, UNTIL);
+
+		final var rewound = restored.getPartitions().get(1);
+		Assert.assertEquals(from, rewound.getFromTimestamp());
+		Assert.assertNull(rewound.getResumptionToken());
+		Assert.assertEquals(10L, rewound.getNumRecordsDownloaded());
+		Assert.assertFalse(rewound.isFinished());
+		Assert.assertTrue(restored.getPartitions().get(2).isFinished());
+		Assert.assertEquals(UNTIL, restored.getLatestItemTimestamp());
+	}
+
+
+	// ===== Internal Helpers ==============================
+
+	/** Partitions must be contiguous and non-overlapping, covering [from, until] */
+	private static void check(List<HarvestingPlan.Partition> partitions, Instant from, Instant until)
+	{
+		Instant expected = from;
+		for (var partition : partitions) {
+			Assert.assertEquals(expected, partition.getFromTimestamp());
+			Assert.assertFalse(partition.getUntilTimestamp().isBefore(partition.getFromTimestamp()));
+			expected = partition.getUntilTimestamp().plusSeconds(1L);
+		}
+
+		Assert.assertEquals(until, partitions.get(partitions.size() - 1).getUntilTimestamp());
+	}
+}
@@ -72,10 +72,12 @@ public class ItemDescriptionStream extends JsonReader
 	public static class Header implements IJsonStreamable
 	{
 		private int totalCount;
+		private String nextCursor;
 
 		public Header()
 		{
 			this.totalCount = -1;
+			this.nextCursor = null;
 		}
 
 		public int getTotalCount()
@@ -89,6 +91,18 @@ public class ItemDescriptionStream extends JsonReader
 			return this;
 		}
 
+		/** Cursor for listing the next page, or null if no more items exist */
+		public String getNextCursor()
+		{
+			return nextCursor;
+		}
+
+		public Header setNextCursor(String cursor)
+		{
+			this.nextCursor = cursor;
+			return this;
+		}
+
 		@Override
 		public void write(JsonGenerator json, String objname) throws JsonException
 		{
@@ -97,6 +111,9 @@ public class ItemDescriptionStream extends JsonReader
 			else json.writeStartObject();
 
 			json.write(Fields.TOTAL_COUNT, this.getTotalCount());
+			if (nextCursor != null)
+				json.write(Fields.NEXT_CURSOR, nextCursor);
+
 			json.writeEnd();
 		}
 
@@ -104,7 +121,8 @@ public class ItemDescriptionStream extends JsonReader
 		{
 			try {
 				return new Header()
-						.setTotalCount(json.getInt(Fields.TOTAL_COUNT));
+						.setTotalCount(json.getInt(Fields.TOTAL_COUNT))
+						.setNextCursor(json.getString(Fields.NEXT_CURSOR, null));
 			}
 			catch (Exception error) {
 				throw new JsonException("Constructing object failed!", error);
@@ -140,6 +158,7 @@ public class ItemDescriptionStream extends JsonReader
 	private static final class Fields
 	{
 		static final String TOTAL_COUNT = "total_count";
+		static final String NEXT_CURSOR = "next_cursor";
 	}
 
 	private ItemDescriptionStream(InputStream istream)
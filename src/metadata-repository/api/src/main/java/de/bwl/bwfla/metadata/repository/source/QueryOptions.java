@@ -29,6 +29,10 @@ public class QueryOptions
 	private long from;
 	private long until;
 	private String setspec;
+	private String cursor;
+
+	/** Cursor pointing before the first item of a cursor-based listing */
+	public static final String FIRST_CURSOR = "*";
 
 	public QueryOptions()
 	{
@@ -37,6 +41,7 @@ public class QueryOptions
 		this.from = Defaults.FROM;
 		this.until = Defaults.UNTIL;
 		this.setspec = null;
+		this.cursor = null;
 	}
 
 	public static class Defaults
@@ -75,6 +80,11 @@ public class QueryOptions
 		return setspec;
 	}
 
+	public String cursor()
+	{
+		return cursor;
+	}
+
 
 	// ===== Setters ===============
 
@@ -120,6 +130,13 @@ public class QueryOptions
 		return this;
 	}
 
+	/** List items after given cursor, instead of skipping the first offset items */
+	public QueryOptions withCursor(String cursor)
+	{
+		this.cursor = cursor;
+		return this;
+	}
+
 
 	// ===== Checkers ===============
 
@@ -147,4 +164,9 @@ public class QueryOptions
 	{
 		return setspec != null;
 	}
+
+	public boolean hasCursor()
+	{
+		return cursor != null;
+	}
 }
@@ -319,6 +319,7 @@ public class MetaDataRepository
 		target = MetaDataRepository.addQueryParam(target, HttpDefs.QueryParams.FROM, options.from(), options.hasFrom());
 		target = MetaDataRepository.addQueryParam(target, HttpDefs.QueryParams.UNTIL, options.until(), options.hasUntil());
 		target = MetaDataRepository.addQueryParam(target, HttpDefs.QueryParams.SETSPEC, options.setspec(), options.hasSetSpec());
+		target = MetaDataRepository.addQueryParam(target, HttpDefs.QueryParams.CURSOR, options.cursor(), options.hasCursor());
 
 		return target;
 	}
@@ -33,6 +33,7 @@ import de.bwl.bwfla.metadata.repository.source.ItemIdentifierSource;
 import de.bwl.bwfla.metadata.repository.source.ItemSource;
 import de.bwl.bwfla.metadata.repository.source.QueryOptions;
 import de.bwl.bwfla.metadata.repository.source.MetaDataSource;
+import de.bwl.bwfla.metadata.repository.source.Page;
 import de.bwl.bwfla.metadata.repository.source.SetSource;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -195,15 +196,16 @@ public class MetaDataRepositoryAPI implements IMetaDataRepositoryAPI
 		{
 			final QueryOptions options = MetaDataRepositoryAPI.getQueryOptions(request);
 
-			final BiFunction<Stream<ItemIdentifierDescription>, Integer, Response> responder = (descriptions, totalcount) -> {
+			final BiFunction<Page<ItemIdentifierDescription>, Integer, Response> responder = (page, totalcount) -> {
 				// Streaming response writer
 				final StreamingOutput streamer = (output) -> {
 					try (final ItemIdentifierDescriptionStream.Writer writer = new ItemIdentifierDescriptionStream.Writer(output)) {
 						final ItemIdentifierDescriptionStream.Header header = new ItemIdentifierDescriptionStream.Header()
-								.setTotalCount(totalcount);
+								.setTotalCount(totalcount)
+								.setNextCursor(page.cursor());
 
 						writer.write(header)
-								.write(descriptions);
+								.write(page.items());
 					}
 					catch (Exception error) {
 						throw new IOException("Serializing stream of identifier-descriptions failed!", error);
@@ -222,7 +224,7 @@ public class MetaDataRepositoryAPI implements IMetaDataRepositoryAPI
 			};
 
 			// Count and list identifier-descriptions in parallel
-			return ids.list(options)
+			return ids.page(options)
 					.thenCombine(ids.count(options), responder);
 		}
 	}
@@ -252,15 +254,16 @@ public class MetaDataRepositoryAPI implements IMetaDataRepositoryAPI
 
 			final QueryOptions options = MetaDataRepositoryAPI.getQueryOptions(request);
 
-			final BiFunction<Stream<ItemDescription>, Integer, Response> responder = (descriptions, totalcount) -> {
+			final BiFunction<Page<ItemDescription>, Integer, Response> responder = (page, totalcount) -> {
 				// Streaming response writer
 				final StreamingOutput streamer = (output) -> {
 					try (final ItemDescriptionStream.Writer writer = new ItemDescriptionStream.Writer(output)) {
 						final ItemDescriptionStream.Header header = new ItemDescriptionStream.Header()
-								.setTotalCount(totalcount);
+								.setTotalCount(totalcount)
+								.setNextCursor(page.cursor());
 
 						writer.write(header)
-								.write(descriptions);
+								.write(page.items());
 					}
 					catch (Exception error) {
 						throw new IOException("Serializing stream of item-descriptions failed!", error);
@@ -279,7 +282,7 @@ public class MetaDataRepositoryAPI implements IMetaDataRepositoryAPI
 			};
 
 			// Count and list item-descriptions in parallel
-			return source.list(options)
+			return source.page(options)
 					.thenCombine(source.count(options), responder);
 		}
 
@@ -358,11 +361,17 @@ public class MetaDataRepositoryAPI implements IMetaDataRepositoryAPI
 
 	private static QueryOptions getQueryOptions(HttpServletRequest request)
 	{
-		return new QueryOptions()
+		final QueryOptions options = new QueryOptions()
 				.withOffset(MetaDataRepositoryAPI.getIntParam(request, HttpDefs.QueryParams.OFFSET, QueryOptions.Defaults.OFFSET))
 				.withCount(MetaDataRepositoryAPI.getIntParam(request, HttpDefs.QueryParams.COUNT, QueryOptions.Defaults.COUNT))
 				.withFrom(MetaDataRepositoryAPI.getLongParam(request, HttpDefs.QueryParams.FROM, QueryOptions.Defaults.FROM))
 				.withUntil(MetaDataRepositoryAPI.getLongParam(request, HttpDefs.QueryParams.UNTIL, QueryOptions.Defaults.UNTIL))
-				.withSetSpec(MetaDataRepositoryAPI.getStringParam(request, HttpDefs.QueryParams.SETSPEC, null));
+				.withSetSpec(MetaDataRepositoryAPI.getStringParam(request, HttpDefs.QueryParams.SETSPEC, null))
+				.withCursor(MetaDataRepositoryAPI.getStringParam(request, HttpDefs.QueryParams.CURSOR, null));
+
+		if (options.hasCursor() && options.hasOffset())
+			throw new BadRequestException("Offsets are not supported with cursor-based paging!");
+
+		return options;
 	}
 }
@@ -32,4 +32,22 @@ public interface ItemSource
 	CompletableFuture<Stream<ItemDescription>> list(QueryOptions options);
 
 	CompletableFuture<Integer> count(QueryOptions options);
+
+	/**
+	 * List a page of items following options' cursor. Sources supporting keyset-based
+	 * paging should override this, by default cursors are emulated using offsets.
+	 */
+	default CompletableFuture<Page<ItemDescription>> page(QueryOptions options)
+	{
+		if (!options.hasCursor()) {
+			return this.list(options)
+					.thenApply(Page::new);
+		}
+
+		final int offset = Page.toOffset(options.cursor());
+		options.withOffset(offset);
+
+		return this.list(options)
+				.thenCombine(this.count(options), (items, total) -> new Page<>(items, Page.next(offset, options.count(), total)));
+	}
 }
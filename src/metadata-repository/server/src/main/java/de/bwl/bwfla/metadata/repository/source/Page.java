@@ -0,0 +1,82 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.bwl.bwfla.metadata.repository.source;
+
+import java.util.stream.Stream;
+
+
+/** A page of listed items, along with the cursor for the next page */
+public class Page<T>
+{
+	private final Stream<T> items;
+	private final String cursor;
+
+	/** Page without a cursor, used for offset-based listings */
+	public Page(Stream<T> items)
+	{
+		this(items, null);
+	}
+
+	public Page(Stream<T> items, String cursor)
+	{
+		this.items = items;
+		this.cursor = cursor;
+	}
+
+	public Stream<T> items()
+	{
+		return items;
+	}
+
+	/** Cursor pointing after this page's last item, or null if no more items exist */
+	public String cursor()
+	{
+		return cursor;
+	}
+
+
+	// ========== Internal Helpers ==============================
+
+	private static final String OFFSET_CURSOR_PREFIX = "offset:";
+
+	/** Convert an offset-based cursor to the offset it represents */
+	static int toOffset(String cursor)
+	{
+		if (QueryOptions.FIRST_CURSOR.equals(cursor))
+			return 0;
+
+		if (!cursor.startsWith(OFFSET_CURSOR_PREFIX))
+			throw new IllegalArgumentException("Invalid cursor: " + cursor);
+
+		try {
+			return Integer.parseInt(cursor.substring(OFFSET_CURSOR_PREFIX.length()));
+		}
+		catch (NumberFormatException error) {
+			throw new IllegalArgumentException("Invalid cursor: " + cursor, error);
+		}
+	}
+
+	/** Offset-based cursor for the page following given one */
+	static String next(int offset, int count, int total)
+	{
+		final long next = (long) offset + count;
+		return (next < total) ? OFFSET_CURSOR_PREFIX + next : null;
+	}
+}
@@ -22,6 +22,7 @@ package de.bwl.bwfla.objectarchive.conf;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
@@ -29,6 +30,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.ejb.Singleton;
 import javax.ejb.Startup;
 import javax.enterprise.event.Observes;
@@ -133,6 +135,26 @@ public class ObjectArchiveSingleton
 		}
 	}
 
+	@PreDestroy
+	public void destroy()
+	{
+		final var archives = new HashSet<DigitalObjectArchive>();
+		if (archiveMap != null)
+			archives.addAll(archiveMap.values());
+
+		if (userArchiveMap != null)
+			archives.addAll(userArchiveMap.values());
+
+		for (final var archive : archives) {
+			try {
+				archive.close();
+			}
+			catch (Exception error) {
+				LOG.log(Level.WARNING, "Closing object archive '" + archive.getName() + "' failed!", error);
+			}
+		}
+	}
+
 	public boolean validate()
 	{
 		if(objArchiveConfDir == null || httpExport == null)
@@ -278,7 +300,7 @@ public class ObjectArchiveSingleton
 
 		// execute migration for legacy zero-conf archive (file-based) too
 		if (!(archiveMap.get(ZEROCONF_ARCHIVE_NAME) instanceof DigitalObjectFileArchive))
-			migration.handle(new DigitalObjectFileArchive(ZEROCONF_ARCHIVE_NAME, defaultLocalFilePath, false));
+			this.execute(migration, new DigitalObjectFileArchive(ZEROCONF_ARCHIVE_NAME, defaultLocalFilePath, false));
 
 		// NOTE: user-private archives are dynamically registered on-demand, hence
 		//       execute migration on a temporary instance for each known user!
@@ -287,7 +309,18 @@ public class ObjectArchiveSingleton
 			if (archiveMap.containsKey(name))
 				continue;  // skip registered archives!
 
-			migration.handle(new DigitalObjectUserFileArchive(name));
+			this.execute(migration, new DigitalObjectUserFileArchive(name));
+		}
+	}
+
+	private void execute(IHandler<DigitalObjectArchive> migration, DigitalObjectArchive archive) throws Exception
+	{
+		// temporary instances must be released after migration
+		try {
+			migration.handle(archive);
+		}
+		finally {
+			archive.close();
 		}
 	}
 
@@ -78,6 +78,12 @@ public interface DigitalObjectArchive
 		// Empty!
 	}
 
+	/** Release all resources held by this archive */
+	default void close()
+	{
+		// Empty!
+	}
+
 	default void updateLabel(String objectId, String newLabel) throws BWFLAException
 	{
 		throw new NotImplementedException("This archive does not support updating the label.");
@@ -30,9 +30,13 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.Arrays;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -40,6 +44,7 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -61,6 +66,9 @@ import gov.loc.mets.MetsType;
 import org.apache.commons.io.FileUtils;
 import org.apache.tamaya.ConfigurationProvider;
 import org.apache.tamaya.inject.ConfigurationInjection;
+import org.apache.tamaya.inject.api.Config;
+
+import javax.inject.Inject;
 
 import de.bwl.bwfla.common.exceptions.BWFLAException;
 import de.bwl.bwfla.emucomp.api.Binding.ResourceType;
@@ -85,8 +93,20 @@ public class DigitalObjectFileArchive extends DigitalObjectArchiveBase implement
 
 	protected ObjectFileFilter objectFileFilter = new ObjectFileFilter();
 
+	private ObjectMetadataCache metadataCache;
+
+	@Inject
+	@Config(value="objectarchive.metadata_cache_capacity")
+	private int metadataCacheCapacity;
+
+	@Inject
+	@Config(value="objectarchive.metadata_cache_watch")
+	private boolean metadataCacheWatch;
+
 	private static final String METS_MD_FILENAME = "mets.xml";
+	private static final String THUMBNAIL_FILENAME = "thumbnail.jpeg";
 	private static final String PACKED_FILES_ISO_FILENAME = "packed-files.iso";
+	private static final int METADATA_BATCH_SIZE = 64;
 
 
 	/**
@@ -132,6 +152,16 @@ public class DigitalObjectFileArchive extends DigitalObjectArchiveBase implement
 		this.defaultArchive = defaultArchive;
 		this.exportUrlPrefix = httpExport + URLEncoder.encode(name, StandardCharsets.UTF_8);
 		ConfigurationInjection.getConfigurationInjector().configure(this);
+
+		this.metadataCache = new ObjectMetadataCache(metadataCacheCapacity, log);
+		if (metadataCacheWatch && Files.isDirectory(this.getLocalPath())) {
+			try {
+				metadataCache.watch(this.getLocalPath());
+			}
+			catch (IOException error) {
+				log.log(Level.WARNING, "Watching object-archive's directory failed!", error);
+			}
+		}
 	}
 
 	private static String strSaveFilename(String filename)
@@ -192,11 +222,11 @@ public class DigitalObjectFileArchive extends DigitalObjectArchiveBase implement
 			throw new BWFLAException("objectDir " + localPath + " does not exist");
 		}
 		Path targetDir = objectDir.toPath().resolve(id);
-		Path target = targetDir.resolve("thumbnail.jpeg");
+		Path target = targetDir.resolve(THUMBNAIL_FILENAME);
 		if(!Files.exists(target))
 			return null;
 
-		return "thumbnail.jpeg";
+		return THUMBNAIL_FILENAME;
 	}
 
 	public void importObjectThumbnail(FileCollectionEntry resource) throws BWFLAException
@@ -213,7 +243,7 @@ public class DigitalObjectFileArchive extends DigitalObjectArchiveBase implement
 			}
 		}
 
-		Path target = targetDir.resolve("thumbnail.jpeg");
+		Path target = targetDir.resolve(THUMBNAIL_FILENAME);
 		if(Files.exists(target))
 			return;
 		EmulatorUtils.copyRemoteUrl(resource, target, log);
@@ -292,7 +322,7 @@ public class DigitalObjectFileArchive extends DigitalObjectArchiveBase implement
 	public void updateLabel(String objectId, String newLabel) throws BWFLAException
 	{
 		log.info("Updating label for object " + objectId + " to '" + newLabel + "'");
-		var mo = loadMetsData(objectId);
+		var mo = readMetsData(objectId);
 		mo.setLabel(newLabel);
 		writeMetsFile(mo.getMets());
 	}
@@ -375,6 +405,9 @@ public class DigitalObjectFileArchive extends DigitalObjectArchiveBase implement
 			e.printStackTrace();
 			throw new BWFLAException(e);
 		}
+		finally {
+			metadataCache.remove(objectId);
+		}
 	}
 
 	private Mets fromFileCollection(String objectId, FileCollection fc) throws BWFLAException {
@@ -436,6 +469,9 @@ public class DigitalObjectFileArchive extends DigitalObjectArchiveBase implement
 			e.printStackTrace();
 			throw new BWFLAException(e);
 		}
+		finally {
+			metadataCache.remove(m.getID());
+		}
 	}
 
 	@Override
@@ -582,24 +618,29 @@ public class DigitalObjectFileArchive extends DigitalObjectArchiveBase implement
 
 	@Override
 	public DigitalObjectMetadata getMetadata(String objectId) throws BWFLAException {
+		final var entry = this.lookupMetsData(objectId);
+		final var cached = entry.metadata();
+		if (cached != null)
+			return cached.clone();
 
 		// NOTE: METS file URLs need to stay absolute for now!
 		final var metsExportPrefix = exportUrlPrefix + "/" + objectId + "/";
+		final BiFunction<String, String, String> prefixer = (id, url) -> metsExportPrefix + url;
+
+		// NOTE: cached METS must not be modified, hence export a copy!
+		Mets m = MetsUtil.export(entry.mets().getMets(), prefixer, true);
+		if (m == null)
+			throw new BWFLAException("Exporting METS metadata for object '" + objectId + "' failed!");
 
-		MetsObject o = loadMetsData(objectId);
-		Mets m = MetsUtil.export(o.getMets(), metsExportPrefix);
 		DigitalObjectMetadata md = new DigitalObjectMetadata(m);
 
-		String thumb = null;
-		try {
-			thumb = getThumbnail(objectId);
-		} catch (BWFLAException e) {
-			log.log(Level.WARNING, e.getMessage(), e);
-		}
-		if (thumb != null)
-			md.setThumbnail(thumb);
+		// thumbnail's stamp is recorded as second entry
+		if (entry.stamp().exists(1))
+			md.setThumbnail(THUMBNAIL_FILENAME);
 
-		return md;
+		// NOTE: cached metadata is shared, hence return a copy!
+		entry.setMetadata(md);
+		return md.clone();
 	}
 
 	@Override
@@ -608,7 +649,36 @@ public class DigitalObjectFileArchive extends DigitalObjectArchiveBase implement
 		return getMetadata(objectId);
 	}
 
+	/** Load cached METS metadata, which must not be modified */
 	private MetsObject loadMetsData(String objectId) throws BWFLAException {
+		return this.lookupMetsData(objectId)
+				.mets();
+	}
+
+	private ObjectMetadataCache.Entry lookupMetsData(String objectId) throws BWFLAException {
+		Path targetDir = resolveMetadatTarget(objectId);
+		Path metsPath = targetDir.resolve(METS_MD_FILENAME);
+
+		final ObjectMetadataCache.Stamp stamp;
+		try {
+			stamp = ObjectMetadataCache.Stamp.of(metsPath, targetDir.resolve(THUMBNAIL_FILENAME));
+		}
+		catch (IOException error) {
+			throw new BWFLAException("Reading METS metadata for object '" + objectId + "' failed!", error);
+		}
+
+		if (!stamp.exists(0))
+			throw new BWFLAException("METS metadata for object '" + objectId + "' not found!");
+
+		final var entry = metadataCache.get(objectId, stamp);
+		if (entry != null)
+			return entry;
+
+		return metadataCache.put(objectId, stamp, new MetsObject(metsPath.toFile()));
+	}
+
+	/** Read a private copy of METS metadata, bypassing the cache */
+	private MetsObject readMetsData(String objectId) throws BWFLAException {
 		Path targetDir = resolveMetadatTarget(objectId);
 		Path metsPath = targetDir.resolve(METS_MD_FILENAME);
 		if (!Files.exists(metsPath))
@@ -620,20 +690,57 @@ public class DigitalObjectFileArchive extends DigitalObjectArchiveBase implement
 
 	@Override
 	public Stream<DigitalObjectMetadata> getObjectMetadata() {
+		final var ids = this.getObjectIds();
+		final var iterator = ids.iterator();
+
+		// load uncached metadata lazily in parallel batches, preserving the listing order
+		final var batches = new Iterator<List<DigitalObjectMetadata>>() {
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public List<DigitalObjectMetadata> next() {
+				if (!iterator.hasNext())
+					throw new NoSuchElementException();
 
-		final Function<String, DigitalObjectMetadata> mapper = (id) -> {
+				final var batch = new ArrayList<String>(METADATA_BATCH_SIZE);
+				while (batch.size() < METADATA_BATCH_SIZE && iterator.hasNext())
+					batch.add(iterator.next());
+
+				return DigitalObjectFileArchive.this.loadMetadata(batch);
+			}
+		};
+
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED), false)
+				.flatMap(List::stream)
+				.onClose(ids::close);
+	}
+
+	private List<DigitalObjectMetadata> loadMetadata(List<String> ids) {
+		final var objects = new DigitalObjectMetadata[ids.size()];
+		final Consumer<Integer> loader = (index) -> {
+			final var id = ids.get(index);
 			try {
-				return this.getMetadata(id);
+				objects[index] = this.getMetadata(id);
 			}
 			catch (Exception error) {
-				log.log(Level.WARNING, "Reading object's metadata failed!", error);
-				return null;
+				log.log(Level.WARNING, "Reading metadata for object '" + id + "' failed!", error);
 			}
 		};
 
-		return this.getObjectIds()
-				.map(mapper)
-				.filter(Objects::nonNull);
+		try {
+			ParallelProcessors.consumer(loader)
+					.consume(IntStream.range(0, ids.size()).boxed(), ObjectArchiveSingleton.executor());
+		}
+		catch (Exception error) {
+			log.log(Level.WARNING, "Reading objects' metadata failed!", error);
+		}
+
+		return Arrays.stream(objects)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
 	}
 
 	@Override
@@ -665,6 +772,11 @@ public class DigitalObjectFileArchive extends DigitalObjectArchiveBase implement
 		return -1;
 	}
 
+	@Override
+	public void close() {
+		metadataCache.close();
+	}
+
 	public static class ObjectFileFilter
 	{
 		public FileFilter ISO_FILE_FILTER = new NullFileFilter();
@@ -745,7 +857,7 @@ public class DigitalObjectFileArchive extends DigitalObjectArchiveBase implement
 
 		final Consumer<String> fixer = (objectId) -> {
 			try {
-				final var mets = this.loadMetsData(objectId)
+				final var mets = this.readMetsData(objectId)
 						.getMets();
 
 				var fsec = mets.getFileSec();
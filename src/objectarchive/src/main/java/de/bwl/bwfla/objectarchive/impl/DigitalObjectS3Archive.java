@@ -65,7 +65,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -86,12 +85,24 @@ public class DigitalObjectS3Archive extends DigitalObjectArchiveBase implements
 	private String basename;
 	private String basepath;
 	private DriveMapper driveMapper;
-	private Map<String, MetsObject> cache;
+	private MetsMetadataCache cache;
 
 	@Inject
 	@Config(value="objectarchive.temp_directory")
 	public String tempImportDirectory;
 
+	@Inject
+	@Config(value="objectarchive.mets_cache_directory")
+	public String metsCacheDirectory;
+
+	@Inject
+	@Config(value="objectarchive.mets_cache_capacity")
+	public int metsCacheCapacity;
+
+	@Inject
+	@Config(value="objectarchive.mets_download_tasks")
+	public int metsDownloadTasks;
+
 	private static final String METS_MD_FILENAME = "mets.xml";
 	private static final String THUMBNAIL_FILENAME = "thumbnail.jpeg";
 	private static final String PACKED_FILES_ISO_FILENAME = "packed-files.iso";
@@ -136,21 +147,37 @@ public class DigitalObjectS3Archive extends DigitalObjectArchiveBase implements
 		log.getContext()
 				.add("name", basename);
 
+		final var cachedir = Path.of(metsCacheDirectory, bucket.name(), basepath);
+		this.cache = new MetsMetadataCache(cachedir, metsCacheCapacity, log);
 		this.driveMapper = new DriveMapper();
-		this.cache = this.load();
+		this.load();
 	}
 
-	private Map<String, MetsObject> load()
+	private void load()
 	{
+		log.info("Loading objects from bucket: s3://" + bucket.name() + "/" + basepath);
+
+		final Map<String, String> etags;
+		try {
+			etags = this.listMetsFiles();
+		}
+		catch (Exception error) {
+			log.log(Level.SEVERE, "Listing objects failed!", error);
+			return;
+		}
+
+		final var numRemoved = cache.retain(etags.keySet());
 		final var counter = UpdateCounts.counter();
-		final var objects = new ConcurrentHashMap<String, MetsObject>();
-		if (cache == null)
-			cache = Collections.emptyMap();
 
-		final Consumer<String> downloader = (objectId) -> {
+		// re-download only new or changed METS files
+		final Predicate<Map.Entry<String, String>> filter = (entry) -> {
+			return !cache.isValid(entry.getKey(), entry.getValue());
+		};
+
+		final Consumer<Map.Entry<String, String>> downloader = (entry) -> {
+			final var objectId = entry.getKey();
 			try {
-				final var mets = this.downloadMetsData(objectId);
-				objects.put(objectId, mets);
+				this.downloadMetsData(objectId, entry.getValue());
 				counter.increment(UpdateCounts.UPDATED);
 			}
 			catch (Exception error) {
@@ -159,15 +186,39 @@ public class DigitalObjectS3Archive extends DigitalObjectArchiveBase implements
 			}
 		};
 
-		log.info("Loading objects from bucket: s3://" + bucket.name() + "/" + basepath);
-		this.listObjectIds()
-				.forEach(downloader);
+		ParallelProcessors.consumer(filter, downloader)
+				.setNumTasks(metsDownloadTasks)
+				.consume(etags.entrySet().stream(), ObjectArchiveSingleton.executor());
 
-		final var numCached = counter.get(UpdateCounts.UPDATED);
+		final var numUpdated = counter.get(UpdateCounts.UPDATED);
 		final var numFailed = counter.get(UpdateCounts.FAILED);
-		log.info("Loaded " + numCached + " object(s), failed " + numFailed);
+		final var numUnchanged = etags.size() - numUpdated - numFailed;
+		log.info("Loaded " + numUpdated + " object(s), unchanged " + numUnchanged
+				+ ", removed " + numRemoved + ", failed " + numFailed);
+	}
+
+	/** List etags of all objects' METS files, etags may be null if invalid */
+	private Map<String, String> listMetsFiles() throws BWFLAException
+	{
+		final var prefix = basepath + "/";
+		final var etags = new HashMap<String, String>();
+		final Consumer<BlobDescription> collector = (blob) -> {
+			// NOTE: paths are expected to be of the form
+			//       "<prefix>/<object-id>/mets.xml"
 
-		return objects;
+			final var path = blob.name()
+					.substring(prefix.length());
+
+			final var endpos = path.indexOf("/");
+			if (endpos > 0 && path.substring(endpos + 1).equals(METS_MD_FILENAME))
+				etags.put(path.substring(0, endpos), blob.etag());
+		};
+
+		try (final var blobs = bucket.list(prefix)) {
+			blobs.forEach(collector);
+		}
+
+		return etags;
 	}
 
 	private static String strSaveFilename(String filename)
@@ -348,23 +399,7 @@ public class DigitalObjectS3Archive extends DigitalObjectArchiveBase implements
 	@Override
 	public Stream<String> getObjectIds()
 	{
-		return cache.keySet()
-				.stream();
-	}
-
-	private Stream<String> listObjectIds()
-	{
-		final var prefix = basepath + "/";
-
-		try {
-			return bucket.list(prefix)
-					.map(new ObjectIdMapper(prefix))
-					.filter(Objects::nonNull);
-		}
-		catch (Exception exception) {
-			log.log(Level.SEVERE, "Listing objects failed!", exception);
-			return Stream.empty();
-		}
+		return cache.ids();
 	}
 
 	private boolean objectExists(String objectId)
@@ -471,7 +506,9 @@ public class DigitalObjectS3Archive extends DigitalObjectArchiveBase implements
 				.stream(new ByteArrayInputStream(bytes), bytes.length)
 				.upload();
 
-		cache.put(mets.getID(), new MetsObject(metsdata));
+		// NOTE: blob's new etag is unknown here, hence
+		//       the entry will be revalidated on next sync!
+		cache.put(mets.getID(), null, metsdata);
 
 		log.info("Object metadata uploaded to: s3://" + bucket.name() + "/" + blob.name());
 	}
@@ -488,12 +525,12 @@ public class DigitalObjectS3Archive extends DigitalObjectArchiveBase implements
 	@Override
 	public void markAsSoftware(String objectId, boolean isSoftware) throws BWFLAException
 	{
-		final var mets = this.loadMetsData(objectId);
-		mets.markAsSoftware(isSoftware);
+		// ensure that object's metadata is cached
+		this.loadMetsData(objectId);
 
 		// NOTE: Update only cached metadata for now, since that
 		//       attribute is expected to be managed externally!
-		cache.put(mets.getId(), mets);
+		cache.markAsSoftware(objectId, isSoftware);
 
 		if (isSoftware)
 			log.info("Marked object '" + objectId + "' as software");
@@ -607,25 +644,25 @@ public class DigitalObjectS3Archive extends DigitalObjectArchiveBase implements
 
 	private MetsObject loadMetsData(String objectId) throws BWFLAException
 	{
-		final Function<String, MetsObject> loader = (oid) -> {
-			try {
-				return this.downloadMetsData(oid);
-			}
-			catch (Exception error) {
-				throw new RuntimeException(error);
-			}
-		};
+		final var mets = cache.get(objectId);
+		if (mets != null)
+			return mets;
 
-		return cache.computeIfAbsent(objectId, loader);
+		return this.downloadMetsData(objectId, null);
 	}
 
-	private MetsObject downloadMetsData(String objectId) throws BWFLAException
+	private MetsObject downloadMetsData(String objectId, String etag) throws BWFLAException
 	{
 		final var path = this.location(objectId)
 				.resolve(METS_MD_FILENAME);
 
 		final var blob = bucket.blob(path.toString());
 		try {
+			// NOTE: query etag before downloading, so that a concurrent
+			//       update will be detected and re-fetched on next sync!
+			if (etag == null)
+				etag = blob.stat().etag();
+
 			final var stream = blob.downloader()
 					.download();
 
@@ -635,18 +672,14 @@ public class DigitalObjectS3Archive extends DigitalObjectArchiveBase implements
 				value = new String(bytes, StandardCharsets.UTF_8);
 			}
 
-			final var mets = new MetsObject(value);
-			final var oldmets = cache.get(objectId);
-			if (oldmets != null)
-				mets.markAsSoftware(oldmets.isSoftware());
-
-			return mets;
+			return cache.put(objectId, etag, value);
 		}
 		catch (IOException error) {
 			throw new BWFLAException("Downloading METS metadata for object '" + objectId + "' failed!", error);
 		}
 	}
 
+	/** Lazily load metadata of all objects, parsing cached METS files on demand */
 	@Override
 	public Stream<DigitalObjectMetadata> getObjectMetadata()
 	{
@@ -693,7 +726,7 @@ public class DigitalObjectS3Archive extends DigitalObjectArchiveBase implements
 	@Override
 	public void sync()
 	{
-		this.cache = this.load();
+		this.load();
 	}
 
 	@Override
@@ -722,44 +755,6 @@ public class DigitalObjectS3Archive extends DigitalObjectArchiveBase implements
 
 	// ===== Internal Helpers ===============
 
-	private static class ObjectIdMapper implements Function<BlobDescription, String>
-	{
-		private final String prefix;
-		private String previd;
-
-		public ObjectIdMapper(String prefix)
-		{
-			this.prefix = prefix;
-			this.previd = null;
-		}
-
-		@Override
-		public String apply(BlobDescription blob)
-		{
-			// NOTE: paths are expected to be of the form
-			//       "<prefix>/<object-id>/<subpath>"
-
-			// NOTE: usually multiple files are stored for each object,
-			//       hence multiple paths per object-id will be listed!
-
-			final var path = blob.name()
-					.substring(prefix.length());
-
-			final var endpos = path.indexOf("/");
-
-			String curid = null;
-			if (endpos > 0) {
-				curid = path.substring(0, endpos);
-				if (curid.equals(previd))
-					return null;
-
-				previd = curid;
-			}
-
-			return curid;
-		}
-	}
-
 	private static class DefaultBlobFilter implements Predicate<String>
 	{
 		@Override
@@ -1002,8 +997,7 @@ public class DigitalObjectS3Archive extends DigitalObjectArchiveBase implements
 			Exception exception = null;
 			for (final var objectId : objectIds) {
 				try {
-					final var mets = DigitalObjectS3Archive.this.downloadMetsData(objectId);
-					cache.put(objectId, mets);
+					DigitalObjectS3Archive.this.downloadMetsData(objectId, null);
 					++numLoaded;
 				}
 				catch (Exception error) {
@@ -0,0 +1,298 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.objectarchive.impl;
+
+import de.bwl.bwfla.common.exceptions.BWFLAException;
+import de.bwl.bwfla.objectarchive.datatypes.MetsObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+
+/**
+ * Persistent cache for objects' METS metadata. Raw METS documents are stored on disk
+ * together with a source-specific version tag (e.g. an etag), so that unchanged
+ * documents can be reused across restarts and syncs. Only a bounded number
+ * of parsed documents is kept in memory.
+ */
+public class MetsMetadataCache
+{
+	private final Logger log;
+	private final Path basedir;
+	private final Map<String, Entry> entries;
+	private final Map<String, MetsObject> parsed;
+
+	private static final String METS_FILE_EXT = ".xml";
+	private static final String TAG_FILE_EXT = ".tag";
+
+
+	public MetsMetadataCache(Path basedir, int capacity, Logger log) throws BWFLAException
+	{
+		try {
+			Files.createDirectories(basedir);
+		}
+		catch (IOException error) {
+			throw new BWFLAException("Creating METS cache directory failed!", error);
+		}
+
+		this.log = log;
+		this.basedir = basedir;
+		this.entries = new ConcurrentHashMap<>();
+		this.parsed = Collections.synchronizedMap(new LruMap(capacity));
+	}
+
+	/** Return IDs of all cached objects */
+	public Stream<String> ids()
+	{
+		return entries.keySet()
+				.stream();
+	}
+
+	public boolean contains(String id)
+	{
+		return entries.containsKey(id);
+	}
+
+	/** Check whether a cached document exists for given object and matches given version tag */
+	public boolean isValid(String id, String tag)
+	{
+		if (tag == null)
+			return false;
+
+		var entry = entries.get(id);
+		if (entry == null)
+			entry = this.restore(id);
+
+		return entry != null && tag.equals(entry.tag());
+	}
+
+	/** Look up cached METS metadata, returns null if not cached */
+	public MetsObject get(String id) throws BWFLAException
+	{
+		final var entry = entries.get(id);
+		if (entry == null)
+			return null;
+
+		var mets = parsed.get(id);
+		if (mets == null) {
+			try {
+				final var metsdata = Files.readString(this.metsfile(id), StandardCharsets.UTF_8);
+				mets = new MetsObject(metsdata);
+			}
+			catch (IOException error) {
+				// cached file is gone, force a reload from source
+				entries.remove(id, entry);
+				log.log(Level.WARNING, "Reading cached METS metadata for object '" + id + "' failed!", error);
+				return null;
+			}
+
+			parsed.put(id, mets);
+		}
+
+		mets.markAsSoftware(entry.isSoftware());
+		return mets;
+	}
+
+	/** Store METS metadata with its version tag, which may be null if unknown */
+	public MetsObject put(String id, String tag, String metsdata) throws BWFLAException
+	{
+		final var mets = new MetsObject(metsdata);
+		try {
+			this.write(this.metsfile(id), metsdata);
+			if (tag != null)
+				this.write(this.tagfile(id), tag);
+			else Files.deleteIfExists(this.tagfile(id));
+		}
+		catch (IOException error) {
+			throw new BWFLAException("Caching METS metadata for object '" + id + "' failed!", error);
+		}
+
+		final var oldentry = entries.get(id);
+		final var software = oldentry != null && oldentry.isSoftware();
+		entries.put(id, new Entry(tag, software));
+		parsed.put(id, mets);
+
+		mets.markAsSoftware(software);
+		return mets;
+	}
+
+	public void remove(String id)
+	{
+		entries.remove(id);
+		parsed.remove(id);
+
+		try {
+			Files.deleteIfExists(this.metsfile(id));
+			Files.deleteIfExists(this.tagfile(id));
+		}
+		catch (IOException error) {
+			log.log(Level.WARNING, "Removing cached METS metadata for object '" + id + "' failed!", error);
+		}
+	}
+
+	/** Remove all entries not contained in given IDs, including files not restored yet */
+	public int retain(Collection<String> ids)
+	{
+		final var removed = new HashSet<String>();
+		entries.keySet()
+				.stream()
+				.filter((id) -> !ids.contains(id))
+				.forEach(removed::add);
+
+		// Entries are restored lazily, hence cached files of
+		// objects deleted while not running must be found too
+		try (final var files = Files.list(basedir)) {
+			files.map((path) -> MetsMetadataCache.toObjectId(path.getFileName().toString()))
+					.filter((id) -> id != null && !ids.contains(id))
+					.forEach(removed::add);
+		}
+		catch (IOException error) {
+			log.log(Level.WARNING, "Listing cached METS metadata failed!", error);
+		}
+
+		for (final var id : removed)
+			this.remove(id);
+
+		return removed.size();
+	}
+
+	/** Update object's software flag, which is kept in memory only */
+	public void markAsSoftware(String id, boolean software)
+	{
+		entries.computeIfPresent(id, (key, entry) -> new Entry(entry.tag(), software));
+		final var mets = parsed.get(id);
+		if (mets != null)
+			mets.markAsSoftware(software);
+	}
+
+
+	// ===== Internal Helpers ===============
+
+	private Entry restore(String id)
+	{
+		final var tagfile = this.tagfile(id);
+		if (!Files.exists(tagfile) || !Files.exists(this.metsfile(id)))
+			return null;
+
+		try {
+			final var entry = new Entry(Files.readString(tagfile, StandardCharsets.UTF_8), false);
+			final var other = entries.putIfAbsent(id, entry);
+			return (other != null) ? other : entry;
+		}
+		catch (IOException error) {
+			log.log(Level.WARNING, "Restoring cached METS metadata for object '" + id + "' failed!", error);
+			return null;
+		}
+	}
+
+	private static String toObjectId(String filename)
+	{
+		for (final var ext : new String[] { METS_FILE_EXT, TAG_FILE_EXT }) {
+			if (filename.endsWith(ext))
+				return filename.substring(0, filename.length() - ext.length());
+		}
+
+		return null;
+	}
+
+	private void write(Path path, String data) throws IOException
+	{
+		// write to a temporary file first, to never expose partial files
+		final var tmpfile = Files.createTempFile(basedir, ".", ".tmp");
+		try {
+			Files.writeString(tmpfile, data, StandardCharsets.UTF_8);
+			Files.move(tmpfile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(tmpfile);
+		}
+	}
+
+	private Path metsfile(String id)
+	{
+		return this.resolve(id + METS_FILE_EXT);
+	}
+
+	private Path tagfile(String id)
+	{
+		return this.resolve(id + TAG_FILE_EXT);
+	}
+
+	private Path resolve(String filename)
+	{
+		final var path = basedir.resolve(filename);
+		if (!basedir.equals(path.getParent()))
+			throw new IllegalArgumentException("Invalid object ID: " + filename);
+
+		return path;
+	}
+
+	private static class Entry
+	{
+		private final String tag;
+		private final boolean software;
+
+		public Entry(String tag, boolean software)
+		{
+			this.tag = tag;
+			this.software = software;
+		}
+
+		public String tag()
+		{
+			return tag;
+		}
+
+		public boolean isSoftware()
+		{
+			return software;
+		}
+	}
+
+	private static class LruMap extends LinkedHashMap<String, MetsObject>
+	{
+		private final int capacity;
+
+		public LruMap(int capacity)
+		{
+			super(16, 0.75F, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, MetsObject> eldest)
+		{
+			return this.size() > capacity;
+		}
+	}
+}
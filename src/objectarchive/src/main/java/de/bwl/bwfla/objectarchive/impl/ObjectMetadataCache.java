@@ -0,0 +1,261 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.bwl.bwfla.objectarchive.impl;
+
+import de.bwl.bwfla.common.datatypes.DigitalObjectMetadata;
+import de.bwl.bwfla.objectarchive.datatypes.MetsObject;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Bounded in-memory cache of parsed object metadata for file-based archives.
+ * Entries are validated against a {@link Stamp} of the underlying files, hence
+ * modified objects are reloaded on next lookup. Optionally, the archive's directory
+ * can be watched for added or removed objects, which will invalidate affected entries.
+ */
+public class ObjectMetadataCache
+{
+	private final Logger log;
+	private final Map<String, Entry> entries;
+	private volatile WatchService watcher;
+
+	public ObjectMetadataCache(int capacity, Logger log)
+	{
+		this.log = log;
+		this.entries = Collections.synchronizedMap(new LruMap(capacity));
+	}
+
+	/** Look up a cached entry, returns null if not cached or outdated */
+	public Entry get(String id, Stamp stamp)
+	{
+		this.poll();
+
+		final var entry = entries.get(id);
+		if (entry == null || !entry.stamp().equals(stamp))
+			return null;
+
+		return entry;
+	}
+
+	public Entry put(String id, Stamp stamp, MetsObject mets)
+	{
+		final var entry = new Entry(stamp, mets);
+		entries.put(id, entry);
+		return entry;
+	}
+
+	public void remove(String id)
+	{
+		entries.remove(id);
+	}
+
+	public void clear()
+	{
+		entries.clear();
+	}
+
+	/** Invalidate entries of objects added to or removed from given directory */
+	public synchronized void watch(Path basedir) throws IOException
+	{
+		if (watcher != null)
+			return;
+
+		final var service = basedir.getFileSystem()
+				.newWatchService();
+
+		basedir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+		this.watcher = service;
+
+		log.info("Watching directory for object changes: " + basedir);
+	}
+
+	/** Stop watching the directory, if any */
+	public synchronized void close()
+	{
+		final var service = watcher;
+		if (service == null)
+			return;
+
+		this.watcher = null;
+		try {
+			service.close();
+		}
+		catch (IOException error) {
+			log.log(Level.WARNING, "Closing directory watcher failed!", error);
+		}
+	}
+
+
+	// ===== Internal Helpers ===============
+
+	private void poll()
+	{
+		final var service = watcher;
+		if (service == null)
+			return;
+
+		// NOTE: pending events are processed by lookups,
+		//       hence no background thread is needed here!
+
+		try {
+			WatchKey key;
+			while ((key = service.poll()) != null) {
+				for (final var event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						entries.clear();
+						continue;
+					}
+
+					final var path = (Path) event.context();
+					entries.remove(path.getFileName().toString());
+				}
+
+				if (!key.reset()) {
+					log.warning("Watched directory is not accessible anymore!");
+					entries.clear();
+				}
+			}
+		}
+		catch (ClosedWatchServiceException error) {
+			// watcher was closed concurrently, events are lost
+			entries.clear();
+		}
+	}
+
+	/** Snapshot of files' modification times and sizes */
+	public static class Stamp
+	{
+		private final long[] values;
+
+		private Stamp(long[] values)
+		{
+			this.values = values;
+		}
+
+		public static Stamp of(Path... paths) throws IOException
+		{
+			final var values = new long[2 * paths.length];
+			for (int i = 0; i < paths.length; ++i) {
+				try {
+					final var attrs = Files.readAttributes(paths[i], BasicFileAttributes.class);
+					values[2 * i] = attrs.lastModifiedTime().toMillis();
+					values[2 * i + 1] = attrs.size();
+				}
+				catch (NoSuchFileException error) {
+					values[2 * i] = -1L;
+					values[2 * i + 1] = -1L;
+				}
+			}
+
+			return new Stamp(values);
+		}
+
+		public boolean exists(int index)
+		{
+			return values[2 * index + 1] >= 0L;
+		}
+
+		@Override
+		public boolean equals(Object other)
+		{
+			if (this == other)
+				return true;
+
+			if (!(other instanceof Stamp))
+				return false;
+
+			return Arrays.equals(values, ((Stamp) other).values);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Arrays.hashCode(values);
+		}
+	}
+
+	public static class Entry
+	{
+		private final Stamp stamp;
+		private final MetsObject mets;
+		private volatile DigitalObjectMetadata metadata;
+
+		private Entry(Stamp stamp, MetsObject mets)
+		{
+			this.stamp = stamp;
+			this.mets = mets;
+		}
+
+		public Stamp stamp()
+		{
+			return stamp;
+		}
+
+		/** Parsed METS object, which must not be modified */
+		public MetsObject mets()
+		{
+			return mets;
+		}
+
+		public DigitalObjectMetadata metadata()
+		{
+			return metadata;
+		}
+
+		public Entry setMetadata(DigitalObjectMetadata metadata)
+		{
+			this.metadata = metadata;
+			return this;
+		}
+	}
+
+	private static class LruMap extends LinkedHashMap<String, Entry>
+	{
+		private final int capacity;
+
+		public LruMap(int capacity)
+		{
+			super(16, 0.75F, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+		{
+			return this.size() > capacity;
+		}
+	}
+}
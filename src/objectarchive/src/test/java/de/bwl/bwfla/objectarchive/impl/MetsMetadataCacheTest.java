@@ -0,0 +1,227 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.bwl.bwfla.objectarchive.impl;
+
+import de.bwl.bwfla.common.exceptions.BWFLAException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+public class MetsMetadataCacheTest
+{
+	private static final Logger LOG = Logger.getLogger(MetsMetadataCacheTest.class.getName());
+
+	private Path basedir;
+
+
+	@BeforeClass
+	public static void setUpJaxb()
+	{
+		// JAXB's implementation is provided by the application server otherwise
+		System.setProperty("javax.xml.bind.JAXBContextFactory", "org.eclipse.persistence.jaxb.JAXBContextFactory");
+	}
+
+	@Before
+	public void setUp() throws IOException
+	{
+		basedir = Files.createTempDirectory("mets-cache-");
+	}
+
+	@After
+	public void tearDown() throws IOException
+	{
+		try (Stream<Path> files = Files.walk(basedir)) {
+			files.sorted(Comparator.reverseOrder())
+					.forEach((file) -> file.toFile().delete());
+		}
+	}
+
+	@Test
+	public void testCachedDocumentIsValidForSameTag() throws BWFLAException
+	{
+		final var cache = new MetsMetadataCache(basedir, 4, LOG);
+		Assert.assertFalse(cache.isValid("obj-1", "etag-1"));
+		Assert.assertNull(cache.get("obj-1"));
+
+		cache.put("obj-1", "etag-1", MetsMetadataCacheTest.mets("obj-1"));
+		Assert.assertTrue(cache.isValid("obj-1", "etag-1"));
+		Assert.assertFalse(cache.isValid("obj-1", "etag-2"));
+		Assert.assertFalse(cache.isValid("obj-1", null));
+		Assert.assertEquals("obj-1", cache.get("obj-1").getId());
+	}
+
+	@Test
+	public void testChangedDocumentIsReplaced() throws BWFLAException
+	{
+		final var cache = new MetsMetadataCache(basedir, 4, LOG);
+		cache.put("obj-1", "etag-1", MetsMetadataCacheTest.mets("obj-1", "old"));
+		cache.put("obj-1", "etag-2", MetsMetadataCacheTest.mets("obj-1", "new"));
+		Assert.assertFalse(cache.isValid("obj-1", "etag-1"));
+		Assert.assertTrue(cache.isValid("obj-1", "etag-2"));
+		Assert.assertEquals("new", cache.get("obj-1").getLabel());
+
+		// documents without tags can never be validated
+		cache.put("obj-1", null, MetsMetadataCacheTest.mets("obj-1"));
+		Assert.assertFalse(cache.isValid("obj-1", "etag-2"));
+		Assert.assertFalse(Files.exists(basedir.resolve("obj-1.tag")));
+	}
+
+	@Test
+	public void testEvictedDocumentIsReparsed() throws BWFLAException
+	{
+		final var cache = new MetsMetadataCache(basedir, 2, LOG);
+		final var first = cache.put("obj-1", "etag-1", MetsMetadataCacheTest.mets("obj-1"));
+		final var second = cache.put("obj-2", "etag-2", MetsMetadataCacheTest.mets("obj-2"));
+		Assert.assertSame(first, cache.get("obj-1"));
+
+		// obj-2 is least recently used now and should be evicted from memory
+		final var third = cache.put("obj-3", "etag-3", MetsMetadataCacheTest.mets("obj-3"));
+		Assert.assertSame(first, cache.get("obj-1"));
+		Assert.assertSame(third, cache.get("obj-3"));
+
+		final var reparsed = cache.get("obj-2");
+		Assert.assertNotSame(second, reparsed);
+		Assert.assertEquals("obj-2", reparsed.getId());
+		Assert.assertTrue(cache.isValid("obj-2", "etag-2"));
+	}
+
+	@Test
+	public void testSoftwareFlagSurvivesEviction() throws BWFLAException
+	{
+		final var cache = new MetsMetadataCache(basedir, 1, LOG);
+		cache.put("obj-1", "etag-1", MetsMetadataCacheTest.mets("obj-1"));
+		cache.markAsSoftware("obj-1", true);
+		Assert.assertTrue(cache.get("obj-1").isSoftware());
+
+		cache.put("obj-2", "etag-2", MetsMetadataCacheTest.mets("obj-2"));
+		Assert.assertTrue(cache.get("obj-1").isSoftware());
+		Assert.assertFalse(cache.get("obj-2").isSoftware());
+
+		// updates keep the flag too
+		cache.put("obj-1", "etag-3", MetsMetadataCacheTest.mets("obj-1"));
+		Assert.assertTrue(cache.get("obj-1").isSoftware());
+	}
+
+	@Test
+	public void testDocumentsAreRestoredAfterRestart() throws BWFLAException
+	{
+		new MetsMetadataCache(basedir, 4, LOG)
+				.put("obj-1", "etag-1", MetsMetadataCacheTest.mets("obj-1"));
+
+		final var cache = new MetsMetadataCache(basedir, 4, LOG);
+		Assert.assertFalse(cache.contains("obj-1"));
+		Assert.assertFalse(cache.isValid("obj-1", "etag-2"));
+		Assert.assertTrue(cache.isValid("obj-1", "etag-1"));
+		Assert.assertEquals("obj-1", cache.get("obj-1").getId());
+	}
+
+	@Test
+	public void testRemovedDocumentIsInvalidated() throws BWFLAException
+	{
+		final var cache = new MetsMetadataCache(basedir, 4, LOG);
+		cache.put("obj-1", "etag-1", MetsMetadataCacheTest.mets("obj-1"));
+		cache.remove("obj-1");
+
+		Assert.assertFalse(cache.contains("obj-1"));
+		Assert.assertFalse(cache.isValid("obj-1", "etag-1"));
+		Assert.assertNull(cache.get("obj-1"));
+		Assert.assertEquals(0L, MetsMetadataCacheTest.count(basedir));
+	}
+
+	@Test
+	public void testMissingFileInvalidatesEntry() throws Exception
+	{
+		final var cache = new MetsMetadataCache(basedir, 1, LOG);
+		cache.put("obj-1", "etag-1", MetsMetadataCacheTest.mets("obj-1"));
+		cache.put("obj-2", "etag-2", MetsMetadataCacheTest.mets("obj-2"));
+
+		// obj-1 is evicted from memory, so it must be re-read from disk
+		Files.delete(basedir.resolve("obj-1.xml"));
+		Assert.assertNull(cache.get("obj-1"));
+		Assert.assertFalse(cache.contains("obj-1"));
+	}
+
+	@Test
+	public void testRetainRemovesUnknownObjects() throws BWFLAException
+	{
+		new MetsMetadataCache(basedir, 4, LOG)
+				.put("obj-0", "etag-0", MetsMetadataCacheTest.mets("obj-0"));
+
+		final var cache = new MetsMetadataCache(basedir, 4, LOG);
+		cache.put("obj-1", "etag-1", MetsMetadataCacheTest.mets("obj-1"));
+		cache.put("obj-2", "etag-2", MetsMetadataCacheTest.mets("obj-2"));
+
+		// obj-0 was cached before restart and is not restored yet
+		Assert.assertEquals(2, cache.retain(List.of("obj-2")));
+		Assert.assertEquals(List.of("obj-2"), cache.ids().collect(Collectors.toList()));
+		Assert.assertFalse(cache.isValid("obj-0", "etag-0"));
+		Assert.assertFalse(cache.isValid("obj-1", "etag-1"));
+		Assert.assertTrue(cache.isValid("obj-2", "etag-2"));
+		Assert.assertEquals(2L, MetsMetadataCacheTest.count(basedir));
+	}
+
+	@Test
+	public void testInvalidObjectIdIsRejected() throws BWFLAException
+	{
+		final var cache = new MetsMetadataCache(basedir, 4, LOG);
+		try {
+			cache.put("../obj-1", "etag-1", MetsMetadataCacheTest.mets("obj-1"));
+			Assert.fail("Object IDs with path components should be rejected!");
+		}
+		catch (IllegalArgumentException error) {
+			// Expected!
+		}
+	}
+
+
+	// ===== Internal Helpers ===============
+
+	static String mets(String id)
+	{
+		return MetsMetadataCacheTest.mets(id, "label");
+	}
+
+	static String mets(String id, String label)
+	{
+		return "<mets:mets xmlns:mets=\"http://www.loc.gov/METS/\" ID=\"" + id + "\" LABEL=\"" + label + "\"/>";
+	}
+
+	private static long count(Path dir) throws BWFLAException
+	{
+		try (final var files = Files.list(dir)) {
+			return files.count();
+		}
+		catch (IOException error) {
+			throw new BWFLAException(error);
+		}
+	}
+}
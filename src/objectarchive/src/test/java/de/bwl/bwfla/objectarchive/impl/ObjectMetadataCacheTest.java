@@ -0,0 +1,180 @@
+/*
+ * This file is part of the Emulation-as-a-Service framework.
+ *
+ * The Emulation-as-a-Service framework is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * The Emulation-as-a-Service framework is distributed in the hope that
+ * it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Emulation-as-a-Software framework.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.bwl.bwfla.objectarchive.impl;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+
+public class ObjectMetadataCacheTest
+{
+	private static final Logger LOG = Logger.getLogger(ObjectMetadataCacheTest.class.getName());
+
+	private Path basedir;
+	private ObjectMetadataCache cache;
+
+
+	@Before
+	public void setUp() throws IOException
+	{
+		basedir = Files.createTempDirectory("object-cache-");
+		cache = new ObjectMetadataCache(2, LOG);
+	}
+
+	@After
+	public void tearDown() throws IOException
+	{
+		cache.close();
+
+		try (Stream<Path> files = Files.walk(basedir)) {
+			files.sorted(Comparator.reverseOrder())
+					.forEach((file) -> file.toFile().delete());
+		}
+	}
+
+	@Test
+	public void testUnchangedEntryIsReturned() throws Exception
+	{
+		// METS objects are opaque to the cache, hence not needed here
+		final var metsfile = this.object("obj-1");
+		final var entry = cache.put("obj-1", ObjectMetadataCache.Stamp.of(metsfile), null);
+		Assert.assertSame(entry, cache.get("obj-1", ObjectMetadataCache.Stamp.of(metsfile)));
+		Assert.assertNull(cache.get("obj-2", ObjectMetadataCache.Stamp.of(metsfile)));
+	}
+
+	@Test
+	public void testModifiedEntryIsInvalidated() throws Exception
+	{
+		final var metsfile = this.object("obj-1");
+		cache.put("obj-1", ObjectMetadataCache.Stamp.of(metsfile), null);
+
+		// changed modification time
+		final var mtime = Files.getLastModifiedTime(metsfile).toMillis();
+		Files.setLastModifiedTime(metsfile, FileTime.fromMillis(mtime + 5000L));
+		Assert.assertNull(cache.get("obj-1", ObjectMetadataCache.Stamp.of(metsfile)));
+
+		// changed size, but same modification time
+		cache.put("obj-1", ObjectMetadataCache.Stamp.of(metsfile), null);
+		Files.writeString(metsfile, MetsMetadataCacheTest.mets("obj-1", "longer label"));
+		Files.setLastModifiedTime(metsfile, FileTime.fromMillis(mtime + 5000L));
+		Assert.assertNull(cache.get("obj-1", ObjectMetadataCache.Stamp.of(metsfile)));
+	}
+
+	@Test
+	public void testStampsOfMissingFiles() throws Exception
+	{
+		final var metsfile = this.object("obj-1");
+		final var missing = basedir.resolve("obj-1").resolve("thumbnail.jpeg");
+		final var stamp = ObjectMetadataCache.Stamp.of(metsfile, missing);
+		Assert.assertTrue(stamp.exists(0));
+		Assert.assertFalse(stamp.exists(1));
+		Assert.assertEquals(stamp, ObjectMetadataCache.Stamp.of(metsfile, missing));
+		Assert.assertEquals(stamp.hashCode(), ObjectMetadataCache.Stamp.of(metsfile, missing).hashCode());
+
+		// created files should invalidate stamps too
+		Files.writeString(missing, "thumbnail");
+		Assert.assertNotEquals(stamp, ObjectMetadataCache.Stamp.of(metsfile, missing));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEntryIsEvicted() throws Exception
+	{
+		final var stamps = new ObjectMetadataCache.Stamp[3];
+		for (int i = 0; i < stamps.length; ++i)
+			stamps[i] = ObjectMetadataCache.Stamp.of(this.object("obj-" + i));
+
+		cache.put("obj-0", stamps[0], null);
+		cache.put("obj-1", stamps[1], null);
+		Assert.assertNotNull(cache.get("obj-0", stamps[0]));
+
+		// obj-1 is least recently used now
+		cache.put("obj-2", stamps[2], null);
+		Assert.assertNull(cache.get("obj-1", stamps[1]));
+		Assert.assertNotNull(cache.get("obj-0", stamps[0]));
+		Assert.assertNotNull(cache.get("obj-2", stamps[2]));
+	}
+
+	@Test
+	public void testRemovedEntriesAreInvalidated() throws Exception
+	{
+		final var stamp = ObjectMetadataCache.Stamp.of(this.object("obj-1"));
+		cache.put("obj-1", stamp, null);
+		cache.remove("obj-1");
+		Assert.assertNull(cache.get("obj-1", stamp));
+
+		cache.put("obj-1", stamp, null);
+		cache.clear();
+		Assert.assertNull(cache.get("obj-1", stamp));
+	}
+
+	@Test
+	public void testWatchedDirectoryInvalidatesEntries() throws Exception
+	{
+		final var metsfile = this.object("obj-1");
+		final var stamp = ObjectMetadataCache.Stamp.of(metsfile);
+		cache.watch(basedir);
+
+		// a replaced object directory keeps the stamp of its METS file
+		cache.put("obj-1", stamp, null);
+		final var tmpdir = Files.move(metsfile.getParent(), basedir.resolveSibling(basedir.getFileName() + "-moved"));
+		Files.move(tmpdir, metsfile.getParent());
+
+		final var deadline = System.currentTimeMillis() + 10000L;
+		while (cache.get("obj-1", stamp) != null && System.currentTimeMillis() < deadline)
+			Thread.sleep(10L);
+
+		Assert.assertNull(cache.get("obj-1", stamp));
+	}
+
+	@Test
+	public void testClosedWatcherKeepsEntries() throws Exception
+	{
+		final var stamp = ObjectMetadataCache.Stamp.of(this.object("obj-1"));
+		cache.watch(basedir);
+		cache.close();
+
+		cache.put("obj-1", stamp, null);
+		this.object("obj-2");
+		Thread.sleep(100L);
+		Assert.assertNotNull(cache.get("obj-1", stamp));
+	}
+
+
+	// ===== Internal Helpers ===============
+
+	private Path object(String id) throws IOException
+	{
+		final var metsfile = Files.createDirectories(basedir.resolve(id))
+				.resolve("mets.xml");
+
+		Files.writeString(metsfile, MetsMetadataCacheTest.mets(id));
+		return metsfile;
+	}
+}